@@ -99,6 +99,12 @@ public interface MessageBus extends Closeable {
 
     RingQueue<TableWriterTask> getTableWriterEventQueue();
 
+    Sequence getTextImportPubSeq();
+
+    RingQueue<TextImportTask> getTextImportQueue();
+
+    Sequence getTextImportSubSeq();
+
     Sequence getVectorAggregatePubSeq();
 
     RingQueue<VectorAggregateTask> getVectorAggregateQueue();
@@ -63,6 +63,10 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence o3CopyPubSeq;
     private final MCSequence o3CopySubSeq;
 
+    private final RingQueue<TextImportTask> textImportQueue;
+    private final MPSequence textImportPubSeq;
+    private final MCSequence textImportSubSeq;
+
     private final RingQueue<LatestByTask> latestByQueue;
     private final MPSequence latestByPubSeq;
     private final MCSequence latestBySubSeq;
@@ -120,6 +124,11 @@ public class MessageBusImpl implements MessageBus {
         this.o3PurgeDiscoverySubSeq = new MCSequence(this.o3PurgeDiscoveryQueue.getCycle());
         this.o3PurgeDiscoveryPubSeq.then(this.o3PurgeDiscoverySubSeq).then(o3PurgeDiscoveryPubSeq);
 
+        this.textImportQueue = new RingQueue<>(TextImportTask::new, configuration.getSqlCopyQueueCapacity());
+        this.textImportPubSeq = new MPSequence(textImportQueue.getCycle());
+        this.textImportSubSeq = new MCSequence(textImportQueue.getCycle());
+        textImportPubSeq.then(textImportSubSeq).then(textImportPubSeq);
+
         this.latestByQueue = new RingQueue<>(LatestByTask::new, configuration.getLatestByQueueCapacity());
         this.latestByPubSeq = new MPSequence(latestByQueue.getCycle());
         this.latestBySubSeq = new MCSequence(latestByQueue.getCycle());
@@ -343,6 +352,21 @@ public class MessageBusImpl implements MessageBus {
         return tableWriterEventQueue;
     }
 
+    @Override
+    public Sequence getTextImportPubSeq() {
+        return textImportPubSeq;
+    }
+
+    @Override
+    public RingQueue<TextImportTask> getTextImportQueue() {
+        return textImportQueue;
+    }
+
+    @Override
+    public Sequence getTextImportSubSeq() {
+        return textImportSubSeq;
+    }
+
     @Override
     public Sequence getVectorAggregatePubSeq() {
         return vectorAggregatePubSeq;
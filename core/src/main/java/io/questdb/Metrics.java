@@ -27,6 +27,9 @@ package io.questdb;
 import io.questdb.cairo.TableWriterMetrics;
 import io.questdb.cutlass.http.processors.HealthCheckMetrics;
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
+import io.questdb.cutlass.line.tcp.LineTcpMetrics;
+import io.questdb.cutlass.pgwire.PGWireMetrics;
+import io.questdb.griffin.engine.cache.QueryResultCacheMetrics;
 import io.questdb.metrics.MetricsRegistry;
 import io.questdb.metrics.MetricsRegistryImpl;
 import io.questdb.metrics.NullMetricsRegistry;
@@ -40,6 +43,9 @@ public class Metrics implements Scrapable {
     private final JsonQueryMetrics jsonQuery;
     private final HealthCheckMetrics healthCheck;
     private final TableWriterMetrics tableWriter;
+    private final LineTcpMetrics lineTcp;
+    private final PGWireMetrics pgWire;
+    private final QueryResultCacheMetrics queryResultCache;
     private final MetricsRegistry metricsRegistry;
 
     Metrics(boolean enabled, MetricsRegistry metricsRegistry) {
@@ -47,6 +53,9 @@ public class Metrics implements Scrapable {
         this.jsonQuery = new JsonQueryMetrics(metricsRegistry);
         this.healthCheck = new HealthCheckMetrics(metricsRegistry);
         this.tableWriter = new TableWriterMetrics(metricsRegistry);
+        this.lineTcp = new LineTcpMetrics(metricsRegistry);
+        this.pgWire = new PGWireMetrics(metricsRegistry);
+        this.queryResultCache = new QueryResultCacheMetrics(metricsRegistry);
         createMemoryGauges(metricsRegistry);
         this.metricsRegistry = metricsRegistry;
     }
@@ -86,6 +95,18 @@ public class Metrics implements Scrapable {
         return tableWriter;
     }
 
+    public LineTcpMetrics lineTcp() {
+        return lineTcp;
+    }
+
+    public PGWireMetrics pgWire() {
+        return pgWire;
+    }
+
+    public QueryResultCacheMetrics queryResultCache() {
+        return queryResultCache;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         metricsRegistry.scrapeIntoPrometheus(sink);
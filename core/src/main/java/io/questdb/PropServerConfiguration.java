@@ -61,6 +61,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     public static final String CONFIG_DIRECTORY = "conf";
     public static final String DB_DIRECTORY = "db";
     public static final String SNAPSHOT_DIRECTORY = "snapshot";
+    public static final String SPILL_DIRECTORY = "tmp";
     public static final long COMMIT_INTERVAL_DEFAULT = 2000;
     private static final LowerCaseCharSequenceIntHashMap WRITE_FO_OPTS = new LowerCaseCharSequenceIntHashMap();
     private static final Map<String, String> OBSOLETE_SETTINGS = new HashMap<>();
@@ -109,6 +110,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlMapPageSize;
     private final int sqlMapMaxPages;
     private final int sqlMapMaxResizes;
+    private final long sqlSpillThreshold;
+    private final int sqlSpillPartitionCount;
+    private final String sqlSpillRoot;
     private final int sqlModelPoolCapacity;
     private final int sqlMaxNegativeLimit;
     private final long sqlSortKeyPageSize;
@@ -122,6 +126,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlHashJoinLightValueMaxPages;
     private final int sqlSortValuePageSize;
     private final int sqlSortValueMaxPages;
+    private final boolean sqlResultCacheEnabled;
+    private final long sqlResultCacheSize;
+    private final long sqlResultCacheMaxEntrySize;
+    private final long sqlResultCachePageSize;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
     private final int sqlJoinMetadataPageSize;
@@ -143,6 +151,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final InputFormatConfiguration inputFormatConfiguration;
     private final LineProtoTimestampAdapter lineUdpTimestampAdapter;
     private final String inputRoot;
+    private final String inputWorkRoot;
+    private final int sqlCopyQueueCapacity;
     private final boolean lineUdpEnabled;
     private final int lineUdpOwnThreadAffinity;
     private final boolean lineUdpUnicast;
@@ -257,6 +267,19 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int columnPurgeRetryLimitDays;
     private final long columnPurgeRetryDelay;
     private final boolean sqlParallelFilterEnabled;
+    private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelLatestByEnabled;
+    private final boolean sqlParallelSortEnabled;
+    private final int walSegmentRolloverRowCount;
+    private final int columnCompressionPartitionLag;
+    private final int parquetRowGroupSize;
+    private final boolean parquetCompressionEnabled;
+    private final boolean partitionStatsEnabled;
+    private final String coldRoot;
+    private final long coldPartitionAge;
+    private final long coldCheckInterval;
+    private final long ttlCheckInterval;
     private final int cairoPageFrameReduceShardCount;
     private int lineUdpDefaultPartitionBy;
     private int httpMinNetConnectionLimit;
@@ -348,6 +371,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int pgNamedStatementCacheCapacity;
     private int pgNamesStatementPoolCapacity;
     private int pgPendingWritersCacheCapacity;
+    private int pgCopyCommitBatchSize;
     private int lineTcpNetConnectionLimit;
     private boolean lineTcpNetConnectionHint;
     private int lineTcpNetBindIPv4Address;
@@ -371,6 +395,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpIOWorkerYieldThreshold;
     private long lineTcpIOWorkerSleepThreshold;
     private long lineTcpMaintenanceInterval;
+    private long lineTcpWriterRebalanceInterval;
+    private double lineTcpMaxLoadRatio;
     private double lineTcpCommitIntervalFraction;
     private long lineTcpCommitIntervalDefault;
     private String lineTcpAuthDbPath;
@@ -657,6 +683,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.pgNamedStatementCacheCapacity = getInt(properties, env, PropertyKey.PG_NAMED_STATEMENT_CACHE_CAPACITY, 32);
                 this.pgNamesStatementPoolCapacity = getInt(properties, env, PropertyKey.PG_NAMED_STATEMENT_POOL_CAPACITY, 32);
                 this.pgPendingWritersCacheCapacity = getInt(properties, env, PropertyKey.PG_PENDING_WRITERS_CACHE_CAPACITY, 16);
+                this.pgCopyCommitBatchSize = getInt(properties, env, PropertyKey.PG_COPY_COMMIT_BATCH_SIZE, 100_000);
             }
 
             this.commitMode = getCommitMode(properties, env, PropertyKey.CAIRO_COMMIT_MODE);
@@ -689,6 +716,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlMapPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_MAP_PAGE_SIZE, 4 * 1024 * 1024);
             this.sqlMapMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_MAP_MAX_PAGES, Integer.MAX_VALUE);
             this.sqlMapMaxResizes = getIntSize(properties, env, PropertyKey.CAIRO_SQL_MAP_MAX_RESIZES, Integer.MAX_VALUE);
+            this.sqlSpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SPILL_THRESHOLD, 0);
+            this.sqlSpillPartitionCount = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_SPILL_PARTITION_COUNT, 32));
+            this.sqlSpillRoot = getString(properties, env, PropertyKey.CAIRO_SQL_SPILL_ROOT, rootSubdir(this.root, SPILL_DIRECTORY));
             this.sqlModelPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_MODEL_POOL_CAPACITY, 1024);
             this.sqlMaxNegativeLimit = getInt(properties, env, PropertyKey.CAIRO_SQL_MAX_NEGATIVE_LIMIT, 10_000);
             this.sqlSortKeyPageSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SORT_KEY_PAGE_SIZE, 4 * 1024 * 1024);
@@ -702,6 +732,10 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
             this.sqlSortValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_PAGE_SIZE, 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlResultCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_ENABLED, false);
+            this.sqlResultCacheSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_SIZE, 64 * Numbers.SIZE_1MB);
+            this.sqlResultCacheMaxEntrySize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_MAX_ENTRY_SIZE, 4 * Numbers.SIZE_1MB);
+            this.sqlResultCachePageSize = Numbers.ceilPow2(getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_PAGE_SIZE, 64 * 1024));
             this.workStealTimeoutNanos = getLong(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
@@ -726,6 +760,19 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoPageFrameReduceRowIdListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY, 256));
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, true);
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, true);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED, true);
+            this.sqlParallelLatestByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_LATESTBY_ENABLED, true);
+            this.sqlParallelSortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, true);
+            this.walSegmentRolloverRowCount = getInt(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_ROLLOVER_ROW_COUNT, 200_000);
+            this.columnCompressionPartitionLag = getInt(properties, env, PropertyKey.CAIRO_COLUMN_COMPRESSION_PARTITION_LAG, 2);
+            this.parquetRowGroupSize = getInt(properties, env, PropertyKey.CAIRO_PARQUET_ROW_GROUP_SIZE, 100_000);
+            this.parquetCompressionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARQUET_COMPRESSION_ENABLED, true);
+            this.partitionStatsEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARTITION_STATS_ENABLED, true);
+            this.coldRoot = getString(properties, env, PropertyKey.CAIRO_COLD_ROOT, null);
+            this.coldPartitionAge = getInt(properties, env, PropertyKey.CAIRO_COLD_PARTITION_AGE_DAYS, 30) * Timestamps.DAY_MICROS;
+            this.coldCheckInterval = getLong(properties, env, PropertyKey.CAIRO_COLD_CHECK_INTERVAL, 60_000);
+            this.ttlCheckInterval = getLong(properties, env, PropertyKey.CAIRO_TTL_CHECK_INTERVAL, 60_000);
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 4);
             this.cairoPageFrameReduceTaskPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY, 4);
 
@@ -784,6 +831,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             }
 
             this.inputRoot = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_ROOT, null);
+            this.inputWorkRoot = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_WORK_ROOT, null);
+            this.sqlCopyQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_COPY_QUEUE_CAPACITY, 32));
             this.backupRoot = getString(properties, env, PropertyKey.CAIRO_SQL_BACKUP_ROOT, null);
             this.backupDirTimestampFormat = getTimestampFormat(properties, env);
             this.backupTempDirName = getString(properties, env, PropertyKey.CAIRO_SQL_BACKUP_DIR_TMP_NAME, "tmp");
@@ -894,6 +943,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.lineTcpIOWorkerYieldThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_YIELD_THRESHOLD, 10);
                 this.lineTcpIOWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_SLEEP_THRESHOLD, 10000);
                 this.lineTcpMaintenanceInterval = getLong(properties, env, PropertyKey.LINE_TCP_MAINTENANCE_JOB_INTERVAL, 30_000);
+                this.lineTcpWriterRebalanceInterval = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_REBALANCE_INTERVAL, 5_000);
+                this.lineTcpMaxLoadRatio = getDouble(properties, env, PropertyKey.LINE_TCP_MAX_LOAD_RATIO, 1.9);
                 this.lineTcpCommitIntervalFraction = getDouble(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_FRACTION, 0.5);
                 this.lineTcpCommitIntervalDefault = getLong(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_DEFAULT, COMMIT_INTERVAL_DEFAULT);
                 if (this.lineTcpCommitIntervalDefault < 1L) {
@@ -2033,6 +2084,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return inputRoot;
         }
 
+        @Override
+        public CharSequence getInputWorkRoot() {
+            return inputWorkRoot;
+        }
+
         @Override
         public int getInsertPoolCapacity() {
             return sqlInsertModelPoolCapacity;
@@ -2123,6 +2179,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelFilterEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelLatestByEnabled() {
+            return sqlParallelLatestByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
+
         @Override
         public int getPageFrameReduceShardCount() {
             return cairoPageFrameReduceShardCount;
@@ -2233,6 +2309,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public int getSqlCopyQueueCapacity() {
+            return sqlCopyQueueCapacity;
+        }
+
         @Override
         public int getSqlDistinctTimestampKeyCapacity() {
             return sqlDistinctTimestampKeyCapacity;
@@ -2358,6 +2439,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlMapPageSize;
         }
 
+        @Override
+        public int getSqlSpillPartitionCount() {
+            return sqlSpillPartitionCount;
+        }
+
+        @Override
+        public CharSequence getSqlSpillRoot() {
+            return sqlSpillRoot;
+        }
+
+        @Override
+        public long getSqlSpillThreshold() {
+            return sqlSpillThreshold;
+        }
+
         @Override
         public int getSqlModelPoolCapacity() {
             return sqlModelPoolCapacity;
@@ -2383,6 +2479,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortKeyMaxPages;
         }
 
+        @Override
+        public long getSqlResultCacheMaxEntrySize() {
+            return sqlResultCacheMaxEntrySize;
+        }
+
+        @Override
+        public long getSqlResultCachePageSize() {
+            return sqlResultCachePageSize;
+        }
+
+        @Override
+        public long getSqlResultCacheSize() {
+            return sqlResultCacheSize;
+        }
+
         @Override
         public long getSqlSortKeyPageSize() {
             return sqlSortKeyPageSize;
@@ -2452,6 +2563,51 @@ public class PropServerConfiguration implements ServerConfiguration {
             return writerAsyncCommandQueueCapacity;
         }
 
+        @Override
+        public int getWalSegmentRolloverRowCount() {
+            return walSegmentRolloverRowCount;
+        }
+
+        @Override
+        public int getColumnCompressionPartitionLag() {
+            return columnCompressionPartitionLag;
+        }
+
+        @Override
+        public int getParquetRowGroupSize() {
+            return parquetRowGroupSize;
+        }
+
+        @Override
+        public boolean isParquetCompressionEnabled() {
+            return parquetCompressionEnabled;
+        }
+
+        @Override
+        public boolean isPartitionStatsEnabled() {
+            return partitionStatsEnabled;
+        }
+
+        @Override
+        public CharSequence getColdRoot() {
+            return coldRoot;
+        }
+
+        @Override
+        public long getColdPartitionAge() {
+            return coldPartitionAge;
+        }
+
+        @Override
+        public long getColdCheckInterval() {
+            return coldCheckInterval;
+        }
+
+        @Override
+        public long getTtlCheckInterval() {
+            return ttlCheckInterval;
+        }
+
         @Override
         public long getWriterCommandQueueSlotSize() {
             return writerAsyncCommandQueueSlotSize;
@@ -2482,6 +2638,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlJitDebugEnabled;
         }
 
+        @Override
+        public boolean isSqlResultCacheEnabled() {
+            return sqlResultCacheEnabled;
+        }
+
         @Override
         public int getPageFrameReduceRowIdListCapacity() {
             return cairoPageFrameReduceRowIdListCapacity;
@@ -2803,6 +2964,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpMaintenanceInterval;
         }
 
+        @Override
+        public long getWriterRebalanceInterval() {
+            return lineTcpWriterRebalanceInterval;
+        }
+
+        @Override
+        public double getMaxLoadRatio() {
+            return lineTcpMaxLoadRatio;
+        }
+
         @Override
         public double getCommitIntervalFraction() {
             return lineTcpCommitIntervalFraction;
@@ -3100,6 +3271,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgConnectionPoolInitialCapacity;
         }
 
+        @Override
+        public int getCopyCommitBatchSize() {
+            return pgCopyCommitBatchSize;
+        }
+
         @Override
         public String getDefaultPassword() {
             return pgPassword;
@@ -70,6 +70,9 @@ public enum PropertyKey {
     CAIRO_SQL_MAP_PAGE_SIZE("cairo.sql.map.page.size"),
     CAIRO_SQL_MAP_MAX_PAGES("cairo.sql.map.max.pages"),
     CAIRO_SQL_MAP_MAX_RESIZES("cairo.sql.map.max.resizes"),
+    CAIRO_SQL_SPILL_THRESHOLD("cairo.sql.spill.threshold"),
+    CAIRO_SQL_SPILL_PARTITION_COUNT("cairo.sql.spill.partition.count"),
+    CAIRO_SQL_SPILL_ROOT("cairo.sql.spill.root"),
     CAIRO_MODEL_POOL_CAPACITY("cairo.model.pool.capacity"),
     CAIRO_SQL_MAX_NEGATIVE_LIMIT("cairo.sql.max.negative.limit"),
     CAIRO_SQL_SORT_KEY_PAGE_SIZE("cairo.sql.sort.key.page.size"),
@@ -83,12 +86,29 @@ public enum PropertyKey {
     CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES("cairo.sql.hash.join.light.value.max.pages"),
     CAIRO_SQL_SORT_VALUE_PAGE_SIZE("cairo.sql.sort.value.page.size"),
     CAIRO_SQL_SORT_VALUE_MAX_PAGES("cairo.sql.sort.value.max.pages"),
+    CAIRO_SQL_RESULT_CACHE_ENABLED("cairo.sql.result.cache.enabled"),
+    CAIRO_SQL_RESULT_CACHE_SIZE("cairo.sql.result.cache.size"),
+    CAIRO_SQL_RESULT_CACHE_MAX_ENTRY_SIZE("cairo.sql.result.cache.max.entry.size"),
+    CAIRO_SQL_RESULT_CACHE_PAGE_SIZE("cairo.sql.result.cache.page.size"),
     CAIRO_WORK_STEAL_TIMEOUT_NANOS("cairo.work.steal.timeout.nanos"),
     CAIRO_PARALLEL_INDEXING_ENABLED("cairo.parallel.indexing.enabled"),
     CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY("cairo.page.frame.reduce.queue.capacity"),
     CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY("cairo.page.frame.rowid.list.capacity"),
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
+    CAIRO_SQL_PARALLEL_GROUPBY_ENABLED("cairo.sql.parallel.groupby.enabled"),
+    CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED("cairo.sql.parallel.hashjoin.enabled"),
+    CAIRO_SQL_PARALLEL_LATESTBY_ENABLED("cairo.sql.parallel.latestby.enabled"),
+    CAIRO_SQL_PARALLEL_SORT_ENABLED("cairo.sql.parallel.sort.enabled"),
+    CAIRO_WAL_SEGMENT_ROLLOVER_ROW_COUNT("cairo.wal.segment.rollover.row.count"),
+    CAIRO_COLUMN_COMPRESSION_PARTITION_LAG("cairo.column.compression.partition.lag"),
+    CAIRO_PARQUET_ROW_GROUP_SIZE("cairo.parquet.row.group.size"),
+    CAIRO_PARQUET_COMPRESSION_ENABLED("cairo.parquet.compression.enabled"),
+    CAIRO_PARTITION_STATS_ENABLED("cairo.partition.stats.enabled"),
+    CAIRO_COLD_ROOT("cairo.cold.root"),
+    CAIRO_COLD_PARTITION_AGE_DAYS("cairo.cold.partition.age.days"),
+    CAIRO_COLD_CHECK_INTERVAL("cairo.cold.check.interval"),
+    CAIRO_TTL_CHECK_INTERVAL("cairo.ttl.check.interval"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
     CAIRO_SQL_JOIN_METADATA_PAGE_SIZE("cairo.sql.join.metadata.page.size"),
@@ -128,6 +148,8 @@ public enum PropertyKey {
     CAIRO_SQL_JIT_DEBUG_ENABLED("cairo.sql.jit.debug.enabled"),
     CAIRO_WRITER_FO_OPTS("cairo.writer.fo_opts"),
     CAIRO_SQL_COPY_ROOT("cairo.sql.copy.root"),
+    CAIRO_SQL_COPY_WORK_ROOT("cairo.sql.copy.work.root"),
+    CAIRO_SQL_COPY_QUEUE_CAPACITY("cairo.sql.copy.queue.capacity"),
     CAIRO_SQL_BACKUP_ROOT("cairo.sql.backup.root"),
     CAIRO_SQL_BACKUP_DIR_TMP_NAME("cairo.sql.backup.dir.tmp.name"),
     CAIRO_SQL_BACKUP_MKDIR_MODE("cairo.sql.backup.mkdir.mode"),
@@ -278,6 +300,8 @@ public enum PropertyKey {
     LINE_TCP_IO_WORKER_YIELD_THRESHOLD("line.tcp.io.worker.yield.threshold"),
     LINE_TCP_IO_WORKER_SLEEP_THRESHOLD("line.tcp.io.worker.sleep.threshold"),
     LINE_TCP_MAINTENANCE_JOB_INTERVAL("line.tcp.maintenance.job.interval"),
+    LINE_TCP_WRITER_REBALANCE_INTERVAL("line.tcp.writer.rebalance.interval"),
+    LINE_TCP_MAX_LOAD_RATIO("line.tcp.max.load.ratio"),
     LINE_TCP_COMMIT_INTERVAL_FRACTION("line.tcp.commit.interval.fraction"),
     LINE_TCP_COMMIT_INTERVAL_DEFAULT("line.tcp.commit.interval.default"),
     LINE_TCP_AUTH_DB_PATH("line.tcp.auth.db.path"),
@@ -346,6 +370,7 @@ public enum PropertyKey {
     PG_UPDATE_CACHE_ENABLED("pg.update.cache.enabled"),
     PG_UPDATE_CACHE_BLOCK_COUNT("pg.update.cache.block.count"),
     PG_UPDATE_CACHE_ROW_COUNT("pg.update.cache.row.count"),
+    PG_COPY_COMMIT_BATCH_SIZE("pg.copy.commit.batch.size"),
     CAIRO_SQL_COLUMN_PURGE_QUEUE_CAPACITY("cairo.sql.column.purge.queue.capacity"),
     CAIRO_SQL_COLUMN_PURGE_TASK_POOL_CAPACITY("cairo.sql.column.purge.task.pool.capacity"),
     CAIRO_SQL_COLUMN_PURGE_RETRY_DELAY_LIMIT("cairo.sql.column.purge.retry.delay.limit"),
@@ -25,12 +25,15 @@
 package io.questdb;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewRefreshJob;
+import io.questdb.cairo.wal.ApplyWal2TableJob;
 import io.questdb.cutlass.http.HttpServer;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.line.tcp.LineTcpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiver;
 import io.questdb.cutlass.line.udp.LinuxMMLineUdpReceiver;
 import io.questdb.cutlass.pgwire.PGWireServer;
+import io.questdb.cutlass.text.TextImportJob;
 import io.questdb.griffin.DatabaseSnapshotAgent;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.FunctionFactoryCache;
@@ -40,6 +43,7 @@ import io.questdb.jit.JitUtil;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
+import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.NetworkError;
 import io.questdb.std.*;
@@ -225,6 +229,37 @@ public class ServerMain {
             workerPool.assign(new ColumnIndexerJob(cairoEngine.getMessageBus()));
             workerPool.assign(new GroupByJob(cairoEngine.getMessageBus()));
             workerPool.assign(new LatestByAllIndexedJob(cairoEngine.getMessageBus()));
+            workerPool.assign(new TextImportJob(cairoEngine.getMessageBus()));
+
+            // Register jobs that apply WAL to tables, sequencers of tables with WAL
+            // have to be open for txns committed before restart to be picked up.
+            cairoEngine.getTableSequencerRegistry().openExisting();
+            for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
+                final ApplyWal2TableJob applyWal2TableJob = new ApplyWal2TableJob(cairoEngine);
+                workerPool.assign(i, (Job) applyWal2TableJob);
+                workerPool.freeOnHalt(applyWal2TableJob);
+            }
+
+            // Register jobs that refresh materialized views, views are refreshed
+            // from their last sample by bucket to pick up rows appended before restart.
+            cairoEngine.getMatViewRegistry().openExisting(cairoEngine);
+            for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
+                final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(cairoEngine, functionFactoryCache);
+                workerPool.assign(i, (Job) matViewRefreshJob);
+                workerPool.freeOnHalt(matViewRefreshJob);
+            }
+
+            // Register the job that moves aged partitions to the cold storage volume.
+            if (configuration.getCairoConfiguration().getColdRoot() != null) {
+                final PartitionTieringJob partitionTieringJob = new PartitionTieringJob(cairoEngine);
+                workerPool.assign(partitionTieringJob);
+                workerPool.freeOnHalt(partitionTieringJob);
+            }
+
+            // Register the job that removes partitions of tables with ttl once they expire.
+            final PartitionRetentionJob partitionRetentionJob = new PartitionRetentionJob(cairoEngine);
+            workerPool.assign(partitionRetentionJob);
+            workerPool.freeOnHalt(partitionRetentionJob);
 
             instancesToClean.add(createHttpServer(workerPool, log, cairoEngine, functionFactoryCache, snapshotAgent, metrics));
             instancesToClean.add(createMinHttpServer(workerPool, log, cairoEngine, functionFactoryCache, snapshotAgent, metrics));
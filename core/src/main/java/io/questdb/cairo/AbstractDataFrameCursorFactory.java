@@ -25,7 +25,11 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Chars;
+import io.questdb.std.Misc;
 import io.questdb.std.str.CharSink;
 
 public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorFactory {
@@ -33,6 +37,7 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
     private final String tableName;
     private final int tableId;
     private final long tableVersion;
+    private PartitionStatsFilter statsFilter;
 
     public AbstractDataFrameCursorFactory(CairoEngine engine, String tableName, int tableId, long tableVersion) {
         this.engine = engine;
@@ -41,6 +46,26 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
         this.tableVersion = tableVersion;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.attr("table").val(tableName);
+        sink.attr("scan").val(getClass().getSimpleName());
+        if (statsFilter != null) {
+            sink.attr("partitionStats").val(statsFilter.getDescription());
+        }
+    }
+
+    /**
+     * Sets conditions to skip whole partitions by their min/max statistics. Factory takes
+     * ownership of the filter.
+     *
+     * @param statsFilter partition statistics filter
+     */
+    public void setStatsFilter(PartitionStatsFilter statsFilter) {
+        this.statsFilter = Misc.free(this.statsFilter);
+        this.statsFilter = statsFilter;
+    }
+
     @Override
     public void toSink(CharSink sink) {
         sink.put("{\"name\":\"").put(this.getClass().getSimpleName()).put("\", \"table\":\"").put(tableName).put("\"}");
@@ -55,8 +80,16 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
         );
     }
 
+    protected PartitionStatsFilter initStatsFilter(SqlExecutionContext executionContext) throws SqlException {
+        if (statsFilter != null) {
+            statsFilter.init(executionContext);
+        }
+        return statsFilter;
+    }
+
     @Override
     public void close() {
+        statsFilter = Misc.free(statsFilter);
     }
 
     @Override
@@ -32,6 +32,7 @@ import io.questdb.std.Misc;
 public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected final FullTableDataFrame frame = new FullTableDataFrame();
     protected TableReader reader;
+    protected PartitionStatsFilter statsFilter;
     protected int partitionHi;
     protected int partitionIndex;
 
@@ -69,7 +70,17 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     }
 
     public DataFrameCursor of(TableReader reader) {
+        return of(reader, null);
+    }
+
+    /**
+     * @param reader      table reader
+     * @param statsFilter conditions to skip partitions by their statistics, null to keep all partitions
+     * @return this cursor
+     */
+    public DataFrameCursor of(TableReader reader, PartitionStatsFilter statsFilter) {
         this.reader = reader;
+        this.statsFilter = statsFilter;
         this.partitionHi = reader.getPartitionCount();
         toTop();
         return this;
@@ -42,6 +42,7 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     protected final IntervalDataFrame dataFrame = new IntervalDataFrame();
     protected final int timestampIndex;
     protected TableReader reader;
+    protected PartitionStatsFilter statsFilter;
     protected int intervalsLo;
     protected int intervalsHi;
     protected int partitionLo;
@@ -107,7 +108,18 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     }
 
     public void of(TableReader reader, SqlExecutionContext sqlContext) throws SqlException {
+        of(reader, sqlContext, null);
+    }
+
+    /**
+     * @param reader      table reader
+     * @param sqlContext  execution context to calculate intervals
+     * @param statsFilter conditions to skip partitions by their statistics, null to keep all partitions
+     * @throws SqlException when intervals cannot be calculated
+     */
+    public void of(TableReader reader, SqlExecutionContext sqlContext, PartitionStatsFilter statsFilter) throws SqlException {
         this.reader = reader;
+        this.statsFilter = statsFilter;
         this.intervals = this.intervalsModel.calculateIntervals(sqlContext);
         calculateRanges(intervals);
     }
@@ -98,6 +98,10 @@ public abstract class BaseRecordMetadata implements RecordMetadata {
         return getColumnQuick(columnIndex).getWriterIndex();
     }
 
+    public boolean isColumnCompressed(int columnIndex) {
+        return getColumnQuick(columnIndex).isCompressed();
+    }
+
     @Override
     public boolean isColumnIndexed(int columnIndex) {
         return getColumnQuick(columnIndex).isIndexed();
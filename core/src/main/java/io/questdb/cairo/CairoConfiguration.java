@@ -143,6 +143,15 @@ public interface CairoConfiguration {
     // null input root disables "copy" sql
     CharSequence getInputRoot();
 
+    /**
+     * Directory, where parallel "copy" keeps its temporary index files and partitions. Partitions
+     * are moved from there into the target table, hence the directory must be on the same file system
+     * as the database root.
+     *
+     * @return work root directory, null disables parallel "copy"
+     */
+    CharSequence getInputWorkRoot();
+
     int getInsertPoolCapacity();
 
     int getLatestByQueueCapacity();
@@ -261,6 +270,8 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    int getSqlCopyQueueCapacity();
+
     int getSqlDistinctTimestampKeyCapacity();
 
     double getSqlDistinctTimestampLoadFactor();
@@ -316,6 +327,16 @@ public interface CairoConfiguration {
 
     int getSqlMapPageSize();
 
+    int getSqlSpillPartitionCount();
+
+    CharSequence getSqlSpillRoot(); // same as root/../tmp
+
+    /**
+     * Memory budget of a single GROUP BY, DISTINCT or hash join map. Once the map outgrows it,
+     * row ids of records with new keys are spilled to disk. Zero disables spilling.
+     */
+    long getSqlSpillThreshold();
+
     int getSqlMaxNegativeLimit();
 
     int getSqlModelPoolCapacity();
@@ -326,6 +347,18 @@ public interface CairoConfiguration {
 
     int getSqlSortKeyMaxPages();
 
+    /**
+     * @return result set size limit, results that do not fit are not cached
+     */
+    long getSqlResultCacheMaxEntrySize();
+
+    long getSqlResultCachePageSize();
+
+    /**
+     * @return total amount of native memory result cache is allowed to use
+     */
+    long getSqlResultCacheSize();
+
     long getSqlSortKeyPageSize();
 
     int getSqlSortLightValueMaxPages();
@@ -346,6 +379,60 @@ public interface CairoConfiguration {
 
     int getVectorAggregateQueueCapacity();
 
+    int getWalSegmentRolloverRowCount();
+
+    /**
+     * Number of the most recent partitions that are kept uncompressed. Columns flagged for
+     * compression are compressed once their partition falls behind this window.
+     *
+     * @return number of partitions, values below 1 are treated as 1
+     */
+    int getColumnCompressionPartitionLag();
+
+    /**
+     * Maximum number of rows in a row group of Parquet files that partitions are converted to.
+     *
+     * @return number of rows
+     */
+    int getParquetRowGroupSize();
+
+    /**
+     * @return true when pages of Parquet files are compressed with GZIP
+     */
+    boolean isParquetCompressionEnabled();
+
+    /**
+     * When enabled, table writer keeps min/max statistics of column values for partitions it seals,
+     * and table scans skip partitions that cannot match the filter.
+     *
+     * @return true when partition statistics are enabled
+     */
+    boolean isPartitionStatsEnabled();
+
+    /**
+     * Root directory of the cold storage volume. Sealed partitions older than {@link #getColdPartitionAge()}
+     * are moved from the table directory to the directory of the same name under this root.
+     *
+     * @return cold storage root directory, null disables partition tiering
+     */
+    CharSequence getColdRoot();
+
+    /**
+     * @return age of partition, in microseconds, after which the partition is moved to cold storage.
+     * The age is measured from the end of the partition interval.
+     */
+    long getColdPartitionAge();
+
+    /**
+     * @return interval, in milliseconds, between checks for partitions to move to cold storage
+     */
+    long getColdCheckInterval();
+
+    /**
+     * @return interval, in milliseconds, between checks for partitions that outlived the ttl of their table
+     */
+    long getTtlCheckInterval();
+
     int getWithClauseModelPoolCapacity();
 
     long getWorkStealTimeoutNanos();
@@ -376,4 +463,14 @@ public interface CairoConfiguration {
     boolean isSqlJitDebugEnabled();
 
     boolean isSqlParallelFilterEnabled();
+
+    boolean isSqlResultCacheEnabled();
+
+    boolean isSqlParallelGroupByEnabled();
+
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelLatestByEnabled();
+
+    boolean isSqlParallelSortEnabled();
 }
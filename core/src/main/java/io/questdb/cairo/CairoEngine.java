@@ -35,8 +35,12 @@ import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.AsyncWriterCommand;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.mv.MatViewRegistry;
+import io.questdb.cairo.wal.TableSequencerRegistry;
+import io.questdb.cairo.wal.WalWriter;
 import io.questdb.griffin.DatabaseSnapshotAgent;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.cache.QueryResultCache;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
@@ -67,6 +71,10 @@ public class CairoEngine implements Closeable, WriterSource {
     private final SCSequence telemetrySubSeq;
     private final AtomicLong asyncCommandCorrelationId = new AtomicLong();
     private final IDGenerator tableIdGenerator;
+    private final TableSequencerRegistry tableSequencerRegistry;
+    private final MatViewRegistry matViewRegistry;
+    private final TableCommitTracker commitTracker;
+    private final QueryResultCache queryResultCache;
 
     // Kept for embedded API purposes. The second constructor (the one with metrics)
     // should be preferred for internal use.
@@ -81,6 +89,11 @@ public class CairoEngine implements Closeable, WriterSource {
         this.writerPool = new WriterPool(configuration, messageBus, metrics);
         this.readerPool = new ReaderPool(configuration, messageBus);
         this.engineMaintenanceJob = new EngineMaintenanceJob(configuration);
+        this.tableSequencerRegistry = new TableSequencerRegistry(configuration);
+        this.matViewRegistry = new MatViewRegistry(configuration);
+        this.commitTracker = new TableCommitTracker(matViewRegistry);
+        this.writerPool.setCommitListener(commitTracker);
+        this.queryResultCache = new QueryResultCache(configuration, metrics.queryResultCache());
         if (configuration.getTelemetryConfiguration().getEnabled()) {
             this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
             this.telemetryPubSeq = new MPSequence(telemetryQueue.getCycle());
@@ -118,6 +131,9 @@ public class CairoEngine implements Closeable, WriterSource {
     public boolean clear() {
         boolean b1 = readerPool.releaseAll();
         boolean b2 = writerPool.releaseAll();
+        tableSequencerRegistry.close();
+        matViewRegistry.close();
+        queryResultCache.clear();
         return b1 & b2;
     }
 
@@ -125,6 +141,9 @@ public class CairoEngine implements Closeable, WriterSource {
     public void close() {
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(tableSequencerRegistry);
+        Misc.free(matViewRegistry);
+        Misc.free(queryResultCache);
         Misc.free(tableIdGenerator);
         Misc.free(messageBus);
     }
@@ -224,6 +243,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return metrics;
     }
 
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
     public PoolListener getPoolListener() {
         return this.writerPool.getPoolListener();
     }
@@ -232,6 +255,18 @@ public class CairoEngine implements Closeable, WriterSource {
         return tableIdGenerator;
     }
 
+    public TableCommitTracker getCommitTracker() {
+        return commitTracker;
+    }
+
+    public MatViewRegistry getMatViewRegistry() {
+        return matViewRegistry;
+    }
+
+    public TableSequencerRegistry getTableSequencerRegistry() {
+        return tableSequencerRegistry;
+    }
+
     public void setPoolListener(PoolListener poolListener) {
         this.writerPool.setPoolListener(poolListener);
         this.readerPool.setPoolListener(poolListener);
@@ -327,6 +362,15 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerPool.get(tableName, lockReason);
     }
 
+    public WalWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        checkTableName(tableName);
+        return new WalWriter(configuration, tableSequencerRegistry.getSequencer(tableName));
+    }
+
     public TableWriter getWriterOrPublishCommand(
             CairoSecurityContext securityContext,
             CharSequence tableName,
@@ -395,12 +439,15 @@ public class CairoEngine implements Closeable, WriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "removeTable");
         if (null == lockedReason) {
             try {
+                tableSequencerRegistry.remove(tableName);
+                matViewRegistry.onTableRemoved(tableName);
                 path.of(configuration.getRoot()).concat(tableName).$();
                 int errno;
                 if ((errno = configuration.getFilesFacade().rmdir(path)) != 0) {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(errno).$(']').$();
                     throw CairoException.instance(errno).put("Table remove failed");
                 }
+                removeColdTableDirectory(path, tableName);
                 return;
             } finally {
                 unlock(securityContext, tableName, null, false);
@@ -430,7 +477,9 @@ public class CairoEngine implements Closeable, WriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "renameTable");
         if (null == lockedReason) {
             try {
+                tableSequencerRegistry.remove(tableName);
                 rename0(path, tableName, otherPath, newName);
+                matViewRegistry.onTableRenamed(tableName, newName);
             } finally {
                 unlock(securityContext, tableName, null, false);
             }
@@ -492,6 +541,36 @@ public class CairoEngine implements Closeable, WriterSource {
             LOG.error().$("rename failed [from='").$(path).$("', to='").$(otherPath).$("', error=").$(error).$(']').$();
             throw CairoException.instance(error).put("Rename failed");
         }
+
+        // cold partitions are looked up by table name too
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null) {
+            path.of(coldRoot).concat(tableName).$();
+            otherPath.of(coldRoot).concat(to).$();
+            if (ff.exists(path) && !ff.rename(path, otherPath)) {
+                int error = ff.errno();
+                LOG.error().$("rename failed [from='").$(path).$("', to='").$(otherPath).$("', error=").$(error).$(']').$();
+                // put table directory back, the table is not usable without its cold partitions
+                path.of(root).concat(tableName).$();
+                otherPath.of(root).concat(to).$();
+                if (!ff.rename(otherPath, path)) {
+                    LOG.critical().$("could not restore table directory [from='").$(otherPath).$("', to='").$(path).$("', error=").$(ff.errno()).$(']').$();
+                }
+                throw CairoException.instance(error).put("Rename failed");
+            }
+        }
+    }
+
+    private void removeColdTableDirectory(Path path, CharSequence tableName) {
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null) {
+            path.of(coldRoot).concat(tableName).$();
+            int errno;
+            if ((errno = configuration.getFilesFacade().rmdir(path)) != 0 && errno != -1) {
+                // partitions are not visible once table is gone, leave the files to the operator
+                LOG.error().$("could not remove cold partitions [path=").$(path).$(", error=").$(errno).$(']').$();
+            }
+        }
     }
 
     private class EngineMaintenanceJob extends SynchronizedJob {
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Lightweight codecs for fixed-size column files of sealed partitions. Compressed file starts with
+ * a 16-byte header (codec, value size and value count) followed by a little-endian bit stream:
+ * <ul>
+ *     <li>TIMESTAMP and DATE use delta-of-delta encoding</li>
+ *     <li>DOUBLE uses Gorilla XOR encoding</li>
+ *     <li>INT, LONG and SYMBOL keys use frame-of-reference bit-packing in blocks of 128 values</li>
+ * </ul>
+ * All arithmetic wraps around, so NULL sentinels round-trip exactly.
+ */
+public class ColumnCodec {
+    public static final int CODEC_NONE = 0;
+    public static final int CODEC_DELTA_OF_DELTA = 1;
+    public static final int CODEC_GORILLA = 2;
+    public static final int CODEC_FOR_INT = 3;
+    public static final int CODEC_FOR_LONG = 4;
+    public static final int HEADER_SIZE = 16;
+    static final int FOR_BLOCK_SIZE = 128;
+    private static final int HEADER_OFFSET_CODEC = 0;
+    private static final int HEADER_OFFSET_VALUE_SIZE_POW2 = 4;
+    private static final int HEADER_OFFSET_VALUE_COUNT = 8;
+
+    private MemoryA writeMem;
+    private long writeWord;
+    private int writeBits;
+    private long readAddr;
+    private long readLimit;
+    private long readWord;
+    private int readBits;
+
+    public static int getCodec(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DATE:
+                return CODEC_DELTA_OF_DELTA;
+            case ColumnType.DOUBLE:
+                return CODEC_GORILLA;
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return CODEC_FOR_INT;
+            case ColumnType.LONG:
+                return CODEC_FOR_LONG;
+            default:
+                return CODEC_NONE;
+        }
+    }
+
+    public static long getDecodedSize(long srcAddr, long srcSize) {
+        if (srcSize < HEADER_SIZE) {
+            throw CairoException.instance(0).put("compressed column file is too short [size=").put(srcSize).put(']');
+        }
+        return Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_VALUE_COUNT) << Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_VALUE_SIZE_POW2);
+    }
+
+    public static boolean isSupported(int columnType) {
+        return getCodec(columnType) != CODEC_NONE;
+    }
+
+    /**
+     * Decodes compressed column file into raw fixed-size column values.
+     *
+     * @param srcAddr address of the compressed file content, including header
+     * @param srcSize size of the compressed file content
+     * @param dstAddr address of the destination memory
+     * @param dstSize size of the destination memory, must not exceed decoded size of the file
+     */
+    public void decode(long srcAddr, long srcSize, long dstAddr, long dstSize) {
+        final long decodedSize = getDecodedSize(srcAddr, srcSize);
+        if (dstSize > decodedSize) {
+            throw CairoException.instance(0).put("compressed column file is too short [decodedSize=").put(decodedSize)
+                    .put(", expectedSize=").put(dstSize).put(']');
+        }
+        final int codec = Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_CODEC);
+        final int sizePow2 = Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_VALUE_SIZE_POW2);
+        final long count = dstSize >> sizePow2;
+        readerOf(srcAddr + HEADER_SIZE, srcAddr + srcSize);
+        switch (codec) {
+            case CODEC_DELTA_OF_DELTA:
+                decodeDeltaOfDelta(dstAddr, count);
+                break;
+            case CODEC_GORILLA:
+                decodeGorilla(dstAddr, count);
+                break;
+            case CODEC_FOR_INT:
+            case CODEC_FOR_LONG:
+                decodeFrameOfReference(dstAddr, count, sizePow2);
+                break;
+            default:
+                throw CairoException.instance(0).put("unknown column codec [codec=").put(codec).put(']');
+        }
+        if (isReadOverrun()) {
+            throw CairoException.instance(0).put("compressed column file is corrupt [codec=").put(codec).put(']');
+        }
+    }
+
+    /**
+     * Appends compressed representation of the column values to the memory.
+     *
+     * @param columnType type of the column, must be supported
+     * @param srcAddr    address of the raw column values
+     * @param count      number of values to encode
+     * @param mem        memory to append header and compressed values to
+     */
+    public void encode(int columnType, long srcAddr, long count, MemoryA mem) {
+        final int codec = getCodec(columnType);
+        final int sizePow2 = ColumnType.pow2SizeOf(columnType);
+        mem.putInt(codec);
+        mem.putInt(sizePow2);
+        mem.putLong(count);
+        writerOf(mem);
+        switch (codec) {
+            case CODEC_DELTA_OF_DELTA:
+                encodeDeltaOfDelta(srcAddr, count);
+                break;
+            case CODEC_GORILLA:
+                encodeGorilla(srcAddr, count);
+                break;
+            case CODEC_FOR_INT:
+            case CODEC_FOR_LONG:
+                encodeFrameOfReference(srcAddr, count, sizePow2);
+                break;
+            default:
+                throw CairoException.instance(0).put("unsupported column type for compression [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+        flushBits();
+        writeMem = null;
+    }
+
+    private static int bitWidth(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long getValue(long addr, long index, int sizePow2) {
+        return sizePow2 == 2
+                ? Unsafe.getUnsafe().getInt(addr + (index << 2))
+                : Unsafe.getUnsafe().getLong(addr + (index << 3));
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void decodeDeltaOfDelta(long dstAddr, long count) {
+        if (count == 0) {
+            return;
+        }
+        long prev = readBits(64);
+        Unsafe.getUnsafe().putLong(dstAddr, prev);
+        if (count == 1) {
+            return;
+        }
+        long delta = readBits(64);
+        prev += delta;
+        Unsafe.getUnsafe().putLong(dstAddr + 8, prev);
+        for (long i = 2; i < count; i++) {
+            final long deltaOfDelta;
+            if (readBits(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (readBits(1) == 0) {
+                deltaOfDelta = unZigZag(readBits(7));
+            } else if (readBits(1) == 0) {
+                deltaOfDelta = unZigZag(readBits(14));
+            } else if (readBits(1) == 0) {
+                deltaOfDelta = unZigZag(readBits(32));
+            } else {
+                deltaOfDelta = unZigZag(readBits(64));
+            }
+            delta += deltaOfDelta;
+            prev += delta;
+            Unsafe.getUnsafe().putLong(dstAddr + (i << 3), prev);
+        }
+    }
+
+    private void decodeFrameOfReference(long dstAddr, long count, int sizePow2) {
+        for (long lo = 0; lo < count; lo += FOR_BLOCK_SIZE) {
+            final long hi = Math.min(lo + FOR_BLOCK_SIZE, count);
+            final boolean hasNulls = readBits(1) == 1;
+            final int width = (int) readBits(7);
+            final long min = readBits(64);
+            final long nullCode = hasNulls ? (width == 64 ? -1L : (1L << width) - 1) : Long.MAX_VALUE;
+            for (long i = lo; i < hi; i++) {
+                final long code = width == 0 ? 0 : readBits(width);
+                if (sizePow2 == 2) {
+                    Unsafe.getUnsafe().putInt(dstAddr + (i << 2), hasNulls && code == nullCode ? Numbers.INT_NaN : (int) (min + code));
+                } else {
+                    Unsafe.getUnsafe().putLong(dstAddr + (i << 3), hasNulls && code == nullCode ? Numbers.LONG_NaN : min + code);
+                }
+            }
+        }
+    }
+
+    private void decodeGorilla(long dstAddr, long count) {
+        if (count == 0) {
+            return;
+        }
+        long prev = readBits(64);
+        Unsafe.getUnsafe().putLong(dstAddr, prev);
+        int leading = 0;
+        int trailing = 0;
+        for (long i = 1; i < count; i++) {
+            if (readBits(1) == 1) {
+                if (readBits(1) == 1) {
+                    leading = (int) readBits(5);
+                    final int significant = (int) readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                final int significant = 64 - leading - trailing;
+                prev ^= readBits(significant) << trailing;
+            }
+            Unsafe.getUnsafe().putLong(dstAddr + (i << 3), prev);
+        }
+    }
+
+    private void encodeDeltaOfDelta(long srcAddr, long count) {
+        if (count == 0) {
+            return;
+        }
+        long prev = Unsafe.getUnsafe().getLong(srcAddr);
+        writeBits(prev, 64);
+        if (count == 1) {
+            return;
+        }
+        long value = Unsafe.getUnsafe().getLong(srcAddr + 8);
+        long delta = value - prev;
+        writeBits(delta, 64);
+        prev = value;
+        for (long i = 2; i < count; i++) {
+            value = Unsafe.getUnsafe().getLong(srcAddr + (i << 3));
+            final long nextDelta = value - prev;
+            final long deltaOfDelta = zigZag(nextDelta - delta);
+            if (deltaOfDelta == 0) {
+                writeBits(0, 1);
+            } else if (deltaOfDelta >>> 7 == 0) {
+                writeBits(0b01, 2);
+                writeBits(deltaOfDelta, 7);
+            } else if (deltaOfDelta >>> 14 == 0) {
+                writeBits(0b011, 3);
+                writeBits(deltaOfDelta, 14);
+            } else if (deltaOfDelta >>> 32 == 0) {
+                writeBits(0b0111, 4);
+                writeBits(deltaOfDelta, 32);
+            } else {
+                writeBits(0b1111, 4);
+                writeBits(deltaOfDelta, 64);
+            }
+            delta = nextDelta;
+            prev = value;
+        }
+    }
+
+    private void encodeFrameOfReference(long srcAddr, long count, int sizePow2) {
+        final long nullValue = sizePow2 == 2 ? Numbers.INT_NaN : Numbers.LONG_NaN;
+        for (long lo = 0; lo < count; lo += FOR_BLOCK_SIZE) {
+            final long hi = Math.min(lo + FOR_BLOCK_SIZE, count);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            boolean hasNulls = false;
+            for (long i = lo; i < hi; i++) {
+                final long value = getValue(srcAddr, i, sizePow2);
+                if (value == nullValue) {
+                    hasNulls = true;
+                } else {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+            if (min > max) {
+                // block of nulls
+                min = max = 0;
+            }
+            // range is unsigned, nulls take the all-ones code, which is always above the range
+            final long range = max - min;
+            final int width = bitWidth(hasNulls ? range + 1 : range);
+            final long nullCode = width == 64 ? -1L : (1L << width) - 1;
+            writeBits(hasNulls ? 1 : 0, 1);
+            writeBits(width, 7);
+            writeBits(min, 64);
+            if (width > 0) {
+                for (long i = lo; i < hi; i++) {
+                    final long value = getValue(srcAddr, i, sizePow2);
+                    writeBits(value == nullValue ? nullCode : value - min, width);
+                }
+            }
+        }
+    }
+
+    private void encodeGorilla(long srcAddr, long count) {
+        if (count == 0) {
+            return;
+        }
+        long prev = Unsafe.getUnsafe().getLong(srcAddr);
+        writeBits(prev, 64);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (long i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(srcAddr + (i << 3));
+            final long xor = value ^ prev;
+            if (xor == 0) {
+                writeBits(0, 1);
+            } else {
+                // leading zero count is stored in 5 bits
+                final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading > -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    writeBits(0b01, 2);
+                    writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+                } else {
+                    final int significant = 64 - leading - trailing;
+                    writeBits(0b11, 2);
+                    writeBits(leading, 5);
+                    writeBits(significant - 1, 6);
+                    writeBits(xor >>> trailing, significant);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = value;
+        }
+    }
+
+    private void flushBits() {
+        if (writeBits > 0) {
+            writeMem.putLong(writeWord);
+            writeWord = 0;
+            writeBits = 0;
+        }
+    }
+
+    private boolean isReadOverrun() {
+        return readAddr > readLimit || (readAddr + Long.BYTES > readLimit && readBits > 0);
+    }
+
+    private void nextReadWord() {
+        readAddr += Long.BYTES;
+        readWord = readAddr + Long.BYTES <= readLimit ? Unsafe.getUnsafe().getLong(readAddr) : 0;
+        readBits = 0;
+    }
+
+    private long readBits(int count) {
+        long result = readWord >>> readBits;
+        final int available = 64 - readBits;
+        if (count < available) {
+            readBits += count;
+            return result & ((1L << count) - 1);
+        }
+        nextReadWord();
+        if (count > available) {
+            result |= readWord << available;
+            readBits = count - available;
+        }
+        return count == 64 ? result : result & ((1L << count) - 1);
+    }
+
+    private void readerOf(long lo, long hi) {
+        readAddr = lo;
+        readLimit = hi;
+        readWord = lo + Long.BYTES <= hi ? Unsafe.getUnsafe().getLong(lo) : 0;
+        readBits = 0;
+    }
+
+    private void writeBits(long value, int count) {
+        if (count < 64) {
+            value &= (1L << count) - 1;
+        }
+        writeWord |= value << writeBits;
+        final int free = 64 - writeBits;
+        if (count >= free) {
+            writeMem.putLong(writeWord);
+            writeWord = free < 64 ? value >>> free : 0;
+            writeBits = count - free;
+        } else {
+            writeBits += count;
+        }
+    }
+
+    private void writerOf(MemoryA mem) {
+        writeMem = mem;
+        writeWord = 0;
+        writeBits = 0;
+    }
+}
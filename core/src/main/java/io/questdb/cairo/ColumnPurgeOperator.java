@@ -261,7 +261,7 @@ public class ColumnPurgeOperator implements Closeable {
                     }
                 }
 
-                // Check if it's symbol, try remove .k and .v files in the partition
+                // Check if it's symbol, try remove .k, .v and .ci files in the partition
                 if (ColumnType.isSymbol(task.getColumnType())) {
                     path.trimTo(pathTrimToPartition);
                     BitmapIndexUtils.keyFileName(path, task.getColumnName(), columnVersion);
@@ -276,6 +276,13 @@ public class ColumnPurgeOperator implements Closeable {
                         allDone = false;
                         continue;
                     }
+
+                    path.trimTo(pathTrimToPartition);
+                    CompressedBitmapIndexUtils.compressedFileName(path, task.getColumnName(), columnVersion);
+                    if (couldNotRemove(ff, path)) {
+                        allDone = false;
+                        continue;
+                    }
                 }
                 completedRowIds.add(updateRowId);
             }
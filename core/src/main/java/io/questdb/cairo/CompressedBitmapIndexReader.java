@@ -0,0 +1,771 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.NullIndexFrameCursor;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.SeekableRowCursor;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.CompressedBitmapIndexUtils.*;
+
+/**
+ * Reads compressed bitmap index, see {@link CompressedBitmapIndexUtils}. The index is immutable, so unlike
+ * regular index readers this one does not need to synchronise with the writer. Cursors seek to the chunk of
+ * the range boundary by binary search of the chunk directory and decode containers lazily, one value at a time.
+ * Forward cursors can also skip ahead, which makes intersection of two indexes cheap.
+ * <p>
+ * Code that needs raw index layout, such as native latest by, can {@link #inflate()} the index into memory.
+ * <p>
+ * Cursors returned by this class are not thread-safe.
+ */
+public class CompressedBitmapIndexReader implements BitmapIndexReader {
+    private static final Log LOG = LogFactory.getLog(CompressedBitmapIndexReader.class);
+    private static final int FRAME_CAPACITY = 1024;
+    private final MemoryMR mem = Vm.getMRInstance();
+    private final FwdCursor fwdCursor = new FwdCursor();
+    private final FwdNullCursor fwdNullCursor = new FwdNullCursor();
+    private final BwdCursor bwdCursor = new BwdCursor();
+    private final BwdNullCursor bwdNullCursor = new BwdNullCursor();
+    private final Inflated inflated = new Inflated();
+    private final int direction;
+    private FrameCursor frameCursor;
+    private long baseAddress;
+    private int keyCount;
+    private long unIndexedNullCount;
+
+    public CompressedBitmapIndexReader(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            long columnNameTxn,
+            long unIndexedNullCount,
+            long partitionTxn,
+            int direction
+    ) {
+        this.direction = direction;
+        of(configuration, path, name, columnNameTxn, unIndexedNullCount, partitionTxn);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(mem);
+        inflated.clear();
+        frameCursor = Misc.free(frameCursor);
+        baseAddress = 0;
+        keyCount = 0;
+    }
+
+    @Override
+    public RowCursor getCursor(boolean cachedInstance, int key, long minValue, long maxValue) {
+        if (direction == DIR_BACKWARD) {
+            if (key == 0 && unIndexedNullCount > 0 && minValue < unIndexedNullCount) {
+                final BwdNullCursor cursor = cachedInstance ? bwdNullCursor : new BwdNullCursor();
+                cursor.nullPos = maxValue < unIndexedNullCount ? maxValue + 1 : unIndexedNullCount;
+                cursor.of(key, minValue, maxValue);
+                return cursor;
+            }
+            if (key < keyCount) {
+                final BwdCursor cursor = cachedInstance ? bwdCursor : new BwdCursor();
+                cursor.of(key, minValue, maxValue);
+                return cursor;
+            }
+        } else {
+            if (key == 0 && unIndexedNullCount > 0 && minValue < unIndexedNullCount) {
+                final FwdNullCursor cursor = cachedInstance ? fwdNullCursor : new FwdNullCursor();
+                cursor.nullPos = minValue;
+                cursor.nullCount = maxValue < unIndexedNullCount ? maxValue + 1 : unIndexedNullCount;
+                cursor.of(key, minValue, maxValue);
+                return cursor;
+            }
+            if (key < keyCount) {
+                final FwdCursor cursor = cachedInstance ? fwdCursor : new FwdCursor();
+                cursor.of(key, minValue, maxValue);
+                return cursor;
+            }
+        }
+        return EmptyRowCursor.INSTANCE;
+    }
+
+    @Override
+    public IndexFrameCursor getFrameCursor(int key, long minValue, long maxValue) {
+        if (key < keyCount) {
+            if (frameCursor == null) {
+                frameCursor = new FrameCursor();
+            }
+            frameCursor.of(key, minValue, maxValue);
+            return frameCursor;
+        }
+        return NullIndexFrameCursor.INSTANCE;
+    }
+
+    @Override
+    public int getKeyCount() {
+        return unIndexedNullCount > 0 ? keyCount + 1 : keyCount;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mem.getFd() != -1;
+    }
+
+    /**
+     * Compressed index is a single file, key memory is the whole file and value memory is empty.
+     */
+    @Override
+    public long getKeyBaseAddress() {
+        return baseAddress;
+    }
+
+    @Override
+    public long getKeyMemorySize() {
+        return mem.size();
+    }
+
+    @Override
+    public long getValueBaseAddress() {
+        return 0;
+    }
+
+    @Override
+    public long getValueMemorySize() {
+        return 0;
+    }
+
+    public long getMaxValue() {
+        return Unsafe.getUnsafe().getLong(baseAddress + HEADER_OFFSET_MAX_VALUE);
+    }
+
+    @Override
+    public long getUnIndexedNullCount() {
+        return unIndexedNullCount;
+    }
+
+    @Override
+    public int getValueBlockCapacity() {
+        return Unsafe.getUnsafe().getInt(baseAddress + HEADER_OFFSET_BLOCK_VALUE_COUNT) - 1;
+    }
+
+    /**
+     * Decodes the index into the layout of regular bitmap index. Decoded index is kept until
+     * the reader is closed or reopened.
+     *
+     * @return reader, which key and value memory is laid out as regular bitmap index
+     */
+    public BitmapIndexReader inflate() {
+        if (inflated.keyAddress == 0) {
+            inflated.of();
+        }
+        return inflated;
+    }
+
+    public void of(CairoConfiguration configuration, Path path, CharSequence name, long columnNameTxn, long unIndexedNullCount, long partitionTxn) {
+        close();
+        this.unIndexedNullCount = unIndexedNullCount;
+        TableUtils.txnPartitionConditionally(path, partitionTxn);
+        final int plen = path.length();
+        try {
+            mem.wholeFile(configuration.getFilesFacade(), compressedFileName(path, name, columnNameTxn), MemoryTag.MMAP_INDEX_READER);
+            if (mem.size() < HEADER_SIZE) {
+                LOG.error().$("file too short [corrupt] ").$(path).$();
+                throw CairoException.instance(0).put("Index file too short: ").put(path);
+            }
+            baseAddress = mem.addressOf(0);
+            if (Unsafe.getUnsafe().getByte(baseAddress + HEADER_OFFSET_SIGNATURE) != SIGNATURE) {
+                LOG.error().$("unknown format [corrupt] ").$(path).$();
+                throw CairoException.instance(0).put("Unknown format: ").put(path);
+            }
+            keyCount = Unsafe.getUnsafe().getInt(baseAddress + HEADER_OFFSET_KEY_COUNT);
+            if (mem.size() < getKeyEntryOffset(keyCount)) {
+                LOG.error().$("key count does not match file length [corrupt] of ").$(path).$(" [keyCount=").$(keyCount).$(']').$();
+                throw CairoException.instance(0).put("Key count does not match file length of ").put(path);
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private long getValueCount(int key) {
+        return Unsafe.getUnsafe().getLong(baseAddress + getKeyEntryOffset(key) + KEY_ENTRY_OFFSET_VALUE_COUNT);
+    }
+
+    /**
+     * Iterator over container of single chunk. Values are returned as 16-bit lows, -1 when
+     * container is exhausted.
+     */
+    private static class Container {
+        private final int[] arrayValues = new int[ARRAY_MAX_CARDINALITY];
+        private int type = -1;
+        private long address;
+        private int cardinality;
+        // array position, run index or bitmap word index
+        private int pos;
+        private int runCount;
+        private int runLo;
+        private int runHi;
+        private long word;
+
+        void clear() {
+            type = -1;
+        }
+
+        int nextAsc() {
+            switch (type) {
+                case CONTAINER_ARRAY:
+                    return pos < cardinality ? arrayValues[pos++] : -1;
+                case CONTAINER_RUN:
+                    while (runLo > runHi) {
+                        if (++pos >= runCount) {
+                            return -1;
+                        }
+                        loadRun();
+                    }
+                    return runLo++;
+                case CONTAINER_BITMAP:
+                    while (word == 0) {
+                        if (++pos >= BITMAP_WORD_COUNT) {
+                            return -1;
+                        }
+                        word = loadWord();
+                    }
+                    final int value = (pos << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return value;
+                default:
+                    return -1;
+            }
+        }
+
+        int nextDesc() {
+            switch (type) {
+                case CONTAINER_ARRAY:
+                    return pos > -1 ? arrayValues[pos--] : -1;
+                case CONTAINER_RUN:
+                    while (runHi < runLo) {
+                        if (--pos < 0) {
+                            return -1;
+                        }
+                        loadRun();
+                    }
+                    return runHi--;
+                case CONTAINER_BITMAP:
+                    while (word == 0) {
+                        if (--pos < 0) {
+                            return -1;
+                        }
+                        word = loadWord();
+                    }
+                    final int bit = 63 - Long.numberOfLeadingZeros(word);
+                    word &= ~(1L << bit);
+                    return (pos << 6) + bit;
+                default:
+                    return -1;
+            }
+        }
+
+        void of(long baseAddress, long chunkEntryAddress, boolean asc) {
+            type = Unsafe.getUnsafe().getInt(chunkEntryAddress + CHUNK_ENTRY_OFFSET_TYPE);
+            cardinality = Unsafe.getUnsafe().getInt(chunkEntryAddress + CHUNK_ENTRY_OFFSET_CARDINALITY);
+            address = baseAddress + Unsafe.getUnsafe().getLong(chunkEntryAddress + CHUNK_ENTRY_OFFSET_CONTAINER_OFFSET);
+            switch (type) {
+                case CONTAINER_ARRAY:
+                    decodeArray(address, cardinality, arrayValues);
+                    pos = asc ? 0 : cardinality - 1;
+                    break;
+                case CONTAINER_RUN:
+                    runCount = Unsafe.getUnsafe().getInt(address);
+                    address += Integer.BYTES;
+                    pos = asc ? 0 : runCount - 1;
+                    loadRun();
+                    break;
+                default:
+                    pos = asc ? 0 : BITMAP_WORD_COUNT - 1;
+                    word = loadWord();
+                    break;
+            }
+        }
+
+        // drops values lower than given low
+        void skipAsc(int low) {
+            switch (type) {
+                case CONTAINER_ARRAY:
+                    while (pos < cardinality && arrayValues[pos] < low) {
+                        pos++;
+                    }
+                    break;
+                case CONTAINER_RUN:
+                    while (runHi < low) {
+                        if (++pos >= runCount) {
+                            runLo = 1;
+                            runHi = 0;
+                            return;
+                        }
+                        loadRun();
+                    }
+                    runLo = Math.max(runLo, low);
+                    break;
+                case CONTAINER_BITMAP:
+                    final int wordIndex = low >>> 6;
+                    if (wordIndex > pos) {
+                        pos = wordIndex;
+                        word = loadWord();
+                    }
+                    if (wordIndex == pos) {
+                        word &= -1L << low;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // drops values higher than given low
+        void skipDesc(int low) {
+            switch (type) {
+                case CONTAINER_ARRAY:
+                    while (pos > -1 && arrayValues[pos] > low) {
+                        pos--;
+                    }
+                    break;
+                case CONTAINER_RUN:
+                    while (runLo > low) {
+                        if (--pos < 0) {
+                            runLo = 1;
+                            runHi = 0;
+                            return;
+                        }
+                        loadRun();
+                    }
+                    runHi = Math.min(runHi, low);
+                    break;
+                case CONTAINER_BITMAP:
+                    final int wordIndex = low >>> 6;
+                    if (wordIndex < pos) {
+                        pos = wordIndex;
+                        word = loadWord();
+                    }
+                    if (wordIndex == pos && (low & 63) < 63) {
+                        word &= (1L << (low + 1)) - 1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void loadRun() {
+            final long runAddress = address + (long) pos * 2 * Character.BYTES;
+            runLo = Unsafe.getUnsafe().getChar(runAddress);
+            runHi = runLo + Unsafe.getUnsafe().getChar(runAddress + Character.BYTES);
+        }
+
+        private long loadWord() {
+            return Unsafe.getUnsafe().getLong(address + (long) pos * Long.BYTES);
+        }
+    }
+
+    private class FwdCursor implements SeekableRowCursor {
+        private final Container container = new Container();
+        private long chunkDirAddress;
+        private int chunkCount;
+        private int chunkIndex;
+        private long chunkBase;
+        private long maxValue;
+        protected long next;
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                final int low = container.nextAsc();
+                if (low > -1) {
+                    final long value = chunkBase | low;
+                    if (value > maxValue) {
+                        exhaust();
+                        return false;
+                    }
+                    next = value;
+                    return true;
+                }
+                if (++chunkIndex >= chunkCount) {
+                    container.clear();
+                    return false;
+                }
+                openChunk();
+            }
+        }
+
+        @Override
+        public long next() {
+            return next;
+        }
+
+        @Override
+        public void seek(long minValue) {
+            if (chunkIndex >= chunkCount || minValue <= chunkBase) {
+                return;
+            }
+            final long high = minValue >>> CHUNK_BITS;
+            if (high > getHigh(chunkIndex)) {
+                chunkIndex = searchChunk(chunkDirAddress, chunkIndex + 1, chunkCount - 1, high);
+                if (chunkIndex >= chunkCount) {
+                    exhaust();
+                    return;
+                }
+                openChunk();
+            }
+            if (getHigh(chunkIndex) == high) {
+                container.skipAsc((int) (minValue & CHUNK_MASK));
+            }
+        }
+
+        private void exhaust() {
+            chunkIndex = chunkCount;
+            container.clear();
+        }
+
+        private long getHigh(int chunkIndex) {
+            return Unsafe.getUnsafe().getLong(chunkDirAddress + (long) chunkIndex * CHUNK_ENTRY_SIZE + CHUNK_ENTRY_OFFSET_HIGH);
+        }
+
+        private void openChunk() {
+            final long chunkEntryAddress = chunkDirAddress + (long) chunkIndex * CHUNK_ENTRY_SIZE;
+            chunkBase = Unsafe.getUnsafe().getLong(chunkEntryAddress + CHUNK_ENTRY_OFFSET_HIGH) << CHUNK_BITS;
+            container.of(baseAddress, chunkEntryAddress, true);
+        }
+
+        void of(int key, long minValue, long maxValue) {
+            this.maxValue = maxValue;
+            this.chunkBase = -1;
+            if (key >= keyCount) {
+                // null cursor of the column that has nothing but column top
+                chunkCount = 0;
+                exhaust();
+                return;
+            }
+            final long keyEntryAddress = baseAddress + getKeyEntryOffset(key);
+            this.chunkDirAddress = baseAddress + Unsafe.getUnsafe().getLong(keyEntryAddress + KEY_ENTRY_OFFSET_CHUNK_DIR_OFFSET);
+            this.chunkCount = Unsafe.getUnsafe().getInt(keyEntryAddress + KEY_ENTRY_OFFSET_CHUNK_COUNT);
+            minValue = Math.max(minValue, 0);
+            final long high = minValue >>> CHUNK_BITS;
+            chunkIndex = searchChunk(chunkDirAddress, 0, chunkCount - 1, high);
+            if (chunkIndex >= chunkCount) {
+                exhaust();
+                return;
+            }
+            openChunk();
+            if (getHigh(chunkIndex) == high) {
+                container.skipAsc((int) (minValue & CHUNK_MASK));
+            }
+        }
+    }
+
+    private class FwdNullCursor extends FwdCursor {
+        private long nullCount;
+        private long nullPos;
+
+        @Override
+        public boolean hasNext() {
+            if (nullPos < nullCount) {
+                next = nullPos++;
+                return true;
+            }
+            return super.hasNext();
+        }
+
+        @Override
+        public void seek(long minValue) {
+            nullPos = Math.max(nullPos, minValue);
+            super.seek(minValue);
+        }
+    }
+
+    private class BwdCursor implements RowCursor {
+        private final Container container = new Container();
+        private long chunkDirAddress;
+        private int chunkIndex;
+        private long chunkBase;
+        protected long minValue;
+        protected long next;
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                final int low = container.nextDesc();
+                if (low > -1) {
+                    final long value = chunkBase | low;
+                    if (value < minValue) {
+                        exhaust();
+                        return false;
+                    }
+                    next = value;
+                    return true;
+                }
+                if (--chunkIndex < 0) {
+                    container.clear();
+                    return false;
+                }
+                openChunk();
+            }
+        }
+
+        @Override
+        public long next() {
+            return next;
+        }
+
+        private void exhaust() {
+            chunkIndex = -1;
+            container.clear();
+        }
+
+        private void openChunk() {
+            final long chunkEntryAddress = chunkDirAddress + (long) chunkIndex * CHUNK_ENTRY_SIZE;
+            chunkBase = Unsafe.getUnsafe().getLong(chunkEntryAddress + CHUNK_ENTRY_OFFSET_HIGH) << CHUNK_BITS;
+            container.of(baseAddress, chunkEntryAddress, false);
+        }
+
+        void of(int key, long minValue, long maxValue) {
+            this.minValue = minValue;
+            if (key >= keyCount || maxValue < 0) {
+                exhaust();
+                return;
+            }
+            final long keyEntryAddress = baseAddress + getKeyEntryOffset(key);
+            this.chunkDirAddress = baseAddress + Unsafe.getUnsafe().getLong(keyEntryAddress + KEY_ENTRY_OFFSET_CHUNK_DIR_OFFSET);
+            final int chunkCount = Unsafe.getUnsafe().getInt(keyEntryAddress + KEY_ENTRY_OFFSET_CHUNK_COUNT);
+            final long high = maxValue >>> CHUNK_BITS;
+            // last chunk, which is not above the max value
+            chunkIndex = searchChunk(chunkDirAddress, 0, chunkCount - 1, high + 1) - 1;
+            if (chunkIndex < 0) {
+                exhaust();
+                return;
+            }
+            openChunk();
+            if (chunkBase >>> CHUNK_BITS == high) {
+                container.skipDesc((int) (maxValue & CHUNK_MASK));
+            }
+        }
+    }
+
+    private class BwdNullCursor extends BwdCursor {
+        private long nullPos;
+
+        @Override
+        public boolean hasNext() {
+            if (super.hasNext()) {
+                return true;
+            }
+            if (nullPos > minValue) {
+                next = --nullPos;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns decoded values in batches, the batch stays valid until the next call.
+     */
+    private class FrameCursor implements IndexFrameCursor, Closeable {
+        private final FwdCursor cursor = new FwdCursor();
+        private final DirectLongList values = new DirectLongList(FRAME_CAPACITY, MemoryTag.NATIVE_DEFAULT);
+        private final IndexFrame indexFrame = new IndexFrame();
+
+        @Override
+        public void close() {
+            Misc.free(values);
+        }
+
+        @Override
+        public IndexFrame getNext() {
+            values.clear();
+            while (values.size() < FRAME_CAPACITY && cursor.hasNext()) {
+                values.add(cursor.next());
+            }
+            if (values.size() > 0) {
+                return indexFrame.of(values.getAddress(), values.size());
+            }
+            return IndexFrame.NULL_INSTANCE;
+        }
+
+        void of(int key, long minValue, long maxValue) {
+            cursor.of(key, minValue, maxValue);
+        }
+    }
+
+    /**
+     * In-memory copy of the index in regular bitmap index layout.
+     */
+    private class Inflated implements BitmapIndexReader, Mutable {
+        private long keyAddress;
+        private long keySize;
+        private long valueAddress;
+        private long valueSize;
+        private int blockValueCount;
+
+        @Override
+        public void clear() {
+            if (keyAddress != 0) {
+                Unsafe.free(keyAddress, keySize, MemoryTag.NATIVE_DEFAULT);
+                keyAddress = 0;
+            }
+            if (valueAddress != 0) {
+                Unsafe.free(valueAddress, valueSize, MemoryTag.NATIVE_DEFAULT);
+                valueAddress = 0;
+            }
+            keySize = 0;
+            valueSize = 0;
+        }
+
+        @Override
+        public RowCursor getCursor(boolean cachedInstance, int key, long minValue, long maxValue) {
+            return CompressedBitmapIndexReader.this.getCursor(cachedInstance, key, minValue, maxValue);
+        }
+
+        @Override
+        public int getKeyCount() {
+            return CompressedBitmapIndexReader.this.getKeyCount();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return keyAddress != 0;
+        }
+
+        @Override
+        public long getKeyBaseAddress() {
+            return keyAddress;
+        }
+
+        @Override
+        public long getKeyMemorySize() {
+            return keySize;
+        }
+
+        @Override
+        public long getValueBaseAddress() {
+            return valueAddress;
+        }
+
+        @Override
+        public long getValueMemorySize() {
+            return valueSize;
+        }
+
+        @Override
+        public long getUnIndexedNullCount() {
+            return unIndexedNullCount;
+        }
+
+        @Override
+        public int getValueBlockCapacity() {
+            return blockValueCount - 1;
+        }
+
+        void of() {
+            blockValueCount = Unsafe.getUnsafe().getInt(baseAddress + HEADER_OFFSET_BLOCK_VALUE_COUNT);
+            final long blockCapacity = (long) blockValueCount * Long.BYTES + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+            long blockCount = 0;
+            for (int key = 0; key < keyCount; key++) {
+                blockCount += (getValueCount(key) + blockValueCount - 1) / blockValueCount;
+            }
+            keySize = BitmapIndexUtils.getKeyEntryOffset(keyCount);
+            // value memory is never empty to keep its address valid
+            valueSize = Math.max(blockCount * blockCapacity, blockCapacity);
+            keyAddress = Unsafe.calloc(keySize, MemoryTag.NATIVE_DEFAULT);
+            valueAddress = Unsafe.calloc(valueSize, MemoryTag.NATIVE_DEFAULT);
+
+            Unsafe.getUnsafe().putByte(keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_SIGNATURE, BitmapIndexUtils.SIGNATURE);
+            Unsafe.getUnsafe().putLong(keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_SEQUENCE, 1);
+            Unsafe.getUnsafe().putLong(keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_VALUE_MEM_SIZE, valueSize);
+            Unsafe.getUnsafe().putInt(keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_BLOCK_VALUE_COUNT, blockValueCount);
+            Unsafe.getUnsafe().putLong(keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_KEY_COUNT, keyCount);
+            Unsafe.getUnsafe().putLong(keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_SEQUENCE_CHECK, 1);
+            Unsafe.getUnsafe().putLong(
+                    keyAddress + BitmapIndexUtils.KEY_RESERVED_OFFSET_MAX_VALUE,
+                    Unsafe.getUnsafe().getLong(baseAddress + HEADER_OFFSET_MAX_VALUE)
+            );
+
+            final FwdCursor cursor = new FwdCursor();
+            long blockOffset = 0;
+            for (int key = 0; key < keyCount; key++) {
+                final long valueCount = getValueCount(key);
+                final long keyEntryAddress = keyAddress + BitmapIndexUtils.getKeyEntryOffset(key);
+                Unsafe.getUnsafe().putLong(keyEntryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT, valueCount);
+                Unsafe.getUnsafe().putLong(keyEntryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_COUNT_CHECK, valueCount);
+                if (valueCount == 0) {
+                    continue;
+                }
+                Unsafe.getUnsafe().putLong(keyEntryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_FIRST_VALUE_BLOCK_OFFSET, blockOffset);
+                cursor.of(key, 0, Long.MAX_VALUE);
+                long prevBlockOffset = -1;
+                long cell = 0;
+                while (cursor.hasNext()) {
+                    if (cell == blockValueCount) {
+                        prevBlockOffset = blockOffset;
+                        blockOffset += blockCapacity;
+                        cell = 0;
+                    }
+                    if (cell == 0 && prevBlockOffset > -1) {
+                        // link blocks both ways
+                        Unsafe.getUnsafe().putLong(valueAddress + blockOffset + blockCapacity - BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED, prevBlockOffset);
+                        Unsafe.getUnsafe().putLong(valueAddress + prevBlockOffset + blockCapacity - BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED + 8, blockOffset);
+                    }
+                    Unsafe.getUnsafe().putLong(valueAddress + blockOffset + cell * Long.BYTES, cursor.next());
+                    cell++;
+                }
+                Unsafe.getUnsafe().putLong(keyEntryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_LAST_VALUE_BLOCK_OFFSET, blockOffset);
+                blockOffset += blockCapacity;
+            }
+        }
+    }
+
+    /**
+     * @return index of the first chunk in [lo, hi], which high is greater than or equal to given high, hi + 1 when there is none
+     */
+    private static int searchChunk(long chunkDirAddress, int lo, int hi, long high) {
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final long midHigh = Unsafe.getUnsafe().getLong(chunkDirAddress + (long) mid * CHUNK_ENTRY_SIZE + CHUNK_ENTRY_OFFSET_HIGH);
+            if (midHigh < high) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import static io.questdb.cairo.TableUtils.COLUMN_NAME_TXN_NONE;
+
+/**
+ * Layout of compressed bitmap index file. Compressed index is immutable, it is written
+ * from the regular index of a sealed partition and stored in a single file:
+ * <pre>
+ * header                   64 bytes
+ * key entries              24 bytes per key
+ * containers and chunk directories of every key
+ * </pre>
+ * Values of a key are split into chunks of 2^16 rows, the chunk directory holds one entry
+ * per non-empty chunk, ordered by chunk number. Low 16 bits of values in a chunk are stored
+ * in one of three containers, whichever is smallest:
+ * <ul>
+ *     <li>array - ascending values as delta-encoded varints, at most {@link #ARRAY_MAX_CARDINALITY} values</li>
+ *     <li>run - int count of runs followed by pairs of 16-bit run start and run length - 1</li>
+ *     <li>bitmap - 2^16 bits</li>
+ * </ul>
+ */
+public final class CompressedBitmapIndexUtils {
+    static final byte SIGNATURE = (byte) 0xfc;
+    static final int HEADER_SIZE = 64;
+    static final int HEADER_OFFSET_SIGNATURE = 0;
+    static final int HEADER_OFFSET_KEY_COUNT = 4;
+    static final int HEADER_OFFSET_BLOCK_VALUE_COUNT = 8;
+    static final int HEADER_OFFSET_MAX_VALUE = 16;
+    static final int HEADER_OFFSET_VALUE_COUNT = 24;
+
+    static final int KEY_ENTRY_SIZE = 24;
+    static final int KEY_ENTRY_OFFSET_VALUE_COUNT = 0;
+    static final int KEY_ENTRY_OFFSET_CHUNK_DIR_OFFSET = 8;
+    static final int KEY_ENTRY_OFFSET_CHUNK_COUNT = 16;
+
+    static final int CHUNK_ENTRY_SIZE = 24;
+    static final int CHUNK_ENTRY_OFFSET_HIGH = 0;
+    static final int CHUNK_ENTRY_OFFSET_CONTAINER_OFFSET = 8;
+    static final int CHUNK_ENTRY_OFFSET_CARDINALITY = 16;
+    static final int CHUNK_ENTRY_OFFSET_TYPE = 20;
+
+    static final int CONTAINER_ARRAY = 0;
+    static final int CONTAINER_RUN = 1;
+    static final int CONTAINER_BITMAP = 2;
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    static final int BITMAP_WORD_COUNT = (1 << CHUNK_BITS) / Long.SIZE;
+    static final int BITMAP_SIZE = BITMAP_WORD_COUNT * Long.BYTES;
+    static final int ARRAY_MAX_CARDINALITY = 4096;
+
+    private CompressedBitmapIndexUtils() {
+    }
+
+    public static Path compressedFileName(Path path, CharSequence name, long columnNameTxn) {
+        path.concat(name).put(".ci");
+        if (columnNameTxn > COLUMN_NAME_TXN_NONE) {
+            path.put('.').put(columnNameTxn);
+        }
+        return path.$();
+    }
+
+    static long getKeyEntryOffset(int key) {
+        return HEADER_SIZE + (long) key * KEY_ENTRY_SIZE;
+    }
+
+    /**
+     * Decodes array container into the buffer.
+     *
+     * @param address     address of the container
+     * @param cardinality number of values in the container
+     * @param buffer      buffer for 16-bit values, at least {@link #ARRAY_MAX_CARDINALITY} long
+     */
+    static void decodeArray(long address, int cardinality, int[] buffer) {
+        int value = 0;
+        for (int i = 0; i < cardinality; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = Unsafe.getUnsafe().getByte(address++);
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            buffer[i] = value;
+        }
+    }
+
+    static int varIntSize(int value) {
+        return value < (1 << 7) ? 1 : value < (1 << 14) ? 2 : 3;
+    }
+}
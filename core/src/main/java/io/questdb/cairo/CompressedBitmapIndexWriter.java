@@ -0,0 +1,214 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+import static io.questdb.cairo.CompressedBitmapIndexUtils.*;
+
+/**
+ * Writes compressed bitmap index, see {@link CompressedBitmapIndexUtils} for the file layout.
+ * Values are taken from the regular index and have to be in ascending order for every key.
+ */
+public class CompressedBitmapIndexWriter implements Closeable {
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    private final long[] bitmap = new long[BITMAP_WORD_COUNT];
+    private final LongList chunks = new LongList();
+
+    @Override
+    public void close() {
+        Misc.free(mem);
+    }
+
+    /**
+     * Writes compressed copy of the index.
+     *
+     * @param configuration configuration
+     * @param path          compressed index file
+     * @param src           forward reader of the regular index, values of unindexed column top are not copied
+     * @return size of the compressed index
+     */
+    public long write(CairoConfiguration configuration, Path path, BitmapIndexReader src) {
+        final int keyCount = src.getKeyCount() - (src.getUnIndexedNullCount() > 0 ? 1 : 0);
+        mem.of(
+                configuration.getFilesFacade(),
+                path,
+                configuration.getDataIndexValueAppendPageSize(),
+                MemoryTag.MMAP_INDEX_WRITER,
+                configuration.getWriterFileOpenOpts()
+        );
+        try {
+            mem.jumpTo(0);
+            mem.skip(getKeyEntryOffset(keyCount));
+            long totalCount = 0;
+            for (int key = 0; key < keyCount; key++) {
+                final long valueCount = writeKey(src.getCursor(true, key, src.getUnIndexedNullCount(), Long.MAX_VALUE));
+                final long keyEntryOffset = getKeyEntryOffset(key);
+                mem.putLong(keyEntryOffset + KEY_ENTRY_OFFSET_VALUE_COUNT, valueCount);
+                mem.putLong(keyEntryOffset + KEY_ENTRY_OFFSET_CHUNK_DIR_OFFSET, mem.getAppendOffset());
+                mem.putInt(keyEntryOffset + KEY_ENTRY_OFFSET_CHUNK_COUNT, chunks.size() / 4);
+                for (int i = 0, n = chunks.size(); i < n; i += 4) {
+                    mem.putLong(chunks.getQuick(i));
+                    mem.putLong(chunks.getQuick(i + 1));
+                    mem.putInt((int) chunks.getQuick(i + 2));
+                    mem.putInt((int) chunks.getQuick(i + 3));
+                }
+                totalCount += valueCount;
+            }
+            mem.putByte(HEADER_OFFSET_SIGNATURE, SIGNATURE);
+            mem.putInt(HEADER_OFFSET_KEY_COUNT, keyCount);
+            mem.putInt(HEADER_OFFSET_BLOCK_VALUE_COUNT, src.getValueBlockCapacity() + 1);
+            mem.putLong(HEADER_OFFSET_MAX_VALUE, Unsafe.getUnsafe().getLong(src.getKeyBaseAddress() + BitmapIndexUtils.KEY_RESERVED_OFFSET_MAX_VALUE));
+            mem.putLong(HEADER_OFFSET_VALUE_COUNT, totalCount);
+            final long size = mem.getAppendOffset();
+            mem.sync(false);
+            return size;
+        } finally {
+            mem.close(true);
+        }
+    }
+
+    private static int runCount(long[] bitmap) {
+        int count = 0;
+        long carry = 0;
+        for (int i = 0; i < BITMAP_WORD_COUNT; i++) {
+            final long word = bitmap[i];
+            // run starts at every set bit that does not follow another set bit
+            count += Long.bitCount(word & ~((word << 1) | carry));
+            carry = word >>> 63;
+        }
+        return count;
+    }
+
+    private void flushChunk(long high, int cardinality) {
+        final int runCount = runCount(bitmap);
+        final long runSize = Integer.BYTES + (long) runCount * 2 * Character.BYTES;
+        long arraySize = Long.MAX_VALUE;
+        if (cardinality <= ARRAY_MAX_CARDINALITY) {
+            arraySize = 0;
+            int prev = 0;
+            for (int i = 0; i < BITMAP_WORD_COUNT; i++) {
+                long word = bitmap[i];
+                while (word != 0) {
+                    final int value = (i << 6) + Long.numberOfTrailingZeros(word);
+                    arraySize += varIntSize(value - prev);
+                    prev = value;
+                    word &= word - 1;
+                }
+            }
+        }
+
+        final int type;
+        long offset = mem.getAppendOffset();
+        if (arraySize <= runSize && arraySize < BITMAP_SIZE) {
+            type = CONTAINER_ARRAY;
+            int prev = 0;
+            for (int i = 0; i < BITMAP_WORD_COUNT; i++) {
+                long word = bitmap[i];
+                while (word != 0) {
+                    final int value = (i << 6) + Long.numberOfTrailingZeros(word);
+                    putVarInt(value - prev);
+                    prev = value;
+                    word &= word - 1;
+                }
+            }
+        } else if (runSize < BITMAP_SIZE) {
+            type = CONTAINER_RUN;
+            mem.putInt(runCount);
+            int runStart = -1;
+            int prev = -2;
+            for (int i = 0; i < BITMAP_WORD_COUNT; i++) {
+                long word = bitmap[i];
+                while (word != 0) {
+                    final int value = (i << 6) + Long.numberOfTrailingZeros(word);
+                    if (value != prev + 1) {
+                        if (runStart > -1) {
+                            mem.putChar((char) runStart);
+                            mem.putChar((char) (prev - runStart));
+                        }
+                        runStart = value;
+                    }
+                    prev = value;
+                    word &= word - 1;
+                }
+            }
+            mem.putChar((char) runStart);
+            mem.putChar((char) (prev - runStart));
+        } else {
+            type = CONTAINER_BITMAP;
+            offset = (offset + Long.BYTES - 1) & -Long.BYTES;
+            mem.jumpTo(offset);
+            for (int i = 0; i < BITMAP_WORD_COUNT; i++) {
+                mem.putLong(bitmap[i]);
+            }
+        }
+        chunks.add(high, offset, cardinality, type);
+    }
+
+    private void putVarInt(int value) {
+        while (value > 0x7f) {
+            mem.putByte((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    private long writeKey(RowCursor cursor) {
+        chunks.clear();
+        long high = -1;
+        int cardinality = 0;
+        long count = 0;
+        while (cursor.hasNext()) {
+            final long value = cursor.next();
+            final long valueHigh = value >>> CHUNK_BITS;
+            if (valueHigh != high) {
+                if (cardinality > 0) {
+                    flushChunk(high, cardinality);
+                }
+                high = valueHigh;
+                cardinality = 0;
+                Arrays.fill(bitmap, 0);
+            }
+            final int low = (int) (value & CHUNK_MASK);
+            bitmap[low >>> 6] |= 1L << low;
+            cardinality++;
+            count++;
+        }
+        if (cardinality > 0) {
+            flushChunk(high, cardinality);
+        }
+        // chunk directory is aligned for the reader
+        mem.jumpTo((mem.getAppendOffset() + Long.BYTES - 1) & -Long.BYTES);
+        return count;
+    }
+}
@@ -34,6 +34,7 @@ import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.datetime.DateLocale;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.datetime.millitime.DateFormatUtils;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClockImpl;
@@ -43,6 +44,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final CharSequence root;
     private final CharSequence confRoot;
     private final CharSequence snapshotRoot;
+    private final CharSequence spillRoot;
 
     private final TextConfiguration textConfiguration;
     private final DefaultTelemetryConfiguration telemetryConfiguration = new DefaultTelemetryConfiguration();
@@ -58,6 +60,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.confRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.CONFIG_DIRECTORY);
         this.textConfiguration = new DefaultTextConfiguration(Chars.toString(confRoot));
         this.snapshotRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.SNAPSHOT_DIRECTORY);
+        this.spillRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.SPILL_DIRECTORY);
         Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
         this.databaseIdLo = rnd.nextLong();
         this.databaseIdHi = rnd.nextLong();
@@ -308,6 +311,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return null;
     }
 
+    @Override
+    public CharSequence getInputWorkRoot() {
+        return null;
+    }
+
     @Override
     public int getInsertPoolCapacity() {
         return 8;
@@ -393,6 +401,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
     @Override
     public int getPageFrameReduceQueueCapacity() {
         return 32;
@@ -515,6 +548,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public int getSqlCopyQueueCapacity() {
+        return 32;
+    }
+
     @Override
     public int getSqlDistinctTimestampKeyCapacity() {
         return 256;
@@ -640,6 +678,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 16 * Numbers.SIZE_1MB;
     }
 
+    @Override
+    public int getSqlSpillPartitionCount() {
+        return 32;
+    }
+
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return spillRoot;
+    }
+
+    @Override
+    public long getSqlSpillThreshold() {
+        return 0;
+    }
+
     @Override
     public int getSqlModelPoolCapacity() {
         return 1024;
@@ -665,6 +718,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 128;
     }
 
+    @Override
+    public long getSqlResultCacheMaxEntrySize() {
+        return 4 * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public long getSqlResultCachePageSize() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public long getSqlResultCacheSize() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
     @Override
     public long getSqlSortKeyPageSize() {
         return 4 * Numbers.SIZE_1MB;
@@ -744,6 +812,51 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Os.type != Os.WINDOWS ? O_ASYNC : O_NONE;
     }
 
+    @Override
+    public int getWalSegmentRolloverRowCount() {
+        return 200_000;
+    }
+
+    @Override
+    public int getColumnCompressionPartitionLag() {
+        return 2;
+    }
+
+    @Override
+    public int getParquetRowGroupSize() {
+        return 100_000;
+    }
+
+    @Override
+    public boolean isParquetCompressionEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isPartitionStatsEnabled() {
+        return true;
+    }
+
+    @Override
+    public CharSequence getColdRoot() {
+        return null;
+    }
+
+    @Override
+    public long getColdPartitionAge() {
+        return 30 * Timestamps.DAY_MICROS;
+    }
+
+    @Override
+    public long getColdCheckInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getTtlCheckInterval() {
+        return 60_000;
+    }
+
     @Override
     public long getWriterCommandQueueSlotSize() {
         return 1024;
@@ -32,6 +32,10 @@ public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public DataFrame next() {
         while (this.partitionIndex > -1) {
+            if (statsFilter != null && statsFilter.canSkip(reader, partitionIndex)) {
+                partitionIndex--;
+                continue;
+            }
             final long hi = reader.openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
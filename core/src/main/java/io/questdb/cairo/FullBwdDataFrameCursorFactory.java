@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 
 public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
@@ -35,9 +36,9 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     }
 
     @Override
-    public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) {
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
         if (order == ORDER_DESC || order == ORDER_ANY) {
-            return cursor.of(getReader(executionContext.getCairoSecurityContext()));
+            return cursor.of(getReader(executionContext.getCairoSecurityContext()), initStatsFilter(executionContext));
         }
 
         throw new UnsupportedOperationException();
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 
 public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
@@ -36,9 +37,10 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     }
 
     @Override
-    public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) {
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        final PartitionStatsFilter statsFilter = initStatsFilter(executionContext);
         if (order == ORDER_ASC || order == ORDER_ANY) {
-            return cursor.of(getReader(executionContext.getCairoSecurityContext()));
+            return cursor.of(getReader(executionContext.getCairoSecurityContext()), statsFilter);
         }
 
         // Create backward scanning cursor when needed. Factory requesting backward cursor must
@@ -46,7 +48,7 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
         if (bwdCursor == null) {
             bwdCursor = new FullBwdDataFrameCursor();
         }
-        return bwdCursor.of(getReader(executionContext.getCairoSecurityContext()));
+        return bwdCursor.of(getReader(executionContext.getCairoSecurityContext()), statsFilter);
     }
 
     @Override
@@ -50,7 +50,7 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
         if (order == ORDER_DESC || order == ORDER_ANY) {
-            cursor.of(getReader(executionContext.getCairoSecurityContext()), executionContext);
+            cursor.of(getReader(executionContext.getCairoSecurityContext()), executionContext, initStatsFilter(executionContext));
             return cursor;
         }
         throw new UnsupportedOperationException();
@@ -63,6 +63,7 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
 
     @Override
     public void close() {
+        super.close();
         Misc.free(intervals);
     }
 
@@ -47,6 +47,11 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
         // order of logical operations is important
         // we are not calculating partition rages when intervals are empty
         while (intervalsLo < intervalsHi && partitionLo < partitionHi) {
+            if (statsFilter != null && statsFilter.canSkip(reader, partitionLo)) {
+                partitionLimit = 0;
+                partitionLo++;
+                continue;
+            }
             // We don't need to worry about column tops and null column because we
             // are working with timestamp. Timestamp column cannot be added to existing table.
             long rowCount = reader.openPartition(partitionLo);
@@ -34,6 +34,7 @@ import io.questdb.std.str.MutableCharSink;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.O3PartitionPurgeTask;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -81,6 +82,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
             FilesFacade ff,
             Path path,
             int tableRootLen,
+            @Nullable Path coldPath,
             TxReader txReader,
             TxnScoreboard txnScoreboard,
             long partitionTimestamp,
@@ -95,6 +97,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
                     ff,
                     path,
                     tableRootLen,
+                    coldPath,
                     txReader,
                     txnScoreboard,
                     partitionTimestamp,
@@ -108,6 +111,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
                     ff,
                     path,
                     tableRootLen,
+                    coldPath,
                     txReader,
                     txnScoreboard,
                     partitionTimestamp,
@@ -123,6 +127,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
             FilesFacade ff,
             Path path,
             int tableRootLen,
+            @Nullable Path coldPath,
             TxReader txReader,
             TxnScoreboard txnScoreboard,
             long partitionTimestamp,
@@ -153,6 +158,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
                         ff,
                         path,
                         tableRootLen,
+                        coldPath,
                         partitionTimestamp,
                         partitionBy,
                         nameTxn - 1
@@ -168,6 +174,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
             FilesFacade ff,
             Path path,
             int tableRootLen,
+            @Nullable Path coldPath,
             TxReader txReader,
             TxnScoreboard txnScoreboard,
             long partitionTimestamp,
@@ -204,6 +211,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
                             ff,
                             path,
                             tableRootLen,
+                            coldPath,
                             partitionTimestamp,
                             partitionBy,
                             previousNameVersion - 1);
@@ -216,6 +224,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
             FilesFacade ff,
             Path path,
             int tableRootLen,
+            @Nullable Path coldPath,
             long partitionTimestamp,
             int partitionBy,
             long previousNameVersion
@@ -225,16 +234,32 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
         TableUtils.txnPartitionConditionally(path, previousNameVersion);
         path.slash$();
 
-        long errno;
-        if ((errno = ff.rmdir(path)) == 0) {
-            LOG.info()
-                    .$("purged [path=").$(path)
-                    .I$();
-        } else {
-            LOG.info()
-                    .$("partition purge failed [path=").$(path)
-                    .$(", errno=").$(errno)
-                    .I$();
+        Path partitionPath = path;
+        long errno = ff.rmdir(path);
+        final int coldRootLen = coldPath != null ? coldPath.length() : 0;
+        try {
+            if (errno == -1 && coldPath != null) {
+                // partition version is not in the table directory, it is on the cold storage volume
+                TableUtils.setPathForPartition(coldPath, partitionBy, partitionTimestamp, false);
+                TableUtils.txnPartitionConditionally(coldPath, previousNameVersion);
+                coldPath.slash$();
+                partitionPath = coldPath;
+                errno = ff.rmdir(coldPath);
+            }
+            if (errno == 0) {
+                LOG.info()
+                        .$("purged [path=").$(partitionPath)
+                        .I$();
+            } else {
+                LOG.info()
+                        .$("partition purge failed [path=").$(partitionPath)
+                        .$(", errno=").$(errno)
+                        .I$();
+            }
+        } finally {
+            if (coldPath != null) {
+                coldPath.trimTo(coldRootLen);
+            }
         }
     }
 
@@ -257,19 +282,15 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
         partitionList.clear();
         DateFormat partitionByFormat = PartitionBy.getPartitionDirFormatMethod(partitionBy);
 
-        long p = ff.findFirst(path);
-        if (p > 0) {
-            try {
-                do {
-                    long fileName = ff.findName(p);
-                    if (Files.isDir(fileName, ff.findType(p), fileNameSink)) {
-                        // extract txn, partition ts from name
-                        parsePartitionDateVersion(fileNameSink, partitionList, tableName, partitionByFormat);
-                    }
-                } while (ff.findNext(p) > 0);
-            } finally {
-                ff.findClose(p);
-            }
+        discoverPartitionVersions(ff, path, fileNameSink, partitionList, tableName, partitionByFormat);
+
+        // versions of cold partitions are on the cold storage volume
+        Path coldPath = null;
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null) {
+            coldPath = Path.getThreadLocal2(coldRoot).concat(tableName).slash$();
+            discoverPartitionVersions(ff, coldPath, fileNameSink, partitionList, tableName, partitionByFormat);
+            coldPath.of(coldRoot).concat(tableName);
         }
 
         // find duplicate partitions
@@ -297,6 +318,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
                                 ff,
                                 path,
                                 tableRootLen,
+                                coldPath,
                                 txReader,
                                 txnScoreboard,
                                 partitionTimestamp,
@@ -316,6 +338,7 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
                         ff,
                         path,
                         tableRootLen,
+                        coldPath,
                         txReader,
                         txnScoreboard,
                         partitionTimestamp,
@@ -358,6 +381,30 @@ public class O3PartitionPurgeJob extends AbstractQueueConsumerJob<O3PartitionPur
         return true;
     }
 
+    private void discoverPartitionVersions(
+            FilesFacade ff,
+            Path path,
+            StringSink fileNameSink,
+            DirectLongList partitionList,
+            CharSequence tableName,
+            DateFormat partitionByFormat
+    ) {
+        long p = ff.findFirst(path);
+        if (p > 0) {
+            try {
+                do {
+                    long fileName = ff.findName(p);
+                    if (Files.isDir(fileName, ff.findType(p), fileNameSink)) {
+                        // extract txn, partition ts from name
+                        parsePartitionDateVersion(fileNameSink, partitionList, tableName, partitionByFormat);
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        }
+    }
+
     private void parsePartitionDateVersion(StringSink fileNameSink, DirectLongList partitionList, CharSequence tableName, DateFormat partitionByFormat) {
         int index = Chars.lastIndexOf(fileNameSink, '.');
 
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.parquet.ParquetEncoder;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Converts column files of a sealed partition into a single Parquet file. The file is written
+ * to the directory of the new partition version, index files of indexed symbol columns are
+ * hard-linked from the previous version, so that index readers keep working.
+ */
+public class PartitionParquetConverter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionParquetConverter.class);
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final ParquetEncoder encoder = new ParquetEncoder();
+    private final MemoryMA parquetMem = Vm.getMAInstance();
+    private final ObjList<MemoryMR> columnMems = new ObjList<>();
+    private final ObjList<SymbolMapReaderImpl> symbolMapReaders = new ObjList<>();
+
+    public PartitionParquetConverter(CairoConfiguration configuration) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(encoder);
+        Misc.free(parquetMem);
+    }
+
+    /**
+     * Writes Parquet file of the partition.
+     *
+     * @param tableWriter    writer of the table
+     * @param partitionIndex index of the sealed partition
+     * @param path           path to the table directory
+     * @param other          path to the directory of the new partition version, the directory must exist
+     * @return size of the Parquet file
+     */
+    public long convert(TableWriter tableWriter, int partitionIndex, Path path, Path other) {
+        final TableWriterMetadata metadata = tableWriter.getMetadata();
+        final long partitionTimestamp = tableWriter.getPartitionTimestamp(partitionIndex);
+        final long partitionNameTxn = tableWriter.getPartitionNameTxn(partitionIndex);
+        final long partitionSize = tableWriter.getPartitionSize(partitionIndex);
+        final int rootLen = path.length();
+        final int otherLen = other.length();
+        encoder.of(
+                configuration.getParquetRowGroupSize(),
+                configuration.isParquetCompressionEnabled() ? ParquetEncoder.CODEC_GZIP : ParquetEncoder.CODEC_UNCOMPRESSED
+        );
+        try {
+            for (int columnIndex = 0, n = metadata.getColumnCount(); columnIndex < n; columnIndex++) {
+                final int columnType = metadata.getColumnType(columnIndex);
+                if (columnType < 0) {
+                    // deleted column
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(columnIndex);
+
+                SymbolTable symbolTable = null;
+                int symbolCount = 0;
+                if (ColumnType.isSymbol(columnType)) {
+                    symbolCount = tableWriter.getSymbolCount(columnIndex);
+                    final SymbolMapReaderImpl symbolMapReader = new SymbolMapReaderImpl(
+                            configuration,
+                            path.trimTo(rootLen),
+                            columnName,
+                            tableWriter.getDefaultColumnNameTxn(columnIndex),
+                            symbolCount
+                    );
+                    symbolMapReaders.add(symbolMapReader);
+                    symbolTable = symbolMapReader;
+                }
+
+                final long columnTop = tableWriter.getColumnTop(partitionTimestamp, columnIndex, -1L);
+                // column that was added after the partition had been written has no files in it
+                final long top = columnTop > -1L ? Math.min(columnTop, partitionSize) : partitionSize;
+                final long rowCount = partitionSize - top;
+                long dataAddress = 0;
+                long auxAddress = 0;
+                if (columnTop > -1L) {
+                    final long columnNameTxn = tableWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
+                    path.trimTo(rootLen);
+                    TableUtils.setPathForPartition(path, tableWriter.getPartitionBy(), partitionTimestamp, false);
+                    TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+                    final int plen = path.length();
+                    if (rowCount > 0) {
+                        if (ColumnType.isVariableLength(columnType)) {
+                            final MemoryMR auxMem = Vm.getMRInstance(ff, TableUtils.iFile(path.trimTo(plen), columnName, columnNameTxn), (rowCount + 1) * Long.BYTES, MemoryTag.MMAP_TABLE_WRITER);
+                            columnMems.add(auxMem);
+                            final long dataSize = auxMem.getLong(rowCount * Long.BYTES);
+                            final MemoryMR dataMem = Vm.getMRInstance(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), dataSize, MemoryTag.MMAP_TABLE_WRITER);
+                            columnMems.add(dataMem);
+                            auxAddress = auxMem.addressOf(0);
+                            dataAddress = dataMem.addressOf(0);
+                        } else {
+                            final long size = rowCount << ColumnType.pow2SizeOf(columnType);
+                            final MemoryMR mem;
+                            if (metadata.isColumnCompressed(columnIndex) && ff.exists(TableUtils.zFile(path.trimTo(plen), columnName, columnNameTxn))) {
+                                mem = Vm.getMRCodecInstance(ff, path, size, MemoryTag.MMAP_TABLE_WRITER);
+                            } else {
+                                mem = Vm.getMRInstance(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), size, MemoryTag.MMAP_TABLE_WRITER);
+                            }
+                            columnMems.add(mem);
+                            dataAddress = mem.addressOf(0);
+                        }
+                    }
+
+                    if (metadata.isColumnIndexed(columnIndex)) {
+                        // index files are not part of the Parquet file, readers keep using them
+                        if (metadata.isColumnCompressed(columnIndex) && ff.exists(CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, columnNameTxn))) {
+                            linkIndexFile(path, CompressedBitmapIndexUtils.compressedFileName(other.trimTo(otherLen), columnName, columnNameTxn));
+                        } else {
+                            linkIndexFile(BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.keyFileName(other.trimTo(otherLen), columnName, columnNameTxn));
+                            linkIndexFile(BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.valueFileName(other.trimTo(otherLen), columnName, columnNameTxn));
+                        }
+                    }
+                }
+                encoder.addColumn(columnName, columnType, columnIndex, top, dataAddress, auxAddress, symbolTable, symbolCount);
+            }
+
+            final long parquetSize;
+            parquetMem.of(
+                    ff,
+                    TableUtils.parquetFile(other.trimTo(otherLen)),
+                    configuration.getDataAppendPageSize(),
+                    MemoryTag.MMAP_TABLE_WRITER,
+                    configuration.getWriterFileOpenOpts()
+            );
+            try {
+                encoder.encode(parquetMem, partitionSize);
+                parquetSize = parquetMem.getAppendOffset();
+            } finally {
+                parquetMem.close(false);
+            }
+            // appending memory leaves the file padded to the page size, readers expect
+            // the footer at the very end of the file
+            final long fd = TableUtils.openRW(ff, TableUtils.parquetFile(other.trimTo(otherLen)), LOG, configuration.getWriterFileOpenOpts());
+            try {
+                if (!ff.truncate(fd, parquetSize)) {
+                    throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(other).put(", size=").put(parquetSize).put(']');
+                }
+                if (ff.fsync(fd) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not fsync [file=").put(other).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+            LOG.info().$("converted to parquet [table=").$(tableWriter.getTableName())
+                    .$(", partition=").$ts(partitionTimestamp)
+                    .$(", rows=").$(partitionSize)
+                    .$(", size=").$(parquetSize)
+                    .I$();
+            return parquetSize;
+        } finally {
+            Misc.freeObjListAndClear(columnMems);
+            Misc.freeObjListAndClear(symbolMapReaders);
+            path.trimTo(rootLen);
+            other.trimTo(otherLen);
+        }
+    }
+
+    private void linkIndexFile(Path src, Path link) {
+        // hard link might be left behind by the conversion that did not commit
+        ff.remove(link);
+        if (-1 == ff.hardLink(src, link)) {
+            throw CairoException.instance(ff.errno())
+                    .put("cannot hardLink [src=").put(src)
+                    .put(", hardLink=").put(link)
+                    .put(']');
+        }
+    }
+}
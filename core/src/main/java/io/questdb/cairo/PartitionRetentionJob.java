@@ -0,0 +1,185 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Periodically removes partitions of tables created or altered with a ttl once the whole partition interval
+ * is older than the ttl. Table ttl is read from the table metadata file, the writer is only taken for tables
+ * that have one, tables which writer is busy are picked up on the next check. Files of removed partitions
+ * are deleted by the writer or, when readers still use them, by {@link O3PartitionPurgeJob}.
+ */
+public class PartitionRetentionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionRetentionJob.class);
+    private static final String LOCK_REASON = "partitionRetention";
+    private final CairoEngine engine;
+    private final MicrosecondClock clock;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final long checkInterval;
+    private final StringSink nameSink = new StringSink();
+    private final ObjList<String> tableNames = new ObjList<>();
+    private TableReaderMetadata metadata;
+    private Path path = new Path();
+    private long last = 0;
+
+    public PartitionRetentionJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.clock = configuration.getMicrosecondClock();
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.checkInterval = configuration.getTtlCheckInterval() * 1000;
+        this.metadata = new TableReaderMetadata(ff);
+    }
+
+    @Override
+    public void close() {
+        path = Misc.free(path);
+        metadata = Misc.free(metadata);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            return removeExpiredPartitions(t);
+        }
+        return false;
+    }
+
+    private void collectTableNames() {
+        tableNames.clear();
+        long findPtr = ff.findFirst(path.of(root).$());
+        if (findPtr > 0) {
+            try {
+                do {
+                    nameSink.clear();
+                    if (Files.isDir(ff.findName(findPtr), ff.findType(findPtr), nameSink)) {
+                        tableNames.add(nameSink.toString());
+                    }
+                } while (ff.findNext(findPtr) > 0);
+            } finally {
+                ff.findClose(findPtr);
+            }
+        }
+    }
+
+    private long readTtl(String tableName) {
+        try {
+            metadata.deferredInit(path.of(root).concat(tableName).concat(TableUtils.META_FILE_NAME).$(), ColumnType.VERSION);
+            return PartitionBy.isPartitioned(metadata.getPartitionBy()) ? metadata.getTtl() : 0;
+        } catch (CairoException e) {
+            // table is being created or dropped
+            return 0;
+        } finally {
+            metadata.clear();
+        }
+    }
+
+    private boolean removeExpiredPartitions(long now) {
+        collectTableNames();
+        boolean useful = false;
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            final String tableName = tableNames.getQuick(i);
+            if (engine.getStatus(AllowAllCairoSecurityContext.INSTANCE, path, tableName) != TableUtils.TABLE_EXISTS) {
+                continue;
+            }
+            if (readTtl(tableName) > 0) {
+                useful |= removeExpiredPartitions(tableName, now);
+            }
+        }
+        return useful;
+    }
+
+    private boolean removeExpiredPartitions(String tableName, long now) {
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, LOCK_REASON);
+        } catch (EntryUnavailableException e) {
+            // table is busy, try again on the next check
+            return false;
+        } catch (CairoException e) {
+            LOG.error().$("could not open writer [table=").utf8(tableName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            return false;
+        }
+
+        boolean useful = false;
+        try {
+            // ttl could have been changed since the metadata file was read
+            final long ttl = writer.getMetadata().getTtl();
+            final PartitionBy.PartitionCeilMethod ceilMethod = PartitionBy.getPartitionCeilMethod(writer.getPartitionBy());
+            if (ttl <= 0 || ceilMethod == null) {
+                return false;
+            }
+            // partitions are ordered, the oldest one is removed until a partition is young enough;
+            // the last partition is active and is never removed
+            while (writer.getPartitionCount() > 1) {
+                final long partitionTimestamp = writer.getPartitionTimestamp(0);
+                if (ceilMethod.ceil(partitionTimestamp) + ttl > now) {
+                    break;
+                }
+                try {
+                    if (!writer.removePartition(partitionTimestamp)) {
+                        break;
+                    }
+                } catch (CairoException e) {
+                    LOG.error().$("could not remove expired partition [table=").utf8(tableName)
+                            .$(", partition=").$ts(partitionTimestamp)
+                            .$(", errno=").$(e.getErrno())
+                            .$(", error=").$(e.getFlyweightMessage())
+                            .I$();
+                    break;
+                }
+                LOG.info().$("removed expired partition [table=").utf8(tableName)
+                        .$(", partition=").$ts(partitionTimestamp)
+                        .$(", ttl=").$(ttl)
+                        .I$();
+                useful = true;
+            }
+        } finally {
+            writer.close();
+        }
+        return useful;
+    }
+}
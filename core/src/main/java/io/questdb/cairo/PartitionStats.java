@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Min/max statistics of column values of a sealed partition, as stored in the
+ * {@link TableUtils#PARTITION_STATS_FILE_NAME} file of the partition directory by {@link PartitionStatsWriter}.
+ * <p>
+ * The file is a sequence of longs. The header is the partition row count, the partition column version
+ * and the number of columns. It is followed by a record per writer column index: column type, null count,
+ * min and max value. Floating point values are stored as raw bits. Null count includes rows above
+ * the column top. Min and max do not include nulls; when all values are null, both are zero.
+ * Type of a column that does not have statistics is -1.
+ * <p>
+ * Statistics are valid for as long as both row count and column version of the partition are
+ * the same as in the header, any change to the partition data changes one or the other.
+ */
+public class PartitionStats implements QuietClosable {
+    static final int HEADER_SIZE = 3 * Long.BYTES;
+    static final int COLUMN_SIZE = 4 * Long.BYTES;
+    private static final int HEADER_OFFSET_ROW_COUNT = 0;
+    private static final int HEADER_OFFSET_COLUMN_VERSION = 8;
+    private static final int HEADER_OFFSET_COLUMN_COUNT = 16;
+    private static final int COLUMN_OFFSET_TYPE = 0;
+    private static final int COLUMN_OFFSET_NULL_COUNT = 8;
+    private static final int COLUMN_OFFSET_MIN = 16;
+    private static final int COLUMN_OFFSET_MAX = 24;
+    private long address;
+    private long capacity;
+    private int columnCount;
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, capacity, MemoryTag.NATIVE_DEFAULT);
+            address = 0;
+            capacity = 0;
+        }
+        columnCount = 0;
+    }
+
+    public int getColumnType(int writerIndex) {
+        if (writerIndex < columnCount) {
+            return (int) getColumnLong(writerIndex, COLUMN_OFFSET_TYPE);
+        }
+        return -1;
+    }
+
+    public double getMaxDouble(int writerIndex) {
+        return Double.longBitsToDouble(getColumnLong(writerIndex, COLUMN_OFFSET_MAX));
+    }
+
+    public long getMaxLong(int writerIndex) {
+        return getColumnLong(writerIndex, COLUMN_OFFSET_MAX);
+    }
+
+    public double getMinDouble(int writerIndex) {
+        return Double.longBitsToDouble(getColumnLong(writerIndex, COLUMN_OFFSET_MIN));
+    }
+
+    public long getMinLong(int writerIndex) {
+        return getColumnLong(writerIndex, COLUMN_OFFSET_MIN);
+    }
+
+    public long getNullCount(int writerIndex) {
+        return getColumnLong(writerIndex, COLUMN_OFFSET_NULL_COUNT);
+    }
+
+    public long getRowCount() {
+        return Unsafe.getUnsafe().getLong(address + HEADER_OFFSET_ROW_COUNT);
+    }
+
+    /**
+     * Reads statistics file of the partition.
+     *
+     * @param ff            files facade
+     * @param path          path to the statistics file
+     * @param rowCount      current row count of the partition
+     * @param columnVersion current column version of the partition
+     * @return false when the file does not exist, or it is out of date
+     */
+    public boolean of(FilesFacade ff, LPSZ path, long rowCount, long columnVersion) {
+        columnCount = 0;
+        final long fd = ff.openRO(path);
+        if (fd < 0) {
+            return false;
+        }
+        try {
+            // file can be longer than its content, append memory truncates to page size
+            final long size = ff.length(fd);
+            if (size < HEADER_SIZE) {
+                return false;
+            }
+            ensureCapacity(HEADER_SIZE);
+            if (ff.read(fd, address, HEADER_SIZE, 0) != HEADER_SIZE
+                    || Unsafe.getUnsafe().getLong(address + HEADER_OFFSET_ROW_COUNT) != rowCount
+                    || Unsafe.getUnsafe().getLong(address + HEADER_OFFSET_COLUMN_VERSION) != columnVersion) {
+                return false;
+            }
+            final long count = Unsafe.getUnsafe().getLong(address + HEADER_OFFSET_COLUMN_COUNT);
+            final long columnsSize = count * COLUMN_SIZE;
+            if (count < 0 || HEADER_SIZE + columnsSize > size) {
+                return false;
+            }
+            ensureCapacity(HEADER_SIZE + columnsSize);
+            if (ff.read(fd, address + HEADER_SIZE, columnsSize, HEADER_SIZE) != columnsSize) {
+                return false;
+            }
+            columnCount = (int) count;
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private void ensureCapacity(long size) {
+        if (size > capacity) {
+            address = Unsafe.realloc(address, capacity, size, MemoryTag.NATIVE_DEFAULT);
+            capacity = size;
+        }
+    }
+
+    private long getColumnLong(int writerIndex, int offset) {
+        assert writerIndex < columnCount;
+        return Unsafe.getUnsafe().getLong(address + HEADER_SIZE + (long) writerIndex * COLUMN_SIZE + offset);
+    }
+}
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Range conditions on numeric columns, that are implied by the filter of a table scan. Data frame
+ * cursors consult {@link PartitionStats} of a partition before they open it, the partition is
+ * skipped when values of one of the columns are outside the condition range. Rows that
+ * could match the filter are never skipped: null values are treated as the lowest value
+ * of integer columns and equality of floating point values allows for the same error
+ * as the "=" function.
+ * <p>
+ * Bounds are constants or bind variables, their values are taken when the cursor is opened.
+ * A bound that evaluates to null disables the condition.
+ */
+public class PartitionStatsFilter implements QuietClosable {
+    private static final double DOUBLE_EPSILON = 0.0000000001;
+    private static final int FLAG_LO_INCLUSIVE = 1;
+    private static final int FLAG_HI_INCLUSIVE = 2;
+    private static final int FLAG_DOUBLE = 4;
+    private static final int FLAG_EQUALS = 8;
+    private static final int FLAG_ANY_ORDER = 16;
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final IntList flags = new IntList();
+    private final ObjList<Function> loFunctions = new ObjList<>();
+    private final ObjList<Function> hiFunctions = new ObjList<>();
+    // bound values for the current cursor, long values or double bits, depending on the condition
+    private final LongList bounds = new LongList();
+    private final IntList enabled = new IntList();
+    private final StringSink description = new StringSink();
+    private final PartitionStats stats = new PartitionStats();
+
+    /**
+     * Checks that values of the column can be compared to the bound the same way the filter does.
+     *
+     * @param columnType type of the column
+     * @param boundType  type of the constant or bind variable
+     * @return true when the condition can be used for partition skipping
+     */
+    public static boolean isSupported(int columnType, int boundType) {
+        if (!PartitionStats.isSupported(columnType)) {
+            return false;
+        }
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.DATE:
+                return ColumnType.tagOf(boundType) == ColumnType.DATE;
+            case ColumnType.TIMESTAMP:
+                return isInteger(boundType) || ColumnType.tagOf(boundType) == ColumnType.TIMESTAMP || ColumnType.tagOf(boundType) == ColumnType.DATE;
+            default:
+                return isInteger(boundType) || isFloatingPoint(boundType);
+        }
+    }
+
+    /**
+     * Adds condition on column values.
+     *
+     * @param columnIndex  reader index of the column
+     * @param columnType   type of the column
+     * @param lo           lower bound, null when unbounded
+     * @param loInclusive  true when the lower bound is inclusive
+     * @param hi           upper bound, null when unbounded, can be the same function as the lower bound
+     * @param hiInclusive  true when the upper bound is inclusive
+     * @param expression   text of the condition, for query plans
+     */
+    public void add(int columnIndex, int columnType, Function lo, boolean loInclusive, Function hi, boolean hiInclusive, Sinkable expression) {
+        assert lo != null || hi != null;
+        int flag = 0;
+        if (loInclusive || lo == null) {
+            flag |= FLAG_LO_INCLUSIVE;
+        }
+        if (hiInclusive || hi == null) {
+            flag |= FLAG_HI_INCLUSIVE;
+        }
+        if (lo == hi) {
+            flag |= FLAG_EQUALS;
+        }
+        if (isFloatingPoint(columnType) || (lo != null && isFloatingPoint(lo.getType())) || (hi != null && isFloatingPoint(hi.getType()))) {
+            flag |= FLAG_DOUBLE;
+        }
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        flags.add(flag);
+        loFunctions.add(lo);
+        hiFunctions.add(hi);
+        bounds.add(0, 0);
+        enabled.add(0);
+        if (description.length() > 0) {
+            description.put(" and ");
+        }
+        description.put(expression);
+    }
+
+    /**
+     * Adds inclusive range condition, bounds of which can come in any order, as in "between".
+     *
+     * @param columnIndex reader index of the column
+     * @param columnType  type of the column
+     * @param lo          one of the bounds
+     * @param hi          the other bound
+     * @param expression  text of the condition, for query plans
+     */
+    public void addBetween(int columnIndex, int columnType, Function lo, Function hi, Sinkable expression) {
+        add(columnIndex, columnType, lo, true, hi, true, expression);
+        final int last = flags.size() - 1;
+        flags.setQuick(last, flags.getQuick(last) | FLAG_ANY_ORDER);
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = loFunctions.size(); i < n; i++) {
+            final Function lo = loFunctions.getQuick(i);
+            final Function hi = hiFunctions.getQuick(i);
+            Misc.free(lo);
+            if (hi != lo) {
+                Misc.free(hi);
+            }
+        }
+        loFunctions.clear();
+        hiFunctions.clear();
+        Misc.free(stats);
+    }
+
+    public CharSequence getDescription() {
+        return description;
+    }
+
+    /**
+     * Evaluates bounds of the conditions, must be called before the cursor is opened.
+     *
+     * @param executionContext execution context, provides values of bind variables
+     * @throws SqlException when bind variable cannot be evaluated
+     */
+    public void init(SqlExecutionContext executionContext) throws SqlException {
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final Function lo = loFunctions.getQuick(i);
+            final Function hi = hiFunctions.getQuick(i);
+            final int columnType = columnTypes.getQuick(i);
+            final boolean isDouble = (flags.getQuick(i) & FLAG_DOUBLE) != 0;
+            boolean on = true;
+            if (lo != null) {
+                lo.init(null, executionContext);
+                on = setBound(i * 2, lo, columnType, isDouble, Long.MIN_VALUE, Double.NEGATIVE_INFINITY);
+            } else {
+                setUnbounded(i * 2, isDouble, Long.MIN_VALUE, Double.NEGATIVE_INFINITY);
+            }
+            if (hi != null) {
+                if (hi != lo) {
+                    hi.init(null, executionContext);
+                }
+                on &= setBound(i * 2 + 1, hi, columnType, isDouble, Long.MAX_VALUE, Double.POSITIVE_INFINITY);
+            } else {
+                setUnbounded(i * 2 + 1, isDouble, Long.MAX_VALUE, Double.POSITIVE_INFINITY);
+            }
+            if (on && (flags.getQuick(i) & FLAG_ANY_ORDER) != 0) {
+                swapBoundsIfReversed(i, isDouble);
+            }
+            enabled.setQuick(i, on ? 1 : 0);
+        }
+    }
+
+    /**
+     * Checks statistics of the partition against the conditions.
+     *
+     * @param reader         table reader
+     * @param partitionIndex index of the partition
+     * @return true when no row of the partition can match the filter
+     */
+    public boolean canSkip(TableReader reader, int partitionIndex) {
+        if (!reader.readPartitionStats(partitionIndex, stats)) {
+            return false;
+        }
+        final RecordMetadata metadata = reader.getMetadata();
+        final long rowCount = stats.getRowCount();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (enabled.getQuick(i) == 0) {
+                continue;
+            }
+            final int writerIndex = metadata.getWriterIndex(columnIndexes.getQuick(i));
+            final int columnType = columnTypes.getQuick(i);
+            if (stats.getColumnType(writerIndex) != columnType) {
+                // column has been re-added, or there are no statistics for it
+                continue;
+            }
+            final long nullCount = stats.getNullCount(writerIndex);
+            if (isFloatingPoint(columnType)) {
+                // NaN does not match any range
+                if (nullCount == rowCount || !intersects(i, stats.getMinDouble(writerIndex), stats.getMaxDouble(writerIndex))) {
+                    return true;
+                }
+                continue;
+            }
+
+            long min = stats.getMinLong(writerIndex);
+            long max = stats.getMaxLong(writerIndex);
+            if (nullCount > 0) {
+                if (loFunctions.getQuick(i) != null) {
+                    // null is the smallest value of the type, it is below any non-null lower bound
+                    if (nullCount == rowCount) {
+                        return true;
+                    }
+                } else {
+                    // some comparisons treat null as the smallest value rather than not matching it, be conservative
+                    final long nullValue = ColumnType.tagOf(columnType) == ColumnType.INT ? Numbers.INT_NaN : Numbers.LONG_NaN;
+                    min = nullValue;
+                    if (nullCount == rowCount) {
+                        max = nullValue;
+                    }
+                }
+            }
+            if ((flags.getQuick(i) & FLAG_DOUBLE) != 0 ? !intersects(i, (double) min, (double) max) : !intersects(i, min, max)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return columnIndexes.size() == 0;
+    }
+
+    private static boolean isFloatingPoint(int type) {
+        final short tag = ColumnType.tagOf(type);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    private static boolean isInteger(int type) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean intersects(int condition, long min, long max) {
+        final int flag = flags.getQuick(condition);
+        final long lo = bounds.getQuick(condition * 2);
+        final long hi = bounds.getQuick(condition * 2 + 1);
+        return ((flag & FLAG_LO_INCLUSIVE) != 0 ? max >= lo : max > lo)
+                && ((flag & FLAG_HI_INCLUSIVE) != 0 ? min <= hi : min < hi);
+    }
+
+    private boolean intersects(int condition, double min, double max) {
+        final int flag = flags.getQuick(condition);
+        double lo = Double.longBitsToDouble(bounds.getQuick(condition * 2));
+        double hi = Double.longBitsToDouble(bounds.getQuick(condition * 2 + 1));
+        if ((flag & FLAG_EQUALS) != 0) {
+            lo -= DOUBLE_EPSILON;
+            hi += DOUBLE_EPSILON;
+        }
+        return ((flag & FLAG_LO_INCLUSIVE) != 0 ? max >= lo : max > lo)
+                && ((flag & FLAG_HI_INCLUSIVE) != 0 ? min <= hi : min < hi);
+    }
+
+    private boolean setBound(int index, Function function, int columnType, boolean isDouble, long unboundedLong, double unboundedDouble) {
+        if (isDouble) {
+            final double value = function.getDouble(null);
+            if (Double.isNaN(value)) {
+                setUnbounded(index, true, unboundedLong, unboundedDouble);
+                return false;
+            }
+            bounds.setQuick(index, Double.doubleToRawLongBits(value));
+            return true;
+        }
+
+        final long value;
+        switch (ColumnType.tagOf(function.getType())) {
+            case ColumnType.TIMESTAMP:
+                value = function.getTimestamp(null);
+                break;
+            case ColumnType.DATE:
+                value = ColumnType.tagOf(columnType) == ColumnType.TIMESTAMP ? function.getTimestamp(null) : function.getDate(null);
+                break;
+            default:
+                value = function.getLong(null);
+                break;
+        }
+        if (value == Numbers.LONG_NaN) {
+            setUnbounded(index, false, unboundedLong, unboundedDouble);
+            return false;
+        }
+        bounds.setQuick(index, value);
+        return true;
+    }
+
+    private void setUnbounded(int index, boolean isDouble, long unboundedLong, double unboundedDouble) {
+        bounds.setQuick(index, isDouble ? Double.doubleToRawLongBits(unboundedDouble) : unboundedLong);
+    }
+
+    private void swapBoundsIfReversed(int condition, boolean isDouble) {
+        final long lo = bounds.getQuick(condition * 2);
+        final long hi = bounds.getQuick(condition * 2 + 1);
+        if (isDouble ? Double.longBitsToDouble(lo) > Double.longBitsToDouble(hi) : lo > hi) {
+            bounds.setQuick(condition * 2, hi);
+            bounds.setQuick(condition * 2 + 1, lo);
+        }
+    }
+}
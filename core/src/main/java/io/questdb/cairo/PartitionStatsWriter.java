@@ -0,0 +1,308 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Writes {@link PartitionStats} of sealed partitions. Column values are scanned once the partition
+ * is sealed, compressed column files are decoded to a temporary buffer. The file is written
+ * under a temporary name and renamed, so that readers never see partially written statistics.
+ */
+public class PartitionStatsWriter implements QuietClosable {
+    private static final Log LOG = LogFactory.getLog(PartitionStatsWriter.class);
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final TableWriter tableWriter;
+    private final Path path;
+    private final Path other;
+    private final int rootLen;
+    private final ColumnCodec codec = new ColumnCodec();
+    private final MemoryMA mem = Vm.getMAInstance();
+    private final PartitionStats stats = new PartitionStats();
+    private long nullCount;
+    private long min;
+    private long max;
+
+    public PartitionStatsWriter(CairoConfiguration configuration, TableWriter tableWriter, Path path, Path other, int rootLen) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.tableWriter = tableWriter;
+        this.path = path;
+        this.other = other;
+        this.rootLen = rootLen;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(mem);
+        Misc.free(stats);
+    }
+
+    /**
+     * Writes statistics of the partition unless the partition already has them and has not changed since.
+     * Failure to write statistics is logged, it is not a reason to fail the commit.
+     *
+     * @param partitionIndex index of the sealed partition
+     */
+    public void write(int partitionIndex) {
+        final long partitionTimestamp = tableWriter.getPartitionTimestamp(partitionIndex);
+        final long partitionNameTxn = tableWriter.getPartitionNameTxn(partitionIndex);
+        final long partitionSize = tableWriter.getPartitionSize(partitionIndex);
+        final long columnVersion = tableWriter.getPartitionColumnVersion(partitionIndex);
+        try {
+            setPathOnPartition(partitionTimestamp, partitionNameTxn);
+            final int plen = path.length();
+            if (stats.of(ff, path.concat(TableUtils.PARTITION_STATS_FILE_NAME).$(), partitionSize, columnVersion)) {
+                // partition has not changed since the statistics were written
+                return;
+            }
+
+            final TableWriterMetadata metadata = tableWriter.getMetadata();
+            final int columnCount = metadata.getColumnCount();
+            other.concat(TableUtils.PARTITION_STATS_FILE_NAME).put(TEMP_FILE_SUFFIX).$();
+            try {
+                mem.of(ff, other, configuration.getMiscAppendPageSize(), MemoryTag.MMAP_TABLE_WRITER, configuration.getWriterFileOpenOpts());
+                try {
+                    mem.putLong(partitionSize);
+                    mem.putLong(columnVersion);
+                    mem.putLong(columnCount);
+                    for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                        final int columnType = metadata.getColumnType(columnIndex);
+                        if (columnType > 0 && PartitionStats.isSupported(columnType)
+                                && scanColumn(metadata.getColumnName(columnIndex), columnIndex, columnType, partitionTimestamp, partitionSize, plen)) {
+                            mem.putLong(columnType);
+                            mem.putLong(nullCount);
+                            mem.putLong(min);
+                            mem.putLong(max);
+                        } else {
+                            mem.putLong(-1);
+                            mem.putLong(0);
+                            mem.putLong(0);
+                            mem.putLong(0);
+                        }
+                    }
+                    final int commitMode = configuration.getCommitMode();
+                    if (commitMode != CommitMode.NOSYNC) {
+                        mem.sync(commitMode == CommitMode.ASYNC);
+                    }
+                } finally {
+                    mem.close(true);
+                }
+                TableUtils.renameOrFail(ff, other, path.trimTo(plen).concat(TableUtils.PARTITION_STATS_FILE_NAME).$());
+            } catch (CairoException e) {
+                LOG.error().$("could not write partition stats [table=").$(tableWriter.getTableName())
+                        .$(", partition=").$ts(partitionTimestamp)
+                        .$(", errno=").$(e.getErrno())
+                        .$(", error=").$(e.getFlyweightMessage())
+                        .I$();
+                ff.remove(other);
+                return;
+            }
+            LOG.info().$("partition stats [table=").$(tableWriter.getTableName())
+                    .$(", partition=").$ts(partitionTimestamp)
+                    .$(", rows=").$(partitionSize)
+                    .I$();
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
+    private void scan(int columnType, long address, long count) {
+        long nulls = 0;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE: {
+                long lo = Long.MAX_VALUE;
+                long hi = Long.MIN_VALUE;
+                for (long p = address, lim = address + count; p < lim; p++) {
+                    final long v = Unsafe.getUnsafe().getByte(p);
+                    lo = Math.min(lo, v);
+                    hi = Math.max(hi, v);
+                }
+                min = lo;
+                max = hi;
+                break;
+            }
+            case ColumnType.SHORT: {
+                long lo = Long.MAX_VALUE;
+                long hi = Long.MIN_VALUE;
+                for (long p = address, lim = address + count * Short.BYTES; p < lim; p += Short.BYTES) {
+                    final long v = Unsafe.getUnsafe().getShort(p);
+                    lo = Math.min(lo, v);
+                    hi = Math.max(hi, v);
+                }
+                min = lo;
+                max = hi;
+                break;
+            }
+            case ColumnType.INT: {
+                long lo = Long.MAX_VALUE;
+                long hi = Long.MIN_VALUE;
+                for (long p = address, lim = address + count * Integer.BYTES; p < lim; p += Integer.BYTES) {
+                    final int v = Unsafe.getUnsafe().getInt(p);
+                    if (v == Numbers.INT_NaN) {
+                        nulls++;
+                    } else {
+                        lo = Math.min(lo, v);
+                        hi = Math.max(hi, v);
+                    }
+                }
+                min = lo;
+                max = hi;
+                break;
+            }
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE: {
+                final boolean isFloat = ColumnType.tagOf(columnType) == ColumnType.FLOAT;
+                final long valueSize = isFloat ? Float.BYTES : Double.BYTES;
+                double lo = Double.POSITIVE_INFINITY;
+                double hi = Double.NEGATIVE_INFINITY;
+                for (long p = address, lim = address + count * valueSize; p < lim; p += valueSize) {
+                    final double v = isFloat ? Unsafe.getUnsafe().getFloat(p) : Unsafe.getUnsafe().getDouble(p);
+                    if (v != v) {
+                        nulls++;
+                    } else {
+                        lo = Math.min(lo, v);
+                        hi = Math.max(hi, v);
+                    }
+                }
+                min = Double.doubleToRawLongBits(lo);
+                max = Double.doubleToRawLongBits(hi);
+                break;
+            }
+            default: {
+                long lo = Long.MAX_VALUE;
+                long hi = Long.MIN_VALUE;
+                for (long p = address, lim = address + count * Long.BYTES; p < lim; p += Long.BYTES) {
+                    final long v = Unsafe.getUnsafe().getLong(p);
+                    if (v == Numbers.LONG_NaN) {
+                        nulls++;
+                    } else {
+                        lo = Math.min(lo, v);
+                        hi = Math.max(hi, v);
+                    }
+                }
+                min = lo;
+                max = hi;
+                break;
+            }
+        }
+        nullCount += nulls;
+    }
+
+    private boolean scanColumn(
+            CharSequence columnName,
+            int columnIndex,
+            int columnType,
+            long partitionTimestamp,
+            long partitionSize,
+            int plen
+    ) {
+        long columnTop = tableWriter.getColumnTop(partitionTimestamp, columnIndex, -1L);
+        if (columnTop < 0 || columnTop > partitionSize) {
+            // column does not exist in this partition, all values are null
+            columnTop = partitionSize;
+        }
+        final long valueCount = partitionSize - columnTop;
+        final long rawSize = valueCount << ColumnType.pow2SizeOf(columnType);
+        final long columnNameTxn = tableWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
+        nullCount = 0;
+        if (valueCount > 0) {
+            if (ff.exists(TableUtils.zFile(path.trimTo(plen), columnName, columnNameTxn))) {
+                final long fd = TableUtils.openRO(ff, path, LOG);
+                long srcAddr = 0;
+                long srcSize = 0;
+                long dstAddr = 0;
+                try {
+                    srcSize = ff.length(fd);
+                    srcAddr = TableUtils.mapRO(ff, fd, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+                    dstAddr = Unsafe.malloc(rawSize, MemoryTag.NATIVE_DEFAULT);
+                    codec.decode(srcAddr, srcSize, dstAddr, rawSize);
+                    scan(columnType, dstAddr, valueCount);
+                } finally {
+                    if (dstAddr != 0) {
+                        Unsafe.free(dstAddr, rawSize, MemoryTag.NATIVE_DEFAULT);
+                    }
+                    if (srcAddr != 0) {
+                        ff.munmap(srcAddr, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+                    }
+                    ff.close(fd);
+                }
+            } else {
+                final long fd = TableUtils.openRO(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), LOG);
+                long addr = 0;
+                try {
+                    addr = TableUtils.mapRO(ff, fd, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+                    scan(columnType, addr, valueCount);
+                } finally {
+                    if (addr != 0) {
+                        ff.munmap(addr, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+                    }
+                    ff.close(fd);
+                }
+            }
+        } else {
+            min = 0;
+            max = 0;
+        }
+
+        if (columnTop > 0) {
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                    // byte and short do not have null, rows above column top read as 0
+                    min = valueCount > 0 ? Math.min(min, 0) : 0;
+                    max = valueCount > 0 ? Math.max(max, 0) : 0;
+                    break;
+                default:
+                    nullCount += columnTop;
+                    break;
+            }
+        }
+
+        if (nullCount == partitionSize) {
+            min = 0;
+            max = 0;
+        }
+        return true;
+    }
+
+    private void setPathOnPartition(long partitionTimestamp, long partitionNameTxn) {
+        path.trimTo(rootLen);
+        TableUtils.setPathForPartition(path, tableWriter.getPartitionBy(), partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+        other.trimTo(rootLen);
+        TableUtils.setPathForPartition(other, tableWriter.getPartitionBy(), partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(other, partitionNameTxn);
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Periodically moves sealed partitions older than {@link CairoConfiguration#getColdPartitionAge()}
+ * to the cold storage volume. Tables which writer is busy are skipped and picked up on the next check.
+ */
+public class PartitionTieringJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionTieringJob.class);
+    private static final String LOCK_REASON = "partitionTiering";
+    private final CairoEngine engine;
+    private final MicrosecondClock clock;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final long checkInterval;
+    private final long coldPartitionAge;
+    private final StringSink nameSink = new StringSink();
+    private final ObjList<String> tableNames = new ObjList<>();
+    private Path path = new Path();
+    private long last = 0;
+
+    public PartitionTieringJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.clock = configuration.getMicrosecondClock();
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.checkInterval = configuration.getColdCheckInterval() * 1000;
+        this.coldPartitionAge = configuration.getColdPartitionAge();
+    }
+
+    @Override
+    public void close() {
+        path = Misc.free(path);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            return moveColdPartitions(t);
+        }
+        return false;
+    }
+
+    private void collectTableNames() {
+        tableNames.clear();
+        long findPtr = ff.findFirst(path.of(root).$());
+        if (findPtr > 0) {
+            try {
+                do {
+                    nameSink.clear();
+                    if (Files.isDir(ff.findName(findPtr), ff.findType(findPtr), nameSink)) {
+                        tableNames.add(nameSink.toString());
+                    }
+                } while (ff.findNext(findPtr) > 0);
+            } finally {
+                ff.findClose(findPtr);
+            }
+        }
+    }
+
+    private boolean moveColdPartitions(long now) {
+        collectTableNames();
+        boolean useful = false;
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            final String tableName = tableNames.getQuick(i);
+            if (engine.getStatus(AllowAllCairoSecurityContext.INSTANCE, path, tableName) != TableUtils.TABLE_EXISTS) {
+                continue;
+            }
+            useful |= moveColdPartitions(tableName, now);
+        }
+        return useful;
+    }
+
+    private boolean moveColdPartitions(String tableName, long now) {
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, LOCK_REASON);
+        } catch (EntryUnavailableException e) {
+            // table is busy, try again on the next check
+            return false;
+        } catch (CairoException e) {
+            LOG.error().$("could not open writer [table=").utf8(tableName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            return false;
+        }
+
+        boolean useful = false;
+        try {
+            final PartitionBy.PartitionCeilMethod ceilMethod = PartitionBy.getPartitionCeilMethod(writer.getPartitionBy());
+            if (ceilMethod == null) {
+                return false;
+            }
+            // the last partition is active and is never moved
+            for (int i = 0, n = writer.getPartitionCount() - 1; i < n; i++) {
+                if (writer.isPartitionCold(i)) {
+                    continue;
+                }
+                final long partitionTimestamp = writer.getPartitionTimestamp(i);
+                if (ceilMethod.ceil(partitionTimestamp) + coldPartitionAge > now) {
+                    // partitions are ordered, the rest are younger
+                    break;
+                }
+                try {
+                    useful |= writer.movePartition(partitionTimestamp, true);
+                } catch (CairoException e) {
+                    LOG.error().$("could not move partition to cold storage [table=").utf8(tableName)
+                            .$(", partition=").$ts(partitionTimestamp)
+                            .$(", errno=").$(e.getErrno())
+                            .$(", error=").$(e.getFlyweightMessage())
+                            .I$();
+                    break;
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        return useful;
+    }
+}
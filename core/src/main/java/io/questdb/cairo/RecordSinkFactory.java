@@ -215,11 +215,13 @@ public class RecordSinkFactory {
                     asm.invokeInterface(wPutRecord, 1);
                     break;
                 case -ColumnType.INT:
+                case -ColumnType.FLOAT:
                     asm.aload(2);
                     asm.iconst(Integer.BYTES);
                     asm.invokeInterface(wSkip, 1);
                     break;
                 case -ColumnType.LONG:
+                case -ColumnType.DOUBLE:
                     asm.aload(2);
                     asm.iconst(Long.BYTES);
                     asm.invokeInterface(wSkip, 1);
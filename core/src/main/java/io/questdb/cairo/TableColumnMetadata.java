@@ -37,6 +37,7 @@ public class TableColumnMetadata {
     private String name;
     private int indexValueBlockCapacity;
     private boolean indexed;
+    private boolean compressed;
 
     public TableColumnMetadata(String name, long hash, int type) {
         this(name, hash, type, null);
@@ -118,6 +119,14 @@ public class TableColumnMetadata {
         return type;
     }
 
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean value) {
+        compressed = value;
+    }
+
     public boolean isIndexed() {
         return indexed;
     }
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts commits to tables that have consumers polling them for new rows, e.g. live query
+ * subscriptions. Consumers compare the counter with the value seen at their last look at the
+ * table and reload their readers only when something has been committed since. Commits are
+ * passed on to the next listener.
+ */
+public class TableCommitTracker implements TableWriter.CommitListener {
+    private final ConcurrentHashMap<AtomicLong> commitCounts = new ConcurrentHashMap<>();
+    private final TableWriter.CommitListener next;
+
+    public TableCommitTracker(TableWriter.CommitListener next) {
+        this.next = next;
+    }
+
+    /**
+     * Returns counter of commits to the table, counting starts on the first call for the table.
+     * The counter is shared by all callers and must not be modified by them.
+     */
+    public AtomicLong getCommitCount(CharSequence tableName) {
+        AtomicLong count = commitCounts.get(tableName);
+        if (count == null) {
+            count = new AtomicLong();
+            final AtomicLong other = commitCounts.putIfAbsent(Chars.toString(tableName), count);
+            if (other != null) {
+                count = other;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void onCommit(CharSequence tableName, long minTimestamp, long maxTimestamp) {
+        final AtomicLong count = commitCounts.get(tableName);
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        next.onCommit(tableName, minTimestamp, maxTimestamp);
+    }
+}
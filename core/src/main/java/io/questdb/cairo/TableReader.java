@@ -26,9 +26,13 @@ package io.questdb.cairo;
 
 import io.questdb.MessageBus;
 import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.cairo.parquet.ParquetDecoder;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.MemoryCMRCodecImpl;
+import io.questdb.cairo.vm.MemoryCMRNativeImpl;
 import io.questdb.cairo.vm.NullMemoryMR;
 import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.log.Log;
@@ -66,6 +70,11 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final MemoryMR todoMem = Vm.getMRInstance();
     private final TxnScoreboard txnScoreboard;
     private final ColumnVersionReader columnVersionReader;
+    private ParquetDecoder parquetDecoder;
+    private MemoryCARW parquetDataMem;
+    private MemoryCARW parquetAuxMem;
+    private Path coldPath;
+    private int coldRootLen;
     private int partitionCount;
     private LongList columnTops;
     private ObjList<MemoryMR> columns;
@@ -154,7 +163,11 @@ public class TableReader implements Closeable, SymbolTableSource {
             freeTempMem();
             Misc.free(txnScoreboard);
             Misc.free(path);
+            coldPath = Misc.free(coldPath);
             Misc.free(columnVersionReader);
+            parquetDecoder = Misc.free(parquetDecoder);
+            parquetDataMem = Misc.free(parquetDataMem);
+            parquetAuxMem = Misc.free(parquetAuxMem);
             LOG.debug().$("closed '").utf8(tableName).$('\'').$();
         }
     }
@@ -336,6 +349,29 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Reads min/max statistics of column values of the partition. Statistics are kept for sealed
+     * partitions only, see {@link PartitionStats}. Partition does not have to be open.
+     *
+     * @param partitionIndex index of the partition
+     * @param stats          statistics to read into
+     * @return false when partition does not have statistics, or they are out of date
+     */
+    public boolean readPartitionStats(int partitionIndex, PartitionStats stats) {
+        try {
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return stats.of(
+                    ff,
+                    path.concat(TableUtils.PARTITION_STATS_FILE_NAME).$(),
+                    txFile.getPartitionSize(partitionIndex),
+                    txFile.getPartitionColumnVersion(partitionIndex)
+            );
+        } finally {
+            this.path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex, boolean forceTruncate) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -494,7 +530,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
     }
 
-    private long closeRewrittenPartitionFiles(int partitionIndex, int oldBase, Path path) {
+    private long closeRewrittenPartitionFiles(int partitionIndex, int oldBase) {
         final int offset = partitionIndex * PARTITIONS_SLOT_SIZE;
         long partitionTs = openPartitionInfo.getQuick(offset);
         long exisingPartitionNameTxn = openPartitionInfo.getQuick(offset + PARTITIONS_SLOT_OFFSET_NAME_TXN);
@@ -509,8 +545,6 @@ public class TableReader implements Closeable, SymbolTableSource {
             openPartitionInfo.setQuick(offset + PARTITIONS_SLOT_OFFSET_SIZE, -1);
             return -1;
         }
-        pathGenPartitioned(partitionIndex);
-        TableUtils.txnPartitionConditionally(path, exisingPartitionNameTxn);
         return newSize;
     }
 
@@ -558,7 +592,10 @@ public class TableReader implements Closeable, SymbolTableSource {
         } else {
             Path path = pathGenPartitioned(getPartitionIndex(columnBase));
             try {
-                if (direction == BitmapIndexReader.DIR_BACKWARD) {
+                reader = createCompressedBitmapIndexReader(path, columnBase, columnIndex, columnNameTxn, direction, txn);
+                if (reader != null) {
+                    bitmapIndexes.setQuick(direction == BitmapIndexReader.DIR_BACKWARD ? globalIndex : globalIndex + 1, reader);
+                } else if (direction == BitmapIndexReader.DIR_BACKWARD) {
                     reader = new BitmapIndexBwdReader(
                             configuration,
                             path,
@@ -580,12 +617,37 @@ public class TableReader implements Closeable, SymbolTableSource {
                     bitmapIndexes.setQuick(globalIndex + 1, reader);
                 }
             } finally {
-                path.trimTo(rootLen);
+                this.path.trimTo(rootLen);
             }
         }
         return reader;
     }
 
+    private CompressedBitmapIndexReader createCompressedBitmapIndexReader(Path path, int columnBase, int columnIndex, long columnNameTxn, int direction, long txn) {
+        if (!metadata.isColumnCompressed(columnIndex)) {
+            return null;
+        }
+        final CharSequence name = metadata.getColumnName(columnIndex);
+        final int plen = path.length();
+        TableUtils.txnPartitionConditionally(path, txn);
+        // index of sealed partition is compressed together with the column
+        final boolean exists = ff.exists(CompressedBitmapIndexUtils.compressedFileName(path, name, columnNameTxn));
+        path.trimTo(plen);
+        if (exists) {
+            try {
+                return new CompressedBitmapIndexReader(configuration, path, name, columnNameTxn, getColumnTop(columnBase, columnIndex), txn, direction);
+            } catch (CairoException e) {
+                // writer decompresses index in place, .k and .v files are complete by the time .ci file is removed
+                TableUtils.txnPartitionConditionally(path.trimTo(plen), txn);
+                if (ff.exists(CompressedBitmapIndexUtils.compressedFileName(path, name, columnNameTxn))) {
+                    throw e;
+                }
+                path.trimTo(plen);
+            }
+        }
+        return null;
+    }
+
     private void createNewColumnList(int columnCount, long pTransitionIndex, int columnCountShl) {
         LOG.debug().$("resizing columns file list [table=").$(tableName).I$();
         int capacity = partitionCount << columnCountShl;
@@ -606,7 +668,9 @@ public class TableReader implements Closeable, SymbolTableSource {
 
             try {
                 long partitionRowCount = openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_SIZE);
-                if (partitionRowCount > -1L && (partitionRowCount = closeRewrittenPartitionFiles(partitionIndex, oldBase, path)) > -1L) {
+                if (partitionRowCount > -1L && (partitionRowCount = closeRewrittenPartitionFiles(partitionIndex, oldBase)) > -1L) {
+                    final Path path = pathGenPartitioned(partitionIndex);
+                    TableUtils.txnPartitionConditionally(path, openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_NAME_TXN));
                     for (int i = 0; i < iterateCount; i++) {
                         final int action = Unsafe.getUnsafe().getInt(pIndexBase + i * 8L);
                         final int copyFrom = Unsafe.getUnsafe().getInt(pIndexBase + i * 8L + 4);
@@ -695,7 +759,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_SIZE);
     }
 
-    long getTxn() {
+    public long getTxn() {
         return txn;
     }
 
@@ -794,6 +858,50 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     @NotNull
+    private void openCompressedOrCreateMemory(
+            Path path,
+            int plen,
+            CharSequence name,
+            long columnTxn,
+            ObjList<MemoryMR> columns,
+            int primaryIndex,
+            MemoryMR mem,
+            long columnSize
+    ) {
+        // partition column file is compressed only when the partition is sealed,
+        // otherwise the column is stored as a plain .d file
+        if (ff.exists(TableUtils.zFile(path.trimTo(plen), name, columnTxn))) {
+            try {
+                if (mem instanceof MemoryCMRCodecImpl) {
+                    mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+                } else {
+                    Misc.free(mem);
+                    columns.setQuick(primaryIndex, Vm.getMRCodecInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER));
+                }
+                return;
+            } catch (CairoException e) {
+                // writer decompresses files in place, .d file is complete by the time .z file is removed
+                if (ff.exists(TableUtils.zFile(path.trimTo(plen), name, columnTxn))) {
+                    throw e;
+                }
+                mem = columns.getQuick(primaryIndex);
+            }
+        }
+        TableUtils.dFile(path.trimTo(plen), name, columnTxn);
+        openOrCreateMemory(path, columns, primaryIndex, mem, columnSize);
+    }
+
+    private MemoryCMRNativeImpl openNativeMemory(ObjList<MemoryMR> columns, int index) {
+        final MemoryMR mem = columns.getQuick(index);
+        if (mem instanceof MemoryCMRNativeImpl) {
+            return (MemoryCMRNativeImpl) mem;
+        }
+        Misc.free(mem);
+        final MemoryCMRNativeImpl nativeMem = new MemoryCMRNativeImpl();
+        columns.setQuick(index, nativeMem);
+        return nativeMem;
+    }
+
     private MemoryMR openOrCreateMemory(
             Path path,
             ObjList<MemoryMR> columns,
@@ -801,15 +909,70 @@ public class TableReader implements Closeable, SymbolTableSource {
             MemoryMR mem,
             long columnSize
     ) {
-        if (mem != null && mem != NullMemoryMR.INSTANCE) {
+        if (mem != null && mem != NullMemoryMR.INSTANCE && !(mem instanceof MemoryCMRCodecImpl) && !(mem instanceof MemoryCMRNativeImpl)) {
             mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
         } else {
+            Misc.free(mem);
             mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
             columns.setQuick(primaryIndex, mem);
         }
         return mem;
     }
 
+    private void openParquetColumn(
+            Path path,
+            int plen,
+            ObjList<MemoryMR> columns,
+            int primaryIndex,
+            int columnType,
+            int writerIndex,
+            long columnTop,
+            long columnRowCount
+    ) {
+        // parquet partition is immutable, columns are decoded into native memory once per partition open
+        if (parquetDecoder == null) {
+            parquetDecoder = new ParquetDecoder();
+        }
+        try {
+            parquetDecoder.of(ff, TableUtils.parquetFile(path.trimTo(plen)));
+            final int fileColumnIndex = parquetDecoder.getColumnIndex(writerIndex);
+            if (fileColumnIndex < 0) {
+                // column was not written to the file, it is null for the whole partition
+                Misc.free(columns.getAndSetQuick(primaryIndex, NullMemoryMR.INSTANCE));
+                Misc.free(columns.getAndSetQuick(primaryIndex + 1, NullMemoryMR.INSTANCE));
+                return;
+            }
+
+            if (ColumnType.isVariableLength(columnType)) {
+                if (parquetDataMem == null) {
+                    parquetDataMem = Vm.getCARWInstance(configuration.getDataAppendPageSize(), Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_READER);
+                    parquetAuxMem = Vm.getCARWInstance(configuration.getDataAppendPageSize(), Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_READER);
+                }
+                parquetDataMem.jumpTo(0);
+                parquetAuxMem.jumpTo(0);
+                parquetDecoder.decodeVarColumn(fileColumnIndex, columnType, columnTop, parquetDataMem, parquetAuxMem);
+
+                final long dataSize = parquetDataMem.getAppendOffset();
+                final long dataAddress = openNativeMemory(columns, primaryIndex).allocate0(dataSize);
+                Vect.memcpy(dataAddress, parquetDataMem.getAddress(), dataSize);
+
+                final long auxSize = (columnRowCount + 1) * Long.BYTES;
+                final long auxAddress = openNativeMemory(columns, primaryIndex + 1).allocate0(auxSize);
+                Vect.memcpy(auxAddress, parquetAuxMem.getAddress(), auxSize);
+            } else {
+                final long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
+                final long address = openNativeMemory(columns, primaryIndex).allocate0(columnSize);
+                if (columnSize > 0) {
+                    parquetDecoder.decodeFixedColumn(fileColumnIndex, columnType, columnTop, address);
+                }
+                Misc.free(columns.getAndSetQuick(primaryIndex + 1, null));
+            }
+        } finally {
+            parquetDecoder.clear();
+            path.trimTo(plen);
+        }
+    }
+
     private long openPartition0(int partitionIndex) {
         if (txFile.getPartitionCount() < 2 && txFile.getTransientRowCount() == 0) {
             // Empty single partition. Don't check that directory exists on the disk
@@ -898,10 +1061,38 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     private Path pathGenPartitioned(int partitionIndex) {
+        if (isPartitionCold(partitionIndex)) {
+            final Path coldPath = coldTablePath();
+            formatPartitionDirName(partitionIndex, coldPath.slash());
+            return coldPath;
+        }
         formatPartitionDirName(partitionIndex, path.slash());
         return path;
     }
 
+    private boolean isPartitionCold(int partitionIndex) {
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            return false;
+        }
+        final int txPartitionIndex = txFile.getPartitionIndex(openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE));
+        return txPartitionIndex > -1 && txFile.isPartitionCold(txPartitionIndex);
+    }
+
+    // unlike the table path, cold path is trimmed before use rather than after
+    private Path coldTablePath() {
+        if (coldPath == null) {
+            final CharSequence coldRoot = configuration.getColdRoot();
+            if (coldRoot == null) {
+                throw CairoException.instance(0).put("table has cold partitions, cold storage root is not configured [table=")
+                        .put(tableName)
+                        .put(']');
+            }
+            coldPath = new Path().of(coldRoot).concat(tableName);
+            coldRootLen = coldPath.length();
+        }
+        return coldPath.trimTo(coldRootLen);
+    }
+
     private void reOpenPartition(int offset, int partitionIndex, long txPartitionNameTxn) {
         this.openPartitionInfo.setQuick(offset + PARTITIONS_SLOT_OFFSET_SIZE, -1L);
         openPartition0(partitionIndex);
@@ -1044,7 +1235,9 @@ public class TableReader implements Closeable, SymbolTableSource {
             if (partitionRowCount > 0 && (versionRecordIndex > -1L || columnVersionReader.getColumnTopPartitionTimestamp(writerIndex) <= partitionTimestamp)) {
                 final int columnType = metadata.getColumnType(columnIndex);
 
-                if (ColumnType.isVariableLength(columnType)) {
+                if (txFile.isPartitionParquet(partitionIndex)) {
+                    openParquetColumn(path, plen, columns, primaryIndex, columnType, writerIndex, columnTop, columnRowCount);
+                } else if (ColumnType.isVariableLength(columnType)) {
                     long columnSize = columnRowCount * 8L + 8L;
                     TableUtils.iFile(path.trimTo(plen), name, columnTxn);
                     mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize);
@@ -1053,25 +1246,38 @@ public class TableReader implements Closeable, SymbolTableSource {
                     openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
                 } else {
                     long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
-                    TableUtils.dFile(path.trimTo(plen), name, columnTxn);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    if (metadata.isColumnCompressed(columnIndex)) {
+                        openCompressedOrCreateMemory(path, plen, name, columnTxn, columns, primaryIndex, mem1, columnSize);
+                    } else {
+                        TableUtils.dFile(path.trimTo(plen), name, columnTxn);
+                        openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    }
                     Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 }
 
                 columnTops.setQuick(columnBase / 2 + columnIndex, columnTop);
 
                 if (metadata.isColumnIndexed(columnIndex)) {
-                    BitmapIndexReader indexReader = indexReaders.getQuick(primaryIndex);
-                    if (indexReader instanceof BitmapIndexBwdReader) {
-                        // name txn is -1 because the parent call sets up partition name for us
-                        ((BitmapIndexBwdReader) indexReader).of(configuration, path.trimTo(plen), name, columnTxn, columnTop, -1);
-                    }
+                    if (metadata.isColumnCompressed(columnIndex) && ff.exists(CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), name, columnTxn))) {
+                        reloadCompressedIndexReaderAt(indexReaders, primaryIndex, path, plen, name, columnTxn, columnTop);
+                        reloadCompressedIndexReaderAt(indexReaders, secondaryIndex, path, plen, name, columnTxn, columnTop);
+                    } else {
+                        BitmapIndexReader indexReader = indexReaders.getQuick(primaryIndex);
+                        if (indexReader instanceof BitmapIndexBwdReader) {
+                            // name txn is -1 because the parent call sets up partition name for us
+                            ((BitmapIndexBwdReader) indexReader).of(configuration, path.trimTo(plen), name, columnTxn, columnTop, -1);
+                        } else if (indexReader instanceof CompressedBitmapIndexReader) {
+                            // index has been decompressed, regular reader is created lazily
+                            Misc.free(indexReaders.getAndSetQuick(primaryIndex, null));
+                        }
 
-                    indexReader = indexReaders.getQuick(secondaryIndex);
-                    if (indexReader instanceof BitmapIndexFwdReader) {
-                        ((BitmapIndexFwdReader) indexReader).of(configuration, path.trimTo(plen), name, columnTxn, columnTop, -1);
+                        indexReader = indexReaders.getQuick(secondaryIndex);
+                        if (indexReader instanceof BitmapIndexFwdReader) {
+                            ((BitmapIndexFwdReader) indexReader).of(configuration, path.trimTo(plen), name, columnTxn, columnTop, -1);
+                        } else if (indexReader instanceof CompressedBitmapIndexReader) {
+                            Misc.free(indexReaders.getAndSetQuick(secondaryIndex, null));
+                        }
                     }
-
                 } else {
                     Misc.free(indexReaders.getAndSetQuick(primaryIndex, null));
                     Misc.free(indexReaders.getAndSetQuick(secondaryIndex, null));
@@ -1089,6 +1295,34 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    private void reloadCompressedIndexReaderAt(
+            ObjList<BitmapIndexReader> indexReaders,
+            int index,
+            Path path,
+            int plen,
+            CharSequence name,
+            long columnTxn,
+            long columnTop
+    ) {
+        final BitmapIndexReader indexReader = indexReaders.getQuick(index);
+        if (indexReader instanceof CompressedBitmapIndexReader) {
+            try {
+                // name txn is -1 because the parent call sets up partition name for us
+                ((CompressedBitmapIndexReader) indexReader).of(configuration, path.trimTo(plen), name, columnTxn, columnTop, -1);
+                return;
+            } catch (CairoException e) {
+                // writer decompresses index in place, .k and .v files are complete by the time .ci file is removed
+                if (ff.exists(CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), name, columnTxn))) {
+                    throw e;
+                }
+            }
+        }
+        // reader of the right kind is created lazily
+        if (indexReader instanceof CompressedBitmapIndexReader || indexReader instanceof AbstractIndexReader) {
+            Misc.free(indexReaders.getAndSetQuick(index, null));
+        }
+    }
+
     private boolean reloadColumnVersion(long columnVersion, long deadline) {
         if (columnVersionReader.getVersion() != columnVersion) {
             columnVersionReader.readSafe(configuration.getMicrosecondClock(), deadline);
@@ -1189,7 +1423,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                 reader.updateSymbolCount(txFile.getSymbolValueCount(symbolMapIndex++));
             }
         } finally {
-            path.trimTo(rootLen);
+            this.path.trimTo(rootLen);
         }
     }
 
@@ -1240,7 +1474,9 @@ public class TableReader implements Closeable, SymbolTableSource {
             int base = getColumnBase(partitionIndex);
             try {
                 long partitionRowCount = openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_SIZE);
-                if (partitionRowCount > -1L && (partitionRowCount = closeRewrittenPartitionFiles(partitionIndex, base, path)) > -1L) {
+                if (partitionRowCount > -1L && (partitionRowCount = closeRewrittenPartitionFiles(partitionIndex, base)) > -1L) {
+                    final Path path = pathGenPartitioned(partitionIndex);
+                    TableUtils.txnPartitionConditionally(path, openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_NAME_TXN));
                     for (int i = 0; i < iterateCount; i++) {
                         final int action = Unsafe.getUnsafe().getInt(pIndexBase + i * 8L);
                         final int copyFrom = Unsafe.getUnsafe().getInt(pIndexBase + i * 8L + 4);
@@ -42,6 +42,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
     private int tableId;
     private int maxUncommittedRows;
     private long commitLag;
+    private long ttl;
     private long structureVersion;
     private MemoryMR transitionMeta;
 
@@ -75,6 +76,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         this.structureVersion = metaMem.getLong(TableUtils.META_OFFSET_STRUCTURE_VERSION);
         this.maxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
         this.commitLag = metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
+        this.ttl = metaMem.getLong(TableUtils.META_OFFSET_TTL);
         long offset = TableUtils.getColumnNameOffset(columnCount);
 
         int shiftLeft = 0, existingIndex = 0;
@@ -84,6 +86,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             assert name != null;
             int columnType = TableUtils.getColumnType(metaMem, metaIndex);
             boolean isIndexed = TableUtils.isColumnIndexed(metaMem, metaIndex);
+            boolean isCompressed = TableUtils.isColumnCompressed(metaMem, metaIndex);
             int indexBlockCapacity = TableUtils.getIndexBlockCapacity(metaMem, metaIndex);
             TableColumnMetadata existing = null;
             String newName;
@@ -109,19 +112,20 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
                         || existing == null
                         || existing.isIndexed() != isIndexed
                         || existing.getIndexValueBlockCapacity() != indexBlockCapacity
+                        || existing.isCompressed() != isCompressed
                 ) {
-                    columnMetadata.setQuick(existingIndex - shiftLeft,
-                            new TableColumnMetadata(
-                                    newName,
-                                    TableUtils.getColumnHash(metaMem, metaIndex),
-                                    columnType,
-                                    isIndexed,
-                                    indexBlockCapacity,
-                                    true,
-                                    null,
-                                    metaIndex
-                            )
+                    TableColumnMetadata columnMeta = new TableColumnMetadata(
+                            newName,
+                            TableUtils.getColumnHash(metaMem, metaIndex),
+                            columnType,
+                            isIndexed,
+                            indexBlockCapacity,
+                            true,
+                            null,
+                            metaIndex
                     );
+                    columnMeta.setCompressed(isCompressed);
+                    columnMetadata.setQuick(existingIndex - shiftLeft, columnMeta);
                 } else if (shiftLeft > 0) {
                     columnMetadata.setQuick(existingIndex - shiftLeft, existing);
                 }
@@ -204,6 +208,10 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return structureVersion;
     }
 
+    public long getTtl() {
+        return ttl;
+    }
+
     public int getVersion() {
         return version;
     }
@@ -221,6 +229,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             this.tableId = metaMem.getInt(TableUtils.META_OFFSET_TABLE_ID);
             this.maxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
             this.commitLag = metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
+            this.ttl = metaMem.getLong(TableUtils.META_OFFSET_TTL);
             this.structureVersion = metaMem.getLong(TableUtils.META_OFFSET_STRUCTURE_VERSION);
             this.columnMetadata.clear();
             long offset = TableUtils.getColumnNameOffset(columnCount);
@@ -232,18 +241,18 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
                 assert name != null;
                 int columnType = TableUtils.getColumnType(metaMem, i);
                 if (columnType > 0) {
-                    columnMetadata.add(
-                            new TableColumnMetadata(
-                                    Chars.toString(name),
-                                    TableUtils.getColumnHash(metaMem, i),
-                                    columnType,
-                                    TableUtils.isColumnIndexed(metaMem, i),
-                                    TableUtils.getIndexBlockCapacity(metaMem, i),
-                                    true,
-                                    null,
-                                    i
-                            )
+                    TableColumnMetadata columnMeta = new TableColumnMetadata(
+                            Chars.toString(name),
+                            TableUtils.getColumnHash(metaMem, i),
+                            columnType,
+                            TableUtils.isColumnIndexed(metaMem, i),
+                            TableUtils.getIndexBlockCapacity(metaMem, i),
+                            true,
+                            null,
+                            i
                     );
+                    columnMeta.setCompressed(TableUtils.isColumnCompressed(metaMem, i));
+                    columnMetadata.add(columnMeta);
                     if (i == timestampIndex) {
                         this.timestampIndex = columnMetadata.size() - 1;
                     }
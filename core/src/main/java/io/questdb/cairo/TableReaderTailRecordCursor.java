@@ -31,10 +31,21 @@ public class TableReaderTailRecordCursor extends TableReaderRecordCursor {
     private long txn = TableUtils.INITIAL_TXN;
     private long lastRowId = -1;
     private long dataVersion = -1;
+    // timestamp of the partition of the last seen row, the partition index may change
+    // when older partitions are dropped
+    private long lastPartitionTimestamp = Long.MIN_VALUE;
 
     public void bookmark() {
         lastRowId = recordA.getRowId();
         this.txn = reader.getTxn();
+        rememberLastPartition();
+    }
+
+    /**
+     * @return row id of the last row seen by the cursor, -1 when the cursor has not seen any rows
+     */
+    public long getLastRowId() {
+        return lastRowId;
     }
 
     @Override
@@ -75,14 +86,67 @@ public class TableReaderTailRecordCursor extends TableReaderRecordCursor {
     }
 
     public void toBottom() {
-        lastRowId = Rows.toRowID(reader.getPartitionCount() - 1, reader.getTransientRowCount() - 1);
-        startFrom(lastRowId);
+        if (reader.size() > 0) {
+            lastRowId = Rows.toRowID(reader.getPartitionCount() - 1, reader.getTransientRowCount() - 1);
+            startFrom(lastRowId);
+        } else {
+            lastRowId = -1;
+            toTop();
+        }
         this.txn = reader.getTxn();
         this.dataVersion = reader.getDataVersion();
+        rememberLastPartition();
+    }
+
+    /**
+     * Positions the cursor after the given number of rows of the table, the rows that follow
+     * are returned by the cursor as if they were appended since the cursor has been positioned.
+     *
+     * @param rowCount number of rows to skip
+     * @return false when the table has fewer rows than the given count
+     */
+    public boolean toRow(long rowCount) {
+        if (rowCount > reader.size()) {
+            return false;
+        }
+        lastRowId = -1;
+        long remaining = rowCount;
+        for (int i = 0, n = reader.getPartitionCount(); i < n && remaining > 0; i++) {
+            final long partitionSize = reader.openPartition(i);
+            if (remaining <= partitionSize) {
+                lastRowId = Rows.toRowID(i, remaining - 1);
+            }
+            remaining -= partitionSize;
+        }
+        this.txn = reader.getTxn();
+        this.dataVersion = reader.getDataVersion();
+        rememberLastPartition();
+        seekToLastSeenRow();
+        return true;
+    }
+
+    private void rememberLastPartition() {
+        if (lastRowId > -1 && PartitionBy.isPartitioned(reader.getPartitionedBy())) {
+            lastPartitionTimestamp = reader.getPartitionTimestampByIndex(Rows.toPartitionIndex(lastRowId));
+        }
     }
 
     private void seekToLastSeenRow() {
         if (lastRowId > -1) {
+            if (PartitionBy.isPartitioned(reader.getPartitionedBy())) {
+                final int partitionIndex = reader.getPartitionIndexByTimestamp(lastPartitionTimestamp);
+                if (partitionIndex > -1 && reader.getPartitionTimestampByIndex(partitionIndex) == lastPartitionTimestamp) {
+                    lastRowId = Rows.toRowID(partitionIndex, Rows.toLocalRowID(lastRowId));
+                } else if (partitionIndex > -1) {
+                    // partition of the last seen row has been dropped, rows of the partitions
+                    // that follow have not been seen
+                    lastRowId = Rows.toRowID(partitionIndex, reader.openPartition(partitionIndex) - 1);
+                } else {
+                    lastRowId = -1;
+                    toTop();
+                    return;
+                }
+            }
             startFrom(lastRowId);
         } else {
             // this is first time this cursor opens
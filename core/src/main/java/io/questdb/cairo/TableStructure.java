@@ -52,4 +52,6 @@ public interface TableStructure {
     int getMaxUncommittedRows();
 
     long getCommitLag();
+
+    long getTtl();
 }
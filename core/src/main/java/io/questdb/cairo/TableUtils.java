@@ -60,6 +60,8 @@ public final class TableUtils {
     public static final String DETACHED_DIR_MARKER = ".detached";
     public static final String TAB_INDEX_FILE_NAME = "_tab_index.d";
     public static final String SNAPSHOT_META_FILE_NAME = "_snapshot";
+    public static final String PARQUET_FILE_NAME = "data.parquet";
+    public static final String PARTITION_STATS_FILE_NAME = "_stats";
     public static final int INITIAL_TXN = 0;
     public static final int NULL_LEN = -1;
     public static final int ANY_TABLE_ID = -1;
@@ -71,8 +73,10 @@ public final class TableUtils {
     public static final long META_OFFSET_MAX_UNCOMMITTED_ROWS = 20; // LONG
     public static final long META_OFFSET_COMMIT_LAG = 24; // LONG
     public static final long META_OFFSET_STRUCTURE_VERSION = 32; // LONG
+    public static final long META_OFFSET_TTL = 40; // LONG
     public static final String FILE_SUFFIX_I = ".i";
     public static final String FILE_SUFFIX_D = ".d";
+    public static final String FILE_SUFFIX_Z = ".z";
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION_MSB = Numbers.msb(LONGS_PER_TX_ATTACHED_PARTITION);
     public static final String DEFAULT_PARTITION_NAME = "default";
@@ -98,6 +102,7 @@ public final class TableUtils {
     public static final long TX_OFFSET_PARTITION_TABLE_VERSION_64 = TX_OFFSET_DATA_VERSION_64 + 8;
     public static final long TX_OFFSET_COLUMN_VERSION_64 = TX_OFFSET_PARTITION_TABLE_VERSION_64 + 8;
     public static final long TX_OFFSET_TRUNCATE_VERSION_64 = TX_OFFSET_COLUMN_VERSION_64 + 8;
+    public static final long TX_OFFSET_SEQ_TXN_64 = TX_OFFSET_TRUNCATE_VERSION_64 + 8;
     public static final long TX_OFFSET_MAP_WRITER_COUNT_32 = 128;
     public static final int TX_RECORD_HEADER_SIZE = (int) TX_OFFSET_MAP_WRITER_COUNT_32 + Integer.BYTES;
     public static final long COLUMN_NAME_TXN_NONE = -1L;
@@ -126,10 +131,11 @@ public final class TableUtils {
     static final String META_PREV_FILE_NAME = "_meta.prev";
     // INT - symbol map count, this is a variable part of transaction file
     // below this offset we will have INT values for symbol map size
-    static final long META_OFFSET_PARTITION_BY = 4;
+    public static final long META_OFFSET_PARTITION_BY = 4;
     static final int META_FLAG_BIT_NOT_INDEXED = 0;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_COMPRESSED = 1 << 2;
     static final String TODO_FILE_NAME = "_todo_";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
@@ -191,9 +197,20 @@ public final class TableUtils {
             TableStructure structure,
             int tableVersion,
             int tableId
+    ) {
+        createTable(configuration, memory, path, configuration.getRoot(), structure, tableVersion, tableId);
+    }
+
+    public static void createTable(
+            CairoConfiguration configuration,
+            MemoryMARW memory,
+            Path path,
+            CharSequence root,
+            TableStructure structure,
+            int tableVersion,
+            int tableId
     ) {
         final FilesFacade ff = configuration.getFilesFacade();
-        final CharSequence root = configuration.getRoot();
         final int mkDirMode = configuration.getMkDirMode();
         LOG.debug().$("create table [name=").$(structure.getTableName()).$(']').$();
         path.of(root).concat(structure.getTableName());
@@ -217,6 +234,8 @@ public final class TableUtils {
             mem.putInt(tableId);
             mem.putInt(structure.getMaxUncommittedRows());
             mem.putLong(structure.getCommitLag());
+            mem.jumpTo(TableUtils.META_OFFSET_TTL);
+            mem.putLong(structure.getTtl());
             mem.jumpTo(TableUtils.META_OFFSET_COLUMN_TYPES);
 
             assert count > 0;
@@ -372,6 +391,18 @@ public final class TableUtils {
         return path.$();
     }
 
+    public static LPSZ zFile(Path path, CharSequence columnName, long columnTxn) {
+        path.concat(columnName).put(FILE_SUFFIX_Z);
+        if (columnTxn > COLUMN_NAME_TXN_NONE) {
+            path.put('.').put(columnTxn);
+        }
+        return path.$();
+    }
+
+    public static LPSZ parquetFile(Path path) {
+        return path.concat(PARQUET_FILE_NAME).$();
+    }
+
     public static int exists(FilesFacade ff, Path path, CharSequence root, CharSequence name) {
         return exists(ff, path, root, name, 0, name.length());
     }
@@ -1022,6 +1053,10 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_INDEXED) != 0;
     }
 
+    static boolean isColumnCompressed(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_COMPRESSED) != 0;
+    }
+
     static boolean isSequential(MemoryR metaMem, int columnIndex) {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
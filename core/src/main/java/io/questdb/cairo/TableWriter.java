@@ -27,12 +27,15 @@ package io.questdb.cairo;
 import io.questdb.MessageBus;
 import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
+import io.questdb.cairo.parquet.ParquetDecoder;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.MemoryFCRImpl;
 import io.questdb.cairo.vm.MemoryFMCRImpl;
 import io.questdb.cairo.vm.NullMapWriter;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.*;
+import io.questdb.cairo.wal.WalUtils;
+import io.questdb.griffin.ColumnCompressionOperator;
 import io.questdb.griffin.DropIndexOperator;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.UpdateOperator;
@@ -84,6 +87,7 @@ public class TableWriter implements Closeable {
     private final ObjList<ColumnIndexer> denseIndexers = new ObjList<>();
     private final Path path;
     private final Path other;
+    private final String root;
     private final LongList rowValueIsNotNull = new LongList();
     private final Row regularRow = new RowImpl();
     private final int rootLen;
@@ -150,6 +154,7 @@ public class TableWriter implements Closeable {
     private final AlterOperation alterTableStatement = new AlterOperation();
     private final ColumnVersionWriter columnVersionWriter;
     private final Metrics metrics;
+    private final NanosecondClock nanosecondClock;
     private final RingQueue<TableWriterTask> commandQueue;
     private final SCSequence commandSubSeq;
     private final MPSequence commandPubSeq;
@@ -193,6 +198,19 @@ public class TableWriter implements Closeable {
     private long commitInterval;
     private UpdateOperator updateOperator;
     private DropIndexOperator dropIndexOperator;
+    private ColumnCompressionOperator columnCompressionOperator;
+    private PartitionParquetConverter partitionParquetConverter;
+    // timestamps of partitions that are to be compressed once they are sealed
+    private final LongList compressionCandidatePartitions = new LongList();
+    private final int columnCompressionPartitionLag;
+    private boolean compressingPartitions;
+    // timestamps of partitions that need statistics to be written once they are sealed
+    private final LongList statsCandidatePartitions = new LongList();
+    private final boolean partitionStatsEnabled;
+    private PartitionStatsWriter partitionStatsWriter;
+    private CommitListener commitListener;
+    // min timestamp of rows committed by the last O3 commit
+    private long o3CommitMinTimestamp;
 
     public TableWriter(
             CairoConfiguration configuration,
@@ -207,6 +225,7 @@ public class TableWriter implements Closeable {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
         this.metrics = metrics;
+        this.nanosecondClock = configuration.getNanosecondClock();
         this.ownMessageBus = ownMessageBus;
         if (ownMessageBus != null) {
             this.messageBus = ownMessageBus;
@@ -226,6 +245,9 @@ public class TableWriter implements Closeable {
         this.o3PartitionUpdateSubSeq = new SCSequence();
         o3PartitionUpdatePubSeq.then(o3PartitionUpdateSubSeq).then(o3PartitionUpdatePubSeq);
         this.o3ColumnMemorySize = configuration.getO3ColumnMemorySize();
+        this.columnCompressionPartitionLag = Math.max(1, configuration.getColumnCompressionPartitionLag());
+        this.partitionStatsEnabled = configuration.isPartitionStatsEnabled();
+        this.root = Chars.toString(root);
         this.path = new Path().of(root).concat(tableName);
         this.other = new Path().of(root).concat(tableName);
         this.rootLen = path.length();
@@ -298,6 +320,10 @@ public class TableWriter implements Closeable {
             this.appendTimestampSetter = timestampSetter;
             configureAppendPosition();
             purgeUnusedPartitions();
+            if (hasCompressedColumns()) {
+                // partitions could have been sealed before they were compressed
+                addCompressionCandidates();
+            }
             clearTodoLog();
             this.slaveTxReader = new TxReader(ff);
             commandQueue = new RingQueue<>(
@@ -502,11 +528,17 @@ public class TableWriter implements Closeable {
         final int existingType = getColumnType(metaMem, columnIndex);
         LOG.info().$("adding index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
 
+        checkNoParquetPartitions("cannot create index");
+        checkNoColdPartitions("cannot create index");
+
         if (!ColumnType.isSymbol(existingType)) {
             LOG.error().$("cannot create index for [column='").utf8(columnName).$(", type=").$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
             throw CairoException.instance(0).put("cannot create index for [column='").put(columnName).put(", type=").put(ColumnType.nameOf(existingType)).put(", path=").put(path).put(']');
         }
 
+        // indexer reads raw column files of historic partitions
+        decompressColumn(columnIndex);
+
         // create indexer
         final SymbolColumnIndexer indexer = new SymbolColumnIndexer();
 
@@ -570,6 +602,8 @@ public class TableWriter implements Closeable {
             // if a column is indexed, it is al so of type SYMBOL
             throw CairoException.invalidMetadata("Column is not indexed", columnName);
         }
+        checkNoParquetPartitions("cannot drop index");
+        checkNoColdPartitions("cannot drop index");
         final int defaultIndexValueBlockSize = Numbers.ceilPow2(configuration.getIndexValueBlockSize());
 
         if (inTransaction()) {
@@ -590,6 +624,8 @@ public class TableWriter implements Closeable {
             if (dropIndexOperator == null) {
                 dropIndexOperator = new DropIndexOperator(configuration, messageBus, this, path, other, rootLen);
             }
+            // drop index hard links raw column files
+            decompressColumn(columnIndex);
             dropIndexOperator.executeDropIndex(columnName, columnIndex); // upserts column version in partitions
             // swap meta commit
             metaSwapIndex = copyMetadataAndSetIndexAttrs(columnIndex, META_FLAG_BIT_NOT_INDEXED, defaultIndexValueBlockSize);
@@ -725,6 +761,18 @@ public class TableWriter implements Closeable {
         updateMetaStructureVersion();
     }
 
+    /**
+     * Decompresses column files of the partition in place, so that the partition can be modified. The partition
+     * is compressed again once it is sealed.
+     *
+     * @param partitionIndex index of the partition
+     */
+    public void decompressPartition(int partitionIndex) {
+        if (getColumnCompressionOperator().decompressPartition(partitionIndex)) {
+            addCompressionCandidate(txWriter.getPartitionTimestamp(partitionIndex));
+        }
+    }
+
     public boolean checkScoreboardHasReadersBeforeLastCommittedTxn() {
         long lastCommittedTxn = txWriter.getTxn();
         try {
@@ -759,6 +807,15 @@ public class TableWriter implements Closeable {
         commit(commitMode, 0);
     }
 
+    /**
+     * Commits pending rows along with the WAL sequencer txn they were applied from,
+     * so that the applied position is durable exactly when the rows are.
+     */
+    public void commitSeqTxn(long seqTxn) {
+        txWriter.setSeqTxn(seqTxn);
+        commit(defaultCommitMode, 0);
+    }
+
     public void commitWithLag() {
         commit(defaultCommitMode, metadata.getCommitLag());
     }
@@ -771,6 +828,83 @@ public class TableWriter implements Closeable {
         commit(commitMode, metadata.getCommitLag());
     }
 
+    /**
+     * Converts sealed partition into a Parquet file. Converted partition is written as a new partition
+     * version, the previous version is removed once readers release it. Parquet partitions are read-only,
+     * they cannot receive out-of-order data or be updated.
+     *
+     * @param timestamp timestamp in the partition
+     * @return false when partition does not exist
+     */
+    public boolean convertPartitionToParquet(long timestamp) {
+        checkDistressed();
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.instance(0).put("table is not partitioned [table=").put(tableName).put(']');
+        }
+
+        timestamp = getPartitionLo(timestamp);
+        final int partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (partitionIndex < 0) {
+            LOG.error().$("partition does not exist [table=").$(tableName).$(", partition=").$ts(timestamp).I$();
+            return false;
+        }
+        if (partitionIndex == txWriter.getPartitionCount() - 1) {
+            throw CairoException.instance(0).put("cannot convert active partition [table=").put(tableName)
+                    .put(", partition=").ts(timestamp)
+                    .put(']');
+        }
+        if (txWriter.isPartitionParquet(partitionIndex)) {
+            throw CairoException.instance(0).put("partition is already converted to parquet [table=").put(tableName)
+                    .put(", partition=").ts(timestamp)
+                    .put(']');
+        }
+        checkPartitionNotCold(partitionIndex, "cannot convert partition");
+
+        if (inTransaction()) {
+            LOG.info()
+                    .$("committing current transaction before CONVERT PARTITION execution [txn=").$(txWriter.getTxn())
+                    .$(", table=").$(tableName)
+                    .I$();
+            commit();
+        }
+
+        final long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        // the next commit publishes the new partition version
+        final long newPartitionNameTxn = txWriter.getTxn();
+        try {
+            setPathForPartition(other, partitionBy, timestamp, false);
+            TableUtils.txnPartition(other, newPartitionNameTxn);
+            final int plen = other.length();
+            if (ff.mkdirs(other.slash$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create directory [path=").put(other).put(']');
+            }
+            try {
+                getPartitionParquetConverter().convert(this, partitionIndex, path.trimTo(rootLen), other.trimTo(plen));
+            } catch (Throwable e) {
+                if (ff.rmdir(other.trimTo(plen).slash$()) != 0) {
+                    LOG.error().$("could not remove [path=").$(other).$(", errno=").$(ff.errno()).I$();
+                }
+                throw e;
+            }
+        } finally {
+            other.trimTo(rootLen);
+            path.trimTo(rootLen);
+        }
+
+        txWriter.updatePartitionParquetByIndex(partitionIndex);
+        txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+        compressionCandidatePartitions.remove(timestamp);
+
+        o3PartitionRemoveCandidates.clear();
+        o3PartitionRemoveCandidates.add(timestamp, partitionNameTxn);
+        o3ProcessPartitionRemoveCandidates();
+        LOG.info().$("converted partition to parquet [table=").$(tableName)
+                .$(", partition=").$ts(timestamp)
+                .$(", nameTxn=").$(newPartitionNameTxn)
+                .I$();
+        return true;
+    }
+
     public int getColumnIndex(CharSequence name) {
         int index = metadata.getColumnIndexQuiet(name);
         if (index > -1) {
@@ -854,6 +988,10 @@ public class TableWriter implements Closeable {
         return txWriter.unsafeGetRawMemorySize();
     }
 
+    public long getSeqTxn() {
+        return txWriter.getSeqTxn();
+    }
+
     public long getStructureVersion() {
         return txWriter.getStructureVersion();
     }
@@ -905,6 +1043,93 @@ public class TableWriter implements Closeable {
         return tempMem16b != 0;
     }
 
+    public boolean isPartitionParquet(int partitionIndex) {
+        return txWriter.isPartitionParquet(partitionIndex);
+    }
+
+    public boolean isPartitionCold(int partitionIndex) {
+        return txWriter.isPartitionCold(partitionIndex);
+    }
+
+    /**
+     * Moves sealed partition between the table directory and the cold storage volume, see
+     * {@link CairoConfiguration#getColdRoot()}. Partition files are copied into a new partition
+     * version on the other volume, the version is published by the commit that flags the partition.
+     * Readers keep using the old version, it is purged once they release it.
+     * <p>
+     * Cold partitions are read-only, they have to be moved back before they can receive
+     * out-of-order data or be updated.
+     *
+     * @param timestamp timestamp in the partition
+     * @param cold      true to move the partition to cold storage, false to move it back to the table directory
+     * @return false when partition does not exist
+     */
+    public boolean movePartition(long timestamp, boolean cold) {
+        checkDistressed();
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.instance(0).put("table is not partitioned [table=").put(tableName).put(']');
+        }
+        final CharSequence coldRoot = getColdRoot();
+
+        timestamp = getPartitionLo(timestamp);
+        final int partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (partitionIndex < 0) {
+            LOG.error().$("partition does not exist [table=").$(tableName).$(", partition=").$ts(timestamp).I$();
+            return false;
+        }
+        if (partitionIndex == txWriter.getPartitionCount() - 1) {
+            throw CairoException.instance(0).put("cannot move active partition [table=").put(tableName)
+                    .put(", partition=").ts(timestamp)
+                    .put(']');
+        }
+        if (txWriter.isPartitionCold(partitionIndex) == cold) {
+            throw CairoException.instance(0).put(cold ? "partition is already in cold storage [table=" : "partition is not in cold storage [table=")
+                    .put(tableName)
+                    .put(", partition=").ts(timestamp)
+                    .put(']');
+        }
+
+        if (inTransaction()) {
+            LOG.info()
+                    .$("committing current transaction before MOVE PARTITION execution [txn=").$(txWriter.getTxn())
+                    .$(", table=").$(tableName)
+                    .I$();
+            commit();
+        }
+
+        final long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        // the next commit publishes the new partition version
+        final long newPartitionNameTxn = txWriter.getTxn();
+        try {
+            setPathForPartitionVolume(path, timestamp);
+            setPathForPartition(path, partitionBy, timestamp, false);
+            txnPartitionConditionally(path, partitionNameTxn);
+            if (cold) {
+                other.of(coldRoot).concat(tableName);
+            } else {
+                restoreTablePath(other);
+            }
+            setPathForPartition(other, partitionBy, timestamp, false);
+            TableUtils.txnPartition(other, newPartitionNameTxn);
+            copyPartitionFiles(path, other);
+        } finally {
+            restoreTablePath(path);
+            restoreTablePath(other);
+        }
+
+        txWriter.updatePartitionColdByIndex(partitionIndex, cold);
+        txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+
+        o3PartitionRemoveCandidates.clear();
+        o3PartitionRemoveCandidates.add(timestamp, partitionNameTxn);
+        o3ProcessPartitionRemoveCandidates();
+        LOG.info().$(cold ? "moved partition to cold storage [table=" : "moved partition from cold storage [table=").$(tableName)
+                .$(", partition=").$ts(timestamp)
+                .$(", nameTxn=").$(newPartitionNameTxn)
+                .I$();
+        return true;
+    }
+
     public Row newRow(long timestamp) {
 
         switch (rowAction) {
@@ -1149,6 +1374,93 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Removes committed rows with designated timestamp greater or equal to the given one. Uncommitted rows
+     * are rolled back. Partitions that end up empty are removed and the partition holding the last remaining
+     * row becomes the active one.
+     * <p>
+     * Rows are removed in place, the next append overwrites the column files readers may still be using. For that
+     * reason rows are not removed while the table is in use by readers, the caller is expected to retry.
+     *
+     * @param timestamp the lowest timestamp to remove
+     * @return false when rows could not be removed because the table has active readers
+     */
+    public boolean removeRowsFrom(long timestamp) {
+        checkDistressed();
+        rollback();
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex < 0) {
+            throw CairoException.instance(0).put("designated timestamp is required [table=").put(tableName).put(']');
+        }
+
+        if (timestamp > txWriter.getMaxTimestamp()) {
+            return true;
+        }
+
+        if (checkScoreboardHasReadersBeforeLastCommittedTxn() || txnScoreboard.getActiveReaderCount(txWriter.getTxn()) > 0) {
+            return false;
+        }
+
+        if (timestamp <= txWriter.getMinTimestamp()) {
+            truncate();
+            return true;
+        }
+
+        final boolean partitioned = PartitionBy.isPartitioned(partitionBy);
+        int partitionIndex = partitioned ? txWriter.getPartitionCount() - 1 : 0;
+        while (partitionIndex > 0 && txWriter.getPartitionTimestamp(partitionIndex) > timestamp) {
+            partitionIndex--;
+        }
+
+        checkPartitionNotCold(partitionIndex, "cannot remove rows");
+        long partitionTimestamp = partitioned ? txWriter.getPartitionTimestamp(partitionIndex) : Long.MIN_VALUE;
+        long rowCount = countRowsBefore(partitionIndex, partitionTimestamp, timestamp);
+        if (rowCount == 0) {
+            // min timestamp is below the given one, there has to be a partition before this one
+            partitionIndex--;
+            partitionTimestamp = txWriter.getPartitionTimestamp(partitionIndex);
+            rowCount = getPartitionSize(partitionIndex);
+            checkPartitionNotCold(partitionIndex, "cannot remove rows");
+        }
+
+        if (partitioned && txWriter.isPartitionParquet(partitionIndex)) {
+            throw CairoException.instance(0).put("cannot remove rows from parquet partition [table=").put(tableName)
+                    .put(", partition=").ts(partitionTimestamp).put(']');
+        }
+
+        final long maxTimestamp = readTimestampAt(partitionTimestamp, rowCount - 1);
+        LOG.info().$("removing rows [table=").$(tableName)
+                .$(", from=").$ts(timestamp)
+                .$(", partition=").$ts(partitionTimestamp)
+                .$(", partitionRowCount=").$(rowCount)
+                .$(", maxTimestamp=").$ts(maxTimestamp)
+                .I$();
+
+        // active partition files are about to be re-opened, possibly for another partition
+        freeColumns(false);
+        if (partitioned) {
+            txWriter.beginPartitionSizeUpdate();
+            for (int i = txWriter.getPartitionCount() - 1; i > partitionIndex; i--) {
+                final long ts = txWriter.getPartitionTimestamp(i);
+                o3PartitionRemoveCandidates.add(ts, txWriter.getPartitionNameTxn(i));
+                txWriter.removeAttachedPartitions(ts);
+            }
+            txWriter.updatePartitionSizeByTimestamp(partitionTimestamp, rowCount);
+            txWriter.finishPartitionSizeUpdate(txWriter.getMinTimestamp(), maxTimestamp);
+            txWriter.bumpTruncateVersion();
+            txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+        } else {
+            txWriter.bumpTruncateVersion();
+            txWriter.reset(0, rowCount, maxTimestamp, defaultCommitMode, denseSymbolMapWriters);
+        }
+
+        configureAppendPosition();
+        rollbackIndexes();
+        o3ProcessPartitionRemoveCandidates();
+        return true;
+    }
+
     public void renameColumn(CharSequence currentName, CharSequence newName) {
 
         checkDistressed();
@@ -1369,6 +1681,63 @@ public class TableWriter implements Closeable {
         columnVersionWriter.readUnsafe();
     }
 
+    public void setColumnCompressed(CharSequence columnName, boolean compressed) {
+        checkDistressed();
+
+        final int columnIndex = getColumnIndexQuiet(metaMem, columnName, columnCount);
+        if (columnIndex == -1) {
+            throw CairoException.invalidMetadata("Column does not exist", columnName);
+        }
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.invalidMetadata("Compression requires partitioned table", columnName);
+        }
+        final int columnType = getColumnType(metaMem, columnIndex);
+        if (columnIndex == metadata.getTimestampIndex() || !ColumnCodec.isSupported(columnType)) {
+            throw CairoException.invalidMetadata("Column type cannot be compressed", columnName);
+        }
+        if (isColumnCompressed(metaMem, columnIndex) == compressed) {
+            return;
+        }
+
+        if (inTransaction()) {
+            LOG.info()
+                    .$("committing current transaction before COMPRESS execution [txn=").$(txWriter.getTxn())
+                    .$(", table=").$(tableName)
+                    .$(", column=").$(columnName)
+                    .I$();
+            commit();
+        }
+
+        LOG.info().$("BEGIN ").$(compressed ? "COMPRESS" : "NOCOMPRESS").$(" [txn=").$(txWriter.getTxn())
+                .$(", table=").$(tableName)
+                .$(", column=").$(columnName)
+                .I$();
+        if (!compressed) {
+            // meta flag goes last, partitions remain readable should decompression fail
+            decompressColumn(columnIndex);
+        }
+
+        metaSwapIndex = copyMetadataAndSetCompressed(columnIndex, compressed);
+        swapMetaFile(columnName); // bumps structure version, this is in effect a commit
+        metadata.getColumnQuick(columnIndex).setCompressed(compressed);
+
+        if (compressed) {
+            addCompressionCandidates();
+            compressSealedPartitions();
+            writeSealedPartitionStats();
+        } else if (!hasCompressedColumns()) {
+            compressionCandidatePartitions.clear();
+        }
+        LOG.info().$("END ").$(compressed ? "COMPRESS" : "NOCOMPRESS").$(" [txn=").$(txWriter.getTxn())
+                .$(", table=").$(tableName)
+                .$(", column=").$(columnName)
+                .I$();
+    }
+
+    public void setCommitListener(CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
     public void setExtensionListener(ExtensionListener listener) {
         txWriter.setExtensionListener(listener);
     }
@@ -1420,6 +1789,27 @@ public class TableWriter implements Closeable {
         }
     }
 
+    public void setMetaTtl(long ttl) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_TTL);
+                ddlMem.putLong(ttl);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setTtl(ttl);
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
     public long size() {
         // This is uncommitted row count
         return txWriter.getRowCount() + getO3RowCount();
@@ -1530,6 +1920,8 @@ public class TableWriter implements Closeable {
     public void upsertColumnVersion(long partitionTimestamp, int columnIndex, long columnTop) {
         columnVersionWriter.upsert(partitionTimestamp, columnIndex, txWriter.txn, columnTop);
         txWriter.updatePartitionColumnVersion(partitionTimestamp);
+        // new column version makes partition statistics out of date
+        addStatsCandidate(partitionTimestamp);
     }
 
     /**
@@ -1678,6 +2070,38 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void addCompressionCandidate(long partitionTimestamp) {
+        if (compressionCandidatePartitions.indexOf(partitionTimestamp) < 0) {
+            compressionCandidatePartitions.add(partitionTimestamp);
+        }
+    }
+
+    private void addCompressionCandidates() {
+        // the last partition is never sealed, compressSealedPartitions() keeps it on the list
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            addCompressionCandidate(txWriter.getPartitionTimestamp(i));
+        }
+    }
+
+    private void addStatsCandidate(long partitionTimestamp) {
+        if (partitionStatsEnabled && PartitionBy.isPartitioned(partitionBy) && statsCandidatePartitions.indexOf(partitionTimestamp) < 0) {
+            statsCandidatePartitions.add(partitionTimestamp);
+        }
+    }
+
+    private void addStatsCandidates(long minTimestamp) {
+        if (!partitionStatsEnabled || !PartitionBy.isPartitioned(partitionBy)) {
+            return;
+        }
+        final long partitionTimestampLo = partitionFloorMethod.floor(minTimestamp);
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            final long partitionTimestamp = txWriter.getPartitionTimestamp(i);
+            if (partitionTimestamp >= partitionTimestampLo) {
+                addStatsCandidate(partitionTimestamp);
+            }
+        }
+    }
+
     private int addColumnToMeta(
             CharSequence name,
             int type,
@@ -1964,6 +2388,30 @@ public class TableWriter implements Closeable {
         activeNullSetters = nullSetters;
     }
 
+    private void checkNoColdPartitions(String operation) {
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            checkPartitionNotCold(i, operation);
+        }
+    }
+
+    private void checkPartitionNotCold(int partitionIndex, String operation) {
+        if (PartitionBy.isPartitioned(partitionBy) && txWriter.isPartitionCold(partitionIndex)) {
+            throw CairoException.instance(0).put(operation).put(", partition is in cold storage [table=").put(tableName)
+                    .put(", partition=").ts(txWriter.getPartitionTimestamp(partitionIndex))
+                    .put(']');
+        }
+    }
+
+    private void checkNoParquetPartitions(String operation) {
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            if (txWriter.isPartitionParquet(i)) {
+                throw CairoException.instance(0).put(operation).put(", table has parquet partitions [table=").put(tableName)
+                        .put(", partition=").ts(txWriter.getPartitionTimestamp(i))
+                        .put(']');
+            }
+        }
+    }
+
     private void clearTodoLog() {
         try {
             todoMem.putLong(0, ++todoTxn); // write txn, reader will first read txn at offset 24 and then at offset 0
@@ -2029,10 +2477,13 @@ public class TableWriter implements Closeable {
         }
 
         if (inTransaction()) {
+            final long commitStartNanos = nanosecondClock.getTicks();
+            final long committedMaxTimestamp = txWriter.unsafeCommittedMaxTimestamp();
             final boolean o3 = hasO3();
             if (o3 && o3Commit(commitLag)) {
                 // Bookmark masterRef to track how many rows is in uncommitted state
                 this.committedMasterRef = masterRef;
+                metrics.tableWriter().recordCommitLatency(nanosecondClock.getTicks() - commitStartNanos);
                 return;
             }
 
@@ -2058,6 +2509,49 @@ public class TableWriter implements Closeable {
                 // If `o3`, the metric is tracked inside `o3Commit`, possibly async.
                 addPhysicallyWrittenRows(rowsAdded);
             }
+            compressSealedPartitions();
+            if (o3) {
+                // out-of-order rows could have landed in sealed partitions or created new ones
+                addStatsCandidates(o3CommitMinTimestamp);
+            }
+            writeSealedPartitionStats();
+            metrics.tableWriter().recordCommitLatency(nanosecondClock.getTicks() - commitStartNanos);
+            if (commitListener != null) {
+                // rows appended in order cannot be older than the max timestamp of the previous commit
+                commitListener.onCommit(tableName, o3 ? o3CommitMinTimestamp : committedMaxTimestamp, txWriter.getMaxTimestamp());
+            }
+        }
+    }
+
+    private void compressSealedPartitions() {
+        if (compressionCandidatePartitions.size() == 0 || compressingPartitions) {
+            return;
+        }
+
+        compressingPartitions = true;
+        try {
+            final ColumnCompressionOperator operator = getColumnCompressionOperator();
+            operator.clear();
+            final int sealedPartitionCount = txWriter.getPartitionCount() - columnCompressionPartitionLag;
+            boolean changed = false;
+            for (int i = compressionCandidatePartitions.size() - 1; i > -1; i--) {
+                final int partitionIndex = txWriter.getPartitionIndex(compressionCandidatePartitions.getQuick(i));
+                if (partitionIndex < sealedPartitionCount) {
+                    // partition could have been dropped, converted to parquet or moved to cold storage in the meantime
+                    if (partitionIndex > -1 && !txWriter.isPartitionParquet(partitionIndex) && !txWriter.isPartitionCold(partitionIndex) && operator.compressPartition(partitionIndex)) {
+                        changed = true;
+                    }
+                    compressionCandidatePartitions.removeIndex(i);
+                }
+            }
+
+            if (changed) {
+                // new column versions
+                commit();
+                operator.purgeOldColumnVersions();
+            }
+        } finally {
+            compressingPartitions = false;
         }
     }
 
@@ -2190,6 +2684,9 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isColumnCompressed(metaMem, i)) {
+                        flags |= META_FLAG_BIT_COMPRESSED;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.putLong(getColumnHash(metaMem, i));
@@ -2209,6 +2706,35 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private int copyMetadataAndSetCompressed(int columnIndex, boolean compressed) {
+        try {
+            int index = openMetaSwapFile(ff, ddlMem, path, rootLen, configuration.getMaxSwapFileCount());
+            int columnCount = metaMem.getInt(META_OFFSET_COUNT);
+            ddlMem.putInt(columnCount);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
+            copyVersionAndLagValues();
+            ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
+            for (int i = 0; i < columnCount; i++) {
+                if (i != columnIndex) {
+                    writeColumnEntry(i, false);
+                } else {
+                    writeColumnEntry(i, false, compressed);
+                }
+            }
+
+            long nameOffset = getColumnNameOffset(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                CharSequence columnName = metaMem.getStr(nameOffset);
+                ddlMem.putStr(columnName);
+                nameOffset += Vm.getStorageLength(columnName);
+            }
+            return index;
+        } finally {
+            ddlMem.close();
+        }
+    }
+
     private long copyMetadataAndUpdateVersion() {
         try {
             int index = openMetaSwapFile(ff, ddlMem, path, rootLen, configuration.getMaxSwapFileCount());
@@ -2242,6 +2768,7 @@ public class TableWriter implements Closeable {
         ddlMem.putInt(metaMem.getInt(META_OFFSET_MAX_UNCOMMITTED_ROWS));
         ddlMem.putLong(metaMem.getLong(META_OFFSET_COMMIT_LAG));
         ddlMem.putLong(txWriter.getStructureVersion() + 1);
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
         metadata.setStructureVersion(txWriter.getStructureVersion() + 1);
     }
 
@@ -2321,6 +2848,9 @@ public class TableWriter implements Closeable {
         Misc.free(commandQueue);
         updateOperator = Misc.free(updateOperator);
         dropIndexOperator = Misc.free(dropIndexOperator);
+        columnCompressionOperator = Misc.free(columnCompressionOperator);
+        partitionStatsWriter = Misc.free(partitionStatsWriter);
+        partitionParquetConverter = Misc.free(partitionParquetConverter);
         freeColumns(truncate & !distressed);
         try {
             releaseLock(!truncate | tx | performRecovery | distressed);
@@ -2456,6 +2986,31 @@ public class TableWriter implements Closeable {
         return o3PartitionUpdateQueue;
     }
 
+    private ColumnCompressionOperator getColumnCompressionOperator() {
+        if (columnCompressionOperator == null) {
+            columnCompressionOperator = new ColumnCompressionOperator(configuration, messageBus, this, path, other, rootLen);
+        }
+        return columnCompressionOperator;
+    }
+
+    long getPartitionColumnVersion(int partitionIndex) {
+        return txWriter.getPartitionColumnVersion(partitionIndex);
+    }
+
+    private PartitionStatsWriter getPartitionStatsWriter() {
+        if (partitionStatsWriter == null) {
+            partitionStatsWriter = new PartitionStatsWriter(configuration, this, path, other, rootLen);
+        }
+        return partitionStatsWriter;
+    }
+
+    private PartitionParquetConverter getPartitionParquetConverter() {
+        if (partitionParquetConverter == null) {
+            partitionParquetConverter = new PartitionParquetConverter(configuration);
+        }
+        return partitionParquetConverter;
+    }
+
     private long getO3RowCount0() {
         return (masterRef - o3MasterRef + 1) / 2;
     }
@@ -2486,6 +3041,15 @@ public class TableWriter implements Closeable {
         return symbolMapWriters.getQuick(columnIndex);
     }
 
+    private boolean hasCompressedColumns() {
+        for (int i = 0; i < columnCount; i++) {
+            if (ColumnCompressionOperator.isCompressible(metadata, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean hasO3() {
         return o3MasterRef > -1;
     }
@@ -2599,6 +3163,7 @@ public class TableWriter implements Closeable {
      * @return <i>true</i> when commit has is a NOOP, e.g. no data has been committed to disk. <i>false</i> otherwise.
      */
     private boolean o3Commit(long lag) {
+        final long o3StartNanos = nanosecondClock.getTicks();
         o3RowCount = getO3RowCount0();
         o3PartitionRemoveCandidates.clear();
         o3ErrorCount.set(0);
@@ -2704,6 +3269,7 @@ public class TableWriter implements Closeable {
             if (srcOooMax == 0) {
                 return true;
             }
+            o3CommitMinTimestamp = o3TimestampMin;
 
             // we could have moved the "srcOooMax" and hence we re-read the max timestamp
             o3TimestampMax = getTimestampIndexValue(sortedTimestampsAddr, srcOooMax - 1);
@@ -2718,6 +3284,8 @@ public class TableWriter implements Closeable {
             o3Sort(sortedTimestampsAddr, timestampIndex, o3RowCount);
             LOG.info().$("sorted [table=").utf8(tableName).I$();
 
+            o3PrepareSealedPartitions(o3TimestampMin, o3TimestampMax);
+
             this.o3DoneLatch.reset();
             this.o3PartitionUpdRemaining.set(0);
             boolean success = true;
@@ -3027,6 +3595,7 @@ public class TableWriter implements Closeable {
         }
 
         metrics.tableWriter().incrementO3Commits();
+        metrics.tableWriter().recordO3MergeLatency(nanosecondClock.getTicks() - o3StartNanos);
 
         return false;
     }
@@ -3424,6 +3993,33 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void o3PrepareSealedPartitions(long o3TimestampMin, long o3TimestampMax) {
+        final long partitionTimestampLo = partitionFloorMethod.floor(o3TimestampMin);
+        final boolean decompress = hasCompressedColumns();
+        try {
+            for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+                final long partitionTimestamp = txWriter.getPartitionTimestamp(i);
+                if (partitionTimestamp > o3TimestampMax) {
+                    break;
+                }
+                if (partitionTimestamp >= partitionTimestampLo) {
+                    if (txWriter.isPartitionParquet(i)) {
+                        throw CairoException.instance(0).put("cannot insert into parquet partition [table=").put(tableName)
+                                .put(", partition=").ts(partitionTimestamp)
+                                .put(']');
+                    }
+                    checkPartitionNotCold(i, "cannot insert");
+                    if (decompress) {
+                        decompressPartition(i);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            o3InError = true;
+            throw e;
+        }
+    }
+
     private void o3OpenColumnSafe(Sequence openColumnSubSeq, long cursor, O3OpenColumnTask openColumnTask) {
         try {
             O3OpenColumnJob.openColumn(openColumnTask, cursor, openColumnSubSeq);
@@ -3557,6 +4153,13 @@ public class TableWriter implements Closeable {
                     );
                     TableUtils.txnPartitionConditionally(other, txn);
                     long errno = ff.rmdir(other.$());
+                    if (errno == -1 && configuration.getColdRoot() != null) {
+                        // partition version is not in the table directory, it is on the cold storage volume
+                        other.of(configuration.getColdRoot()).concat(tableName);
+                        setPathForPartition(other, partitionBy, timestamp, false);
+                        TableUtils.txnPartitionConditionally(other, txn);
+                        errno = ff.rmdir(other.$());
+                    }
                     if (errno == 0 || errno == -1) {
                         // Successfully deleted or async purge has already swept it up
                         LOG.info().$("purged [path=").$(other).I$();
@@ -3568,7 +4171,7 @@ public class TableWriter implements Closeable {
                         scheduleAsyncPurge = true;
                     }
                 } finally {
-                    other.trimTo(rootLen);
+                    restoreTablePath(other);
                 }
             }
         }
@@ -3956,6 +4559,13 @@ public class TableWriter implements Closeable {
 
     private void openPartition(long timestamp) {
         try {
+            if (hasCompressedColumns()) {
+                // partition is open for append, e.g. the last partition has been dropped
+                final int partitionIndex = txWriter.getPartitionIndex(timestamp);
+                if (partitionIndex > -1) {
+                    decompressPartition(partitionIndex);
+                }
+            }
             setStateForTimestamp(path, timestamp, true);
             int plen = path.length();
             if (ff.mkdirs(path.slash$(), mkDirMode) != 0) {
@@ -4036,6 +4646,18 @@ public class TableWriter implements Closeable {
         performRecovery = false;
     }
 
+    private void decompressColumn(int columnIndex) {
+        if (!ColumnCompressionOperator.isCompressible(metadata, columnIndex)) {
+            return;
+        }
+        final ColumnCompressionOperator operator = getColumnCompressionOperator();
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            if (operator.decompressColumn(i, columnIndex)) {
+                addCompressionCandidate(txWriter.getPartitionTimestamp(i));
+            }
+        }
+    }
+
     private void populateDenseIndexerList() {
         denseIndexers.clear();
         for (int i = 0, n = indexers.size(); i < n; i++) {
@@ -4210,15 +4832,62 @@ public class TableWriter implements Closeable {
         }
     }
 
+    long getDefaultColumnNameTxn(int columnIndex) {
+        return columnVersionWriter.getDefaultColumnNameTxn(columnIndex);
+    }
+
+    public int getSymbolCount(int columnIndex) {
+        return getSymbolMapWriter(columnIndex).getSymbolCount();
+    }
+
     void purgeUnusedPartitions() {
         if (PartitionBy.isPartitioned(partitionBy)) {
             removeNonAttachedPartitions();
         }
     }
 
+    private long countRowsBefore(int partitionIndex, long partitionTimestamp, long timestamp) {
+        final long partitionSize = getPartitionSize(partitionIndex);
+        setStateForTimestamp(other, partitionTimestamp, false);
+        try {
+            final int timestampIndex = metadata.getTimestampIndex();
+            dFile(other, metadata.getColumnName(timestampIndex), columnVersionWriter.getColumnNameTxn(partitionTimestamp, timestampIndex));
+            final long fd = TableUtils.openRO(ff, other, LOG);
+            try {
+                final long size = partitionSize * Long.BYTES;
+                final long address = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+                try {
+                    return Vect.boundedBinarySearch64Bit(address, timestamp - 1, 0, partitionSize - 1, BinarySearch.SCAN_DOWN) + 1;
+                } finally {
+                    ff.munmap(address, size, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
+    private long readTimestampAt(long partitionTimestamp, long row) {
+        setStateForTimestamp(other, partitionTimestamp, false);
+        try {
+            final int timestampIndex = metadata.getTimestampIndex();
+            dFile(other, metadata.getColumnName(timestampIndex), columnVersionWriter.getColumnNameTxn(partitionTimestamp, timestampIndex));
+            return TableUtils.readLongAtOffset(ff, other, tempMem16b, row * Long.BYTES);
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
     private long readMinTimestamp(long partitionTimestamp) {
+        setPathForPartitionVolume(other, partitionTimestamp);
         setStateForTimestamp(other, partitionTimestamp, false);
         try {
+            final int partitionIndex = txWriter.getPartitionIndex(partitionTimestamp);
+            if (partitionIndex > -1 && txWriter.isPartitionParquet(partitionIndex)) {
+                return readParquetMinTimestamp();
+            }
             dFile(other, metadata.getColumnName(metadata.getTimestampIndex()), COLUMN_NAME_TXN_NONE);
             if (ff.exists(other)) {
                 // read min timestamp value
@@ -4238,7 +4907,19 @@ public class TableWriter implements Closeable {
                 throw CairoException.instance(0).put("Partition does not exist [path=").put(other).put(']');
             }
         } finally {
-            other.trimTo(rootLen);
+            restoreTablePath(other);
+        }
+    }
+
+    private long readParquetMinTimestamp() {
+        try (ParquetDecoder decoder = new ParquetDecoder()) {
+            decoder.of(ff, TableUtils.parquetFile(other));
+            final int columnIndex = decoder.getColumnIndex(metadata.getTimestampIndex());
+            final long minTimestamp = columnIndex > -1 ? decoder.getFirstRowGroupMin(columnIndex) : Numbers.LONG_NaN;
+            if (minTimestamp == Numbers.LONG_NaN) {
+                throw CairoException.instance(0).put("parquet file has no timestamp statistics [path=").put(other).put(']');
+            }
+            return minTimestamp;
         }
     }
 
@@ -4325,15 +5006,18 @@ public class TableWriter implements Closeable {
     }
 
     private void removeColumnFilesInPartition(CharSequence columnName, int columnIndex, long partitionTimestamp, long partitionNameTxn) {
+        setPathForPartitionVolume(path, partitionTimestamp);
         setPathForPartition(path, partitionBy, partitionTimestamp, false);
         txnPartitionConditionally(path, partitionNameTxn);
         int plen = path.length();
         long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
         removeFileAndOrLog(ff, dFile(path, columnName, columnNameTxn));
+        removeFileAndOrLog(ff, zFile(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn));
-        path.trimTo(rootLen);
+        removeFileAndOrLog(ff, CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, columnNameTxn));
+        restoreTablePath(path);
     }
 
     private int removeColumnFromMeta(int index) {
@@ -4384,13 +5068,15 @@ public class TableWriter implements Closeable {
     }
 
     private void removeIndexFilesInPartition(CharSequence columnName, int columnIndex, long partitionTimestamp, long partitionNameTxn) {
+        setPathForPartitionVolume(path, partitionTimestamp);
         setPathForPartition(path, partitionBy, partitionTimestamp, false);
         txnPartitionConditionally(path, partitionNameTxn);
         int plen = path.length();
         long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
         removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn));
-        path.trimTo(rootLen);
+        removeFileAndOrLog(ff, CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, columnNameTxn));
+        restoreTablePath(path);
     }
 
     private void removeLastColumn() {
@@ -4420,13 +5106,22 @@ public class TableWriter implements Closeable {
     private void removePartitionDirectories() {
         try {
             ff.iterateDir(path.$(), removePartitionDirectories);
+            if (configuration.getColdRoot() != null) {
+                // cold partitions are the only content of the table directory on the cold storage volume
+                other.of(configuration.getColdRoot()).concat(tableName).slash$();
+                int errno;
+                if ((errno = ff.rmdir(other)) != 0 && errno != -1) {
+                    LOG.info().$("could not remove [path=").$(other).$(", errno=").$(errno).$(']').$();
+                }
+            }
         } finally {
             path.trimTo(rootLen);
+            restoreTablePath(other);
         }
     }
 
     private void removePartitionDirectories0(long pUtf8NameZ, int type) {
-        if (Files.isDir(pUtf8NameZ, type)) {
+        if (Files.isDir(pUtf8NameZ, type, fileNameSink) && !WalUtils.isWalDir(fileNameSink)) {
             path.trimTo(rootLen);
             path.concat(pUtf8NameZ).$();
             int errno;
@@ -4444,6 +5139,10 @@ public class TableWriter implements Closeable {
                 // They are probably about to be attached.
                 return;
             }
+
+            if (WalUtils.isWalDir(fileNameSink)) {
+                return;
+            }
             try {
                 long txn = 0;
                 int txnSep = Chars.indexOf(fileNameSink, '.');
@@ -4563,6 +5262,8 @@ public class TableWriter implements Closeable {
     }
 
     private void renameColumnFiles(CharSequence columnName, int columnIndex, CharSequence newName, long partitionTimestamp, long partitionNameTxn) {
+        setPathForPartitionVolume(path, partitionTimestamp);
+        setPathForPartitionVolume(other, partitionTimestamp);
         setPathForPartition(path, partitionBy, partitionTimestamp, false);
         setPathForPartition(other, partitionBy, partitionTimestamp, false);
         txnPartitionConditionally(path, partitionNameTxn);
@@ -4570,11 +5271,13 @@ public class TableWriter implements Closeable {
         int plen = path.length();
         long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
         renameFileOrLog(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), dFile(other.trimTo(plen), newName, columnNameTxn));
+        renameFileOrLog(ff, zFile(path.trimTo(plen), columnName, columnNameTxn), zFile(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName, columnNameTxn));
-        path.trimTo(rootLen);
-        other.trimTo(rootLen);
+        renameFileOrLog(ff, CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, columnNameTxn), CompressedBitmapIndexUtils.compressedFileName(other.trimTo(plen), newName, columnNameTxn));
+        restoreTablePath(path);
+        restoreTablePath(other);
     }
 
     private int renameColumnFromMeta(int index, CharSequence newName) {
@@ -4634,7 +5337,9 @@ public class TableWriter implements Closeable {
             try {
                 final long tsLimit = partitionFloorMethod.floor(this.txWriter.getMaxTimestamp());
                 for (long ts = getPartitionLo(txWriter.getMinTimestamp()); ts < tsLimit; ts = partitionCeilMethod.ceil(ts)) {
-                    path.trimTo(rootLen);
+                    // cold partitions are checked on the cold storage volume
+                    restoreTablePath(path);
+                    setPathForPartitionVolume(path, ts);
                     setStateForTimestamp(path, ts, false);
                     int p = path.length();
 
@@ -4659,7 +5364,7 @@ public class TableWriter implements Closeable {
                 }
 
                 if (lastTimestamp > -1) {
-                    path.trimTo(rootLen);
+                    restoreTablePath(path);
                     setStateForTimestamp(path, tsLimit, false);
                     if (!ff.exists(path.$())) {
                         Path other = Path.getThreadLocal2(path);
@@ -4696,7 +5401,7 @@ public class TableWriter implements Closeable {
                     }
                 }
             } finally {
-                path.trimTo(rootLen);
+                restoreTablePath(path);
             }
 
             final long expectedSize = txWriter.unsafeReadFixedRowCount();
@@ -5004,6 +5709,78 @@ public class TableWriter implements Closeable {
      * @param timestamp               to determine interval for
      * @param updatePartitionInterval flag indicating that partition interval partitionLo and
      */
+    // cold partitions are in the table directory on the cold storage volume,
+    // path has to be restored with restoreTablePath() rather than trimmed
+    private void setPathForPartitionVolume(Path path, long partitionTimestamp) {
+        if (PartitionBy.isPartitioned(partitionBy)) {
+            final int partitionIndex = txWriter.getPartitionIndex(partitionTimestamp);
+            if (partitionIndex > -1 && txWriter.isPartitionCold(partitionIndex)) {
+                path.of(getColdRoot()).concat(tableName);
+            }
+        }
+    }
+
+    private void restoreTablePath(Path path) {
+        path.of(root).concat(tableName);
+    }
+
+    private CharSequence getColdRoot() {
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot == null) {
+            throw CairoException.instance(0).put("cold storage root is not configured [table=").put(tableName).put(']');
+        }
+        return coldRoot;
+    }
+
+    private void copyPartitionFiles(Path src, Path dst) {
+        final int srcLen = src.length();
+        final int dstLen = dst.length();
+        if (ff.mkdirs(dst.slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create directory [path=").put(dst).put(']');
+        }
+        try {
+            final long p = ff.findFirst(src.$());
+            if (p < 1) {
+                throw CairoException.instance(ff.errno()).put("could not open partition directory [path=").put(src).put(']');
+            }
+            try {
+                do {
+                    if (ff.findType(p) != Files.DT_FILE) {
+                        continue;
+                    }
+                    final long pUtf8NameZ = ff.findName(p);
+                    src.trimTo(srcLen).concat(pUtf8NameZ).$();
+                    dst.trimTo(dstLen).concat(pUtf8NameZ).$();
+                    if (ff.copy(src, dst) < 0) {
+                        if (!ff.exists(src)) {
+                            // files of obsolete column versions are purged concurrently
+                            continue;
+                        }
+                        throw CairoException.instance(ff.errno()).put("could not copy [from=").put(src).put(", to=").put(dst).put(']');
+                    }
+                    if (defaultCommitMode != CommitMode.NOSYNC) {
+                        final long fd = TableUtils.openRO(ff, dst, LOG);
+                        try {
+                            ff.fsync(fd);
+                        } finally {
+                            ff.close(fd);
+                        }
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        } catch (Throwable e) {
+            if (ff.rmdir(dst.trimTo(dstLen).slash$()) != 0) {
+                LOG.error().$("could not remove [path=").$(dst).$(", errno=").$(ff.errno()).I$();
+            }
+            throw e;
+        } finally {
+            src.trimTo(srcLen);
+            dst.trimTo(dstLen);
+        }
+    }
+
     private void setStateForTimestamp(Path path, long timestamp, boolean updatePartitionInterval) {
         final long partitionTimestampHi = TableUtils.setPathForPartition(path, partitionBy, timestamp, true);
         // When partition is create a txn name must always be set to purge dropped partitions.
@@ -5023,6 +5800,12 @@ public class TableWriter implements Closeable {
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        if (txWriter.getMaxTimestamp() != Long.MIN_VALUE) {
+            if (hasCompressedColumns()) {
+                addCompressionCandidate(txWriter.getLastPartitionTimestamp());
+            }
+            addStatsCandidate(txWriter.getLastPartitionTimestamp());
+        }
         txWriter.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
@@ -5241,6 +6024,10 @@ public class TableWriter implements Closeable {
     }
 
     private void writeColumnEntry(int i, boolean markDeleted) {
+        writeColumnEntry(i, markDeleted, isColumnCompressed(metaMem, i));
+    }
+
+    private void writeColumnEntry(int i, boolean markDeleted, boolean compressed) {
         int columnType = getColumnType(metaMem, i);
         // When column is deleted it's written to metadata with negative type
         if (markDeleted) {
@@ -5256,6 +6043,10 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (compressed) {
+            flags |= META_FLAG_BIT_COMPRESSED;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.putLong(getColumnHash(metaMem, i));
@@ -5284,6 +6075,27 @@ public class TableWriter implements Closeable {
         todoMem.jumpTo(56);
     }
 
+    private void writeSealedPartitionStats() {
+        if (statsCandidatePartitions.size() == 0 || compressingPartitions) {
+            return;
+        }
+
+        // partitions within the compression lag are still to get new column versions
+        final int lag = hasCompressedColumns() ? columnCompressionPartitionLag : 1;
+        final int sealedPartitionCount = txWriter.getPartitionCount() - lag;
+        final PartitionStatsWriter writer = getPartitionStatsWriter();
+        for (int i = statsCandidatePartitions.size() - 1; i > -1; i--) {
+            final int partitionIndex = txWriter.getPartitionIndex(statsCandidatePartitions.getQuick(i));
+            if (partitionIndex < sealedPartitionCount) {
+                // partition could have been dropped, converted to parquet or moved to cold storage in the meantime
+                if (partitionIndex > -1 && !txWriter.isPartitionParquet(partitionIndex) && !txWriter.isPartitionCold(partitionIndex)) {
+                    writer.write(partitionIndex);
+                }
+                statsCandidatePartitions.removeIndex(i);
+            }
+        }
+    }
+
     @FunctionalInterface
     private interface FragileCode {
         void run(CharSequence columnName);
@@ -5358,6 +6170,18 @@ public class TableWriter implements Closeable {
         void putTimestamp(int columnIndex, CharSequence value);
     }
 
+    @FunctionalInterface
+    public interface CommitListener {
+        /**
+         * Called after rows have been committed to the table.
+         *
+         * @param tableName    name of the table
+         * @param minTimestamp lower bound of timestamps of the committed rows
+         * @param maxTimestamp max timestamp of the table after the commit
+         */
+        void onCommit(CharSequence tableName, long minTimestamp, long maxTimestamp);
+    }
+
     @FunctionalInterface
     public interface ExtensionListener {
         void onTableExtended(long timestamp);
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.metrics.Counter;
+import io.questdb.metrics.Histogram;
 import io.questdb.metrics.MetricsRegistry;
 import org.jetbrains.annotations.TestOnly;
 
@@ -39,12 +40,20 @@ public class TableWriterMetrics {
     // For write amplification metric, `physicallyWrittenRowCounter / committedRowCounter`.
     private final Counter physicallyWrittenRowCounter;
 
+    private final Histogram commitLatency;
+    private final Histogram o3MergeLatency;
+    // Time the oldest of the applied WAL transactions waited in the sequencer txn log.
+    private final Histogram walApplyWait;
+
     public TableWriterMetrics(MetricsRegistry metricsRegistry) {
         this.commitCounter = metricsRegistry.newCounter("commits");
         this.o3CommitCounter = metricsRegistry.newCounter("o3_commits");
         this.committedRowCounter = metricsRegistry.newCounter("committed_rows");
         this.rollbackCounter = metricsRegistry.newCounter("rollbacks");
         this.physicallyWrittenRowCounter = metricsRegistry.newCounter("physically_written_rows");
+        this.commitLatency = metricsRegistry.newHistogram("commit_latency");
+        this.o3MergeLatency = metricsRegistry.newHistogram("o3_merge_latency");
+        this.walApplyWait = metricsRegistry.newHistogram("wal_apply_wait");
     }
 
     public void addCommittedRows(long rows) {
@@ -55,6 +64,11 @@ public class TableWriterMetrics {
         physicallyWrittenRowCounter.add(rows);
     }
 
+    @TestOnly
+    public Histogram commitLatency() {
+        return commitLatency;
+    }
+
     @TestOnly
     public long committedRows() {
         return committedRowCounter.get();
@@ -72,8 +86,30 @@ public class TableWriterMetrics {
         rollbackCounter.inc();
     }
 
+    @TestOnly
+    public Histogram o3MergeLatency() {
+        return o3MergeLatency;
+    }
+
     @TestOnly
     public long physicallyWrittenRows() {
         return physicallyWrittenRowCounter.get();
     }
+
+    public void recordCommitLatency(long nanos) {
+        commitLatency.record(nanos);
+    }
+
+    public void recordO3MergeLatency(long nanos) {
+        o3MergeLatency.record(nanos);
+    }
+
+    public void recordWalApplyWait(long nanos) {
+        walApplyWait.record(nanos);
+    }
+
+    @TestOnly
+    public Histogram walApplyWait() {
+        return walApplyWait;
+    }
 }
@@ -39,6 +39,10 @@ public class TxReader implements Closeable, Mutable {
     protected static final int PARTITION_SIZE_OFFSET = 1;
     protected static final int PARTITION_NAME_TX_OFFSET = 2;
     protected static final int PARTITION_COLUMN_VERSION_OFFSET = 3;
+    // partition size slot carries partition flags in its high bits
+    protected static final long PARTITION_FLAG_PARQUET = 1L << 62;
+    protected static final long PARTITION_FLAG_COLD = 1L << 61;
+    protected static final long PARTITION_SIZE_MASK = (1L << 48) - 1;
     private static final long DEFAULT_PARTITION_TIMESTAMP = 0L;
     protected final LongList attachedPartitions = new LongList();
     private final IntList symbolCountSnapshot = new IntList();
@@ -48,6 +52,8 @@ public class TxReader implements Closeable, Mutable {
     protected long txn;
     protected int symbolColumnCount;
     protected long truncateVersion;
+    // last WAL sequencer txn applied to the table
+    protected long seqTxn;
     protected long dataVersion;
     protected long structureVersion;
     protected long fixedRowCount;
@@ -104,6 +110,7 @@ public class TxReader implements Closeable, Mutable {
         mem.putLong(baseOffset + TX_OFFSET_PARTITION_TABLE_VERSION_64, partitionTableVersion);
         mem.putLong(baseOffset + TX_OFFSET_COLUMN_VERSION_64, columnVersion);
         mem.putLong(baseOffset + TX_OFFSET_TRUNCATE_VERSION_64, truncateVersion);
+        mem.putLong(baseOffset + TX_OFFSET_SEQ_TXN_64, seqTxn);
         mem.putInt(baseOffset + TX_OFFSET_MAP_WRITER_COUNT_32, symbolColumnCount);
 
         int symbolMapCount = symbolCountSnapshot.size();
@@ -200,13 +207,13 @@ public class TxReader implements Closeable, Mutable {
     }
 
     public long getPartitionSizeByIndex(int index) {
-        return attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET);
+        return attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET) & PARTITION_SIZE_MASK;
     }
 
     public long getPartitionSizeByPartitionTimestamp(long ts) {
         final int index = findAttachedPartitionIndex(ts);
         if (index > -1) {
-            return attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET);
+            return attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET) & PARTITION_SIZE_MASK;
         }
         return -1;
     }
@@ -243,6 +250,10 @@ public class TxReader implements Closeable, Mutable {
         return transientRowCount;
     }
 
+    public long getSeqTxn() {
+        return seqTxn;
+    }
+
     public long getTruncateVersion() {
         return truncateVersion;
     }
@@ -261,6 +272,28 @@ public class TxReader implements Closeable, Mutable {
         this.partitionBy = partitionBy;
     }
 
+    /**
+     * Parquet partitions are sealed, their column data is stored in a single Parquet file
+     * instead of the column files.
+     *
+     * @param i partition index
+     * @return true when the partition has been converted to Parquet
+     */
+    public boolean isPartitionParquet(int i) {
+        return (attachedPartitions.getQuick(i * LONGS_PER_TX_ATTACHED_PARTITION + PARTITION_SIZE_OFFSET) & PARTITION_FLAG_PARQUET) != 0;
+    }
+
+    /**
+     * Cold partitions are sealed, their directory is on the cold storage volume, see
+     * {@link CairoConfiguration#getColdRoot()}, rather than in the table directory.
+     *
+     * @param i partition index
+     * @return true when the partition has been moved to cold storage
+     */
+    public boolean isPartitionCold(int i) {
+        return (attachedPartitions.getQuick(i * LONGS_PER_TX_ATTACHED_PARTITION + PARTITION_SIZE_OFFSET) & PARTITION_FLAG_COLD) != 0;
+    }
+
     public TxReader ofRO(@Transient Path path, int partitionBy) {
         clear();
         int tableRootLen = path.length();
@@ -294,6 +327,7 @@ public class TxReader implements Closeable, Mutable {
             final long prevColumnVersion = this.columnVersion;
             this.columnVersion = unsafeReadColumnVersion();
             this.truncateVersion = getLong(TableUtils.TX_OFFSET_TRUNCATE_VERSION_64);
+            this.seqTxn = getLong(TableUtils.TX_OFFSET_SEQ_TXN_64);
             this.symbolColumnCount = this.symbolsSize / 8;
 
             unsafeLoadSymbolCounts(symbolColumnCount);
@@ -168,6 +168,7 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
             putLong(TX_OFFSET_TXN_64, ++txn);
             putLong(TX_OFFSET_MAX_TIMESTAMP_64, maxTimestamp);
             putLong(TX_OFFSET_TRANSIENT_ROW_COUNT_64, transientRowCount);
+            putLong(TX_OFFSET_SEQ_TXN_64, seqTxn);
 
             // Store symbol counts. Unfortunately we cannot skip it in here
             storeSymbolCounts(symbolCountProviders);
@@ -299,6 +300,10 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
         }
     }
 
+    public void setSeqTxn(long seqTxn) {
+        this.seqTxn = seqTxn;
+    }
+
     public void switchPartitions(long timestamp) {
         recordStructureVersion++;
         fixedRowCount += transientRowCount;
@@ -332,6 +337,8 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
         writeAreaSize = calculateWriteSize();
         writeBaseOffset = calculateWriteOffset();
         resetTxn(txMemBase, writeBaseOffset, getSymbolColumnCount(), ++txn, ++dataVersion, ++partitionTableVersion, structureVersion, columnVersion, ++truncateVersion);
+        // truncate does not rewind WAL, applied sequencer txn carries over
+        putLong(TX_OFFSET_SEQ_TXN_64, seqTxn);
         finishABHeader(writeBaseOffset, symbolColumnCount * 8, 0, CommitMode.NOSYNC);
     }
 
@@ -398,6 +405,7 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
         putLong(TX_OFFSET_COLUMN_VERSION_64, columnVersion);
         putInt(TX_OFFSET_MAP_WRITER_COUNT_32, symbolColumnCount);
         putLong(TX_OFFSET_TRUNCATE_VERSION_64, truncateVersion);
+        putLong(TX_OFFSET_SEQ_TXN_64, seqTxn);
 
         // store symbol counts
         storeSymbolCounts(symbolCountProviders);
@@ -527,6 +535,10 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
         return getLong(TX_OFFSET_TRANSIENT_ROW_COUNT_64);
     }
 
+    long unsafeCommittedMaxTimestamp() {
+        return getLong(TX_OFFSET_MAX_TIMESTAMP_64);
+    }
+
     private void updateAttachedPartitionSizeByIndex(int partitionIndex, long partitionTimestampLo, long partitionSize, long partitionNameTxn) {
         if (partitionIndex > -1) {
             updatePartitionSizeByIndex(partitionIndex, partitionSize);
@@ -541,15 +553,33 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
     }
 
     private void updatePartitionSizeByIndex(int index, long partitionSize) {
-        if (attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET) != partitionSize) {
+        final long rawSize = attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET);
+        if ((rawSize & PARTITION_SIZE_MASK) != partitionSize) {
             recordStructureVersion++;
-            attachedPartitions.set(index + PARTITION_SIZE_OFFSET, partitionSize);
+            attachedPartitions.set(index + PARTITION_SIZE_OFFSET, (rawSize & ~PARTITION_SIZE_MASK) | partitionSize);
         }
     }
 
+    void updatePartitionParquetByIndex(int partitionIndex) {
+        final int index = partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION;
+        recordStructureVersion++;
+        attachedPartitions.set(index + PARTITION_SIZE_OFFSET, attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET) | PARTITION_FLAG_PARQUET);
+        attachedPartitions.set(index + PARTITION_NAME_TX_OFFSET, txn);
+        bumpPartitionTableVersion();
+    }
+
+    void updatePartitionColdByIndex(int partitionIndex, boolean cold) {
+        final int index = partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION;
+        final long rawSize = attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET);
+        recordStructureVersion++;
+        attachedPartitions.set(index + PARTITION_SIZE_OFFSET, cold ? rawSize | PARTITION_FLAG_COLD : rawSize & ~PARTITION_FLAG_COLD);
+        attachedPartitions.set(index + PARTITION_NAME_TX_OFFSET, txn);
+        bumpPartitionTableVersion();
+    }
+
     void updatePartitionSizeAndTxnByIndex(int index, long partitionSize) {
         recordStructureVersion++;
-        attachedPartitions.set(index + PARTITION_SIZE_OFFSET, partitionSize);
+        attachedPartitions.set(index + PARTITION_SIZE_OFFSET, (attachedPartitions.getQuick(index + PARTITION_SIZE_OFFSET) & ~PARTITION_SIZE_MASK) | partitionSize);
         attachedPartitions.set(index + PARTITION_NAME_TX_OFFSET, txn);
     }
 
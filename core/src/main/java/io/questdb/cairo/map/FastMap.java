@@ -33,6 +33,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
+import java.io.Closeable;
+
 public class FastMap implements Map {
 
     private static final HashFunction DEFAULT_HASH = Hash::hashMem;
@@ -51,6 +53,7 @@ public class FastMap implements Map {
     private final int maxResizes;
     private final int initialKeyCapacity;
     private final int initialPageSize;
+    private final int[] valueOffsets;
     private long capacity;
     // Offsets are shifted by +1 (0 -> 1, 1 -> 2, etc.), so that we fill the memory
     // with 0 instead of -1 when clearing/rehashing.
@@ -113,12 +116,11 @@ public class FastMap implements Map {
         this.nResizes = 0;
         this.maxResizes = maxResizes;
 
-        int[] valueOffsets;
         int offset = 4;
         if (valueTypes != null) {
             this.valueColumnCount = valueTypes.getColumnCount();
             final int columnSplit = valueColumnCount;
-            valueOffsets = new int[columnSplit];
+            final int[] valueOffsets = new int[columnSplit];
 
             for (int i = 0; i < columnSplit; i++) {
                 valueOffsets[i] = offset;
@@ -155,6 +157,7 @@ public class FastMap implements Map {
                         throw CairoException.instance(0).put("value type is not supported: ").put(ColumnType.nameOf(columnType));
                 }
             }
+            this.valueOffsets = valueOffsets;
             this.value = new FastMapValue(valueOffsets);
             this.value2 = new FastMapValue(valueOffsets);
             this.value3 = new FastMapValue(valueOffsets);
@@ -163,6 +166,7 @@ public class FastMap implements Map {
             this.record = new FastMapRecord(valueOffsets, columnSplit, keyDataOffset, keyBlockOffset, value, keyTypes);
         } else {
             this.valueColumnCount = 0;
+            this.valueOffsets = null;
             this.value = new FastMapValue(null);
             this.value2 = new FastMapValue(null);
             this.value3 = new FastMapValue(null);
@@ -211,11 +215,51 @@ public class FastMap implements Map {
         return valueOf(address, false, this.value);
     }
 
+    /**
+     * Creates a key that owns its buffer, so that several threads can look up this map
+     * at the same time, each via its own probe key. The map must not be modified while
+     * it is being probed. Probe keys don't support value creation and have to be closed
+     * by the caller.
+     *
+     * @return new probe key
+     */
+    public ProbeKey newProbeKey() {
+        return new ProbeKey();
+    }
+
     @Override
-    public MapKey withKey() {
+    public Key withKey() {
         return key.init();
     }
 
+    /**
+     * Merges all entries of the source map into this map. Both maps must have
+     * been created with the same key and value types. For keys that are not yet
+     * present in this map the whole entry, including the value block, is copied
+     * verbatim; the merge function is then called for every source entry with
+     * the destination value, so that the caller can tell new keys apart from the
+     * existing ones via {@link MapValue#isNew()}.
+     *
+     * @param srcMap    map to merge entries from
+     * @param mergeFunc callback to combine destination and source values
+     */
+    public void merge(FastMap srcMap, MergeFunction mergeFunc) {
+        assert keyDataOffset == srcMap.keyDataOffset;
+        assert valueColumnCount == srcMap.valueColumnCount;
+
+        long srcAddress = srcMap.kStart;
+        for (int i = 0, n = srcMap.size; i < n; i++) {
+            final int len = Unsafe.getUnsafe().getInt(srcAddress);
+            key.init();
+            key.checkSize(len - keyDataOffset);
+            // entry offsets are relative to the entry start, so the raw copy is a valid key
+            Vect.memcpy(key.startAddress, srcAddress, len);
+            key.appendAddress = key.startAddress + len;
+            mergeFunc.merge(key.createValue(value), srcMap.valueOf(srcAddress, false, srcMap.value));
+            srcAddress += len;
+        }
+    }
+
     public void restoreInitialCapacity() {
         this.kStart = kPos = Unsafe.realloc(this.kStart, this.kLimit - this.kStart, this.capacity = initialPageSize, MemoryTag.NATIVE_FAST_MAP);
         this.kLimit = kStart + this.initialPageSize;
@@ -226,6 +270,7 @@ public class FastMap implements Map {
         this.offsets.setCapacity(this.keyCapacity);
         this.offsets.setPos(this.keyCapacity);
         this.offsets.zero(0);
+        this.size = 0;
         this.nResizes = 0;
     }
 
@@ -233,6 +278,13 @@ public class FastMap implements Map {
         return kLimit - kStart;
     }
 
+    /**
+     * @return native memory held by the map: key-value area plus the offset table
+     */
+    public long getAllocatedSize() {
+        return capacity + (long) keyCapacity * Long.BYTES;
+    }
+
     public int getKeyCapacity() {
         return keyCapacity;
     }
@@ -337,8 +389,8 @@ public class FastMap implements Map {
         return valueColumnCount;
     }
 
-    private long keyIndex() {
-        return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset) & mask;
+    private long keyIndex(Key keyWriter) {
+        return hashFunction.hash(keyWriter.startAddress + keyDataOffset, keyWriter.len - keyDataOffset) & mask;
     }
 
     private FastMapValue probe0(Key keyWriter, long index, FastMapValue value) {
@@ -424,11 +476,16 @@ public class FastMap implements Map {
         long hash(long address, long len);
     }
 
+    @FunctionalInterface
+    public interface MergeFunction {
+        void merge(MapValue destValue, MapValue srcValue);
+    }
+
     public class Key implements MapKey {
-        private long startAddress;
-        private long appendAddress;
+        long startAddress;
+        long appendAddress;
+        long nextColOffset;
         private int len;
-        private long nextColOffset;
 
         @Override
         public MapValue createValue() {
@@ -465,6 +522,17 @@ public class FastMap implements Map {
             sink.copy(record, this);
         }
 
+        /**
+         * Returns full 64-bit hash of the key written so far. Map slots are picked by the low
+         * bits of the same hash, so callers partitioning keys should use the high bits.
+         *
+         * @return key hash
+         */
+        public long hash() {
+            commit();
+            return hashFunction.hash(startAddress + keyDataOffset, len - keyDataOffset);
+        }
+
         public Key init() {
             startAddress = kPos;
             appendAddress = kPos + keyDataOffset;
@@ -651,7 +719,7 @@ public class FastMap implements Map {
             writeOffset();
         }
 
-        private void checkSize(int size) {
+        void checkSize(int size) {
             if (appendAddress + size > kLimit) {
                 resize(size);
             }
@@ -665,7 +733,7 @@ public class FastMap implements Map {
             commit();
             // calculate hash remembering "key" structure
             // [ len | value block | key offset block | key data block ]
-            long index = keyIndex();
+            long index = keyIndex(this);
             long offset = getOffset(index);
 
             if (offset == -1) {
@@ -677,9 +745,9 @@ public class FastMap implements Map {
             }
         }
 
-        private MapValue findValue(FastMapValue value) {
+        MapValue findValue(FastMapValue value) {
             commit();
-            long index = keyIndex();
+            long index = keyIndex(this);
             long offset = getOffset(index);
 
             if (offset == -1) {
@@ -707,4 +775,77 @@ public class FastMap implements Map {
             nextColOffset += 4;
         }
     }
-}
\ No newline at end of file
+
+    public class ProbeKey extends Key implements Closeable {
+        private final FastMapValue probeValue = new FastMapValue(valueOffsets);
+        private long bufStart;
+        private long bufLimit;
+
+        private ProbeKey() {
+            final long size = Numbers.ceilPow2(keyDataOffset + 64);
+            bufStart = Unsafe.malloc(size, MemoryTag.NATIVE_FAST_MAP);
+            bufLimit = bufStart + size;
+        }
+
+        @Override
+        public void close() {
+            if (bufStart != 0) {
+                Unsafe.free(bufStart, bufLimit - bufStart, MemoryTag.NATIVE_FAST_MAP);
+                bufStart = bufLimit = 0;
+            }
+        }
+
+        @Override
+        public MapValue createValue() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue createValue2() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue createValue3() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue findValue() {
+            return findValue(probeValue);
+        }
+
+        @Override
+        public MapValue findValue2() {
+            return findValue(probeValue);
+        }
+
+        @Override
+        public MapValue findValue3() {
+            return findValue(probeValue);
+        }
+
+        @Override
+        public ProbeKey init() {
+            startAddress = bufStart;
+            appendAddress = bufStart + keyDataOffset;
+            nextColOffset = bufStart + keyBlockOffset;
+            return this;
+        }
+
+        @Override
+        void checkSize(int size) {
+            if (appendAddress + size > bufLimit) {
+                final long oldSize = bufLimit - bufStart;
+                final long newSize = Numbers.ceilPow2(appendAddress + size - bufStart);
+                final long address = Unsafe.realloc(bufStart, oldSize, newSize, MemoryTag.NATIVE_FAST_MAP);
+                final long d = address - bufStart;
+                startAddress += d;
+                appendAddress += d;
+                nextColOffset += d;
+                bufStart = address;
+                bufLimit = address + newSize;
+            }
+        }
+    }
+}
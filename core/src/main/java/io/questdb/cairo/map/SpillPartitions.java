@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.map;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spill area of a map that has outgrown its memory budget, see {@link CairoConfiguration#getSqlSpillThreshold()}.
+ * Values, typically row ids of records whose keys didn't make it into the map, are appended to one of
+ * the partitions picked by the high bits of the key hash, see {@link FastMap.Key#hash()}. All records
+ * with the same key end up in the same partition, so partitions can be processed one at a time with
+ * an empty map each.
+ * <p>
+ * Every partition is an append-only list of longs in a file under a per-instance directory of
+ * the spill root. Files are created lazily and removed when the partition is released or
+ * the instance is cleared.
+ */
+public class SpillPartitions implements Mutable, Closeable {
+    private static final Log LOG = LogFactory.getLog(SpillPartitions.class);
+    private static final AtomicLong DIR_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final int mkDirMode;
+    private final long pageSize;
+    private final long opts;
+    private final int partitionCount;
+    private final ObjList<MemoryCMARW> partitions = new ObjList<>();
+    private final Path path = new Path();
+    private int dirLen = -1;
+
+    public SpillPartitions(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getSqlSpillRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = ff.getMapPageSize();
+        this.opts = configuration.getWriterFileOpenOpts();
+        this.partitionCount = Numbers.ceilPow2(configuration.getSqlSpillPartitionCount());
+        partitions.setPos(partitionCount);
+    }
+
+    public void add(int partition, long value) {
+        MemoryCMARW mem = partitions.getQuick(partition);
+        if (mem == null) {
+            mem = openPartition(partition);
+        }
+        mem.putLong(value);
+    }
+
+    /**
+     * Appends a block of longs to the partition.
+     *
+     * @param partition partition index
+     * @param address   address of the first long
+     * @param count     number of longs to append
+     */
+    public void add(int partition, long address, long count) {
+        MemoryCMARW mem = partitions.getQuick(partition);
+        if (mem == null) {
+            mem = openPartition(partition);
+        }
+        mem.putBlockOfBytes(address, count << 3);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < partitionCount; i++) {
+            closePartition(i);
+        }
+        if (dirLen > 0) {
+            path.trimTo(dirLen).$();
+            if (ff.rmdir(path) != 0) {
+                LOG.error().$("could not remove spill directory [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            dirLen = -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(path);
+    }
+
+    public long get(int partition, long index) {
+        return partitions.getQuick(partition).getLong(index << 3);
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public boolean isEmpty() {
+        return dirLen == -1;
+    }
+
+    public int partitionOf(long hash) {
+        return (int) (hash >>> 32) & (partitionCount - 1);
+    }
+
+    /**
+     * Removes partition file, the partition is empty afterwards.
+     *
+     * @param partition partition index
+     */
+    public void release(int partition) {
+        closePartition(partition);
+    }
+
+    public long size(int partition) {
+        final MemoryCMARW mem = partitions.getQuick(partition);
+        return mem != null ? mem.getAppendOffset() >>> 3 : 0;
+    }
+
+    private void closePartition(int partition) {
+        final MemoryCMARW mem = partitions.getQuick(partition);
+        if (mem != null) {
+            mem.close(false);
+            partitions.setQuick(partition, null);
+            if (!ff.remove(partitionPath(partition))) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        }
+    }
+
+    private MemoryCMARW openPartition(int partition) {
+        if (dirLen == -1) {
+            path.of(root).concat("spill_").put(clock.getTicks()).put('_').put(DIR_ID.incrementAndGet()).slash$();
+            if (ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+            }
+            dirLen = path.length();
+        }
+        final MemoryCMARW mem = Vm.getCMARWInstance(ff, partitionPath(partition), pageSize, -1, MemoryTag.MMAP_DEFAULT, opts);
+        partitions.setQuick(partition, mem);
+        return mem;
+    }
+
+    private Path partitionPath(int partition) {
+        return path.trimTo(dirLen).put(partition).put(".d").$();
+    }
+}
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized view over a SAMPLE BY query of a single base table. The definition is persisted
+ * in the view table directory.
+ * <p>
+ * Besides the query the view is created with, the definition holds the refresh query. The refresh query
+ * is the same query over the base table rows with timestamps at or after the bind variable $1. Commits
+ * to the base table lower the pending refresh timestamp, the refresh job then replaces view rows from the
+ * start of the sample by bucket of that timestamp onwards.
+ */
+public class MatViewDefinition {
+    public static final String MAT_VIEW_FILE_NAME = "_mv";
+    private static final long NO_REFRESH = Long.MAX_VALUE;
+    private final String viewName;
+    private final String baseTableName;
+    private final String samplingInterval;
+    private final String query;
+    private final String refreshQuery;
+    private final TimestampSampler sampler;
+    private final AtomicLong refreshTimestamp = new AtomicLong(NO_REFRESH);
+    private final AtomicBoolean refreshLock = new AtomicBoolean();
+    private volatile boolean suspended;
+
+    private MatViewDefinition(
+            String viewName,
+            String baseTableName,
+            String samplingInterval,
+            String query,
+            String refreshQuery
+    ) throws SqlException {
+        this.viewName = viewName;
+        this.baseTableName = baseTableName;
+        this.samplingInterval = samplingInterval;
+        this.query = query;
+        this.refreshQuery = refreshQuery;
+        this.sampler = TimestampSamplerFactory.getInstance(samplingInterval, 0);
+        // views are aligned to calendar without offset
+        this.sampler.setStart(0);
+    }
+
+    /**
+     * Creates definition of a new view.
+     *
+     * @param baseTableLo       position of the base table name in the query
+     * @param baseTableHi       position in the query after the base table name
+     * @param baseTableAliased  true when the query has alias for the base table
+     * @param baseTimestampName designated timestamp column of the base table
+     */
+    public static MatViewDefinition newInstance(
+            CharSequence viewName,
+            CharSequence baseTableName,
+            CharSequence samplingInterval,
+            String query,
+            int baseTableLo,
+            int baseTableHi,
+            boolean baseTableAliased,
+            CharSequence baseTimestampName
+    ) throws SqlException {
+        final String baseTableToken = query.substring(baseTableLo, baseTableHi);
+        final StringBuilder refreshQuery = new StringBuilder(query.length() + 64);
+        refreshQuery.append(query, 0, baseTableLo)
+                .append('(').append(baseTableToken)
+                .append(" where \"").append(baseTimestampName).append("\" >= $1)");
+        if (!baseTableAliased) {
+            refreshQuery.append(' ').append(baseTableToken);
+        }
+        refreshQuery.append(query, baseTableHi, query.length());
+        return new MatViewDefinition(
+                Chars.toString(viewName),
+                Chars.toString(baseTableName),
+                Chars.toString(samplingInterval),
+                query,
+                refreshQuery.toString()
+        );
+    }
+
+    /**
+     * Reads definition from the view table directory.
+     *
+     * @param path path to the view table directory, it is left unchanged
+     */
+    public static MatViewDefinition read(FilesFacade ff, Path path, CharSequence viewName) {
+        final int len = path.length();
+        path.concat(MAT_VIEW_FILE_NAME).$();
+        try (MemoryMR mem = Vm.getMRInstance(ff, path, ff.length(path), MemoryTag.MMAP_DEFAULT)) {
+            long offset = 0;
+            final String baseTableName = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(baseTableName);
+            final String samplingInterval = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(samplingInterval);
+            final String query = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(query);
+            final String refreshQuery = Chars.toString(mem.getStr(offset));
+            return new MatViewDefinition(Chars.toString(viewName), baseTableName, samplingInterval, query, refreshQuery);
+        } catch (SqlException e) {
+            throw CairoException.instance(0).put("invalid materialized view definition [path=").put(path)
+                    .put(", error=").put(e.getFlyweightMessage()).put(']');
+        } finally {
+            path.trimTo(len);
+        }
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getRefreshQuery() {
+        return refreshQuery;
+    }
+
+    public String getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public String getViewName() {
+        return viewName;
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Called on commit to the base table.
+     *
+     * @param minTimestamp lower bound of timestamps of the committed rows
+     */
+    public void notifyBaseTableCommit(long minTimestamp) {
+        long current;
+        do {
+            current = refreshTimestamp.get();
+        } while (minTimestamp < current && !refreshTimestamp.compareAndSet(current, minTimestamp));
+    }
+
+    public boolean isRefreshPending() {
+        return refreshTimestamp.get() != NO_REFRESH && !suspended;
+    }
+
+    /**
+     * Returns timestamp the view has to be refreshed from and clears the pending refresh.
+     * The returned timestamp is aligned to the start of its sample by bucket.
+     *
+     * @return timestamp to refresh the view from or Long.MAX_VALUE when there is nothing to refresh
+     */
+    public long takeRefreshTimestamp() {
+        final long timestamp = refreshTimestamp.getAndSet(NO_REFRESH);
+        if (timestamp == NO_REFRESH || timestamp == Long.MIN_VALUE) {
+            return timestamp;
+        }
+        return sampler.round(timestamp);
+    }
+
+    /**
+     * Creates copy of the definition for the renamed view. The pending refresh is carried over.
+     */
+    public MatViewDefinition rename(CharSequence newViewName) {
+        try {
+            final MatViewDefinition that = new MatViewDefinition(Chars.toString(newViewName), baseTableName, samplingInterval, query, refreshQuery);
+            that.notifyBaseTableCommit(refreshTimestamp.get());
+            that.suspended = suspended;
+            return that;
+        } catch (SqlException e) {
+            // the sampling interval has been validated already
+            throw CairoException.instance(0).put(e.getFlyweightMessage());
+        }
+    }
+
+    public void setSuspended() {
+        suspended = true;
+    }
+
+    public boolean tryLockRefresh() {
+        return refreshLock.compareAndSet(false, true);
+    }
+
+    public void unlockRefresh() {
+        refreshLock.set(false);
+    }
+
+    /**
+     * Writes definition to the view table directory.
+     *
+     * @param path path to the view table directory, it is left unchanged
+     */
+    public void write(FilesFacade ff, Path path, long opts) {
+        final int len = path.length();
+        try (MemoryMA mem = Vm.getSmallMAInstance(ff, path.concat(MAT_VIEW_FILE_NAME).$(), MemoryTag.MMAP_DEFAULT, opts)) {
+            mem.putStr(baseTableName);
+            mem.putStr(samplingInterval);
+            mem.putStr(query);
+            mem.putStr(refreshQuery);
+        } finally {
+            path.trimTo(len);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Refreshes materialized views after commits to their base tables. View rows from the start
+ * of the sample by bucket of the earliest committed row onwards are removed and recalculated
+ * by the refresh query of the view.
+ * <p>
+ * The job is meant to be instantiated per worker. Different views are refreshed
+ * concurrently, each view is refreshed by one worker at a time.
+ */
+public class MatViewRefreshJob implements Job, Closeable {
+    public static final String MAT_VIEW_REFRESH_LOCK_REASON = "matViewRefresh";
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private final CairoEngine engine;
+    private final ObjList<MatViewDefinition> views = new ObjList<>();
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl sqlExecutionContext;
+
+    public MatViewRefreshJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.compiler = new SqlCompiler(engine, functionFactoryCache, null);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+        Misc.free(sqlExecutionContext);
+    }
+
+    @Override
+    public boolean run(int workerId) {
+        final MatViewRegistry registry = engine.getMatViewRegistry();
+        if (registry.getViewCount() == 0) {
+            return false;
+        }
+        boolean useful = false;
+        registry.copyTo(views);
+        for (int i = 0, n = views.size(); i < n; i++) {
+            final MatViewDefinition view = views.getQuick(i);
+            if (view.isRefreshPending() && view.tryLockRefresh()) {
+                try {
+                    useful |= refresh(view);
+                } finally {
+                    view.unlockRefresh();
+                }
+            }
+        }
+        views.clear();
+        return useful;
+    }
+
+    private static boolean isCompatible(RecordMetadata queryMetadata, RecordMetadata writerMetadata) {
+        final int columnCount = writerMetadata.getColumnCount();
+        if (queryMetadata.getColumnCount() != columnCount) {
+            return false;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (queryMetadata.getColumnType(i) != writerMetadata.getColumnType(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long copyRows(RecordCursorFactory factory, TableWriter writer) throws SqlException {
+        final RecordMetadata writerMetadata = writer.getMetadata();
+        final int timestampIndex = writerMetadata.getTimestampIndex();
+        entityColumnFilter.of(writerMetadata.getColumnCount());
+        final SqlCompiler.RecordToRowCopier copier = SqlCompiler.assembleRecordToRowCopier(asm, factory.getMetadata(), writerMetadata, entityColumnFilter);
+        long rowCount = 0;
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            final Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                final TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+                copier.copy(record, row);
+                row.append();
+                rowCount++;
+            }
+        }
+        return rowCount;
+    }
+
+    private boolean refresh(MatViewDefinition view) {
+        final long refreshTimestamp = view.takeRefreshTimestamp();
+        if (refreshTimestamp == Long.MAX_VALUE) {
+            return false;
+        }
+        final String viewName = view.getViewName();
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, viewName, MAT_VIEW_REFRESH_LOCK_REASON);
+        } catch (EntryUnavailableException e) {
+            // view is busy, try again later
+            view.notifyBaseTableCommit(refreshTimestamp);
+            return false;
+        } catch (CairoException e) {
+            LOG.critical().$("could not open writer, materialized view is suspended [view=").utf8(viewName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            view.setSuspended();
+            return false;
+        }
+
+        try {
+            // rows of the view are replaced in place, this is only safe when no reader
+            // can see the rows being replaced
+            if (!writer.removeRowsFrom(refreshTimestamp)) {
+                view.notifyBaseTableCommit(refreshTimestamp);
+                return false;
+            }
+            if (writer.checkScoreboardHasReadersBeforeLastCommittedTxn()) {
+                // reader opened before rows were removed, append once it is gone
+                view.notifyBaseTableCommit(refreshTimestamp);
+                return true;
+            }
+
+            sqlExecutionContext.getBindVariableService().clear();
+            // null timestamp does not compare, min timestamp means refresh of the whole view
+            sqlExecutionContext.getBindVariableService().setTimestamp(
+                    0,
+                    refreshTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE + 1 : refreshTimestamp
+            );
+            try (RecordCursorFactory factory = compiler.compile(view.getRefreshQuery(), sqlExecutionContext).getRecordCursorFactory()) {
+                if (!isCompatible(factory.getMetadata(), writer.getMetadata())) {
+                    LOG.critical().$("materialized view query does not match view table anymore, materialized view is suspended [view=").utf8(viewName)
+                            .$(", baseTable=").utf8(view.getBaseTableName())
+                            .I$();
+                    view.setSuspended();
+                    return false;
+                }
+                final long rowCount = copyRows(factory, writer);
+                writer.commit();
+                LOG.info().$("refreshed materialized view [view=").utf8(viewName)
+                        .$(", from=").$ts(refreshTimestamp)
+                        .$(", rows=").$(rowCount)
+                        .I$();
+            }
+            return true;
+        } catch (SqlException e) {
+            LOG.critical().$("could not refresh, materialized view is suspended [view=").utf8(viewName)
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            writer.rollback();
+            view.setSuspended();
+            return false;
+        } catch (CairoException e) {
+            LOG.error().$("could not refresh materialized view, will retry [view=").utf8(viewName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            writer.rollback();
+            view.notifyBaseTableCommit(refreshTimestamp);
+            return false;
+        } finally {
+            writer.close();
+        }
+    }
+}
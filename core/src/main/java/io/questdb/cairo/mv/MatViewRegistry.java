@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Keeps materialized view definitions and tracks commits to their base tables. The registry
+ * is set as commit listener of the pooled table writers.
+ */
+public class MatViewRegistry implements TableWriter.CommitListener, Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRegistry.class);
+    private static final ObjList<MatViewDefinition> NO_VIEWS = new ObjList<>();
+    private final CairoConfiguration configuration;
+    private final CharSequenceObjHashMap<MatViewDefinition> views = new CharSequenceObjHashMap<>();
+    // views by base table name, lists are copied on change and never modified once published
+    private final CharSequenceObjHashMap<ObjList<MatViewDefinition>> viewsByBaseTable = new CharSequenceObjHashMap<>();
+    private final StringSink nameSink = new StringSink();
+    private volatile int viewCount;
+
+    public MatViewRegistry(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public synchronized void close() {
+        views.clear();
+        viewsByBaseTable.clear();
+        viewCount = 0;
+    }
+
+    /**
+     * Copies views registered at the moment to the sink, the sink is cleared beforehand.
+     */
+    public synchronized void copyTo(ObjList<MatViewDefinition> sink) {
+        sink.clear();
+        final ObjList<CharSequence> keys = views.keys();
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            sink.add(views.get(keys.getQuick(i)));
+        }
+    }
+
+    public synchronized MatViewDefinition getView(CharSequence viewName) {
+        return views.get(viewName);
+    }
+
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    @Override
+    public void onCommit(CharSequence tableName, long minTimestamp, long maxTimestamp) {
+        if (viewCount == 0) {
+            return;
+        }
+        final ObjList<MatViewDefinition> list;
+        synchronized (this) {
+            list = viewsByBaseTable.get(tableName);
+        }
+        if (list != null) {
+            for (int i = 0, n = list.size(); i < n; i++) {
+                list.getQuick(i).notifyBaseTableCommit(minTimestamp);
+            }
+        }
+    }
+
+    /**
+     * Table has been removed or is about to be removed. Removed view is unregistered, views
+     * of removed base table are suspended.
+     */
+    public void onTableRemoved(CharSequence tableName) {
+        if (viewCount == 0) {
+            return;
+        }
+        unregister(tableName);
+        suspendViewsOf(tableName);
+    }
+
+    /**
+     * Renamed view is registered under the new name. Views of renamed base table are suspended,
+     * their queries refer to the old name.
+     */
+    public synchronized void onTableRenamed(CharSequence tableName, CharSequence newName) {
+        if (viewCount == 0) {
+            return;
+        }
+        final MatViewDefinition view = views.get(tableName);
+        if (view != null) {
+            unregister(tableName);
+            register(view.rename(newName));
+        }
+        suspendViewsOf(tableName);
+    }
+
+    /**
+     * Registers views found in the database root directory. The views are marked for refresh from
+     * their max timestamp to pick up rows appended to base tables while the database was down.
+     */
+    public void openExisting(CairoEngine engine) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).$();
+            final int rootLen = path.length();
+            ff.iterateDir(path, (pUtf8NameZ, type) -> {
+                if (Files.isDir(pUtf8NameZ, type, nameSink)) {
+                    path.trimTo(rootLen).concat(nameSink).concat(MatViewDefinition.MAT_VIEW_FILE_NAME).$();
+                    if (ff.exists(path)) {
+                        openView(engine, ff, path.trimTo(rootLen).concat(nameSink), nameSink);
+                    }
+                }
+            });
+        }
+        LOG.info().$("opened materialized views [count=").$(viewCount).I$();
+    }
+
+    public synchronized void register(MatViewDefinition view) {
+        final int index = views.keyIndex(view.getViewName());
+        if (index < 0) {
+            throw CairoException.instance(0).put("materialized view already exists [view=").put(view.getViewName()).put(']');
+        }
+        views.putAt(index, view.getViewName(), view);
+
+        final ObjList<MatViewDefinition> current = viewsByBaseTable.get(view.getBaseTableName());
+        final ObjList<MatViewDefinition> list = new ObjList<>();
+        if (current != null) {
+            list.addAll(current);
+        }
+        list.add(view);
+        viewsByBaseTable.put(view.getBaseTableName(), list);
+        viewCount = views.size();
+    }
+
+    public synchronized void unregister(CharSequence viewName) {
+        final int index = views.keyIndex(viewName);
+        if (index > -1) {
+            return;
+        }
+        final MatViewDefinition view = views.valueAt(index);
+        views.removeAt(index);
+
+        final ObjList<MatViewDefinition> current = viewsByBaseTable.get(view.getBaseTableName());
+        final ObjList<MatViewDefinition> list = new ObjList<>();
+        for (int i = 0, n = current.size(); i < n; i++) {
+            if (current.getQuick(i) != view) {
+                list.add(current.getQuick(i));
+            }
+        }
+        if (list.size() > 0) {
+            viewsByBaseTable.put(view.getBaseTableName(), list);
+        } else {
+            viewsByBaseTable.remove(view.getBaseTableName());
+        }
+        viewCount = views.size();
+    }
+
+    private void openView(CairoEngine engine, FilesFacade ff, Path path, CharSequence viewName) {
+        try {
+            final MatViewDefinition view = MatViewDefinition.read(ff, path, viewName);
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, viewName)) {
+                view.notifyBaseTableCommit(reader.getMaxTimestamp());
+            }
+            register(view);
+        } catch (CairoException e) {
+            LOG.critical().$("could not open materialized view [view=").utf8(viewName)
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+        }
+    }
+
+    private synchronized void suspendViewsOf(CharSequence baseTableName) {
+        final ObjList<MatViewDefinition> list = viewsByBaseTable.get(baseTableName);
+        if (list != null) {
+            for (int i = 0, n = list.size(); i < n; i++) {
+                final MatViewDefinition view = list.getQuick(i);
+                view.setSuspended();
+                LOG.critical().$("materialized view suspended, base table is gone [view=").utf8(view.getViewName())
+                        .$(", baseTable=").utf8(baseTableName)
+                        .I$();
+            }
+        }
+    }
+}
@@ -0,0 +1,764 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.parquet.ParquetEncoder.*;
+
+/**
+ * Decodes columns of Parquet files written by {@link ParquetEncoder} back to the column file format.
+ * Fixed-size columns are decoded into a plain column image, variable-length columns into data and
+ * index images. Columns are located by Parquet field id, which is the writer index of the column.
+ */
+public class ParquetDecoder implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ParquetDecoder.class);
+    private static final int CHUNK_DATA_PAGE_OFFSET = 0;
+    private static final int CHUNK_CODEC = 1;
+    private static final int CHUNK_HAS_MIN = 2;
+    private static final int CHUNK_MIN = 3;
+    private static final int CHUNK_SLOT_SIZE = 4;
+    private static final int GZIP_FLAG_HCRC = 2;
+    private static final int GZIP_FLAG_EXTRA = 4;
+    private static final int GZIP_FLAG_NAME = 8;
+    private static final int GZIP_FLAG_COMMENT = 16;
+    private static final long PAGE_SIZE = 1024 * 1024;
+    private final ThriftCompactReader thrift = new ThriftCompactReader();
+    private final MemoryCARW page = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_READER);
+    private final MemoryCARW levels = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_READER);
+    private final MemoryCARW indexes = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_READER);
+    private final StringSink sink = new StringSink();
+    private final IntList physicalTypes = new IntList();
+    private final IntList typeLengths = new IntList();
+    private final IntList repetitions = new IntList();
+    private final IntList fieldIds = new IntList();
+    private final LongList rowGroupSizes = new LongList();
+    private final LongList chunks = new LongList();
+    private FilesFacade ff;
+    private long fd = -1;
+    private long fileAddress;
+    private long fileSize;
+    private boolean mapped;
+    private long rowCount;
+    private long z_streamp;
+    private long pageLo;
+    private long pageHi;
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(page);
+        Misc.free(levels);
+        Misc.free(indexes);
+        if (z_streamp != 0) {
+            Zip.inflateEnd(z_streamp);
+            z_streamp = 0;
+        }
+    }
+
+    /**
+     * Decodes fixed-size column values.
+     *
+     * @param columnIndex    index of the column in the file
+     * @param columnType     column type the values are decoded to
+     * @param rowLo          first row to decode, rows before the column top are skipped
+     * @param dstAddress     address of the memory for (rowCount - rowLo) values
+     */
+    public void decodeFixedColumn(int columnIndex, int columnType, long rowLo, long dstAddress) {
+        checkColumnType(columnIndex, columnType);
+        final int tag = ColumnType.tagOf(columnType);
+        final int size = ColumnType.sizeOf(columnType);
+        final boolean optional = isOptional(columnType);
+        long rowGroupLo = 0;
+        for (int g = 0, n = rowGroupSizes.size(); g < n; g++) {
+            final long groupRowCount = rowGroupSizes.getQuick(g);
+            if (rowGroupLo + groupRowCount <= rowLo) {
+                rowGroupLo += groupRowCount;
+                continue;
+            }
+            long p = openDataPage(g, columnIndex, optional, groupRowCount);
+            final long levelsAddress = levels.getAddress();
+            final long valueSize = tag == ColumnType.BOOLEAN || tag == ColumnType.SYMBOL ? 0 : (isPlainInt32(tag) ? Integer.BYTES : size);
+            final long definedCount = optional ? countDefined(levelsAddress, groupRowCount) : groupRowCount;
+            if (tag == ColumnType.BOOLEAN) {
+                checkBounds(p, (groupRowCount + 7) >>> 3);
+            } else if (tag == ColumnType.SYMBOL) {
+                checkBounds(p, 1);
+                final int bitWidth = Unsafe.getUnsafe().getByte(p);
+                if (bitWidth < 0 || bitWidth > 32) {
+                    throw corrupt();
+                }
+                decodeRle(p + 1, pageHi, bitWidth, definedCount, indexes);
+            } else {
+                checkBounds(p, definedCount * valueSize);
+            }
+
+            final long indexesAddress = indexes.getAddress();
+            long valueIndex = 0;
+            for (long k = 0; k < groupRowCount; k++) {
+                final long row = rowGroupLo + k;
+                final boolean defined = !optional || Unsafe.getUnsafe().getInt(levelsAddress + (k << 2)) == 1;
+                if (row < rowLo) {
+                    if (defined) {
+                        p += valueSize;
+                        valueIndex++;
+                    }
+                    continue;
+                }
+                final long dst = dstAddress + (row - rowLo) * size;
+                switch (tag) {
+                    case ColumnType.BOOLEAN:
+                        Unsafe.getUnsafe().putByte(dst, (byte) ((Unsafe.getUnsafe().getByte(p + (k >>> 3)) >>> (k & 7)) & 1));
+                        break;
+                    case ColumnType.BYTE:
+                        Unsafe.getUnsafe().putByte(dst, (byte) Unsafe.getUnsafe().getInt(p));
+                        break;
+                    case ColumnType.SHORT:
+                        Unsafe.getUnsafe().putShort(dst, (short) Unsafe.getUnsafe().getInt(p));
+                        break;
+                    case ColumnType.CHAR:
+                        Unsafe.getUnsafe().putChar(dst, (char) Unsafe.getUnsafe().getInt(p));
+                        break;
+                    case ColumnType.INT:
+                        Unsafe.getUnsafe().putInt(dst, defined ? Unsafe.getUnsafe().getInt(p) : Numbers.INT_NaN);
+                        break;
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        Unsafe.getUnsafe().putLong(dst, defined ? Unsafe.getUnsafe().getLong(p) : Numbers.LONG_NaN);
+                        break;
+                    case ColumnType.FLOAT:
+                        Unsafe.getUnsafe().putFloat(dst, defined ? Unsafe.getUnsafe().getFloat(p) : Float.NaN);
+                        break;
+                    case ColumnType.DOUBLE:
+                        Unsafe.getUnsafe().putDouble(dst, defined ? Unsafe.getUnsafe().getDouble(p) : Double.NaN);
+                        break;
+                    case ColumnType.SYMBOL:
+                        // dictionary holds the whole symbol table, dictionary index is the symbol key
+                        Unsafe.getUnsafe().putInt(dst, defined ? Unsafe.getUnsafe().getInt(indexesAddress + (valueIndex << 2)) : SymbolTable.VALUE_IS_NULL);
+                        break;
+                    default:
+                        Vect.memcpy(dst, p, size);
+                        break;
+                }
+                if (defined) {
+                    p += valueSize;
+                    valueIndex++;
+                }
+            }
+            rowGroupLo += groupRowCount;
+        }
+    }
+
+    /**
+     * Decodes variable-length column values, STRING or BINARY. For every row the index memory
+     * receives offset of the value in the data memory, followed by the offset past the last value.
+     *
+     * @param columnIndex index of the column in the file
+     * @param columnType  column type the values are decoded to
+     * @param rowLo       first row to decode, rows before the column top are skipped
+     * @param dataMem     memory to append values to
+     * @param auxMem      memory to append value offsets to
+     */
+    public void decodeVarColumn(int columnIndex, int columnType, long rowLo, MemoryA dataMem, MemoryA auxMem) {
+        checkColumnType(columnIndex, columnType);
+        final boolean string = ColumnType.isString(columnType);
+        long rowGroupLo = 0;
+        for (int g = 0, n = rowGroupSizes.size(); g < n; g++) {
+            final long groupRowCount = rowGroupSizes.getQuick(g);
+            if (rowGroupLo + groupRowCount <= rowLo) {
+                rowGroupLo += groupRowCount;
+                continue;
+            }
+            long p = openDataPage(g, columnIndex, true, groupRowCount);
+            final long levelsAddress = levels.getAddress();
+            for (long k = 0; k < groupRowCount; k++) {
+                final long row = rowGroupLo + k;
+                final boolean defined = Unsafe.getUnsafe().getInt(levelsAddress + (k << 2)) == 1;
+                long len = 0;
+                if (defined) {
+                    checkBounds(p, Integer.BYTES);
+                    len = Unsafe.getUnsafe().getInt(p) & 0xffffffffL;
+                    checkBounds(p + Integer.BYTES, len);
+                }
+                if (row >= rowLo) {
+                    auxMem.putLong(dataMem.getAppendOffset());
+                    if (!defined) {
+                        if (string) {
+                            dataMem.putNullStr();
+                        } else {
+                            dataMem.putNullBin();
+                        }
+                    } else if (string) {
+                        sink.clear();
+                        if (!Chars.utf8Decode(p + Integer.BYTES, p + Integer.BYTES + len, sink)) {
+                            throw corrupt();
+                        }
+                        dataMem.putStr(sink);
+                    } else {
+                        dataMem.putLong(len);
+                        dataMem.putBlockOfBytes(p + Integer.BYTES, len);
+                    }
+                }
+                if (defined) {
+                    p += Integer.BYTES + len;
+                }
+            }
+            rowGroupLo += groupRowCount;
+        }
+        auxMem.putLong(dataMem.getAppendOffset());
+    }
+
+    public int getColumnCount() {
+        return physicalTypes.size();
+    }
+
+    /**
+     * @param fieldId Parquet field id, the writer index of the column
+     * @return index of the column in the file or -1 when file has no such column
+     */
+    public int getColumnIndex(int fieldId) {
+        for (int i = 0, n = fieldIds.size(); i < n; i++) {
+            if (fieldIds.getQuick(i) == fieldId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Minimum value of INT64 column in the first row group, taken from column chunk statistics. For
+     * designated timestamp column this is the minimum timestamp of the file.
+     *
+     * @param columnIndex index of the column in the file
+     * @return minimum value or LONG_NaN when file has no statistics
+     */
+    public long getFirstRowGroupMin(int columnIndex) {
+        if (rowGroupSizes.size() == 0 || physicalTypes.getQuick(columnIndex) != TYPE_INT64) {
+            return Numbers.LONG_NaN;
+        }
+        final int chunk = columnIndex * CHUNK_SLOT_SIZE;
+        return chunks.getQuick(chunk + CHUNK_HAS_MIN) == 1 ? chunks.getQuick(chunk + CHUNK_MIN) : Numbers.LONG_NaN;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public ParquetDecoder of(FilesFacade ff, LPSZ path) {
+        clear();
+        this.ff = ff;
+        fd = TableUtils.openRO(ff, path, LOG);
+        try {
+            fileSize = ff.length(fd);
+            if (fileSize < 3 * Integer.BYTES) {
+                throw CairoException.instance(0).put("parquet file is too short [file=").put(path).put(", size=").put(fileSize).put(']');
+            }
+            fileAddress = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_TABLE_READER);
+            mapped = true;
+            readFileMetaData();
+        } catch (Throwable e) {
+            clear();
+            throw e;
+        }
+        return this;
+    }
+
+    /**
+     * Opens Parquet file image in memory. The memory must stay valid while the decoder is in use.
+     */
+    public ParquetDecoder of(long address, long size) {
+        clear();
+        if (size < 3 * Integer.BYTES) {
+            throw corrupt();
+        }
+        fileAddress = address;
+        fileSize = size;
+        readFileMetaData();
+        return this;
+    }
+
+    private static CairoException corrupt() {
+        return CairoException.instance(0).put("corrupt parquet file");
+    }
+
+    private static long countDefined(long levelsAddress, long count) {
+        long defined = 0;
+        for (long k = 0; k < count; k++) {
+            defined += Unsafe.getUnsafe().getInt(levelsAddress + (k << 2));
+        }
+        return defined;
+    }
+
+    private static void expectType(int type, int expected) {
+        if (type != expected) {
+            throw corrupt();
+        }
+    }
+
+    private static boolean isPlainInt32(int tag) {
+        return tag == ColumnType.BYTE || tag == ColumnType.SHORT || tag == ColumnType.CHAR;
+    }
+
+    private void checkBounds(long p, long len) {
+        if (len < 0 || p + len > pageHi) {
+            throw corrupt();
+        }
+    }
+
+    private void checkColumnType(int columnIndex, int columnType) {
+        final int physicalType = physicalTypeOf(columnType);
+        if (physicalTypes.getQuick(columnIndex) != physicalType
+                || repetitions.getQuick(columnIndex) != (isOptional(columnType) ? REPETITION_OPTIONAL : REPETITION_REQUIRED)
+                || (physicalType == TYPE_FIXED_LEN_BYTE_ARRAY && typeLengths.getQuick(columnIndex) != ColumnType.sizeOf(columnType))) {
+            throw CairoException.instance(0).put("parquet column type mismatch [fieldId=").put(fieldIds.getQuick(columnIndex))
+                    .put(", type=").put(ColumnType.nameOf(columnType))
+                    .put(']');
+        }
+    }
+
+    /**
+     * Releases the file, scratch memory is kept for the next file.
+     */
+    @Override
+    public void clear() {
+        if (mapped) {
+            ff.munmap(fileAddress, fileSize, MemoryTag.MMAP_TABLE_READER);
+            mapped = false;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+        fileAddress = 0;
+        fileSize = 0;
+        rowCount = 0;
+        physicalTypes.clear();
+        typeLengths.clear();
+        repetitions.clear();
+        fieldIds.clear();
+        rowGroupSizes.clear();
+        chunks.clear();
+    }
+
+    /**
+     * Decodes RLE/bit-packing hybrid encoded values into the memory as ints.
+     */
+    private void decodeRle(long p, long hi, int bitWidth, long count, MemoryCARW dst) {
+        dst.jumpTo(0);
+        final int byteWidth = (bitWidth + 7) >>> 3;
+        final long mask = bitWidth == 32 ? 0xffffffffL : (1L << bitWidth) - 1;
+        long n = 0;
+        while (n < count) {
+            long header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (p >= hi || shift > 35) {
+                    throw corrupt();
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                header |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            if ((header & 1) == 0) {
+                final long run = header >>> 1;
+                if (run == 0 || p + byteWidth > hi) {
+                    throw corrupt();
+                }
+                int value = 0;
+                for (int i = 0; i < byteWidth; i++) {
+                    value |= (Unsafe.getUnsafe().getByte(p++) & 0xff) << (i << 3);
+                }
+                for (long i = 0, m = Math.min(run, count - n); i < m; i++) {
+                    dst.putInt(value);
+                }
+                n += run;
+            } else {
+                final long valueCount = (header >>> 1) * 8;
+                if (valueCount == 0 || p + (valueCount * bitWidth >>> 3) > hi) {
+                    throw corrupt();
+                }
+                long bits = 0;
+                int bitCount = 0;
+                for (long i = 0; i < valueCount; i++) {
+                    while (bitCount < bitWidth) {
+                        bits |= (Unsafe.getUnsafe().getByte(p++) & 0xffL) << bitCount;
+                        bitCount += 8;
+                    }
+                    if (n < count) {
+                        dst.putInt((int) (bits & mask));
+                        n++;
+                    }
+                    bits >>>= bitWidth;
+                    bitCount -= bitWidth;
+                }
+            }
+        }
+    }
+
+    private void inflate(long srcAddress, long srcSize, int uncompressedSize) {
+        page.jumpTo(0);
+        final long dst = page.appendAddressFor(uncompressedSize);
+        pageLo = dst;
+        pageHi = dst + uncompressedSize;
+        if (uncompressedSize == 0) {
+            return;
+        }
+        // skip gzip header, deflate stream is followed by 8-byte trailer
+        if (srcSize < Zip.gzipHeaderLen + 2 * Integer.BYTES
+                || (Unsafe.getUnsafe().getByte(srcAddress) & 0xff) != 0x1f
+                || (Unsafe.getUnsafe().getByte(srcAddress + 1) & 0xff) != 0x8b) {
+            throw corrupt();
+        }
+        final int flags = Unsafe.getUnsafe().getByte(srcAddress + 3);
+        final long hi = srcAddress + srcSize - 2 * Integer.BYTES;
+        long p = srcAddress + Zip.gzipHeaderLen;
+        if ((flags & GZIP_FLAG_EXTRA) != 0) {
+            if (p + 2 > hi) {
+                throw corrupt();
+            }
+            p += 2 + (Unsafe.getUnsafe().getShort(p) & 0xffff);
+        }
+        if ((flags & GZIP_FLAG_NAME) != 0) {
+            while (p < hi && Unsafe.getUnsafe().getByte(p++) != 0) ;
+        }
+        if ((flags & GZIP_FLAG_COMMENT) != 0) {
+            while (p < hi && Unsafe.getUnsafe().getByte(p++) != 0) ;
+        }
+        if ((flags & GZIP_FLAG_HCRC) != 0) {
+            p += 2;
+        }
+        if (p > hi) {
+            throw corrupt();
+        }
+
+        if (z_streamp == 0) {
+            z_streamp = Zip.inflateInit(true);
+            if (z_streamp < 0) {
+                z_streamp = 0;
+                throw CairoException.instance(0).put("could not initialize inflate stream");
+            }
+        } else {
+            Zip.inflateReset(z_streamp);
+        }
+        Zip.setInput(z_streamp, p, (int) (hi - p));
+        final int ret = Zip.inflate(z_streamp, dst, uncompressedSize, true);
+        if (ret != uncompressedSize) {
+            throw CairoException.instance(0).put("could not inflate parquet page [ret=").put(ret).put(']');
+        }
+    }
+
+    /**
+     * Reads data page of the column chunk, decompresses it and decodes definition levels.
+     *
+     * @return address of page values
+     */
+    private long openDataPage(int rowGroup, int columnIndex, boolean optional, long groupRowCount) {
+        final int chunk = (rowGroup * physicalTypes.size() + columnIndex) * CHUNK_SLOT_SIZE;
+        final long offset = chunks.getQuick(chunk + CHUNK_DATA_PAGE_OFFSET);
+        final long fileHi = fileAddress + fileSize;
+        if (offset < Integer.BYTES || offset >= fileSize) {
+            throw corrupt();
+        }
+
+        thrift.of(fileAddress + offset, fileHi);
+        int pageType = -1;
+        int uncompressedSize = -1;
+        int compressedSize = -1;
+        int valueCount = -1;
+        int encoding = -1;
+        int type;
+        thrift.readStructBegin();
+        while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    expectType(type, ThriftCompactWriter.TYPE_I32);
+                    pageType = thrift.readI32();
+                    break;
+                case 2:
+                    expectType(type, ThriftCompactWriter.TYPE_I32);
+                    uncompressedSize = thrift.readI32();
+                    break;
+                case 3:
+                    expectType(type, ThriftCompactWriter.TYPE_I32);
+                    compressedSize = thrift.readI32();
+                    break;
+                case 5:
+                    expectType(type, ThriftCompactWriter.TYPE_STRUCT);
+                    thrift.readStructBegin();
+                    while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+                        if (thrift.getFieldId() == 1) {
+                            expectType(type, ThriftCompactWriter.TYPE_I32);
+                            valueCount = thrift.readI32();
+                        } else if (thrift.getFieldId() == 2) {
+                            expectType(type, ThriftCompactWriter.TYPE_I32);
+                            encoding = thrift.readI32();
+                        } else {
+                            thrift.skip(type);
+                        }
+                    }
+                    thrift.readStructEnd();
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        thrift.readStructEnd();
+
+        final long body = thrift.getPosition();
+        if (pageType != PAGE_TYPE_DATA || valueCount != groupRowCount || uncompressedSize < 0 || compressedSize < 0 || body + compressedSize > fileHi) {
+            throw CairoException.instance(0).put("unsupported parquet page [type=").put(pageType)
+                    .put(", valueCount=").put(valueCount)
+                    .put(", rowCount=").put(groupRowCount)
+                    .put(']');
+        }
+        if (encoding != ENCODING_PLAIN && encoding != ENCODING_PLAIN_DICTIONARY) {
+            throw CairoException.instance(0).put("unsupported parquet encoding [encoding=").put(encoding).put(']');
+        }
+
+        final long codec = chunks.getQuick(chunk + CHUNK_CODEC);
+        if (codec == CODEC_UNCOMPRESSED) {
+            pageLo = body;
+            pageHi = body + compressedSize;
+        } else if (codec == CODEC_GZIP) {
+            inflate(body, compressedSize, uncompressedSize);
+        } else {
+            throw CairoException.instance(0).put("unsupported parquet codec [codec=").put(codec).put(']');
+        }
+
+        if (!optional) {
+            return pageLo;
+        }
+        checkBounds(pageLo, Integer.BYTES);
+        final long levelsLen = Unsafe.getUnsafe().getInt(pageLo) & 0xffffffffL;
+        final long levelsLo = pageLo + Integer.BYTES;
+        checkBounds(levelsLo, levelsLen);
+        decodeRle(levelsLo, levelsLo + levelsLen, 1, groupRowCount, levels);
+        return levelsLo + levelsLen;
+    }
+
+    private void readColumnChunk() {
+        long dataPageOffset = -1;
+        long codec = CODEC_UNCOMPRESSED;
+        boolean hasMin = false;
+        long min = 0;
+        int type;
+        thrift.readStructBegin();
+        while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+            if (thrift.getFieldId() != 3) {
+                thrift.skip(type);
+                continue;
+            }
+            expectType(type, ThriftCompactWriter.TYPE_STRUCT);
+            thrift.readStructBegin();
+            while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 4:
+                        expectType(type, ThriftCompactWriter.TYPE_I32);
+                        codec = thrift.readI32();
+                        break;
+                    case 9:
+                        expectType(type, ThriftCompactWriter.TYPE_I64);
+                        dataPageOffset = thrift.readI64();
+                        break;
+                    case 12:
+                        expectType(type, ThriftCompactWriter.TYPE_STRUCT);
+                        thrift.readStructBegin();
+                        while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+                            if (thrift.getFieldId() == 6) {
+                                expectType(type, ThriftCompactWriter.TYPE_BINARY);
+                                final long address = thrift.readBinaryAddress();
+                                final long len = thrift.getBinaryLength();
+                                if (len == Long.BYTES) {
+                                    min = Unsafe.getUnsafe().getLong(address);
+                                    hasMin = true;
+                                } else if (len == Integer.BYTES) {
+                                    min = Unsafe.getUnsafe().getInt(address);
+                                    hasMin = true;
+                                }
+                            } else {
+                                thrift.skip(type);
+                            }
+                        }
+                        thrift.readStructEnd();
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.readStructEnd();
+        }
+        thrift.readStructEnd();
+        chunks.add(dataPageOffset);
+        chunks.add(codec);
+        chunks.add(hasMin ? 1 : 0);
+        chunks.add(min);
+    }
+
+    private void readFileMetaData() {
+        if (Unsafe.getUnsafe().getInt(fileAddress) != MAGIC || Unsafe.getUnsafe().getInt(fileAddress + fileSize - Integer.BYTES) != MAGIC) {
+            throw CairoException.instance(0).put("not a parquet file");
+        }
+        final long footerHi = fileAddress + fileSize - 2 * Integer.BYTES;
+        final long footerLen = Unsafe.getUnsafe().getInt(footerHi) & 0xffffffffL;
+        if (footerLen > fileSize - 3 * Integer.BYTES) {
+            throw corrupt();
+        }
+        thrift.of(footerHi - footerLen, footerHi);
+        int type;
+        thrift.readStructBegin();
+        while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 2:
+                    expectType(type, ThriftCompactWriter.TYPE_LIST);
+                    readSchema();
+                    break;
+                case 3:
+                    expectType(type, ThriftCompactWriter.TYPE_I64);
+                    rowCount = thrift.readI64();
+                    break;
+                case 4:
+                    expectType(type, ThriftCompactWriter.TYPE_LIST);
+                    readRowGroups();
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        thrift.readStructEnd();
+        if (chunks.size() != rowGroupSizes.size() * physicalTypes.size() * CHUNK_SLOT_SIZE) {
+            throw corrupt();
+        }
+    }
+
+    private void readRowGroups() {
+        final int rowGroupCount = thrift.readListBegin();
+        for (int g = 0; g < rowGroupCount; g++) {
+            long groupRowCount = -1;
+            int chunkCount = 0;
+            int type;
+            thrift.readStructBegin();
+            while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        expectType(type, ThriftCompactWriter.TYPE_LIST);
+                        chunkCount = thrift.readListBegin();
+                        expectType(thrift.getListElementType(), ThriftCompactWriter.TYPE_STRUCT);
+                        for (int i = 0; i < chunkCount; i++) {
+                            readColumnChunk();
+                        }
+                        break;
+                    case 3:
+                        expectType(type, ThriftCompactWriter.TYPE_I64);
+                        groupRowCount = thrift.readI64();
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.readStructEnd();
+            if (groupRowCount < 0 || chunkCount != physicalTypes.size()) {
+                throw corrupt();
+            }
+            rowGroupSizes.add(groupRowCount);
+        }
+    }
+
+    private void readSchema() {
+        final int elementCount = thrift.readListBegin();
+        expectType(thrift.getListElementType(), ThriftCompactWriter.TYPE_STRUCT);
+        for (int i = 0; i < elementCount; i++) {
+            int physicalType = -1;
+            int typeLength = 0;
+            int repetition = REPETITION_REQUIRED;
+            int childCount = 0;
+            int fieldId = -1;
+            int type;
+            thrift.readStructBegin();
+            while ((type = thrift.readFieldBegin()) != ThriftCompactWriter.TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        expectType(type, ThriftCompactWriter.TYPE_I32);
+                        physicalType = thrift.readI32();
+                        break;
+                    case 2:
+                        expectType(type, ThriftCompactWriter.TYPE_I32);
+                        typeLength = thrift.readI32();
+                        break;
+                    case 3:
+                        expectType(type, ThriftCompactWriter.TYPE_I32);
+                        repetition = thrift.readI32();
+                        break;
+                    case 5:
+                        expectType(type, ThriftCompactWriter.TYPE_I32);
+                        childCount = thrift.readI32();
+                        break;
+                    case 9:
+                        expectType(type, ThriftCompactWriter.TYPE_I32);
+                        fieldId = thrift.readI32();
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.readStructEnd();
+            if (i == 0) {
+                // root of the schema
+                if (childCount != elementCount - 1) {
+                    throw CairoException.instance(0).put("unsupported parquet schema, nested columns are not supported");
+                }
+                continue;
+            }
+            if (childCount > 0 || physicalType == -1) {
+                throw CairoException.instance(0).put("unsupported parquet schema, nested columns are not supported");
+            }
+            physicalTypes.add(physicalType);
+            typeLengths.add(typeLength);
+            repetitions.add(repetition);
+            fieldIds.add(fieldId);
+        }
+    }
+}
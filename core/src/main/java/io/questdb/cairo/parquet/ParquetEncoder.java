@@ -0,0 +1,745 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectCharSequence;
+
+import java.io.Closeable;
+
+/**
+ * Encodes column files of a partition into a Parquet file. Every row group holds a single data page
+ * per column, symbol columns also have a dictionary page with all values of the symbol table so that
+ * dictionary indexes are the symbol keys. Pages are optionally compressed with GZIP.
+ * <p>
+ * Column types map to Parquet types as follows:
+ * <ul>
+ *     <li>BOOLEAN, BYTE, SHORT and CHAR are required BOOLEAN and INT32 columns</li>
+ *     <li>INT, LONG, DATE, TIMESTAMP, FLOAT and DOUBLE are optional columns, QuestDB NULLs are Parquet nulls</li>
+ *     <li>STRING, SYMBOL and BINARY are optional BYTE_ARRAY columns</li>
+ *     <li>other fixed-size types, such as LONG256 and GEOHASH, are required FIXED_LEN_BYTE_ARRAY columns</li>
+ * </ul>
+ * Parquet field id of a column is its writer index, which keeps the file readable after columns are renamed.
+ */
+public class ParquetEncoder implements Closeable {
+    public static final String CREATED_BY = "QuestDB";
+    public static final int CODEC_UNCOMPRESSED = 0;
+    public static final int CODEC_GZIP = 2;
+    // "PAR1" in little-endian byte order
+    static final int MAGIC = 0x31524150;
+    static final int TYPE_BOOLEAN = 0;
+    static final int TYPE_INT32 = 1;
+    static final int TYPE_INT64 = 2;
+    static final int TYPE_FLOAT = 4;
+    static final int TYPE_DOUBLE = 5;
+    static final int TYPE_BYTE_ARRAY = 6;
+    static final int TYPE_FIXED_LEN_BYTE_ARRAY = 7;
+    static final int REPETITION_REQUIRED = 0;
+    static final int REPETITION_OPTIONAL = 1;
+    static final int CONVERTED_TYPE_UTF8 = 0;
+    static final int CONVERTED_TYPE_TIMESTAMP_MILLIS = 9;
+    static final int CONVERTED_TYPE_TIMESTAMP_MICROS = 10;
+    static final int CONVERTED_TYPE_UINT_16 = 12;
+    static final int CONVERTED_TYPE_INT_8 = 15;
+    static final int CONVERTED_TYPE_INT_16 = 16;
+    static final int ENCODING_PLAIN = 0;
+    static final int ENCODING_PLAIN_DICTIONARY = 2;
+    static final int ENCODING_RLE = 3;
+    static final int PAGE_TYPE_DATA = 0;
+    static final int PAGE_TYPE_DICTIONARY = 2;
+    private static final int CHUNK_FILE_OFFSET = 0;
+    private static final int CHUNK_DATA_PAGE_OFFSET = 1;
+    private static final int CHUNK_DICTIONARY_PAGE_OFFSET = 2;
+    private static final int CHUNK_UNCOMPRESSED_SIZE = 3;
+    private static final int CHUNK_COMPRESSED_SIZE = 4;
+    private static final int CHUNK_NULL_COUNT = 5;
+    private static final int CHUNK_HAS_STATS = 6;
+    private static final int CHUNK_MIN = 7;
+    private static final int CHUNK_MAX = 8;
+    private static final int CHUNK_SLOT_SIZE = 9;
+    private static final long PAGE_SIZE = 1024 * 1024;
+    private final ThriftCompactWriter thrift = new ThriftCompactWriter();
+    private final MemoryCARW page = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WRITER);
+    private final MemoryCARW compressed = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WRITER);
+    private final MemoryCARW levels = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WRITER);
+    private final MemoryCARW indexes = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WRITER);
+    private final DirectCharSequence charSequence = new DirectCharSequence();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final IntList fieldIds = new IntList();
+    private final LongList columnTops = new LongList();
+    private final LongList columnAddresses = new LongList();
+    private final ObjList<SymbolTable> symbolTables = new ObjList<>();
+    private final IntList symbolCounts = new IntList();
+    private final LongList chunks = new LongList();
+    private final LongList rowGroupSizes = new LongList();
+    private final long statsAddress;
+    private int codec;
+    private int rowGroupSize;
+    private long z_streamp;
+    private long chunkUncompressedSize;
+    private long chunkCompressedSize;
+    private boolean hasStats;
+    private long statsMin;
+    private long statsMax;
+
+    public ParquetEncoder() {
+        statsAddress = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_TABLE_WRITER);
+    }
+
+    public static int convertedTypeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return CONVERTED_TYPE_INT_8;
+            case ColumnType.SHORT:
+                return CONVERTED_TYPE_INT_16;
+            case ColumnType.CHAR:
+                return CONVERTED_TYPE_UINT_16;
+            case ColumnType.DATE:
+                return CONVERTED_TYPE_TIMESTAMP_MILLIS;
+            case ColumnType.TIMESTAMP:
+                return CONVERTED_TYPE_TIMESTAMP_MICROS;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return CONVERTED_TYPE_UTF8;
+            default:
+                return -1;
+        }
+    }
+
+    public static boolean isOptional(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.BINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static int physicalTypeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOLEAN;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+                return TYPE_INT32;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return TYPE_INT64;
+            case ColumnType.FLOAT:
+                return TYPE_FLOAT;
+            case ColumnType.DOUBLE:
+                return TYPE_DOUBLE;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.BINARY:
+                return TYPE_BYTE_ARRAY;
+            default:
+                return TYPE_FIXED_LEN_BYTE_ARRAY;
+        }
+    }
+
+    /**
+     * Adds column to the file. Column memory must stay mapped until {@link #encode(MemoryA, long)} returns.
+     *
+     * @param name        column name
+     * @param columnType  column type
+     * @param fieldId     Parquet field id, the writer index of the column
+     * @param columnTop   number of partition rows the column has no data for, column files start at this row
+     * @param dataAddress address of the data file, unused when the column top covers the whole partition
+     * @param auxAddress  address of the index file of variable-length columns
+     * @param symbolTable symbol table of SYMBOL column, null for other types
+     * @param symbolCount number of symbols in the symbol table
+     */
+    public void addColumn(
+            CharSequence name,
+            int columnType,
+            int fieldId,
+            long columnTop,
+            long dataAddress,
+            long auxAddress,
+            SymbolTable symbolTable,
+            int symbolCount
+    ) {
+        columnNames.add(Chars.toString(name));
+        columnTypes.add(columnType);
+        fieldIds.add(fieldId);
+        columnTops.add(columnTop);
+        columnAddresses.add(dataAddress);
+        columnAddresses.add(auxAddress);
+        symbolTables.add(symbolTable);
+        symbolCounts.add(symbolCount);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(page);
+        Misc.free(compressed);
+        Misc.free(levels);
+        Misc.free(indexes);
+        Unsafe.free(statsAddress, Long.BYTES, MemoryTag.NATIVE_TABLE_WRITER);
+        if (z_streamp != 0) {
+            Zip.deflateEnd(z_streamp);
+            z_streamp = 0;
+        }
+    }
+
+    /**
+     * Writes Parquet file with the columns added since last call to {@link #of(int, int)}.
+     *
+     * @param out      memory to append the file to
+     * @param rowCount number of rows in the partition
+     */
+    public void encode(MemoryA out, long rowCount) {
+        chunks.clear();
+        rowGroupSizes.clear();
+        out.putInt(MAGIC);
+        for (long lo = 0; lo < rowCount; lo += rowGroupSize) {
+            final long hi = Math.min(lo + rowGroupSize, rowCount);
+            rowGroupSizes.add(hi - lo);
+            for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                encodeColumnChunk(out, i, lo, hi);
+            }
+        }
+        final long footerOffset = out.getAppendOffset();
+        encodeFileMetaData(out, rowCount);
+        out.putInt((int) (out.getAppendOffset() - footerOffset));
+        out.putInt(MAGIC);
+    }
+
+    public ParquetEncoder of(int rowGroupSize, int codec) {
+        clear();
+        this.rowGroupSize = rowGroupSize;
+        this.codec = codec;
+        if (codec == CODEC_GZIP && z_streamp == 0) {
+            z_streamp = Zip.deflateInit();
+            if (z_streamp < 0) {
+                z_streamp = 0;
+                throw CairoException.instance(0).put("could not initialize deflate stream");
+            }
+        }
+        return this;
+    }
+
+    static void putUtf8(MemoryA mem, CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                mem.putByte((byte) c);
+            } else if (c < 0x800) {
+                mem.putByte((byte) (0xc0 | (c >> 6)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    mem.putByte((byte) (0xf0 | (codePoint >> 18)));
+                    mem.putByte((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                    mem.putByte((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                    mem.putByte((byte) (0x80 | (codePoint & 0x3f)));
+                } else {
+                    mem.putByte((byte) '?');
+                }
+            } else {
+                mem.putByte((byte) (0xe0 | (c >> 12)));
+                mem.putByte((byte) (0x80 | ((c >> 6) & 0x3f)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    static void putVarLong(MemoryA mem, long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    static int utf8Length(CharSequence value) {
+        int len = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                len++;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    i++;
+                    len += 4;
+                } else {
+                    len++;
+                }
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    private static int bitWidth(int value) {
+        return 32 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static long runLength(long address, long lo, long hi) {
+        final int value = Unsafe.getUnsafe().getInt(address + (lo << 2));
+        long i = lo + 1;
+        while (i < hi && Unsafe.getUnsafe().getInt(address + (i << 2)) == value) {
+            i++;
+        }
+        return i - lo;
+    }
+
+    private void clear() {
+        columnNames.clear();
+        columnTypes.clear();
+        fieldIds.clear();
+        columnTops.clear();
+        columnAddresses.clear();
+        symbolTables.clear();
+        symbolCounts.clear();
+        chunks.clear();
+        rowGroupSizes.clear();
+    }
+
+    private void compressPage() {
+        final long srcAddress = page.getAddress();
+        final long srcSize = page.getAppendOffset();
+        if (srcSize > Integer.MAX_VALUE / 2) {
+            throw CairoException.instance(0).put("parquet page is too large [size=").put(srcSize).put(']');
+        }
+        final int bound = (int) (srcSize + (srcSize >>> 8) + 64);
+        compressed.jumpTo(0);
+        final long p = compressed.appendAddressFor(Zip.gzipHeaderLen + bound + 2 * Integer.BYTES);
+        Vect.memcpy(p, Zip.gzipHeader, Zip.gzipHeaderLen);
+        Zip.deflateReset(z_streamp);
+        Zip.setInput(z_streamp, srcAddress, (int) srcSize);
+        final int ret = Zip.deflate(z_streamp, p + Zip.gzipHeaderLen, bound, true);
+        if (ret != Zip.Z_STREAM_END) {
+            throw CairoException.instance(0).put("could not deflate parquet page [ret=").put(ret).put(']');
+        }
+        final long trailer = p + Zip.gzipHeaderLen + bound - Zip.availOut(z_streamp);
+        Unsafe.getUnsafe().putInt(trailer, Zip.crc32(0, srcAddress, (int) srcSize));
+        Unsafe.getUnsafe().putInt(trailer + Integer.BYTES, (int) srcSize);
+        compressed.jumpTo(trailer + 2 * Integer.BYTES - p);
+    }
+
+    private void encodeColumnChunk(MemoryA out, int columnIndex, long lo, long hi) {
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final long chunkOffset = out.getAppendOffset();
+        long dictionaryPageOffset = -1;
+        chunkUncompressedSize = 0;
+        chunkCompressedSize = 0;
+
+        final boolean symbol = ColumnType.isSymbol(columnType);
+        if (symbol) {
+            dictionaryPageOffset = chunkOffset;
+            final SymbolTable symbolTable = symbolTables.getQuick(columnIndex);
+            final int symbolCount = symbolCounts.getQuick(columnIndex);
+            page.jumpTo(0);
+            for (int key = 0; key < symbolCount; key++) {
+                final CharSequence value = symbolTable.valueOf(key);
+                page.putInt(utf8Length(value));
+                putUtf8(page, value);
+            }
+            writePage(out, PAGE_TYPE_DICTIONARY, symbolCount, ENCODING_PLAIN_DICTIONARY);
+        }
+
+        final long dataPageOffset = out.getAppendOffset();
+        page.jumpTo(0);
+        final long nullCount = encodeValues(columnIndex, columnType, lo, hi);
+        writePage(out, PAGE_TYPE_DATA, hi - lo, symbol ? ENCODING_PLAIN_DICTIONARY : ENCODING_PLAIN);
+
+        chunks.add(chunkOffset);
+        chunks.add(dataPageOffset);
+        chunks.add(dictionaryPageOffset);
+        chunks.add(chunkUncompressedSize);
+        chunks.add(chunkCompressedSize);
+        chunks.add(nullCount);
+        chunks.add(hasStats ? 1 : 0);
+        chunks.add(statsMin);
+        chunks.add(statsMax);
+    }
+
+    private void encodeDefinitionLevels(long dataAddress, long auxAddress, int columnType, long top, long lo, long hi) {
+        levels.jumpTo(0);
+        for (long r = lo; r < hi; r++) {
+            levels.putInt(r >= top && isDefined(dataAddress, auxAddress, columnType, r - top) ? 1 : 0);
+        }
+        final long lengthOffset = page.getAppendOffset();
+        page.putInt(0);
+        encodeRle(levels.getAddress(), hi - lo, 1);
+        page.putInt(lengthOffset, (int) (page.getAppendOffset() - lengthOffset - Integer.BYTES));
+    }
+
+    private void encodeFileMetaData(MemoryA out, long rowCount) {
+        final int columnCount = columnTypes.size();
+        thrift.of(out);
+        thrift.structBegin();
+        thrift.fieldI32(1, 1);
+        thrift.fieldList(2, ThriftCompactWriter.TYPE_STRUCT, columnCount + 1);
+        thrift.structBegin();
+        thrift.fieldString(4, "schema");
+        thrift.fieldI32(5, columnCount);
+        thrift.structEnd();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            final int physicalType = physicalTypeOf(columnType);
+            final int convertedType = convertedTypeOf(columnType);
+            thrift.structBegin();
+            thrift.fieldI32(1, physicalType);
+            if (physicalType == TYPE_FIXED_LEN_BYTE_ARRAY) {
+                thrift.fieldI32(2, ColumnType.sizeOf(columnType));
+            }
+            thrift.fieldI32(3, isOptional(columnType) ? REPETITION_OPTIONAL : REPETITION_REQUIRED);
+            thrift.fieldString(4, columnNames.getQuick(i));
+            if (convertedType != -1) {
+                thrift.fieldI32(6, convertedType);
+            }
+            thrift.fieldI32(9, fieldIds.getQuick(i));
+            thrift.structEnd();
+        }
+        thrift.fieldI64(3, rowCount);
+        thrift.fieldList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroupSizes.size());
+        for (int g = 0, n = rowGroupSizes.size(); g < n; g++) {
+            long totalByteSize = 0;
+            thrift.structBegin();
+            thrift.fieldList(1, ThriftCompactWriter.TYPE_STRUCT, columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final int chunk = (g * columnCount + i) * CHUNK_SLOT_SIZE;
+                final int columnType = columnTypes.getQuick(i);
+                final int physicalType = physicalTypeOf(columnType);
+                final boolean symbol = ColumnType.isSymbol(columnType);
+                final long dictionaryPageOffset = chunks.getQuick(chunk + CHUNK_DICTIONARY_PAGE_OFFSET);
+                totalByteSize += chunks.getQuick(chunk + CHUNK_UNCOMPRESSED_SIZE);
+
+                thrift.structBegin();
+                thrift.fieldI64(2, chunks.getQuick(chunk + CHUNK_FILE_OFFSET));
+                thrift.fieldStruct(3);
+                thrift.fieldI32(1, physicalType);
+                thrift.fieldList(2, ThriftCompactWriter.TYPE_I32, symbol ? 3 : 2);
+                thrift.putI32(ENCODING_PLAIN);
+                thrift.putI32(ENCODING_RLE);
+                if (symbol) {
+                    thrift.putI32(ENCODING_PLAIN_DICTIONARY);
+                }
+                thrift.fieldList(3, ThriftCompactWriter.TYPE_BINARY, 1);
+                thrift.putString(columnNames.getQuick(i));
+                thrift.fieldI32(4, codec);
+                thrift.fieldI64(5, rowGroupSizes.getQuick(g));
+                thrift.fieldI64(6, chunks.getQuick(chunk + CHUNK_UNCOMPRESSED_SIZE));
+                thrift.fieldI64(7, chunks.getQuick(chunk + CHUNK_COMPRESSED_SIZE));
+                thrift.fieldI64(9, chunks.getQuick(chunk + CHUNK_DATA_PAGE_OFFSET));
+                if (dictionaryPageOffset > -1) {
+                    thrift.fieldI64(11, dictionaryPageOffset);
+                }
+                if (chunks.getQuick(chunk + CHUNK_HAS_STATS) == 1) {
+                    final int statsSize = physicalType == TYPE_INT32 || physicalType == TYPE_FLOAT ? Integer.BYTES : Long.BYTES;
+                    thrift.fieldStruct(12);
+                    thrift.fieldI64(3, chunks.getQuick(chunk + CHUNK_NULL_COUNT));
+                    Unsafe.getUnsafe().putLong(statsAddress, chunks.getQuick(chunk + CHUNK_MAX));
+                    thrift.fieldBinary(5, statsAddress, statsSize);
+                    Unsafe.getUnsafe().putLong(statsAddress, chunks.getQuick(chunk + CHUNK_MIN));
+                    thrift.fieldBinary(6, statsAddress, statsSize);
+                    thrift.structEnd();
+                }
+                thrift.structEnd();
+                thrift.structEnd();
+            }
+            thrift.fieldI64(2, totalByteSize);
+            thrift.fieldI64(3, rowGroupSizes.getQuick(g));
+            thrift.structEnd();
+        }
+        thrift.fieldString(6, CREATED_BY);
+        thrift.structEnd();
+    }
+
+    /**
+     * Appends RLE/bit-packing hybrid encoded values to the page. Repeated values are encoded
+     * as RLE runs, everything else is bit-packed in groups of 8 values.
+     */
+    private void encodeRle(long address, long count, int bitWidth) {
+        final int byteWidth = (bitWidth + 7) >>> 3;
+        final long mask = bitWidth == 32 ? 0xffffffffL : (1L << bitWidth) - 1;
+        long i = 0;
+        while (i < count) {
+            final long run = runLength(address, i, count);
+            if (run >= 8) {
+                putVarLong(page, run << 1);
+                final int value = Unsafe.getUnsafe().getInt(address + (i << 2));
+                for (int b = 0; b < byteWidth; b++) {
+                    page.putByte((byte) (value >>> (b << 3)));
+                }
+                i += run;
+            } else {
+                long j = i;
+                int groups = 0;
+                do {
+                    j += 8;
+                    groups++;
+                } while (j < count && groups < 63 && runLength(address, j, Math.min(j + 8, count)) < 8);
+                putVarLong(page, ((long) groups << 1) | 1);
+                long bits = 0;
+                int bitCount = 0;
+                for (long k = i, n = i + groups * 8L; k < n; k++) {
+                    final long value = k < count ? Unsafe.getUnsafe().getInt(address + (k << 2)) & mask : 0;
+                    bits |= value << bitCount;
+                    bitCount += bitWidth;
+                    while (bitCount >= 8) {
+                        page.putByte((byte) bits);
+                        bits >>>= 8;
+                        bitCount -= 8;
+                    }
+                }
+                i = j;
+            }
+        }
+    }
+
+    private long encodeValues(int columnIndex, int columnType, long lo, long hi) {
+        final long top = columnTops.getQuick(columnIndex);
+        final long dataAddress = columnAddresses.getQuick(columnIndex * 2);
+        final long auxAddress = columnAddresses.getQuick(columnIndex * 2 + 1);
+        hasStats = false;
+        statsMin = 0;
+        statsMax = 0;
+
+        final int tag = ColumnType.tagOf(columnType);
+        switch (tag) {
+            case ColumnType.BOOLEAN:
+                int bits = 0;
+                int bitCount = 0;
+                for (long r = lo; r < hi; r++) {
+                    if (r >= top && Unsafe.getUnsafe().getByte(dataAddress + r - top) != 0) {
+                        bits |= 1 << bitCount;
+                    }
+                    if (++bitCount == 8) {
+                        page.putByte((byte) bits);
+                        bits = 0;
+                        bitCount = 0;
+                    }
+                }
+                if (bitCount > 0) {
+                    page.putByte((byte) bits);
+                }
+                return 0;
+            case ColumnType.BYTE:
+                for (long r = lo; r < hi; r++) {
+                    page.putInt(r >= top ? Unsafe.getUnsafe().getByte(dataAddress + r - top) : 0);
+                }
+                return 0;
+            case ColumnType.SHORT:
+                for (long r = lo; r < hi; r++) {
+                    page.putInt(r >= top ? Unsafe.getUnsafe().getShort(dataAddress + ((r - top) << 1)) : 0);
+                }
+                return 0;
+            case ColumnType.CHAR:
+                for (long r = lo; r < hi; r++) {
+                    page.putInt(r >= top ? Unsafe.getUnsafe().getChar(dataAddress + ((r - top) << 1)) : 0);
+                }
+                return 0;
+            default:
+                if (!isOptional(columnType)) {
+                    final int size = ColumnType.sizeOf(columnType);
+                    for (long r = lo; r < hi; r++) {
+                        if (r >= top) {
+                            page.putBlockOfBytes(dataAddress + (r - top) * size, size);
+                        } else {
+                            for (int b = 0; b < size; b++) {
+                                page.putByte((byte) 0);
+                            }
+                        }
+                    }
+                    return 0;
+                }
+                break;
+        }
+
+        encodeDefinitionLevels(dataAddress, auxAddress, columnType, top, lo, hi);
+        final long levelsAddress = levels.getAddress();
+        long nullCount = 0;
+        long valueCount = 0;
+        indexes.jumpTo(0);
+        for (long r = lo; r < hi; r++) {
+            if (Unsafe.getUnsafe().getInt(levelsAddress + ((r - lo) << 2)) == 0) {
+                nullCount++;
+                continue;
+            }
+            final long row = r - top;
+            switch (tag) {
+                case ColumnType.INT:
+                    final int i = Unsafe.getUnsafe().getInt(dataAddress + (row << 2));
+                    page.putInt(i);
+                    if (!hasStats || i < (int) statsMin) {
+                        statsMin = i;
+                    }
+                    if (!hasStats || i > (int) statsMax) {
+                        statsMax = i;
+                    }
+                    hasStats = true;
+                    break;
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    final long l = Unsafe.getUnsafe().getLong(dataAddress + (row << 3));
+                    page.putLong(l);
+                    if (!hasStats || l < statsMin) {
+                        statsMin = l;
+                    }
+                    if (!hasStats || l > statsMax) {
+                        statsMax = l;
+                    }
+                    hasStats = true;
+                    break;
+                case ColumnType.FLOAT:
+                    final float f = Unsafe.getUnsafe().getFloat(dataAddress + (row << 2));
+                    page.putFloat(f);
+                    if (!hasStats || f < Float.intBitsToFloat((int) statsMin)) {
+                        statsMin = Float.floatToRawIntBits(f);
+                    }
+                    if (!hasStats || f > Float.intBitsToFloat((int) statsMax)) {
+                        statsMax = Float.floatToRawIntBits(f);
+                    }
+                    hasStats = true;
+                    break;
+                case ColumnType.DOUBLE:
+                    final double d = Unsafe.getUnsafe().getDouble(dataAddress + (row << 3));
+                    page.putDouble(d);
+                    if (!hasStats || d < Double.longBitsToDouble(statsMin)) {
+                        statsMin = Double.doubleToRawLongBits(d);
+                    }
+                    if (!hasStats || d > Double.longBitsToDouble(statsMax)) {
+                        statsMax = Double.doubleToRawLongBits(d);
+                    }
+                    hasStats = true;
+                    break;
+                case ColumnType.STRING:
+                    final long strAddress = dataAddress + Unsafe.getUnsafe().getLong(auxAddress + (row << 3));
+                    final int strLen = Unsafe.getUnsafe().getInt(strAddress);
+                    charSequence.of(strAddress + Integer.BYTES, strAddress + Integer.BYTES + ((long) strLen << 1));
+                    page.putInt(utf8Length(charSequence));
+                    putUtf8(page, charSequence);
+                    break;
+                case ColumnType.BINARY:
+                    final long binAddress = dataAddress + Unsafe.getUnsafe().getLong(auxAddress + (row << 3));
+                    final long binLen = Unsafe.getUnsafe().getLong(binAddress);
+                    page.putInt((int) binLen);
+                    page.putBlockOfBytes(binAddress + Long.BYTES, binLen);
+                    break;
+                case ColumnType.SYMBOL:
+                    indexes.putInt(Unsafe.getUnsafe().getInt(dataAddress + (row << 2)));
+                    valueCount++;
+                    break;
+                default:
+                    throw CairoException.instance(0).put("unsupported column type [type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+        }
+
+        if (tag == ColumnType.SYMBOL) {
+            final int bitWidth = Math.max(1, bitWidth(symbolCounts.getQuick(columnIndex) - 1));
+            page.putByte((byte) bitWidth);
+            encodeRle(indexes.getAddress(), valueCount, bitWidth);
+        }
+        return nullCount;
+    }
+
+    private boolean isDefined(long dataAddress, long auxAddress, int columnType, long row) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+                return Unsafe.getUnsafe().getInt(dataAddress + (row << 2)) != Numbers.INT_NaN;
+            case ColumnType.SYMBOL:
+                return Unsafe.getUnsafe().getInt(dataAddress + (row << 2)) != SymbolTable.VALUE_IS_NULL;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return Unsafe.getUnsafe().getLong(dataAddress + (row << 3)) != Numbers.LONG_NaN;
+            case ColumnType.FLOAT:
+                return !Float.isNaN(Unsafe.getUnsafe().getFloat(dataAddress + (row << 2)));
+            case ColumnType.DOUBLE:
+                return !Double.isNaN(Unsafe.getUnsafe().getDouble(dataAddress + (row << 3)));
+            case ColumnType.STRING:
+                return Unsafe.getUnsafe().getInt(dataAddress + Unsafe.getUnsafe().getLong(auxAddress + (row << 3))) != TableUtils.NULL_LEN;
+            case ColumnType.BINARY:
+                return Unsafe.getUnsafe().getLong(dataAddress + Unsafe.getUnsafe().getLong(auxAddress + (row << 3))) != TableUtils.NULL_LEN;
+            default:
+                return true;
+        }
+    }
+
+    private void writePage(MemoryA out, int pageType, long valueCount, int encoding) {
+        final long uncompressedSize = page.getAppendOffset();
+        long bodyAddress = page.getAddress();
+        long bodySize = uncompressedSize;
+        if (codec == CODEC_GZIP) {
+            compressPage();
+            bodyAddress = compressed.getAddress();
+            bodySize = compressed.getAppendOffset();
+        }
+
+        final long headerOffset = out.getAppendOffset();
+        thrift.of(out);
+        thrift.structBegin();
+        thrift.fieldI32(1, pageType);
+        thrift.fieldI32(2, (int) uncompressedSize);
+        thrift.fieldI32(3, (int) bodySize);
+        if (pageType == PAGE_TYPE_DATA) {
+            thrift.fieldStruct(5);
+            thrift.fieldI32(1, (int) valueCount);
+            thrift.fieldI32(2, encoding);
+            thrift.fieldI32(3, ENCODING_RLE);
+            thrift.fieldI32(4, ENCODING_RLE);
+        } else {
+            thrift.fieldStruct(7);
+            thrift.fieldI32(1, (int) valueCount);
+            thrift.fieldI32(2, encoding);
+        }
+        thrift.structEnd();
+        thrift.structEnd();
+        final long headerSize = out.getAppendOffset() - headerOffset;
+        out.putBlockOfBytes(bodyAddress, bodySize);
+        chunkUncompressedSize += headerSize + uncompressedSize;
+        chunkCompressedSize += headerSize + bodySize;
+    }
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.IntList;
+import io.questdb.std.Unsafe;
+
+import static io.questdb.cairo.parquet.ThriftCompactWriter.*;
+
+/**
+ * Reads Thrift compact protocol from native memory. Fields that the caller is not interested in
+ * are skipped with {@link #skip(int)}.
+ */
+public class ThriftCompactReader {
+    private final IntList lastFieldIds = new IntList();
+    private int fieldId;
+    private int lastFieldId;
+    private long lim;
+    private long p;
+    private int listElementType;
+    private long binaryLength;
+
+    public int getFieldId() {
+        return fieldId;
+    }
+
+    public int getListElementType() {
+        return listElementType;
+    }
+
+    public long getPosition() {
+        return p;
+    }
+
+    public ThriftCompactReader of(long lo, long hi) {
+        this.p = lo;
+        this.lim = hi;
+        lastFieldIds.clear();
+        lastFieldId = 0;
+        return this;
+    }
+
+    public long readBinaryAddress() {
+        final long len = readVarLong();
+        if (len < 0 || p + len > lim) {
+            throw corrupt();
+        }
+        final long address = p;
+        p += len;
+        binaryLength = len;
+        return address;
+    }
+
+    public long getBinaryLength() {
+        return binaryLength;
+    }
+
+    /**
+     * Reads field header of the current struct.
+     *
+     * @return field type, {@link ThriftCompactWriter#TYPE_STOP} at the end of the struct
+     */
+    public int readFieldBegin() {
+        final int b = readByte() & 0xff;
+        final int type = b & 0x0f;
+        if (type == TYPE_STOP) {
+            return TYPE_STOP;
+        }
+        final int delta = b >>> 4;
+        if (delta != 0) {
+            fieldId = lastFieldId + delta;
+        } else {
+            fieldId = (int) unzigzag(readVarLong());
+        }
+        lastFieldId = fieldId;
+        return type;
+    }
+
+    public int readI32() {
+        return (int) unzigzag(readVarLong());
+    }
+
+    public long readI64() {
+        return unzigzag(readVarLong());
+    }
+
+    /**
+     * Reads list header.
+     *
+     * @return number of list elements, element type is available via {@link #getListElementType()}
+     */
+    public int readListBegin() {
+        final int b = readByte() & 0xff;
+        listElementType = b & 0x0f;
+        int size = b >>> 4;
+        if (size == 15) {
+            size = (int) readVarLong();
+        }
+        if (size < 0) {
+            throw corrupt();
+        }
+        return size;
+    }
+
+    public void readStructBegin() {
+        lastFieldIds.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    public void readStructEnd() {
+        lastFieldId = lastFieldIds.getLast();
+        lastFieldIds.removeIndex(lastFieldIds.size() - 1);
+    }
+
+    public void skip(int type) {
+        switch (type) {
+            case TYPE_BOOLEAN_TRUE:
+            case TYPE_BOOLEAN_FALSE:
+                break;
+            case TYPE_BYTE:
+                readByte();
+                break;
+            case TYPE_I16:
+            case TYPE_I32:
+            case TYPE_I64:
+                readVarLong();
+                break;
+            case TYPE_DOUBLE:
+                if (p + 8 > lim) {
+                    throw corrupt();
+                }
+                p += 8;
+                break;
+            case TYPE_BINARY:
+                readBinaryAddress();
+                break;
+            case TYPE_LIST:
+            case TYPE_SET:
+                final int size = readListBegin();
+                final int elementType = listElementType;
+                for (int i = 0; i < size; i++) {
+                    skipListElement(elementType);
+                }
+                break;
+            case TYPE_MAP:
+                final int entryCount = (int) readVarLong();
+                if (entryCount > 0) {
+                    final int kv = readByte() & 0xff;
+                    for (int i = 0; i < entryCount; i++) {
+                        skipListElement(kv >>> 4);
+                        skipListElement(kv & 0x0f);
+                    }
+                }
+                break;
+            case TYPE_STRUCT:
+                readStructBegin();
+                int fieldType;
+                while ((fieldType = readFieldBegin()) != TYPE_STOP) {
+                    skip(fieldType);
+                }
+                readStructEnd();
+                break;
+            default:
+                throw corrupt();
+        }
+    }
+
+    private static CairoException corrupt() {
+        return CairoException.instance(0).put("corrupt parquet metadata");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private byte readByte() {
+        if (p >= lim) {
+            throw corrupt();
+        }
+        return Unsafe.getUnsafe().getByte(p++);
+    }
+
+    private long readVarLong() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = readByte();
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw corrupt();
+            }
+        }
+    }
+
+    private void skipListElement(int elementType) {
+        // booleans are encoded as a single byte inside collections
+        if (elementType == TYPE_BOOLEAN_TRUE || elementType == TYPE_BOOLEAN_FALSE) {
+            readByte();
+        } else {
+            skip(elementType);
+        }
+    }
+}
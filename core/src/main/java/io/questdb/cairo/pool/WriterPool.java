@@ -83,6 +83,7 @@ public class WriterPool extends AbstractPool {
     private final MessageBus messageBus;
     @NotNull
     private final Metrics metrics;
+    private volatile TableWriter.CommitListener commitListener;
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
@@ -223,6 +224,16 @@ public class WriterPool extends AbstractPool {
         unlock(name, null, false);
     }
 
+    /**
+     * Sets listener to be notified on commits of the writers created by this pool. The listener
+     * is not applied to the writers already in the pool.
+     *
+     * @param commitListener listener, can be null
+     */
+    public void setCommitListener(TableWriter.CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
     public void unlock(CharSequence name, @Nullable TableWriter writer, boolean newTable) {
         long thread = Thread.currentThread().getId();
 
@@ -264,6 +275,7 @@ public class WriterPool extends AbstractPool {
                 entries.remove(name);
             } else {
                 e.writer = writer;
+                writer.setCommitListener(commitListener);
                 writer.setLifecycleManager(e);
                 writer.transferLock(e.lockFd);
                 e.lockFd = -1;
@@ -425,6 +437,7 @@ public class WriterPool extends AbstractPool {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
             e.writer = new TableWriter(configuration, name, messageBus, null, true, e, root, metrics);
+            e.writer.setCommitListener(commitListener);
             e.ownershipReason = lockReason;
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
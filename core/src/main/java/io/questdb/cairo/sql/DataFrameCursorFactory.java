@@ -45,6 +45,15 @@ public interface DataFrameCursorFactory extends Sinkable, Closeable {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Adds attributes of this factory to the plan of the owning record cursor factory.
+     *
+     * @param sink plan to add attributes to
+     */
+    default void toPlan(PlanSink sink) {
+        sink.attr("scan").val(getClass().getSimpleName());
+    }
+
     boolean supportTableRowId(CharSequence tableName);
 
     /**
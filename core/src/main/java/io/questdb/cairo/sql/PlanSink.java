@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql;
+
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Renders tree of record cursor factories as text, one line per factory. Factories describe
+ * themselves via {@link RecordCursorFactory#toPlan(PlanSink)}: they name their type, add
+ * attributes and list their child factories. Children are rendered after the parent line
+ * with extra indentation, in the order they have been added.
+ * <pre>
+ * SelectedRecordCursorFactory
+ *     AsyncJitFilteredRecordCursorFactory [jit=true]
+ *         DataFrameRecordCursorFactory [table=trades, scan=IntervalFwdDataFrameCursorFactory]
+ * </pre>
+ */
+public class PlanSink implements Mutable {
+    private static final int INDENT = 4;
+    private final ObjList<String> lines = new ObjList<>();
+    private final ObjList<ObjList<RecordCursorFactory>> children = new ObjList<>();
+    private final StringSink line = new StringSink();
+    private int depth;
+    private int attrCount;
+
+    public PlanSink attr(CharSequence name) {
+        line.put(attrCount++ == 0 ? " [" : ", ").put(name).put('=');
+        return this;
+    }
+
+    public PlanSink child(RecordCursorFactory factory) {
+        if (factory != null) {
+            children.getQuick(depth).add(factory);
+        }
+        return this;
+    }
+
+    @Override
+    public void clear() {
+        lines.clear();
+        line.clear();
+        depth = 0;
+    }
+
+    public ObjList<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Adds free form line after the plan, such as query level statistics.
+     *
+     * @param text line content
+     */
+    public void line(CharSequence text) {
+        lines.add(text.toString());
+    }
+
+    public PlanSink of(RecordCursorFactory factory) {
+        clear();
+        visit(factory);
+        return this;
+    }
+
+    public PlanSink type(CharSequence type) {
+        line.put(type);
+        return this;
+    }
+
+    public PlanSink val(CharSequence value) {
+        line.put(value);
+        return this;
+    }
+
+    public PlanSink val(long value) {
+        line.put(value);
+        return this;
+    }
+
+    public PlanSink val(boolean value) {
+        line.put(value);
+        return this;
+    }
+
+    private void visit(RecordCursorFactory factory) {
+        ObjList<RecordCursorFactory> pending = children.getQuiet(depth);
+        if (pending == null) {
+            pending = new ObjList<>();
+            children.extendAndSet(depth, pending);
+        }
+        pending.clear();
+
+        line.clear();
+        for (int i = 0, n = depth * INDENT; i < n; i++) {
+            line.put(' ');
+        }
+        attrCount = 0;
+        factory.toPlan(this);
+        if (attrCount > 0) {
+            line.put(']');
+        }
+        lines.add(line.toString());
+
+        depth++;
+        for (int i = 0, n = pending.size(); i < n; i++) {
+            visit(pending.getQuick(i));
+        }
+        depth--;
+        pending.clear();
+    }
+}
@@ -119,6 +119,16 @@ public interface RecordCursorFactory extends Closeable, Sinkable {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Describes this factory as a node of the query plan, see {@link PlanSink}. Factories
+     * that wrap other factories are expected to add them as children.
+     *
+     * @param sink plan to add this factory to
+     */
+    default void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+    }
+
     default SingleSymbolFilter convertToSampleByIndexDataFrameCursorFactory() {
         return null;
     }
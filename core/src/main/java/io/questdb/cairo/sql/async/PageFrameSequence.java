@@ -172,8 +172,9 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         initRecord(executionContext.getCircuitBreaker());
 
         final Rnd rnd = executionContext.getAsyncRandom();
+        PageFrameCursor pageFrameCursor = null;
         try {
-            final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext, order);
+            pageFrameCursor = base.getPageFrameCursor(executionContext, order);
             final int frameCount = setupAddressCache(base, pageFrameCursor);
 
             // this method sets a lot of state of the page sequence
@@ -197,7 +198,10 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
                         .I$();
             }
         } catch (Throwable e) {
-            this.symbolTableSource = Misc.free(this.symbolTableSource);
+            // page frame cursor becomes our symbol table source only once the address cache is
+            // set up, it has to be released here when frames fail to open
+            this.symbolTableSource = null;
+            Misc.free(pageFrameCursor);
             throw e;
         }
         return this;
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.std.Os;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Guards per-worker state, such as partial aggregation maps, that is shared by
+ * the reducers of a single page frame sequence. Worker pool threads get their
+ * own slot most of the time, while work-stealing threads (worker id -1) and
+ * workers from outside the expected range are given any slot that is free at
+ * the moment.
+ */
+public class PerWorkerLocks {
+    private final AtomicIntegerArray locks;
+    private final int slotCount;
+
+    public PerWorkerLocks(int slotCount) {
+        assert slotCount > 0;
+        this.slotCount = slotCount;
+        this.locks = new AtomicIntegerArray(slotCount);
+    }
+
+    /**
+     * Acquires a slot for the given worker. The method spins until a slot becomes
+     * available, so it must always be paired with {@link #releaseSlot(int)}.
+     *
+     * @param workerId worker id as passed to the reducer, -1 for work-stealing threads
+     * @return index of the acquired slot
+     */
+    public int acquireSlot(int workerId) {
+        if (workerId > -1 && workerId < slotCount && locks.compareAndSet(workerId, 0, 1)) {
+            return workerId;
+        }
+        while (true) {
+            // start from the end: lower slots are likely to be owned by workers
+            for (int i = slotCount - 1; i > -1; i--) {
+                if (locks.compareAndSet(i, 0, 1)) {
+                    return i;
+                }
+            }
+            Os.pause();
+        }
+    }
+
+    public void releaseSlot(int slot) {
+        locks.set(slot, 0);
+    }
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnCodec;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+//contiguous readable, decoded from compressed column file
+public class MemoryCMRCodecImpl extends AbstractMemoryCR implements MemoryCMR {
+    private static final Log LOG = LogFactory.getLog(MemoryCMRCodecImpl.class);
+    private final ColumnCodec codec = new ColumnCodec();
+
+    public MemoryCMRCodecImpl(FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        of(ff, name, 0, size, memoryTag);
+    }
+
+    public MemoryCMRCodecImpl() {
+    }
+
+    @Override
+    public void close() {
+        if (pageAddress != 0) {
+            Unsafe.free(pageAddress, size, MemoryTag.NATIVE_TABLE_READER);
+            this.pageAddress = 0;
+        }
+        this.size = 0;
+        if (fd != -1) {
+            ff.close(fd);
+            LOG.debug().$("closed [fd=").$(fd).$(']').$();
+            fd = -1;
+        }
+        grownLength = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        grownLength = Math.max(newSize, grownLength);
+        if (newSize > size) {
+            throw CairoException.instance(0).put("compressed column cannot be extended [fd=").put(fd)
+                    .put(", size=").put(size)
+                    .put(", newSize=").put(newSize)
+                    .put(']');
+        }
+    }
+
+    @Override
+    public boolean isMapped(long offset, long len) {
+        return offset + len <= size();
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts) {
+        close();
+        this.ff = ff;
+        fd = TableUtils.openRO(ff, name, LOG);
+        try {
+            final long fileSize = ff.length(fd);
+            if (fileSize < ColumnCodec.HEADER_SIZE) {
+                throw CairoException.instance(ff.errno()).put("compressed column file is too short [file=").put(name)
+                        .put(", size=").put(fileSize)
+                        .put(']');
+            }
+            final long fileAddress = TableUtils.mapRO(ff, fd, fileSize, memoryTag);
+            try {
+                if (size < 0) {
+                    size = ColumnCodec.getDecodedSize(fileAddress, fileSize);
+                }
+                if (size > 0) {
+                    pageAddress = Unsafe.malloc(size, MemoryTag.NATIVE_TABLE_READER);
+                    this.size = size;
+                    codec.decode(fileAddress, fileSize, pageAddress, size);
+                }
+            } finally {
+                ff.munmap(fileAddress, fileSize, memoryTag);
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+        LOG.debug().$("decoded [file=").$(name).$(", fd=").$(fd).$(", size=").$(this.size).$(']').$();
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+//contiguous readable, backed by native memory populated by the caller, e.g. column decoded from a parquet file
+public class MemoryCMRNativeImpl extends AbstractMemoryCR implements MemoryCMR {
+
+    /**
+     * Discards current content and allocates memory of the given size. Content of the new
+     * memory is undefined until the caller writes to it.
+     *
+     * @param size size of the memory in bytes
+     * @return address of the memory, 0 when size is 0
+     */
+    public long allocate0(long size) {
+        close();
+        if (size > 0) {
+            pageAddress = Unsafe.malloc(size, MemoryTag.NATIVE_TABLE_READER);
+            this.size = size;
+            lim = pageAddress + size;
+        }
+        return pageAddress;
+    }
+
+    @Override
+    public void close() {
+        if (pageAddress != 0) {
+            Unsafe.free(pageAddress, size, MemoryTag.NATIVE_TABLE_READER);
+            pageAddress = 0;
+        }
+        size = 0;
+        lim = 0;
+        grownLength = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        grownLength = Math.max(newSize, grownLength);
+        if (newSize > size) {
+            throw CairoException.instance(0).put("decoded column cannot be extended [size=").put(size)
+                    .put(", newSize=").put(newSize)
+                    .put(']');
+        }
+    }
+
+    @Override
+    public boolean isDeleted() {
+        return false;
+    }
+
+    @Override
+    public boolean isMapped(long offset, long len) {
+        return offset + len <= size();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return pageAddress != 0;
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts) {
+        throw new UnsupportedOperationException();
+    }
+}
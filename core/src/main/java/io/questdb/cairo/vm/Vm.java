@@ -108,6 +108,10 @@ public class Vm {
         return new MemoryCMRImpl(ff, name, size, memoryTag);
     }
 
+    public static MemoryMR getMRCodecInstance(FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        return new MemoryCMRCodecImpl(ff, name, size, memoryTag);
+    }
+
     public static MemoryMA getSmallMAInstance(FilesFacade ff, LPSZ name, int memoryTag, long opts) {
         return new MemoryCMARWImpl(ff, name, ff.getPageSize(), -1, memoryTag, opts);
     }
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+import static io.questdb.cairo.wal.TableSequencer.*;
+import static io.questdb.cairo.wal.WalUtils.segmentPath;
+
+/**
+ * Applies committed WAL txns to tables. Rows of a batch of txns are appended to the table
+ * writer in the sequencer order and committed along with the last applied txn. Rows that are
+ * out of order relative to the table are merged by the writer's O3 commit, which spreads
+ * partition merges across the O3 jobs of the worker pool.
+ * <p>
+ * The job is meant to be instantiated per worker. Different tables are applied
+ * concurrently, each table is applied by one worker at a time.
+ */
+public class ApplyWal2TableJob implements Job, Closeable {
+    public static final String WAL_APPLY_LOCK_REASON = "walApply";
+    private static final Log LOG = LogFactory.getLog(ApplyWal2TableJob.class);
+    private static final int MAX_TXNS_PER_COMMIT = 1024;
+    private final CairoEngine engine;
+    private final ObjList<TableSequencer> sequencers = new ObjList<>();
+    private final LongList txns = new LongList();
+    // primary and secondary column files of the segment being applied
+    private final ObjList<MemoryMR> columns = new ObjList<>();
+    private final Path path = new Path();
+    private int segmentWalId = -1;
+    private int segmentId = -1;
+
+    public ApplyWal2TableJob(CairoEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void close() {
+        closeSegment();
+        Misc.freeObjList(columns);
+        Misc.free(path);
+    }
+
+    @Override
+    public boolean run(int workerId) {
+        boolean useful = false;
+        engine.getTableSequencerRegistry().copyTo(sequencers);
+        for (int i = 0, n = sequencers.size(); i < n; i++) {
+            final TableSequencer sequencer = sequencers.getQuick(i);
+            if (sequencer.hasPendingTxns() && sequencer.tryLockApply()) {
+                try {
+                    useful |= applyTxns(sequencer);
+                } finally {
+                    sequencer.unlockApply();
+                }
+            }
+        }
+        sequencers.clear();
+        return useful;
+    }
+
+    private boolean applyTxns(TableSequencer sequencer) {
+        final String tableName = sequencer.getTableName();
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, WAL_APPLY_LOCK_REASON);
+        } catch (EntryUnavailableException e) {
+            // writer is busy, try again later
+            return false;
+        } catch (CairoException e) {
+            LOG.critical().$("could not open writer, WAL apply is suspended [table=").utf8(tableName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            sequencer.setSuspended();
+            return false;
+        }
+
+        try {
+            final long appliedTxn = writer.getSeqTxn();
+            final int txnCount = sequencer.copyTxns(appliedTxn + 1, MAX_TXNS_PER_COMMIT, txns);
+            long lastTxn = appliedTxn;
+            long rowCount = 0;
+            for (int i = 0; i < txnCount; i++) {
+                final int base = i * TXN_LONGS;
+                final long structureVersion = txns.getQuick(base + TXN_STRUCTURE_VERSION);
+                if (structureVersion != writer.getStructureVersion()) {
+                    LOG.critical().$("table structure has changed since WAL commit, WAL apply is suspended [table=").utf8(tableName)
+                            .$(", seqTxn=").$(lastTxn + 1)
+                            .$(", walStructureVersion=").$(structureVersion)
+                            .$(", tableStructureVersion=").$(writer.getStructureVersion())
+                            .I$();
+                    sequencer.setSuspended();
+                    break;
+                }
+                final long walSegment = txns.getQuick(base + TXN_WAL_SEGMENT);
+                final long rowLo = txns.getQuick(base + TXN_ROW_LO);
+                final long rowHi = txns.getQuick(base + TXN_ROW_HI);
+                copySegmentRows(
+                        writer,
+                        Numbers.decodeHighInt(walSegment),
+                        Numbers.decodeLowInt(walSegment),
+                        rowLo,
+                        rowHi
+                );
+                rowCount += rowHi - rowLo;
+                lastTxn++;
+            }
+
+            if (lastTxn > appliedTxn) {
+                writer.commitSeqTxn(lastTxn);
+                LOG.info().$("applied WAL [table=").utf8(tableName)
+                        .$(", fromSeqTxn=").$(appliedTxn + 1)
+                        .$(", toSeqTxn=").$(lastTxn)
+                        .$(", rows=").$(rowCount)
+                        .I$();
+            }
+            final long pendingSinceNanos = sequencer.setApplied(lastTxn);
+            if (lastTxn > appliedTxn && pendingSinceNanos != 0) {
+                engine.getMetrics().tableWriter().recordWalApplyWait(
+                        engine.getConfiguration().getNanosecondClock().getTicks() - pendingSinceNanos
+                );
+            }
+            closeSegment();
+            sequencer.purgeAppliedWals();
+            return lastTxn > appliedTxn;
+        } catch (Throwable th) {
+            LOG.critical().$("could not apply WAL, WAL apply is suspended [table=").utf8(tableName)
+                    .$(", error=").$(th)
+                    .I$();
+            closeSegment();
+            writer.rollback();
+            sequencer.setSuspended();
+            return false;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void closeSegment() {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryMR mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.close();
+            }
+        }
+        segmentWalId = -1;
+        segmentId = -1;
+    }
+
+    private void copySegmentRows(TableWriter writer, int walId, int segmentId, long rowLo, long rowHi) {
+        final TableWriterMetadata metadata = writer.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        final int timestampIndex = metadata.getTimestampIndex();
+        openSegment(writer.getTableName(), metadata, walId, segmentId);
+
+        final MemoryMR timestampMem = columns.getQuick(timestampIndex * 2);
+        for (long r = rowLo; r < rowHi; r++) {
+            final TableWriter.Row row = writer.newRow(timestampMem.getLong(r << 3));
+            for (int i = 0; i < columnCount; i++) {
+                final int type = metadata.getColumnType(i);
+                if (type < 0 || i == timestampIndex) {
+                    continue;
+                }
+                final MemoryMR primary = columns.getQuick(i * 2);
+                switch (ColumnType.tagOf(type)) {
+                    case ColumnType.BOOLEAN:
+                        row.putBool(i, primary.getBool(r));
+                        break;
+                    case ColumnType.BYTE:
+                        row.putByte(i, primary.getByte(r));
+                        break;
+                    case ColumnType.SHORT:
+                        row.putShort(i, primary.getShort(r << 1));
+                        break;
+                    case ColumnType.CHAR:
+                        row.putChar(i, primary.getChar(r << 1));
+                        break;
+                    case ColumnType.INT:
+                        row.putInt(i, primary.getInt(r << 2));
+                        break;
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        row.putLong(i, primary.getLong(r << 3));
+                        break;
+                    case ColumnType.FLOAT:
+                        row.putFloat(i, primary.getFloat(r << 2));
+                        break;
+                    case ColumnType.DOUBLE:
+                        row.putDouble(i, primary.getDouble(r << 3));
+                        break;
+                    case ColumnType.LONG256:
+                        row.putLong256(i, primary.getLong256A(r << 5));
+                        break;
+                    case ColumnType.GEOBYTE:
+                        row.putGeoHash(i, primary.getByte(r));
+                        break;
+                    case ColumnType.GEOSHORT:
+                        row.putGeoHash(i, primary.getShort(r << 1));
+                        break;
+                    case ColumnType.GEOINT:
+                        row.putGeoHash(i, primary.getInt(r << 2));
+                        break;
+                    case ColumnType.GEOLONG:
+                        row.putGeoHash(i, primary.getLong(r << 3));
+                        break;
+                    case ColumnType.STRING:
+                        row.putStr(i, primary.getStr(columns.getQuick(i * 2 + 1).getLong(r << 3)));
+                        break;
+                    case ColumnType.SYMBOL:
+                        row.putSym(i, primary.getStr(columns.getQuick(i * 2 + 1).getLong(r << 3)));
+                        break;
+                    case ColumnType.BINARY:
+                        row.putBin(i, primary.getBin(columns.getQuick(i * 2 + 1).getLong(r << 3)));
+                        break;
+                    default:
+                        throw CairoException.instance(0).put("unsupported WAL column type [type=").put(ColumnType.nameOf(type)).put(']');
+                }
+            }
+            row.append();
+        }
+    }
+
+    private void openSegment(CharSequence tableName, TableWriterMetadata metadata, int walId, int segmentId) {
+        final int columnCount = metadata.getColumnCount();
+        if (walId == segmentWalId && segmentId == this.segmentId) {
+            // segment might have grown since previous txn
+            for (int i = 0; i < columnCount; i++) {
+                final int type = metadata.getColumnType(i);
+                if (type > 0) {
+                    columns.getQuick(i * 2).growToFileSize();
+                    if (WalWriter.isVarSizeColumn(type)) {
+                        columns.getQuick(i * 2 + 1).growToFileSize();
+                    }
+                }
+            }
+            return;
+        }
+
+        closeSegment();
+        final FilesFacade ff = engine.getConfiguration().getFilesFacade();
+        segmentPath(path, engine.getConfiguration().getRoot(), tableName, walId, segmentId);
+        final int segmentPathLen = path.length();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final int type = metadata.getColumnType(i);
+                final int primaryIndex = i * 2;
+                if (type > 0) {
+                    final CharSequence name = metadata.getColumnName(i);
+                    getColumn(primaryIndex).wholeFile(ff, dFile(path.trimTo(segmentPathLen), name, COLUMN_NAME_TXN_NONE), MemoryTag.MMAP_TABLE_WAL_READER);
+                    if (WalWriter.isVarSizeColumn(type)) {
+                        getColumn(primaryIndex + 1).wholeFile(ff, iFile(path.trimTo(segmentPathLen), name, COLUMN_NAME_TXN_NONE), MemoryTag.MMAP_TABLE_WAL_READER);
+                    }
+                }
+            }
+        } finally {
+            path.trimTo(segmentPathLen);
+        }
+        this.segmentWalId = walId;
+        this.segmentId = segmentId;
+    }
+
+    private MemoryMR getColumn(int index) {
+        while (columns.size() <= index) {
+            columns.add(Vm.getMRInstance());
+        }
+        return columns.getQuick(index);
+    }
+}
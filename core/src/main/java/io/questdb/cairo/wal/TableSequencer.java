@@ -0,0 +1,304 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.questdb.cairo.wal.WalUtils.*;
+
+/**
+ * Orders commits of all WAL writers of a table. Each WAL commit is given the next
+ * sequencer txn, which is recorded in the txn log along with the segment rows it
+ * refers to. The log is applied to the table in the txn order by {@link ApplyWal2TableJob}.
+ * <p>
+ * Sequencer is shared by all WAL writers of the table, its methods are thread-safe.
+ */
+public class TableSequencer implements Closeable {
+    // number of longs in a txn copied out by copyTxns()
+    public static final int TXN_LONGS = 6;
+    public static final int TXN_WAL_SEGMENT = 0;
+    public static final int TXN_ROW_LO = 1;
+    public static final int TXN_ROW_HI = 2;
+    public static final int TXN_MIN_TIMESTAMP = 3;
+    public static final int TXN_MAX_TIMESTAMP = 4;
+    public static final int TXN_STRUCTURE_VERSION = 5;
+    private static final Log LOG = LogFactory.getLog(TableSequencer.class);
+    private final CairoConfiguration configuration;
+    private final String tableName;
+    private final MemoryCMARW txnLogMem;
+    // walId -> current segment id of open WAL writers
+    private final IntIntHashMap openWals = new IntIntHashMap();
+    private final AtomicBoolean applyLock = new AtomicBoolean();
+    private final Path path = new Path();
+    private final StringSink nameSink = new StringSink();
+    private long txnCount;
+    private int lastWalId;
+    private volatile long appliedTxn = -1;
+    private volatile boolean suspended;
+    // when the oldest txn not yet applied was appended, 0 when nothing is pending; txns
+    // pending since startup are not timed, they count from the first txn appended after
+    private long pendingSinceNanos;
+    private boolean closed;
+
+    TableSequencer(CairoConfiguration configuration, String tableName) {
+        this.configuration = configuration;
+        this.tableName = tableName;
+        final FilesFacade ff = configuration.getFilesFacade();
+        try {
+            path.of(configuration.getRoot()).concat(tableName);
+            final int tableRootLen = path.length();
+            if (!ff.exists(path.concat(TableUtils.META_FILE_NAME).$())) {
+                throw CairoException.instance(0).put("table does not exist [table=").put(tableName).put(']');
+            }
+            path.trimTo(tableRootLen).concat(SEQ_DIR);
+            createDirsOrFail(ff, path, configuration.getMkDirMode());
+            final boolean exists = ff.exists(path.concat(TXNLOG_FILE_NAME).$());
+            this.txnLogMem = Vm.getSmallCMARWInstance(ff, path, MemoryTag.MMAP_TABLE_WAL_WRITER, configuration.getWriterFileOpenOpts());
+            if (!exists) {
+                txnLogMem.jumpTo(0);
+                txnLogMem.putLong(TXNLOG_OFFSET_TXN_COUNT_64, 0);
+                txnLogMem.putInt(TXNLOG_OFFSET_LAST_WAL_ID_32, 0);
+            }
+            txnCount = txnLogMem.getLong(TXNLOG_OFFSET_TXN_COUNT_64);
+            lastWalId = txnLogMem.getInt(TXNLOG_OFFSET_LAST_WAL_ID_32);
+            txnLogMem.jumpTo(TXNLOG_HEADER_SIZE + txnCount * TXN_RECORD_SIZE);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            Misc.free(txnLogMem);
+            Misc.free(path);
+        }
+    }
+
+    /**
+     * Copies txns starting from the given one into the sink, {@link #TXN_LONGS} longs per txn.
+     *
+     * @param fromTxn  first txn to copy, 1-based
+     * @param maxCount maximum number of txns to copy
+     * @param sink     receives the txns
+     * @return number of txns copied
+     */
+    public synchronized int copyTxns(long fromTxn, int maxCount, LongList sink) {
+        sink.clear();
+        checkOpen();
+        int count = 0;
+        for (long txn = fromTxn; txn <= txnCount && count < maxCount; txn++, count++) {
+            final long offset = TXNLOG_HEADER_SIZE + (txn - 1) * TXN_RECORD_SIZE;
+            sink.add(Numbers.encodeLowHighInts(
+                    txnLogMem.getInt(offset + TXN_OFFSET_SEGMENT_ID_32),
+                    txnLogMem.getInt(offset + TXN_OFFSET_WAL_ID_32)
+            ));
+            sink.add(txnLogMem.getLong(offset + TXN_OFFSET_ROW_LO_64));
+            sink.add(txnLogMem.getLong(offset + TXN_OFFSET_ROW_HI_64));
+            sink.add(txnLogMem.getLong(offset + TXN_OFFSET_MIN_TIMESTAMP_64));
+            sink.add(txnLogMem.getLong(offset + TXN_OFFSET_MAX_TIMESTAMP_64));
+            sink.add(txnLogMem.getLong(offset + TXN_OFFSET_STRUCTURE_VERSION_64));
+        }
+        return count;
+    }
+
+    public long getAppliedTxn() {
+        return appliedTxn;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public synchronized long getTxnCount() {
+        return txnCount;
+    }
+
+    public boolean hasPendingTxns() {
+        return !suspended && appliedTxn < getTxnCount();
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Appends WAL commit to the txn log.
+     *
+     * @return sequencer txn of the commit, 1-based
+     */
+    public synchronized long nextTxn(
+            int walId,
+            int segmentId,
+            long rowLo,
+            long rowHi,
+            long minTimestamp,
+            long maxTimestamp,
+            long structureVersion
+    ) {
+        checkOpen();
+        if (pendingSinceNanos == 0) {
+            pendingSinceNanos = configuration.getNanosecondClock().getTicks();
+        }
+        txnLogMem.putInt(walId);
+        txnLogMem.putInt(segmentId);
+        txnLogMem.putLong(rowLo);
+        txnLogMem.putLong(rowHi);
+        txnLogMem.putLong(minTimestamp);
+        txnLogMem.putLong(maxTimestamp);
+        txnLogMem.putLong(structureVersion);
+        Unsafe.getUnsafe().storeFence();
+        txnLogMem.putLong(TXNLOG_OFFSET_TXN_COUNT_64, ++txnCount);
+        if (configuration.getCommitMode() != CommitMode.NOSYNC) {
+            txnLogMem.sync(configuration.getCommitMode() == CommitMode.ASYNC);
+        }
+        return txnCount;
+    }
+
+    void closeWal(int walId) {
+        synchronized (this) {
+            openWals.remove(walId);
+        }
+    }
+
+    synchronized int openWal() {
+        checkOpen();
+        final int walId = ++lastWalId;
+        txnLogMem.putInt(TXNLOG_OFFSET_LAST_WAL_ID_32, walId);
+        openWals.put(walId, 0);
+        return walId;
+    }
+
+    /**
+     * Removes WAL directories and segments that can no longer receive commits
+     * once all txns of the table are applied.
+     */
+    synchronized void purgeAppliedWals() {
+        if (closed || appliedTxn < txnCount) {
+            return;
+        }
+        final FilesFacade ff = configuration.getFilesFacade();
+        path.of(configuration.getRoot()).concat(tableName).$();
+        final long p = ff.findFirst(path);
+        if (p > 0) {
+            try {
+                do {
+                    nameSink.clear();
+                    Chars.utf8DecodeZ(ff.findName(p), nameSink);
+                    final int walId = parseWalId(nameSink);
+                    if (walId > 0) {
+                        final int keyIndex = openWals.keyIndex(walId);
+                        if (keyIndex > -1) {
+                            // WAL writer is gone, all of its commits are applied
+                            removeDir(walPath(path, configuration.getRoot(), tableName, walId));
+                        } else {
+                            // writer is alive, only its current segment can be appended to
+                            final int currentSegmentId = openWals.valueAt(keyIndex);
+                            for (int segmentId = 0; segmentId < currentSegmentId; segmentId++) {
+                                removeDir(segmentPath(path, configuration.getRoot(), tableName, walId, segmentId));
+                            }
+                        }
+                        path.of(configuration.getRoot()).concat(tableName).$();
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        }
+    }
+
+    /**
+     * Marks txns up to the given one as applied.
+     *
+     * @param txn last applied txn
+     * @return clock ticks when the oldest of the newly applied txns was appended, 0 when not known
+     */
+    synchronized long setApplied(long txn) {
+        final long pendingSince = pendingSinceNanos;
+        if (txn > appliedTxn) {
+            // txns left in the log have waited at least since now
+            pendingSinceNanos = txn < txnCount ? configuration.getNanosecondClock().getTicks() : 0;
+        }
+        appliedTxn = txn;
+        return pendingSince;
+    }
+
+    void setSuspended() {
+        suspended = true;
+    }
+
+    synchronized void switchSegment(int walId, int segmentId) {
+        openWals.put(walId, segmentId);
+    }
+
+    boolean tryLockApply() {
+        return applyLock.compareAndSet(false, true);
+    }
+
+    void unlockApply() {
+        applyLock.set(false);
+    }
+
+    private static int parseWalId(CharSequence name) {
+        if (Chars.startsWith(name, WAL_NAME_BASE) && name.length() > WAL_NAME_BASE.length()) {
+            try {
+                return Numbers.parseInt(name, WAL_NAME_BASE.length(), name.length());
+            } catch (NumericException ignore) {
+            }
+        }
+        return -1;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw CairoException.instance(0).put("table sequencer is closed [table=").put(tableName).put(']');
+        }
+    }
+
+    private void removeDir(Path path) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        if (ff.exists(path.$())) {
+            final int errno = ff.rmdir(path);
+            if (errno != 0) {
+                LOG.error().$("could not remove WAL directory [path=").$(path).$(", errno=").$(errno).$(']').$();
+            }
+        }
+    }
+}
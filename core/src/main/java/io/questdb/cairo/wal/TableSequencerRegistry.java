@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.wal.WalUtils.SEQ_DIR;
+
+/**
+ * Keeps a single {@link TableSequencer} per table, sequencers are opened on first use.
+ */
+public class TableSequencerRegistry implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableSequencerRegistry.class);
+    private final CairoConfiguration configuration;
+    private final CharSequenceObjHashMap<TableSequencer> sequencers = new CharSequenceObjHashMap<>();
+    private final StringSink nameSink = new StringSink();
+
+    public TableSequencerRegistry(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public synchronized void close() {
+        final ObjList<CharSequence> keys = sequencers.keys();
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            Misc.free(sequencers.get(keys.getQuick(i)));
+        }
+        sequencers.clear();
+    }
+
+    /**
+     * Copies sequencers open at the moment to the sink, the sink is cleared beforehand.
+     */
+    public synchronized void copyTo(ObjList<TableSequencer> sink) {
+        sink.clear();
+        final ObjList<CharSequence> keys = sequencers.keys();
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            sink.add(sequencers.get(keys.getQuick(i)));
+        }
+    }
+
+    public synchronized TableSequencer getSequencer(CharSequence tableName) {
+        final int index = sequencers.keyIndex(tableName);
+        if (index < 0) {
+            return sequencers.valueAt(index);
+        }
+        final String name = Chars.toString(tableName);
+        final TableSequencer sequencer = new TableSequencer(configuration, name);
+        sequencers.putAt(index, name, sequencer);
+        return sequencer;
+    }
+
+    /**
+     * Opens sequencers of all tables that have WAL, so that txns committed
+     * before restart get applied.
+     */
+    public synchronized void openExisting() {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final Path path = Path.getThreadLocal(configuration.getRoot());
+        final int rootLen = path.length();
+        final long p = ff.findFirst(path.$());
+        if (p > 0) {
+            try {
+                do {
+                    final long name = ff.findName(p);
+                    if (Files.isDir(name, ff.findType(p), nameSink)
+                            && ff.exists(path.trimTo(rootLen).concat(name).concat(SEQ_DIR).$())
+                            && sequencers.keyIndex(nameSink) > -1) {
+                        LOG.info().$("found WAL [table=").utf8(nameSink).I$();
+                        final String tableName = Chars.toString(nameSink);
+                        sequencers.put(tableName, new TableSequencer(configuration, tableName));
+                    }
+                    path.trimTo(rootLen);
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        }
+    }
+
+    /**
+     * Closes sequencer of the table, if any. WAL writers of the table cannot commit afterwards.
+     */
+    public synchronized void remove(CharSequence tableName) {
+        final int index = sequencers.keyIndex(tableName);
+        if (index < 0) {
+            Misc.free(sequencers.valueAt(index));
+            sequencers.removeAt(index);
+        }
+    }
+}
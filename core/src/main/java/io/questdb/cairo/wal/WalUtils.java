@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+
+public final class WalUtils {
+    public static final String WAL_NAME_BASE = "wal";
+    public static final String SEQ_DIR = "txn_seq";
+    public static final String TXNLOG_FILE_NAME = "_txnlog";
+
+    // txn log header
+    static final long TXNLOG_OFFSET_TXN_COUNT_64 = 0;
+    static final long TXNLOG_OFFSET_LAST_WAL_ID_32 = TXNLOG_OFFSET_TXN_COUNT_64 + 8;
+    static final long TXNLOG_HEADER_SIZE = 32;
+
+    // txn log record
+    static final long TXN_OFFSET_WAL_ID_32 = 0;
+    static final long TXN_OFFSET_SEGMENT_ID_32 = TXN_OFFSET_WAL_ID_32 + 4;
+    static final long TXN_OFFSET_ROW_LO_64 = TXN_OFFSET_SEGMENT_ID_32 + 4;
+    static final long TXN_OFFSET_ROW_HI_64 = TXN_OFFSET_ROW_LO_64 + 8;
+    static final long TXN_OFFSET_MIN_TIMESTAMP_64 = TXN_OFFSET_ROW_HI_64 + 8;
+    static final long TXN_OFFSET_MAX_TIMESTAMP_64 = TXN_OFFSET_MIN_TIMESTAMP_64 + 8;
+    static final long TXN_OFFSET_STRUCTURE_VERSION_64 = TXN_OFFSET_MAX_TIMESTAMP_64 + 8;
+    static final long TXN_RECORD_SIZE = TXN_OFFSET_STRUCTURE_VERSION_64 + 8;
+
+    private WalUtils() {
+    }
+
+    /**
+     * Checks if table sub-directory belongs to WAL rather than to a partition.
+     */
+    public static boolean isWalDir(CharSequence dirName) {
+        return Chars.equals(dirName, SEQ_DIR) || Chars.startsWith(dirName, WAL_NAME_BASE);
+    }
+
+    static void createDirsOrFail(FilesFacade ff, Path path, int mkDirMode) {
+        final int len = path.length();
+        if (ff.mkdirs(path.slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create directories [file=").put(path).put(']');
+        }
+        path.trimTo(len);
+    }
+
+    static Path walPath(Path path, CharSequence root, CharSequence tableName, int walId) {
+        return path.of(root).concat(tableName).concat(WAL_NAME_BASE).put(walId);
+    }
+
+    static Path segmentPath(Path path, CharSequence root, CharSequence tableName, int walId, int segmentId) {
+        return walPath(path, root, tableName, walId).slash().put(segmentId);
+    }
+}
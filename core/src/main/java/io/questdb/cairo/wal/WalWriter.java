@@ -0,0 +1,634 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+import static io.questdb.cairo.wal.WalUtils.*;
+
+/**
+ * Appends rows to a write-ahead log of a table. Unlike {@link TableWriter}, any number of
+ * WAL writers can be open for the same table at the same time, each of them writes to
+ * its own directory:
+ * <pre>
+ *     table/wal[walId]/[segmentId]/[column].d
+ * </pre>
+ * Rows are written in the order they are received, symbols are stored as strings.
+ * Commit does not update the table, it registers the committed rows with {@link TableSequencer}
+ * and {@link ApplyWal2TableJob} merges them into the table later on.
+ * <p>
+ * WAL writer is not thread-safe, it is meant to be owned by a single connection.
+ */
+public class WalWriter implements Closeable {
+    public static final long NO_TXN = -1;
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private static final Runnable NOOP = () -> {
+    };
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final TableSequencer sequencer;
+    private final String tableName;
+    private final TableWriterMetadata metadata;
+    private final int columnCount;
+    private final int timestampIndex;
+    private final long structureVersion;
+    private final int rolloverRowCount;
+    private final int commitMode;
+    private final ObjList<MemoryMA> columns;
+    private final ObjList<Runnable> nullSetters;
+    private final LongList rowValueIsNotNull = new LongList();
+    // data file offsets of var size columns at the end of the last appended and last committed rows
+    private final LongList varAppendOffsets = new LongList();
+    private final LongList varCommittedOffsets = new LongList();
+    private final RowImpl row = new RowImpl();
+    private final Path path = new Path();
+    private final int walId;
+    private int segmentId = -1;
+    private long segmentRowCount;
+    private long committedRowCount;
+    private long masterRef;
+    private long rowTimestamp;
+    private long txnMinTimestamp = Long.MAX_VALUE;
+    private long txnMaxTimestamp = Long.MIN_VALUE;
+    private boolean open;
+
+    public WalWriter(CairoConfiguration configuration, TableSequencer sequencer) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.sequencer = sequencer;
+        this.tableName = sequencer.getTableName();
+        this.rolloverRowCount = configuration.getWalSegmentRolloverRowCount();
+        this.commitMode = configuration.getCommitMode();
+        LOG.info().$("open [table=").utf8(tableName).I$();
+        try (MemoryMR metaMem = Vm.getMRInstance()) {
+            path.of(configuration.getRoot()).concat(tableName).concat(META_FILE_NAME).$();
+            metaMem.smallFile(ff, path, MemoryTag.MMAP_TABLE_WAL_WRITER);
+            final int partitionBy = metaMem.getInt(META_OFFSET_PARTITION_BY);
+            this.metadata = new TableWriterMetadata(metaMem);
+            if (!PartitionBy.isPartitioned(partitionBy) || metadata.getTimestampIndex() < 0) {
+                throw CairoException.instance(0)
+                        .put("WAL is only supported for partitioned tables with designated timestamp [table=")
+                        .put(tableName)
+                        .put(']');
+            }
+        } catch (Throwable e) {
+            Misc.free(path);
+            throw e;
+        }
+        this.columnCount = metadata.getColumnCount();
+        this.timestampIndex = metadata.getTimestampIndex();
+        this.structureVersion = metadata.getStructureVersion();
+        this.columns = new ObjList<>(columnCount * 2);
+        this.nullSetters = new ObjList<>(columnCount);
+        this.walId = sequencer.openWal();
+        this.open = true;
+        try {
+            configureColumns();
+            openSegment(0);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            rollback();
+            freeColumns(true);
+            sequencer.closeWal(walId);
+            Misc.free(path);
+            LOG.info().$("closed [table=").utf8(tableName).$(", walId=").$(walId).I$();
+        }
+    }
+
+    /**
+     * Makes appended rows durable according to the configured commit mode and
+     * registers them with the table sequencer.
+     *
+     * @return sequencer txn the rows will be applied to the table with or {@link #NO_TXN} when there is nothing to commit
+     */
+    public long commit() {
+        if ((masterRef & 1) != 0) {
+            rowCancel();
+        }
+
+        if (segmentRowCount == committedRowCount) {
+            return NO_TXN;
+        }
+
+        if (commitMode != CommitMode.NOSYNC) {
+            syncColumns();
+        }
+
+        final long seqTxn = sequencer.nextTxn(
+                walId,
+                segmentId,
+                committedRowCount,
+                segmentRowCount,
+                txnMinTimestamp,
+                txnMaxTimestamp,
+                structureVersion
+        );
+        committedRowCount = segmentRowCount;
+        varCommittedOffsets.clear();
+        varCommittedOffsets.add(varAppendOffsets);
+        txnMinTimestamp = Long.MAX_VALUE;
+        txnMaxTimestamp = Long.MIN_VALUE;
+
+        if (segmentRowCount >= rolloverRowCount) {
+            freeColumns(true);
+            openSegment(segmentId + 1);
+            sequencer.switchSegment(walId, segmentId);
+        }
+        return seqTxn;
+    }
+
+    public TableWriterMetadata getMetadata() {
+        return metadata;
+    }
+
+    public int getSegmentId() {
+        return segmentId;
+    }
+
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getUncommittedRowCount() {
+        return segmentRowCount - committedRowCount;
+    }
+
+    public int getWalId() {
+        return walId;
+    }
+
+    public TableWriter.Row newRow(long timestamp) {
+        if (timestamp < Timestamps.O3_MIN_TS) {
+            throw CairoException.instance(0).put("timestamp before 1970-01-01 is not allowed");
+        }
+        if ((masterRef & 1) != 0) {
+            rowCancel();
+        }
+        masterRef++;
+        rowTimestamp = timestamp;
+        row.putTimestamp(timestampIndex, timestamp);
+        return row;
+    }
+
+    /**
+     * Discards rows appended since the last commit.
+     */
+    public void rollback() {
+        if ((masterRef & 1) != 0) {
+            masterRef--;
+        }
+        if (segmentId > -1) {
+            setAppendPosition(committedRowCount, varCommittedOffsets);
+        }
+        segmentRowCount = committedRowCount;
+        varAppendOffsets.clear();
+        varAppendOffsets.add(varCommittedOffsets);
+        rowValueIsNotNull.fill(0, columnCount, masterRef);
+        txnMinTimestamp = Long.MAX_VALUE;
+        txnMaxTimestamp = Long.MIN_VALUE;
+    }
+
+    private static void configureNullSetters(ObjList<Runnable> nullers, int type, MemoryA mem1, MemoryA mem2) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                nullers.add(() -> mem1.putByte((byte) 0));
+                break;
+            case ColumnType.DOUBLE:
+                nullers.add(() -> mem1.putDouble(Double.NaN));
+                break;
+            case ColumnType.FLOAT:
+                nullers.add(() -> mem1.putFloat(Float.NaN));
+                break;
+            case ColumnType.INT:
+                nullers.add(() -> mem1.putInt(Numbers.INT_NaN));
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                nullers.add(() -> mem1.putLong(Numbers.LONG_NaN));
+                break;
+            case ColumnType.LONG256:
+                nullers.add(() -> mem1.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN));
+                break;
+            case ColumnType.SHORT:
+                nullers.add(() -> mem1.putShort((short) 0));
+                break;
+            case ColumnType.CHAR:
+                nullers.add(() -> mem1.putChar((char) 0));
+                break;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                // symbol values are stored as strings, the table writer resolves them on apply
+                nullers.add(() -> mem2.putLong(mem1.putNullStr()));
+                break;
+            case ColumnType.BINARY:
+                nullers.add(() -> mem2.putLong(mem1.putNullBin()));
+                break;
+            case ColumnType.GEOBYTE:
+                nullers.add(() -> mem1.putByte(GeoHashes.BYTE_NULL));
+                break;
+            case ColumnType.GEOSHORT:
+                nullers.add(() -> mem1.putShort(GeoHashes.SHORT_NULL));
+                break;
+            case ColumnType.GEOINT:
+                nullers.add(() -> mem1.putInt(GeoHashes.INT_NULL));
+                break;
+            case ColumnType.GEOLONG:
+                nullers.add(() -> mem1.putLong(GeoHashes.NULL));
+                break;
+            default:
+                nullers.add(NOOP);
+        }
+    }
+
+    static boolean isVarSizeColumn(int columnType) {
+        return ColumnType.isVariableLength(columnType) || ColumnType.isSymbol(columnType);
+    }
+
+    private void configureColumns() {
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (type > 0) {
+                final MemoryMA primary = Vm.getMAInstance();
+                final MemoryMA secondary = isVarSizeColumn(type) ? Vm.getMAInstance() : null;
+                columns.add(primary);
+                columns.add(secondary);
+                configureNullSetters(nullSetters, type, primary, secondary);
+            } else {
+                // deleted column
+                columns.add(null);
+                columns.add(null);
+                nullSetters.add(NOOP);
+            }
+        }
+        rowValueIsNotNull.setPos(columnCount);
+        rowValueIsNotNull.fill(0, columnCount, masterRef);
+        varAppendOffsets.setPos(columnCount);
+        varCommittedOffsets.setPos(columnCount);
+    }
+
+    private void freeColumns(boolean truncate) {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryMA mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.close(truncate);
+            }
+        }
+    }
+
+    private MemoryMA getPrimaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2);
+    }
+
+    private MemoryMA getSecondaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2 + 1);
+    }
+
+    private void openSegment(int segmentId) {
+        segmentPath(path, configuration.getRoot(), tableName, walId, segmentId);
+        createDirsOrFail(ff, path, configuration.getMkDirMode());
+        final int segmentPathLen = path.length();
+        final long pageSize = configuration.getDataAppendPageSize();
+        final long opts = configuration.getWriterFileOpenOpts();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final MemoryMA primary = getPrimaryColumn(i);
+                if (primary != null) {
+                    final CharSequence name = metadata.getColumnName(i);
+                    primary.of(ff, dFile(path.trimTo(segmentPathLen), name, COLUMN_NAME_TXN_NONE), pageSize, MemoryTag.MMAP_TABLE_WAL_WRITER, opts);
+                    final MemoryMA secondary = getSecondaryColumn(i);
+                    if (secondary != null) {
+                        secondary.of(ff, iFile(path.trimTo(segmentPathLen), name, COLUMN_NAME_TXN_NONE), pageSize, MemoryTag.MMAP_TABLE_WAL_WRITER, opts);
+                        // offset of the first value
+                        secondary.putLong(0);
+                    }
+                }
+            }
+        } finally {
+            path.trimTo(segmentPathLen);
+        }
+        this.segmentId = segmentId;
+        segmentRowCount = 0;
+        committedRowCount = 0;
+        varAppendOffsets.fill(0, columnCount, 0);
+        varCommittedOffsets.fill(0, columnCount, 0);
+        LOG.info().$("opened WAL segment [path=").$(path).I$();
+    }
+
+    private void rowAppend() {
+        if ((masterRef & 1) != 0) {
+            for (int i = 0; i < columnCount; i++) {
+                if (rowValueIsNotNull.getQuick(i) < masterRef) {
+                    nullSetters.getQuick(i).run();
+                }
+            }
+            masterRef++;
+            segmentRowCount++;
+            for (int i = 0; i < columnCount; i++) {
+                final MemoryMA secondary = getSecondaryColumn(i);
+                if (secondary != null) {
+                    varAppendOffsets.setQuick(i, getPrimaryColumn(i).getAppendOffset());
+                }
+            }
+            txnMinTimestamp = Math.min(txnMinTimestamp, rowTimestamp);
+            txnMaxTimestamp = Math.max(txnMaxTimestamp, rowTimestamp);
+        }
+    }
+
+    private void rowCancel() {
+        if ((masterRef & 1) == 0) {
+            return;
+        }
+        setAppendPosition(segmentRowCount, varAppendOffsets);
+        masterRef--;
+        rowValueIsNotNull.fill(0, columnCount, masterRef);
+    }
+
+    private void setAppendPosition(long rowCount, LongList varOffsets) {
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryMA primary = getPrimaryColumn(i);
+            if (primary != null) {
+                final MemoryMA secondary = getSecondaryColumn(i);
+                if (secondary != null) {
+                    primary.jumpTo(varOffsets.getQuick(i));
+                    secondary.jumpTo((rowCount + 1) * Long.BYTES);
+                } else {
+                    primary.jumpTo(rowCount << ColumnType.pow2SizeOf(metadata.getColumnType(i)));
+                }
+            }
+        }
+    }
+
+    private void setRowValueNotNull(int columnIndex) {
+        assert rowValueIsNotNull.getQuick(columnIndex) != masterRef;
+        rowValueIsNotNull.setQuick(columnIndex, masterRef);
+    }
+
+    private void syncColumns() {
+        final boolean async = commitMode == CommitMode.ASYNC;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryMA mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.sync(async);
+            }
+        }
+    }
+
+    private class RowImpl implements TableWriter.Row {
+        @Override
+        public void append() {
+            rowAppend();
+        }
+
+        @Override
+        public void cancel() {
+            rowCancel();
+        }
+
+        @Override
+        public void putBin(int columnIndex, long address, long len) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(address, len));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putBin(int columnIndex, BinarySequence sequence) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(sequence));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putBool(int columnIndex, boolean value) {
+            getPrimaryColumn(columnIndex).putBool(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putByte(int columnIndex, byte value) {
+            getPrimaryColumn(columnIndex).putByte(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putChar(int columnIndex, char value) {
+            getPrimaryColumn(columnIndex).putChar(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putDate(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putDouble(int columnIndex, double value) {
+            getPrimaryColumn(columnIndex).putDouble(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putFloat(int columnIndex, float value) {
+            getPrimaryColumn(columnIndex).putFloat(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putGeoHash(int index, long value) {
+            putGeoHash0(index, value, metadata.getColumnType(index));
+        }
+
+        @Override
+        public void putGeoHashDeg(int index, double lat, double lon) {
+            final int type = metadata.getColumnType(index);
+            putGeoHash0(index, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(type)), type);
+        }
+
+        @Override
+        public void putGeoStr(int index, CharSequence hash) {
+            long val;
+            final int type = metadata.getColumnType(index);
+            if (hash != null) {
+                final int hashLen = hash.length();
+                final int typeBits = ColumnType.getGeoHashBits(type);
+                final int charsRequired = (typeBits - 1) / 5 + 1;
+                if (hashLen < charsRequired) {
+                    val = GeoHashes.NULL;
+                } else {
+                    try {
+                        val = ColumnType.truncateGeoHashBits(
+                                GeoHashes.fromString(hash, 0, charsRequired),
+                                charsRequired * 5,
+                                typeBits
+                        );
+                    } catch (NumericException e) {
+                        val = GeoHashes.NULL;
+                    }
+                }
+            } else {
+                val = GeoHashes.NULL;
+            }
+            putGeoHash0(index, val, type);
+        }
+
+        @Override
+        public void putInt(int columnIndex, int value) {
+            getPrimaryColumn(columnIndex).putInt(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong(int columnIndex, long value) {
+            getPrimaryColumn(columnIndex).putLong(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
+            getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, Long256 value) {
+            getPrimaryColumn(columnIndex).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, CharSequence hexString) {
+            getPrimaryColumn(columnIndex).putLong256(hexString);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, @NotNull CharSequence hexString, int start, int end) {
+            getPrimaryColumn(columnIndex).putLong256(hexString, start, end);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putShort(int columnIndex, short value) {
+            getPrimaryColumn(columnIndex).putShort(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, char value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value, int pos, int len) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value, pos, len));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putSym(int columnIndex, CharSequence value) {
+            putStr(columnIndex, value);
+        }
+
+        @Override
+        public void putSym(int columnIndex, char value) {
+            putStr(columnIndex, value);
+        }
+
+        @Override
+        public void putSymIndex(int columnIndex, int symIndex) {
+            // symbol keys are only known to the table writer
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, CharSequence value) {
+            // try UTC timestamp first (micro)
+            long l;
+            try {
+                l = value != null ? IntervalUtils.parseFloorPartialDate(value) : Numbers.LONG_NaN;
+            } catch (NumericException e) {
+                throw CairoException.instance(0).put("Invalid timestamp: ").put(value);
+            }
+            putTimestamp(columnIndex, l);
+        }
+
+        private void putGeoHash0(int index, long value, int type) {
+            final MemoryA primaryColumn = getPrimaryColumn(index);
+            switch (ColumnType.tagOf(type)) {
+                case ColumnType.GEOBYTE:
+                    primaryColumn.putByte((byte) value);
+                    break;
+                case ColumnType.GEOSHORT:
+                    primaryColumn.putShort((short) value);
+                    break;
+                case ColumnType.GEOINT:
+                    primaryColumn.putInt((int) value);
+                    break;
+                default:
+                    primaryColumn.putLong(value);
+                    break;
+            }
+            setRowValueNotNull(index);
+        }
+    }
+}
@@ -253,7 +253,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
                 keepGoing = handleClientRecv(selector, rescheduleContext);
                 break;
             case IOOperation.WRITE:
-                keepGoing = handleClientSend();
+                keepGoing = handleClientSend(rescheduleContext);
                 break;
             default:
                 dispatcher.disconnect(this, DISCONNECT_REASON_UNKNOWN_OPERATION);
@@ -605,13 +605,17 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         return busyRecv;
     }
 
-    private boolean handleClientSend() {
+    private boolean handleClientSend(RescheduleContext rescheduleContext) {
         if (resumeProcessor != null) {
             try {
                 responseSink.resumeSend();
                 resumeProcessor.resumeSend(this);
                 clear();
                 return true;
+            } catch (RetryOperationException e) {
+                // processor has sent all it had and waits for more data to stream
+                pendingRetry = true;
+                scheduleRetry(resumeProcessor, rescheduleContext);
             } catch (PeerIsSlowToReadException ignore) {
                 resumeProcessor.parkRequest(this);
                 LOG.debug().$("peer is slow reader").$();
@@ -183,6 +183,23 @@ public class HttpServer implements Closeable {
             }
         });
 
+        server.bind(new HttpRequestProcessorFactory() {
+            @Override
+            public HttpRequestProcessor newInstance() {
+                return new TableSubscriptionProcessor(
+                        configuration.getJsonQueryProcessorConfiguration(),
+                        cairoEngine,
+                        workerPool.getWorkerCount(),
+                        functionFactoryCache
+                );
+            }
+
+            @Override
+            public String getUrl() {
+                return "/sub";
+            }
+        });
+
         server.bind(new HttpRequestProcessorFactory() {
             @Override
             public HttpRequestProcessor newInstance() {
@@ -25,6 +25,7 @@
 package io.questdb.cutlass.http.processors;
 
 import io.questdb.metrics.Counter;
+import io.questdb.metrics.Histogram;
 import io.questdb.metrics.MetricsRegistry;
 import org.jetbrains.annotations.TestOnly;
 
@@ -32,17 +33,21 @@ public class JsonQueryMetrics {
 
     private final Counter startedQueriesCounter;
     private final Counter completedQueriesCounter;
+    private final Histogram latencyHistogram;
 
     public JsonQueryMetrics(MetricsRegistry metricsRegistry) {
         this.startedQueriesCounter = metricsRegistry.newCounter("json_queries");
         this.completedQueriesCounter = metricsRegistry.newCounter("json_queries_completed");
+        this.latencyHistogram = metricsRegistry.newHistogram("json_queries_latency");
     }
 
     public void markStart() {
         startedQueriesCounter.inc();
     }
 
-    public void markComplete() {
+    public void markComplete(long executionNanos) {
+        // latency is recorded first, so it is accounted for once the query is seen as completed
+        latencyHistogram.record(executionNanos);
         completedQueriesCounter.inc();
     }
 
@@ -55,4 +60,9 @@ public class JsonQueryMetrics {
     public long completedQueriesCount() {
         return completedQueriesCounter.get();
     }
+
+    @TestOnly
+    public Histogram latency() {
+        return latencyHistogram;
+    }
 }
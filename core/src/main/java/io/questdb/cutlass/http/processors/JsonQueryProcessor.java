@@ -306,7 +306,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CompiledQuery cq,
             CharSequence keepAliveHeader
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        metrics.jsonQuery().markComplete();
+        metrics.jsonQuery().markComplete(state.getExecutionTime());
         sendConfirmation(state, keepAliveHeader);
     }
 
@@ -387,7 +387,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 fut.close();
             }
         }
-        metrics.jsonQuery().markComplete();
+        metrics.jsonQuery().markComplete(state.getExecutionTime());
         sendConfirmation(state, keepAliveHeader);
     }
 
@@ -439,7 +439,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             }
             // All good, finished update
             final long updatedCount = fut.getAffectedRowsCount();
-            metrics.jsonQuery().markComplete();
+            metrics.jsonQuery().markComplete(state.getExecutionTime());
             sendUpdateConfirmation(state, keepAliveHeader, updatedCount);
         } finally {
             if (!isAsyncWait && fut != null) {
@@ -491,7 +491,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CharSequence keepAliveHeader
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         cq.getInsertOperation().execute(sqlExecutionContext).await();
-        metrics.jsonQuery().markComplete();
+        metrics.jsonQuery().markComplete(state.getExecutionTime());
         sendConfirmation(state, keepAliveHeader);
     }
 
@@ -518,7 +518,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             if (state.of(factory, sqlExecutionContext)) {
                 header(context.getChunkedResponseSocket(), keepAliveHeader, 200);
                 doResumeSend(state, context);
-                metrics.jsonQuery().markComplete();
+                metrics.jsonQuery().markComplete(state.getExecutionTime());
             } else {
                 readyForNextRequest(context);
             }
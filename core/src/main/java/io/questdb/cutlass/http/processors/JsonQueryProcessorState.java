@@ -286,6 +286,84 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         socket.sendChunk(true);
     }
 
+    static void putValue(
+            HttpChunkedResponseSocket socket,
+            Record rec,
+            int col,
+            int columnType,
+            int geoHashBitFlags,
+            boolean quoteLargeNum,
+            int floatScale,
+            int doubleScale
+    ) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                putBooleanValue(socket, rec, col);
+                break;
+            case ColumnType.BYTE:
+                putByteValue(socket, rec, col);
+                break;
+            case ColumnType.DOUBLE:
+                putDoubleValue(socket, rec, col, doubleScale);
+                break;
+            case ColumnType.FLOAT:
+                putFloatValue(socket, rec, col, floatScale);
+                break;
+            case ColumnType.INT:
+                putIntValue(socket, rec, col);
+                break;
+            case ColumnType.LONG:
+                putLongValue(socket, rec, col, quoteLargeNum);
+                break;
+            case ColumnType.DATE:
+                putDateValue(socket, rec, col);
+                break;
+            case ColumnType.TIMESTAMP:
+                putTimestampValue(socket, rec, col);
+                break;
+            case ColumnType.SHORT:
+                putShortValue(socket, rec, col);
+                break;
+            case ColumnType.CHAR:
+                putCharValue(socket, rec, col);
+                break;
+            case ColumnType.STRING:
+                putStrValue(socket, rec, col);
+                break;
+            case ColumnType.SYMBOL:
+                putSymValue(socket, rec, col);
+                break;
+            case ColumnType.BINARY:
+                putBinValue(socket);
+                break;
+            case ColumnType.LONG256:
+                putLong256Value(socket, rec, col);
+                break;
+            case ColumnType.GEOBYTE:
+                putGeoHashStringByteValue(socket, rec, col, geoHashBitFlags);
+                break;
+            case ColumnType.GEOSHORT:
+                putGeoHashStringShortValue(socket, rec, col, geoHashBitFlags);
+                break;
+            case ColumnType.GEOINT:
+                putGeoHashStringIntValue(socket, rec, col, geoHashBitFlags);
+                break;
+            case ColumnType.GEOLONG:
+                putGeoHashStringLongValue(socket, rec, col, geoHashBitFlags);
+                break;
+            case ColumnType.RECORD:
+                putRecValue(socket);
+                break;
+            case ColumnType.NULL:
+                socket.put("null");
+                break;
+            default:
+                assert false : "Not supported type in output " + ColumnType.nameOf(columnType);
+                socket.put("null"); // To make JSON valid
+                break;
+        }
+    }
+
     private static void putStringOrNull(CharSink r, CharSequence str) {
         if (str == null) {
             r.put("null");
@@ -523,72 +601,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
 
             int columnIdx = columnSkewList.size() > 0 ? columnSkewList.getQuick(columnIndex) : columnIndex;
             int columnType = columnTypesAndFlags.getQuick(2 * columnIndex);
-            switch (ColumnType.tagOf(columnType)) {
-                case ColumnType.BOOLEAN:
-                    putBooleanValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.BYTE:
-                    putByteValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.DOUBLE:
-                    putDoubleValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.FLOAT:
-                    putFloatValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.INT:
-                    putIntValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.LONG:
-                    putLongValue(socket, record, columnIdx, quoteLargeNum);
-                    break;
-                case ColumnType.DATE:
-                    putDateValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.TIMESTAMP:
-                    putTimestampValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.SHORT:
-                    putShortValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.CHAR:
-                    putCharValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.STRING:
-                    putStrValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.SYMBOL:
-                    putSymValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.BINARY:
-                    putBinValue(socket);
-                    break;
-                case ColumnType.LONG256:
-                    putLong256Value(socket, record, columnIdx);
-                    break;
-                case ColumnType.GEOBYTE:
-                    putGeoHashStringByteValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOSHORT:
-                    putGeoHashStringShortValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOINT:
-                    putGeoHashStringIntValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOLONG:
-                    putGeoHashStringLongValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.RECORD:
-                    putRecValue(socket);
-                    break;
-                case ColumnType.NULL:
-                    socket.put("null");
-                    break;
-                default:
-                    assert false : "Not supported type in output " + ColumnType.nameOf(columnType);
-                    socket.put("null"); // To make JSON valid
-                    break;
-            }
+            putValue(socket, record, columnIdx, columnType, columnTypesAndFlags.getQuick(2 * columnIndex + 1), quoteLargeNum, floatScale, doubleScale);
         }
     }
 
@@ -801,16 +814,16 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return true;
     }
 
-    private void putBinValue(HttpChunkedResponseSocket socket) {
+    private static void putBinValue(HttpChunkedResponseSocket socket) {
         socket.put('[');
         socket.put(']');
     }
 
-    private void putDoubleValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putDoubleValue(HttpChunkedResponseSocket socket, Record rec, int col, int doubleScale) {
         socket.put(rec.getDouble(col), doubleScale);
     }
 
-    private void putFloatValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putFloatValue(HttpChunkedResponseSocket socket, Record rec, int col, int floatScale) {
         socket.put(rec.getFloat(col), floatScale);
     }
 
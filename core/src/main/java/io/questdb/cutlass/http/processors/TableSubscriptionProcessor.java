@@ -0,0 +1,264 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoError;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
+import io.questdb.cutlass.http.HttpChunkedResponseSocket;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpRequestHeader;
+import io.questdb.cutlass.http.HttpRequestProcessor;
+import io.questdb.cutlass.http.LocalValue;
+import io.questdb.cutlass.http.RetryAttemptAttributes;
+import io.questdb.cutlass.http.ex.RetryOperationException;
+import io.questdb.cutlass.text.TextUtil;
+import io.questdb.cutlass.text.Utf8Exception;
+import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.table.TableReaderRowFilter;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.Misc;
+import io.questdb.std.NumericException;
+import io.questdb.std.Numbers;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams rows appended to a table to the client as they are committed. Request parameters:
+ * <ul>
+ * <li>table - name of the table</li>
+ * <li>filter - optional boolean expression over the table's columns, e.g. {@code price > 10 and sym = 'A'}</li>
+ * <li>rows - optional number of the table's rows the client has already seen, streaming starts after
+ * them rather than at the end of the table</li>
+ * </ul>
+ * Response is a chunked stream of JSON lines. The first line describes the table's columns, each row is
+ * sent as a JSON array. Every batch of rows is followed by a {@code {"txn":..,"rows":..}} line with the
+ * table's txn and row count the batch brings the client to, the row count can be used to resume the
+ * subscription. The same line is repeated as heartbeat while nothing is committed.
+ * <p>
+ * Waiting for commits does not occupy a worker, the request is parked in the retry queue of the HTTP
+ * server and wakes up to compare the table's commit counter with the value it has seen. The reader is
+ * reloaded only when the counter has moved, so idle subscriptions do not touch the table's files and
+ * a commit costs one reload per subscription. The next batch is not scanned until the previous one
+ * has been handed over to the client, slow clients hold back only their own subscriptions.
+ * <p>
+ * Rows are streamed in the order they are stored. Rows committed out of order before rows that have
+ * already been streamed shift them, and shifted rows may be streamed again.
+ */
+public class TableSubscriptionProcessor implements HttpRequestProcessor, Closeable {
+    // the table is reloaded at least this often to pick up commits of writers that are not pooled
+    private static final long RELOAD_INTERVAL_MS = 1000;
+    private static final long HEARTBEAT_INTERVAL_MS = 5000;
+    private static final LocalValue<TableSubscriptionProcessorState> LV = new LocalValue<>();
+    private static final Log LOG = LogFactory.getLog(TableSubscriptionProcessor.class);
+    private final CairoEngine engine;
+    private final JsonQueryProcessorConfiguration configuration;
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl sqlExecutionContext;
+    private final MillisecondClock clock;
+    private final int scanBatchSize;
+
+    public TableSubscriptionProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            int workerCount,
+            @Nullable FunctionFactoryCache functionFactoryCache
+    ) {
+        this.configuration = configuration;
+        this.engine = engine;
+        this.compiler = new SqlCompiler(engine, functionFactoryCache, null);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount);
+        this.clock = configuration.getClock();
+        this.scanBatchSize = engine.getConfiguration().getSqlPageFrameMaxRows();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+    }
+
+    @Override
+    public void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        TableSubscriptionProcessorState state = LV.get(context);
+        if (state == null) {
+            LV.set(context, state = new TableSubscriptionProcessorState(
+                    context,
+                    configuration.getFloatScale(),
+                    configuration.getDoubleScale(),
+                    scanBatchSize
+            ));
+        }
+
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        final HttpRequestHeader header = context.getRequestHeader();
+        long skipRows = -1;
+        try {
+            decode(header.getUrlParam("table"), state.tableName);
+            decode(header.getUrlParam("filter"), state.filterText);
+            final CharSequence rows = header.getUrlParam("rows");
+            if (rows != null) {
+                skipRows = Numbers.parseLong(rows);
+            }
+        } catch (Utf8Exception e) {
+            sendException(socket, 0, "Bad UTF8 encoding in request parameters", state);
+            return;
+        } catch (NumericException e) {
+            sendException(socket, 0, "invalid rows value", state);
+            return;
+        }
+        if (state.tableName.length() == 0) {
+            sendException(socket, 0, "table name missing", state);
+            return;
+        }
+
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), null);
+        TableReader reader = null;
+        TableReaderRowFilter filter = null;
+        try {
+            // take the counter before opening the reader so that no commit goes unnoticed
+            final AtomicLong commitCount = engine.getCommitTracker().getCommitCount(state.tableName);
+            reader = engine.getReader(context.getCairoSecurityContext(), state.tableName);
+            if (state.filterText.length() > 0) {
+                filter = compiler.compileRowFilter(state.filterText, reader, sqlExecutionContext);
+            }
+            final TableReader r = reader;
+            final TableReaderRowFilter f = filter;
+            reader = null;
+            filter = null;
+            if (!state.of(r, f, commitCount, skipRows, sqlExecutionContext, clock.getTicks())) {
+                sendException(socket, 0, "rows value is beyond the end of the table", state);
+                return;
+            }
+            state.info().$("subscribed [table=").utf8(state.tableName)
+                    .$(", filter=`").utf8(state.filterText)
+                    .$("`, jit=").$(f != null && f.usesCompiledFilter())
+                    .$(", rows=").$(skipRows).I$();
+        } catch (SqlException e) {
+            Misc.free(filter);
+            Misc.free(reader);
+            sendException(socket, e.getPosition(), e.getFlyweightMessage(), state);
+            return;
+        } catch (CairoException | CairoError e) {
+            Misc.free(filter);
+            Misc.free(reader);
+            sendException(socket, 0, e instanceof CairoException ? ((CairoException) e).getFlyweightMessage() : e.getMessage(), state);
+            return;
+        }
+
+        socket.status(200, "application/x-ndjson; charset=utf-8");
+        socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        socket.sendHeader();
+        stream(state, context);
+    }
+
+    @Override
+    public void onRequestRetry(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final TableSubscriptionProcessorState state = LV.get(context);
+        if (state == null || !state.isWaiting()) {
+            return;
+        }
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), null);
+        final long now = clock.getTicks();
+        try {
+            if (state.checkForNewRows(sqlExecutionContext, now, RELOAD_INTERVAL_MS)) {
+                stream(state, context);
+            } else if (state.needsHeartbeat(now, HEARTBEAT_INTERVAL_MS)) {
+                state.prepareHeartbeat();
+                stream(state, context);
+            }
+        } catch (SqlException | CairoException e) {
+            state.info().$("subscription ended [table=").utf8(state.tableName)
+                    .$(", error=").$(e.getFlyweightMessage()).I$();
+            state.sendError(context.getChunkedResponseSocket(), e.getFlyweightMessage());
+            return;
+        }
+        throw RetryOperationException.INSTANCE;
+    }
+
+    @Override
+    public void resumeSend(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final TableSubscriptionProcessorState state = LV.get(context);
+        if (state == null || state.isDone()) {
+            return;
+        }
+        stream(state, context);
+    }
+
+    private static void decode(DirectByteCharSequence value, StringSink sink) throws Utf8Exception {
+        if (value != null) {
+            TextUtil.utf8Decode(value.getLo(), value.getHi(), sink);
+        }
+    }
+
+    private void sendException(
+            HttpChunkedResponseSocket socket,
+            int position,
+            CharSequence message,
+            TableSubscriptionProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        state.info().$("subscription rejected [table=").utf8(state.tableName)
+                .$(", error=").$(message).I$();
+        JsonQueryProcessor.sendException(socket, position, message, state.filterText, configuration.getKeepAliveHeader());
+    }
+
+    private void stream(
+            TableSubscriptionProcessorState state,
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        while (true) {
+            try {
+                state.resume(socket, clock.getTicks());
+                break;
+            } catch (NoSpaceLeftInResponseBufferException ignored) {
+                if (socket.resetToBookmark()) {
+                    socket.sendChunk(false);
+                } else {
+                    // row does not fit response buffer
+                    state.info().$("Response buffer is too small for a row [table=").utf8(state.tableName).I$();
+                    throw PeerDisconnectedException.INSTANCE;
+                }
+            }
+        }
+        // batch has been handed over to the client, restart the back-off to poll the table
+        // eagerly in case there is more to come
+        final RetryAttemptAttributes attemptDetails = context.getAttemptDetails();
+        attemptDetails.waitStartTimestamp = attemptDetails.lastRunTimestamp;
+        throw RetryOperationException.INSTANCE;
+    }
+}
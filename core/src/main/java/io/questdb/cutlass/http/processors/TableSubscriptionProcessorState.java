@@ -0,0 +1,349 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderMetadata;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.TableReaderTailRecordCursor;
+import io.questdb.cutlass.http.HttpChunkedResponseSocket;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.table.TableReaderRowFilter;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.log.LogRecord;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TableSubscriptionProcessorState implements Mutable, Closeable {
+    static final int STATE_PREFIX = 0;
+    static final int STATE_SCAN_START = 1;
+    static final int STATE_SCAN = 2;
+    static final int STATE_MARKER = 3;
+    static final int STATE_FLUSH = 4;
+    static final int STATE_WAIT = 5;
+    static final int STATE_DONE = 6;
+    private static final Log LOG = LogFactory.getLog(TableSubscriptionProcessorState.class);
+    final StringSink tableName = new StringSink();
+    final StringSink filterText = new StringSink();
+    private final HttpConnectionContext httpConnectionContext;
+    private final TableReaderTailRecordCursor cursor = new TableReaderTailRecordCursor();
+    private final IntList columnTypesAndFlags = new IntList();
+    private final int floatScale;
+    private final int doubleScale;
+    private final int scanBatchSize;
+    private TableReader reader;
+    private TableReaderRowFilter filter;
+    private AtomicLong commitCount;
+    private long seenCommitCount;
+    private long structureVersion;
+    private int state = STATE_DONE;
+    private int partitionIndex;
+    private int partitionCount;
+    private long rowLo;
+    private long partitionHi;
+    private DirectLongList filteredRows;
+    private long filteredRowPos;
+    private long rowCount;
+    private long lastSendMs;
+    private long lastReloadMs;
+
+    public TableSubscriptionProcessorState(
+            HttpConnectionContext httpConnectionContext,
+            int floatScale,
+            int doubleScale,
+            int scanBatchSize
+    ) {
+        this.httpConnectionContext = httpConnectionContext;
+        this.floatScale = floatScale;
+        this.doubleScale = doubleScale;
+        this.scanBatchSize = scanBatchSize;
+    }
+
+    @Override
+    public void clear() {
+        state = STATE_DONE;
+        cursor.close();
+        reader = null;
+        filter = Misc.free(filter);
+        filteredRows = null;
+        filteredRowPos = 0;
+        commitCount = null;
+        columnTypesAndFlags.clear();
+        tableName.clear();
+        filterText.clear();
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public long getFd() {
+        return httpConnectionContext.getFd();
+    }
+
+    public HttpConnectionContext getHttpConnectionContext() {
+        return httpConnectionContext;
+    }
+
+    /**
+     * Checks the table for commits made since the last look at it. The reader is reloaded only when
+     * the table's commit counter has moved, or every reload interval to pick up commits made by writers
+     * that do not report to the commit tracker.
+     *
+     * @return true when there are new rows to stream
+     * @throws io.questdb.cairo.CairoException when table's structure has changed, or it cannot be reloaded
+     */
+    boolean checkForNewRows(SqlExecutionContext executionContext, long nowMs, long reloadIntervalMs) throws SqlException {
+        final long count = commitCount.get();
+        if (count == seenCommitCount && nowMs - lastReloadMs < reloadIntervalMs) {
+            return false;
+        }
+        // remember the counter before reload, commits racing the reload are picked up next time
+        seenCommitCount = count;
+        lastReloadMs = nowMs;
+        if (!cursor.reload()) {
+            return false;
+        }
+        if (reader.getVersion() != structureVersion) {
+            throw CairoException.instance(0).put("table structure has changed [table=").put(tableName).put(']');
+        }
+        if (filter != null) {
+            // symbol keys of filter's constants are resolved against the reloaded symbol tables
+            filter.init(reader, executionContext);
+        }
+        state = STATE_SCAN_START;
+        return true;
+    }
+
+    LogRecord info() {
+        return LOG.info().$('[').$(getFd()).$("] ");
+    }
+
+    boolean isDone() {
+        return state == STATE_DONE;
+    }
+
+    boolean isWaiting() {
+        return state == STATE_WAIT;
+    }
+
+    boolean needsHeartbeat(long nowMs, long heartbeatIntervalMs) {
+        return nowMs - lastSendMs >= heartbeatIntervalMs;
+    }
+
+    /**
+     * Prepares streaming of rows of the table. Streaming starts after the given number of rows,
+     * or at the end of the table when the number is negative.
+     *
+     * @return false when the table has fewer rows than the given number
+     */
+    boolean of(
+            TableReader reader,
+            TableReaderRowFilter filter,
+            AtomicLong commitCount,
+            long skipRows,
+            SqlExecutionContext executionContext,
+            long nowMs
+    ) throws SqlException {
+        // the state owns reader and filter from now on
+        cursor.of(reader);
+        this.reader = reader;
+        this.filter = filter;
+        this.commitCount = commitCount;
+        // the reader could have been opened before commits that are already counted,
+        // make the first check reload it
+        this.seenCommitCount = -1;
+        this.structureVersion = reader.getVersion();
+        this.lastReloadMs = nowMs;
+        if (skipRows < 0) {
+            cursor.toBottom();
+        } else if (!cursor.toRow(skipRows)) {
+            return false;
+        }
+        if (filter != null) {
+            filter.init(reader, executionContext);
+        }
+        final TableReaderMetadata metadata = reader.getMetadata();
+        columnTypesAndFlags.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            columnTypesAndFlags.add(columnType);
+            columnTypesAndFlags.add(GeoHashes.getBitFlags(columnType));
+        }
+        state = STATE_PREFIX;
+        return true;
+    }
+
+    /**
+     * Sends rows found by the last scan of the table followed by the commit marker, returns when
+     * all of them have been handed over to the socket.
+     */
+    void resume(HttpChunkedResponseSocket socket, long nowMs) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        switch (state) {
+            case STATE_PREFIX:
+                socket.bookmark();
+                putPrefix(socket);
+                state = STATE_SCAN_START;
+                // fall through
+            case STATE_SCAN_START:
+                startScan();
+                state = STATE_SCAN;
+                // fall through
+            case STATE_SCAN:
+                scan(socket);
+                cursor.toBottom();
+                rowCount = reader.size();
+                state = STATE_MARKER;
+                // fall through
+            case STATE_MARKER:
+                socket.bookmark();
+                putMarker(socket);
+                state = STATE_FLUSH;
+                // fall through
+            case STATE_FLUSH:
+                lastSendMs = nowMs;
+                state = STATE_WAIT;
+                socket.sendChunk(false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    void prepareHeartbeat() {
+        state = STATE_MARKER;
+    }
+
+    void sendError(HttpChunkedResponseSocket socket, CharSequence message) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        state = STATE_DONE;
+        socket.put('{').putQuoted("error").put(':').encodeUtf8AndQuote(message).put('}').put('\n');
+        socket.sendChunk(true);
+    }
+
+    private void putMarker(HttpChunkedResponseSocket socket) {
+        socket.put('{').putQuoted("txn").put(':').put(reader.getTxn())
+                .put(',').putQuoted("rows").put(':').put(rowCount)
+                .put('}').put('\n');
+    }
+
+    private void putPrefix(HttpChunkedResponseSocket socket) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        socket.put('{').putQuoted("table").put(':').encodeUtf8AndQuote(tableName);
+        socket.put(',').putQuoted("columns").put(':').put('[');
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                socket.put(',');
+            }
+            socket.put('{').
+                    putQuoted("name").put(':').encodeUtf8AndQuote(metadata.getColumnName(i)).
+                    put(',').
+                    putQuoted("type").put(':').putQuoted(ColumnType.nameOf(metadata.getColumnType(i)));
+            socket.put('}');
+        }
+        socket.put(']').put('}').put('\n');
+    }
+
+    private void putRow(HttpChunkedResponseSocket socket, TableReaderRecord record, long row) {
+        record.jumpTo(partitionIndex, row);
+        socket.bookmark();
+        socket.put('[');
+        for (int i = 0, n = columnTypesAndFlags.size() / 2; i < n; i++) {
+            if (i > 0) {
+                socket.put(',');
+            }
+            JsonQueryProcessorState.putValue(
+                    socket,
+                    record,
+                    i,
+                    columnTypesAndFlags.getQuick(2 * i),
+                    columnTypesAndFlags.getQuick(2 * i + 1),
+                    false,
+                    floatScale,
+                    doubleScale
+            );
+        }
+        socket.put(']').put('\n');
+    }
+
+    // Rows past the last seen row of the cursor are streamed partition by partition, filter is
+    // applied to batches of rows. Cost of the scan is proportional to the number of new rows.
+    private void scan(HttpChunkedResponseSocket socket) {
+        final TableReaderRecord record = (TableReaderRecord) cursor.getRecord();
+        while (true) {
+            if (filteredRows != null && filteredRowPos < filteredRows.size()) {
+                putRow(socket, record, filteredRows.get(filteredRowPos));
+                filteredRowPos++;
+                continue;
+            }
+            if (rowLo < partitionHi) {
+                if (filter != null) {
+                    final long hi = Math.min(partitionHi, rowLo + scanBatchSize);
+                    filteredRows = filter.filter(partitionIndex, rowLo, hi);
+                    filteredRowPos = 0;
+                    rowLo = hi;
+                } else {
+                    putRow(socket, record, rowLo);
+                    rowLo++;
+                }
+                continue;
+            }
+            if (++partitionIndex >= partitionCount) {
+                break;
+            }
+            rowLo = 0;
+            partitionHi = reader.openPartition(partitionIndex);
+        }
+        filteredRows = null;
+        filteredRowPos = 0;
+    }
+
+    private void startScan() {
+        final long lastRowId = cursor.getLastRowId();
+        partitionCount = reader.getPartitionCount();
+        if (lastRowId > -1) {
+            partitionIndex = Rows.toPartitionIndex(lastRowId);
+            rowLo = Rows.toLocalRowID(lastRowId) + 1;
+        } else {
+            partitionIndex = 0;
+            rowLo = 0;
+        }
+        partitionHi = partitionIndex < partitionCount ? reader.openPartition(partitionIndex) : 0;
+        filteredRows = null;
+        filteredRowPos = 0;
+    }
+}
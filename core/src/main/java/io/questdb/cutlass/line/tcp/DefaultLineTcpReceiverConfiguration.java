@@ -118,6 +118,16 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 100;
     }
 
+    @Override
+    public long getWriterRebalanceInterval() {
+        return 5_000;
+    }
+
+    @Override
+    public double getMaxLoadRatio() {
+        return 1.9;
+    }
+
     @Override
     public double getCommitIntervalFraction() {
         return 0.5;
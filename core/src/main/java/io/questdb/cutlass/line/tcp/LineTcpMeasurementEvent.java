@@ -29,6 +29,7 @@ import io.questdb.cutlass.line.LineProtoTimestampAdapter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.Misc;
+import io.questdb.std.NanosecondClock;
 import io.questdb.std.Numbers;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.str.DirectByteCharSequence;
@@ -41,6 +42,7 @@ import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.
 class LineTcpMeasurementEvent implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpMeasurementEvent.class);
     private final MicrosecondClock clock;
+    private final NanosecondClock nanosecondClock;
     private final LineProtoTimestampAdapter timestampAdapter;
     private final LineTcpEventBuffer buffer;
     private final DefaultColumnTypes defaultColumnTypes;
@@ -51,11 +53,14 @@ class LineTcpMeasurementEvent implements Closeable {
     private int writerWorkerId;
     private TableUpdateDetails tableUpdateDetails;
     private boolean commitOnWriterClose;
+    // when the line was parsed by the network IO thread, used to measure queue wait and line-to-commit latency
+    private long createdNanos;
 
     LineTcpMeasurementEvent(
             long bufLo,
             long bufSize,
             MicrosecondClock clock,
+            NanosecondClock nanosecondClock,
             LineProtoTimestampAdapter timestampAdapter,
             DefaultColumnTypes defaultColumnTypes,
             boolean stringToCharCastAllowed,
@@ -67,6 +72,7 @@ class LineTcpMeasurementEvent implements Closeable {
         this.autoCreateNewColumns = autoCreateNewColumns;
         this.buffer = new LineTcpEventBuffer(bufLo, bufSize);
         this.clock = clock;
+        this.nanosecondClock = nanosecondClock;
         this.timestampAdapter = timestampAdapter;
         this.defaultColumnTypes = defaultColumnTypes;
         this.stringToCharCastAllowed = stringToCharCastAllowed;
@@ -79,6 +85,10 @@ class LineTcpMeasurementEvent implements Closeable {
         tableUpdateDetails = Misc.free(tableUpdateDetails);
     }
 
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
     public TableUpdateDetails getTableUpdateDetails() {
         return tableUpdateDetails;
     }
@@ -213,6 +223,7 @@ class LineTcpMeasurementEvent implements Closeable {
                 }
             }
             row.append();
+            tableUpdateDetails.onLineAppended(createdNanos);
             tableUpdateDetails.commitIfMaxUncommittedRowsCountReached();
         } catch (CommitFailedException commitFailedException) {
             throw commitFailedException;
@@ -244,12 +255,18 @@ class LineTcpMeasurementEvent implements Closeable {
                 .put(']');
     }
 
+    void createIncompleteEvent() {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+    }
+
     void createMeasurementEvent(
             TableUpdateDetails tableUpdateDetails,
             LineTcpParser parser,
-            int workerId
+            int workerId,
+            int writerThreadId
     ) {
         writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+        createdNanos = nanosecondClock.getTicks();
         final TableUpdateDetails.ThreadLocalDetails localDetails = tableUpdateDetails.getThreadLocalDetails(workerId);
         localDetails.resetProcessedColumnsTracking();
         this.tableUpdateDetails = tableUpdateDetails;
@@ -501,7 +518,7 @@ class LineTcpMeasurementEvent implements Closeable {
         }
         buffer.addDesignatedTimestamp(buffer.getAddress(), timestamp);
         buffer.addNumOfColumns(buffer.getAddress() + Long.BYTES, entitiesWritten);
-        writerWorkerId = tableUpdateDetails.getWriterThreadId();
+        writerWorkerId = writerThreadId;
     }
 
     private CairoException newColumnsNotAllowed(String colName) {
@@ -511,6 +528,11 @@ class LineTcpMeasurementEvent implements Closeable {
                 .put(']');
     }
 
+    void createRebalanceReleaseEvent(TableUpdateDetails tableUpdateDetails) {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_REBALANCE_RELEASE;
+        this.tableUpdateDetails = tableUpdateDetails;
+    }
+
     void createWriterReleaseEvent(TableUpdateDetails tableUpdateDetails, boolean commitOnWriterClose) {
         writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER;
         this.tableUpdateDetails = tableUpdateDetails;
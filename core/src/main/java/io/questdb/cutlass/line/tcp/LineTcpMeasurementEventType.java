@@ -30,4 +30,9 @@ class LineTcpMeasurementEventType {
     static final int ALL_WRITERS_INCOMPLETE_EVENT = -2;
 
     static final int ALL_WRITERS_RELEASE_WRITER = -3;
+
+    // Published to the queue of the writer thread a table is migrated away from. All events for
+    // the table published before it belong to the old thread, once it is consumed the table is
+    // released to the new thread
+    static final int ALL_WRITERS_REBALANCE_RELEASE = -4;
 }
@@ -44,6 +44,7 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 
 class LineTcpMeasurementScheduler implements Closeable {
@@ -66,7 +67,15 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final MPSequence[] pubSeq;
     private final boolean autoCreateNewTables;
     private final boolean autoCreateNewColumns;
+    private final long writerRebalanceInterval;
+    private final double maxLoadRatio;
+    private final LineTcpMetrics metrics;
     private LineTcpReceiver.SchedulerListener listener;
+    private volatile long nextRebalanceMillis;
+    // table migrated to another writer thread, which release event could not be
+    // published because the queue of the previous thread was full
+    private TableUpdateDetails pendingReleaseTable;
+    private int pendingReleaseThreadId;
 
     LineTcpMeasurementScheduler(
             LineTcpReceiverConfiguration lineConfiguration,
@@ -115,6 +124,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                             address,
                             addressSize,
                             lineConfiguration.getMicrosecondClock(),
+                            cairoConfiguration.getNanosecondClock(),
                             lineConfiguration.getTimestampAdapter(),
                             defaultColumnTypes,
                             lineConfiguration.isStringToCharCastAllowed(),
@@ -136,6 +146,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                     q,
                     subSeq,
                     milliClock,
+                    cairoConfiguration.getNanosecondClock(),
                     commitIntervalDefault,
                     this,
                     engine.getMetrics()
@@ -145,6 +156,10 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
         this.tableStructureAdapter = new TableStructureAdapter(cairoConfiguration, defaultColumnTypes, configuration.getDefaultPartitionBy());
         writerIdleTimeout = lineConfiguration.getWriterIdleTimeout();
+        writerRebalanceInterval = lineConfiguration.getWriterRebalanceInterval();
+        maxLoadRatio = lineConfiguration.getMaxLoadRatio();
+        metrics = engine.getMetrics().lineTcp();
+        nextRebalanceMillis = milliClock.getTicks() + writerRebalanceInterval;
     }
 
     @Override
@@ -208,6 +223,24 @@ class LineTcpMeasurementScheduler implements Closeable {
         return false;
     }
 
+    public boolean doRebalance(long millis) {
+        if (writerRebalanceInterval > 0 && millis > nextRebalanceMillis && loadByWriterThread.length > 1) {
+            final Lock lock = tableUpdateDetailsLock.writeLock();
+            // another network IO thread is either rebalancing or creating tables, try again later
+            if (lock.tryLock()) {
+                try {
+                    if (millis > nextRebalanceMillis) {
+                        nextRebalanceMillis = millis + writerRebalanceInterval;
+                        return unsafeRebalance();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return false;
+    }
+
     public void processWriterReleaseEvent(LineTcpMeasurementEvent event, int workerId) {
         tableUpdateDetailsLock.readLock().lock();
         try {
@@ -230,6 +263,17 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    public void publishPendingRebalanceRelease() {
+        final Lock lock = tableUpdateDetailsLock.writeLock();
+        if (lock.tryLock()) {
+            try {
+                unsafePublishPendingRebalanceRelease();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
     private static long getEventSlotSize(int maxMeasurementSize) {
         return Numbers.ceilPow2((long) (maxMeasurementSize / 4) * (Integer.BYTES + Double.BYTES + 1));
     }
@@ -348,25 +392,36 @@ class LineTcpMeasurementScheduler implements Closeable {
             throw ex;
         }
 
-        final int writerThreadId = tab.getWriterThreadId();
-        long seq = getNextPublisherEventSequence(writerThreadId);
-        if (seq > -1) {
-            try {
-                if (tab.isWriterInError()) {
-                    throw CairoException.instance(0).put("writer is in error, aborting ILP pipeline");
+        while (true) {
+            final int writerThreadId = tab.getWriterThreadId();
+            long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq > -1) {
+                final LineTcpMeasurementEvent event = queue[writerThreadId].get(seq);
+                try {
+                    if (tab.getWriterThreadId() != writerThreadId) {
+                        // the table has been migrated to another writer thread after we read the thread id,
+                        // this event could be queued after the release event, re-route it to the new thread
+                        event.createIncompleteEvent();
+                        continue;
+                    }
+                    if (tab.isWriterInError()) {
+                        event.createIncompleteEvent();
+                        throw CairoException.instance(0).put("writer is in error, aborting ILP pipeline");
+                    }
+                    event.createMeasurementEvent(
+                            tab,
+                            parser,
+                            netIoJob.getWorkerId(),
+                            writerThreadId
+                    );
+                } finally {
+                    pubSeq[writerThreadId].done(seq);
                 }
-                queue[writerThreadId].get(seq).createMeasurementEvent(
-                        tab,
-                        parser,
-                        netIoJob.getWorkerId()
-                );
-            } finally {
-                pubSeq[writerThreadId].done(seq);
+                tab.incrementEventsProcessedSinceReshuffle();
+                return false;
             }
-            tab.incrementEventsProcessedSinceReshuffle();
-            return false;
+            return true;
         }
-        return true;
     }
 
     @TestOnly
@@ -403,6 +458,87 @@ class LineTcpMeasurementScheduler implements Closeable {
         return tableUpdateDetails;
     }
 
+    private boolean unsafePublishRebalanceRelease(TableUpdateDetails tab, int fromThreadId) {
+        final long seq = getNextPublisherEventSequence(fromThreadId);
+        if (seq > -1) {
+            queue[fromThreadId].get(seq).createRebalanceReleaseEvent(tab);
+            pubSeq[fromThreadId].done(seq);
+            return true;
+        }
+        pendingReleaseTable = tab;
+        pendingReleaseThreadId = fromThreadId;
+        return false;
+    }
+
+    private boolean unsafePublishPendingRebalanceRelease() {
+        if (pendingReleaseTable != null) {
+            final TableUpdateDetails tab = pendingReleaseTable;
+            pendingReleaseTable = null;
+            return unsafePublishRebalanceRelease(tab, pendingReleaseThreadId);
+        }
+        return true;
+    }
+
+    private boolean unsafeRebalance() {
+        if (!unsafePublishPendingRebalanceRelease()) {
+            return false;
+        }
+
+        unsafeCalcThreadLoad();
+        metrics.setWriterLoad(loadByWriterThread);
+
+        int maxThreadId = 0;
+        int minThreadId = 0;
+        for (int i = 1, n = loadByWriterThread.length; i < n; i++) {
+            if (loadByWriterThread[i] > loadByWriterThread[maxThreadId]) {
+                maxThreadId = i;
+            }
+            if (loadByWriterThread[i] < loadByWriterThread[minThreadId]) {
+                minThreadId = i;
+            }
+        }
+        final long maxLoad = loadByWriterThread[maxThreadId];
+        final long minLoad = loadByWriterThread[minThreadId];
+
+        // pick the table, which move gets the two threads closest to an equal load
+        final ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
+        TableUpdateDetails tableToMove = null;
+        long bestLoadDiff = maxLoad - minLoad;
+        int maxThreadTableCount = 0;
+        boolean handOffInProgress = false;
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tab = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            handOffInProgress |= tab.isWriterHandOffPending();
+            if (tab.getWriterThreadId() == maxThreadId) {
+                maxThreadTableCount++;
+                final long tableLoad = tab.getEventsProcessedSinceReshuffle();
+                final long loadDiff = Math.abs(maxLoad - minLoad - 2 * tableLoad);
+                if (loadDiff < bestLoadDiff && tab.getWriter() != null && !tab.isWriterInError()) {
+                    bestLoadDiff = loadDiff;
+                    tableToMove = tab;
+                }
+            }
+            tab.resetEventsProcessedSinceReshuffle();
+        }
+
+        // tables are migrated one at a time, the previous hand-off has to complete first
+        if (handOffInProgress || tableToMove == null || maxThreadTableCount < 2 || maxLoad < maxLoadRatio * minLoad) {
+            return false;
+        }
+
+        LOG.info().$("rebalancing writer threads [tableName=").$(tableToMove.getTableNameUtf16())
+                .$(", fromThreadId=").$(maxThreadId)
+                .$(", fromThreadLoad=").$(maxLoad)
+                .$(", toThreadId=").$(minThreadId)
+                .$(", toThreadLoad=").$(minLoad)
+                .I$();
+        // network IO threads route new events to the new thread from this point, the new thread
+        // does not consume them until the old one has processed the release event
+        tableToMove.setWriterThreadId(minThreadId);
+        unsafePublishRebalanceRelease(tableToMove, maxThreadId);
+        return true;
+    }
+
     private void unsafeCalcThreadLoad() {
         Arrays.fill(loadByWriterThread, 0);
         ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.metrics.Counter;
+import io.questdb.metrics.Histogram;
+import io.questdb.metrics.MetricsRegistry;
+import io.questdb.std.LongList;
+import org.jetbrains.annotations.TestOnly;
+
+public class LineTcpMetrics {
+    private final MetricsRegistry metricsRegistry;
+    private final Counter tableMigrationCounter;
+    // Time from a line being parsed by a network IO thread until a writer thread picks it up.
+    private final Histogram writerQueueWait;
+    // Time from a line being parsed until the commit that includes it, measured for the oldest line of each commit.
+    private final Histogram lineToCommitLatency;
+    // Number of events processed by each writer thread during the last rebalance interval.
+    // Written by the thread holding the scheduler lock, read when metrics are scraped.
+    private final LongList writerLoad = new LongList();
+
+    public LineTcpMetrics(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        this.tableMigrationCounter = metricsRegistry.newCounter("line_tcp_writer_table_migrations");
+        this.writerQueueWait = metricsRegistry.newHistogram("line_tcp_writer_queue_wait");
+        this.lineToCommitLatency = metricsRegistry.newHistogram("line_tcp_line_to_commit_latency");
+    }
+
+    public void incrementTableMigrations() {
+        tableMigrationCounter.inc();
+    }
+
+    @TestOnly
+    public Histogram lineToCommitLatency() {
+        return lineToCommitLatency;
+    }
+
+    public void recordLineToCommitLatency(long nanos) {
+        lineToCommitLatency.record(nanos);
+    }
+
+    public void recordWriterQueueWait(long nanos) {
+        writerQueueWait.record(nanos);
+    }
+
+    @TestOnly
+    public long tableMigrations() {
+        return tableMigrationCounter.get();
+    }
+
+    @TestOnly
+    public long writerLoad(int writerThreadId) {
+        return getWriterLoad(writerThreadId);
+    }
+
+    @TestOnly
+    public Histogram writerQueueWait() {
+        return writerQueueWait;
+    }
+
+    void setWriterLoad(long[] loadByWriterThread) {
+        synchronized (writerLoad) {
+            final int registered = writerLoad.size();
+            for (int i = registered, n = loadByWriterThread.length; i < n; i++) {
+                writerLoad.add(0);
+                final int writerThreadId = i;
+                metricsRegistry.newVirtualGauge("line_tcp_writer_load_" + i, () -> getWriterLoad(writerThreadId));
+            }
+            for (int i = 0, n = loadByWriterThread.length; i < n; i++) {
+                writerLoad.setQuick(i, loadByWriterThread[i]);
+            }
+        }
+    }
+
+    private long getWriterLoad(int writerThreadId) {
+        synchronized (writerLoad) {
+            return writerThreadId < writerLoad.size() ? writerLoad.getQuick(writerThreadId) : 0;
+        }
+    }
+}
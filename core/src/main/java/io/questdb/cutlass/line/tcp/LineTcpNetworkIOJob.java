@@ -116,6 +116,10 @@ class LineTcpNetworkIOJob implements NetworkIOJob, Job {
             }
         }
 
+        if (scheduler.doRebalance(millis)) {
+            busy = true;
+        }
+
         return busy;
     }
 
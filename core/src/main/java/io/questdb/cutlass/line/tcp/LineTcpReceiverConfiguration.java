@@ -56,6 +56,17 @@ public interface LineTcpReceiverConfiguration {
      */
     long getMaintenanceInterval();
 
+    /**
+     * Interval in milliseconds between writer thread load checks. When the busiest writer
+     * thread has processed more than {@link #getMaxLoadRatio()} times the events of the least busy
+     * one, a table is migrated from the former to the latter. Zero or negative value disables rebalancing.
+     *
+     * @return interval in milliseconds
+     */
+    long getWriterRebalanceInterval();
+
+    double getMaxLoadRatio();
+
     double getCommitIntervalFraction();
 
     long getCommitIntervalDefault();
@@ -31,6 +31,7 @@ import io.questdb.mp.Job;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.std.Misc;
+import io.questdb.std.NanosecondClock;
 import io.questdb.std.ObjList;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.Path;
@@ -45,6 +46,7 @@ class LineTcpWriterJob implements Job, Closeable {
     private final Path path = new Path();
     private final ObjList<TableUpdateDetails> assignedTables = new ObjList<>();
     private final MillisecondClock millisecondClock;
+    private final NanosecondClock nanosecondClock;
     private final long commitIntervalDefault;
     private final LineTcpMeasurementScheduler scheduler;
     private long nextCommitTime;
@@ -55,6 +57,7 @@ class LineTcpWriterJob implements Job, Closeable {
             RingQueue<LineTcpMeasurementEvent> queue,
             Sequence sequence,
             MillisecondClock millisecondClock,
+            NanosecondClock nanosecondClock,
             long commitIntervalDefault,
             LineTcpMeasurementScheduler scheduler,
             Metrics metrics
@@ -63,6 +66,7 @@ class LineTcpWriterJob implements Job, Closeable {
         this.queue = queue;
         this.sequence = sequence;
         this.millisecondClock = millisecondClock;
+        this.nanosecondClock = nanosecondClock;
         this.commitIntervalDefault = commitIntervalDefault;
         this.nextCommitTime = millisecondClock.getTicks();
         this.scheduler = scheduler;
@@ -136,16 +140,27 @@ class LineTcpWriterJob implements Job, Closeable {
                     return busy;
                 }
             }
-            busy = true;
             final LineTcpMeasurementEvent event = queue.get(cursor);
+            final TableUpdateDetails tab = event.getTableUpdateDetails();
+            final int writerWorkerId = event.getWriterWorkerId();
+            if ((writerWorkerId == workerId || writerWorkerId == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER)
+                    && tab.isWriterHandOffPending() && tab.getWriterThreadId() == workerId) {
+                // the table is being migrated to this thread and the previous thread
+                // is still appending to the writer, leave the event in the queue
+                // and come back after committing the tables we own. Network IO threads
+                // may be blocked on our full queue, retry publishing the release
+                // event to the previous thread here in case it is still pending
+                scheduler.publishPendingRebalanceRelease();
+                return false;
+            }
+            busy = true;
 
             try {
                 // we check the event's writer thread ID to avoid consuming
                 // incomplete events
 
-                final TableUpdateDetails tab = event.getTableUpdateDetails();
                 boolean closeWriter = false;
-                if (event.getWriterWorkerId() == workerId) {
+                if (writerWorkerId == workerId) {
                     try {
                         if (tab.isWriterInError()) {
                             closeWriter = true;
@@ -159,6 +174,7 @@ class LineTcpWriterJob implements Job, Closeable {
                                         .$(", threadId=").$(workerId)
                                         .I$();
                             }
+                            metrics.lineTcp().recordWriterQueueWait(nanosecondClock.getTicks() - event.getCreatedNanos());
                             event.append();
                         }
                     } catch (Throwable ex) {
@@ -172,10 +188,21 @@ class LineTcpWriterJob implements Job, Closeable {
                         event.createWriterReleaseEvent(tab, false);
                         // This is a critical error, so we treat it as an unhandled one.
                     }
-                } else {
-                    if (event.getWriterWorkerId() == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
-                        closeWriter = true;
-                    }
+                } else if (writerWorkerId == LineTcpMeasurementEventType.ALL_WRITERS_RELEASE_WRITER) {
+                    closeWriter = true;
+                } else if (writerWorkerId == LineTcpMeasurementEventType.ALL_WRITERS_REBALANCE_RELEASE) {
+                    // all events this thread is going to receive for the table
+                    // have been appended, hand the writer over to the new thread
+                    assignedTables.remove(tab);
+                    tab.setAssignedToJob(false);
+                    tab.releaseToWriterThread();
+                    nextCommitTime = millisecondClock.getTicks();
+                    metrics.lineTcp().incrementTableMigrations();
+                    LOG.info()
+                            .$("released table to another writer thread [tableName=").$(tab.getTableNameUtf16())
+                            .$(", fromThreadId=").$(workerId)
+                            .$(", toThreadId=").$(tab.getWriterThreadId())
+                            .I$();
                 }
 
                 if (closeWriter && tab.getWriter() != null) {
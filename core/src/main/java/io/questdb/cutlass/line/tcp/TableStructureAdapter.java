@@ -133,6 +133,11 @@ class TableStructureAdapter implements TableStructure {
         return cairoConfiguration.getCommitLag();
     }
 
+    @Override
+    public long getTtl() {
+        return 0;
+    }
+
     TableStructureAdapter of(CharSequence tableName, LineTcpParser parser) {
         this.tableName = tableName;
         entityNamesUtf16.clear();
@@ -50,8 +50,14 @@ public class TableUpdateDetails implements Closeable {
     private final int timestampIndex;
     private final CairoEngine engine;
     private final MillisecondClock millisecondClock;
+    private final NanosecondClock nanosecondClock;
+    private final LineTcpMetrics metrics;
     private final long writerTickRowsCountMod;
-    private int writerThreadId;
+    // read by network IO threads to route events, changed under the scheduler lock when the table is migrated
+    private volatile int writerThreadId;
+    // set while the table is being migrated to another writer thread and the previous
+    // thread has not yet consumed all events published to it for this table
+    private volatile boolean writerHandOffPending;
     // Number of rows processed since the last reshuffle, this is an estimate because it is incremented by
     // multiple threads without synchronisation
     private long eventsProcessedSinceReshuffle = 0;
@@ -61,6 +67,8 @@ public class TableUpdateDetails implements Closeable {
     private long nextCommitTime;
     private int networkIOOwnerCount = 0;
     private volatile boolean writerInError;
+    // when the oldest line not yet committed was parsed, Long.MIN_VALUE if there is none
+    private long oldestUncommittedLineNanos = Long.MIN_VALUE;
 
     TableUpdateDetails(
             LineTcpReceiverConfiguration configuration,
@@ -82,6 +90,8 @@ public class TableUpdateDetails implements Closeable {
         CairoConfiguration cairoConfiguration = engine.getConfiguration();
         TableWriterMetadata metadata = writer.getMetadata();
         this.millisecondClock = cairoConfiguration.getMillisecondClock();
+        this.nanosecondClock = cairoConfiguration.getNanosecondClock();
+        this.metrics = engine.getMetrics().lineTcp();
         this.writerTickRowsCountMod = cairoConfiguration.getWriterTickRowsCountMod();
         this.writer = writer;
         this.timestampIndex = metadata.getTimestampIndex();
@@ -166,6 +176,14 @@ public class TableUpdateDetails implements Closeable {
         ++eventsProcessedSinceReshuffle;
     }
 
+    public boolean isWriterHandOffPending() {
+        return writerHandOffPending;
+    }
+
+    public void resetEventsProcessedSinceReshuffle() {
+        eventsProcessedSinceReshuffle = 0;
+    }
+
     public boolean isAssignedToJob() {
         return assignedToJob;
     }
@@ -184,6 +202,24 @@ public class TableUpdateDetails implements Closeable {
                 .I$();
     }
 
+    /**
+     * Called by the writer thread the table is migrated away from, once it has consumed
+     * all events published to it for this table. The pending rows are committed, so that
+     * they do not depend on the new thread receiving more data, and the writer is handed
+     * over to the new thread.
+     */
+    public void releaseToWriterThread() {
+        try {
+            if (writer != null && !writerInError) {
+                commit(false);
+            }
+        } catch (CommitFailedException ex) {
+            // writer is flagged as in error, the new thread will release it
+        } finally {
+            writerHandOffPending = false;
+        }
+    }
+
     public void tick() {
         if (writer != null) {
             writer.tick();
@@ -199,6 +235,7 @@ public class TableUpdateDetails implements Closeable {
                 } else {
                     writer.commit();
                 }
+                onCommitted();
             } catch (Throwable ex) {
                 setWriterInError();
                 LOG.error().$("could not commit [table=").$(tableNameUtf16).$(", e=").$(ex).I$();
@@ -212,6 +249,13 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    private void onCommitted() {
+        if (oldestUncommittedLineNanos != Long.MIN_VALUE) {
+            metrics.recordLineToCommitLatency(nanosecondClock.getTicks() - oldestUncommittedLineNanos);
+            oldestUncommittedLineNanos = Long.MIN_VALUE;
+        }
+    }
+
     long commitIfIntervalElapsed(long wallClockMillis) throws CommitFailedException {
         if (wallClockMillis < nextCommitTime) {
             return nextCommitTime;
@@ -238,6 +282,7 @@ public class TableUpdateDetails implements Closeable {
 
         try {
             writer.commitWithLag();
+            onCommitted();
         } catch (Throwable th) {
             LOG.error()
                     .$("could not commit line protocol measurement [tableName=").$(writer.getTableName())
@@ -252,6 +297,18 @@ public class TableUpdateDetails implements Closeable {
         writer.tick();
     }
 
+    void onLineAppended(long lineNanos) {
+        if (oldestUncommittedLineNanos == Long.MIN_VALUE) {
+            oldestUncommittedLineNanos = lineNanos;
+        }
+    }
+
+    void setWriterThreadId(int writerThreadId) {
+        // hand-off flag has to be visible before any event is routed to the new thread
+        this.writerHandOffPending = true;
+        this.writerThreadId = writerThreadId;
+    }
+
     ThreadLocalDetails getThreadLocalDetails(int workerId) {
         lastMeasurementMillis = millisecondClock.getTicks();
         return localDetailsArray[workerId];
@@ -271,6 +328,7 @@ public class TableUpdateDetails implements Closeable {
                 if (commit) {
                     LOG.debug().$("release commit [table=").$(tableNameUtf16).I$();
                     writer.commit();
+                    onCommitted();
                 }
             } catch (Throwable ex) {
                 LOG.error().$("writer commit fails, force closing it [table=").$(tableNameUtf16).$(",ex=").$(ex).I$();
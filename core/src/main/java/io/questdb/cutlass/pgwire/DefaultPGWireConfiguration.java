@@ -162,6 +162,11 @@ public class DefaultPGWireConfiguration implements PGWireConfiguration {
         return NetworkFacadeImpl.INSTANCE;
     }
 
+    @Override
+    public int getCopyCommitBatchSize() {
+        return 100_000;
+    }
+
     @Override
     public int getPendingWritersCacheSize() {
         return 16;
@@ -30,7 +30,6 @@ import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
@@ -107,7 +106,6 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private static final int ERROR_TRANSACTION = 3;
     private static final int ROLLING_BACK_TRANSACTION = 4;
 
-    private static final String WRITER_LOCK_REASON = "pgConnection";
     private static final int PROTOCOL_TAIL_COMMAND_LENGTH = 64;
     private final long recvBuffer;
     private final long sendBuffer;
@@ -139,6 +137,8 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private final CharSequenceObjHashMap<Portal> namedPortalMap;
     private final IntList syncActions = new IntList(4);
     private final CairoEngine engine;
+    private final NanosecondClock nanosecondClock;
+    private final PGWireMetrics metrics;
     private final ObjectPool<DirectBinarySequence> binarySequenceParamsPool;
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final SCSequence tempSequence = new SCSequence();
@@ -147,6 +147,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     //pg clients (like asyncpg) fail when format sent by server is not the same as requested in bind message
     private final IntList bindSelectColumnFormats;
     private final BatchCallback batchCallback;
+    private final PGCopyInProcessor copyIn;
     private WeakSelfReturningObjectPool<TypesAndUpdate> typesAndUpdatePool;
     private AssociativeCache<TypesAndUpdate> typesAndUpdateCache;
     //list of pair: column types (with format flag stored in first bit) AND additional type flag
@@ -171,6 +172,8 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private TypesAndInsert typesAndInsert = null;
     private TypesAndUpdate typesAndUpdate = null;
     private boolean typesAndUpdateIsCached = false;
+    // set when extended query message fails, client messages are then discarded up until Sync
+    private boolean skipToSync = false;
     private long fd;
     private CharSequence queryText;
     //command tag used when returning row count to client,
@@ -199,6 +202,8 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
 
     public PGConnectionContext(CairoEngine engine, PGWireConfiguration configuration, SqlExecutionContextImpl sqlExecutionContext) {
         this.engine = engine;
+        this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
+        this.metrics = engine.getMetrics().pgWire();
         this.utf8Sink = new DirectCharSink(engine.getConfiguration().getTextConfiguration().getUtf8SinkSize());
         this.typeManager = new TypeManager(engine.getConfiguration().getTextConfiguration(), utf8Sink);
         this.nf = configuration.getNetworkFacade();
@@ -233,6 +238,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         final int insertRowCount = enableInsertCache ? configuration.getInsertCacheRowCount() : 1; // 8
         this.typesAndInsertCache = new AssociativeCache<>(insertBlockCount, insertRowCount);
         this.batchCallback = new PGConnectionBatchCallback();
+        this.copyIn = new PGCopyInProcessor(engine, configuration);
         this.bindSelectColumnFormats = new IntList();
     }
 
@@ -304,6 +310,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         username = null;
         typeManager.clear();
         clearWriters();
+        copyIn.clear();
         clearRecvBuffer();
         typesAndInsertCache.clear();
         namedStatementMap.clear();
@@ -316,6 +323,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         clearCursorAndFactory();
         totalReceived = 0;
         typesAndUpdateIsCached = false;
+        skipToSync = false;
         statementTimeoutMs = -1L;
         circuitBreaker.resetMaxTimeToDefault();
     }
@@ -340,6 +348,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             Misc.free(path);
             Misc.free(utf8Sink);
             Misc.free(circuitBreaker);
+            Misc.free(copyIn);
         }
     }
 
@@ -535,6 +544,19 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         throw BadProtocolException.INSTANCE;
     }
 
+    private static boolean isExtendedQueryMessage(byte type) {
+        switch (type) {
+            case 'P':
+            case 'B':
+            case 'E':
+            case 'D':
+            case 'C':
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private static void prepareParams(PGConnectionContext.ResponseAsciiSink sink, String name, String value) {
         sink.put(MESSAGE_TYPE_PARAMETER_STATUS);
         final long addr = sink.skip();
@@ -839,19 +861,25 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                 case BINARY_TYPE_LONG256:
                     appendLong256Column(record, i);
                     break;
+                // geohashes are described as VARCHAR, binary format of which is the same UTF8 text
                 case ColumnType.GEOBYTE:
+                case BINARY_TYPE_GEOBYTE:
                     putGeoHashStringByteValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOSHORT:
+                case BINARY_TYPE_GEOSHORT:
                     putGeoHashStringShortValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOINT:
+                case BINARY_TYPE_GEOINT:
                     putGeoHashStringIntValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOLONG:
+                case BINARY_TYPE_GEOLONG:
                     putGeoHashStringLongValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.NULL:
+                case BINARY_TYPE_NULL:
                     responseAsciiSink.setNullValue();
                     break;
                 default:
@@ -1112,6 +1140,10 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
 
             // not cached - compile to see what it is
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext); //here
+            if (cc.getType() == CompiledQuery.COPY_REMOTE) {
+                // the data would have to be exchanged between Execute and Sync
+                throw SqlException.$(0, "COPY FROM STDIN is supported only by simple query protocol");
+            }
             processCompiledQuery(cc);
         } else {
             isEmptyQuery = true;
@@ -1486,6 +1518,13 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                     .$(']').$();
             return;
         }
+        // responses to pipelined messages pile up in the send buffer until Sync, send them
+        // before the buffer runs out; the message is parsed again should the send be incomplete
+        if (sendBufferPtr - sendBuffer > sendBufferSize / 2) {
+            resumeProcessor = null;
+            sendAndReset();
+        }
+
         // we have enough to read entire message
         recvBufferReadOffset += msgLen + 1;
         final long msgLimit = address + msgLen + 1;
@@ -1495,6 +1534,32 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             doAuthentication(msgLo, msgLimit);
             return;
         }
+
+        if (skipToSync) {
+            if (type != 'S' && type != 'X') {
+                LOG.debug().$("skipped until sync [type=").$((char) type).I$();
+                return;
+            }
+            skipToSync = false;
+        }
+
+        try {
+            parseMessage(type, address, msgLo, msgLimit, compiler);
+        } catch (SqlException e) {
+            if (!isExtendedQueryMessage(type)) {
+                throw e;
+            }
+            failExtendedQuery(e.getPosition(), e.getFlyweightMessage(), 0);
+        } catch (CairoException e) {
+            if (!isExtendedQueryMessage(type)) {
+                throw e;
+            }
+            failExtendedQuery(-1, e.getFlyweightMessage(), e.getErrno());
+        }
+    }
+
+    private void parseMessage(byte type, long address, long msgLo, long msgLimit, @Transient SqlCompiler compiler)
+            throws PeerDisconnectedException, PeerIsSlowToReadException, BadProtocolException, SqlException {
         switch (type) {
             case 'P':
                 processParse(
@@ -1538,7 +1603,21 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             case 'Q':
                 processQuery(msgLo, msgLimit, compiler);
                 break;
-            case 'd':
+            case 'd': // copy data
+                // after a failed COPY the rest of client's data is dropped
+                if (copyIn.isActive()) {
+                    processCopyData(msgLo, msgLimit);
+                }
+                break;
+            case 'c': // copy done
+                if (copyIn.isActive()) {
+                    processCopyDone();
+                }
+                break;
+            case 'f': // copy fail
+                if (copyIn.isActive()) {
+                    processCopyFail(msgLo, msgLimit);
+                }
                 break;
             default:
                 LOG.error().$("unknown message [type=").$(type).$(']').$();
@@ -1549,6 +1628,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private void parseQueryText(long lo, long hi, @Transient SqlCompiler compiler) throws BadProtocolException, SqlException {
         CharacterStoreEntry e = characterStore.newEntry();
         if (Chars.utf8Decode(lo, hi, e)) {
+            releaseCompletedStatement();
             queryText = characterStore.toImmutable();
 
             LOG.info().$("parse [fd=").$(fd).$(", q=").utf8(queryText).I$();
@@ -1593,6 +1673,20 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         }
     }
 
+    private void prepareCopyInResponse() {
+        final byte format = copyIn.isBinary() ? (byte) 1 : (byte) 0;
+        final int columnCount = copyIn.getColumnCount();
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
+        long addr = responseAsciiSink.skip();
+        responseAsciiSink.put(format);
+        responseAsciiSink.putNetworkShort((short) columnCount);
+        // per column format codes, they all match overall format
+        for (int i = 0; i < columnCount; i++) {
+            responseAsciiSink.putNetworkShort(format);
+        }
+        responseAsciiSink.putLen(addr);
+    }
+
     private void prepareDescribePortalResponse() {
         if (typesAndSelect != null) {
             try {
@@ -1727,7 +1821,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         sink.putNetworkShort((short) n);
         for (int i = 0; i < n; i++) {
             final int typeFlag = activeSelectColumnTypes.getQuick(2 * i);
-            final int columnType = toColumnType(ColumnType.isNull(typeFlag) ? ColumnType.STRING : typeFlag);
+            final int columnType = ColumnType.isNull(toColumnType(typeFlag)) ? ColumnType.STRING : toColumnType(typeFlag);
             sink.encodeUtf8Z(metadata.getColumnName(i));
             sink.putIntDirect(0); //tableOid ?
             sink.putNetworkShort((short) (i + 1)); //column number, starting from 1
@@ -1840,7 +1934,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                             final short code = getShortUnsafe(lo);
                             activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType(code, m.getColumnType(i)));
                             bindSelectColumnFormats.setQuick(i, code);
-                            activeSelectColumnTypes.setQuick(2 * i + 1, 0);
+                            activeSelectColumnTypes.setQuick(2 * i + 1, GeoHashes.getBitFlags(m.getColumnType(i)));
                         }
                     } else if (columnFormatCodeCount == 1) {
                         lo += Short.BYTES;
@@ -1848,7 +1942,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                         for (int i = 0; i < columnCount; i++) {
                             activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType(code, m.getColumnType(i)));
                             bindSelectColumnFormats.setQuick(i, code);
-                            activeSelectColumnTypes.setQuick(2 * i + 1, 0);
+                            activeSelectColumnTypes.setQuick(2 * i + 1, GeoHashes.getBitFlags(m.getColumnType(i)));
                         }
                     } else {
                         LOG.error()
@@ -1881,6 +1975,17 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         syncActions.add(SYNC_BIND);
     }
 
+    /**
+     * Reports error of extended query message. Unlike simple query, the error does not
+     * end the exchange; the messages client pipelined after the failed one are discarded
+     * up until Sync, which is then answered with ReadyForQuery.
+     */
+    private void failExtendedQuery(int position, CharSequence flyweightMessage, long errno) {
+        syncActions.clear();
+        prepareError(position, flyweightMessage, errno);
+        skipToSync = true;
+    }
+
     private void freeFactory() {
         currentFactory = null;
         typesAndSelect = Misc.free(typesAndSelect);
@@ -1964,6 +2069,9 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                 // uncached
                 queryTag = TAG_COPY;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                queryTag = TAG_COPY;
+                break;
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
@@ -1996,6 +2104,38 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         }
     }
 
+    private void processCopyData(long lo, long msgLimit) {
+        try {
+            copyIn.data(lo, msgLimit);
+        } catch (Throwable e) {
+            copyIn.clear();
+            throw e;
+        }
+    }
+
+    private void processCopyDone() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        try {
+            rowCount = copyIn.done();
+        } catch (Throwable e) {
+            copyIn.clear();
+            throw e;
+        }
+        queryTag = TAG_COPY;
+        prepareCommandComplete(true);
+        sendReadyForNewQuery();
+    }
+
+    private void processCopyFail(long lo, long msgLimit) throws BadProtocolException {
+        copyIn.clear();
+        final long hi = getStringLength(lo, msgLimit, "bad copy fail message length");
+        final CairoException e = CairoException.instance(0).put("COPY FROM STDIN failed");
+        CharacterStoreEntry entry = characterStore.newEntry();
+        if (hi > lo && Chars.utf8Decode(lo, hi, entry)) {
+            e.put(": ").put(characterStore.toImmutable());
+        }
+        throw e;
+    }
+
     private void processDescribe(long lo, long msgLimit, @Transient SqlCompiler compiler)
             throws SqlException, BadProtocolException {
 
@@ -2043,7 +2183,9 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         final int maxRows = getInt(lo, msgLimit, "could not read max rows value");
 
         processSyncActions();
+        final long startNanos = nanosecondClock.getTicks();
         processExecute(maxRows, compiler);
+        metrics.recordQueryLatency(nanosecondClock.getTicks() - startNanos);
         wrapper = null;
     }
 
@@ -2231,13 +2373,20 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
 
         if (Chars.utf8Decode(lo, limit - 1, e)) {
             queryText = characterStore.toImmutable();
+            final long startNanos = nanosecondClock.getTicks();
             compiler.compileBatch(queryText, sqlExecutionContext, batchCallback);
+            metrics.recordQueryLatency(nanosecondClock.getTicks() - startNanos);
         } else {
             LOG.error().$("invalid UTF8 bytes in parse query").$();
             throw BadProtocolException.INSTANCE;
         }
 
-        sendReadyForNewQuery();
+        if (copyIn.isActive()) {
+            // CopyInResponse is out, the query completes when client sends CopyDone
+            sendAndReset();
+        } else {
+            sendReadyForNewQuery();
+        }
     }
 
     private void processSyncActions() {
@@ -2317,6 +2466,14 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         return n;
     }
 
+    // statements pipelined without Sync in between replace one another, factory
+    // of the previous statement goes back to the cache while its text is still known
+    private void releaseCompletedStatement() {
+        if (completed) {
+            clearCursorAndFactory();
+        }
+    }
+
     private void reportError(int position, CharSequence flyweightMessage, long errno)
             throws PeerDisconnectedException, PeerIsSlowToReadException {
         prepareError(position, flyweightMessage, errno);
@@ -2359,35 +2516,6 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         responseAsciiSink.reset();
     }
 
-    // This method is currently unused. it's used for the COPY sub-protocol, which is currently not implemented.
-    // It's left here so when we add the sub-protocol later we won't need to reimplemented it.
-    // We could keep it just in git history, but chances are nobody would recall to search for it there
-    private void sendCopyInResponse(CairoEngine engine, TextLoader textLoader) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        if (
-                TableUtils.TABLE_EXISTS == engine.getStatus(
-                        sqlExecutionContext.getCairoSecurityContext(),
-                        path,
-                        textLoader.getTableName()
-                )) {
-            responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
-            long addr = responseAsciiSink.skip();
-            responseAsciiSink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
-            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName(), WRITER_LOCK_REASON)) {
-                RecordMetadata metadata = writer.getMetadata();
-                responseAsciiSink.putNetworkShort((short) metadata.getColumnCount());
-                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                    responseAsciiSink.putNetworkShort((short) PGOids.getTypeOid(metadata.getColumnType(i)));
-                }
-            }
-            responseAsciiSink.putLen(addr);
-        } else {
-            final SqlException e = SqlException.$(0, "table '").put(textLoader.getTableName()).put("' does not exist");
-            prepareError(e.getPosition(), e.getFlyweightMessage(), 0);
-            prepareReadyForQuery();
-        }
-        sendAndReset();
-    }
-
     private void sendCursor(
             int maxRows,
             PGResumeProcessor cursorResumeProcessor,
@@ -2479,6 +2607,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             @Transient NamedStatementWrapper wrapper,
             @Nullable @Transient SqlCompiler compiler
     ) throws SqlException {
+        releaseCompletedStatement();
         queryText = wrapper.queryText;
         LOG.debug().$("wrapper query [q=`").$(wrapper.queryText).$("`]").$();
         this.activeBindVariableTypes = wrapper.bindVariableTypes;
@@ -2568,6 +2697,9 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             } else if (cq.getType() == CompiledQuery.INSERT_AS_SELECT ||
                     cq.getType() == CompiledQuery.CREATE_TABLE_AS_SELECT) {
                 prepareCommandComplete(true);
+            } else if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                copyIn.of(cq, sqlExecutionContext.getCairoSecurityContext());
+                prepareCopyInResponse();
             } else {
                 executeTag();
                 prepareCommandComplete(false);
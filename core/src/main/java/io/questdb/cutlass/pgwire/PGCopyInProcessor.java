@@ -0,0 +1,521 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.TextException;
+import io.questdb.cutlass.text.TextLoader;
+import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Receiving end of COPY ... FROM STDIN. Data arrives in CopyData messages of arbitrary size.
+ * Text and CSV data is handed over to {@link TextLoader}, which copes with lines split between
+ * messages. PostgreSQL binary tuples are decoded here and appended to the table writer directly,
+ * an incomplete tuple is kept in the buffer until the rest of it arrives.
+ * <p>
+ * Rows are committed every {@link PGWireConfiguration#getCopyCommitBatchSize()} rows and once
+ * more when the client sends CopyDone, so a failed COPY leaves the batches committed before
+ * the failure in the table.
+ */
+public class PGCopyInProcessor implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(PGCopyInProcessor.class);
+    private static final String WRITER_LOCK_REASON = "pgCopy";
+    private static final String TEXT_NULL_VALUE = "\\N";
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    // signature, flags and header extension length
+    private static final int BINARY_HEADER_LEN = BINARY_SIGNATURE.length + 2 * Integer.BYTES;
+    private final CairoEngine engine;
+    private final int commitBatchSize;
+    private final int analysisBufferSize;
+    private final Path path = new Path();
+    private final StringSink utf8Sink = new StringSink();
+    private final LongList fieldAddresses = new LongList();
+    private final IntList fieldLengths = new IntList();
+    private CairoSecurityContext securityContext;
+    private TextLoader textLoader;
+    private TableWriter writer;
+    private CharSequence tableName;
+    private boolean active;
+    private boolean analysing;
+    private boolean headerParsed;
+    private boolean trailerParsed;
+    private int format;
+    private int columnCount;
+    private int timestampIndex;
+    private long buf;
+    private long bufCapacity;
+    private long bufSize;
+    private long rowCount;
+    private long committedRowCount;
+
+    public PGCopyInProcessor(CairoEngine engine, PGWireConfiguration configuration) {
+        this.engine = engine;
+        this.commitBatchSize = Math.max(1, configuration.getCopyCommitBatchSize());
+        this.analysisBufferSize = engine.getConfiguration().getSqlCopyBufferSize();
+    }
+
+    @Override
+    public void clear() {
+        if (writer != null) {
+            writer.rollback();
+            writer = Misc.free(writer);
+        }
+        if (textLoader != null) {
+            textLoader.rollback();
+            textLoader.clear();
+        }
+        securityContext = null;
+        tableName = null;
+        active = false;
+        analysing = false;
+        headerParsed = false;
+        trailerParsed = false;
+        columnCount = 0;
+        timestampIndex = -1;
+        bufSize = 0;
+        rowCount = 0;
+        committedRowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        textLoader = Misc.free(textLoader);
+        if (buf != 0) {
+            Unsafe.free(buf, bufCapacity, MemoryTag.NATIVE_PGW_CONN);
+            buf = 0;
+            bufCapacity = 0;
+        }
+        Misc.free(path);
+    }
+
+    /**
+     * Consumes payload of a CopyData message.
+     *
+     * @param lo address of the first byte of the payload
+     * @param hi address of the byte after the payload
+     */
+    public void data(long lo, long hi) {
+        if (format == CopyModel.FORMAT_BINARY) {
+            if (!trailerParsed) {
+                append(lo, hi);
+                parseBinary();
+            }
+        } else if (analysing) {
+            // structure is analysed on a sizeable sample rather than on the first message,
+            // which some clients send one line at a time
+            append(lo, hi);
+            if (bufSize >= analysisBufferSize) {
+                analyseText();
+            }
+        } else {
+            parseText(lo, hi);
+        }
+    }
+
+    /**
+     * Commits the remaining rows when client sends CopyDone and makes processor inactive.
+     *
+     * @return number of rows appended to the table
+     */
+    public long done() {
+        final long rows;
+        if (format == CopyModel.FORMAT_BINARY) {
+            if (bufSize > 0) {
+                throw CairoException.instance(0).put("incomplete binary COPY data [bytes=").put(bufSize).put(']');
+            }
+            writer.commit();
+            rows = rowCount;
+        } else {
+            if (analysing) {
+                if (bufSize == 0) {
+                    // nothing was sent
+                    clear();
+                    return 0;
+                }
+                analyseText();
+            }
+            try {
+                textLoader.wrapUp();
+            } catch (TextException e) {
+                throw CairoException.instance(0).put(e.getFlyweightMessage());
+            }
+            rows = textLoader.getWrittenLineCount();
+            if (textLoader.getErrorLineCount() > 0) {
+                LOG.info().$("skipped rows [table=").$(tableName).$(", errors=").$(textLoader.getErrorLineCount()).I$();
+            }
+        }
+        LOG.info().$("copied [table=").$(tableName).$(", rows=").$(rows).I$();
+        clear();
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isBinary() {
+        return format == CopyModel.FORMAT_BINARY;
+    }
+
+    /**
+     * Prepares to receive data of compiled COPY ... FROM STDIN. Binary format needs an existing
+     * table to learn column types from, text formats create the table when it does not exist.
+     *
+     * @param cq              COPY_REMOTE query, its text loader carries COPY options
+     * @param securityContext security context of the connection
+     */
+    public void of(CompiledQuery cq, CairoSecurityContext securityContext) {
+        clear();
+        final TextLoader options = cq.getTextLoader();
+        this.tableName = Chars.toString(options.getTableName());
+        this.format = cq.getCopyFormat();
+        this.securityContext = securityContext;
+        if (format == CopyModel.FORMAT_BINARY) {
+            if (engine.getStatus(securityContext, path, tableName) != TableUtils.TABLE_EXISTS) {
+                throw CairoException.instance(0).put("table does not exist [table=").put(tableName).put(']');
+            }
+            writer = engine.getWriter(securityContext, tableName, WRITER_LOCK_REASON);
+            final RecordMetadata metadata = writer.getMetadata();
+            columnCount = metadata.getColumnCount();
+            timestampIndex = metadata.getTimestampIndex();
+            fieldAddresses.setPos(columnCount);
+            fieldLengths.setPos(columnCount);
+        } else {
+            if (engine.getStatus(securityContext, path, tableName) == TableUtils.TABLE_EXISTS) {
+                try (TableReader reader = engine.getReader(securityContext, tableName)) {
+                    columnCount = reader.getMetadata().getColumnCount();
+                }
+            }
+            if (textLoader == null) {
+                textLoader = new TextLoader(engine);
+            }
+            textLoader.setState(TextLoader.ANALYZE_STRUCTURE);
+            textLoader.configureDestination(tableName, false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+            textLoader.configureColumnDelimiter(options.getColumnDelimiter());
+            // unlike file imports, COPY FROM STDIN has a header only when HEADER option says so
+            textLoader.setForceHeaders(options.isForceHeaders());
+            textLoader.setDetectHeader(false);
+            textLoader.setSkipRowsWithExtraValues(false);
+            if (format == CopyModel.FORMAT_TEXT) {
+                textLoader.setNullValue(TEXT_NULL_VALUE);
+            }
+            analysing = true;
+        }
+        active = true;
+        LOG.info().$("copy in [table=").$(tableName).$(", format=").$(format).I$();
+    }
+
+    private static int getInt(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getInt(address));
+    }
+
+    private static short getShort(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getShort(address));
+    }
+
+    private void analyseText() {
+        analysing = false;
+        try {
+            textLoader.parse(buf, buf + bufSize, securityContext);
+        } catch (TextException e) {
+            throw CairoException.instance(0).put(e.getFlyweightMessage());
+        }
+        textLoader.setState(TextLoader.LOAD_DATA);
+        bufSize = 0;
+        commitTextBatch();
+    }
+
+    private void append(long lo, long hi) {
+        final long len = hi - lo;
+        if (bufSize + len > bufCapacity) {
+            final long capacity = Numbers.ceilPow2(bufSize + len);
+            buf = buf == 0
+                    ? Unsafe.malloc(capacity, MemoryTag.NATIVE_PGW_CONN)
+                    : Unsafe.realloc(buf, bufCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+            bufCapacity = capacity;
+        }
+        Vect.memcpy(buf + bufSize, lo, len);
+        bufSize += len;
+    }
+
+    private void appendRow(RecordMetadata metadata) {
+        final TableWriter.Row row;
+        if (timestampIndex > -1) {
+            if (fieldLengths.getQuick(timestampIndex) == -1) {
+                throw CairoException.instance(0).put("designated timestamp cannot be null [row=").put(rowCount + 1).put(']');
+            }
+            row = writer.newRow(getTimestamp(timestampIndex));
+        } else {
+            row = writer.newRow();
+        }
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (i != timestampIndex && fieldLengths.getQuick(i) != -1) {
+                    putValue(row, i, metadata.getColumnType(i));
+                }
+            }
+            row.append();
+        } catch (Throwable e) {
+            row.cancel();
+            throw e;
+        }
+        if (++rowCount - committedRowCount >= commitBatchSize) {
+            writer.commit();
+            committedRowCount = rowCount;
+        }
+    }
+
+    private CairoException badLength(int column) {
+        return CairoException.instance(0)
+                .put("unexpected binary value length [column=").put(writer.getMetadata().getColumnName(column))
+                .put(", type=").put(ColumnType.nameOf(writer.getMetadata().getColumnType(column)))
+                .put(", length=").put(fieldLengths.getQuick(column))
+                .put(']');
+    }
+
+    private void commitTextBatch() {
+        final long written = textLoader.getWrittenLineCount();
+        if (written - committedRowCount >= commitBatchSize) {
+            textLoader.commit();
+            committedRowCount = written;
+        }
+    }
+
+    private double getFloatingPoint(int column) {
+        final long address = fieldAddresses.getQuick(column);
+        switch (fieldLengths.getQuick(column)) {
+            case Float.BYTES:
+                return Float.intBitsToFloat(getInt(address));
+            case Double.BYTES:
+                return Double.longBitsToDouble(PGConnectionContext.getLongUnsafe(address));
+            default:
+                throw badLength(column);
+        }
+    }
+
+    // integers are accepted in any PostgreSQL width, e.g. int4 for a SHORT column
+    private long getInteger(int column) {
+        final long address = fieldAddresses.getQuick(column);
+        switch (fieldLengths.getQuick(column)) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(address);
+            case Short.BYTES:
+                return getShort(address);
+            case Integer.BYTES:
+                return getInt(address);
+            case Long.BYTES:
+                return PGConnectionContext.getLongUnsafe(address);
+            default:
+                throw badLength(column);
+        }
+    }
+
+    // PostgreSQL timestamp is microseconds and date is days, both since 2000-01-01
+    private long getTimestamp(int column) {
+        final long address = fieldAddresses.getQuick(column);
+        switch (fieldLengths.getQuick(column)) {
+            case Integer.BYTES:
+                return getInt(address) * Timestamps.DAY_MICROS + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+            case Long.BYTES:
+                return PGConnectionContext.getLongUnsafe(address) + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+            default:
+                throw badLength(column);
+        }
+    }
+
+    private CharSequence getUtf8(int column) {
+        final long address = fieldAddresses.getQuick(column);
+        utf8Sink.clear();
+        if (!Chars.utf8Decode(address, address + fieldLengths.getQuick(column), utf8Sink)) {
+            throw CairoException.instance(0).put("invalid UTF8 [column=").put(writer.getMetadata().getColumnName(column)).put(']');
+        }
+        return utf8Sink;
+    }
+
+    private void parseBinary() {
+        long p = buf;
+        final long hi = buf + bufSize;
+        if (!headerParsed) {
+            if (hi - p < BINARY_HEADER_LEN) {
+                return;
+            }
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                if (Unsafe.getUnsafe().getByte(p + i) != BINARY_SIGNATURE[i]) {
+                    throw CairoException.instance(0).put("invalid binary COPY signature");
+                }
+            }
+            final int extensionLen = getInt(p + BINARY_HEADER_LEN - Integer.BYTES);
+            if (extensionLen < 0) {
+                throw CairoException.instance(0).put("invalid binary COPY header extension length [length=").put(extensionLen).put(']');
+            }
+            if (hi - p < BINARY_HEADER_LEN + extensionLen) {
+                return;
+            }
+            p += BINARY_HEADER_LEN + extensionLen;
+            headerParsed = true;
+        }
+
+        final RecordMetadata metadata = writer.getMetadata();
+        while (hi - p >= Short.BYTES) {
+            final short fieldCount = getShort(p);
+            if (fieldCount == -1) {
+                // trailer, whatever follows is ignored
+                trailerParsed = true;
+                p = hi;
+                break;
+            }
+            if (fieldCount != columnCount) {
+                throw CairoException.instance(0).put("column count mismatch [expected=").put(columnCount).put(", actual=").put(fieldCount).put(']');
+            }
+
+            long q = p + Short.BYTES;
+            int i = 0;
+            for (; i < fieldCount; i++) {
+                if (hi - q < Integer.BYTES) {
+                    break;
+                }
+                final int len = getInt(q);
+                q += Integer.BYTES;
+                if (len < -1) {
+                    throw CairoException.instance(0).put("invalid binary COPY field length [length=").put(len).put(']');
+                }
+                if (len > 0) {
+                    if (hi - q < len) {
+                        break;
+                    }
+                    fieldAddresses.setQuick(i, q);
+                    q += len;
+                } else {
+                    fieldAddresses.setQuick(i, q);
+                }
+                fieldLengths.setQuick(i, len);
+            }
+            if (i < fieldCount) {
+                // tuple continues in the next message
+                break;
+            }
+            appendRow(metadata);
+            p = q;
+        }
+
+        final long consumed = p - buf;
+        if (consumed > 0) {
+            bufSize -= consumed;
+            if (bufSize > 0) {
+                Vect.memmove(buf, p, bufSize);
+            }
+        }
+    }
+
+    private void parseText(long lo, long hi) {
+        try {
+            textLoader.parse(lo, hi, securityContext);
+        } catch (TextException e) {
+            throw CairoException.instance(0).put(e.getFlyweightMessage());
+        }
+        commitTextBatch();
+    }
+
+    private void putValue(TableWriter.Row row, int column, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                if (fieldLengths.getQuick(column) != 1) {
+                    throw badLength(column);
+                }
+                row.putBool(column, Unsafe.getUnsafe().getByte(fieldAddresses.getQuick(column)) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(column, (byte) getInteger(column));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(column, (short) getInteger(column));
+                break;
+            case ColumnType.INT:
+                row.putInt(column, (int) getInteger(column));
+                break;
+            case ColumnType.LONG:
+                row.putLong(column, getInteger(column));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(column, (float) getFloatingPoint(column));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(column, getFloatingPoint(column));
+                break;
+            case ColumnType.DATE:
+                row.putDate(column, getTimestamp(column) / 1000);
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(column, getTimestamp(column));
+                break;
+            case ColumnType.CHAR:
+                final CharSequence value = getUtf8(column);
+                if (value.length() > 0) {
+                    row.putChar(column, value.charAt(0));
+                }
+                break;
+            case ColumnType.STRING:
+                row.putStr(column, getUtf8(column));
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(column, getUtf8(column));
+                break;
+            case ColumnType.LONG256:
+                row.putLong256(column, getUtf8(column));
+                break;
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                row.putGeoStr(column, getUtf8(column));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(column, fieldAddresses.getQuick(column), fieldLengths.getQuick(column));
+                break;
+            default:
+                throw CairoException.instance(0)
+                        .put("binary COPY does not support column type [column=").put(writer.getMetadata().getColumnName(column))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+        }
+    }
+}
@@ -40,6 +40,14 @@ public interface PGWireConfiguration extends WorkerPoolAwareConfiguration {
 
     int getConnectionPoolInitialCapacity();
 
+    /**
+     * Number of rows COPY FROM STDIN appends to a table before committing them.
+     * Rows of an interrupted COPY that made it into earlier batches stay in the table.
+     *
+     * @return rows per commit
+     */
+    int getCopyCommitBatchSize();
+
     String getDefaultPassword();
 
     String getDefaultUsername();
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.metrics.Histogram;
+import io.questdb.metrics.MetricsRegistry;
+import org.jetbrains.annotations.TestOnly;
+
+public class PGWireMetrics {
+
+    // Time to compile and execute a simple query batch or an extended protocol Execute,
+    // sending to a slow client is not included
+    private final Histogram queryLatency;
+
+    public PGWireMetrics(MetricsRegistry metricsRegistry) {
+        this.queryLatency = metricsRegistry.newHistogram("pg_wire_queries_latency");
+    }
+
+    @TestOnly
+    public Histogram queryLatency() {
+        return queryLatency;
+    }
+
+    public void recordQueryLatency(long nanos) {
+        queryLatency.record(nanos);
+    }
+}
@@ -69,6 +69,7 @@ public class CairoTextWriter implements Closeable, Mutable {
     private final TextLexer.Listener partitionedListener = this::onFieldsPartitioned;
     private int warnings;
     private final IntList remapIndex = new IntList();
+    private CharSequence nullValue;
 
     public CairoTextWriter(
             CairoEngine engine,
@@ -93,6 +94,7 @@ public class CairoTextWriter implements Closeable, Mutable {
         designatedTimestampIndex = NO_INDEX;
         importedTimestampColumnName = null;
         remapIndex.clear();
+        nullValue = null;
     }
 
     @Override
@@ -111,6 +113,12 @@ public class CairoTextWriter implements Closeable, Mutable {
         }
     }
 
+    public void rollback() {
+        if (writer != null) {
+            writer.rollback();
+        }
+    }
+
     public LongList getColumnErrorCounts() {
         return columnErrorCounts;
     }
@@ -131,6 +139,10 @@ public class CairoTextWriter implements Closeable, Mutable {
         this.maxUncommittedRows = maxUncommittedRows;
     }
 
+    public void setNullValue(CharSequence nullValue) {
+        this.nullValue = nullValue;
+    }
+
     public CharSequence getTableName() {
         return tableName;
     }
@@ -164,7 +176,7 @@ public class CairoTextWriter implements Closeable, Mutable {
         final TableWriter.Row w = writer.newRow();
         for (int i = 0; i < valuesLength; i++) {
             final DirectByteCharSequence dbcs = values.getQuick(i);
-            if (dbcs.length() == 0) {
+            if (dbcs.length() == 0 || isNullValue(dbcs)) {
                 continue;
             }
             if (onField(line, dbcs, w, i)) return;
@@ -179,7 +191,7 @@ public class CairoTextWriter implements Closeable, Mutable {
             final TableWriter.Row w = writer.newRow(timestampAdapter.getTimestamp(dbcs));
             for (int i = 0; i < valuesLength; i++) {
                 dbcs = values.getQuick(i);
-                if (i == timestampIndex || dbcs.length() == 0) {
+                if (i == timestampIndex || dbcs.length() == 0 || isNullValue(dbcs)) {
                     continue;
                 }
                 if (onField(line, dbcs, w, i)) return;
@@ -211,6 +223,10 @@ public class CairoTextWriter implements Closeable, Mutable {
         this.types = detectedTypes;
     }
 
+    private boolean isNullValue(DirectByteCharSequence dbcs) {
+        return nullValue != null && Chars.equals(nullValue, dbcs);
+    }
+
     private void logError(long line, int i, DirectByteCharSequence dbcs) {
         LogRecord logRecord = LOG.error().$("type syntax [type=").$(ColumnType.nameOf(types.getQuick(i).getType())).$("]\n\t");
         logRecord.$('[').$(line).$(':').$(i).$("] -> ").$(dbcs).$();
@@ -309,6 +325,30 @@ public class CairoTextWriter implements Closeable, Mutable {
         return writer;
     }
 
+    int getAtomicity() {
+        return atomicity;
+    }
+
+    IntList getRemapIndex() {
+        return remapIndex;
+    }
+
+    TimestampAdapter getTimestampAdapter() {
+        return timestampAdapter;
+    }
+
+    int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    ObjList<TypeAdapter> getTypes() {
+        return types;
+    }
+
+    TableWriter getWriter() {
+        return writer;
+    }
+
     void prepareTable(
             CairoSecurityContext cairoSecurityContext,
             ObjList<CharSequence> names,
@@ -450,6 +490,11 @@ public class CairoTextWriter implements Closeable, Mutable {
             return configuration.getCommitLag();
         }
 
+        @Override
+        public long getTtl() {
+            return 0;
+        }
+
         TableStructureAdapter of(ObjList<CharSequence> names, ObjList<TypeAdapter> types) throws TextException {
             this.names = names;
             this.types = types;
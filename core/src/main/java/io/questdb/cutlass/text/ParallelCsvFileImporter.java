@@ -0,0 +1,1012 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PerWorkerLocks;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cutlass.text.types.TimestampAdapter;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectCharSink;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.TextImportTask;
+
+import java.io.Closeable;
+
+/**
+ * Imports CSV file into a partitioned table using all available workers. Unlike {@link TextLoader}, which
+ * appends rows in file order and has to fall back to out-of-order commits for unsorted input, the importer
+ * goes through the following phases:
+ * <ol>
+ *     <li>file is split into chunks at line boundaries; quotes are counted in parallel to tell real line ends
+ *     from the new line characters inside quoted values</li>
+ *     <li>chunks are lexed in parallel and (timestamp, line offset) pairs are written into temporary index
+ *     files, one file per partition per chunk</li>
+ *     <li>each partition merges and sorts its index and appends lines in timestamp order into a temporary
+ *     table, which shares the target table's structure</li>
+ *     <li>symbol values of temporary tables are added to the target symbol tables and symbol keys of the
+ *     partitions are rewritten in parallel, indexes are built</li>
+ *     <li>partitions are moved into the target table and attached in timestamp order</li>
+ * </ol>
+ * Target table must be empty. Temporary files are kept in the {@link CairoConfiguration#getInputWorkRoot()}
+ * directory.
+ */
+public class ParallelCsvFileImporter implements Closeable, Mutable {
+    static final int PHASE_BOUNDARY_CHECK = 0;
+    static final int PHASE_INDEXING = 1;
+    static final int PHASE_PARTITION_IMPORT = 2;
+    static final int PHASE_SYMBOL_KEY_REMAP = 3;
+    private static final Log LOG = LogFactory.getLog(ParallelCsvFileImporter.class);
+    private static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+    private static final int BOUNDARY_STATS_SIZE = 3;
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final RingQueue<TextImportTask> queue;
+    private final Sequence pubSeq;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final ObjectPool<TextImportEntry> entryPool;
+    private final ObjList<TextImportEntry> activeEntries = new ObjList<>();
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<WorkerContext> workerContexts = new ObjList<>();
+    private final DirectCharSink utf8Sink;
+    private final TypeManager typeManager;
+    private final TextLexer textLexer;
+    private final TextDelimiterScanner textDelimiterScanner;
+    private final CairoTextWriter textWriter;
+    private final Path path = new Path();
+    private final Path otherPath = new Path();
+    private final ObjList<CharSequence> metadataColumnNames = new ObjList<>();
+    private final ObjList<TypeAdapter> metadataColumnTypes = new ObjList<>();
+    private final int textAnalysisMaxLines;
+    private final int chunkCount;
+    // quote count, first line end at even and odd quote count for every chunk
+    private final LongList boundaryStats = new LongList();
+    // lo, hi file offsets of every chunk
+    private final LongList chunks = new LongList();
+    // (partition timestamp, row count) pairs found in every chunk
+    private final ObjList<LongList> chunkPartitions = new ObjList<>();
+    private final LongList chunkErrorCounts = new LongList();
+    private final ObjectPool<PartitionInfo> partitionInfoPool = new ObjectPool<>(PartitionInfo::new, 64);
+    private final ObjList<PartitionInfo> partitions = new ObjList<>();
+    private final LongIntHashMap partitionIndexes = new LongIntHashMap();
+    private final LongList columnNameTxns = new LongList();
+    private final SymbolMapReaderImpl symbolMapReader = new SymbolMapReaderImpl();
+    private final StringSink partitionNameSink = new StringSink();
+    private CharSequence tableName;
+    private CharSequence inputFileName;
+    private CharSequence timestampColumn;
+    private int partitionBy;
+    private int atomicity = Atomicity.SKIP_ROW;
+    private byte columnDelimiter = -1;
+    private boolean forceHeader;
+    private long fileAddress;
+    private long fileSize;
+    private int importRootLen;
+    private TableWriter writer;
+    private RecordMetadata metadata;
+    private ObjList<TypeAdapter> types;
+    private IntList remapIndex;
+    private int timestampIndex;
+    private int fileColumnCount;
+    private boolean header;
+    private PartitionBy.PartitionFloorMethod partitionFloorMethod;
+    private String importRoot;
+    private long importedRowCount;
+    private long errorCount;
+
+    public ParallelCsvFileImporter(CairoEngine engine, int workerCount) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        final MessageBus messageBus = engine.getMessageBus();
+        this.queue = messageBus.getTextImportQueue();
+        this.pubSeq = messageBus.getTextImportPubSeq();
+        this.chunkCount = Math.max(1, workerCount);
+        this.entryPool = new ObjectPool<>(TextImportEntry::new, chunkCount);
+
+        final TextConfiguration textConfiguration = configuration.getTextConfiguration();
+        this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
+        this.typeManager = new TypeManager(textConfiguration, utf8Sink);
+        this.textLexer = new TextLexer(textConfiguration, typeManager);
+        this.textDelimiterScanner = new TextDelimiterScanner(textConfiguration);
+        this.textWriter = new CairoTextWriter(engine, path, typeManager);
+        this.textAnalysisMaxLines = textConfiguration.getTextAnalysisMaxLines();
+
+        // one more slot for the thread running the import
+        final int slotCount = chunkCount + 1;
+        this.perWorkerLocks = new PerWorkerLocks(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            workerContexts.add(new WorkerContext(textConfiguration));
+        }
+    }
+
+    @Override
+    public void clear() {
+        textWriter.clear();
+        textLexer.clear();
+        typeManager.clear();
+        entryPool.clear();
+        activeEntries.clear();
+        boundaryStats.clear();
+        chunks.clear();
+        chunkErrorCounts.clear();
+        partitionInfoPool.clear();
+        partitions.clear();
+        partitionIndexes.clear();
+        columnNameTxns.clear();
+        metadataColumnNames.clear();
+        metadataColumnTypes.clear();
+        for (int i = 0, n = workerContexts.size(); i < n; i++) {
+            workerContexts.getQuick(i).clear();
+        }
+        writer = null;
+        metadata = null;
+        types = null;
+        remapIndex = null;
+        partitionFloorMethod = null;
+        columnDelimiter = -1;
+        atomicity = Atomicity.SKIP_ROW;
+        forceHeader = false;
+        importedRowCount = 0;
+        errorCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(workerContexts);
+        Misc.free(textWriter);
+        Misc.free(textLexer);
+        Misc.free(textDelimiterScanner);
+        Misc.free(utf8Sink);
+        Misc.free(symbolMapReader);
+        Misc.free(path);
+        Misc.free(otherPath);
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getImportedRowCount() {
+        return importedRowCount;
+    }
+
+    public void of(
+            CharSequence tableName,
+            CharSequence inputFileName,
+            int partitionBy,
+            byte columnDelimiter,
+            CharSequence timestampColumn,
+            boolean forceHeader,
+            int atomicity
+    ) {
+        clear();
+        this.tableName = tableName;
+        this.inputFileName = inputFileName;
+        this.partitionBy = partitionBy;
+        this.columnDelimiter = columnDelimiter;
+        this.timestampColumn = timestampColumn;
+        this.forceHeader = forceHeader;
+        this.atomicity = atomicity;
+        textLexer.setTableName(tableName);
+        textDelimiterScanner.setTableName(tableName);
+    }
+
+    public void process(CairoSecurityContext securityContext) throws TextException {
+        final CharSequence workRoot = configuration.getInputWorkRoot();
+        if (workRoot == null) {
+            throw CairoException.instance(0).put("parallel import is disabled ['cairo.sql.copy.work.root' is not set?]");
+        }
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.instance(0).put("parallel import requires partitioned table [table=").put(tableName).put(']');
+        }
+
+        final long startUs = configuration.getMicrosecondClock().getTicks();
+        path.of(configuration.getInputRoot()).concat(inputFileName).$();
+        final long fd = ff.openRO(path);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open file [path=").put(path).put(']');
+        }
+        try {
+            fileSize = ff.length(fd);
+            if (fileSize < 1) {
+                throw CairoException.instance(0).put("file is empty [path=").put(path).put(']');
+            }
+            fileAddress = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_DEFAULT);
+            try {
+                prepareTable(securityContext);
+
+                otherPath.of(workRoot).concat(tableName);
+                importRoot = otherPath.toString();
+                importRootLen = otherPath.length();
+                removeImportRoot();
+                if (ff.mkdirs(otherPath.slash$(), configuration.getMkDirMode()) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not create import directory [path=").put(otherPath).put(']');
+                }
+                otherPath.trimTo(importRootLen);
+
+                try {
+                    findChunkBoundaries();
+                    indexChunks();
+                    importPartitions();
+                    mergeSymbolTables();
+                    runPhase(PHASE_SYMBOL_KEY_REMAP, partitions.size());
+                    attachPartitions();
+                } finally {
+                    removeImportRoot();
+                }
+            } finally {
+                ff.munmap(fileAddress, fileSize, MemoryTag.MMAP_DEFAULT);
+                fileAddress = 0;
+            }
+        } finally {
+            ff.close(fd);
+            textWriter.clear();
+        }
+
+        LOG.info()
+                .$("imported [table=`").$(tableName)
+                .$("`, file=").$(inputFileName)
+                .$(", rows=").$(importedRowCount)
+                .$(", errors=").$(errorCount)
+                .$(", partitions=").$(partitions.size())
+                .$(", chunks=").$(chunks.size() / 2)
+                .$(", timeUs=").$(configuration.getMicrosecondClock().getTicks() - startUs)
+                .$(']').$();
+    }
+
+    private void attachPartitions() {
+        for (int i = 0, n = partitions.size(); i < n; i++) {
+            final PartitionInfo partition = partitions.getQuick(i);
+            if (partition.importedRowCount == 0) {
+                continue;
+            }
+            setPathForTempPartition(otherPath, partition);
+            path.of(configuration.getRoot()).concat(tableName);
+            PartitionBy.setSinkForPartition(path.slash(), partitionBy, partition.timestamp, false);
+            if (!ff.rename(otherPath.$(), path.$())) {
+                throw CairoException.instance(ff.errno()).put("could not move partition [from=").put(otherPath).put(", to=").put(path).put(']');
+            }
+            final int status = writer.attachPartition(partition.timestamp);
+            if (status != StatusCode.OK) {
+                throw CairoException.instance(0).put("could not attach partition [table=").put(tableName)
+                        .put(", partition=").put(partition.name)
+                        .put(", status=").put(status)
+                        .put(']');
+            }
+            importedRowCount += partition.importedRowCount;
+            errorCount += partition.errorCount;
+        }
+    }
+
+    private void findChunkBoundaries() {
+        final long chunkSize = Math.max(1, (fileSize + chunkCount - 1) / chunkCount);
+        final int taskCount = (int) ((fileSize + chunkSize - 1) / chunkSize);
+        boundaryStats.setAll(taskCount * BOUNDARY_STATS_SIZE, -1);
+        chunks.clear();
+        for (int i = 0; i < taskCount; i++) {
+            chunks.add(i * chunkSize, Math.min(fileSize, (i + 1) * chunkSize));
+        }
+        runPhase(PHASE_BOUNDARY_CHECK, taskCount);
+
+        // chunk starts after the first line end that is outside of quotes,
+        // chunks without such a line end are merged into their predecessor
+        long quotes = 0;
+        long lo = 0;
+        chunks.clear();
+        for (int i = 1; i < taskCount; i++) {
+            quotes += boundaryStats.getQuick((i - 1) * BOUNDARY_STATS_SIZE);
+            final long lineEnd = boundaryStats.getQuick(i * BOUNDARY_STATS_SIZE + ((quotes & 1) == 0 ? 1 : 2));
+            if (lineEnd > -1 && lineEnd + 1 < fileSize) {
+                chunks.add(lo, lineEnd + 1);
+                lo = lineEnd + 1;
+            }
+        }
+        chunks.add(lo, fileSize);
+    }
+
+    private PartitionInfo getOrCreatePartition(long timestamp) {
+        final int keyIndex = partitionIndexes.keyIndex(timestamp);
+        if (keyIndex < 0) {
+            return partitions.getQuick(partitionIndexes.valueAt(keyIndex));
+        }
+        final PartitionInfo partition = partitionInfoPool.next();
+        partition.timestamp = timestamp;
+        partitionIndexes.putAt(keyIndex, timestamp, partitions.size());
+        partitions.add(partition);
+        return partition;
+    }
+
+    private void importPartitions() {
+        for (int i = 0, n = partitions.size(); i < n; i++) {
+            final PartitionInfo partition = partitions.getQuick(i);
+            partitionNameSink.clear();
+            PartitionBy.setSinkForPartition(partitionNameSink, partitionBy, partition.timestamp, false);
+            partition.name = Chars.toString(partitionNameSink);
+        }
+        runPhase(PHASE_PARTITION_IMPORT, partitions.size());
+    }
+
+    private void indexChunks() {
+        final int count = chunks.size() / 2;
+        chunkPartitions.setPos(count);
+        chunkErrorCounts.setAll(count, 0);
+        for (int i = 0; i < count; i++) {
+            if (chunkPartitions.getQuick(i) == null) {
+                chunkPartitions.setQuick(i, new LongList());
+            } else {
+                chunkPartitions.getQuick(i).clear();
+            }
+        }
+        runPhase(PHASE_INDEXING, count);
+
+        // collect partitions in timestamp order along with the chunks they have rows in
+        for (int i = 0; i < count; i++) {
+            final LongList found = chunkPartitions.getQuick(i);
+            for (int j = 0, m = found.size(); j < m; j += 2) {
+                final PartitionInfo partition = getOrCreatePartition(found.getQuick(j));
+                partition.chunkRowCounts.add((long) i, found.getQuick(j + 1));
+                partition.rowCount += found.getQuick(j + 1);
+            }
+            errorCount += chunkErrorCounts.getQuick(i);
+        }
+        partitions.sort(PartitionInfo::compareTimestamp);
+        partitionIndexes.clear();
+    }
+
+    private void mergeSymbolTables() {
+        for (int c = 0, n = metadata.getColumnCount(); c < n; c++) {
+            if (!ColumnType.isSymbol(metadata.getColumnType(c))) {
+                continue;
+            }
+            final CharSequence columnName = metadata.getColumnName(c);
+            for (int i = 0, m = partitions.size(); i < m; i++) {
+                final PartitionInfo partition = partitions.getQuick(i);
+                final int symbolCount = partition.symbolCounts.getQuick(c);
+                final IntList keyRemap = partition.getSymbolKeyRemap(c);
+                if (symbolCount < 1) {
+                    continue;
+                }
+                path.of(importRoot).concat(partition.name);
+                symbolMapReader.of(configuration, path, columnName, TableUtils.COLUMN_NAME_TXN_NONE, symbolCount);
+                for (int key = 0; key < symbolCount; key++) {
+                    keyRemap.add(writer.getSymbolIndexNoTransientCountUpdate(c, symbolMapReader.valueOf(key)));
+                }
+            }
+        }
+        symbolMapReader.close();
+    }
+
+    private void prepareTable(CairoSecurityContext securityContext) throws TextException {
+        final long analysisHi = fileAddress + Math.min(fileSize, configuration.getSqlCopyBufferSize());
+        if (columnDelimiter < 1) {
+            columnDelimiter = textDelimiterScanner.scan(fileAddress, analysisHi);
+        }
+        textLexer.of(columnDelimiter);
+        textLexer.analyseStructure(
+                fileAddress,
+                analysisHi,
+                textAnalysisMaxLines,
+                forceHeader,
+                true,
+                metadataColumnNames,
+                metadataColumnTypes
+        );
+        header = textLexer.isHeaderDetected();
+
+        textWriter.of(tableName, false, false, atomicity, partitionBy, timestampColumn);
+        textWriter.prepareTable(securityContext, textLexer.getColumnNames(), textLexer.getColumnTypes());
+
+        writer = textWriter.getWriter();
+        metadata = writer.getMetadata();
+        types = textWriter.getTypes();
+        remapIndex = textWriter.getRemapIndex();
+        timestampIndex = textWriter.getTimestampIndex();
+        fileColumnCount = types.size();
+
+        if (writer.size() > 0) {
+            throw CairoException.instance(0).put("target table must be empty [table=").put(tableName).put(']');
+        }
+        if (!PartitionBy.isPartitioned(writer.getPartitionBy())) {
+            throw CairoException.instance(0).put("target table is not partitioned [table=").put(tableName).put(']');
+        }
+        if (textWriter.getTimestampAdapter() == null
+                || timestampIndex < 0
+                || getTableColumnIndex(timestampIndex) != metadata.getTimestampIndex()) {
+            throw CairoException.instance(0).put("designated timestamp column is not found in the file [table=").put(tableName).put(']');
+        }
+
+        partitionBy = writer.getPartitionBy();
+        partitionFloorMethod = PartitionBy.getPartitionFloorMethod(partitionBy);
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            columnNameTxns.add(writer.getColumnNameTxn(Long.MIN_VALUE, i));
+        }
+        for (int i = 0, n = workerContexts.size(); i < n; i++) {
+            workerContexts.getQuick(i).of(types);
+        }
+    }
+
+    private int getTableColumnIndex(int fileColumnIndex) {
+        return remapIndex.size() > 0 ? remapIndex.getQuick(fileColumnIndex) : fileColumnIndex;
+    }
+
+    private void removeImportRoot() {
+        otherPath.trimTo(importRootLen).$();
+        if (ff.exists(otherPath) && ff.rmdir(otherPath) != 0) {
+            LOG.error().$("could not remove import directory [path=").$(otherPath).$(", errno=").$(ff.errno()).$(']').$();
+        }
+        otherPath.trimTo(importRootLen);
+    }
+
+    private void runPhase(int phase, int taskCount) {
+        entryPool.clear();
+        activeEntries.clear();
+        doneLatch.reset();
+
+        for (int i = 0; i < taskCount; i++) {
+            final TextImportEntry entry = entryPool.next();
+            entry.of(i, this, phase, i, doneLatch);
+            activeEntries.add(entry);
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                // queue is full, do the work ourselves
+                entry.run(-1);
+            } else {
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+            }
+        }
+
+        // start at the back to reduce chance of clashing with the workers
+        for (int i = taskCount - 1; i > -1 && doneLatch.getCount() > -taskCount; i--) {
+            activeEntries.getQuick(i).run(-1);
+        }
+        doneLatch.await(taskCount);
+
+        for (int i = 0; i < taskCount; i++) {
+            final CharSequence error = activeEntries.getQuick(i).getError();
+            if (error != null) {
+                throw CairoException.instance(0).put("import failed [table=").put(tableName)
+                        .put(", phase=").put(phase)
+                        .put(", task=").put(i)
+                        .put(", error=").put(error)
+                        .put(']');
+            }
+        }
+    }
+
+    private void setPathForTempPartition(Path path, PartitionInfo partition) {
+        path.of(importRoot).concat(partition.name).concat(partition.name);
+        TableUtils.txnPartitionConditionally(path, partition.nameTxn);
+    }
+
+    void runEntry(TextImportEntry entry, int workerId) {
+        final int slot = perWorkerLocks.acquireSlot(workerId);
+        try {
+            final WorkerContext context = workerContexts.getQuick(slot);
+            final int index = entry.getIndex();
+            switch (entry.getPhase()) {
+                case PHASE_BOUNDARY_CHECK:
+                    countQuotes(index);
+                    break;
+                case PHASE_INDEXING:
+                    context.indexChunk(index);
+                    break;
+                case PHASE_PARTITION_IMPORT:
+                    context.importPartition(partitions.getQuick(index));
+                    break;
+                case PHASE_SYMBOL_KEY_REMAP:
+                    context.remapSymbolKeys(partitions.getQuick(index));
+                    break;
+                default:
+                    throw CairoException.instance(0).put("unknown import phase [phase=").put(entry.getPhase()).put(']');
+            }
+        } finally {
+            perWorkerLocks.releaseSlot(slot);
+        }
+    }
+
+    private void countQuotes(int chunkIndex) {
+        final long lo = chunks.getQuick(chunkIndex * 2);
+        final long hi = chunks.getQuick(chunkIndex * 2 + 1);
+        long quotes = 0;
+        long evenLineEnd = -1;
+        long oddLineEnd = -1;
+        for (long p = lo; p < hi; p++) {
+            final byte c = Unsafe.getUnsafe().getByte(fileAddress + p);
+            if (c == '"') {
+                quotes++;
+            } else if (c == '\n') {
+                if ((quotes & 1) == 0) {
+                    if (evenLineEnd == -1) {
+                        evenLineEnd = p;
+                    }
+                } else if (oddLineEnd == -1) {
+                    oddLineEnd = p;
+                }
+            }
+        }
+        final int offset = chunkIndex * BOUNDARY_STATS_SIZE;
+        boundaryStats.setQuick(offset, quotes);
+        boundaryStats.setQuick(offset + 1, evenLineEnd);
+        boundaryStats.setQuick(offset + 2, oddLineEnd);
+    }
+
+    private static class PartitionInfo implements Mutable {
+        // (chunk index, row count) pairs
+        private final LongList chunkRowCounts = new LongList();
+        private final IntList symbolCounts = new IntList();
+        private final ObjList<IntList> symbolKeyRemaps = new ObjList<>();
+        private long timestamp;
+        private String name;
+        private long nameTxn;
+        private long rowCount;
+        private long importedRowCount;
+        private long errorCount;
+
+        private static int compareTimestamp(PartitionInfo a, PartitionInfo b) {
+            return Long.compare(a.timestamp, b.timestamp);
+        }
+
+        @Override
+        public void clear() {
+            chunkRowCounts.clear();
+            symbolCounts.clear();
+            for (int i = 0, n = symbolKeyRemaps.size(); i < n; i++) {
+                final IntList keyRemap = symbolKeyRemaps.getQuick(i);
+                if (keyRemap != null) {
+                    keyRemap.clear();
+                }
+            }
+            name = null;
+            nameTxn = -1;
+            rowCount = 0;
+            importedRowCount = 0;
+            errorCount = 0;
+        }
+
+        private IntList getSymbolKeyRemap(int columnIndex) {
+            IntList keyRemap = symbolKeyRemaps.getQuiet(columnIndex);
+            if (keyRemap == null) {
+                symbolKeyRemaps.extendAndSet(columnIndex, keyRemap = new IntList());
+            }
+            return keyRemap;
+        }
+    }
+
+    private class WorkerContext implements Closeable, Mutable {
+        private final DirectCharSink utf8Sink;
+        private final TypeManager typeManager;
+        private final TextLexer lexer;
+        private final ObjList<TypeAdapter> types = new ObjList<>();
+        private final LongIntHashMap indexMemSlots = new LongIntHashMap();
+        private final ObjList<MemoryMA> indexMems = new ObjList<>();
+        private final LongList indexRowCounts = new LongList();
+        private final MemoryMARW ddlMem = Vm.getMARWInstance();
+        private final MemoryCMR columnMem = Vm.getCMRInstance();
+        private final SymbolColumnIndexer indexer = new SymbolColumnIndexer();
+        private final TempTableStructure tempTableStructure = new TempTableStructure();
+        private final Path path = new Path();
+        private final Path otherPath = new Path();
+        private final TextLexer.Listener indexListener = this::onIndexFields;
+        private final TextLexer.Listener importListener = this::onImportFields;
+        private TimestampAdapter timestampAdapter;
+        private int indexMemCount;
+        private long chunkLo;
+        private int chunkIndex;
+        private long errorCount;
+        private TableWriter tempWriter;
+        private long rowTimestamp;
+        private long rowOffset;
+
+        private WorkerContext(TextConfiguration textConfiguration) {
+            this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
+            this.typeManager = new TypeManager(textConfiguration, utf8Sink);
+            this.lexer = new TextLexer(textConfiguration, typeManager);
+        }
+
+        @Override
+        public void clear() {
+            types.clear();
+            typeManager.clear();
+            lexer.clear();
+            timestampAdapter = null;
+        }
+
+        @Override
+        public void close() {
+            clear();
+            Misc.freeObjList(indexMems);
+            Misc.free(lexer);
+            Misc.free(utf8Sink);
+            Misc.free(ddlMem);
+            Misc.free(columnMem);
+            Misc.free(indexer);
+            Misc.free(path);
+            Misc.free(otherPath);
+        }
+
+        private void closeIndexMems() {
+            final LongList found = chunkPartitions.getQuick(chunkIndex);
+            for (int i = 0; i < indexMemCount; i++) {
+                indexMems.getQuick(i).close(false);
+            }
+            for (int i = 0, n = indexRowCounts.size(); i < n; i += 2) {
+                found.add(indexRowCounts.getQuick(i), indexRowCounts.getQuick(i + 1));
+            }
+            indexMemSlots.clear();
+            indexRowCounts.clear();
+            indexMemCount = 0;
+        }
+
+        private MemoryMA getIndexMem(long partitionTimestamp) {
+            final int keyIndex = indexMemSlots.keyIndex(partitionTimestamp);
+            if (keyIndex < 0) {
+                final int slot = indexMemSlots.valueAt(keyIndex);
+                indexRowCounts.increment(slot * 2 + 1);
+                return indexMems.getQuick(slot);
+            }
+
+            final int slot = indexMemCount++;
+            MemoryMA mem = indexMems.getQuiet(slot);
+            if (mem == null) {
+                indexMems.extendAndSet(slot, mem = Vm.getMAInstance());
+            }
+            setPathForIndexFile(path, partitionTimestamp, chunkIndex);
+            mem.of(ff, path, configuration.getDataIndexKeyAppendPageSize(), MemoryTag.MMAP_DEFAULT, configuration.getWriterFileOpenOpts());
+            indexMemSlots.putAt(keyIndex, partitionTimestamp, slot);
+            indexRowCounts.add(partitionTimestamp, 1);
+            return mem;
+        }
+
+        private void importPartition(PartitionInfo partition) {
+            final long rowCount = partition.rowCount;
+            final long indexSize = rowCount * INDEX_ENTRY_SIZE;
+            final long index = Unsafe.malloc(indexSize, MemoryTag.NATIVE_DEFAULT);
+            try {
+                // merge index files of all chunks and sort them by timestamp
+                long offset = 0;
+                for (int i = 0, n = partition.chunkRowCounts.size(); i < n; i += 2) {
+                    final int chunk = (int) partition.chunkRowCounts.getQuick(i);
+                    final long size = partition.chunkRowCounts.getQuick(i + 1) * INDEX_ENTRY_SIZE;
+                    setPathForIndexFile(path, partition.timestamp, chunk);
+                    final long fd = TableUtils.openRO(ff, path, LOG);
+                    try {
+                        final long address = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_DEFAULT);
+                        Vect.memcpy(index + offset, address, size);
+                        ff.munmap(address, size, MemoryTag.MMAP_DEFAULT);
+                    } finally {
+                        ff.close(fd);
+                    }
+                    offset += size;
+                }
+                Vect.sortLongIndexAscInPlace(index, rowCount);
+
+                TableUtils.createTable(
+                        configuration,
+                        ddlMem,
+                        path,
+                        importRoot,
+                        tempTableStructure.of(partition.name),
+                        ColumnType.VERSION,
+                        0
+                );
+
+                tempWriter = new TableWriter(
+                        configuration,
+                        partition.name,
+                        engine.getMessageBus(),
+                        null,
+                        false,
+                        DefaultLifecycleManager.INSTANCE,
+                        importRoot,
+                        engine.getMetrics()
+                );
+                try {
+                    errorCount = 0;
+                    for (long p = index, hi = index + indexSize; p < hi; p += INDEX_ENTRY_SIZE) {
+                        rowTimestamp = Unsafe.getUnsafe().getLong(p);
+                        rowOffset = Unsafe.getUnsafe().getLong(p + Long.BYTES);
+                        lexer.restart(false);
+                        lexer.parse(fileAddress + rowOffset, fileAddress + fileSize, 0, importListener);
+                        lexer.parseLast();
+                    }
+                    tempWriter.commit();
+
+                    partition.importedRowCount = tempWriter.size();
+                    partition.errorCount = errorCount;
+                    partition.nameTxn = tempWriter.getPartitionCount() > 0 ? tempWriter.getPartitionNameTxn(0) : -1;
+                    for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                        partition.symbolCounts.extendAndSet(
+                                i,
+                                ColumnType.isSymbol(metadata.getColumnType(i)) ? tempWriter.getSymbolCount(i) : 0
+                        );
+                    }
+                } finally {
+                    tempWriter = Misc.free(tempWriter);
+                }
+            } finally {
+                Unsafe.free(index, indexSize, MemoryTag.NATIVE_DEFAULT);
+            }
+        }
+
+        private void indexChunk(int chunkIndex) {
+            this.chunkIndex = chunkIndex;
+            this.chunkLo = chunks.getQuick(chunkIndex * 2);
+            this.errorCount = 0;
+            final long chunkHi = chunks.getQuick(chunkIndex * 2 + 1);
+            final long lexerErrorCount = lexer.getErrorCount();
+            try {
+                lexer.restart(chunkIndex == 0 && header);
+                lexer.parse(fileAddress + chunkLo, fileAddress + chunkHi, Integer.MAX_VALUE, indexListener);
+                lexer.parseLast();
+            } finally {
+                closeIndexMems();
+            }
+            chunkErrorCounts.setQuick(chunkIndex, errorCount + lexer.getErrorCount() - lexerErrorCount);
+        }
+
+        private void of(ObjList<TypeAdapter> types) {
+            clear();
+            lexer.of(columnDelimiter);
+            lexer.setSkipLinesWithExtraValues(true);
+            for (int i = 0, n = types.size(); i < n; i++) {
+                this.types.add(typeManager.nextAdapterCopy(types.getQuick(i)));
+            }
+            this.timestampAdapter = (TimestampAdapter) this.types.getQuick(timestampIndex);
+        }
+
+        private void onImportFields(long line, ObjList<DirectByteCharSequence> values, int valuesLength) {
+            final TableWriter.Row row = tempWriter.newRow(rowTimestamp);
+            for (int i = 0; i < valuesLength; i++) {
+                final DirectByteCharSequence dbcs = values.getQuick(i);
+                if (i == timestampIndex || dbcs.length() == 0) {
+                    continue;
+                }
+                try {
+                    types.getQuick(i).write(row, getTableColumnIndex(i), dbcs);
+                } catch (Exception e) {
+                    errorCount++;
+                    switch (atomicity) {
+                        case Atomicity.SKIP_ALL:
+                            row.cancel();
+                            throw CairoException.instance(0).put("bad syntax [offset=").put(rowOffset).put(", col=").put(i).put(']');
+                        case Atomicity.SKIP_ROW:
+                            row.cancel();
+                            return;
+                        default:
+                            // skip column
+                            break;
+                    }
+                }
+            }
+            row.append();
+        }
+
+        private void onIndexFields(long line, ObjList<DirectByteCharSequence> values, int valuesLength) {
+            if (valuesLength != fileColumnCount) {
+                errorCount++;
+                return;
+            }
+            final long timestamp;
+            try {
+                timestamp = timestampAdapter.getTimestamp(values.getQuick(timestampIndex));
+            } catch (Exception e) {
+                errorCount++;
+                return;
+            }
+            final MemoryMA mem = getIndexMem(partitionFloorMethod.floor(timestamp));
+            mem.putLong(timestamp);
+            mem.putLong(chunkLo + lexer.getLastLineStart());
+        }
+
+        private void remapSymbolKeys(PartitionInfo partition) {
+            if (partition.importedRowCount == 0) {
+                return;
+            }
+            setPathForTempPartition(path, partition);
+            final int plen = path.length();
+            for (int c = 0, n = metadata.getColumnCount(); c < n; c++) {
+                final int columnType = metadata.getColumnType(c);
+                if (columnType < 0) {
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(c);
+                final long columnNameTxn = columnNameTxns.getQuick(c);
+                if (columnNameTxn != TableUtils.COLUMN_NAME_TXN_NONE) {
+                    // partition files have to be named the way target table expects
+                    otherPath.of(path.trimTo(plen));
+                    TableUtils.dFile(otherPath, columnName, columnNameTxn);
+                    renameColumnFile(TableUtils.dFile(path.trimTo(plen), columnName, TableUtils.COLUMN_NAME_TXN_NONE), otherPath);
+                    if (ColumnType.isVariableLength(columnType)) {
+                        otherPath.of(path.trimTo(plen));
+                        TableUtils.iFile(otherPath, columnName, columnNameTxn);
+                        renameColumnFile(TableUtils.iFile(path.trimTo(plen), columnName, TableUtils.COLUMN_NAME_TXN_NONE), otherPath);
+                    }
+                }
+
+                if (!ColumnType.isSymbol(columnType)) {
+                    continue;
+                }
+
+                final long columnSize = partition.importedRowCount * Integer.BYTES;
+                final IntList keyRemap = partition.getSymbolKeyRemap(c);
+                final long fd = TableUtils.openRW(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), LOG, configuration.getWriterFileOpenOpts());
+                try {
+                    final long address = TableUtils.mapRW(ff, fd, columnSize, MemoryTag.MMAP_DEFAULT);
+                    try {
+                        for (long p = address, hi = address + columnSize; p < hi; p += Integer.BYTES) {
+                            final int key = Unsafe.getUnsafe().getInt(p);
+                            if (key != SymbolTable.VALUE_IS_NULL) {
+                                Unsafe.getUnsafe().putInt(p, keyRemap.getQuick(key));
+                            }
+                        }
+                    } finally {
+                        ff.munmap(address, columnSize, MemoryTag.MMAP_DEFAULT);
+                    }
+                } finally {
+                    ff.close(fd);
+                }
+
+                if (metadata.isColumnIndexed(c)) {
+                    try {
+                        ddlMem.smallFile(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn), MemoryTag.MMAP_DEFAULT);
+                        BitmapIndexWriter.initKeyMemory(ddlMem, metadata.getIndexValueBlockCapacity(c));
+                    } finally {
+                        ddlMem.close();
+                    }
+                    if (!ff.touch(BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn))) {
+                        throw CairoException.instance(ff.errno()).put("could not create index [name=").put(path).put(']');
+                    }
+                    try {
+                        columnMem.of(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), columnSize, columnSize, MemoryTag.MMAP_DEFAULT);
+                        indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnNameTxn, 0);
+                        indexer.index(columnMem, 0, partition.importedRowCount);
+                    } finally {
+                        indexer.clear();
+                        columnMem.close();
+                    }
+                }
+            }
+            path.trimTo(plen);
+        }
+
+        private void renameColumnFile(LPSZ from, LPSZ to) {
+            if (ff.exists(from) && !ff.rename(from, to)) {
+                throw CairoException.instance(ff.errno()).put("could not rename [from=").put(from).put(", to=").put(to).put(']');
+            }
+        }
+
+        private void setPathForIndexFile(Path path, long partitionTimestamp, int chunkIndex) {
+            path.of(importRoot).slash();
+            PartitionBy.setSinkForPartition(path, partitionBy, partitionTimestamp, false);
+            path.put('_').put(chunkIndex).put(INDEX_FILE_SUFFIX).$();
+        }
+    }
+
+    private class TempTableStructure implements TableStructure {
+        private CharSequence name;
+
+        @Override
+        public int getColumnCount() {
+            return metadata.getColumnCount();
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            return metadata.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            return metadata.getColumnType(columnIndex);
+        }
+
+        @Override
+        public long getColumnHash(int columnIndex) {
+            return metadata.getColumnHash(columnIndex);
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            return metadata.getIndexValueBlockCapacity(columnIndex);
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            // indexes are built once symbol keys are remapped to the target table
+            return false;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return partitionBy;
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return configuration.getDefaultSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return name;
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return metadata.getTimestampIndex();
+        }
+
+        @Override
+        public int getMaxUncommittedRows() {
+            return configuration.getMaxUncommittedRows();
+        }
+
+        @Override
+        public long getCommitLag() {
+            return configuration.getCommitLag();
+        }
+
+        @Override
+        public long getTtl() {
+            return 0;
+        }
+
+        private TempTableStructure of(CharSequence name) {
+            this.name = name;
+            return this;
+        }
+    }
+}
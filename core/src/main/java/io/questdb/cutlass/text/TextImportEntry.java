@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.FlyweightMessageContainer;
+import io.questdb.std.Mutable;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Unit of work of {@link ParallelCsvFileImporter}. Entry is either picked up by {@link TextImportJob}
+ * or reclaimed by the thread that published it, whichever locks the entry first.
+ */
+public class TextImportEntry extends AbstractLockable implements Mutable {
+    private final StringSink error = new StringSink();
+    private ParallelCsvFileImporter importer;
+    private int phase;
+    private int index;
+    private CountDownLatchSPI doneLatch;
+
+    @Override
+    public void clear() {
+        importer = null;
+        doneLatch = null;
+        error.clear();
+    }
+
+    public CharSequence getError() {
+        return error.length() > 0 ? error : null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public boolean run(int workerId) {
+        if (tryLock()) {
+            try {
+                importer.runEntry(this, workerId);
+            } catch (Throwable e) {
+                if (e instanceof FlyweightMessageContainer) {
+                    error.put(((FlyweightMessageContainer) e).getFlyweightMessage());
+                } else {
+                    error.put(e.getClass().getName()).put(": ").put(e.getMessage());
+                }
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    void of(int sequence, ParallelCsvFileImporter importer, int phase, int index, CountDownLatchSPI doneLatch) {
+        of(sequence);
+        this.importer = importer;
+        this.phase = phase;
+        this.index = index;
+        this.doneLatch = doneLatch;
+        this.error.clear();
+    }
+}
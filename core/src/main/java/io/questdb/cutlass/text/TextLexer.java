@@ -77,10 +77,11 @@ public class TextLexer implements Closeable, Mutable {
             long hi,
             int lineCountLimit,
             boolean forceHeader,
+            boolean detectHeader,
             ObjList<CharSequence> names,
             ObjList<TypeAdapter> types
     ) {
-        metadataDetector.of(names, types, forceHeader);
+        metadataDetector.of(names, types, forceHeader, detectHeader);
         parse(lo, hi, lineCountLimit, metadataDetector);
         metadataDetector.evaluateResults(lineCount, errorCount);
         restart(isHeaderDetected());
@@ -113,6 +114,16 @@ public class TextLexer implements Closeable, Mutable {
         return lineCount;
     }
 
+    /**
+     * Offset of the line, which is being reported to the listener, relative to the "lo" address
+     * of the last parse() call. The value is only meaningful inside {@link Listener#onFields}.
+     *
+     * @return offset of the current line start
+     */
+    long getLastLineStart() {
+        return lastLineStart;
+    }
+
     public boolean isSkipLinesWithExtraValues() {
         return skipLinesWithExtraValues;
     }
@@ -154,6 +165,7 @@ public class TextLexer implements Closeable, Mutable {
         this.inQuote = false;
         this.delayedOutQuote = false;
         this.lineCount = 0;
+        this.lastLineStart = 0;
         this.lineRollBufCur = lineRollBufPtr;
         this.useLineRollBuf = false;
         this.rollBufferUnusable = false;
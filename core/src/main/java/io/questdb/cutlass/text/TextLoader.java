@@ -59,6 +59,7 @@ public class TextLoader implements Closeable, Mutable {
     private final ObjList<ParserMethod> parseMethods = new ObjList<>();
     private int state;
     private boolean forceHeaders = false;
+    private boolean detectHeader = true;
     private byte columnDelimiter = -1;
 
     public TextLoader(CairoEngine engine) {
@@ -87,6 +88,7 @@ public class TextLoader implements Closeable, Mutable {
         textMetadataParser.clear();
         jsonLexer.clear();
         forceHeaders = false;
+        detectHeader = true;
         columnDelimiter = -1;
         typeManager.clear();
     }
@@ -106,6 +108,10 @@ public class TextLoader implements Closeable, Mutable {
         textWriter.closeWriter();
     }
 
+    public void commit() {
+        textWriter.commit();
+    }
+
     public void configureColumnDelimiter(byte columnDelimiter) {
         this.columnDelimiter = columnDelimiter;
         assert this.columnDelimiter > 0;
@@ -183,6 +189,30 @@ public class TextLoader implements Closeable, Mutable {
         this.forceHeaders = forceHeaders;
     }
 
+    /**
+     * Sets the text that stands for a null value in addition to an empty field, e.g. "\N" of
+     * the PostgreSQL text format.
+     *
+     * @param nullValue null marker, null when only empty fields are nulls
+     */
+    public void setNullValue(CharSequence nullValue) {
+        textWriter.setNullValue(nullValue);
+    }
+
+    public void rollback() {
+        textWriter.rollback();
+    }
+
+    /**
+     * Controls whether structure analysis guesses if the first line is a header. When it is off,
+     * the first line is a header only when headers are forced.
+     *
+     * @param detectHeader false when presence of the header is known upfront
+     */
+    public void setDetectHeader(boolean detectHeader) {
+        this.detectHeader = detectHeader;
+    }
+
     public void setSkipRowsWithExtraValues(boolean skipRowsWithExtraValues) {
         this.textLexer.setSkipLinesWithExtraValues(skipRowsWithExtraValues);
     }
@@ -239,6 +269,7 @@ public class TextLoader implements Closeable, Mutable {
                 hi,
                 textAnalysisMaxLines,
                 forceHeaders,
+                detectHeader,
                 textMetadataParser.getColumnNames(),
                 textMetadataParser.getColumnTypes()
         );
@@ -49,6 +49,7 @@ public class TextMetadataDetector implements TextLexer.Listener, Mutable, Closea
     private int fieldCount;
     private boolean header = false;
     private boolean forceHeader = false;
+    private boolean detectHeader = true;
     private CharSequence tableName;
 
     public TextMetadataDetector(
@@ -70,6 +71,7 @@ public class TextMetadataDetector implements TextLexer.Listener, Mutable, Closea
         columnTypes.clear();
         schemaColumns.clear();
         forceHeader = false;
+        detectHeader = true;
     }
 
     @Override
@@ -81,7 +83,8 @@ public class TextMetadataDetector implements TextLexer.Listener, Mutable, Closea
         // try calculate types counting all rows
         // if all types come up as strings, reduce lineCount by one and retry
         // if some fields come up as non-string after subtracting row - we have a header
-        if ((calcTypes(lineCount - errorCount, true) && !calcTypes(lineCount - errorCount - 1, false)) || forceHeader) {
+        final boolean allStrings = calcTypes(lineCount - errorCount, true);
+        if ((detectHeader && allStrings && !calcTypes(lineCount - errorCount - 1, false)) || forceHeader) {
             // copy headers
             header = true;
         } else {
@@ -118,7 +121,7 @@ public class TextMetadataDetector implements TextLexer.Listener, Mutable, Closea
         return header;
     }
 
-    public void of(ObjList<CharSequence> names, ObjList<TypeAdapter> types, boolean forceHeader) {
+    public void of(ObjList<CharSequence> names, ObjList<TypeAdapter> types, boolean forceHeader, boolean detectHeader) {
         clear();
         if (names != null && types != null) {
             final int n = names.size();
@@ -128,6 +131,7 @@ public class TextMetadataDetector implements TextLexer.Listener, Mutable, Closea
             }
         }
         this.forceHeader = forceHeader;
+        this.detectHeader = detectHeader;
     }
 
     @Override
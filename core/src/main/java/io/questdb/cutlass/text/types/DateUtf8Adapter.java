@@ -76,4 +76,8 @@ public class DateUtf8Adapter extends AbstractTypeAdapter implements Mutable {
         this.locale = locale;
         return this;
     }
+
+    DateUtf8Adapter of(DateUtf8Adapter that) {
+        return of(that.format, that.locale);
+    }
 }
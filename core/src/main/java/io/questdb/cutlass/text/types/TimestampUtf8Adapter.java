@@ -51,4 +51,8 @@ public class TimestampUtf8Adapter extends TimestampAdapter {
         this.locale = locale;
         return this;
     }
+
+    TimestampUtf8Adapter of(TimestampUtf8Adapter that) {
+        return of(that.format, that.locale);
+    }
 }
@@ -155,6 +155,30 @@ public class TypeManager implements Mutable {
         return adapter;
     }
 
+    /**
+     * Returns adapter that parses values the same way as the given one, but is owned by this
+     * type manager. Adapters that decode UTF8 keep state in the type manager's sink and cannot be
+     * shared between threads, the rest of the adapters are immutable and returned as is.
+     *
+     * @param adapter adapter, possibly owned by another type manager
+     * @return adapter safe to use by the owner of this type manager
+     */
+    public TypeAdapter nextAdapterCopy(TypeAdapter adapter) {
+        if (adapter instanceof TimestampUtf8Adapter) {
+            return timestampUtf8AdapterPool.next().of((TimestampUtf8Adapter) adapter);
+        }
+        if (adapter instanceof DateUtf8Adapter) {
+            return dateAdapterPool.next().of((DateUtf8Adapter) adapter);
+        }
+        if (adapter instanceof StringAdapter) {
+            return stringAdapter;
+        }
+        if (adapter instanceof SymbolAdapter) {
+            return nextSymbolAdapter(adapter.isIndexed());
+        }
+        return adapter;
+    }
+
     public TypeAdapter nextSymbolAdapter(boolean indexed) {
         return indexed ? indexedSymbolAdapter : notIndexedSymbolAdapter;
     }
@@ -0,0 +1,407 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Compresses and decompresses column files of sealed partitions. Compression writes
+ * new column version as .z file, the previous .d file is purged once readers release it.
+ * Decompression happens in place, .d file of the same column version is written first and
+ * then .z file is removed, readers that open the column in the meantime decode .z file.
+ * <p>
+ * Index of compressed column is compressed too, .ci file replaces .k and .v files of the new
+ * column version. Decompression rebuilds .k and .v files before .ci file is removed.
+ */
+public class ColumnCompressionOperator extends PurgingOperator implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ColumnCompressionOperator.class);
+    private final ColumnCodec codec = new ColumnCodec();
+    private final MemoryMA compressedMem = Vm.getMAInstance();
+    private final CompressedBitmapIndexWriter compressedIndexWriter = new CompressedBitmapIndexWriter();
+    private final BitmapIndexWriter indexWriter = new BitmapIndexWriter();
+    private final Path other;
+
+    public ColumnCompressionOperator(
+            CairoConfiguration configuration,
+            MessageBus messageBus,
+            TableWriter tableWriter,
+            Path path,
+            Path other,
+            int rootLen
+    ) {
+        super(LOG, configuration, messageBus, tableWriter, path, rootLen);
+        this.other = other;
+    }
+
+    public static boolean isCompressible(TableWriterMetadata metadata, int columnIndex) {
+        return metadata.getColumnType(columnIndex) > 0
+                && metadata.isColumnCompressed(columnIndex)
+                && columnIndex != metadata.getTimestampIndex()
+                && ColumnCodec.isSupported(metadata.getColumnType(columnIndex));
+    }
+
+    public void clear() {
+        updateColumnIndexes.clear();
+        cleanupColumnVersions.clear();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compressedMem);
+        Misc.free(compressedIndexWriter);
+        Misc.free(indexWriter);
+    }
+
+    /**
+     * Compresses column files of all compressed columns in the partition. New column versions
+     * are upserted to the writer and have to be committed by the caller.
+     *
+     * @param partitionIndex index of the sealed partition
+     * @return true when at least one column version has been changed
+     */
+    public boolean compressPartition(int partitionIndex) {
+        final TableWriterMetadata metadata = tableWriter.getMetadata();
+        final long partitionTimestamp = tableWriter.getPartitionTimestamp(partitionIndex);
+        final long partitionNameTxn = tableWriter.getPartitionNameTxn(partitionIndex);
+        final long partitionSize = tableWriter.getPartitionSize(partitionIndex);
+        boolean changed = false;
+        try {
+            for (int columnIndex = 0, n = metadata.getColumnCount(); columnIndex < n; columnIndex++) {
+                if (!isCompressible(metadata, columnIndex)) {
+                    continue;
+                }
+                final long columnTop = tableWriter.getColumnTop(partitionTimestamp, columnIndex, -1L);
+                if (columnTop < 0 || columnTop >= partitionSize) {
+                    // column does not have any data in this partition
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(columnIndex);
+                final long columnNameTxn = tableWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
+                setPathOnPartition(partitionTimestamp, partitionNameTxn);
+                final int plen = path.length();
+                if (ff.exists(TableUtils.zFile(path, columnName, columnNameTxn))) {
+                    continue;
+                }
+                try {
+                    if (compressColumn(
+                            metadata,
+                            columnIndex,
+                            columnName,
+                            metadata.getColumnType(columnIndex),
+                            partitionTimestamp,
+                            partitionNameTxn,
+                            columnNameTxn,
+                            columnTop,
+                            partitionSize - columnTop,
+                            plen
+                    )) {
+                        changed = true;
+                    }
+                } catch (CairoException e) {
+                    // column remains uncompressed, it is not a reason to fail the commit
+                    LOG.error().$("could not compress column [table=").$(tableWriter.getTableName())
+                            .$(", column=").$(columnName)
+                            .$(", partition=").$ts(partitionTimestamp)
+                            .$(", errno=").$(e.getErrno())
+                            .$(", error=").$(e.getFlyweightMessage())
+                            .I$();
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+        return changed;
+    }
+
+    /**
+     * Decompresses column files of all compressed columns in the partition in place.
+     *
+     * @param partitionIndex index of the partition
+     * @return true when at least one column file has been decompressed
+     */
+    public boolean decompressPartition(int partitionIndex) {
+        final TableWriterMetadata metadata = tableWriter.getMetadata();
+        boolean decompressed = false;
+        for (int columnIndex = 0, n = metadata.getColumnCount(); columnIndex < n; columnIndex++) {
+            if (isCompressible(metadata, columnIndex) && decompressColumn(partitionIndex, columnIndex)) {
+                decompressed = true;
+            }
+        }
+        return decompressed;
+    }
+
+    /**
+     * Decompresses column file in the partition in place. The column version does not change.
+     *
+     * @param partitionIndex index of the partition
+     * @param columnIndex    writer index of the column
+     * @return true when the column file has been decompressed, false when it was not compressed
+     */
+    public boolean decompressColumn(int partitionIndex, int columnIndex) {
+        final TableWriterMetadata metadata = tableWriter.getMetadata();
+        final long partitionTimestamp = tableWriter.getPartitionTimestamp(partitionIndex);
+        final long partitionNameTxn = tableWriter.getPartitionNameTxn(partitionIndex);
+        final long columnTop = tableWriter.getColumnTop(partitionTimestamp, columnIndex, -1L);
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final long columnNameTxn = tableWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
+        try {
+            setPathOnPartition(partitionTimestamp, partitionNameTxn);
+            final int plen = path.length();
+            if (columnTop < 0 || !ff.exists(TableUtils.zFile(path, columnName, columnNameTxn))) {
+                return false;
+            }
+
+            final long rowCount = tableWriter.getPartitionSize(partitionIndex) - columnTop;
+            final long rawSize = rowCount << ColumnType.pow2SizeOf(metadata.getColumnType(columnIndex));
+            final long srcFd = TableUtils.openRO(ff, path, LOG);
+            long srcAddr = 0;
+            long srcSize = 0;
+            long dstFd = -1;
+            long dstAddr = 0;
+            try {
+                srcSize = ff.length(srcFd);
+                srcAddr = TableUtils.mapRO(ff, srcFd, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+                dstFd = TableUtils.openRW(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), LOG, configuration.getWriterFileOpenOpts());
+                // .d file might be left behind by the decompression that did not finish
+                if (!ff.truncate(dstFd, rawSize)) {
+                    throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(path).put(", size=").put(rawSize).put(']');
+                }
+                if (rawSize > 0) {
+                    dstAddr = TableUtils.mapRW(ff, dstFd, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+                    codec.decode(srcAddr, srcSize, dstAddr, rawSize);
+                    ff.msync(dstAddr, rawSize, false);
+                }
+            } finally {
+                if (dstAddr != 0) {
+                    ff.munmap(dstAddr, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+                }
+                if (dstFd != -1) {
+                    ff.close(dstFd);
+                }
+                if (srcAddr != 0) {
+                    ff.munmap(srcAddr, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+                }
+                ff.close(srcFd);
+            }
+
+            if (metadata.isColumnIndexed(columnIndex)) {
+                decompressIndex(columnName, columnNameTxn, plen);
+            }
+
+            // readers prefer .z file while it exists, the file must go before .d file can change
+            if (!ff.remove(TableUtils.zFile(path.trimTo(plen), columnName, columnNameTxn))) {
+                throw CairoException.instance(ff.errno()).put("could not remove compressed column file [file=").put(path).put(']');
+            }
+            LOG.info().$("decompressed [table=").$(tableWriter.getTableName())
+                    .$(", column=").$(columnName)
+                    .$(", partition=").$ts(partitionTimestamp)
+                    .$(", rows=").$(rowCount)
+                    .I$();
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private boolean compressColumn(
+            TableWriterMetadata metadata,
+            int columnIndex,
+            CharSequence columnName,
+            int columnType,
+            long partitionTimestamp,
+            long partitionNameTxn,
+            long columnNameTxn,
+            long columnTop,
+            long rowCount,
+            int plen
+    ) {
+        final long rawSize = rowCount << ColumnType.pow2SizeOf(columnType);
+        final long newColumnNameTxn = tableWriter.getTxn();
+        final long srcFd = TableUtils.openRO(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), LOG);
+        long srcAddr = 0;
+        try {
+            srcAddr = TableUtils.mapRO(ff, srcFd, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+            compressedMem.of(
+                    ff,
+                    TableUtils.zFile(path.trimTo(plen), columnName, newColumnNameTxn),
+                    configuration.getDataAppendPageSize(),
+                    MemoryTag.MMAP_TABLE_WRITER,
+                    configuration.getWriterFileOpenOpts()
+            );
+            final long compressedSize;
+            try {
+                codec.encode(columnType, srcAddr, rowCount, compressedMem);
+                compressedSize = compressedMem.getAppendOffset();
+                if (compressedSize < rawSize) {
+                    compressedMem.sync(false);
+                }
+            } finally {
+                compressedMem.close(true);
+            }
+
+            if (compressedSize >= rawSize) {
+                // data does not compress, keep the column as is
+                TableUtils.zFile(path.trimTo(plen), columnName, newColumnNameTxn);
+                if (!ff.remove(path)) {
+                    LOG.info().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).I$();
+                }
+                return false;
+            }
+
+            if (metadata.isColumnIndexed(columnIndex)) {
+                try {
+                    compressIndex(columnName, columnNameTxn, newColumnNameTxn, plen);
+                } catch (CairoException e) {
+                    // new column version is not committed, do not leave its files behind
+                    ff.remove(TableUtils.zFile(path.trimTo(plen), columnName, newColumnNameTxn));
+                    ff.remove(CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, newColumnNameTxn));
+                    throw e;
+                }
+            }
+
+            tableWriter.upsertColumnVersion(partitionTimestamp, columnIndex, columnTop);
+            if (updateColumnIndexes.indexOf(columnIndex, 0, updateColumnIndexes.size()) < 0) {
+                updateColumnIndexes.add(columnIndex);
+            }
+            cleanupColumnVersions.add(columnIndex, columnNameTxn, partitionTimestamp, partitionNameTxn);
+            LOG.info().$("compressed [table=").$(tableWriter.getTableName())
+                    .$(", column=").$(columnName)
+                    .$(", partition=").$ts(partitionTimestamp)
+                    .$(", rows=").$(rowCount)
+                    .$(", size=").$(rawSize)
+                    .$(", compressedSize=").$(compressedSize)
+                    .I$();
+            return true;
+        } finally {
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            ff.close(srcFd);
+        }
+    }
+
+    private void compressIndex(CharSequence columnName, long columnNameTxn, long newColumnNameTxn, int plen) {
+        final long indexSize;
+        final long compressedIndexSize;
+        try (BitmapIndexFwdReader indexReader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), columnName, columnNameTxn, 0, -1)) {
+            indexSize = indexReader.getKeyMemorySize() + indexReader.getValueMemorySize();
+            compressedIndexSize = compressedIndexWriter.write(
+                    configuration,
+                    CompressedBitmapIndexUtils.compressedFileName(other.trimTo(plen), columnName, newColumnNameTxn),
+                    indexReader
+            );
+        }
+
+        if (compressedIndexSize < indexSize) {
+            LOG.info().$("compressed index [table=").$(tableWriter.getTableName())
+                    .$(", column=").$(columnName)
+                    .$(", size=").$(indexSize)
+                    .$(", compressedSize=").$(compressedIndexSize)
+                    .I$();
+            return;
+        }
+
+        // index does not compress, new version shares index files with the old one
+        if (!ff.remove(CompressedBitmapIndexUtils.compressedFileName(other.trimTo(plen), columnName, newColumnNameTxn))) {
+            LOG.info().$("could not remove [file=").$(other).$(", errno=").$(ff.errno()).I$();
+        }
+        linkIndexFile(BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.keyFileName(other.trimTo(plen), columnName, newColumnNameTxn));
+        linkIndexFile(BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.valueFileName(other.trimTo(plen), columnName, newColumnNameTxn));
+    }
+
+    private void decompressIndex(CharSequence columnName, long columnNameTxn, int plen) {
+        if (!ff.exists(CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, columnNameTxn))) {
+            return;
+        }
+        try (CompressedBitmapIndexReader compressedIndexReader = new CompressedBitmapIndexReader(
+                configuration,
+                path.trimTo(plen),
+                columnName,
+                columnNameTxn,
+                0,
+                -1,
+                BitmapIndexReader.DIR_FORWARD
+        )) {
+            // .k and .v files might be left behind by the decompression that did not finish
+            final long keyFd = TableUtils.openRW(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn), LOG, configuration.getWriterFileOpenOpts());
+            final long valueFd;
+            try {
+                valueFd = TableUtils.openRW(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn), LOG, configuration.getWriterFileOpenOpts());
+            } catch (CairoException e) {
+                ff.close(keyFd);
+                throw e;
+            }
+            try {
+                indexWriter.of(configuration, keyFd, valueFd, true, compressedIndexReader.getValueBlockCapacity() + 1);
+                for (int key = 0, n = compressedIndexReader.getKeyCount(); key < n; key++) {
+                    final RowCursor cursor = compressedIndexReader.getCursor(true, key, 0, Long.MAX_VALUE);
+                    while (cursor.hasNext()) {
+                        indexWriter.add(key, cursor.next());
+                    }
+                }
+                indexWriter.setMaxValue(compressedIndexReader.getMaxValue());
+            } finally {
+                indexWriter.close();
+            }
+        }
+
+        // readers prefer .ci file while it exists, the file goes once .k and .v files are complete
+        if (!ff.remove(CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), columnName, columnNameTxn))) {
+            throw CairoException.instance(ff.errno()).put("could not remove compressed index file [file=").put(path).put(']');
+        }
+    }
+
+    private void linkIndexFile(Path src, Path link) {
+        // hard link might be left behind by the compression that did not commit
+        ff.remove(link);
+        if (-1 == ff.hardLink(src, link)) {
+            throw CairoException.instance(ff.errno())
+                    .put("cannot hardLink [src=").put(src)
+                    .put(", hardLink=").put(link)
+                    .put(']');
+        }
+    }
+
+    private void setPathOnPartition(long partitionTimestamp, long partitionNameTxn) {
+        path.trimTo(rootLen);
+        TableUtils.setPathForPartition(path, tableWriter.getPartitionBy(), partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+        other.trimTo(rootLen);
+        TableUtils.setPathForPartition(other, tableWriter.getPartitionBy(), partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(other, partitionNameTxn);
+    }
+}
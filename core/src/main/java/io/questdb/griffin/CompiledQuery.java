@@ -64,6 +64,11 @@ public interface CompiledQuery {
 
     TextLoader getTextLoader();
 
+    /**
+     * @return format of the data that COPY_REMOTE expects from the client, one of CopyModel.FORMAT_* constants
+     */
+    int getCopyFormat();
+
     InsertOperation getInsertOperation();
 
     UpdateOperation getUpdateOperation();
@@ -39,6 +39,7 @@ public class CompiledQueryImpl implements CompiledQuery {
     private UpdateOperation updateOperation;
     private AlterOperation alterOperation;
     private TextLoader textLoader;
+    private int copyFormat;
     private short type;
     private SqlExecutionContext sqlExecutionContext;
     private final DoneOperationFuture doneFuture = new DoneOperationFuture();
@@ -68,6 +69,11 @@ public class CompiledQueryImpl implements CompiledQuery {
         return textLoader;
     }
 
+    @Override
+    public int getCopyFormat() {
+        return copyFormat;
+    }
+
     @Override
     public AlterOperation getAlterOperation() {
         return alterOperation;
@@ -180,8 +186,9 @@ public class CompiledQueryImpl implements CompiledQuery {
         return of(COPY_LOCAL);
     }
 
-    CompiledQuery ofCopyRemote(TextLoader textLoader) {
+    CompiledQuery ofCopyRemote(TextLoader textLoader, int copyFormat) {
         this.textLoader = textLoader;
+        this.copyFormat = copyFormat;
         return of(COPY_REMOTE);
     }
 
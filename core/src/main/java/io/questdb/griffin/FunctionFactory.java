@@ -70,6 +70,14 @@ public interface FunctionFactory {
         return false;
     }
 
+    /**
+     * @return true if the factory produces {@link io.questdb.griffin.engine.analytic.AnalyticFunction}, such factories
+     * are only considered for functions with OVER clause and may share names with group-by functions, e.g. sum()
+     */
+    default boolean isAnalytic() {
+        return false;
+    }
+
     default boolean isCursor() {
         return false;
     }
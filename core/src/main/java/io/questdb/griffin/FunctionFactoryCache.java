@@ -39,6 +39,7 @@ public class FunctionFactoryCache {
     private static final Log LOG = LogFactory.getLog(FunctionFactoryCache.class);
     private final LowerCaseCharSequenceObjHashMap<ObjList<FunctionFactoryDescriptor>> factories = new LowerCaseCharSequenceObjHashMap<>();
     private final LowerCaseCharSequenceHashSet groupByFunctionNames = new LowerCaseCharSequenceHashSet();
+    private final LowerCaseCharSequenceHashSet analyticFunctionNames = new LowerCaseCharSequenceHashSet();
     private final LowerCaseCharSequenceHashSet cursorFunctionNames = new LowerCaseCharSequenceHashSet();
     private final LowerCaseCharSequenceHashSet runtimeConstantFunctionNames = new LowerCaseCharSequenceHashSet();
 
@@ -75,6 +76,8 @@ public class FunctionFactoryCache {
                                 addFactoryToList(factories, createNegatingFactory("<=", greaterThan));
                                 break;
                         }
+                    } else if (factory.isAnalytic()) {
+                        analyticFunctionNames.add(name);
                     } else if (factory.isGroupBy()) {
                         groupByFunctionNames.add(name);
                     } else if (factory.isCursor()) {
@@ -101,6 +104,10 @@ public class FunctionFactoryCache {
         return factories.get(token);
     }
 
+    public boolean isAnalytic(CharSequence name) {
+        return name != null && analyticFunctionNames.contains(name);
+    }
+
     public boolean isCursor(CharSequence name) {
         return name != null && cursorFunctionNames.contains(name);
     }
@@ -72,7 +72,12 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     private final Long256Impl long256Sink = new Long256Impl();
     private RecordMetadata metadata;
     private SqlCodeGenerator sqlCodeGenerator;
+    // root node of the function with OVER clause that is being parsed, only this node resolves to analytic factories
+    private ExpressionNode analyticNode;
     private SqlExecutionContext sqlExecutionContext;
+    // set when parsed expressions may produce different values over unchanged data,
+    // results of such queries must not be reused
+    private boolean volatileValues;
 
     public FunctionParser(CairoConfiguration configuration, FunctionFactoryCache functionFactoryCache) {
         this.configuration = configuration;
@@ -144,6 +149,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     @Override
     public void clear() {
         this.sqlExecutionContext = null;
+        this.volatileValues = false;
     }
 
     public Function createBindVariable(SqlExecutionContext sqlExecutionContext, int position, CharSequence name) throws SqlException {
@@ -205,6 +211,14 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return functionFactoryCache;
     }
 
+    /**
+     * @return true when any of the functions parsed since last {@link #clear()} is either random, depends on
+     * current time or reads named bind variable
+     */
+    public boolean hasVolatileValues() {
+        return volatileValues;
+    }
+
     /**
      * Creates function instance. When node type is {@link ExpressionNode#LITERAL} a column or parameter
      * function is returned. We will be using the supplied {@link #metadata} to resolve type of column. When node token
@@ -272,6 +286,30 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         }
     }
 
+    /**
+     * Parses function that has OVER clause. The top level node is resolved against analytic function
+     * factories, see {@link FunctionFactory#isAnalytic()}, while its arguments are resolved as usual.
+     *
+     * @param node             expression node of the function
+     * @param metadata         metadata for resolving types of columns.
+     * @param executionContext execution context with configured analytic context
+     * @return function instance
+     * @throws SqlException when function cannot be created
+     */
+    public Function parseAnalyticFunction(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ExpressionNode prevAnalyticNode = analyticNode;
+        analyticNode = node;
+        try {
+            return parseFunction(node, metadata, executionContext);
+        } finally {
+            analyticNode = prevAnalyticNode;
+        }
+    }
+
     public void setSqlCodeGenerator(SqlCodeGenerator sqlCodeGenerator) {
         this.sqlCodeGenerator = sqlCodeGenerator;
     }
@@ -323,6 +361,13 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         positionStack.push(node.position);
     }
 
+    private static boolean isVolatileFunction(CharSequence name) {
+        return (name.length() > 4 && Chars.equalsLowerCaseAscii(name, 0, 4, "rnd_", 0, 4))
+                || Chars.equalsLowerCaseAscii(name, "now")
+                || Chars.equalsLowerCaseAscii(name, "systimestamp")
+                || Chars.equalsLowerCaseAscii(name, "sysdate");
+    }
+
     private static SqlException invalidFunction(ExpressionNode node, ObjList<Function> args) {
         SqlException ex = SqlException.position(node.position);
         ex.put("unknown function name");
@@ -527,6 +572,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         if (overload == null) {
             throw invalidFunction(node, args);
         }
+        if (isVolatileFunction(node.token)) {
+            volatileValues = true;
+        }
 
         final int argCount = args == null ? 0 : args.size();
         FunctionFactory candidate = null;
@@ -549,6 +597,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         for (int i = 0, n = overload.size(); i < n; i++) {
             final FunctionFactoryDescriptor descriptor = overload.getQuick(i);
             final FunctionFactory factory = descriptor.getFactory();
+            if (factory.isAnalytic() != (node == analyticNode)) {
+                continue;
+            }
             int sigArgCount = descriptor.getSigArgCount();
 
             final boolean sigVarArg;
@@ -773,6 +824,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     }
 
     private Function createNamedParameter(int position, CharSequence name) throws SqlException {
+        volatileValues = true;
         Function function = getBindVariableService().getFunction(name);
         if (function == null) {
             throw SqlException.position(position).put("undefined bind variable: ").put(name);
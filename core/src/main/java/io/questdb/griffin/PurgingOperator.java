@@ -115,6 +115,12 @@ public abstract class PurgingOperator {
                             if (!ff.remove(path.$()) && ff.exists(path)) {
                                 columnPurged = false;
                             }
+
+                            path.trimTo(pathPartitionLen);
+                            CompressedBitmapIndexUtils.compressedFileName(path, columnName, columnVersion);
+                            if (!ff.remove(path.$()) && ff.exists(path)) {
+                                columnPurged = false;
+                            }
                         }
                     }
 
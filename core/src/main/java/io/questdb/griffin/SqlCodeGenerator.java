@@ -35,9 +35,11 @@ import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.LimitOverflowException;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
+import io.questdb.griffin.engine.ProfiledRecordCursorFactory;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.StreamingAnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
@@ -49,6 +51,7 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.AsyncSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
@@ -120,13 +123,20 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final ObjObjHashMap<IntList, ObjList<AnalyticFunction>> groupedAnalytic = new ObjObjHashMap<>();
     private final IntList recordFunctionPositions = new IntList();
     private final IntList groupByFunctionPositions = new IntList();
+    private final IntList perSlotGroupByFunctionPositions = new IntList();
+    private final ArrayColumnTypes perSlotValueTypes = new ArrayColumnTypes();
     private final LongList prefixes = new LongList();
     private final ObjectPool<ExpressionNode> expressionNodePool;
     private final WeakClosableObjectPool<PageFrameReduceTask> reduceTaskPool;
     private final ObjList<TableColumnMetadata> deferredAnalyticMetadata = new ObjList<>();
     private final ObjectPool<IntList> intListPool = new ObjectPool<>(IntList::new, 4);
+    // tables read by factories generated since last clear(), they are used to tell when
+    // result of the query becomes stale
+    private final ObjList<String> scannedTableNames = new ObjList<>();
+    private boolean scannedNonTables = false;
     private boolean enableJitNullChecks = true;
     private boolean fullFatJoins = false;
+    private boolean profiling = false;
 
     public SqlCodeGenerator(
             CairoEngine engine,
@@ -155,6 +165,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     public void clear() {
         whereClauseParser.clear();
         intListPool.clear();
+        scannedTableNames.clear();
+        scannedNonTables = false;
+        profiling = false;
     }
 
     @Override
@@ -163,6 +176,23 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         Misc.free(reduceTaskPool);
     }
 
+    /**
+     * @return names of the tables read by the factories generated since last {@link #clear()}
+     */
+    public ObjList<String> getScannedTableNames() {
+        return scannedTableNames;
+    }
+
+    /**
+     * Result of the generated factory can be reused for as long as none of the scanned tables change. This is not
+     * the case when factory reads from table functions, uses random or time dependent functions.
+     *
+     * @return true when result of the last generated factory depends on table data only
+     */
+    public boolean isResultReusable() {
+        return !scannedNonTables && scannedTableNames.size() > 0 && !functionParser.hasVolatileValues();
+    }
+
     @NotNull
     public Function compileFilter(ExpressionNode expr, RecordMetadata metadata, SqlExecutionContext executionContext) throws SqlException {
         final Function filter = functionParser.parseFunction(expr, metadata, executionContext);
@@ -173,10 +203,52 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         throw SqlException.$(expr.position, "boolean expression expected");
     }
 
+    /**
+     * Generates filter of row ranges of the reader's partitions. The filter is JIT-compiled when
+     * JIT is enabled and supports the expression.
+     */
+    public TableReaderRowFilter generateRowFilter(ExpressionNode filter, TableReader reader, SqlExecutionContext executionContext) throws SqlException {
+        final RecordMetadata metadata = reader.getMetadata();
+        final Function f = compileFilter(filter, metadata, executionContext);
+        CompiledFilter jitFilter = null;
+        ObjList<Function> bindVarFunctions = null;
+        if (executionContext.getJitMode() != SqlJitMode.JIT_MODE_DISABLED && JitUtil.isJitSupported()) {
+            bindVarFunctions = new ObjList<>();
+            try {
+                final boolean forceScalar = executionContext.getJitMode() == SqlJitMode.JIT_MODE_FORCE_SCALAR;
+                jitIRSerializer.of(jitIRMem, executionContext, metadata, reader, bindVarFunctions);
+                final int jitOptions = jitIRSerializer.serialize(filter, forceScalar, enableJitDebug, enableJitNullChecks);
+                jitFilter = new CompiledFilter();
+                jitFilter.compile(jitIRMem, jitOptions);
+            } catch (SqlException | LimitOverflowException ex) {
+                LOG.debug()
+                        .$("JIT cannot be applied to row filter [tableName=").utf8(reader.getTableName())
+                        .$(", ex=").$(ex.getFlyweightMessage())
+                        .$(", fd=").$(executionContext.getRequestFd()).$(']').$();
+                jitFilter = Misc.free(jitFilter);
+                Misc.freeObjList(bindVarFunctions);
+                bindVarFunctions = null;
+            } finally {
+                jitIRSerializer.clear();
+                jitIRMem.truncate();
+            }
+        }
+        return new TableReaderRowFilter(configuration, f, jitFilter, bindVarFunctions);
+    }
+
     public RecordCursorFactory generate(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         return generateQuery(model, executionContext, true);
     }
 
+    /**
+     * Makes following {@link #generate(QueryModel, SqlExecutionContext)} calls wrap factories of the query
+     * plan into {@link ProfiledRecordCursorFactory}, which collects runtime statistics for EXPLAIN ANALYZE.
+     * Profiling is switched off by {@link #clear()}.
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
     private static RecordCursorFactory createFullFatAsOfJoin(CairoConfiguration configuration,
                                                              RecordMetadata metadata,
                                                              RecordCursorFactory masterFactory,
@@ -320,6 +392,89 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
     // Check if lo, hi is set and lo >=0 while hi < 0 (meaning - return whole result set except some rows at start and some at the end)
     // because such case can't really be optimized by topN/bottomN
+    /**
+     * Analytic functions can be evaluated in a single pass over base cursor when they either have no order by clause
+     * or are ordered by designated timestamp of the base cursor in ascending order.
+     */
+    private static boolean isAnalyticStreamable(QueryModel model, RecordCursorFactory base) {
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final int timestampIndex = baseMetadata.getTimestampIndex();
+        final ObjList<QueryColumn> columns = model.getColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final QueryColumn qc = columns.getQuick(i);
+            if (qc instanceof AnalyticColumn) {
+                final AnalyticColumn ac = (AnalyticColumn) qc;
+                final int osz = ac.getOrderBy().size();
+                if (osz == 0) {
+                    continue;
+                }
+                if (
+                        osz > 1
+                                || timestampIndex == -1
+                                || base.hasDescendingOrder()
+                                || ac.getOrderByDirection().getQuick(0) != QueryModel.ORDER_DIRECTION_ASCENDING
+                                || baseMetadata.getColumnIndexQuiet(ac.getOrderBy().getQuick(0).token) != timestampIndex
+                ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds top level conjunct of the filter in form of <code>b = 'value'</code>, where b is indexed symbol
+     * column other than the key column.
+     */
+    private static ExpressionNode findIndexedSymbolEquality(ExpressionNode node, RecordMetadata metadata, int keyColumnIndex) {
+        if (node == null || node.type != ExpressionNode.OPERATION) {
+            return null;
+        }
+        if (SqlKeywords.isAndKeyword(node.token)) {
+            final ExpressionNode found = findIndexedSymbolEquality(node.lhs, metadata, keyColumnIndex);
+            return found != null ? found : findIndexedSymbolEquality(node.rhs, metadata, keyColumnIndex);
+        }
+        if (node.paramCount == 2 && Chars.equals(node.token, '=')) {
+            if (isIndexedSymbolLiteral(node.lhs, metadata, keyColumnIndex) && isQuotedConstant(node.rhs)
+                    || isIndexedSymbolLiteral(node.rhs, metadata, keyColumnIndex) && isQuotedConstant(node.lhs)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIndexedSymbolLiteral(ExpressionNode node, RecordMetadata metadata, int keyColumnIndex) {
+        if (node.type != ExpressionNode.LITERAL) {
+            return false;
+        }
+        final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+        return columnIndex > -1
+                && columnIndex != keyColumnIndex
+                && ColumnType.isSymbol(metadata.getColumnType(columnIndex))
+                && metadata.isColumnIndexed(columnIndex);
+    }
+
+    private static boolean isQuotedConstant(ExpressionNode node) {
+        return node.type == ExpressionNode.CONSTANT && Chars.isQuoted(node.token);
+    }
+
+    private static ExpressionNode removeConjunct(ExpressionNode node, ExpressionNode conjunct) {
+        if (node == conjunct) {
+            return null;
+        }
+        if (node.type == ExpressionNode.OPERATION && SqlKeywords.isAndKeyword(node.token)) {
+            node.lhs = removeConjunct(node.lhs, conjunct);
+            node.rhs = removeConjunct(node.rhs, conjunct);
+            if (node.lhs == null) {
+                return node.rhs;
+            }
+            if (node.rhs == null) {
+                return node.lhs;
+            }
+        }
+        return node;
+    }
+
     private boolean canBeOptimized(QueryModel model, SqlExecutionContext context, Function loFunc, Function hiFunc) {
         if (model.getLimitLo() == null && model.getLimitHi() == null) {
             return false;
@@ -354,6 +509,32 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return false;
     }
 
+    /**
+     * Takes equality on second indexed symbol column out of the filter, rows of the key column
+     * index are then intersected with rows of the second index rather than filtered one by one.
+     *
+     * @return index row cursor factory of the second column, null when the filter does not have suitable equality
+     */
+    @Nullable
+    private RowCursorFactory extractIndexIntersection(IntrinsicModel intrinsicModel, TableReader reader, int keyColumnIndex) {
+        final ExpressionNode node = findIndexedSymbolEquality(intrinsicModel.filter, reader.getMetadata(), keyColumnIndex);
+        if (node == null) {
+            return null;
+        }
+        final ExpressionNode literal = node.lhs.type == ExpressionNode.LITERAL ? node.lhs : node.rhs;
+        final ExpressionNode constant = literal == node.lhs ? node.rhs : node.lhs;
+        final int columnIndex = reader.getMetadata().getColumnIndexQuiet(literal.token);
+        final int symbolKey = reader.getSymbolMapReader(columnIndex).keyOf(
+                constant.token.subSequence(1, constant.token.length() - 1)
+        );
+        if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
+            // value might be added later, filter takes care of it
+            return null;
+        }
+        intrinsicModel.filter = removeConjunct(intrinsicModel.filter, node);
+        return new SymbolIndexRowCursorFactory(columnIndex, symbolKey, true, BitmapIndexReader.DIR_FORWARD, null);
+    }
+
     @Nullable
     private Function compileFilter(IntrinsicModel intrinsicModel, RecordMetadata readerMeta, SqlExecutionContext executionContext) throws SqlException {
         if (intrinsicModel.filter != null) {
@@ -562,11 +743,22 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    /**
+     * Spilling operators re-read spilled records via row ids, so the factory they consume
+     * has to support random access.
+     */
+    private boolean isSpillEnabled(RecordCursorFactory factory) {
+        return configuration.getSqlSpillThreshold() > 0
+                && Chars.equalsLowerCaseAscii(configuration.getDefaultMapType(), "fast")
+                && factory.recordCursorSupportsRandomAccess();
+    }
+
     private RecordCursorFactory createHashJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -599,7 +791,43 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
-        if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+        final boolean lightJoin = slave.recordCursorSupportsRandomAccess() && !fullFatJoins;
+        if (
+                joinType == JOIN_INNER
+                        && configuration.isSqlParallelHashJoinEnabled()
+                        && master.supportPageFrameCursor()
+                        && !master.hasDescendingOrder()
+                        // the parallel probe needs the whole build side in memory
+                        && !(lightJoin && isSpillEnabled(master))
+        ) {
+            RecordSink slaveChainSink = null;
+            if (!lightJoin) {
+                entityColumnFilter.of(slaveMetadata.getColumnCount());
+                slaveChainSink = RecordSinkFactory.getInstance(
+                        asm,
+                        slaveMetadata,
+                        entityColumnFilter,
+                        false
+                );
+            }
+            return new AsyncHashJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    slaveChainSink,
+                    masterMetadata.getColumnCount(),
+                    executionContext.getWorkerCount(),
+                    reduceTaskPool
+            );
+        }
+
+        if (lightJoin) {
             if (joinType == JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
@@ -1106,10 +1334,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         if (enableParallelFilter && factory.supportPageFrameCursor()) {
             ObjList<Function> perWorkerFilters = preparePerWorkerFilters(factory.getMetadata(), executionContext, filter, f);
 
+            String jitFallbackReason = null;
             final boolean useJit = executionContext.getJitMode() != SqlJitMode.JIT_MODE_DISABLED;
             if (useJit) {
                 final boolean optimize = factory.supportPageFrameCursor() && JitUtil.isJitSupported();
-                if (optimize) {
+                if (!optimize) {
+                    jitFallbackReason = "JIT is not supported on this platform";
+                } else {
                     try {
                         int jitOptions;
                         final ObjList<Function> bindVarFunctions = new ObjList<>();
@@ -1141,6 +1372,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 limitLoPos
                         );
                     } catch (SqlException | LimitOverflowException ex) {
+                        jitFallbackReason = Chars.toString(ex.getFlyweightMessage());
                         LOG.debug()
                                 .$("JIT cannot be applied to (sub)query [tableName=").utf8(model.getName())
                                 .$(", ex=").$(ex.getFlyweightMessage())
@@ -1150,6 +1382,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         jitIRMem.truncate();
                     }
                 }
+            } else {
+                jitFallbackReason = "JIT is disabled";
             }
 
             // Use Java filter.
@@ -1163,13 +1397,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     reduceTaskPool,
                     perWorkerFilters,
                     limitLoFunction,
-                    limitLoPos
+                    limitLoPos,
+                    jitFallbackReason
             );
         }
         return new FilteredRecordCursorFactory(factory, f);
     }
 
     private RecordCursorFactory generateFunctionQuery(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        scannedNonTables = true;
         final Function function = model.getTableNameFunction();
         if (function != null) {
             // We're transferring ownership of the function's factory to another factory
@@ -1371,7 +1607,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                         master,
                                         slave,
-                                        joinType
+                                        joinType,
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -1401,7 +1638,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 reduceTaskPool,
                                 perWorkerFilters,
                                 null,
-                                0
+                                0,
+                                null
                         );
                     } else {
                         master = new FilteredRecordCursorFactory(master, functionParser.parseFunction(filter, master.getMetadata(), executionContext));
@@ -1483,6 +1721,62 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    @NotNull
+    private RecordCursorFactory generateLatestByAll(
+            RecordMetadata metadata,
+            DataFrameCursorFactory dataFrameCursorFactory,
+            @Nullable Function filter,
+            @Nullable ExpressionNode filterExpr,
+            SqlExecutionContext executionContext,
+            boolean framingSupported,
+            @NotNull IntList columnIndexes,
+            @NotNull IntList columnSizes
+    ) throws SqlException {
+        final RecordSink recordSink = RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false);
+        if (!framingSupported || !configuration.isSqlParallelLatestByEnabled()) {
+            return new LatestByAllFilteredRecordCursorFactory(
+                    metadata,
+                    configuration,
+                    dataFrameCursorFactory,
+                    recordSink,
+                    keyTypes,
+                    filter,
+                    columnIndexes
+            );
+        }
+
+        final IntList keyColumnIndexes = new IntList(listColumnFilterA.getColumnCount());
+        for (int i = 0, n = listColumnFilterA.getColumnCount(); i < n; i++) {
+            keyColumnIndexes.add(listColumnFilterA.getColumnIndexFactored(i));
+        }
+        final ObjList<Function> perWorkerFilters = filter != null
+                ? preparePerWorkerFilters(metadata, executionContext, filterExpr, filter)
+                : null;
+        return new AsyncLatestByRecordCursorFactory(
+                configuration,
+                executionContext.getMessageBus(),
+                new DataFrameRecordCursorFactory(
+                        configuration,
+                        metadata,
+                        dataFrameCursorFactory,
+                        new BwdDataFrameRowCursorFactory(),
+                        false,
+                        null,
+                        true,
+                        columnIndexes,
+                        columnSizes,
+                        true
+                ),
+                recordSink,
+                keyTypes,
+                keyColumnIndexes,
+                filter,
+                perWorkerFilters,
+                executionContext.getWorkerCount(),
+                reduceTaskPool
+        );
+    }
+
     @NotNull
     private RecordCursorFactory generateLatestByTableQuery(
             QueryModel model,
@@ -1493,6 +1787,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             Function filter,
             SqlExecutionContext executionContext,
             int timestampIndex,
+            boolean framingSupported,
             @NotNull IntList columnIndexes,
             @NotNull IntList columnSizes,
             @NotNull LongList prefixes
@@ -1518,14 +1813,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         // if there are > 1 columns in the latest by statement we cannot use indexes
         if (latestBy.size() > 1 || !ColumnType.isSymbol(metadata.getColumnType(latestByIndex))) {
-            return new LatestByAllFilteredRecordCursorFactory(
+            return generateLatestByAll(
                     metadata,
-                    configuration,
                     dataFrameCursorFactory,
-                    RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false),
-                    keyTypes,
                     filter,
-                    columnIndexes
+                    intrinsicModel.filter,
+                    executionContext,
+                    framingSupported,
+                    columnIndexes,
+                    columnSizes
             );
         }
 
@@ -1684,6 +1980,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     prefixes
             );
         } else {
+            // single symbol key stays serial, the cursor stops as soon as every symbol
+            // is found and does not open older partitions at all
             return new LatestByDeferredListValuesFilteredRecordCursorFactory(
                     configuration,
                     metadata,
@@ -1814,24 +2112,46 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 final Function hiFunc = getHiFunction(model, executionContext);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
-                    if (canBeOptimized(model, executionContext, loFunc, hiFunc)) {
+                    final boolean limited = canBeOptimized(model, executionContext, loFunc, hiFunc);
+                    if (limited) {
                         model.setLimitImplemented(true);
-                        return new LimitedSizeSortedLightRecordCursorFactory(
+                    }
+                    if (
+                            listColumnFilterA.size() == 1
+                                    && configuration.isSqlParallelSortEnabled()
+                                    && AsyncSortedLightRecordCursorFactory.isSupported(recordCursorFactory)
+                                    && AsyncSortedLightRecordCursorFactory.isSupported(metadata.getColumnType(Math.abs(listColumnFilterA.getQuick(0)) - 1))
+                    ) {
+                        final int sortColumn = listColumnFilterA.getQuick(0);
+                        return new AsyncSortedLightRecordCursorFactory(
                                 configuration,
+                                executionContext.getMessageBus(),
                                 orderedMetadata,
                                 recordCursorFactory,
-                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
-                                loFunc,
-                                hiFunc
+                                Math.abs(sortColumn) - 1,
+                                sortColumn < 0,
+                                limited ? loFunc : null,
+                                limited ? hiFunc : null,
+                                executionContext.getWorkerCount(),
+                                reduceTaskPool
                         );
-                    } else {
-                        return new SortedLightRecordCursorFactory(
+                    }
+                    if (limited) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
                                 configuration,
                                 orderedMetadata,
                                 recordCursorFactory,
-                                recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                loFunc,
+                                hiFunc
                         );
                     }
+                    return new SortedLightRecordCursorFactory(
+                            configuration,
+                            orderedMetadata,
+                            recordCursorFactory,
+                            recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                    );
                 }
 
                 // when base record cursor does not support random access
@@ -1859,35 +2179,150 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private void generatePartitionStatsConditions(
+            PartitionStatsFilter statsFilter,
+            ExpressionNode node,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) {
+        if (node.type != ExpressionNode.OPERATION) {
+            return;
+        }
+
+        if (isAndKeyword(node.token)) {
+            generatePartitionStatsConditions(statsFilter, node.lhs, readerMeta, executionContext);
+            generatePartitionStatsConditions(statsFilter, node.rhs, readerMeta, executionContext);
+            return;
+        }
+
+        if (node.paramCount == 3 && isBetweenKeyword(node.token)) {
+            final ExpressionNode column = node.args.getQuick(2);
+            final int columnIndex = column.type == LITERAL ? readerMeta.getColumnIndexQuiet(column.token) : -1;
+            if (columnIndex < 0) {
+                return;
+            }
+            final int columnType = readerMeta.getColumnType(columnIndex);
+            if (!PartitionStats.isSupported(columnType)) {
+                return;
+            }
+            final Function lo = parsePartitionStatsBound(node.args.getQuick(1), columnType, readerMeta, executionContext);
+            if (lo == null) {
+                return;
+            }
+            final Function hi = parsePartitionStatsBound(node.args.getQuick(0), columnType, readerMeta, executionContext);
+            if (hi == null) {
+                Misc.free(lo);
+                return;
+            }
+            statsFilter.addBetween(columnIndex, columnType, lo, hi, node);
+            return;
+        }
+
+        if (node.paramCount != 2 || node.token.length() > 2) {
+            return;
+        }
+
+        // column is on the left, unless it is the other way around: "10 < x" is the same as "x > 10"
+        final boolean flipped;
+        final ExpressionNode column;
+        final ExpressionNode constant;
+        if (node.lhs.type == LITERAL) {
+            flipped = false;
+            column = node.lhs;
+            constant = node.rhs;
+        } else if (node.rhs.type == LITERAL) {
+            flipped = true;
+            column = node.rhs;
+            constant = node.lhs;
+        } else {
+            return;
+        }
+
+        final int columnIndex = readerMeta.getColumnIndexQuiet(column.token);
+        if (columnIndex < 0) {
+            return;
+        }
+        final int columnType = readerMeta.getColumnType(columnIndex);
+        if (!PartitionStats.isSupported(columnType)) {
+            return;
+        }
+
+        final CharSequence op = node.token;
+        final boolean less;
+        final boolean inclusive;
+        if (Chars.equals(op, '=')) {
+            final Function value = parsePartitionStatsBound(constant, columnType, readerMeta, executionContext);
+            if (value != null) {
+                statsFilter.add(columnIndex, columnType, value, true, value, true, node);
+            }
+            return;
+        } else if (Chars.equals(op, '<')) {
+            less = true;
+            inclusive = false;
+        } else if (Chars.equals(op, "<=")) {
+            less = true;
+            inclusive = true;
+        } else if (Chars.equals(op, '>')) {
+            less = false;
+            inclusive = false;
+        } else if (Chars.equals(op, ">=")) {
+            less = false;
+            inclusive = true;
+        } else {
+            return;
+        }
+
+        final Function bound = parsePartitionStatsBound(constant, columnType, readerMeta, executionContext);
+        if (bound == null) {
+            return;
+        }
+        if (less != flipped) {
+            statsFilter.add(columnIndex, columnType, null, true, bound, inclusive, node);
+        } else {
+            statsFilter.add(columnIndex, columnType, bound, inclusive, null, true, node);
+        }
+    }
+
+    /**
+     * Picks conditions of the filter, which compare numeric or timestamp columns with constants, to skip
+     * partitions using their min/max statistics. The filter itself is applied to rows as before.
+     *
+     * @param filter           where clause left after intrinsic model took what it could
+     * @param readerMeta       metadata of the table reader
+     * @param executionContext execution context
+     * @return partition statistics filter or null when the filter has no suitable conditions
+     */
+    @Nullable
+    private PartitionStatsFilter generatePartitionStatsFilter(
+            ExpressionNode filter,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) {
+        if (filter == null || !configuration.isPartitionStatsEnabled()) {
+            return null;
+        }
+        final PartitionStatsFilter statsFilter = new PartitionStatsFilter();
+        generatePartitionStatsConditions(statsFilter, filter, readerMeta, executionContext);
+        if (statsFilter.isEmpty()) {
+            return Misc.free(statsFilter);
+        }
+        return statsFilter;
+    }
+
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
-            return generateSetFactory(model, factory, executionContext);
+            return profile(generateSetFactory(model, factory, executionContext));
         }
         return factory;
     }
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
-        return generateLimit(
-                generateOrderBy(
-                        generateLatestBy(
-                                generateFilter(
-                                        generateSelect(
-                                                model,
-                                                executionContext,
-                                                processJoins
-                                        ),
-                                        model,
-                                        executionContext
-                                ),
-                                model
-                        ),
-                        model,
-                        executionContext
-                ),
-                model,
-                executionContext
-        );
+        RecordCursorFactory factory = profile(generateSelect(model, executionContext, processJoins));
+        factory = profile(generateFilter(factory, model, executionContext));
+        factory = profile(generateLatestBy(factory, model));
+        factory = profile(generateOrderBy(factory, model, executionContext));
+        return profile(generateLimit(factory, model, executionContext));
     }
 
     @NotNull
@@ -2115,6 +2550,42 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
                 if (isFillNone) {
 
+                    // buckets are reduced independently of each other, which is why
+                    // time zones with their DST transitions are left to the sequential cursors
+                    final boolean enableParallelSampleBy = configuration.isSqlParallelGroupByEnabled()
+                            && timezoneName == null
+                            && factory.supportPageFrameCursor()
+                            && AsyncSampleByFillNoneRecordCursorFactory.isTimestampSamplerSupported(timestampSampler)
+                            && Chars.equalsLowerCaseAscii(configuration.getDefaultMapType(), "fast")
+                            && GroupByUtils.isParallelismSupported(groupByFunctions);
+
+                    if (enableParallelSampleBy) {
+                        final ObjList<ObjList<GroupByFunction>> perSlotGroupByFunctions = preparePerSlotGroupByFunctions(
+                                model,
+                                metadata,
+                                executionContext,
+                                true
+                        );
+                        return new AsyncSampleByFillNoneRecordCursorFactory(
+                                configuration,
+                                executionContext.getMessageBus(),
+                                factory,
+                                timestampSampler,
+                                listColumnFilterA,
+                                asm,
+                                keyTypes,
+                                valueTypes,
+                                groupByMetadata,
+                                groupByFunctions,
+                                perSlotGroupByFunctions,
+                                recordFunctions,
+                                timestampIndex,
+                                offsetFunc,
+                                offsetFuncPos,
+                                reduceTaskPool
+                        );
+                    }
+
                     if (keyTypes.getColumnCount() == 0) {
                         // this sample by is not keyed
                         return new SampleByFillNoneNotKeyedRecordCursorFactory(
@@ -2265,6 +2736,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
     private RecordCursorFactory generateSelectAnalytic(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory base = generateSubQuery(model, executionContext);
+        if (isAnalyticStreamable(model, base)) {
+            final RecordCursorFactory factory = generateSelectAnalyticStreaming(model, base, executionContext);
+            if (factory != null) {
+                return factory;
+            }
+        }
+
         final RecordMetadata baseMetadata = base.getMetadata();
         final ObjList<QueryColumn> columns = model.getColumns();
         final int columnCount = columns.size();
@@ -2332,62 +2810,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             final QueryColumn qc = columns.getQuick(i);
             if (qc instanceof AnalyticColumn) {
                 final AnalyticColumn ac = (AnalyticColumn) qc;
-                final ExpressionNode ast = qc.getAst();
-                if (ast.paramCount > 1) {
-                    throw SqlException.$(ast.position, "too many arguments");
-                }
-
-                ObjList<Function> partitionBy = null;
-                int psz = ac.getPartitionBy().size();
-                if (psz > 0) {
-                    partitionBy = new ObjList<>(psz);
-                    for (int j = 0; j < psz; j++) {
-                        partitionBy.add(
-                                functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext)
-                        );
-                    }
-                }
-
-                final VirtualRecord partitionByRecord;
-                final RecordSink partitionBySink;
-
-                if (partitionBy != null) {
-                    partitionByRecord = new VirtualRecord(partitionBy);
-                    keyTypes.clear();
-                    final int partitionByCount = partitionBy.size();
-
-                    for (int j = 0; j < partitionByCount; j++) {
-                        keyTypes.add(partitionBy.getQuick(j).getType());
-                    }
-                    entityColumnFilter.of(partitionByCount);
-                    // create sink
-                    partitionBySink = RecordSinkFactory.getInstance(
-                            asm,
-                            keyTypes,
-                            entityColumnFilter,
-                            false
-                    );
-                } else {
-                    partitionByRecord = null;
-                    partitionBySink = null;
-                }
-
-
                 final int osz = ac.getOrderBy().size();
-                executionContext.configureAnalyticContext(
-                        partitionByRecord,
-                        partitionBySink,
-                        keyTypes,
-                        osz > 0,
-                        base.recordCursorSupportsRandomAccess()
+                // analytic functions receive chain records, so they are parsed against chain metadata
+                final AnalyticFunction analyticFunction = parseAnalyticFunction(
+                        ac,
+                        chainMetadata,
+                        base.recordCursorSupportsRandomAccess(),
+                        executionContext
                 );
 
-                final Function f = functionParser.parseFunction(ast, baseMetadata, executionContext);
-                if (!(f instanceof AnalyticFunction)) {
-                    throw SqlException.$(ast.position, "non-analytic function called in analytic context");
-                }
-                AnalyticFunction analyticFunction = (AnalyticFunction) f;
-
                 // analyze order by clause on the current model and optimise out
                 // order by on analytic function if it matches the one on the model
                 final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
@@ -2473,6 +2904,61 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    private RecordCursorFactory generateSelectAnalyticStreaming(
+            QueryModel model,
+            RecordCursorFactory base,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final int columnCount = columns.size();
+        final int timestampIndex = baseMetadata.getTimestampIndex();
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        final ObjList<Function> functions = new ObjList<>(columnCount);
+        final ObjList<AnalyticFunction> analyticFunctions = new ObjList<>();
+
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn qc = columns.getQuick(i);
+                if (qc instanceof AnalyticColumn) {
+                    final AnalyticFunction f = parseAnalyticFunction(
+                            (AnalyticColumn) qc,
+                            baseMetadata,
+                            base.recordCursorSupportsRandomAccess(),
+                            executionContext
+                    );
+                    functions.add(f);
+                    if (f.getPassCount() != AnalyticFunction.STREAM) {
+                        // function needs to see records that follow the current one, fall back to caching
+                        Misc.freeObjList(functions);
+                        return null;
+                    }
+                    analyticFunctions.add(f);
+                    metadata.add(new TableColumnMetadata(
+                            Chars.toString(qc.getAlias()),
+                            0, // transient column hash is 0
+                            f.getType(),
+                            false,
+                            0,
+                            false,
+                            null
+                    ));
+                } else {
+                    final int columnIndex = baseMetadata.getColumnIndexQuiet(qc.getAst().token);
+                    functions.add(functionParser.parseFunction(qc.getAst(), baseMetadata, executionContext));
+                    metadata.add(BaseRecordMetadata.copyOf(baseMetadata, columnIndex));
+                    if (columnIndex == timestampIndex) {
+                        metadata.setTimestampIndex(i);
+                    }
+                }
+            }
+        } catch (Throwable th) {
+            Misc.freeObjList(functions);
+            throw th;
+        }
+        return new StreamingAnalyticRecordCursorFactory(metadata, base, functions, analyticFunctions);
+    }
+
     private RecordCursorFactory generateSelectChoose(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
 
@@ -2891,7 +3377,55 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 throw e;
             }
 
-            if (keyTypes.getColumnCount() == 0) {
+            final boolean keyed = keyTypes.getColumnCount() > 0;
+            final boolean enableParallelGroupBy = configuration.isSqlParallelGroupByEnabled()
+                    && factory.supportPageFrameCursor()
+                    && !factory.hasDescendingOrder()
+                    && (!keyed || Chars.equalsLowerCaseAscii(configuration.getDefaultMapType(), "fast"))
+                    // per-worker maps can't be spilled, memory budget takes precedence over parallelism
+                    && !(keyed && isSpillEnabled(factory))
+                    && GroupByUtils.isParallelismSupported(groupByFunctions);
+
+            if (enableParallelGroupBy) {
+                final ObjList<ObjList<GroupByFunction>> perSlotGroupByFunctions;
+                try {
+                    perSlotGroupByFunctions = preparePerSlotGroupByFunctions(model, metadata, executionContext, false);
+                } catch (Throwable e) {
+                    Misc.freeObjList(recordFunctions);
+                    throw e;
+                }
+
+                if (!keyed) {
+                    return new AsyncGroupByNotKeyedRecordCursorFactory(
+                            configuration,
+                            executionContext.getMessageBus(),
+                            factory,
+                            groupByMetadata,
+                            groupByFunctions,
+                            perSlotGroupByFunctions,
+                            recordFunctions,
+                            valueTypes.getColumnCount(),
+                            reduceTaskPool
+                    );
+                }
+
+                return new AsyncGroupByRecordCursorFactory(
+                        configuration,
+                        executionContext.getMessageBus(),
+                        factory,
+                        listColumnFilterA,
+                        asm,
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        groupByFunctions,
+                        perSlotGroupByFunctions,
+                        recordFunctions,
+                        reduceTaskPool
+                );
+            }
+
+            if (!keyed) {
                 return new GroupByNotKeyedRecordCursorFactory(
                         factory,
                         groupByMetadata,
@@ -3180,6 +3714,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         } else {
             supportsRandomAccess = true;
         }
+        final String scannedTableName = Chars.toString(tab);
+        if (scannedTableNames.indexOf(scannedTableName) < 0) {
+            scannedTableNames.add(scannedTableName);
+        }
 
         try (TableReader reader = engine.getReader(
                 executionContext.getCairoSecurityContext(),
@@ -3338,6 +3876,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                             f,
                             executionContext,
                             readerTimestampIndex,
+                            framingSupported,
                             columnIndexes,
                             columnSizes,
                             prefixes
@@ -3405,6 +3944,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
 
                     if (intrinsicModel.keyExcludedValueFuncs.size() == 0) {
+                        final RowCursorFactory intersectRcf = nKeyValues == 1 && indexDirection == BitmapIndexReader.DIR_FORWARD
+                                ? extractIndexIntersection(intrinsicModel, reader, keyColumnIndex)
+                                : null;
                         Function f = compileFilter(intrinsicModel, myMeta, executionContext);
                         if (f != null && f.isConstant()) {
                             try {
@@ -3423,6 +3965,25 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                     ? SymbolTable.VALUE_NOT_FOUND
                                     : symbolMapReader.keyOf(symbolFunc.getStr(null));
 
+                            if (intersectRcf != null) {
+                                final RowCursorFactory keyRcf = symbolKey == SymbolTable.VALUE_NOT_FOUND
+                                        ? new DeferredSymbolIndexRowCursorFactory(keyColumnIndex, symbolFunc, true, indexDirection)
+                                        : new SymbolIndexRowCursorFactory(keyColumnIndex, symbolKey, true, indexDirection, null);
+                                final RecordCursorFactory factory = new DataFrameRecordCursorFactory(
+                                        configuration,
+                                        myMeta,
+                                        dfcFactory,
+                                        new IntersectRowCursorFactory(keyRcf, intersectRcf),
+                                        orderByKeyColumn,
+                                        null,
+                                        false,
+                                        columnIndexes,
+                                        columnSizes,
+                                        supportsRandomAccess
+                                );
+                                return f == null ? factory : new FilteredRecordCursorFactory(factory, f);
+                            }
+
                             if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
                                 if (f == null) {
                                     rcf = new DeferredSymbolIndexRowCursorFactory(keyColumnIndex,
@@ -3574,6 +4135,12 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     rowFactory = new DataFrameRowCursorFactory();
                 }
 
+                if (reader.getPartitionedBy() != PartitionBy.NONE) {
+                    ((AbstractDataFrameCursorFactory) dfcFactory).setStatsFilter(
+                            generatePartitionStatsFilter(intrinsicModel.filter, readerMeta, executionContext)
+                    );
+                }
+
                 model.setWhereClause(intrinsicModel.filter);
                 return new DataFrameRecordCursorFactory(
                         configuration,
@@ -3650,14 +4217,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 }
             }
 
-            return new LatestByAllFilteredRecordCursorFactory(
+            return generateLatestByAll(
                     myMeta,
-                    configuration,
                     new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
-                    RecordSinkFactory.getInstance(asm, myMeta, listColumnFilterA, false),
-                    keyTypes,
                     null,
-                    columnIndexes
+                    null,
+                    executionContext,
+                    framingSupported,
+                    columnIndexes,
+                    columnSizes
             );
         }
     }
@@ -3803,6 +4371,135 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private AnalyticFunction parseAnalyticFunction(
+            AnalyticColumn ac,
+            RecordMetadata metadata,
+            boolean baseSupportsRandomAccess,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ExpressionNode ast = ac.getAst();
+        // second argument is reserved for offset of lag() and lead()
+        if (ast.paramCount > 2) {
+            throw SqlException.$(ast.position, "too many arguments");
+        }
+        if (!functionParser.getFunctionFactoryCache().isAnalytic(ast.token)) {
+            throw SqlException.$(ast.position, "non-analytic function called in analytic context");
+        }
+
+        // resolve frame, frame bounds are offsets from the order key of the current row
+        final int osz = ac.getOrderBy().size();
+        int framingMode = ac.getFramingMode();
+        long frameLo = ac.getFrameLo();
+        long frameHi = ac.getFrameHi();
+        int rangeColumnIndex = -1;
+        if (framingMode == AnalyticColumn.FRAMING_DEFAULT) {
+            // ordered functions are cumulative, the others see entire partition
+            frameLo = AnalyticColumn.UNBOUNDED_PRECEDING;
+            frameHi = osz > 0 ? AnalyticColumn.CURRENT_ROW : AnalyticColumn.UNBOUNDED_FOLLOWING;
+        } else if (framingMode == AnalyticColumn.FRAMING_RANGE) {
+            final boolean hasOffset = (frameLo != AnalyticColumn.UNBOUNDED_PRECEDING && frameLo != AnalyticColumn.CURRENT_ROW)
+                    || (frameHi != AnalyticColumn.CURRENT_ROW && frameHi != AnalyticColumn.UNBOUNDED_FOLLOWING);
+            if (hasOffset) {
+                if (osz != 1) {
+                    throw SqlException.$(ast.position, "RANGE frame with offset requires exactly one ORDER BY column");
+                }
+                final ExpressionNode orderBy = ac.getOrderBy().getQuick(0);
+                if (ac.getOrderByDirection().getQuick(0) != QueryModel.ORDER_DIRECTION_ASCENDING) {
+                    throw SqlException.$(ast.position, "RANGE frame with offset requires ascending ORDER BY");
+                }
+                rangeColumnIndex = metadata.getColumnIndexQuiet(orderBy.token);
+                if (rangeColumnIndex == -1) {
+                    throw SqlException.invalidColumn(orderBy.position, orderBy.token);
+                }
+                final int type = ColumnType.tagOf(metadata.getColumnType(rangeColumnIndex));
+                if (type != ColumnType.TIMESTAMP && type != ColumnType.LONG) {
+                    throw SqlException.$(ast.position, "RANGE frame with offset requires ORDER BY column of LONG or TIMESTAMP type");
+                }
+            } else if (osz == 0) {
+                // all rows of unordered partition are peers of the current row
+                frameLo = AnalyticColumn.UNBOUNDED_PRECEDING;
+                frameHi = AnalyticColumn.UNBOUNDED_FOLLOWING;
+            }
+            // peers of the current row that follow it are not included into the frame,
+            // so that RANGE without offset is the same as ROWS
+        }
+        if (rangeColumnIndex == -1) {
+            framingMode = AnalyticColumn.FRAMING_ROWS;
+        }
+
+        ObjList<Function> partitionBy = null;
+        final int psz = ac.getPartitionBy().size();
+        try {
+            final VirtualRecord partitionByRecord;
+            final RecordSink partitionBySink;
+            if (psz > 0) {
+                partitionBy = new ObjList<>(psz);
+                for (int j = 0; j < psz; j++) {
+                    partitionBy.add(
+                            functionParser.parseFunction(ac.getPartitionBy().getQuick(j), metadata, executionContext)
+                    );
+                }
+                partitionByRecord = new VirtualRecord(partitionBy);
+                keyTypes.clear();
+                for (int j = 0; j < psz; j++) {
+                    keyTypes.add(partitionBy.getQuick(j).getType());
+                }
+                entityColumnFilter.of(psz);
+                // create sink
+                partitionBySink = RecordSinkFactory.getInstance(
+                        asm,
+                        keyTypes,
+                        entityColumnFilter,
+                        false
+                );
+            } else {
+                partitionByRecord = null;
+                partitionBySink = null;
+            }
+
+            executionContext.configureAnalyticContext(
+                    partitionByRecord,
+                    partitionBySink,
+                    keyTypes,
+                    osz > 0,
+                    baseSupportsRandomAccess,
+                    framingMode,
+                    frameLo,
+                    frameHi,
+                    rangeColumnIndex
+            );
+
+            final Function f = functionParser.parseAnalyticFunction(ast, metadata, executionContext);
+            if (!(f instanceof AnalyticFunction)) {
+                Misc.free(f);
+                throw SqlException.$(ast.position, "non-analytic function called in analytic context");
+            }
+            return (AnalyticFunction) f;
+        } catch (Throwable th) {
+            Misc.freeObjList(partitionBy);
+            throw th;
+        }
+    }
+
+    @Nullable
+    private Function parsePartitionStatsBound(ExpressionNode node, int columnType, RecordMetadata metadata, SqlExecutionContext executionContext) {
+        if (node.type == LITERAL || node.queryModel != null) {
+            return null;
+        }
+        final Function function;
+        try {
+            function = functionParser.parseFunction(node, metadata, executionContext);
+        } catch (SqlException e) {
+            // not our kind of condition, the filter will report the error if there is one
+            return null;
+        }
+        if ((function.isConstant() || function.isRuntimeConstant()) && PartitionStatsFilter.isSupported(columnType, function.getType())) {
+            return function;
+        }
+        Misc.free(function);
+        return null;
+    }
+
     private int prepareLatestByColumnIndexes(ObjList<ExpressionNode> latestBy, RecordMetadata myMeta) throws SqlException {
         keyTypes.clear();
         listColumnFilterA.clear();
@@ -3849,6 +4546,43 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return latestByColumnCount;
     }
 
+    private ObjList<ObjList<GroupByFunction>> preparePerSlotGroupByFunctions(
+            QueryModel model,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext,
+            boolean sampleBy
+    ) throws SqlException {
+        // an extra slot is there for the threads that steal work, e.g. the query owner thread
+        final int slotCount = executionContext.getWorkerCount() + 1;
+        final ObjList<ObjList<GroupByFunction>> perSlotGroupByFunctions = new ObjList<>(slotCount);
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                final ObjList<GroupByFunction> groupByFunctions = new ObjList<>();
+                perSlotGroupByFunctions.add(groupByFunctions);
+                perSlotValueTypes.clear();
+                if (sampleBy) {
+                    // value layout must match the one of the sample by map
+                    perSlotValueTypes.add(ColumnType.TIMESTAMP);
+                }
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        metadata,
+                        functionParser,
+                        executionContext,
+                        groupByFunctions,
+                        perSlotGroupByFunctionPositions,
+                        perSlotValueTypes
+                );
+            }
+        } catch (Throwable e) {
+            for (int i = 0, n = perSlotGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perSlotGroupByFunctions.getQuick(i));
+            }
+            throw e;
+        }
+        return perSlotGroupByFunctions;
+    }
+
     private ObjList<Function> preparePerWorkerFilters(
             RecordMetadata metadata,
             SqlExecutionContext executionContext,
@@ -3895,6 +4629,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     // used in tests
+    private RecordCursorFactory profile(RecordCursorFactory factory) {
+        if (profiling && !(factory instanceof ProfiledRecordCursorFactory)) {
+            return new ProfiledRecordCursorFactory(factory, configuration.getNanosecondClock());
+        }
+        return factory;
+    }
+
     void setEnableJitNullChecks(boolean value) {
         enableJitNullChecks = value;
     }
@@ -27,14 +27,19 @@ package io.questdb.griffin;
 import io.questdb.MessageBus;
 import io.questdb.PropServerConfiguration;
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.mv.MatViewRegistry;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.ParallelCsvFileImporter;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
+import io.questdb.griffin.engine.ExplainPlanRecordCursorFactory;
+import io.questdb.griffin.engine.cache.QueryResultCacheRecordCursorFactory;
 import io.questdb.griffin.engine.functions.cast.CastCharToStrFunctionFactory;
 import io.questdb.griffin.engine.functions.cast.CastStrToGeoHashFunctionFactory;
 import io.questdb.griffin.engine.functions.catalogue.*;
@@ -43,6 +48,7 @@ import io.questdb.griffin.engine.ops.InsertOperationImpl;
 import io.questdb.griffin.engine.ops.UpdateOperation;
 import io.questdb.griffin.engine.table.ShowColumnsRecordCursorFactory;
 import io.questdb.griffin.engine.table.TableListRecordCursorFactory;
+import io.questdb.griffin.engine.table.TableReaderRowFilter;
 import io.questdb.griffin.model.*;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -108,6 +114,9 @@ public class SqlCompiler implements Closeable {
     private final TimestampValueRecord partitionFunctionRec = new TimestampValueRecord();
     private final IndexBuilder rebuildIndex = new IndexBuilder();
     private final VacuumColumnVersions vacuumColumnVersions;
+    private final PlanSink planSink = new PlanSink();
+    private final StringSink explainSink = new StringSink();
+    private final LongList explainMemoryByTag = new LongList(MemoryTag.SIZE);
     //determines how compiler parses query text
     //true - compiler treats whole input as single query and doesn't stop on ';'. Default mode.
     //false - compiler treats input as list of statements and stops processing statement on ';'. Used in batch processing.
@@ -163,6 +172,7 @@ public class SqlCompiler implements Closeable {
         final KeywordBasedExecutor dropTable = this::dropTable;
         final KeywordBasedExecutor sqlBackup = backupAgent::sqlBackup;
         final KeywordBasedExecutor sqlShow = this::sqlShow;
+        final KeywordBasedExecutor sqlExplain = this::sqlExplain;
         final KeywordBasedExecutor vacuumTable = this::vacuum;
         final KeywordBasedExecutor snapshotDatabase = this::snapshotDatabase;
 
@@ -196,6 +206,8 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("BACKUP", sqlBackup);
         keywordBasedExecutors.put("show", sqlShow);
         keywordBasedExecutors.put("SHOW", sqlShow);
+        keywordBasedExecutors.put("explain", sqlExplain);
+        keywordBasedExecutors.put("EXPLAIN", sqlExplain);
         keywordBasedExecutors.put("vacuum", vacuumTable);
         keywordBasedExecutors.put("VACUUM", vacuumTable);
         keywordBasedExecutors.put("snapshot", snapshotDatabase);
@@ -938,6 +950,28 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    /**
+     * Compiles boolean expression over the columns of the reader's table into a filter of row ranges
+     * of the table's partitions, see {@link TableReaderRowFilter}.
+     */
+    public TableReaderRowFilter compileRowFilter(
+            @NotNull CharSequence expression,
+            TableReader reader,
+            @NotNull SqlExecutionContext executionContext
+    ) throws SqlException {
+        clear();
+        lexer.of(expression);
+        final ExpressionNode expr = parser.expr(lexer, (QueryModel) null);
+        if (expr == null) {
+            throw SqlException.$(0, "filter expression expected");
+        }
+        final CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (tok != null) {
+            throw SqlException.unexpectedToken(lexer.lastTokenPosition(), tok);
+        }
+        return codeGenerator.generateRowFilter(expr, reader, executionContext);
+    }
+
     public void filterPartitions(
             Function function,
             TableReader reader,
@@ -1092,6 +1126,21 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
                     }
+                } else if (SqlKeywords.isConvertKeyword(tok)) {
+                    expectKeyword(lexer, "partition");
+                    expectKeyword(lexer, "to");
+                    expectKeyword(lexer, "parquet");
+                    return alterTableDropOrAttachPartition(reader, PartitionAction.CONVERT, executionContext);
+                } else if (SqlKeywords.isMoveKeyword(tok)) {
+                    expectKeyword(lexer, "partition");
+                    expectKeyword(lexer, "to");
+                    tok = expectToken(lexer, "'cold' or 'hot'");
+                    if (SqlKeywords.isColdKeyword(tok)) {
+                        return alterTableDropOrAttachPartition(reader, PartitionAction.MOVE_TO_COLD, executionContext);
+                    } else if (SqlKeywords.isHotKeyword(tok)) {
+                        return alterTableDropOrAttachPartition(reader, PartitionAction.MOVE_TO_HOT, executionContext);
+                    }
+                    throw SqlException.$(lexer.lastTokenPosition(), "'cold' or 'hot' expected");
                 } else if (SqlKeywords.isAttachKeyword(tok)) {
                     tok = expectToken(lexer, "'partition'");
                     if (SqlKeywords.isPartitionKeyword(tok)) {
@@ -1147,8 +1196,12 @@ public class SqlCompiler implements Closeable {
                             return alterTableColumnCacheFlag(tableNamePosition, tableName, columnName, reader, true);
                         } else if (SqlKeywords.isNoCacheKeyword(tok)) {
                             return alterTableColumnCacheFlag(tableNamePosition, tableName, columnName, reader, false);
+                        } else if (SqlKeywords.isCompressKeyword(tok)) {
+                            return alterTableColumnCompression(tableNamePosition, tableName, columnNameNamePosition, columnName, tableMetadata, true);
+                        } else if (SqlKeywords.isNoCompressKeyword(tok)) {
+                            return alterTableColumnCompression(tableNamePosition, tableName, columnNameNamePosition, columnName, tableMetadata, false);
                         } else {
-                            throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'cache' or 'nocache' expected").put(" found '").put(tok).put('\'');
+                            throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'cache', 'nocache', 'compress' or 'nocompress' expected").put(" found '").put(tok).put('\'');
                         }
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
@@ -1163,7 +1216,7 @@ public class SqlCompiler implements Closeable {
                         tok = expectToken(lexer, "'='");
                         if (tok.length() == 1 && tok.charAt(0) == '=') {
                             CharSequence value = GenericLexer.immutableOf(SqlUtil.fetchNext(lexer));
-                            return alterTableSetParam(paramName, value, paramNameNamePosition, tableName, tableMetadata.getId());
+                            return alterTableSetParam(paramName, value, paramNameNamePosition, tableName, tableMetadata);
                         } else {
                             throw SqlException.$(lexer.lastTokenPosition(), "'=' expected");
                         }
@@ -1171,7 +1224,7 @@ public class SqlCompiler implements Closeable {
                         throw SqlException.$(lexer.lastTokenPosition(), "'param' expected");
                     }
                 } else {
-                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'set' or 'rename' expected");
+                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'convert', 'move', 'set' or 'rename' expected");
                 }
             } catch (CairoException e) {
                 LOG.info().$("could not alter table [table=").$(name).$(", ex=").$((Throwable) e).$();
@@ -1442,6 +1495,33 @@ public class SqlCompiler implements Closeable {
         );
     }
 
+    private CompiledQuery alterTableColumnCompression(
+            int tableNamePosition,
+            String tableName,
+            int columnNamePosition,
+            CharSequence columnName,
+            TableReaderMetadata metadata,
+            boolean compressed
+    ) throws SqlException {
+        final int columnIndex = metadata.getColumnIndexQuiet(columnName);
+        if (columnIndex == -1) {
+            throw SqlException.invalidColumn(columnNamePosition, columnName);
+        }
+        if (!PartitionBy.isPartitioned(metadata.getPartitionBy())) {
+            throw SqlException.$(tableNamePosition, "compression requires partitioned table");
+        }
+        if (columnIndex == metadata.getTimestampIndex() || !ColumnCodec.isSupported(metadata.getColumnType(columnIndex))) {
+            throw SqlException.$(columnNamePosition, "column type cannot be compressed [type=")
+                    .put(ColumnType.nameOf(metadata.getColumnType(columnIndex)))
+                    .put(']');
+        }
+        return compiledQuery.ofAlter(
+                alterOperationBuilder
+                        .ofColumnCompression(tableNamePosition, tableName, metadata.getId(), columnName, compressed)
+                        .build()
+        );
+    }
+
     private CompiledQuery alterTableDropColumn(int tableNamePosition, String tableName, TableReaderMetadata metadata) throws SqlException {
         AlterOperationBuilder dropColumnStatement = alterOperationBuilder.ofDropColumn(tableNamePosition, tableName, metadata.getId());
         int semicolonPos = -1;
@@ -1522,10 +1602,15 @@ public class SqlCompiler implements Closeable {
         AlterOperationBuilder partitions;
         if (action == PartitionAction.DROP) {
             partitions = alterOperationBuilder.ofDropPartition(pos, tableName, reader.getMetadata().getId());
+        } else if (action == PartitionAction.CONVERT) {
+            partitions = alterOperationBuilder.ofConvertPartition(pos, tableName, reader.getMetadata().getId());
+        } else if (action == PartitionAction.MOVE_TO_COLD || action == PartitionAction.MOVE_TO_HOT) {
+            partitions = alterOperationBuilder.ofMovePartition(pos, tableName, reader.getMetadata().getId(), action == PartitionAction.MOVE_TO_COLD);
         } else {
             partitions = alterOperationBuilder.ofAttachPartition(pos, tableName, reader.getMetadata().getId());
         }
-        assert action == PartitionAction.DROP || action == PartitionAction.ATTACH;
+        assert action == PartitionAction.DROP || action == PartitionAction.ATTACH || action == PartitionAction.CONVERT
+                || action == PartitionAction.MOVE_TO_COLD || action == PartitionAction.MOVE_TO_HOT;
         int semicolonPos = -1;
         do {
             CharSequence tok = maybeExpectToken(lexer, "partition name", semicolonPos < 0);
@@ -1617,7 +1702,8 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofAlter(alterOperationBuilder.build());
     }
 
-    private CompiledQuery alterTableSetParam(CharSequence paramName, CharSequence value, int paramNameNamePosition, String tableName, int tableId) throws SqlException {
+    private CompiledQuery alterTableSetParam(CharSequence paramName, CharSequence value, int paramNameNamePosition, String tableName, TableReaderMetadata tableMetadata) throws SqlException {
+        final int tableId = tableMetadata.getId();
         if (isMaxUncommittedRowsParam(paramName)) {
             int maxUncommittedRows;
             try {
@@ -1635,6 +1721,15 @@ public class SqlCompiler implements Closeable {
                 throw SqlException.$(paramNameNamePosition, "commitLag must be non negative");
             }
             return compiledQuery.ofAlter(alterOperationBuilder.ofSetParamCommitLag(tableName, tableId, commitLag).build());
+        } else if (isTtlParam(paramName)) {
+            if (!PartitionBy.isPartitioned(tableMetadata.getPartitionBy())) {
+                throw SqlException.$(paramNameNamePosition, "ttl requires a partitioned table");
+            }
+            long ttl = SqlUtil.expectMicros(value, paramNameNamePosition);
+            if (ttl < 0) {
+                throw SqlException.$(paramNameNamePosition, "ttl must be non negative");
+            }
+            return compiledQuery.ofAlter(alterOperationBuilder.ofSetParamTtl(tableName, tableId, ttl).build());
         } else {
             throw SqlException.$(paramNameNamePosition, "unknown parameter '").put(paramName).put('\'');
         }
@@ -1723,7 +1818,7 @@ public class SqlCompiler implements Closeable {
         switch (executionModel.getModelType()) {
             case ExecutionModel.QUERY:
                 LOG.info().$("plan [q=`").$((QueryModel) executionModel).$("`, fd=").$(executionContext.getRequestFd()).$(']').$();
-                return compiledQuery.of(generate((QueryModel) executionModel, executionContext));
+                return compiledQuery.of(wrapInResultCache(generate((QueryModel) executionModel, executionContext)));
             case ExecutionModel.CREATE_TABLE:
                 return createTableWithRetries(executionModel, executionContext);
             case ExecutionModel.COPY:
@@ -1920,6 +2015,24 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void copyTableParallel(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        final CharSequence name = GenericLexer.assertNoDots(GenericLexer.unquote(model.getFileName().token), model.getFileName().position);
+        try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, executionContext.getWorkerCount())) {
+            importer.of(
+                    model.getTableName().token,
+                    name,
+                    model.getPartitionBy(),
+                    model.getDelimiter(),
+                    model.getTimestampColumnName(),
+                    model.isHeader(),
+                    Atomicity.SKIP_ROW
+            );
+            importer.process(executionContext.getCairoSecurityContext());
+        } catch (TextException e) {
+            throw SqlException.$(model.getFileName().position, e.getFlyweightMessage());
+        }
+    }
+
     //sets insertCount to number of copied rows
     private TableWriter copyTableData(CharSequence tableName, RecordCursor cursor, RecordMetadata cursorMetadata) {
         TableWriter writer = new TableWriter(
@@ -2001,6 +2114,8 @@ public class SqlCompiler implements Closeable {
                     if (createTableModel.getQueryModel() == null) {
                         engine.createTableUnsafe(executionContext.getCairoSecurityContext(), mem, path, createTableModel);
                         newTable = true;
+                    } else if (createTableModel.isMatView()) {
+                        writer = createMatView(createTableModel, executionContext);
                     } else {
                         writer = createTableFromCursor(createTableModel, executionContext);
                     }
@@ -2022,6 +2137,50 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private TableWriter createMatView(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode baseTable = model.getMatViewBaseTable();
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, baseTable.token) != TableUtils.TABLE_EXISTS) {
+            throw SqlException.$(baseTable.position, "table does not exist [table=").put(baseTable.token).put(']');
+        }
+        final MatViewDefinition view;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), baseTable.token)) {
+            final TableReaderMetadata metadata = reader.getMetadata();
+            if (metadata.getTimestampIndex() == -1) {
+                throw SqlException.$(baseTable.position, "base table of materialized view must have designated timestamp");
+            }
+            final ExpressionNode sampleBy = model.getMatViewSampleBy();
+            view = MatViewDefinition.newInstance(
+                    model.getName().token,
+                    baseTable.token,
+                    GenericLexer.unquote(sampleBy.token),
+                    model.getMatViewQuery(),
+                    model.getMatViewBaseTableLo(),
+                    model.getMatViewBaseTableHi(),
+                    model.isMatViewBaseTableAliased(),
+                    metadata.getColumnName(metadata.getTimestampIndex())
+            );
+        }
+
+        // the view is registered before its table is populated for the commits
+        // to the base table made in the meantime to be picked up by the refresh
+        final MatViewRegistry registry = engine.getMatViewRegistry();
+        registry.register(view);
+        TableWriter writer = null;
+        try {
+            writer = createTableFromCursor(model, executionContext);
+            path.of(configuration.getRoot()).concat(model.getName().token);
+            view.write(configuration.getFilesFacade(), path, configuration.getWriterFileOpenOpts());
+            return writer;
+        } catch (Throwable e) {
+            registry.unregister(view.getViewName());
+            if (writer != null) {
+                writer.close();
+                removeTableDirectory(model);
+            }
+            throw e;
+        }
+    }
+
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws
             SqlException {
         try (
@@ -2031,6 +2190,9 @@ public class SqlCompiler implements Closeable {
             typeCast.clear();
             final RecordMetadata metadata = factory.getMetadata();
             validateTableModelAndCreateTypeCast(model, metadata, typeCast);
+            if (model.isMatView() && metadata.getTimestampIndex() == -1) {
+                throw SqlException.$(model.getName().position, "materialized view query must select the sampled timestamp");
+            }
             engine.createTableUnsafe(
                     executionContext.getCairoSecurityContext(),
                     mem,
@@ -2117,9 +2279,21 @@ public class SqlCompiler implements Closeable {
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
         setupTextLoaderFromModel(executionModel);
         if (Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
-            return compiledQuery.ofCopyRemote(textLoader);
+            // the data arrives later, the text loader only carries the options to the receiver
+            final int format = executionModel.getFormat();
+            if (executionModel.getDelimiter() > 0) {
+                textLoader.configureColumnDelimiter(executionModel.getDelimiter());
+            } else if (format != CopyModel.FORMAT_BINARY) {
+                textLoader.configureColumnDelimiter(format == CopyModel.FORMAT_CSV ? (byte) ',' : (byte) '\t');
+            }
+            textLoader.setForceHeaders(executionModel.isHeader());
+            return compiledQuery.ofCopyRemote(textLoader, format);
+        }
+        if (PartitionBy.isPartitioned(executionModel.getPartitionBy())) {
+            copyTableParallel(executionContext, executionModel);
+        } else {
+            copyTable(executionContext, executionModel);
         }
-        copyTable(executionContext, executionModel);
         return compiledQuery.ofCopyLocal();
     }
 
@@ -2148,6 +2322,19 @@ public class SqlCompiler implements Closeable {
         return codeGenerator.generate(queryModel, executionContext);
     }
 
+    private RecordCursorFactory wrapInResultCache(RecordCursorFactory factory) {
+        if (configuration.isSqlResultCacheEnabled() && isSingleQueryMode && codeGenerator.isResultReusable()) {
+            return new QueryResultCacheRecordCursorFactory(
+                    engine,
+                    asm,
+                    factory,
+                    lexer.getContent(),
+                    codeGenerator.getScannedTableNames()
+            );
+        }
+        return factory;
+    }
+
     UpdateOperation generateUpdate(QueryModel updateQueryModel, SqlExecutionContext executionContext) throws SqlException {
         // Update QueryModel structure is
         // QueryModel with SET column expressions
@@ -2642,6 +2829,76 @@ public class SqlCompiler implements Closeable {
         throw SqlException.position(lexer.lastTokenPosition()).put("'prepare' or 'complete' expected");
     }
 
+    private void explainAnalyze(RecordCursorFactory factory, SqlExecutionContext executionContext) throws SqlException {
+        // memory counters are process wide, concurrent queries will skew the numbers
+        explainMemoryByTag.setPos(MemoryTag.SIZE);
+        for (int tag = 0; tag < MemoryTag.SIZE; tag++) {
+            explainMemoryByTag.setQuick(tag, Unsafe.getMemUsedByTag(tag));
+        }
+        final long start = configuration.getNanosecondClock().getTicks();
+        long rowCount = 0;
+        try (RecordCursor cursor = factory.getCursor(executionContext)) {
+            while (cursor.hasNext()) {
+                rowCount++;
+            }
+            // take memory snapshot before the cursor releases its resources
+            for (int tag = 0; tag < MemoryTag.SIZE; tag++) {
+                explainMemoryByTag.setQuick(tag, Unsafe.getMemUsedByTag(tag) - explainMemoryByTag.getQuick(tag));
+            }
+        }
+        final long nanos = configuration.getNanosecondClock().getTicks() - start;
+
+        planSink.of(factory);
+        explainSink.clear();
+        explainSink.put("execution [rows=").put(rowCount).put(", time=").put(nanos / 1000).put("us]");
+        planSink.line(explainSink);
+        explainSink.clear();
+        explainSink.put("memory [");
+        boolean first = true;
+        for (int tag = 0; tag < MemoryTag.SIZE; tag++) {
+            final long bytes = explainMemoryByTag.getQuick(tag);
+            if (bytes != 0) {
+                if (!first) {
+                    explainSink.put(", ");
+                }
+                explainSink.put(MemoryTag.nameOf(tag)).put('=').put(bytes);
+                first = false;
+            }
+        }
+        explainSink.put(']');
+        planSink.line(explainSink);
+    }
+
+    private CompiledQuery sqlExplain(SqlExecutionContext executionContext) throws SqlException {
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        final boolean analyze = tok != null && isAnalyzeKeyword(tok);
+        if (analyze) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok == null) {
+            throw SqlException.$(lexer.getPosition(), "query expected");
+        }
+        final int position = lexer.lastTokenPosition();
+        lexer.unparseLast();
+
+        codeGenerator.clear();
+        final ExecutionModel executionModel = compileExecutionModel(executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(position, "EXPLAIN supports only SELECT queries");
+        }
+        codeGenerator.setProfiling(analyze);
+        try (RecordCursorFactory factory = codeGenerator.generate((QueryModel) executionModel, executionContext)) {
+            if (analyze) {
+                explainAnalyze(factory, executionContext);
+            } else {
+                planSink.of(factory);
+            }
+        } finally {
+            codeGenerator.setProfiling(false);
+        }
+        return compiledQuery.of(new ExplainPlanRecordCursorFactory(planSink.getLines()));
+    }
+
     private CompiledQuery sqlShow(SqlExecutionContext executionContext) throws SqlException {
         CharSequence tok = SqlUtil.fetchNext(lexer);
         if (null != tok) {
@@ -2995,6 +3252,9 @@ public class SqlCompiler implements Closeable {
     public final static class PartitionAction {
         public static final int DROP = 1;
         public static final int ATTACH = 2;
+        public static final int CONVERT = 3;
+        public static final int MOVE_TO_COLD = 4;
+        public static final int MOVE_TO_HOT = 5;
     }
 
     private static class TableStructureAdapter implements TableStructure {
@@ -3086,6 +3346,11 @@ public class SqlCompiler implements Closeable {
             return model.getCommitLag();
         }
 
+        @Override
+        public long getTtl() {
+            return model.getTtl();
+        }
+
         TableStructureAdapter of(CreateTableModel model, RecordMetadata metadata, IntIntHashMap typeCast) {
             if (model.getTimestampIndex() != -1) {
                 timestampIndex = model.getTimestampIndex();
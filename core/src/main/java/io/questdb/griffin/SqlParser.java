@@ -30,6 +30,7 @@ import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -418,6 +419,113 @@ public final class SqlParser {
         return model;
     }
 
+    /**
+     * Parses frame clause of analytic function, e.g. "rows between 10 preceding and current row"
+     * or "range 1 hour preceding". Only preceding bounds are supported apart from "unbounded following",
+     * which is allowed when the frame spans entire partition.
+     *
+     * @return token that follows the frame clause
+     */
+    private CharSequence parseAnalyticFrame(GenericLexer lexer, AnalyticColumn col, CharSequence tok) throws SqlException {
+        final int framingMode = isRowsKeyword(tok) ? AnalyticColumn.FRAMING_ROWS : AnalyticColumn.FRAMING_RANGE;
+        final long lo;
+        final long hi;
+        final int loPos;
+        tok = tok(lexer, "'between', 'unbounded', 'current' or offset");
+        if (isBetweenKeyword(tok)) {
+            tok = tok(lexer, "'unbounded', 'current' or offset");
+            loPos = lexer.lastTokenPosition();
+            lo = parseAnalyticFrameBound(lexer, framingMode, tok);
+            expectTok(lexer, "and");
+            hi = parseAnalyticFrameBound(lexer, framingMode, tok(lexer, "'unbounded', 'current' or offset"));
+        } else {
+            loPos = lexer.lastTokenPosition();
+            lo = parseAnalyticFrameBound(lexer, framingMode, tok);
+            hi = AnalyticColumn.CURRENT_ROW;
+        }
+
+        if (lo == AnalyticColumn.UNBOUNDED_FOLLOWING) {
+            throw SqlException.$(loPos, "frame start cannot be 'unbounded following'");
+        }
+        if (hi == AnalyticColumn.UNBOUNDED_FOLLOWING && lo != AnalyticColumn.UNBOUNDED_PRECEDING) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'unbounded following' requires 'unbounded preceding' frame start");
+        }
+        if (hi == AnalyticColumn.UNBOUNDED_PRECEDING) {
+            throw SqlException.$(lexer.lastTokenPosition(), "frame end cannot be 'unbounded preceding'");
+        }
+        if (lo > hi) {
+            throw SqlException.$(loPos, "frame start cannot be after frame end");
+        }
+        col.setFrame(framingMode, lo, hi);
+        return tok(lexer, "')'");
+    }
+
+    private long parseAnalyticFrameBound(GenericLexer lexer, int framingMode, CharSequence tok) throws SqlException {
+        if (isUnboundedKeyword(tok)) {
+            tok = tok(lexer, "'preceding' or 'following'");
+            if (isPrecedingKeyword(tok)) {
+                return AnalyticColumn.UNBOUNDED_PRECEDING;
+            }
+            if (isFollowingKeyword(tok)) {
+                return AnalyticColumn.UNBOUNDED_FOLLOWING;
+            }
+            throw SqlException.$(lexer.lastTokenPosition(), "'preceding' or 'following' expected");
+        }
+
+        if (isCurrentKeyword(tok)) {
+            tok = tok(lexer, "'row'");
+            if (isRowKeyword(tok)) {
+                return AnalyticColumn.CURRENT_ROW;
+            }
+            throw SqlException.$(lexer.lastTokenPosition(), "'row' expected");
+        }
+
+        final int offsetPos = lexer.lastTokenPosition();
+        long offset;
+        try {
+            offset = Numbers.parseLong(tok);
+        } catch (NumericException e) {
+            throw SqlException.$(offsetPos, "'unbounded', 'current' or non-negative integer offset expected");
+        }
+        if (offset < 0) {
+            throw SqlException.$(offsetPos, "non-negative integer offset expected");
+        }
+
+        tok = tok(lexer, "'preceding'");
+        if (framingMode == AnalyticColumn.FRAMING_RANGE) {
+            // range offsets are in order by column units, timestamps may be given a time unit
+            long multiplier = 0;
+            if (isMicrosecondsKeyword(tok)) {
+                multiplier = 1;
+            } else if (isMillisecondsKeyword(tok)) {
+                multiplier = Timestamps.MILLI_MICROS;
+            } else if (isSecondKeyword(tok)) {
+                multiplier = Timestamps.SECOND_MICROS;
+            } else if (isMinuteKeyword(tok)) {
+                multiplier = Timestamps.MINUTE_MICROS;
+            } else if (isHourKeyword(tok)) {
+                multiplier = Timestamps.HOUR_MICROS;
+            } else if (isDayKeyword(tok)) {
+                multiplier = Timestamps.DAY_MICROS;
+            }
+            if (multiplier != 0) {
+                if (offset > Long.MAX_VALUE / multiplier) {
+                    throw SqlException.$(offsetPos, "frame offset is too large");
+                }
+                offset *= multiplier;
+                tok = tok(lexer, "'preceding'");
+            }
+        }
+
+        if (isPrecedingKeyword(tok)) {
+            return -offset;
+        }
+        if (isFollowingKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'following' frame offset is not supported");
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'preceding' expected");
+    }
+
     private QueryModel parseAsSubQueryAndExpectClosingBrace(GenericLexer lexer, LowerCaseCharSequenceObjHashMap<WithClauseModel> withClauses) throws SqlException {
         final QueryModel model = parseAsSubQuery(lexer, withClauses);
         expectTok(lexer, ')');
@@ -425,17 +533,28 @@ public final class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer) throws SqlException {
-        if (configuration.getInputRoot() == null) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
-        }
+        final int copyPosition = lexer.lastTokenPosition();
         ExpressionNode tableName = expectExpr(lexer);
         CharSequence tok = tok(lexer, "'from' or 'to'");
 
         if (isFromKeyword(tok)) {
-            final ExpressionNode fileName = expectExpr(lexer);
+            // STDIN is taken as is, an option list could follow it in parentheses
+            tok = tok(lexer, "file name");
+            final boolean stdin = isStdinKeyword(tok);
+            final ExpressionNode fileName;
+            if (stdin) {
+                fileName = nextLiteral(GenericLexer.immutableOf(tok), lexer.lastTokenPosition());
+            } else {
+                lexer.unparseLast();
+                fileName = expectExpr(lexer);
+            }
             if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
                 throw SqlException.$(fileName.position, "file name expected");
             }
+            // data sent by the client does not need a configured import root
+            if (!stdin && configuration.getInputRoot() == null) {
+                throw SqlException.$(copyPosition, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+            }
             CopyModel model = copyModelPool.next();
             model.setTableName(tableName);
             model.setFileName(fileName);
@@ -443,13 +562,62 @@ public final class SqlParser {
             tok = optTok(lexer);
             if (tok != null && isWithKeyword(tok)) {
                 tok = tok(lexer, "copy option");
-                while (tok != null) {
-                    if (isHeaderKeyword(tok)) {
-                        model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
-                        tok = optTok(lexer);
-                    } else {
-                        throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+            }
+            // PostgreSQL style option list, e.g. (FORMAT binary, HEADER true)
+            final boolean parenthesised = tok != null && Chars.equals(tok, '(');
+            if (parenthesised) {
+                tok = tok(lexer, "copy option");
+            }
+            while (tok != null && !isSemicolon(tok) && !(parenthesised && Chars.equals(tok, ')'))) {
+                if (isFormatKeyword(tok)) {
+                    tok = tok(lexer, "'text', 'csv' or 'binary'");
+                    final int format = CopyModel.formatOf(GenericLexer.unquote(tok));
+                    if (format == -1) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'text', 'csv' or 'binary' expected");
+                    }
+                    if (format == CopyModel.FORMAT_BINARY && !stdin) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "binary format is supported only for COPY FROM STDIN");
+                    }
+                    model.setFormat(format);
+                    tok = optTok(lexer);
+                } else if (isHeaderKeyword(tok)) {
+                    model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
+                    tok = optTok(lexer);
+                } else if (isPartitionKeyword(tok)) {
+                    expectTok(lexer, "by");
+                    tok = tok(lexer, "partition unit");
+                    final int partitionBy = PartitionBy.fromString(tok);
+                    if (partitionBy == -1) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+                    }
+                    model.setPartitionBy(partitionBy);
+                    tok = optTok(lexer);
+                } else if (isTimestampKeyword(tok)) {
+                    tok = tok(lexer, "timestamp column name");
+                    model.setTimestampColumnName(Chars.toString(GenericLexer.unquote(tok)));
+                    tok = optTok(lexer);
+                } else if (isDelimiterKeyword(tok)) {
+                    tok = tok(lexer, "delimiter");
+                    final CharSequence delimiter = GenericLexer.unquote(tok);
+                    if (delimiter.length() != 1 || delimiter.charAt(0) > 127) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "single ASCII character expected");
                     }
+                    model.setDelimiter((byte) delimiter.charAt(0));
+                    tok = optTok(lexer);
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+                }
+                if (parenthesised && tok != null && Chars.equals(tok, ',')) {
+                    tok = tok(lexer, "copy option");
+                }
+            }
+            if (parenthesised) {
+                if (tok == null || isSemicolon(tok)) {
+                    throw SqlException.$(lexer.getPosition(), "')' expected");
+                }
+                tok = optTok(lexer);
+                if (tok != null && !isSemicolon(tok)) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected token");
                 }
             }
             return model;
@@ -457,7 +625,88 @@ public final class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    private ExecutionModel parseCreateMatView(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CreateTableModel model = createTableModelPool.next();
+        final CharSequence viewName = tok(lexer, "view name");
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(viewName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer, null, queryLo);
+
+        // the view is refreshed by re-running its query over the recently changed
+        // interval of the base table, which is only possible for a calendar aligned
+        // sample by over a single table
+        final QueryModel nested = queryModel.getNestedModel();
+        if (queryModel.getUnionModel() != null
+                || nested == null
+                || nested.getTableName() == null
+                || nested.getTableName().type != ExpressionNode.LITERAL
+                || nested.getJoinModels().size() > 1
+                || nested.getUnionModel() != null) {
+            throw SqlException.$(queryModel.getModelPosition(), "materialized view query must select from a single table");
+        }
+        if (nested.getSampleBy() == null || nested.getSampleByUnit() != null) {
+            throw SqlException.$(queryModel.getModelPosition(), "materialized view query must have constant SAMPLE BY interval");
+        }
+        if (nested.getSampleByFill().size() > 0) {
+            throw SqlException.$(nested.getSampleByFill().getQuick(0).position, "FILL is not supported in materialized views");
+        }
+        if (nested.getSampleByOffset() == null) {
+            throw SqlException.$(nested.getSampleBy().position, "materialized view query must be aligned to calendar");
+        }
+        if (nested.getSampleByTimezoneName() != null || !Chars.equals(GenericLexer.unquote(nested.getSampleByOffset().token), "00:00")) {
+            throw SqlException.$(nested.getSampleByOffset().position, "time zone and offset are not supported in materialized views");
+        }
+
+        final ExpressionNode baseTable = nested.getTableName();
+        final CharSequence content = lexer.getContent();
+        // table name token is unquoted, we need its extent in the query text
+        final char quote = content.charAt(baseTable.position);
+        final int baseTableHi = quote == '\'' || quote == '"'
+                ? Chars.indexOf(content, baseTable.position + 1, quote) + 1
+                : baseTable.position + baseTable.token.length();
+        model.setMatViewBaseTable(nextLiteral(baseTable.token, baseTable.position));
+        model.setMatViewBaseTableLo(baseTable.position - queryLo);
+        model.setMatViewBaseTableHi(baseTableHi - queryLo);
+        model.setMatViewBaseTableAliased(nested.getAlias() != null);
+        model.setMatViewSampleBy(nested.getSampleBy());
+
+        final QueryModel optimisedModel = optimiser.optimise(queryModel, executionContext);
+        final ObjList<QueryColumn> columns = optimisedModel.getBottomUpColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity(), configuration.getRandom().nextLong());
+        }
+        model.setQueryModel(optimisedModel);
+        expectTok(lexer, ')');
+        model.setMatViewQuery(content.subSequence(queryLo, lexer.lastTokenPosition()));
+
+        CharSequence tok = optTok(lexer);
+        final ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            if (PartitionBy.fromString(partitionBy.token) == -1) {
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+            model.setPartitionBy(partitionBy);
+            tok = optTok(lexer);
+        }
+
+        model.setMaxUncommittedRows(configuration.getMaxUncommittedRows());
+        model.setCommitLag(configuration.getCommitLag());
+
+        if (tok == null || Chars.equals(tok, ';')) {
+            return model;
+        }
+        throw errUnexpected(lexer, tok);
+    }
+
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        if (isMaterializedKeyword(tok(lexer, "'table' or 'materialized'"))) {
+            expectTok(lexer, "view");
+            return parseCreateMatView(lexer, executionContext);
+        }
+        lexer.unparseLast();
         expectTok(lexer, "table");
         return parseCreateTable(lexer, executionContext);
     }
@@ -515,6 +764,7 @@ public final class SqlParser {
 
         int maxUncommittedRows = configuration.getMaxUncommittedRows();
         long commitLag = configuration.getCommitLag();
+        long ttl = 0;
 
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
@@ -538,6 +788,11 @@ public final class SqlParser {
                             }
                         } else if (isCommitLag(expr.lhs.token)) {
                             commitLag = SqlUtil.expectMicros(expr.rhs.token, lexer.getPosition());
+                        } else if (isTtlParam(expr.lhs.token)) {
+                            if (PartitionBy.fromString(partitionBy.token) == PartitionBy.NONE) {
+                                throw SqlException.position(expr.lhs.position).put("ttl requires a partitioned table");
+                            }
+                            ttl = SqlUtil.expectMicros(expr.rhs.token, lexer.getPosition());
                         } else {
                             throw SqlException.position(lexer.getPosition()).put(" unrecognized ").put(expr.lhs.token).put(" after WITH");
                         }
@@ -554,6 +809,7 @@ public final class SqlParser {
 
         model.setMaxUncommittedRows(maxUncommittedRows);
         model.setCommitLag(commitLag);
+        model.setTtl(ttl);
 
         if (tok == null || Chars.equals(tok, ';')) {
             return model;
@@ -1569,6 +1825,10 @@ public final class SqlParser {
                         }
                     } while (Chars.equals(tok, ','));
                 }
+
+                if (isRowsKeyword(tok) || isRangeKeyword(tok)) {
+                    tok = parseAnalyticFrame(lexer, (AnalyticColumn) col, tok);
+                }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 tok = optTok(lexer);
 
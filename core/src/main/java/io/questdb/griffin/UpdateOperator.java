@@ -169,6 +169,20 @@ public class UpdateOperator extends PurgingOperator implements QuietClosable {
                             rebuildIndexes(tableWriter.getPartitionTimestamp(partitionIndex), tableName, writerMetadata, tableWriter);
                         }
 
+                        // columns are copied from raw column files
+                        if (tableWriter.isPartitionParquet(rowPartitionIndex)) {
+                            throw CairoException.instance(0)
+                                    .put("cannot update parquet partition [table=").put(tableName)
+                                    .put(", partition=").ts(tableWriter.getPartitionTimestamp(rowPartitionIndex))
+                                    .put(']');
+                        }
+                        if (tableWriter.isPartitionCold(rowPartitionIndex)) {
+                            throw CairoException.instance(0)
+                                    .put("cannot update partition in cold storage [table=").put(tableName)
+                                    .put(", partition=").ts(tableWriter.getPartitionTimestamp(rowPartitionIndex))
+                                    .put(']');
+                        }
+                        tableWriter.decompressPartition(rowPartitionIndex);
                         openColumns(srcColumns, rowPartitionIndex, false);
                         openColumns(dstColumns, rowPartitionIndex, true);
 
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.ObjList;
+
+/**
+ * Result of EXPLAIN and EXPLAIN ANALYZE, single string column with one line of the plan per row.
+ */
+public class ExplainPlanRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final RecordMetadata METADATA;
+    private final ExplainPlanRecordCursor cursor = new ExplainPlanRecordCursor();
+    private final ObjList<String> lines = new ObjList<>();
+
+    public ExplainPlanRecordCursorFactory(ObjList<String> lines) {
+        super(METADATA);
+        this.lines.addAll(lines);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private class ExplainPlanRecordCursor implements RecordCursor {
+        private final ExplainPlanRecord record = new ExplainPlanRecord();
+        private final ExplainPlanRecord recordB = new ExplainPlanRecord();
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (record.row < lines.size() - 1) {
+                record.row++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((ExplainPlanRecord) record).row = (int) atRowId;
+        }
+
+        @Override
+        public long size() {
+            return lines.size();
+        }
+
+        @Override
+        public void toTop() {
+            record.row = -1;
+        }
+    }
+
+    private class ExplainPlanRecord implements Record {
+        private int row;
+
+        @Override
+        public long getRowId() {
+            return row;
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return lines.getQuick(row);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return getStr(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return lines.getQuick(row).length();
+        }
+    }
+
+    static {
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        metadata.add(new TableColumnMetadata("QUERY PLAN", 1, ColumnType.STRING));
+        METADATA = metadata;
+    }
+}
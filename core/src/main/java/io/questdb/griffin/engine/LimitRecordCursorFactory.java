@@ -47,6 +47,12 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         return cursor;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.NanosecondClock;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Transparent wrapper used by EXPLAIN ANALYZE. It delegates everything to the wrapped factory
+ * and counts what the parent pulls out of it: cursors opened, rows returned by the record cursor,
+ * page frames and their rows returned by the page frame cursor, as well as wall time spent
+ * opening cursors and fetching rows. Times include the time spent in the child factories.
+ */
+public class ProfiledRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final NanosecondClock clock;
+    private final ProfiledRecordCursor cursor = new ProfiledRecordCursor();
+    private final ProfiledPageFrameCursor pageFrameCursor = new ProfiledPageFrameCursor();
+    private long cursorCount;
+    private long rowCount;
+    private long frameCount;
+    private long frameRowCount;
+    private long nanos;
+    private boolean usingIndex;
+
+    public ProfiledRecordCursorFactory(RecordCursorFactory base, NanosecondClock clock) {
+        super(base.getMetadata());
+        this.base = base;
+        this.clock = clock;
+    }
+
+    /**
+     * Factories that fuse with particular child factory types have to look through the wrapper.
+     *
+     * @param factory factory that might be wrapped for profiling
+     * @return the wrapped factory or the argument itself
+     */
+    public static RecordCursorFactory unwrap(RecordCursorFactory factory) {
+        return factory instanceof ProfiledRecordCursorFactory ? ((ProfiledRecordCursorFactory) factory).base : factory;
+    }
+
+    @Override
+    public SingleSymbolFilter convertToSampleByIndexDataFrameCursorFactory() {
+        return base.convertToSampleByIndexDataFrameCursorFactory();
+    }
+
+    @Override
+    public boolean followedLimitAdvice() {
+        return base.followedLimitAdvice();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public boolean fragmentedSymbolTables() {
+        return base.fragmentedSymbolTables();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final long start = clock.getTicks();
+        try {
+            final RecordCursor baseCursor = base.getCursor(executionContext);
+            cursorCount++;
+            usingIndex |= baseCursor.isUsingIndex();
+            cursor.of(baseCursor);
+            return cursor;
+        } finally {
+            nanos += clock.getTicks() - start;
+        }
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        final PageFrameCursor baseCursor = base.getPageFrameCursor(executionContext, order);
+        if (baseCursor == null) {
+            return null;
+        }
+        pageFrameCursor.of(baseCursor);
+        return pageFrameCursor;
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return base.hasDescendingOrder();
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return base.implementsLimit();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(CharSequence tableName) {
+        return base.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        base.toPlan(sink);
+        if (cursorCount == 0 && frameCount == 0) {
+            sink.attr("executed").val(false);
+            return;
+        }
+        if (cursorCount > 0) {
+            sink.attr("cursors").val(cursorCount);
+            sink.attr("rows").val(rowCount);
+            sink.attr("time").val(nanos / 1000).val("us");
+        }
+        if (frameCount > 0) {
+            // parent reads page frames directly, e.g. to process them in parallel
+            sink.attr("pageFrames").val(frameCount);
+            sink.attr("pageFrameRows").val(frameRowCount);
+        }
+        if (usingIndex) {
+            sink.attr("index").val(true);
+        }
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        base.toSink(sink);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+    }
+
+    private class ProfiledPageFrameCursor implements PageFrameCursor {
+        private PageFrameCursor base;
+
+        @Override
+        public void close() {
+            base = Misc.free(base);
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public long getUpdateRowId(long rowIndex) {
+            return base.getUpdateRowId(rowIndex);
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return base.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public @Nullable PageFrame next() {
+            final PageFrame frame = base.next();
+            if (frame != null) {
+                frameCount++;
+                frameRowCount += frame.getPartitionHi() - frame.getPartitionLo();
+            }
+            return frame;
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+        }
+
+        private void of(PageFrameCursor base) {
+            this.base = base;
+        }
+    }
+
+    private class ProfiledRecordCursor implements RecordCursor {
+        private RecordCursor base;
+
+        @Override
+        public void close() {
+            base = Misc.free(base);
+        }
+
+        @Override
+        public Record getRecord() {
+            return base.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return base.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            final long start = clock.getTicks();
+            try {
+                if (base.hasNext()) {
+                    rowCount++;
+                    return true;
+                }
+                return false;
+            } finally {
+                nanos += clock.getTicks() - start;
+            }
+        }
+
+        @Override
+        public boolean isUsingIndex() {
+            return base.isUsingIndex();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return base.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            base.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void skipTo(long rowCount) {
+            base.skipTo(rowCount);
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+        }
+
+        private void of(RecordCursor base) {
+            this.base = base;
+        }
+    }
+}
@@ -38,4 +38,19 @@ public interface AnalyticContext {
     boolean isOrdered();
 
     boolean baseSupportsRandomAccess();
+
+    /**
+     * @return either {@link io.questdb.griffin.model.AnalyticColumn#FRAMING_ROWS} or
+     * {@link io.questdb.griffin.model.AnalyticColumn#FRAMING_RANGE}, default framing is resolved by the code generator
+     */
+    int getFramingMode();
+
+    long getFrameLo();
+
+    long getFrameHi();
+
+    /**
+     * @return index of LONG or TIMESTAMP order by column that frame bounds of RANGE framing apply to, -1 for ROWS
+     */
+    int getRangeColumnIndex();
 }
@@ -34,11 +34,28 @@ public interface AnalyticFunction extends Function {
     int TWO_PASS = 2;
     int THREE_PASS = 3;
 
+    /**
+     * Computes function value for the next record of the base cursor. Called by streaming factory,
+     * which evaluates functions in the order of the base cursor without caching the records.
+     * Value is then read via regular getters of the function.
+     *
+     * @param record current record of the base cursor
+     */
+    void computeNext(Record record);
+
+    /**
+     * @return {@link #STREAM} when function value of a record depends only on the current and
+     * preceding records, otherwise number of passes over cached records function requires
+     */
+    default int getPassCount() {
+        return STREAM;
+    }
+
     void pass1(Record record, long recordOffset, AnalyticSPI spi);
 
     void preparePass2(RecordCursor cursor);
 
-    void pass2(Record record);
+    void pass2(Record record, long recordOffset, AnalyticSPI spi);
 
     void reset();
 
@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.analytic;
 
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -127,6 +128,12 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
         return cursor;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
@@ -213,12 +220,24 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
                 }
             }
 
+            // run pass2 for functions that need to see all records of the partition first
+            for (int j = 0, n = allFunctions.size(); j < n; j++) {
+                final AnalyticFunction f = allFunctions.getQuick(j);
+                if (f.getPassCount() > AnalyticFunction.STREAM) {
+                    f.preparePass2(recordChain);
+                    recordChain.toTop();
+                    while (recordChain.hasNext()) {
+                        f.pass2(chainRecord, chainRecord.getRowId(), recordChain);
+                    }
+                }
+            }
+
             recordChain.toTop();
         }
 
         @Override
         public void close() {
-            base.close();
+            base = Misc.free(base);
         }
 
         @Override
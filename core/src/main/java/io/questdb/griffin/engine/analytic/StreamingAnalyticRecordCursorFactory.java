@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Evaluates analytic functions in a single pass over the base cursor, without caching records. Applicable when
+ * all analytic functions process records in base cursor order, i.e. their order by clause is either
+ * absent or matches the order of the base cursor, and value of each record depends only on the record itself
+ * and the records before it, see {@link AnalyticFunction#getPassCount()}.
+ */
+public class StreamingAnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<Function> functions;
+    private final ObjList<AnalyticFunction> analyticFunctions;
+    private final StreamingAnalyticRecordCursor cursor;
+
+    public StreamingAnalyticRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ObjList<Function> functions,
+            ObjList<AnalyticFunction> analyticFunctions
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = functions;
+        this.analyticFunctions = analyticFunctions;
+        this.cursor = new StreamingAnalyticRecordCursor(functions);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            Function.init(functions, baseCursor, executionContext);
+            resetFunctions();
+            cursor.of(baseCursor);
+            return cursor;
+        } catch (Throwable th) {
+            baseCursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return base.hasDescendingOrder();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(functions);
+        Misc.free(base);
+    }
+
+    private void resetFunctions() {
+        for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+            analyticFunctions.getQuick(i).reset();
+        }
+    }
+
+    private class StreamingAnalyticRecordCursor extends AbstractVirtualFunctionRecordCursor {
+
+        public StreamingAnalyticRecordCursor(ObjList<Function> functions) {
+            super(functions, false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                final Record record = baseCursor.getRecord();
+                for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                    analyticFunctions.getQuick(i).computeNext(record);
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.RecordChain;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Keeps results of SELECT queries in native memory, so that repeated queries, such as dashboard panels
+ * refreshing every few seconds, do not scan the same data over and over again. The cache is shared by all
+ * connections, HTTP and PostgreSQL wire protocol alike.
+ * <p>
+ * Entries are keyed on query text and values of bind variables. Entry also remembers id and transaction
+ * of every table the query reads from and it is discarded on lookup once any of these tables commits.
+ * Total size of the entries is bounded by {@link CairoConfiguration#getSqlResultCacheSize()}, least recently
+ * used entries are evicted first.
+ * <p>
+ * Entry is leased to one cursor at a time, concurrent executions of the same query bypass the cache.
+ */
+public class QueryResultCache implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(QueryResultCache.class);
+    private final CairoConfiguration configuration;
+    private final QueryResultCacheMetrics metrics;
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private long memoryUsed;
+    private long clock;
+
+    public QueryResultCache(CairoConfiguration configuration, QueryResultCacheMetrics metrics) {
+        this.configuration = configuration;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized void clear() {
+        final ObjList<CharSequence> keys = entries.keys();
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            release0(entries.get(keys.getQuick(i)));
+        }
+        entries.clear();
+        LOG.info().$("cleared").$();
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        final ObjList<CharSequence> keys = entries.keys();
+        Entry candidate = null;
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            final Entry entry = entries.get(keys.getQuick(i));
+            if (!entry.leased && (candidate == null || entry.lastUsed < candidate.lastUsed)) {
+                candidate = entry;
+            }
+        }
+        if (candidate != null) {
+            entries.remove(candidate.key);
+            release0(candidate);
+            metrics.incrementEvictions();
+            return true;
+        }
+        return false;
+    }
+
+    private void release0(Entry entry) {
+        memoryUsed -= entry.size;
+        metrics.decrementEntries();
+        entry.evicted = true;
+        if (!entry.leased) {
+            Misc.free(entry.chain);
+        }
+    }
+
+    /**
+     * Looks up result of the query. Entry is found only when it was produced from the same table
+     * transactions and is not in use by another cursor. Found entry has to be released once the
+     * cursor is done with it.
+     *
+     * @param key       query text and bind variable values
+     * @param tableTxns (table id, transaction) pairs of the tables the query reads from
+     * @return leased entry or null when result has to be computed
+     */
+    synchronized Entry lease(CharSequence key, LongList tableTxns) {
+        final int index = entries.keyIndex(key);
+        if (index < 0) {
+            final Entry entry = entries.valueAtQuick(index);
+            if (!entry.tableTxns.equals(tableTxns)) {
+                // table has been written to since the result was cached
+                entries.removeAt(index);
+                release0(entry);
+                metrics.incrementEvictions();
+            } else if (!entry.leased) {
+                entry.leased = true;
+                entry.lastUsed = ++clock;
+                metrics.incrementHits();
+                return entry;
+            }
+        }
+        metrics.incrementMisses();
+        return null;
+    }
+
+    /**
+     * Adds computed result to the cache and leases it to the caller. Result that does not fit the cache
+     * even after eviction of all inactive entries, or whose key is in use by another cursor, is leased
+     * without being cached. Memory of such result is released along with the lease.
+     *
+     * @param key       query text and bind variable values
+     * @param tableTxns (table id, transaction) pairs of the tables the query reads from, the list is copied
+     * @param chain     result rows, the cache takes ownership of the chain
+     * @param rowCount  number of rows in the chain
+     * @return leased entry
+     */
+    synchronized Entry put(CharSequence key, LongList tableTxns, RecordChain chain, long rowCount) {
+        final Entry entry = new Entry(Chars.toString(key), tableTxns, chain, rowCount);
+        entry.leased = true;
+        entry.lastUsed = ++clock;
+
+        final int index = entries.keyIndex(key);
+        if (index < 0) {
+            final Entry existing = entries.valueAtQuick(index);
+            if (existing.leased) {
+                entry.evicted = true;
+                return entry;
+            }
+            entries.removeAt(index);
+            release0(existing);
+        }
+
+        final long capacity = configuration.getSqlResultCacheSize();
+        while (memoryUsed + entry.size > capacity) {
+            if (!evictLeastRecentlyUsed()) {
+                entry.evicted = true;
+                return entry;
+            }
+        }
+        entries.put(entry.key, entry);
+        memoryUsed += entry.size;
+        metrics.incrementEntries();
+        return entry;
+    }
+
+    synchronized void release(Entry entry) {
+        entry.leased = false;
+        if (entry.evicted) {
+            Misc.free(entry.chain);
+        }
+    }
+
+    static class Entry {
+        private final String key;
+        private final LongList tableTxns;
+        private final RecordChain chain;
+        private final long rowCount;
+        private final long size;
+        private boolean leased;
+        private boolean evicted;
+        private long lastUsed;
+
+        private Entry(String key, LongList tableTxns, RecordChain chain, long rowCount) {
+            this.key = key;
+            this.tableTxns = new LongList(tableTxns);
+            this.chain = chain;
+            this.rowCount = rowCount;
+            this.size = chain.getMemorySize();
+        }
+
+        RecordChain getChain() {
+            return chain;
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Serves the result of the base factory from {@link QueryResultCache}. On cache miss the base cursor is
+ * copied into a {@link RecordChain}, which is then handed over to the cache. Results that exceed
+ * {@link CairoConfiguration#getSqlResultCacheMaxEntrySize()} are not cached, base cursor is returned instead.
+ * <p>
+ * Symbol values are kept as strings, cached result does not depend on the symbol tables of the base cursor.
+ */
+public class QueryResultCacheRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final CairoEngine engine;
+    private final QueryResultCache cache;
+    private final RecordCursorFactory base;
+    private final String query;
+    private final ObjList<String> tableNames;
+    private final ArrayColumnTypes chainColumnTypes = new ArrayColumnTypes();
+    private final RecordSink recordSink;
+    private final long pageSize;
+    private final int maxPages;
+    private final StringSink keySink = new StringSink();
+    private final LongList tableTxns = new LongList();
+    private final QueryResultCacheRecordCursor cursor;
+
+    public QueryResultCacheRecordCursorFactory(
+            CairoEngine engine,
+            BytecodeAssembler asm,
+            RecordCursorFactory base,
+            CharSequence query,
+            ObjList<String> tableNames
+    ) {
+        super(base.getMetadata());
+        this.engine = engine;
+        this.cache = engine.getQueryResultCache();
+        this.base = base;
+        this.query = Chars.toString(query);
+        this.tableNames = new ObjList<>(tableNames);
+
+        final RecordMetadata metadata = base.getMetadata();
+        final EntityColumnFilter columnFilter = new EntityColumnFilter();
+        columnFilter.of(metadata.getColumnCount());
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            chainColumnTypes.add(ColumnType.isSymbol(columnType) ? ColumnType.STRING : columnType);
+        }
+        this.recordSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, true);
+
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.pageSize = Math.min(configuration.getSqlResultCachePageSize(), Numbers.ceilPow2(configuration.getSqlResultCacheMaxEntrySize()));
+        this.maxPages = (int) Math.max(1, configuration.getSqlResultCacheMaxEntrySize() / pageSize);
+        this.cursor = new QueryResultCacheRecordCursor(cache);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        if (!buildKey(executionContext.getBindVariableService()) || !readTableTxns(executionContext)) {
+            return base.getCursor(executionContext);
+        }
+
+        QueryResultCache.Entry entry = cache.lease(keySink, tableTxns);
+        if (entry != null) {
+            cursor.of(entry);
+            return cursor;
+        }
+
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        final RecordChain chain = new RecordChain(chainColumnTypes, recordSink, pageSize, maxPages);
+        long rowCount = 0;
+        try {
+            final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+            final Record record = baseCursor.getRecord();
+            long offset = -1;
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                offset = chain.put(record, offset);
+                rowCount++;
+            }
+        } catch (LimitOverflowException e) {
+            // result is too large to be cached
+            chain.close();
+            baseCursor.toTop();
+            return baseCursor;
+        } catch (Throwable e) {
+            chain.close();
+            baseCursor.close();
+            throw e;
+        }
+        baseCursor.close();
+
+        entry = cache.put(keySink, tableTxns, chain, rowCount);
+        cursor.of(entry);
+        return cursor;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(base);
+    }
+
+    private static boolean putValue(CharSink sink, Function function) {
+        final int type = function.getType();
+        sink.put(type).put(':');
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+                sink.put(function.getBool(null));
+                break;
+            case ColumnType.BYTE:
+                sink.put(function.getByte(null));
+                break;
+            case ColumnType.SHORT:
+                sink.put(function.getShort(null));
+                break;
+            case ColumnType.CHAR:
+                sink.put(function.getChar(null));
+                break;
+            case ColumnType.INT:
+                sink.put(function.getInt(null));
+                break;
+            case ColumnType.LONG:
+                sink.put(function.getLong(null));
+                break;
+            case ColumnType.DATE:
+                sink.put(function.getDate(null));
+                break;
+            case ColumnType.TIMESTAMP:
+                sink.put(function.getTimestamp(null));
+                break;
+            case ColumnType.FLOAT:
+                sink.put(Float.floatToRawIntBits(function.getFloat(null)));
+                break;
+            case ColumnType.DOUBLE:
+                sink.put(Double.doubleToRawLongBits(function.getDouble(null)));
+                break;
+            case ColumnType.STRING:
+                final CharSequence value = function.getStr(null);
+                if (value == null) {
+                    sink.put(TableUtils.NULL_LEN);
+                } else {
+                    sink.put(value.length()).put(':').put(value);
+                }
+                break;
+            case ColumnType.LONG256:
+                function.getLong256(null, sink);
+                break;
+            case ColumnType.GEOBYTE:
+                sink.put(function.getGeoByte(null));
+                break;
+            case ColumnType.GEOSHORT:
+                sink.put(function.getGeoShort(null));
+                break;
+            case ColumnType.GEOINT:
+                sink.put(function.getGeoInt(null));
+                break;
+            case ColumnType.GEOLONG:
+                sink.put(function.getGeoLong(null));
+                break;
+            default:
+                // binary and undefined values are not cached
+                return false;
+        }
+        sink.put(';');
+        return true;
+    }
+
+    private boolean buildKey(BindVariableService bindVariableService) {
+        keySink.clear();
+        keySink.put(query).put('\u0000');
+        if (bindVariableService != null) {
+            for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
+                final Function function = bindVariableService.getFunction(i);
+                if (function == null || !putValue(keySink, function)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean readTableTxns(SqlExecutionContext executionContext) {
+        tableTxns.clear();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableNames.getQuick(i))) {
+                tableTxns.add((long) reader.getMetadata().getId(), reader.getTxn());
+            } catch (CairoException e) {
+                // table is being dropped or reader pool is exhausted, let base factory deal with that
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class QueryResultCacheRecordCursor implements RecordCursor {
+        private final QueryResultCache cache;
+        private final SymbolAsStringRecord recordA = new SymbolAsStringRecord();
+        private final SymbolAsStringRecord recordB = new SymbolAsStringRecord();
+        private QueryResultCache.Entry entry;
+        private RecordChain chain;
+
+        private QueryResultCacheRecordCursor(QueryResultCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                cache.release(entry);
+                entry = null;
+                chain = null;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return chain.hasNext();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            chain.recordAt(((SymbolAsStringRecord) record).getBase(), atRowId);
+        }
+
+        @Override
+        public long size() {
+            return entry.getRowCount();
+        }
+
+        @Override
+        public void toTop() {
+            chain.toTop();
+        }
+
+        private void of(QueryResultCache.Entry entry) {
+            this.entry = entry;
+            this.chain = entry.getChain();
+            recordA.of(chain.getRecord());
+            recordB.of(chain.getRecordB());
+            chain.toTop();
+        }
+    }
+
+    private static class SymbolAsStringRecord extends DelegatingRecord {
+        private Record getBase() {
+            return base;
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return base.getStrB(col);
+        }
+    }
+}
@@ -47,12 +47,69 @@ public interface GroupByFunction extends Function {
 
     void computeFirst(MapValue mapValue, Record record);
 
+    /**
+     * Parallel GROUP BY variant of {@link #computeFirst(MapValue, Record)}. Row ids grow
+     * in the scan order, so order-sensitive functions, such as first() and last(), can
+     * use them to reconcile partial results computed by different workers.
+     *
+     * @param mapValue map value to compute aggregate in
+     * @param record   current record
+     * @param rowId    row id of the current record
+     */
+    default void computeFirst(MapValue mapValue, Record record, long rowId) {
+        computeFirst(mapValue, record);
+    }
+
     void computeNext(MapValue mapValue, Record record);
 
+    /**
+     * Parallel GROUP BY variant of {@link #computeNext(MapValue, Record)}.
+     *
+     * @param mapValue map value to compute aggregate in
+     * @param record   current record
+     * @param rowId    row id of the current record
+     */
+    default void computeNext(MapValue mapValue, Record record, long rowId) {
+        computeNext(mapValue, record);
+    }
+
+    /**
+     * Returns true when partial results computed by per-worker copies of this
+     * function can be merged via {@link #mergeFirst} and {@link #mergeNext}.
+     */
+    default boolean isParallelismSupported() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    /**
+     * Called when parallel GROUP BY merges a key that is new to the destination map.
+     * The value block of destValue is a verbatim copy of srcValue at this point, so
+     * only functions that keep aggregate state outside of the map value, e.g. in
+     * per-function hash sets, have to do anything here.
+     *
+     * @param destValue   value owned by this function
+     * @param srcValue    partial value computed by srcFunction
+     * @param srcFunction per-worker copy of this function
+     */
+    default void mergeFirst(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+    }
+
+    /**
+     * Merges partial aggregate computed by srcFunction, a per-worker copy of this function,
+     * into the existing destValue.
+     *
+     * @param destValue   value owned by this function
+     * @param srcValue    partial value computed by srcFunction
+     * @param srcFunction per-worker copy of this function
+     */
+    default void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Base of analytic functions over a double argument. Keeps per-partition state in a map and ring buffers
+ * of all partitions in a single native memory block. Ring buffer entries are pairs of long order key and
+ * double value, ring buffers are addressed by offset because the memory block may move as it grows.
+ */
+abstract class AbstractDoubleAnalyticFunction extends DoubleFunction implements ScalarFunction, AnalyticFunction, Closeable {
+    protected static final int ENTRY_SIZE = 16;
+    private static final SingleColumnType NO_PARTITION_KEY_TYPE = new SingleColumnType(ColumnType.LONG);
+    protected final Function arg;
+    protected final Map map;
+    protected final MemoryCARW memory;
+    @Nullable
+    private final VirtualRecord partitionByRecord;
+    @Nullable
+    private final RecordSink partitionBySink;
+    protected int columnIndex;
+    protected double value;
+
+    protected AbstractDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            ArrayColumnTypes valueTypes
+    ) {
+        this.arg = arg;
+        this.partitionByRecord = analyticContext.getPartitionByRecord();
+        this.partitionBySink = analyticContext.getPartitionBySink();
+        final ColumnTypes keyTypes = partitionByRecord != null ? analyticContext.getPartitionByKeyTypes() : NO_PARTITION_KEY_TYPE;
+        this.map = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.memory = Vm.getCARWInstance(
+                configuration.getSqlAnalyticStorePageSize(),
+                configuration.getSqlAnalyticStoreMaxPages(),
+                MemoryTag.NATIVE_DEFAULT
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(memory);
+        Misc.free(arg);
+        if (partitionByRecord != null) {
+            Misc.freeObjList(partitionByRecord.getFunctions());
+        }
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        arg.init(symbolTableSource, executionContext);
+        if (partitionByRecord != null) {
+            Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+        }
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        computeNext(record);
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+    }
+
+    @Override
+    public void reset() {
+        map.clear();
+        memory.jumpTo(0);
+        value = Double.NaN;
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public void toTop() {
+        reset();
+    }
+
+    protected long allocateRing(long capacity) {
+        final long offset = memory.getAppendOffset();
+        memory.appendAddressFor(capacity * ENTRY_SIZE);
+        return offset;
+    }
+
+    protected MapValue findPartition(Record record) {
+        return partitionKey(record).findValue();
+    }
+
+    protected MapValue partition(Record record) {
+        return partitionKey(record).createValue();
+    }
+
+    private MapKey partitionKey(Record record) {
+        final MapKey key = map.withKey();
+        if (partitionByRecord != null) {
+            partitionByRecord.of(record);
+            key.put(partitionByRecord, partitionBySink);
+        } else {
+            key.putLong(0);
+        }
+        return key;
+    }
+}
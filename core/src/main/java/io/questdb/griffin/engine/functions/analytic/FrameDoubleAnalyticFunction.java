@@ -0,0 +1,318 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Aggregate of double values over a frame of the partition, e.g.
+ * <code>avg(price) over (partition by sym order by ts rows between 9 preceding and current row)</code>.
+ * <p>
+ * Frame bounds are offsets from the order key of the current row: row number within the partition
+ * for ROWS framing and value of the order by column for RANGE framing. Rows must arrive in ascending
+ * order key, which is why frames can only reach back. Each partition keeps a ring buffer of rows that
+ * may still be part of a frame: rows that have not entered the frame yet, when frame ends before
+ * the current row, and rows that have not left the frame yet, when frame start is bounded. Sum and count
+ * are maintained incrementally, min and max of frames with bounded start are found by scanning the frame.
+ * <p>
+ * Frame that spans entire partition cannot be streamed, the function accumulates the partition in the
+ * first pass over cached records and writes the result in the second pass.
+ */
+public class FrameDoubleAnalyticFunction extends AbstractDoubleAnalyticFunction {
+    public static final int KIND_SUM = 0;
+    public static final int KIND_AVG = 1;
+    public static final int KIND_MIN = 2;
+    public static final int KIND_MAX = 3;
+    public static final int KIND_FIRST_VALUE = 4;
+    public static final int KIND_LAST_VALUE = 5;
+    private static final int INITIAL_CAPACITY = 16;
+    // partition state
+    private static final int RING_OFFSET = 0;
+    private static final int RING_CAPACITY = 1;
+    private static final int RING_HEAD = 2;
+    private static final int RING_SIZE = 3;
+    // number of ring entries, counting from the head, that are in the frame
+    private static final int RING_FRAME_SIZE = 4;
+    // order key of ROWS framing
+    private static final int ROW_INDEX = 5;
+    // number of rows that ever entered the frame
+    private static final int ENTERED = 6;
+    // number of non-null values in the frame
+    private static final int COUNT = 7;
+    private static final int SUM = 8;
+    // min or max of the frame with unbounded start
+    private static final int EXTREMUM = 9;
+    private static final int FIRST = 10;
+    private static final int LAST = 11;
+    private static final ArrayColumnTypes VALUE_TYPES = new ArrayColumnTypes();
+    private final int kind;
+    private final long frameLo;
+    private final long frameHi;
+    private final int rangeColumnIndex;
+    private final boolean wholePartition;
+
+    public FrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            int kind
+    ) {
+        super(configuration, analyticContext, arg, VALUE_TYPES);
+        this.kind = kind;
+        this.frameLo = analyticContext.getFrameLo();
+        this.frameHi = analyticContext.getFrameHi();
+        this.rangeColumnIndex = analyticContext.getRangeColumnIndex();
+        this.wholePartition = frameHi == AnalyticColumn.UNBOUNDED_FOLLOWING;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        value = result(accumulate(record));
+    }
+
+    @Override
+    public int getPassCount() {
+        return wholePartition ? TWO_PASS : STREAM;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (wholePartition) {
+            accumulate(record);
+        } else {
+            super.pass1(record, recordOffset, spi);
+        }
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+        final MapValue state = findPartition(record);
+        Unsafe.getUnsafe().putDouble(
+                spi.getAddress(recordOffset, columnIndex),
+                state != null ? result(state) : Double.NaN
+        );
+    }
+
+    // ring capacity is always a power of 2
+    private static long keyAddress(long ringAddress, long capacity, long head, long index) {
+        return ringAddress + ((head + index) & (capacity - 1)) * ENTRY_SIZE;
+    }
+
+    private static long saturatedAdd(long key, long offset) {
+        // offsets are never positive apart from unbounded following
+        if (offset == AnalyticColumn.UNBOUNDED_FOLLOWING) {
+            return Long.MAX_VALUE;
+        }
+        return key < Long.MIN_VALUE - offset ? Long.MIN_VALUE : key + offset;
+    }
+
+    private MapValue accumulate(Record record) {
+        final MapValue state = partition(record);
+        if (state.isNew()) {
+            state.putLong(RING_OFFSET, allocateRing(INITIAL_CAPACITY));
+            state.putLong(RING_CAPACITY, INITIAL_CAPACITY);
+            state.putLong(RING_HEAD, 0);
+            state.putLong(RING_SIZE, 0);
+            state.putLong(RING_FRAME_SIZE, 0);
+            state.putLong(ROW_INDEX, 0);
+            state.putLong(ENTERED, 0);
+            state.putLong(COUNT, 0);
+            state.putDouble(SUM, 0);
+            state.putDouble(EXTREMUM, Double.NaN);
+            state.putDouble(FIRST, Double.NaN);
+            state.putDouble(LAST, Double.NaN);
+        }
+
+        final long key;
+        if (rangeColumnIndex == -1) {
+            key = state.getLong(ROW_INDEX);
+            state.putLong(ROW_INDEX, key + 1);
+        } else {
+            key = record.getLong(rangeColumnIndex);
+        }
+        final double d = arg.getDouble(record);
+
+        // append current row to the ring
+        long capacity = state.getLong(RING_CAPACITY);
+        long head = state.getLong(RING_HEAD);
+        long size = state.getLong(RING_SIZE);
+        if (size == capacity) {
+            final long newCapacity = capacity * 2;
+            final long newOffset = allocateRing(newCapacity);
+            final long oldAddress = memory.addressOf(state.getLong(RING_OFFSET));
+            final long newAddress = memory.addressOf(newOffset);
+            // unwrap the ring into the new memory
+            final long headBytes = (capacity - head) * ENTRY_SIZE;
+            Vect.memcpy(newAddress, oldAddress + head * ENTRY_SIZE, headBytes);
+            Vect.memcpy(newAddress + headBytes, oldAddress, head * ENTRY_SIZE);
+            state.putLong(RING_OFFSET, newOffset);
+            state.putLong(RING_CAPACITY, newCapacity);
+            state.putLong(RING_HEAD, 0);
+            capacity = newCapacity;
+            head = 0;
+        }
+        final long ringAddress = memory.addressOf(state.getLong(RING_OFFSET));
+        long p = keyAddress(ringAddress, capacity, head, size);
+        Unsafe.getUnsafe().putLong(p, key);
+        Unsafe.getUnsafe().putDouble(p + Long.BYTES, d);
+        size++;
+
+        // rows with order key up to frame end enter the frame
+        final boolean unboundedLo = frameLo == AnalyticColumn.UNBOUNDED_PRECEDING;
+        final long hiKey = saturatedAdd(key, frameHi);
+        long frameSize = state.getLong(RING_FRAME_SIZE);
+        long entered = state.getLong(ENTERED);
+        long count = state.getLong(COUNT);
+        double sum = state.getDouble(SUM);
+        double extremum = state.getDouble(EXTREMUM);
+        while (frameSize < size) {
+            p = keyAddress(ringAddress, capacity, head, frameSize);
+            if (Unsafe.getUnsafe().getLong(p) > hiKey) {
+                break;
+            }
+            final double v = Unsafe.getUnsafe().getDouble(p + Long.BYTES);
+            if (entered++ == 0) {
+                state.putDouble(FIRST, v);
+            }
+            state.putDouble(LAST, v);
+            if (v == v) {
+                sum += v;
+                count++;
+                if (unboundedLo && (extremum != extremum || (kind == KIND_MIN ? v < extremum : v > extremum))) {
+                    extremum = v;
+                }
+            }
+            frameSize++;
+        }
+
+        if (unboundedLo) {
+            // rows in the frame never leave it, they are folded into running aggregates
+            head = (head + frameSize) & (capacity - 1);
+            size -= frameSize;
+            frameSize = 0;
+        } else {
+            // rows with order key before frame start leave the frame
+            final long loKey = saturatedAdd(key, frameLo);
+            while (size > 0) {
+                p = keyAddress(ringAddress, capacity, head, 0);
+                if (Unsafe.getUnsafe().getLong(p) >= loKey) {
+                    break;
+                }
+                final double v = Unsafe.getUnsafe().getDouble(p + Long.BYTES);
+                if (v == v) {
+                    sum -= v;
+                    count--;
+                }
+                head = (head + 1) & (capacity - 1);
+                size--;
+                frameSize--;
+            }
+        }
+
+        state.putLong(RING_HEAD, head);
+        state.putLong(RING_SIZE, size);
+        state.putLong(RING_FRAME_SIZE, frameSize);
+        state.putLong(ENTERED, entered);
+        state.putLong(COUNT, count);
+        state.putDouble(SUM, count > 0 ? sum : 0);
+        state.putDouble(EXTREMUM, extremum);
+        return state;
+    }
+
+    private double result(MapValue state) {
+        final boolean unboundedLo = frameLo == AnalyticColumn.UNBOUNDED_PRECEDING;
+        final long frameSize = state.getLong(RING_FRAME_SIZE);
+        if (unboundedLo ? state.getLong(ENTERED) == 0 : frameSize == 0) {
+            return Double.NaN;
+        }
+        final long count = state.getLong(COUNT);
+        switch (kind) {
+            case KIND_SUM:
+                return count > 0 ? state.getDouble(SUM) : Double.NaN;
+            case KIND_AVG:
+                return count > 0 ? state.getDouble(SUM) / count : Double.NaN;
+            case KIND_MIN:
+            case KIND_MAX:
+                if (unboundedLo) {
+                    return state.getDouble(EXTREMUM);
+                }
+                return scanExtremum(state, frameSize);
+            case KIND_FIRST_VALUE:
+                if (unboundedLo) {
+                    return state.getDouble(FIRST);
+                }
+                return Unsafe.getUnsafe().getDouble(
+                        keyAddress(
+                                memory.addressOf(state.getLong(RING_OFFSET)),
+                                state.getLong(RING_CAPACITY),
+                                state.getLong(RING_HEAD),
+                                0
+                        ) + Long.BYTES
+                );
+            default:
+                return state.getDouble(LAST);
+        }
+    }
+
+    private double scanExtremum(MapValue state, long frameSize) {
+        final long ringAddress = memory.addressOf(state.getLong(RING_OFFSET));
+        final long capacity = state.getLong(RING_CAPACITY);
+        final long head = state.getLong(RING_HEAD);
+        double extremum = Double.NaN;
+        for (long i = 0; i < frameSize; i++) {
+            final double v = Unsafe.getUnsafe().getDouble(keyAddress(ringAddress, capacity, head, i) + Long.BYTES);
+            if (v == v && (extremum != extremum || (kind == KIND_MIN ? v < extremum : v > extremum))) {
+                extremum = v;
+            }
+        }
+        return extremum;
+    }
+
+    static {
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.DOUBLE);
+        VALUE_TYPES.add(ColumnType.DOUBLE);
+        VALUE_TYPES.add(ColumnType.DOUBLE);
+        VALUE_TYPES.add(ColumnType.DOUBLE);
+    }
+}
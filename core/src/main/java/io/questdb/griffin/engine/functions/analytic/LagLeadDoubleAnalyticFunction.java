@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.Unsafe;
+
+/**
+ * lag() and lead() of double values. Each partition keeps a ring buffer of the last <code>offset</code> rows.
+ * <p>
+ * lag() is streamed: value of the row <code>offset</code> rows back is at the head of the ring
+ * when the ring is full. lead() has to see the following rows, it runs over cached records only and
+ * writes value of the current row into the row that is <code>offset</code> rows back, ring entries keep
+ * offsets of cached records for that.
+ */
+public class LagLeadDoubleAnalyticFunction extends AbstractDoubleAnalyticFunction {
+    private static final int RING_OFFSET = 0;
+    private static final int RING_HEAD = 1;
+    private static final int RING_SIZE = 2;
+    private static final ArrayColumnTypes VALUE_TYPES = new ArrayColumnTypes();
+    private final long offset;
+    private final boolean lead;
+    private long entryAddress;
+
+    public LagLeadDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            long offset,
+            boolean lead
+    ) {
+        super(configuration, analyticContext, arg, VALUE_TYPES);
+        this.offset = offset;
+        this.lead = lead;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        assert !lead;
+        final double d = arg.getDouble(record);
+        if (offset == 0) {
+            value = d;
+            return;
+        }
+        final long p = nextEntry(record);
+        if (p != 0) {
+            value = Unsafe.getUnsafe().getDouble(p + Long.BYTES);
+        } else {
+            value = Double.NaN;
+        }
+        Unsafe.getUnsafe().putDouble(entryAddress + Long.BYTES, d);
+    }
+
+    @Override
+    public int getPassCount() {
+        return lead ? TWO_PASS : STREAM;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (!lead) {
+            super.pass1(record, recordOffset, spi);
+            return;
+        }
+
+        final double d = arg.getDouble(record);
+        final long address = spi.getAddress(recordOffset, columnIndex);
+        if (offset == 0) {
+            Unsafe.getUnsafe().putDouble(address, d);
+            return;
+        }
+        // current row has no lead until enough rows follow it
+        Unsafe.getUnsafe().putDouble(address, Double.NaN);
+        final long p = nextEntry(record);
+        if (p != 0) {
+            Unsafe.getUnsafe().putDouble(spi.getAddress(Unsafe.getUnsafe().getLong(p), columnIndex), d);
+        }
+        Unsafe.getUnsafe().putLong(entryAddress, recordOffset);
+    }
+
+    /**
+     * Moves ring of the partition forward by one entry, address of the entry for the current row
+     * is stored in {@link #entryAddress}.
+     *
+     * @return address of the evicted entry, which is also the entry for the current row,
+     * or 0 when the ring is not full yet
+     */
+    private long nextEntry(Record record) {
+        final MapValue state = partition(record);
+        if (state.isNew()) {
+            state.putLong(RING_OFFSET, allocateRing(offset));
+            state.putLong(RING_HEAD, 0);
+            state.putLong(RING_SIZE, 0);
+        }
+        final long ringAddress = memory.addressOf(state.getLong(RING_OFFSET));
+        final long size = state.getLong(RING_SIZE);
+        if (size < offset) {
+            entryAddress = ringAddress + size * ENTRY_SIZE;
+            state.putLong(RING_SIZE, size + 1);
+            return 0;
+        }
+        final long head = state.getLong(RING_HEAD);
+        entryAddress = ringAddress + head * ENTRY_SIZE;
+        state.putLong(RING_HEAD, head + 1 < offset ? head + 1 : 0);
+        return entryAddress;
+    }
+
+    static {
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+    }
+}
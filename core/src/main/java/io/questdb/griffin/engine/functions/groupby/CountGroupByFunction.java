@@ -45,6 +45,16 @@ public class CountGroupByFunction extends LongFunction implements GroupByFunctio
         mapValue.addLong(valueIndex, 1);
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
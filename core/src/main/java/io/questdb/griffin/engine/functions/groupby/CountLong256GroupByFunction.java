@@ -77,6 +77,34 @@ public class CountLong256GroupByFunction extends LongFunction implements GroupBy
         }
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        // the value was copied verbatim, so it still points at the source function's set
+        final Long256HashSet srcSet = ((CountLong256GroupByFunction) srcFunction).sets.getQuick(srcValue.getInt(valueIndex + 1));
+        final Long256HashSet set;
+        if (sets.size() <= setIndex) {
+            sets.extendAndSet(setIndex, set = new Long256HashSet());
+        } else {
+            set = sets.getQuick(setIndex);
+        }
+        set.clear();
+        set.addAll(srcSet);
+        destValue.putInt(valueIndex + 1, setIndex++);
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        final Long256HashSet srcSet = ((CountLong256GroupByFunction) srcFunction).sets.getQuick(srcValue.getInt(valueIndex + 1));
+        final Long256HashSet set = sets.getQuick(destValue.getInt(valueIndex + 1));
+        set.addAll(srcSet);
+        destValue.putLong(valueIndex, set.size());
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -72,6 +72,34 @@ public class CountStringGroupByFunction extends LongFunction implements GroupByF
         mapValue.addLong(valueIndex, 1);
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        // the value was copied verbatim, so it still points at the source function's set
+        final CharSequenceHashSet srcSet = ((CountStringGroupByFunction) srcFunction).sets.getQuick(srcValue.getInt(valueIndex + 1));
+        final CharSequenceHashSet set;
+        if (sets.size() <= setIndex) {
+            sets.extendAndSet(setIndex, set = new CharSequenceHashSet());
+        } else {
+            set = sets.getQuick(setIndex);
+        }
+        set.clear();
+        set.addAll(srcSet);
+        destValue.putInt(valueIndex + 1, setIndex++);
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        final CharSequenceHashSet srcSet = ((CountStringGroupByFunction) srcFunction).sets.getQuick(srcValue.getInt(valueIndex + 1));
+        final CharSequenceHashSet set = sets.getQuick(destValue.getInt(valueIndex + 1));
+        set.addAll(srcSet);
+        destValue.putLong(valueIndex, set.size());
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -85,6 +85,48 @@ public class CountSymbolGroupByFunction extends LongFunction implements GroupByF
         }
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeFirst(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        // the value was copied verbatim, so it still points at the source function's set
+        final IntList srcList = ((CountSymbolGroupByFunction) srcFunction).lists.getQuick(srcValue.getInt(valueIndex + 1));
+        final IntList list;
+        if (lists.size() <= setIndex) {
+            lists.extendAndSet(setIndex, list = new IntList());
+        } else {
+            list = lists.getQuick(setIndex);
+        }
+        list.clear(0);
+        list.addAll(srcList);
+        destValue.putInt(valueIndex + 1, setIndex);
+        setIndex++;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        final IntList srcList = ((CountSymbolGroupByFunction) srcFunction).lists.getQuick(srcValue.getInt(valueIndex + 1));
+        final IntList list = lists.getQuick(destValue.getInt(valueIndex + 1));
+        long count = destValue.getLong(valueIndex);
+        for (int i = 0, n = srcList.size(); i < n; i++) {
+            if (srcList.getQuick(i) == 1) {
+                if (i < list.size()) {
+                    if (list.getQuick(i) == 1) {
+                        continue;
+                    }
+                    list.setQuick(i, 1);
+                } else {
+                    list.extendAndSet(i, 1);
+                }
+                count++;
+            }
+        }
+        destValue.putLong(valueIndex, count);
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
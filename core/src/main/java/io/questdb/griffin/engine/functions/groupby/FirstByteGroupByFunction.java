@@ -36,7 +36,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstByteGroupByFunction extends ByteFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstByteGroupByFunction(@NotNull Function arg) {
         this.arg = arg;
@@ -52,10 +52,38 @@ public class FirstByteGroupByFunction extends ByteFunction implements GroupByFun
         // empty
     }
 
+    @Override
+    public void computeFirst(MapValue mapValue, Record record, long rowId) {
+        computeFirst(mapValue, record);
+        mapValue.putLong(valueIndex + 1, rowId);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record, long rowId) {
+        if (rowId < mapValue.getLong(valueIndex + 1)) {
+            computeFirst(mapValue, record, rowId);
+        }
+    }
+
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        final long srcRowId = srcValue.getLong(valueIndex + 1);
+        if (srcRowId < destValue.getLong(valueIndex + 1)) {
+            destValue.putByte(valueIndex, srcValue.getByte(valueIndex));
+            destValue.putLong(valueIndex + 1, srcRowId);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.BYTE);
+        columnTypes.add(ColumnType.LONG);
     }
 
     @Override
@@ -36,7 +36,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstCharGroupByFunction extends CharFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstCharGroupByFunction(@NotNull Function arg) {
         this.arg = arg;
@@ -52,10 +52,38 @@ public class FirstCharGroupByFunction extends CharFunction implements GroupByFun
         // empty
     }
 
+    @Override
+    public void computeFirst(MapValue mapValue, Record record, long rowId) {
+        computeFirst(mapValue, record);
+        mapValue.putLong(valueIndex + 1, rowId);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record, long rowId) {
+        if (rowId < mapValue.getLong(valueIndex + 1)) {
+            computeFirst(mapValue, record, rowId);
+        }
+    }
+
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        final long srcRowId = srcValue.getLong(valueIndex + 1);
+        if (srcRowId < destValue.getLong(valueIndex + 1)) {
+            destValue.putChar(valueIndex, srcValue.getChar(valueIndex));
+            destValue.putLong(valueIndex + 1, srcRowId);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.SHORT);
+        columnTypes.add(ColumnType.LONG);
     }
 
     @Override
@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
 
@@ -58,6 +59,22 @@ public class LastGeoHashGroupByFunctionFactory implements FunctionFactory {
                     public void computeNext(MapValue mapValue, Record record) {
                         mapValue.putByte(this.valueIndex, this.function.getGeoByte(record));
                     }
+
+                    @Override
+                    public void computeNext(MapValue mapValue, Record record, long rowId) {
+                        if (rowId > mapValue.getLong(this.valueIndex + 1)) {
+                            computeFirst(mapValue, record, rowId);
+                        }
+                    }
+
+                    @Override
+                    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+                        final long srcRowId = srcValue.getLong(this.valueIndex + 1);
+                        if (srcRowId > destValue.getLong(this.valueIndex + 1)) {
+                            destValue.putByte(this.valueIndex, srcValue.getByte(this.valueIndex));
+                            destValue.putLong(this.valueIndex + 1, srcRowId);
+                        }
+                    }
                 };
             case ColumnType.GEOSHORT:
                 return new FirstGeoHashGroupByFunctionShort(type, function) {
@@ -65,6 +82,22 @@ public class LastGeoHashGroupByFunctionFactory implements FunctionFactory {
                     public void computeNext(MapValue mapValue, Record record) {
                         mapValue.putShort(this.valueIndex, this.function.getGeoShort(record));
                     }
+
+                    @Override
+                    public void computeNext(MapValue mapValue, Record record, long rowId) {
+                        if (rowId > mapValue.getLong(this.valueIndex + 1)) {
+                            computeFirst(mapValue, record, rowId);
+                        }
+                    }
+
+                    @Override
+                    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+                        final long srcRowId = srcValue.getLong(this.valueIndex + 1);
+                        if (srcRowId > destValue.getLong(this.valueIndex + 1)) {
+                            destValue.putShort(this.valueIndex, srcValue.getShort(this.valueIndex));
+                            destValue.putLong(this.valueIndex + 1, srcRowId);
+                        }
+                    }
                 };
             case ColumnType.GEOINT:
                 return new FirstGeoHashGroupByFunctionInt(type, function) {
@@ -72,6 +105,22 @@ public class LastGeoHashGroupByFunctionFactory implements FunctionFactory {
                     public void computeNext(MapValue mapValue, Record record) {
                         mapValue.putInt(this.valueIndex, this.function.getGeoInt(record));
                     }
+
+                    @Override
+                    public void computeNext(MapValue mapValue, Record record, long rowId) {
+                        if (rowId > mapValue.getLong(this.valueIndex + 1)) {
+                            computeFirst(mapValue, record, rowId);
+                        }
+                    }
+
+                    @Override
+                    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+                        final long srcRowId = srcValue.getLong(this.valueIndex + 1);
+                        if (srcRowId > destValue.getLong(this.valueIndex + 1)) {
+                            destValue.putInt(this.valueIndex, srcValue.getInt(this.valueIndex));
+                            destValue.putLong(this.valueIndex + 1, srcRowId);
+                        }
+                    }
                 };
             default:
                 return new FirstGeoHashGroupByFunctionLong(type, function) {
@@ -79,6 +128,22 @@ public class LastGeoHashGroupByFunctionFactory implements FunctionFactory {
                     public void computeNext(MapValue mapValue, Record record) {
                         mapValue.putLong(this.valueIndex, this.function.getGeoLong(record));
                     }
+
+                    @Override
+                    public void computeNext(MapValue mapValue, Record record, long rowId) {
+                        if (rowId > mapValue.getLong(this.valueIndex + 1)) {
+                            computeFirst(mapValue, record, rowId);
+                        }
+                    }
+
+                    @Override
+                    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+                        final long srcRowId = srcValue.getLong(this.valueIndex + 1);
+                        if (srcRowId > destValue.getLong(this.valueIndex + 1)) {
+                            destValue.putLong(this.valueIndex, srcValue.getLong(this.valueIndex));
+                            destValue.putLong(this.valueIndex + 1, srcRowId);
+                        }
+                    }
                 };
         }
     }
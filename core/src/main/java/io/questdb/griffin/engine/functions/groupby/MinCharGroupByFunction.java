@@ -56,6 +56,20 @@ public class MinCharGroupByFunction extends CharFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        char min = destValue.getChar(valueIndex);
+        char next = srcValue.getChar(valueIndex);
+        if (next > 0 && (next < min || min == 0)) {
+            destValue.putChar(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -65,6 +65,17 @@ public class NSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
         }
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        sum(destValue, srcValue.getDouble(valueIndex), destValue.getDouble(valueIndex), destValue.getDouble(valueIndex + 1) + srcValue.getDouble(valueIndex + 1));
+        destValue.addLong(valueIndex + 2, srcValue.getLong(valueIndex + 2));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
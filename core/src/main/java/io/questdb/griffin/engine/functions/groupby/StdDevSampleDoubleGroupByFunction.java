@@ -83,6 +83,31 @@ public class StdDevSampleDoubleGroupByFunction extends DoubleFunction implements
         }
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void mergeNext(MapValue destValue, MapValue srcValue, GroupByFunction srcFunction) {
+        // Chan et al. parallel variant of Welford's algorithm
+        final long srcCount = srcValue.getLong(valueIndex + 2);
+        if (srcCount == 0) {
+            return;
+        }
+        final long destCount = destValue.getLong(valueIndex + 2);
+        final double srcMean = srcValue.getDouble(valueIndex);
+        final double destMean = destValue.getDouble(valueIndex);
+        final long count = srcCount + destCount;
+        final double delta = srcMean - destMean;
+        final double mean = destMean + delta * srcCount / count;
+        final double sum = destValue.getDouble(valueIndex + 1) + srcValue.getDouble(valueIndex + 1)
+                + delta * delta * ((double) destCount * srcCount / count);
+        destValue.putDouble(valueIndex, mean);
+        destValue.putDouble(valueIndex + 1, sum);
+        destValue.putLong(valueIndex + 2, count);
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -55,6 +56,12 @@ public abstract class AbstractSampleByRecordCursorFactory extends AbstractRecord
         Misc.free(base);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.PerWorkerLocks;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Per-slot state of keyed parallel GROUP BY and SAMPLE BY: partial maps, copies of the
+ * group-by functions and the locks that guard them.
+ */
+class AsyncGroupByAtom implements StatefulAtom, Closeable {
+    final RecordSink mapSink;
+    final ObjList<ObjList<GroupByFunction>> perSlotFunctions;
+    // partial maps are created on first use, most queries don't need all of them
+    final ObjList<FastMap> perSlotMaps = new ObjList<>();
+    final PerWorkerLocks locks;
+    private final CairoConfiguration configuration;
+    private final ArrayColumnTypes keyTypes;
+    private final ArrayColumnTypes valueTypes;
+
+    AsyncGroupByAtom(
+            CairoConfiguration configuration,
+            RecordSink mapSink,
+            ColumnTypes keyTypes,
+            ColumnTypes valueTypes,
+            ObjList<ObjList<GroupByFunction>> perSlotFunctions
+    ) {
+        this.configuration = configuration;
+        this.mapSink = mapSink;
+        this.keyTypes = copyOf(keyTypes);
+        this.valueTypes = copyOf(valueTypes);
+        this.perSlotFunctions = perSlotFunctions;
+        this.locks = new PerWorkerLocks(perSlotFunctions.size());
+        perSlotMaps.setPos(perSlotFunctions.size());
+    }
+
+    static FastMap createMap(CairoConfiguration configuration, ColumnTypes keyTypes, ColumnTypes valueTypes) {
+        return new FastMap(
+                configuration.getSqlMapPageSize(),
+                keyTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = perSlotFunctions.size(); i < n; i++) {
+            Misc.freeObjList(perSlotFunctions.getQuick(i));
+        }
+        Misc.freeObjListAndClear(perSlotMaps);
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        final boolean current = executionContext.getCloneSymbolTables();
+        executionContext.setCloneSymbolTables(true);
+        try {
+            for (int i = 0, n = perSlotFunctions.size(); i < n; i++) {
+                final ObjList<GroupByFunction> functions = perSlotFunctions.getQuick(i);
+                Function.init(functions, symbolTableSource, executionContext);
+                GroupByUtils.toTop(functions);
+                final FastMap map = perSlotMaps.getQuick(i);
+                if (map != null) {
+                    map.clear();
+                }
+            }
+        } finally {
+            executionContext.setCloneSymbolTables(current);
+        }
+    }
+
+    void clear() {
+        for (int i = 0, n = perSlotMaps.size(); i < n; i++) {
+            final FastMap map = perSlotMaps.getQuick(i);
+            if (map != null) {
+                map.restoreInitialCapacity();
+            }
+        }
+    }
+
+    FastMap getOrCreateMap(int slot) {
+        FastMap map = perSlotMaps.getQuick(slot);
+        if (map == null) {
+            map = createMap(configuration, keyTypes, valueTypes);
+            perSlotMaps.setQuick(slot, map);
+        }
+        return map;
+    }
+
+    /**
+     * Merges non-empty partial maps into the destination map. When there is only one
+     * non-empty partial map, i.e. all frames were reduced by a single thread, the partial
+     * map is returned as is.
+     */
+    FastMap mergeSlotMaps(FastMap destMap, ObjList<GroupByFunction> destFunctions, SlotMergeFunction mergeFunction) {
+        FastMap singleMap = null;
+        int nonEmptyCount = 0;
+        for (int i = 0, n = perSlotMaps.size(); i < n; i++) {
+            final FastMap map = perSlotMaps.getQuick(i);
+            if (map != null && map.size() > 0) {
+                singleMap = map;
+                nonEmptyCount++;
+            }
+        }
+
+        if (nonEmptyCount == 1) {
+            return singleMap;
+        }
+
+        destMap.clear();
+        GroupByUtils.toTop(destFunctions);
+        for (int i = 0, n = perSlotMaps.size(); i < n; i++) {
+            final FastMap map = perSlotMaps.getQuick(i);
+            if (map != null && map.size() > 0) {
+                destMap.merge(map, mergeFunction.of(perSlotFunctions.getQuick(i)));
+            }
+        }
+        return destMap;
+    }
+
+    private static ArrayColumnTypes copyOf(ColumnTypes types) {
+        final ArrayColumnTypes copy = new ArrayColumnTypes();
+        for (int i = 0, n = types.getColumnCount(); i < n; i++) {
+            copy.add(types.getColumnType(i));
+        }
+        return copy;
+    }
+
+    static class SlotMergeFunction implements FastMap.MergeFunction {
+        protected final ObjList<GroupByFunction> destFunctions;
+        protected ObjList<GroupByFunction> srcFunctions;
+
+        SlotMergeFunction(ObjList<GroupByFunction> destFunctions) {
+            this.destFunctions = destFunctions;
+        }
+
+        @Override
+        public void merge(MapValue destValue, MapValue srcValue) {
+            GroupByUtils.mergeFunctions(destFunctions, srcFunctions, destFunctions.size(), destValue, srcValue);
+        }
+
+        SlotMergeFunction of(ObjList<GroupByFunction> srcFunctions) {
+            this.srcFunctions = srcFunctions;
+            return this;
+        }
+    }
+}
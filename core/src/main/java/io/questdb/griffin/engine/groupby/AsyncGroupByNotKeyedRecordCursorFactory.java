@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.sql.async.PerWorkerLocks;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.SymbolFunction;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
+
+/**
+ * Non-keyed counterpart of {@link AsyncGroupByRecordCursorFactory}. Each slot aggregates
+ * into its own map value, values are merged once all page frames are reduced.
+ */
+public class AsyncGroupByNotKeyedRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncGroupByNotKeyedRecordCursorFactory::aggregate;
+
+    private final RecordCursorFactory base;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final SimpleMapValue simpleMapValue;
+    private final VirtualRecord virtualRecordA;
+    private final GroupByNotKeyedAtom atom;
+    private final PageFrameSequence<GroupByNotKeyedAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncGroupByNotKeyedRecordCursor cursor;
+
+    public AsyncGroupByNotKeyedRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            RecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<ObjList<GroupByFunction>> perSlotGroupByFunctions,
+            ObjList<Function> recordFunctions,
+            int valueCount,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(groupByMetadata);
+        this.base = base;
+        this.groupByFunctions = groupByFunctions;
+        this.simpleMapValue = new SimpleMapValue(valueCount);
+        this.virtualRecordA = new VirtualRecordNoRowid(recordFunctions);
+        this.virtualRecordA.of(simpleMapValue);
+        this.atom = new GroupByNotKeyedAtom(perSlotGroupByFunctions, valueCount);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.cursor = new AsyncGroupByNotKeyedRecordCursor();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(groupByFunctions);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        cursor.of(frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_ANY), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static void aggregate(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final GroupByNotKeyedAtom atom = task.getFrameSequence(GroupByNotKeyedAtom.class).getAtom();
+
+        final int slot = atom.locks.acquireSlot(workerId);
+        try {
+            final ObjList<GroupByFunction> functions = atom.perSlotFunctions.getQuick(slot);
+            final SimpleMapValue value = atom.perSlotValues.getQuick(slot);
+            final int n = functions.size();
+            long r = 0;
+            if (frameRowCount > 0 && atom.perSlotRowCounts.getQuick(slot) == 0) {
+                record.setRowIndex(0);
+                GroupByUtils.updateNew(functions, n, value, record, record.getRowId());
+                r++;
+            }
+            for (; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                GroupByUtils.updateExisting(functions, n, value, record, record.getRowId());
+            }
+            atom.perSlotRowCounts.setQuick(slot, atom.perSlotRowCounts.getQuick(slot) + frameRowCount);
+        } finally {
+            atom.locks.releaseSlot(slot);
+        }
+    }
+
+    private static class GroupByNotKeyedAtom implements StatefulAtom, Closeable {
+        private final ObjList<ObjList<GroupByFunction>> perSlotFunctions;
+        private final ObjList<SimpleMapValue> perSlotValues = new ObjList<>();
+        private final LongList perSlotRowCounts = new LongList();
+        private final PerWorkerLocks locks;
+
+        public GroupByNotKeyedAtom(ObjList<ObjList<GroupByFunction>> perSlotFunctions, int valueCount) {
+            this.perSlotFunctions = perSlotFunctions;
+            this.locks = new PerWorkerLocks(perSlotFunctions.size());
+            for (int i = 0, n = perSlotFunctions.size(); i < n; i++) {
+                perSlotValues.add(new SimpleMapValue(valueCount));
+            }
+            perSlotRowCounts.setAll(perSlotFunctions.size(), 0);
+        }
+
+        @Override
+        public void close() {
+            for (int i = 0, n = perSlotFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perSlotFunctions.getQuick(i));
+            }
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            final boolean current = executionContext.getCloneSymbolTables();
+            executionContext.setCloneSymbolTables(true);
+            try {
+                for (int i = 0, n = perSlotFunctions.size(); i < n; i++) {
+                    final ObjList<GroupByFunction> functions = perSlotFunctions.getQuick(i);
+                    Function.init(functions, symbolTableSource, executionContext);
+                    GroupByUtils.toTop(functions);
+                }
+            } finally {
+                executionContext.setCloneSymbolTables(current);
+            }
+            perSlotRowCounts.setAll(perSlotFunctions.size(), 0);
+        }
+    }
+
+    private class AsyncGroupByNotKeyedRecordCursor implements NoRandomAccessRecordCursor {
+        private PageFrameSequence<GroupByNotKeyedAtom> frameSequence;
+        private boolean isOpen;
+        private int recordsRemaining = 1;
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                if (frameSequence.getFrameCount() > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+            }
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return (SymbolTable) groupByFunctions.getQuick(columnIndex);
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return ((SymbolFunction) groupByFunctions.getQuick(columnIndex)).newSymbolTable();
+        }
+
+        @Override
+        public void toTop() {
+            recordsRemaining = 1;
+            GroupByUtils.toTop(groupByFunctions);
+        }
+
+        @Override
+        public Record getRecord() {
+            return virtualRecordA;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return recordsRemaining-- > 0;
+        }
+
+        @Override
+        public long size() {
+            return 1;
+        }
+
+        void of(PageFrameSequence<GroupByNotKeyedAtom> frameSequence, SqlExecutionContext executionContext) throws SqlException {
+            this.frameSequence = frameSequence;
+            this.isOpen = true;
+            try {
+                GroupByUtils.reduceAllFrames(frameSequence);
+                Function.init(groupByFunctions, frameSequence.getSymbolTableSource(), executionContext);
+                mergeSlotValues();
+                toTop();
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void mergeSlotValues() {
+            final int n = groupByFunctions.size();
+            boolean empty = true;
+            GroupByUtils.toTop(groupByFunctions);
+            for (int i = 0, m = atom.perSlotValues.size(); i < m; i++) {
+                if (atom.perSlotRowCounts.getQuick(i) == 0) {
+                    continue;
+                }
+                final SimpleMapValue value = atom.perSlotValues.getQuick(i);
+                final ObjList<GroupByFunction> functions = atom.perSlotFunctions.getQuick(i);
+                if (empty) {
+                    simpleMapValue.copy(value);
+                    GroupByUtils.mergeNew(groupByFunctions, functions, n, simpleMapValue, value);
+                    empty = false;
+                } else {
+                    GroupByUtils.mergeExisting(groupByFunctions, functions, n, simpleMapValue, value);
+                }
+            }
+            if (empty) {
+                GroupByUtils.updateEmpty(groupByFunctions, n, simpleMapValue);
+            }
+        }
+    }
+}
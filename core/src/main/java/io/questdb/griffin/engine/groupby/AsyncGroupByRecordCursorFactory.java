@@ -0,0 +1,194 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
+
+/**
+ * Keyed GROUP BY that aggregates page frames of the base factory in parallel. Each
+ * reducer thread aggregates into the partial map of the slot it holds, using its own
+ * copy of the group-by functions. Partial maps are merged into the result map by
+ * the thread that owns the cursor once all frames are reduced.
+ */
+public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncGroupByRecordCursorFactory::aggregate;
+
+    private final RecordCursorFactory base;
+    private final FastMap dataMap;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final AsyncGroupByAtom atom;
+    private final PageFrameSequence<AsyncGroupByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncGroupByRecordCursor cursor;
+    private final AsyncGroupByAtom.SlotMergeFunction mergeFunction;
+
+    public AsyncGroupByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<ObjList<GroupByFunction>> perSlotGroupByFunctions,
+            ObjList<Function> recordFunctions,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(groupByMetadata);
+        try {
+            this.base = base;
+            this.groupByFunctions = groupByFunctions;
+            this.recordFunctions = recordFunctions;
+            this.dataMap = AsyncGroupByAtom.createMap(configuration, keyTypes, valueTypes);
+            this.atom = new AsyncGroupByAtom(
+                    configuration,
+                    RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false),
+                    keyTypes,
+                    valueTypes,
+                    perSlotGroupByFunctions
+            );
+            this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+            this.cursor = new AsyncGroupByRecordCursor(recordFunctions);
+            this.mergeFunction = new AsyncGroupByAtom.SlotMergeFunction(groupByFunctions);
+        } catch (Throwable e) {
+            Misc.freeObjList(recordFunctions);
+            for (int i = 0, n = perSlotGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perSlotGroupByFunctions.getQuick(i));
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+        Misc.free(dataMap);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        cursor.of(frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_ANY), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static void aggregate(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncGroupByAtom atom = task.getFrameSequence(AsyncGroupByAtom.class).getAtom();
+        final RecordSink mapSink = atom.mapSink;
+
+        final int slot = atom.locks.acquireSlot(workerId);
+        try {
+            final ObjList<GroupByFunction> functions = atom.perSlotFunctions.getQuick(slot);
+            final FastMap map = atom.getOrCreateMap(slot);
+            final int n = functions.size();
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final MapKey key = map.withKey();
+                mapSink.copy(record, key);
+                final MapValue value = key.createValue();
+                GroupByUtils.updateFunctions(functions, n, value, record, record.getRowId());
+            }
+        } finally {
+            atom.locks.releaseSlot(slot);
+        }
+    }
+
+    private class AsyncGroupByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private PageFrameSequence<AsyncGroupByAtom> frameSequence;
+        private boolean isOpen;
+
+        public AsyncGroupByRecordCursor(ObjList<Function> functions) {
+            super(functions, true);
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                super.close();
+                if (frameSequence.getFrameCount() > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                atom.clear();
+            }
+        }
+
+        void of(PageFrameSequence<AsyncGroupByAtom> frameSequence, SqlExecutionContext executionContext) throws SqlException {
+            this.frameSequence = frameSequence;
+            this.isOpen = true;
+            try {
+                GroupByUtils.reduceAllFrames(frameSequence);
+                // record functions hold on to symbol tables of the frame sequence,
+                // which is why the sequence is not cleared until the cursor is closed
+                Function.init(recordFunctions, frameSequence.getSymbolTableSource(), executionContext);
+                of(atom.mergeSlotMaps(dataMap, groupByFunctions, mergeFunction).getCursor());
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.columns.TimestampColumn;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * SAMPLE BY with FILL(NONE) that aggregates page frames of the base factory in parallel.
+ * Sample bucket is appended to the group-by key, so that frames can be reduced in any
+ * order and by any thread. The first value of each map entry holds the smallest row id
+ * of the group, which is used to emit groups in the same order as the single-threaded
+ * cursor does, i.e. by bucket and then by first appearance of the key within the bucket.
+ */
+public class AsyncSampleByFillNoneRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncSampleByFillNoneRecordCursorFactory::aggregate;
+    // map value index of the first row id
+    private static final int FIRST_ROW_ID_INDEX = 0;
+
+    private final RecordCursorFactory base;
+    private final FastMap dataMap;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final SampleByAtom atom;
+    private final PageFrameSequence<SampleByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncSampleByRecordCursor cursor;
+    private final SampleByMergeFunction mergeFunction;
+    // (first row id, map entry address) pairs
+    private final DirectLongList sortedEntries;
+    private final Function offsetFunc;
+    private final int offsetFuncPos;
+
+    public AsyncSampleByFillNoneRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<ObjList<GroupByFunction>> perSlotGroupByFunctions,
+            ObjList<Function> recordFunctions,
+            int timestampIndex,
+            Function offsetFunc,
+            int offsetFuncPos,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(groupByMetadata);
+        try {
+            this.base = base;
+            this.groupByFunctions = groupByFunctions;
+            this.recordFunctions = recordFunctions;
+            this.offsetFunc = offsetFunc;
+            this.offsetFuncPos = offsetFuncPos;
+
+            // sample bucket is the last key column, it is also the timestamp of the output record
+            final ArrayColumnTypes bucketKeyTypes = new ArrayColumnTypes();
+            for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+                bucketKeyTypes.add(keyTypes.getColumnType(i));
+            }
+            bucketKeyTypes.add(ColumnType.TIMESTAMP);
+            final int bucketColumnIndex = valueTypes.getColumnCount() + keyTypes.getColumnCount();
+            for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+                if (recordFunctions.getQuick(i) == null) {
+                    recordFunctions.setQuick(i, TimestampColumn.newInstance(bucketColumnIndex));
+                }
+            }
+
+            this.dataMap = AsyncGroupByAtom.createMap(configuration, bucketKeyTypes, valueTypes);
+            this.atom = new SampleByAtom(
+                    configuration,
+                    RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false),
+                    bucketKeyTypes,
+                    valueTypes,
+                    perSlotGroupByFunctions,
+                    timestampSampler,
+                    timestampIndex
+            );
+            this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+            this.cursor = new AsyncSampleByRecordCursor(recordFunctions);
+            this.mergeFunction = new SampleByMergeFunction(groupByFunctions);
+            this.sortedEntries = new DirectLongList(64, MemoryTag.NATIVE_SAMPLE_BY_LONG_LIST);
+        } catch (Throwable e) {
+            Misc.freeObjList(recordFunctions);
+            for (int i = 0, n = perSlotGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perSlotGroupByFunctions.getQuick(i));
+            }
+            Misc.free(offsetFunc);
+            throw e;
+        }
+    }
+
+    /**
+     * Parallel reduction relies on {@link TimestampSampler#round(long)} to find the bucket
+     * of each row independently. That only holds for samplers with fixed bucket size,
+     * calendar samplers align their buckets to the first row of the previous bucket.
+     */
+    public static boolean isTimestampSamplerSupported(TimestampSampler timestampSampler) {
+        return timestampSampler instanceof MicroTimestampSampler;
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+        Misc.free(dataMap);
+        Misc.free(sortedEntries);
+        Misc.free(offsetFunc);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        cursor.of(frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_ASC), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static void aggregate(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final SampleByAtom atom = task.getFrameSequence(SampleByAtom.class).getAtom();
+        final RecordSink mapSink = atom.mapSink;
+        final TimestampSampler timestampSampler = atom.timestampSampler;
+        final int timestampIndex = atom.timestampIndex;
+
+        final int slot = atom.locks.acquireSlot(workerId);
+        try {
+            final ObjList<GroupByFunction> functions = atom.perSlotFunctions.getQuick(slot);
+            final FastMap map = atom.getOrCreateMap(slot);
+            final int n = functions.size();
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final long rowId = record.getRowId();
+                final MapKey key = map.withKey();
+                mapSink.copy(record, key);
+                key.putTimestamp(timestampSampler.round(record.getTimestamp(timestampIndex)));
+                final MapValue value = key.createValue();
+                if (value.isNew()) {
+                    value.putLong(FIRST_ROW_ID_INDEX, rowId);
+                } else if (rowId < value.getLong(FIRST_ROW_ID_INDEX)) {
+                    // frames of the slot are not necessarily reduced in scan order
+                    value.putLong(FIRST_ROW_ID_INDEX, rowId);
+                }
+                GroupByUtils.updateFunctions(functions, n, value, record, rowId);
+            }
+        } finally {
+            atom.locks.releaseSlot(slot);
+        }
+    }
+
+    private static class SampleByAtom extends AsyncGroupByAtom {
+        private final TimestampSampler timestampSampler;
+        private final int timestampIndex;
+
+        SampleByAtom(
+                CairoConfiguration configuration,
+                RecordSink mapSink,
+                ColumnTypes keyTypes,
+                ColumnTypes valueTypes,
+                ObjList<ObjList<GroupByFunction>> perSlotFunctions,
+                TimestampSampler timestampSampler,
+                int timestampIndex
+        ) {
+            super(configuration, mapSink, keyTypes, valueTypes, perSlotFunctions);
+            this.timestampSampler = timestampSampler;
+            this.timestampIndex = timestampIndex;
+        }
+    }
+
+    private static class SampleByMergeFunction extends AsyncGroupByAtom.SlotMergeFunction {
+
+        private SampleByMergeFunction(ObjList<GroupByFunction> destFunctions) {
+            super(destFunctions);
+        }
+
+        @Override
+        public void merge(MapValue destValue, MapValue srcValue) {
+            // new entries are copied along with their first row id
+            if (!destValue.isNew()) {
+                final long srcRowId = srcValue.getLong(FIRST_ROW_ID_INDEX);
+                if (srcRowId < destValue.getLong(FIRST_ROW_ID_INDEX)) {
+                    destValue.putLong(FIRST_ROW_ID_INDEX, srcRowId);
+                }
+            }
+            super.merge(destValue, srcValue);
+        }
+    }
+
+    private class AsyncSampleByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private PageFrameSequence<SampleByAtom> frameSequence;
+        private boolean isOpen;
+        private long entryIndex;
+
+        public AsyncSampleByRecordCursor(ObjList<Function> functions) {
+            super(functions, false);
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                super.close();
+                if (frameSequence.getFrameCount() > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                atom.clear();
+                sortedEntries.resetCapacity();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (entryIndex < sortedEntries.size()) {
+                baseCursor.recordAt(baseCursor.getRecord(), sortedEntries.get(entryIndex + 1));
+                entryIndex += 2;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            // keep the contract of the sequential sample by cursors
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            entryIndex = 0;
+        }
+
+        void of(PageFrameSequence<SampleByAtom> frameSequence, SqlExecutionContext executionContext) throws SqlException {
+            this.frameSequence = frameSequence;
+            this.isOpen = true;
+            try {
+                if (frameSequence.getFrameCount() > 0) {
+                    initTimestampSampler(frameSequence, executionContext);
+                }
+                GroupByUtils.reduceAllFrames(frameSequence);
+                Function.init(recordFunctions, frameSequence.getSymbolTableSource(), executionContext);
+                final FastMap map = atom.mergeSlotMaps(dataMap, groupByFunctions, mergeFunction);
+                sortEntries(map);
+                of(map.getCursor());
+                entryIndex = 0;
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void initTimestampSampler(PageFrameSequence<SampleByAtom> frameSequence, SqlExecutionContext executionContext) throws SqlException {
+            offsetFunc.init(frameSequence.getSymbolTableSource(), executionContext);
+            final CharSequence offset = offsetFunc.getStr(null);
+            if (offset != null) {
+                final long val = Timestamps.parseOffset(offset);
+                if (val == Numbers.LONG_NaN) {
+                    // bad value for offset
+                    throw SqlException.$(offsetFuncPos, "invalid offset: ").put(offset);
+                }
+                atom.timestampSampler.setStart(Numbers.decodeLowInt(val) * Timestamps.MINUTE_MICROS);
+            } else {
+                // align buckets to the first observation, frames come in ascending timestamp order;
+                // frames are not dispatched yet, so the sampler is not shared at this point
+                final long firstTimestampAddress = frameSequence.getPageAddressCache().getPageAddress(0, atom.timestampIndex);
+                atom.timestampSampler.setStart(Unsafe.getUnsafe().getLong(firstTimestampAddress));
+            }
+        }
+
+        private void sortEntries(FastMap map) {
+            sortedEntries.clear();
+            final RecordCursor mapCursor = map.getCursor();
+            final MapRecord mapRecord = (MapRecord) mapCursor.getRecord();
+            while (mapCursor.hasNext()) {
+                sortedEntries.add(mapRecord.getValue().getLong(FIRST_ROW_ID_INDEX));
+                sortedEntries.add(mapRecord.getRowId());
+            }
+            Vect.sortLongIndexAscInPlace(sortedEntries.getAddress(), sortedEntries.size() / 2);
+        }
+    }
+}
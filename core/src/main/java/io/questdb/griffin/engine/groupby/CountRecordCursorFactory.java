@@ -65,6 +65,12 @@ public class CountRecordCursorFactory extends AbstractRecordCursorFactory {
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
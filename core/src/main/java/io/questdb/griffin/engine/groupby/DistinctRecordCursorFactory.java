@@ -25,9 +25,7 @@
 package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.*;
-import io.questdb.cairo.map.Map;
-import io.questdb.cairo.map.MapFactory;
-import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.*;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlException;
@@ -37,6 +35,13 @@ import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Streams the first occurrence of every distinct record in base order. With spilling enabled, see
+ * {@link CairoConfiguration#getSqlSpillThreshold()}, the map stops accepting keys once it outgrows the budget.
+ * The cursor then drains the base cursor, spilling row ids of records with unknown keys to disk partitioned by key hash,
+ * de-duplicates every partition on its own and finally re-scans the base cursor from the point where the map filled up,
+ * emitting the records that were found to be first occurrences. The output order is the same as without spilling.
+ */
 public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
 
     private final RecordCursorFactory base;
@@ -58,12 +63,18 @@ public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
         this.mapSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, false);
         this.dataMap = MapFactory.createMap(configuration, metadata);
         this.base = base;
-        this.cursor = new DistinctRecordCursor();
+        final long spillThreshold = configuration.getSqlSpillThreshold();
+        if (spillThreshold > 0 && dataMap instanceof FastMap && base.recordCursorSupportsRandomAccess()) {
+            this.cursor = new DistinctRecordCursor(new SpillPartitions(configuration), new SpillPartitions(configuration), spillThreshold);
+        } else {
+            this.cursor = new DistinctRecordCursor(null, null, Long.MAX_VALUE);
+        }
     }
 
     @Override
     protected void _close() {
         dataMap.close();
+        cursor.free();
         base.close();
     }
 
@@ -80,6 +91,12 @@ public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
@@ -91,19 +108,33 @@ public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
     }
 
     private static class DistinctRecordCursor implements RecordCursor {
+        // row ids of records with keys that didn't fit into the map
+        private final SpillPartitions spill;
+        // row ids of first occurrences found in the spilled partitions, in base order
+        private final SpillPartitions firsts;
+        private final long spillThreshold;
+        private final long[] firstsPositions;
         private RecordCursor baseCursor;
         private Map dataMap;
         private RecordSink recordSink;
         private Record record;
         private SqlExecutionCircuitBreaker circuitBreaker;
+        private long rowCount;
+        // number of leading base rows that have been emitted from the map, -1 until the map fills up
+        private long streamedRowCount;
 
-        public DistinctRecordCursor() {
+        public DistinctRecordCursor(SpillPartitions spill, SpillPartitions firsts, long spillThreshold) {
+            this.spill = spill;
+            this.firsts = firsts;
+            this.spillThreshold = spillThreshold;
+            this.firstsPositions = spill != null ? new long[spill.getPartitionCount()] : null;
         }
 
         @Override
         public void close() {
             Misc.free(baseCursor);
             dataMap.restoreInitialCapacity();
+            clearSpill();
         }
 
         @Override
@@ -123,12 +154,23 @@ public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
 
         @Override
         public boolean hasNext() {
+            if (streamedRowCount != -1) {
+                return nextSpilled();
+            }
             while (baseCursor.hasNext()) {
                 circuitBreaker.statefulThrowExceptionIfTripped();
+                rowCount++;
                 MapKey key = dataMap.withKey();
                 recordSink.copy(record, key);
-                if (key.create()) {
-                    return true;
+                if (spill == null || ((FastMap) dataMap).getAllocatedSize() < spillThreshold) {
+                    if (key.create()) {
+                        return true;
+                    }
+                } else if (key.notFound()) {
+                    streamedRowCount = rowCount - 1;
+                    spill.add(spill.partitionOf(((FastMap.Key) key).hash()), record.getRowId());
+                    spillRemaining();
+                    return nextSpilled();
                 }
             }
             return false;
@@ -148,6 +190,7 @@ public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
         public void toTop() {
             baseCursor.toTop();
             dataMap.clear();
+            clearSpill();
         }
 
         public void of(RecordCursor baseCursor, Map dataMap, RecordSink recordSink, SqlExecutionCircuitBreaker circuitBreaker) {
@@ -156,11 +199,79 @@ public class DistinctRecordCursorFactory extends AbstractRecordCursorFactory {
             this.recordSink = recordSink;
             this.record = baseCursor.getRecord();
             this.circuitBreaker = circuitBreaker;
+            clearSpill();
         }
 
         @Override
         public long size() {
             return -1;
         }
+
+        private void clearSpill() {
+            rowCount = 0;
+            streamedRowCount = -1;
+            if (spill != null) {
+                spill.clear();
+                firsts.clear();
+            }
+        }
+
+        private void free() {
+            Misc.free(spill);
+            Misc.free(firsts);
+        }
+
+        private boolean nextSpilled() {
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                if (rowCount++ < streamedRowCount) {
+                    continue;
+                }
+                final FastMap.Key key = ((FastMap) dataMap).withKey();
+                recordSink.copy(record, key);
+                final int partition = firsts.partitionOf(key.hash());
+                final long position = firstsPositions[partition];
+                if (position < firsts.size(partition) && firsts.get(partition, position) == record.getRowId()) {
+                    firstsPositions[partition] = position + 1;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void spillRemaining() {
+            final FastMap map = (FastMap) dataMap;
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final FastMap.Key key = map.withKey();
+                recordSink.copy(record, key);
+                if (key.notFound()) {
+                    spill.add(spill.partitionOf(key.hash()), record.getRowId());
+                }
+            }
+
+            // keys of the map have all been emitted, de-duplicate spilled partitions one by one
+            final Record recordB = baseCursor.getRecordB();
+            for (int p = 0, n = spill.getPartitionCount(); p < n; p++) {
+                map.clear();
+                for (long i = 0, size = spill.size(p); i < size; i++) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    final long rowId = spill.get(p, i);
+                    baseCursor.recordAt(recordB, rowId);
+                    final MapKey key = map.withKey();
+                    recordSink.copy(recordB, key);
+                    if (key.create()) {
+                        firsts.add(p, rowId);
+                    }
+                }
+                spill.release(p);
+                firstsPositions[p] = 0;
+            }
+            map.clear();
+
+            // re-scan base records past the ones that have already been emitted
+            baseCursor.toTop();
+            rowCount = 0;
+        }
     }
 }
@@ -85,6 +85,12 @@ public class DistinctTimeSeriesRecordCursorFactory extends AbstractRecordCursorF
         return cursor.of(base.getCursor(executionContext), executionContext);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
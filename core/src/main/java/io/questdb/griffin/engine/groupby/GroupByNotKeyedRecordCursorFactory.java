@@ -76,6 +76,12 @@ public class GroupByNotKeyedRecordCursorFactory extends AbstractRecordCursorFact
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
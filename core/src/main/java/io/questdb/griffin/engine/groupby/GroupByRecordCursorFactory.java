@@ -25,10 +25,7 @@
 package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.*;
-import io.questdb.cairo.map.Map;
-import io.questdb.cairo.map.MapFactory;
-import io.questdb.cairo.map.MapKey;
-import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.*;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlException;
@@ -40,6 +37,14 @@ import io.questdb.std.ObjList;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Keyed GROUP BY over a single map. When spilling is enabled, see {@link CairoConfiguration#getSqlSpillThreshold()},
+ * the factory runs a hybrid hash aggregation: once the map outgrows its budget, records with keys that are already
+ * in the map are still aggregated in place, while row ids of the remaining records are spilled to disk, partitioned
+ * by key hash. The cursor emits the in-memory groups first and then aggregates and emits the spilled partitions one
+ * by one, re-reading base records via {@link RecordCursor#recordAt(Record, long)}. Groups are unique across
+ * partitions, as the partition is a function of the key.
+ */
 public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
     protected final RecordCursorFactory base;
@@ -49,6 +54,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
     private final ObjList<GroupByFunction> groupByFunctions;
     // this sink is used to copy recordKeyMap keys to dataMap
     private final RecordSink mapSink;
+    private final SpillPartitions spill;
+    private final long spillThreshold;
 
     public GroupByRecordCursorFactory(
             CairoConfiguration configuration,
@@ -69,7 +76,14 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             this.base = base;
             this.groupByFunctions = groupByFunctions;
             this.recordFunctions = recordFunctions;
-            this.cursor = new VirtualFunctionSkewedSymbolRecordCursor(recordFunctions);
+            this.spillThreshold = configuration.getSqlSpillThreshold();
+            if (spillThreshold > 0 && dataMap instanceof FastMap && base.recordCursorSupportsRandomAccess()) {
+                this.spill = new SpillPartitions(configuration);
+                this.cursor = new SpillingGroupByRecordCursor(recordFunctions);
+            } else {
+                this.spill = null;
+                this.cursor = new VirtualFunctionSkewedSymbolRecordCursor(recordFunctions);
+            }
         } catch (Throwable e) {
             Misc.freeObjList(recordFunctions);
             throw e;
@@ -80,6 +94,7 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
     protected void _close() {
         Misc.freeObjList(recordFunctions);
         Misc.free(dataMap);
+        Misc.free(spill);
         Misc.free(base);
     }
 
@@ -91,6 +106,10 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
         try {
             Function.init(recordFunctions, baseCursor, executionContext);
+            if (spill != null) {
+                ((SpillingGroupByRecordCursor) cursor).of(baseCursor, circuitBreaker);
+                return cursor;
+            }
             final Record baseRecord = baseCursor.getRecord();
             final int n = groupByFunctions.size();
             while (baseCursor.hasNext()) {
@@ -105,17 +124,163 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             return cursor;
         } catch (Throwable e) {
             baseCursor.close();
+            if (spill != null) {
+                spill.clear();
+            }
             throw e;
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
-        return true;
+        return spill == null;
     }
 
     @Override
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
     }
+
+    private class SpillingGroupByRecordCursor extends VirtualFunctionSkewedSymbolRecordCursor {
+        private final SpillMapCursor mapCursor = new SpillMapCursor();
+
+        public SpillingGroupByRecordCursor(ObjList<Function> functions) {
+            super(functions);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            spill.clear();
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+            mapCursor.of(baseCursor, circuitBreaker);
+            of(baseCursor, mapCursor);
+        }
+    }
+
+    /**
+     * Iterates in-memory groups followed by the groups of every spilled partition.
+     */
+    private class SpillMapCursor implements RecordCursor {
+        private RecordCursor baseCursor;
+        private Record baseRecordB;
+        private SqlExecutionCircuitBreaker circuitBreaker;
+        private RecordCursor mapCursor;
+        private int partitionIndex;
+
+        @Override
+        public void close() {
+            // base cursor is managed by the outer cursor
+        }
+
+        @Override
+        public Record getRecord() {
+            return dataMap.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return mapCursor.getRecordB();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!mapCursor.hasNext()) {
+                if (!nextPartition()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            mapCursor.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return spill.isEmpty() ? dataMap.size() : -1;
+        }
+
+        @Override
+        public void toTop() {
+            if (spill.isEmpty()) {
+                mapCursor.toTop();
+            } else {
+                // partitions are gone once emitted, so start over
+                baseCursor.toTop();
+                aggregate();
+            }
+        }
+
+        private void aggregate() {
+            spill.clear();
+            // partitions may have grown the map, start from the same capacity to fill it with the same groups
+            dataMap.restoreInitialCapacity();
+            GroupByUtils.toTop(groupByFunctions);
+            partitionIndex = 0;
+
+            final FastMap map = (FastMap) dataMap;
+            final Record baseRecord = baseCursor.getRecord();
+            final int n = groupByFunctions.size();
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final FastMap.Key key = map.withKey();
+                mapSink.copy(baseRecord, key);
+                MapValue value;
+                if (map.getAllocatedSize() < spillThreshold) {
+                    value = key.createValue();
+                } else if ((value = key.findValue()) == null) {
+                    spill.add(spill.partitionOf(key.hash()), baseRecord.getRowId());
+                    continue;
+                }
+                GroupByUtils.updateFunctions(groupByFunctions, n, value, baseRecord);
+            }
+            mapCursor = dataMap.getCursor();
+        }
+
+        private boolean nextPartition() {
+            if (spill.isEmpty()) {
+                return false;
+            }
+            final int partitionCount = spill.getPartitionCount();
+            while (partitionIndex < partitionCount && spill.size(partitionIndex) == 0) {
+                partitionIndex++;
+            }
+            if (partitionIndex == partitionCount) {
+                return false;
+            }
+
+            // groups of the previous partition have been consumed by now
+            dataMap.clear();
+            GroupByUtils.toTop(groupByFunctions);
+            final int n = groupByFunctions.size();
+            for (long i = 0, size = spill.size(partitionIndex); i < size; i++) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                baseCursor.recordAt(baseRecordB, spill.get(partitionIndex, i));
+                final MapKey key = dataMap.withKey();
+                mapSink.copy(baseRecordB, key);
+                GroupByUtils.updateFunctions(groupByFunctions, n, key.createValue(), baseRecordB);
+            }
+            spill.release(partitionIndex++);
+            mapCursor = dataMap.getCursor();
+            return true;
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+            this.baseCursor = baseCursor;
+            this.baseRecordB = baseCursor.getRecordB();
+            this.circuitBreaker = circuitBreaker;
+            aggregate();
+        }
+    }
 }
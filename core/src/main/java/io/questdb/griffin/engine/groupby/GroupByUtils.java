@@ -29,6 +29,7 @@ import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.async.PageFrameSequence;
 import io.questdb.griffin.FunctionParser;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
@@ -41,6 +42,7 @@ import io.questdb.griffin.model.QueryModel;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
+import io.questdb.std.Os;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
 
@@ -251,12 +253,61 @@ public class GroupByUtils {
         validateGroupByColumns(model, inferredKeyColumnCount);
     }
 
+    public static boolean isParallelismSupported(ObjList<GroupByFunction> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (!groupByFunctions.getQuick(i).isParallelismSupported()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void mergeExisting(ObjList<GroupByFunction> destFunctions, ObjList<GroupByFunction> srcFunctions, int n, MapValue destValue, MapValue srcValue) {
+        for (int i = 0; i < n; i++) {
+            destFunctions.getQuick(i).mergeNext(destValue, srcValue, srcFunctions.getQuick(i));
+        }
+    }
+
+    public static void mergeNew(ObjList<GroupByFunction> destFunctions, ObjList<GroupByFunction> srcFunctions, int n, MapValue destValue, MapValue srcValue) {
+        for (int i = 0; i < n; i++) {
+            destFunctions.getQuick(i).mergeFirst(destValue, srcValue, srcFunctions.getQuick(i));
+        }
+    }
+
+    /**
+     * Dispatches all frames of the sequence and waits for them to be reduced. Frames that
+     * time out are still collected, so that the query is aborted with all tasks released.
+     */
+    public static void reduceAllFrames(PageFrameSequence<?> frameSequence) {
+        boolean allFramesActive = true;
+        for (int i = 0, n = frameSequence.getFrameCount(); i < n; ) {
+            final long cursor = frameSequence.next();
+            if (cursor > -1) {
+                allFramesActive &= frameSequence.isActive();
+                frameSequence.collect(cursor, false);
+                i++;
+            } else {
+                Os.pause();
+            }
+        }
+
+        if (!allFramesActive) {
+            throw CairoException.instance(0).put("timeout, query aborted").setInterruption(true);
+        }
+    }
+
     public static void toTop(ObjList<? extends Function> args) {
         for (int i = 0, n = args.size(); i < n; i++) {
             args.getQuick(i).toTop();
         }
     }
 
+    public static void updateExisting(ObjList<GroupByFunction> groupByFunctions, int n, MapValue value, Record record, long rowId) {
+        for (int i = 0; i < n; i++) {
+            groupByFunctions.getQuick(i).computeNext(value, record, rowId);
+        }
+    }
+
     public static void updateExisting(ObjList<GroupByFunction> groupByFunctions, int n, MapValue value, Record record) {
         for (int i = 0; i < n; i++) {
             groupByFunctions.getQuick(i).computeNext(value, record);
@@ -269,6 +320,12 @@ public class GroupByUtils {
         }
     }
 
+    public static void updateNew(ObjList<GroupByFunction> groupByFunctions, int n, MapValue value, Record record, long rowId) {
+        for (int i = 0; i < n; i++) {
+            groupByFunctions.getQuick(i).computeFirst(value, record, rowId);
+        }
+    }
+
     public static void updateEmpty(ObjList<GroupByFunction> groupByFunctions, int n, MapValue value) {
         for (int i = 0; i < n; i++) {
             groupByFunctions.getQuick(i).setEmpty(value);
@@ -369,4 +426,20 @@ public class GroupByUtils {
             updateExisting(groupByFunctions, n, value, record);
         }
     }
+
+    static void mergeFunctions(ObjList<GroupByFunction> destFunctions, ObjList<GroupByFunction> srcFunctions, int n, MapValue destValue, MapValue srcValue) {
+        if (destValue.isNew()) {
+            mergeNew(destFunctions, srcFunctions, n, destValue, srcValue);
+        } else {
+            mergeExisting(destFunctions, srcFunctions, n, destValue, srcValue);
+        }
+    }
+
+    static void updateFunctions(ObjList<GroupByFunction> groupByFunctions, int n, MapValue value, Record record, long rowId) {
+        if (value.isNew()) {
+            updateNew(groupByFunctions, n, value, record, rowId);
+        } else {
+            updateExisting(groupByFunctions, n, value, record, rowId);
+        }
+    }
 }
@@ -125,6 +125,12 @@ public class SampleByFirstLastRecordCursorFactory extends AbstractRecordCursorFa
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -387,6 +387,12 @@ public class SampleByInterpolateRecordCursorFactory extends AbstractRecordCursor
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
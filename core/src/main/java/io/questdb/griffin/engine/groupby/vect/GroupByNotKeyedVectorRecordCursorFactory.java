@@ -157,6 +157,12 @@ public class GroupByNotKeyedVectorRecordCursorFactory extends AbstractRecordCurs
         return this.cursor.of(cursor);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
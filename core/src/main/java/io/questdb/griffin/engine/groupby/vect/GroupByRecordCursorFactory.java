@@ -303,6 +303,12 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         return this.cursor.of(cursor);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -32,6 +32,7 @@ import io.questdb.cairo.map.Map;
 import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -100,6 +101,13 @@ public class AsOfJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         return this.cursor;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -25,6 +25,7 @@
 package io.questdb.griffin.engine.join;
 
 import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -78,6 +79,13 @@ public class AsOfJoinNoKeyRecordCursorFactory extends AbstractRecordCursorFactor
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.map.*;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -102,6 +103,13 @@ public class AsOfJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.sql.async.PerWorkerLocks;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
+
+/**
+ * Inner hash join that probes the join key map over page frames of the master factory
+ * in parallel. The map of slave keys is built on the query thread, just like in
+ * {@link HashJoinLightRecordCursorFactory} and {@link HashJoinRecordCursorFactory}, and
+ * is read-only for the rest of the query. Reducers look the map up via their own probe
+ * keys and collect matching master rows along with the head of the slave chain. The
+ * cursor then walks slave chains of the collected rows in master order.
+ * <p>
+ * When slave key sink for the record chain is not provided, the slave cursor must support
+ * random access and the chain holds slave row ids only.
+ */
+public class AsyncHashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncHashJoinRecordCursorFactory::probe;
+
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final RecordSink slaveKeySink;
+    private final FastMap joinKeyMap;
+    // exactly one of the chains is used, depending on whether slave supports random access
+    private final LongChain slaveRowIdChain;
+    private final RecordChain slaveRecordChain;
+    private final HashJoinAtom atom;
+    private final PageFrameSequence<HashJoinAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncHashJoinRecordCursor cursor;
+
+    public AsyncHashJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            RecordMetadata metadata,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            @Nullable RecordSink slaveChainSink,
+            int columnSplit,
+            int workerCount,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(metadata);
+        assert masterFactory.supportPageFrameCursor();
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.slaveKeySink = slaveKeySink;
+        this.joinKeyMap = new FastMap(
+                configuration.getSqlMapPageSize(),
+                joinColumnTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        if (slaveChainSink == null) {
+            this.slaveRowIdChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
+            this.slaveRecordChain = null;
+        } else {
+            this.slaveRowIdChain = null;
+            this.slaveRecordChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
+        }
+        // an extra slot is there for the threads that steal work, e.g. the query owner thread
+        this.atom = new HashJoinAtom(joinKeyMap, masterKeySink, workerCount + 1);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.cursor = new AsyncHashJoinRecordCursor(columnSplit);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(frameSequence);
+        Misc.free(atom);
+        Misc.free(joinKeyMap);
+        Misc.free(slaveRowIdChain);
+        Misc.free(slaveRecordChain);
+        Misc.free(cursor.masterRecord);
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(masterFactory);
+        Misc.free(slaveFactory);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        try {
+            buildMapOfSlaveRecords(slaveCursor, executionContext.getCircuitBreaker());
+            cursor.of(slaveCursor, frameSequence.of(masterFactory, executionContext, collectSubSeq, atom, ORDER_ANY));
+            return cursor;
+        } catch (Throwable e) {
+            Misc.free(slaveCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return masterFactory.hasDescendingOrder();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(CharSequence tableName) {
+        return masterFactory.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return masterFactory.usesCompiledFilter();
+    }
+
+    private static void probe(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final DirectLongList rows = task.getRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final HashJoinAtom atom = task.getFrameSequence(HashJoinAtom.class).getAtom();
+        final RecordSink masterKeySink = atom.masterKeySink;
+
+        rows.clear();
+        final int slot = atom.locks.acquireSlot(workerId);
+        try {
+            final FastMap.ProbeKey key = atom.perSlotKeys.getQuick(slot);
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                key.init();
+                masterKeySink.copy(record, key);
+                final MapValue value = key.findValue();
+                if (value != null) {
+                    // pairs of master row index and the head of the slave chain
+                    rows.add(r);
+                    rows.add(value.getLong(0));
+                }
+            }
+        } finally {
+            atom.locks.releaseSlot(slot);
+        }
+    }
+
+    private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (slaveRecordChain != null) {
+            HashOuterJoinRecordCursorFactory.buildMap(slaveCursor, slaveCursor.getRecord(), joinKeyMap, slaveKeySink, slaveRecordChain, circuitBreaker);
+            return;
+        }
+
+        slaveRowIdChain.clear();
+        joinKeyMap.clear();
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            MapKey key = joinKeyMap.withKey();
+            key.put(record, slaveKeySink);
+            MapValue value = key.createValue();
+            if (value.isNew()) {
+                final long offset = slaveRowIdChain.put(record.getRowId(), -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+            } else {
+                value.putLong(1, slaveRowIdChain.put(record.getRowId(), value.getLong(1)));
+            }
+        }
+    }
+
+    private static class HashJoinAtom implements StatefulAtom, Closeable {
+        private final RecordSink masterKeySink;
+        private final ObjList<FastMap.ProbeKey> perSlotKeys;
+        private final PerWorkerLocks locks;
+
+        private HashJoinAtom(FastMap joinKeyMap, RecordSink masterKeySink, int slotCount) {
+            this.masterKeySink = masterKeySink;
+            this.perSlotKeys = new ObjList<>(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                perSlotKeys.add(joinKeyMap.newProbeKey());
+            }
+            this.locks = new PerWorkerLocks(slotCount);
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjListAndClear(perSlotKeys);
+        }
+    }
+
+    private class AsyncHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final int columnSplit;
+        private final JoinRecord record;
+        private final PageAddressCacheRecord masterRecord;
+        private RecordCursor slaveCursor;
+        private Record slaveRecord;
+        private LongChain.TreeCursor slaveRowIdCursor;
+        private boolean slaveRecordsPending;
+        private PageFrameSequence<HashJoinAtom> frameSequence;
+        private DirectLongList rows;
+        // index of the next master row id / chain head pair in the rows list
+        private long rowIndex;
+        private long rowCount;
+        private int frameIndex;
+        private int frameLimit;
+        private long cursor = -1;
+        private boolean allFramesActive;
+        private boolean isOpen;
+
+        private AsyncHashJoinRecordCursor(int columnSplit) {
+            this.columnSplit = columnSplit;
+            this.record = new JoinRecord(columnSplit);
+            this.masterRecord = new PageAddressCacheRecord();
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                collectCursor(true);
+                if (frameLimit > -1) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                slaveCursor = Misc.free(slaveCursor);
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextSlaveRecord()) {
+                return true;
+            }
+
+            while (rowIndex >= rowCount) {
+                collectCursor(false);
+                if (frameIndex >= frameLimit) {
+                    if (!allFramesActive) {
+                        throw CairoException.instance(0).put("timeout, query aborted").setInterruption(true);
+                    }
+                    return false;
+                }
+                fetchNextFrame();
+            }
+
+            masterRecord.setRowIndex(rows.get(rowIndex));
+            final long chainHead = rows.get(rowIndex + 1);
+            rowIndex += 2;
+            if (slaveRecordChain != null) {
+                slaveRecordChain.of(chainHead);
+                slaveRecordsPending = true;
+            } else {
+                slaveRowIdCursor = slaveRowIdChain.getCursor(chainHead);
+            }
+            // chains are never empty
+            return nextSlaveRecord();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+            }
+            return slaveCursor.newSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            collectCursor(false);
+            frameSequence.toTop();
+            frameIndex = -1;
+            rowIndex = rowCount = 0;
+            slaveRowIdCursor = null;
+            slaveRecordsPending = false;
+            allFramesActive = true;
+        }
+
+        private void collectCursor(boolean forceCollect) {
+            if (cursor > -1) {
+                frameSequence.collect(cursor, forceCollect);
+                cursor = -1;
+            }
+        }
+
+        private void fetchNextFrame() {
+            do {
+                cursor = frameSequence.next();
+                if (cursor > -1) {
+                    final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    allFramesActive &= frameSequence.isActive();
+                    rows = task.getRows();
+                    rowCount = rows.size();
+                    rowIndex = 0;
+                    frameIndex = task.getFrameIndex();
+                    if (rowCount > 0 && frameSequence.isActive()) {
+                        masterRecord.setFrameIndex(frameIndex);
+                        break;
+                    }
+                    rowCount = 0;
+                    collectCursor(false);
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        }
+
+        private boolean nextSlaveRecord() {
+            if (slaveRecordChain != null) {
+                if (slaveRecordsPending && slaveRecordChain.hasNext()) {
+                    return true;
+                }
+                slaveRecordsPending = false;
+                return false;
+            }
+            if (slaveRowIdCursor != null && slaveRowIdCursor.hasNext()) {
+                slaveCursor.recordAt(slaveRecord, slaveRowIdCursor.next());
+                return true;
+            }
+            return false;
+        }
+
+        private void of(RecordCursor slaveCursor, PageFrameSequence<HashJoinAtom> frameSequence) {
+            this.slaveCursor = slaveCursor;
+            this.frameSequence = frameSequence;
+            this.isOpen = true;
+            frameIndex = -1;
+            frameLimit = frameSequence.getFrameCount() - 1;
+            rowIndex = rowCount = 0;
+            cursor = -1;
+            allFramesActive = true;
+            slaveRowIdCursor = null;
+            slaveRecordsPending = false;
+            masterRecord.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            if (slaveRecordChain != null) {
+                slaveRecordChain.setSymbolTableResolver(slaveCursor);
+                slaveRecord = slaveRecordChain.getRecord();
+            } else {
+                slaveRecord = slaveCursor.getRecordB();
+            }
+            record.of(masterRecord, slaveRecord);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
 import io.questdb.cairo.map.Map;
 import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
@@ -46,6 +47,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private final RecordCursorFactory slaveFactory;
     private final RecordSink masterKeySink;
     private final RecordSink slaveKeySink;
+    private final HashJoinSpill spill;
     private final HashJoinRecordCursor cursor;
 
     public HashJoinLightRecordCursorFactory(
@@ -67,6 +69,11 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
+        if (configuration.getSqlSpillThreshold() > 0 && joinKeyMap instanceof FastMap && masterFactory.recordCursorSupportsRandomAccess()) {
+            this.spill = new HashJoinSpill(configuration, joinColumnTypes, valueTypes);
+        } else {
+            this.spill = null;
+        }
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
     }
 
@@ -74,6 +81,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     protected void _close() {
         joinKeyMap.close();
         slaveChain.close();
+        Misc.free(spill);
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -86,15 +94,28 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         try {
             buildMapOfSlaveRecords(slaveCursor, executionContext.getCircuitBreaker());
             masterCursor = masterFactory.getCursor(executionContext);
+            if (spill != null && !spill.isEmpty()) {
+                spill.join((FastMap) joinKeyMap, masterCursor, masterKeySink, slaveCursor, slaveKeySink, executionContext.getCircuitBreaker());
+            }
             this.cursor.of(masterCursor, slaveCursor);
             return this.cursor;
         } catch (Throwable e) {
             Misc.free(slaveCursor);
             Misc.free(masterCursor);
+            if (spill != null) {
+                spill.clear();
+            }
             throw e;
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -113,12 +134,21 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
         slaveChain.clear();
         joinKeyMap.clear();
+        if (spill != null) {
+            spill.clear();
+        }
         final Record record = slaveCursor.getRecord();
         while (slaveCursor.hasNext()) {
             circuitBreaker.statefulThrowExceptionIfTripped();
             MapKey key = joinKeyMap.withKey();
             key.put(record, slaveKeySink);
-            MapValue value = key.createValue();
+            MapValue value;
+            if (spill == null || !spill.isOverBudget((FastMap) joinKeyMap)) {
+                value = key.createValue();
+            } else if ((value = key.findValue()) == null) {
+                spill.spill(key, record.getRowId());
+                continue;
+            }
             if (value.isNew()) {
                 final long offset = slaveChain.put(record.getRowId(), -1);
                 value.putLong(0, offset);
@@ -162,6 +192,17 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         public void toTop() {
             masterCursor.toTop();
             slaveChainCursor = null;
+            if (spill != null) {
+                spill.toTop();
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (spill != null) {
+                spill.clear();
+            }
         }
 
         @Override
@@ -171,6 +212,11 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
                 return true;
             }
 
+            if (spill != null && spill.hasNextMatch()) {
+                slaveCursor.recordAt(slaveRecord, spill.nextMatch());
+                return true;
+            }
+
             while (masterCursor.hasNext()) {
                 MapKey key = joinKeyMap.withKey();
                 key.put(masterRecord, masterKeySink);
@@ -183,6 +229,10 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
                     slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
                     return true;
                 }
+                if (spill != null && spill.findMatches(key, masterRecord.getRowId())) {
+                    slaveCursor.recordAt(slaveRecord, spill.nextMatch());
+                    return true;
+                }
             }
             return false;
         }
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.SpillPartitions;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Transient;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+/**
+ * Grace hash join state of a light hash join whose join key map has outgrown the memory budget,
+ * see {@link CairoConfiguration#getSqlSpillThreshold()}.
+ * <p>
+ * While the map is built, row ids of slave records with keys that are not in the map are spilled to
+ * partitions by key hash. Before the join cursor is handed out, {@link #join} spills row ids of master
+ * records with unknown keys that fall into non-empty slave partitions, then joins every partition on its
+ * own, with a fresh map. Matching pairs of master and slave row ids are written in master order, so that
+ * the join cursor merges them into its pass over the master cursor and the output order stays the same.
+ */
+public class HashJoinSpill implements Mutable, Closeable {
+    private final SpillPartitions slavePartitions;
+    private final SpillPartitions masterPartitions;
+    // pairs of master and slave row ids
+    private final SpillPartitions matches;
+    private final long[] matchPositions;
+    private final LongChain partitionChain;
+    private final CairoConfiguration configuration;
+    private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+    private final long spillThreshold;
+    // exists only while spilled partitions are joined, joins that fit in memory don't pay for it
+    private FastMap partitionMap;
+    private int partition = -1;
+    private long position;
+    private long masterRowId;
+
+    public HashJoinSpill(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes
+    ) {
+        this.configuration = configuration;
+        this.spillThreshold = configuration.getSqlSpillThreshold();
+        for (int i = 0, n = joinColumnTypes.getColumnCount(); i < n; i++) {
+            keyTypes.add(joinColumnTypes.getColumnType(i));
+        }
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            this.valueTypes.add(valueTypes.getColumnType(i));
+        }
+        this.slavePartitions = new SpillPartitions(configuration);
+        this.masterPartitions = new SpillPartitions(configuration);
+        this.matches = new SpillPartitions(configuration);
+        this.matchPositions = new long[matches.getPartitionCount()];
+        this.partitionChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
+    }
+
+    @Override
+    public void clear() {
+        slavePartitions.clear();
+        masterPartitions.clear();
+        matches.clear();
+        partitionMap = Misc.free(partitionMap);
+        partitionChain.clear();
+        partition = -1;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(slavePartitions);
+        Misc.free(masterPartitions);
+        Misc.free(matches);
+        Misc.free(partitionMap);
+        Misc.free(partitionChain);
+    }
+
+    /**
+     * Looks up spilled matches of the current master record, which is known not to have
+     * a match in the in-memory map.
+     *
+     * @param key         key of the master record written to the in-memory map
+     * @param masterRowId row id of the master record
+     * @return true when the master record has matches, they are then available via {@link #nextMatch()}
+     */
+    public boolean findMatches(MapKey key, long masterRowId) {
+        if (matches.isEmpty()) {
+            return false;
+        }
+        partition = matches.partitionOf(((FastMap.Key) key).hash());
+        position = matchPositions[partition];
+        this.masterRowId = masterRowId;
+        return hasNextMatch();
+    }
+
+    public boolean hasNextMatch() {
+        return partition != -1 && position < matches.size(partition) && matches.get(partition, position) == masterRowId;
+    }
+
+    public boolean isOverBudget(FastMap joinKeyMap) {
+        return joinKeyMap.getAllocatedSize() >= spillThreshold;
+    }
+
+    public boolean isEmpty() {
+        return slavePartitions.isEmpty();
+    }
+
+    /**
+     * Joins spilled partitions and leaves the master cursor at the top.
+     */
+    public void join(
+            FastMap joinKeyMap,
+            RecordCursor masterCursor,
+            RecordSink masterKeySink,
+            RecordCursor slaveCursor,
+            RecordSink slaveKeySink,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        final Record masterRecord = masterCursor.getRecord();
+        while (masterCursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final FastMap.Key key = joinKeyMap.withKey();
+            key.put(masterRecord, masterKeySink);
+            if (key.notFound()) {
+                final int p = slavePartitions.partitionOf(key.hash());
+                if (slavePartitions.size(p) > 0) {
+                    masterPartitions.add(p, masterRecord.getRowId());
+                }
+            }
+        }
+
+        if (partitionMap == null) {
+            partitionMap = new FastMap(
+                    configuration.getSqlMapPageSize(),
+                    keyTypes,
+                    valueTypes,
+                    configuration.getSqlMapKeyCapacity(),
+                    configuration.getSqlFastMapLoadFactor(),
+                    configuration.getSqlMapMaxResizes()
+            );
+        }
+        final Record masterRecordB = masterCursor.getRecordB();
+        final Record slaveRecordB = slaveCursor.getRecordB();
+        for (int p = 0, n = slavePartitions.getPartitionCount(); p < n; p++) {
+            if (masterPartitions.size(p) > 0) {
+                partitionMap.clear();
+                partitionChain.clear();
+                for (long i = 0, size = slavePartitions.size(p); i < size; i++) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    final long rowId = slavePartitions.get(p, i);
+                    slaveCursor.recordAt(slaveRecordB, rowId);
+                    final MapKey key = partitionMap.withKey();
+                    key.put(slaveRecordB, slaveKeySink);
+                    final MapValue value = key.createValue();
+                    if (value.isNew()) {
+                        final long offset = partitionChain.put(rowId, -1);
+                        value.putLong(0, offset);
+                        value.putLong(1, offset);
+                    } else {
+                        value.putLong(1, partitionChain.put(rowId, value.getLong(1)));
+                    }
+                }
+
+                for (long i = 0, size = masterPartitions.size(p); i < size; i++) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    final long rowId = masterPartitions.get(p, i);
+                    masterCursor.recordAt(masterRecordB, rowId);
+                    final MapKey key = partitionMap.withKey();
+                    key.put(masterRecordB, masterKeySink);
+                    final MapValue value = key.findValue();
+                    if (value != null) {
+                        final LongChain.TreeCursor chainCursor = partitionChain.getCursor(value.getLong(0));
+                        while (chainCursor.hasNext()) {
+                            matches.add(p, rowId);
+                            matches.add(p, chainCursor.next());
+                        }
+                    }
+                }
+            }
+            slavePartitions.release(p);
+            masterPartitions.release(p);
+        }
+        partitionMap = Misc.free(partitionMap);
+        partitionChain.clear();
+        masterCursor.toTop();
+        toTop();
+    }
+
+    public long nextMatch() {
+        final long slaveRowId = matches.get(partition, position + 1);
+        position += 2;
+        matchPositions[partition] = position;
+        return slaveRowId;
+    }
+
+    /**
+     * Spills slave record that has a key, which is not in the map.
+     *
+     * @param key        key of the slave record written to the in-memory map
+     * @param slaveRowId row id of the slave record
+     */
+    public void spill(MapKey key, long slaveRowId) {
+        slavePartitions.add(slavePartitions.partitionOf(((FastMap.Key) key).hash()), slaveRowId);
+    }
+
+    public void toTop() {
+        Arrays.fill(matchPositions, 0);
+        partition = -1;
+    }
+}
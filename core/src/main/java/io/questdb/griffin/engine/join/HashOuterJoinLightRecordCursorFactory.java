@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
 import io.questdb.cairo.map.Map;
 import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
@@ -46,6 +47,7 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
     private final RecordCursorFactory slaveFactory;
     private final RecordSink masterKeySink;
     private final RecordSink slaveKeySink;
+    private final HashJoinSpill spill;
     private final HashOuterJoinLightRecordCursor cursor;
 
     public HashOuterJoinLightRecordCursorFactory(
@@ -67,6 +69,11 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
         slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
+        if (configuration.getSqlSpillThreshold() > 0 && joinKeyMap instanceof FastMap && masterFactory.recordCursorSupportsRandomAccess()) {
+            this.spill = new HashJoinSpill(configuration, joinColumnTypes, valueTypes);
+        } else {
+            this.spill = null;
+        }
         this.cursor = new HashOuterJoinLightRecordCursor(
                 columnSplit,
                 joinKeyMap,
@@ -79,6 +86,7 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
     protected void _close() {
         joinKeyMap.close();
         slaveChain.close();
+        Misc.free(spill);
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -91,15 +99,28 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
         try {
             buildMapOfSlaveRecords(slaveCursor, executionContext.getCircuitBreaker());
             masterCursor = masterFactory.getCursor(executionContext);
+            if (spill != null && !spill.isEmpty()) {
+                spill.join((FastMap) joinKeyMap, masterCursor, masterKeySink, slaveCursor, slaveKeySink, executionContext.getCircuitBreaker());
+            }
             cursor.of(masterCursor, slaveCursor);
             return cursor;
         } catch (Throwable e) {
             Misc.free(slaveCursor);
             Misc.free(masterCursor);
+            if (spill != null) {
+                spill.clear();
+            }
             throw e;
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return false;
@@ -113,12 +134,21 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
     private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
         slaveChain.clear();
         joinKeyMap.clear();
+        if (spill != null) {
+            spill.clear();
+        }
         final Record record = slaveCursor.getRecord();
         while (slaveCursor.hasNext()) {
             circuitBreaker.statefulThrowExceptionIfTripped();
             MapKey key = joinKeyMap.withKey();
             key.put(record, slaveKeySink);
-            MapValue value = key.createValue();
+            MapValue value;
+            if (spill == null || !spill.isOverBudget((FastMap) joinKeyMap)) {
+                value = key.createValue();
+            } else if ((value = key.findValue()) == null) {
+                spill.spill(key, record.getRowId());
+                continue;
+            }
             if (value.isNew()) {
                 final long offset = slaveChain.put(record.getRowId(), -1);
                 value.putLong(0, offset);
@@ -167,6 +197,11 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
                 return true;
             }
 
+            if (spill != null && spill.hasNextMatch()) {
+                slaveCursor.recordAt(slaveRecord, spill.nextMatch());
+                return true;
+            }
+
             if (masterCursor.hasNext()) {
                 MapKey key = joinKeyMap.withKey();
                 key.put(masterRecord, masterKeySink);
@@ -178,6 +213,10 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
                     slaveChainCursor.hasNext();
                     slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
                     record.hasSlave(true);
+                } else if (spill != null && spill.findMatches(key, masterRecord.getRowId())) {
+                    slaveChainCursor = null;
+                    slaveCursor.recordAt(slaveRecord, spill.nextMatch());
+                    record.hasSlave(true);
                 } else {
                     slaveChainCursor = null;
                     record.hasSlave(false);
@@ -192,6 +231,17 @@ public class HashOuterJoinLightRecordCursorFactory extends AbstractRecordCursorF
         public void toTop() {
             masterCursor.toTop();
             slaveChainCursor = null;
+            if (spill != null) {
+                spill.toTop();
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (spill != null) {
+                spill.clear();
+            }
         }
 
         void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
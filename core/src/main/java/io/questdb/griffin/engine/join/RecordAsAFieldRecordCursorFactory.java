@@ -58,6 +58,12 @@ public class RecordAsAFieldRecordCursorFactory extends AbstractRecordCursorFacto
         Misc.free(base);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
@@ -49,6 +49,12 @@ public class AlterOperation extends AbstractOperation implements Mutable {
     public final static short RENAME_COLUMN = 9;
     public final static short SET_PARAM_MAX_UNCOMMITTED_ROWS = 10;
     public final static short SET_PARAM_COMMIT_LAG = 11;
+    public final static short ADD_COLUMN_COMPRESSION = 12;
+    public final static short REMOVE_COLUMN_COMPRESSION = 13;
+    public final static short CONVERT_PARTITION_TO_PARQUET = 14;
+    public final static short MOVE_PARTITION_TO_COLD = 15;
+    public final static short MOVE_PARTITION_TO_HOT = 16;
+    public final static short SET_PARAM_TTL = 17;
 
     private final static Log LOG = LogFactory.getLog(AlterOperation.class);
 
@@ -114,6 +120,24 @@ public class AlterOperation extends AbstractOperation implements Mutable {
                 case SET_PARAM_COMMIT_LAG:
                     applyParamCommitLag(tableWriter);
                     break;
+                case ADD_COLUMN_COMPRESSION:
+                    applySetColumnCompression(tableWriter, true);
+                    break;
+                case REMOVE_COLUMN_COMPRESSION:
+                    applySetColumnCompression(tableWriter, false);
+                    break;
+                case CONVERT_PARTITION_TO_PARQUET:
+                    applyConvertPartition(tableWriter);
+                    break;
+                case MOVE_PARTITION_TO_COLD:
+                    applyMovePartition(tableWriter, true);
+                    break;
+                case MOVE_PARTITION_TO_HOT:
+                    applyMovePartition(tableWriter, false);
+                    break;
+                case SET_PARAM_TTL:
+                    applyParamTtl(tableWriter);
+                    break;
                 default:
                     LOG.error().$("Invalid alter table command [code=").$(command).$(" ,table=").$(tableName).I$();
                     throw SqlException.$(tableNamePosition, "Invalid alter table command [code=").put(command).put(']');
@@ -309,6 +333,55 @@ public class AlterOperation extends AbstractOperation implements Mutable {
         }
     }
 
+    private void applyConvertPartition(TableWriter tableWriter) throws SqlException {
+        for (int i = 0, n = longList.size(); i < n; i++) {
+            long partitionTimestamp = longList.getQuick(i);
+            try {
+                if (!tableWriter.convertPartitionToParquet(partitionTimestamp)) {
+                    throw putPartitionName(SqlException.$(tableNamePosition, "could not convert partition '"),
+                            tableWriter.getPartitionBy(),
+                            partitionTimestamp).put('\'');
+                }
+            } catch (CairoException e) {
+                LOG.error().$("failed to convert partition [table=").$(tableName)
+                        .$(",ts=").$ts(partitionTimestamp)
+                        .$(",errno=").$(e.getErrno())
+                        .$(",error=").$(e.getFlyweightMessage())
+                        .I$();
+
+                throw putPartitionName(SqlException.$(tableNamePosition, "could not convert partition '"),
+                        tableWriter.getPartitionBy(),
+                        partitionTimestamp).put("'. ")
+                        .put(e.getFlyweightMessage());
+            }
+        }
+    }
+
+    private void applyMovePartition(TableWriter tableWriter, boolean cold) throws SqlException {
+        for (int i = 0, n = longList.size(); i < n; i++) {
+            long partitionTimestamp = longList.getQuick(i);
+            try {
+                if (!tableWriter.movePartition(partitionTimestamp, cold)) {
+                    throw putPartitionName(SqlException.$(tableNamePosition, "could not move partition '"),
+                            tableWriter.getPartitionBy(),
+                            partitionTimestamp).put('\'');
+                }
+            } catch (CairoException e) {
+                LOG.error().$("failed to move partition [table=").$(tableName)
+                        .$(",ts=").$ts(partitionTimestamp)
+                        .$(",cold=").$(cold)
+                        .$(",errno=").$(e.getErrno())
+                        .$(",error=").$(e.getFlyweightMessage())
+                        .I$();
+
+                throw putPartitionName(SqlException.$(tableNamePosition, "could not move partition '"),
+                        tableWriter.getPartitionBy(),
+                        partitionTimestamp).put("'. ")
+                        .put(e.getFlyweightMessage());
+            }
+        }
+    }
+
     private void applyDropColumn(TableWriter writer) throws SqlException {
         for (int i = 0, n = charSequenceList.size(); i < n; i++) {
             CharSequence columnName = charSequenceList.getStrA(i);
@@ -354,6 +427,11 @@ public class AlterOperation extends AbstractOperation implements Mutable {
         tableWriter.setMetaCommitLag(commitLag);
     }
 
+    private void applyParamTtl(TableWriter tableWriter) {
+        long ttl = longList.get(0);
+        tableWriter.setMetaTtl(ttl);
+    }
+
     private void applyParamUncommittedRows(TableWriter tableWriter) {
         int maxUncommittedRows = (int) longList.get(0);
         tableWriter.setMetaMaxUncommittedRows(maxUncommittedRows);
@@ -375,6 +453,19 @@ public class AlterOperation extends AbstractOperation implements Mutable {
         }
     }
 
+    private void applySetColumnCompression(TableWriter tableWriter, boolean compressed) throws SqlException {
+        CharSequence columnName = charSequenceList.getStrA(0);
+        try {
+            tableWriter.setColumnCompressed(columnName, compressed);
+        } catch (CairoException e) {
+            throw SqlException.position(tableNamePosition)
+                    .put(e.getFlyweightMessage())
+                    .put("[errno=")
+                    .put(e.getErrno())
+                    .put(']');
+        }
+    }
+
     private void applySetSymbolCache(TableWriter tableWriter, boolean isCacheOn) throws SqlException {
         CharSequence columnName = charSequenceList.getStrA(0);
         int columnIndex = tableWriter.getMetadata().getColumnIndexQuiet(columnName);
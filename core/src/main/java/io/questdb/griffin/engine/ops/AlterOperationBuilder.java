@@ -112,6 +112,15 @@ public class AlterOperationBuilder {
         return this;
     }
 
+    public AlterOperationBuilder ofColumnCompression(int tableNamePosition, String tableName, int tableId, CharSequence columnName, boolean compressed) {
+        this.command = compressed ? ADD_COLUMN_COMPRESSION : REMOVE_COLUMN_COMPRESSION;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.tableId = tableId;
+        this.objCharList.add(columnName);
+        return this;
+    }
+
     public AlterOperationBuilder ofDropColumn(CharSequence columnName) {
         assert columnName != null && columnName.length() > 0;
         this.objCharList.add(columnName);
@@ -126,6 +135,22 @@ public class AlterOperationBuilder {
         return this;
     }
 
+    public AlterOperationBuilder ofConvertPartition(int tableNamePosition, String tableName, int tableId) {
+        this.command = CONVERT_PARTITION_TO_PARQUET;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.tableId = tableId;
+        return this;
+    }
+
+    public AlterOperationBuilder ofMovePartition(int tableNamePosition, String tableName, int tableId, boolean cold) {
+        this.command = cold ? MOVE_PARTITION_TO_COLD : MOVE_PARTITION_TO_HOT;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.tableId = tableId;
+        return this;
+    }
+
     public AlterOperationBuilder ofDropPartition(int tableNamePosition, String tableName, int tableId) {
         this.command = DROP_PARTITION;
         this.tableNamePosition = tableNamePosition;
@@ -150,6 +175,14 @@ public class AlterOperationBuilder {
         return this;
     }
 
+    public AlterOperationBuilder ofSetParamTtl(String tableName, int tableId, long ttl) {
+        this.command = SET_PARAM_TTL;
+        this.tableName = tableName;
+        this.longList.add(ttl);
+        this.tableId = tableId;
+        return this;
+    }
+
     public AlterOperationBuilder ofSetParamUncommittedRows(String tableName, int tableId, int maxUncommittedRows) {
         this.command = SET_PARAM_MAX_UNCOMMITTED_ROWS;
         this.tableName = tableName;
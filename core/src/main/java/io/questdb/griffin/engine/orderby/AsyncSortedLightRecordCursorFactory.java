@@ -0,0 +1,654 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.SpillPartitions;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.sql.async.PerWorkerLocks;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.ProfiledRecordCursorFactory;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
+
+/**
+ * Sorts page frames of the base factory by a single fixed-width column in parallel and merges
+ * the sorted runs on the fly. Reducers turn every row of the frame into a pair of unsigned sort
+ * key and row id and radix sort the pairs, so that each frame becomes a sorted run. The cursor
+ * copies the runs into a single buffer, or into a spill file when the runs don't fit into
+ * {@link CairoConfiguration#getSqlSpillThreshold()}, and then streams rows out of a k-way merge.
+ * <p>
+ * The order of rows with equal keys is the same as in {@link SortedLightRecordCursorFactory},
+ * i.e. the reverse of the base cursor order. Reducers emit pairs in reverse row order, radix sort
+ * is stable and the merge prefers later frames on ties.
+ * <p>
+ * With LIMIT the factory is a parallel version of {@link LimitedSizeSortedLightRecordCursorFactory}.
+ * Reducers keep the top N pairs of their frame only and the cursor merges just enough pairs to
+ * fill the limit. Rows with equal keys are picked the way {@link LimitedSizeLongTreeChain} picks them,
+ * i.e. the earliest rows of the base cursor win.
+ * <p>
+ * The base factory is either a page frame factory or a non-JIT {@link AsyncFilteredRecordCursorFactory}
+ * over one. In the latter case reducers evaluate the filter before they sort the frame, so that
+ * the scan, the filter and the sort all run on the worker pool.
+ */
+public class AsyncSortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncSortedLightRecordCursorFactory::sortFrame;
+
+    private final RecordCursorFactory base;
+    private final RecordCursorFactory frameFactory;
+    private final SortAtom atom;
+    private final PageFrameSequence<SortAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final MemoryCARW runs;
+    private final DirectLongList topRows;
+    private final SpillPartitions spill;
+    private final long spillThreshold;
+    private final Function loFunction;
+    private final Function hiFunction;
+    private final AsyncSortedLightRecordCursor cursor;
+
+    public AsyncSortedLightRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            RecordMetadata metadata,
+            @NotNull RecordCursorFactory base,
+            int columnIndex,
+            boolean descending,
+            @Nullable Function loFunction,
+            @Nullable Function hiFunction,
+            int workerCount,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(metadata);
+        assert isSupported(base);
+        assert isSupported(base.getMetadata().getColumnType(columnIndex));
+        this.base = base;
+        final AsyncFilteredRecordCursorFactory.FilterAtom filterAtom;
+        final RecordCursorFactory unwrapped = ProfiledRecordCursorFactory.unwrap(base);
+        if (unwrapped instanceof AsyncFilteredRecordCursorFactory) {
+            this.frameFactory = ((AsyncFilteredRecordCursorFactory) unwrapped).getBaseFactory();
+            filterAtom = ((AsyncFilteredRecordCursorFactory) unwrapped).getFilterAtom();
+        } else {
+            this.frameFactory = base;
+            filterAtom = null;
+        }
+        // an extra slot is there for the threads that steal work, e.g. the query owner thread
+        this.atom = new SortAtom(
+                columnIndex,
+                base.getMetadata().getColumnType(columnIndex),
+                descending,
+                filterAtom,
+                workerCount + 1
+        );
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.runs = Vm.getCARWInstance(
+                configuration.getSqlSortLightValuePageSize(),
+                configuration.getSqlSortLightValueMaxPages(),
+                MemoryTag.NATIVE_TREE_CHAIN
+        );
+        this.topRows = loFunction != null ? new DirectLongList(16, MemoryTag.NATIVE_TREE_CHAIN) : null;
+        this.spillThreshold = configuration.getSqlSpillThreshold();
+        this.spill = spillThreshold > 0 ? new SpillPartitions(configuration) : null;
+        this.loFunction = loFunction;
+        this.hiFunction = hiFunction;
+        this.cursor = new AsyncSortedLightRecordCursor();
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static boolean isSupported(RecordCursorFactory base) {
+        if (base.hasDescendingOrder()) {
+            // equal keys would come out in a different order than from the tree chain
+            return false;
+        }
+        if (ProfiledRecordCursorFactory.unwrap(base) instanceof AsyncFilteredRecordCursorFactory) {
+            return !base.followedLimitAdvice();
+        }
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(frameSequence);
+        Misc.free(atom);
+        Misc.free(runs);
+        Misc.free(topRows);
+        Misc.free(spill);
+        Misc.free(cursor.record);
+        Misc.free(cursor.recordB);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        try {
+            cursor.initLimit(executionContext);
+            atom.of(cursor.limit, cursor.lastN);
+            cursor.of(frameSequence.of(frameFactory, executionContext, collectSubSeq, atom, ORDER_ANY));
+            return cursor;
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return loFunction != null;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static long keyOf(PageAddressCacheRecord record, int columnIndex, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return record.getByte(columnIndex);
+            case ColumnType.SHORT:
+                return record.getShort(columnIndex);
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex);
+            case ColumnType.INT:
+                return record.getInt(columnIndex);
+            default:
+                return record.getLong(columnIndex);
+        }
+    }
+
+    private static void sortFrame(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final DirectLongList rows = task.getRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final int frameIndex = task.getFrameIndex();
+        final SortAtom atom = task.getFrameSequence(SortAtom.class).getAtom();
+        final int columnIndex = atom.columnIndex;
+        final int columnType = atom.columnType;
+        final long keyMask = atom.keyMask;
+        final long limit = atom.limit;
+        final Function filter = atom.filterAtom != null ? atom.filterAtom.getFilter(workerId) : null;
+
+        rows.clear();
+        if (limit < 0) {
+            // pairs of sort key and row id, rows go in reverse order to match the tree chain order of equal keys
+            for (long r = frameRowCount - 1; r > -1; r--) {
+                record.setRowIndex(r);
+                if (filter == null || filter.getBool(record)) {
+                    rows.add(keyOf(record, columnIndex, columnType) ^ keyMask);
+                    rows.add(Rows.toRowID(frameIndex, r));
+                }
+            }
+        } else {
+            // earlier rows win ties in the limited size tree chain, so rows go in their natural order
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                if (filter == null || filter.getBool(record)) {
+                    rows.add(keyOf(record, columnIndex, columnType) ^ keyMask);
+                    rows.add(Rows.toRowID(frameIndex, r));
+                }
+            }
+        }
+
+        final long pairCount = rows.size() / 2;
+        final int slot = atom.locks.acquireSlot(workerId);
+        try {
+            final DirectLongList scratch = atom.perSlotScratch.getQuick(slot);
+            if (scratch.getCapacity() < rows.size()) {
+                scratch.setCapacity(rows.size());
+            }
+            Vect.radixSortLongIndexAscInPlace(rows.getAddress(), pairCount, scratch.getAddress());
+        } finally {
+            atom.locks.releaseSlot(slot);
+        }
+
+        if (limit > -1 && pairCount > limit) {
+            rows.setPos(2 * limit);
+        }
+    }
+
+    private static class SortAtom implements StatefulAtom, Closeable {
+        private final int columnIndex;
+        private final int columnType;
+        private final boolean descending;
+        private final AsyncFilteredRecordCursorFactory.FilterAtom filterAtom;
+        private final ObjList<DirectLongList> perSlotScratch;
+        private final PerWorkerLocks locks;
+        // flipping the sign bit turns signed order into unsigned one, radix sort compares keys as unsigned;
+        // flipping the rest of the bits on top of that reverses the order
+        private long keyMask;
+        // number of pairs reducers keep per frame, -1 to keep all of them
+        private long limit;
+
+        private SortAtom(
+                int columnIndex,
+                int columnType,
+                boolean descending,
+                @Nullable AsyncFilteredRecordCursorFactory.FilterAtom filterAtom,
+                int slotCount
+        ) {
+            this.columnIndex = columnIndex;
+            this.columnType = columnType;
+            this.descending = descending;
+            this.filterAtom = filterAtom;
+            this.perSlotScratch = new ObjList<>(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                perSlotScratch.add(new DirectLongList(16, MemoryTag.NATIVE_TREE_CHAIN));
+            }
+            this.locks = new PerWorkerLocks(slotCount);
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjListAndClear(perSlotScratch);
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            if (filterAtom != null) {
+                filterAtom.init(symbolTableSource, executionContext);
+            }
+        }
+
+        private void of(long limit, boolean lastN) {
+            this.limit = limit;
+            // last N rows are the first N rows in the opposite order
+            this.keyMask = descending != lastN ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+    }
+
+    private class AsyncSortedLightRecordCursor implements RecordCursor {
+        private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+        // start and end of every run, in longs, indexed by frame
+        private final LongList runStarts = new LongList();
+        private final LongList runEnds = new LongList();
+        // position of the next pair of every run
+        private final LongList runPositions = new LongList();
+        // binary heap of run indexes ordered by the key of the next pair
+        private final IntList heap = new IntList();
+        private PageAddressCacheRecord recordB;
+        private PageFrameSequence<SortAtom> frameSequence;
+        // limit semantics are the same as in LimitedSizeSortedLightRecordCursorFactory
+        private long limit;
+        private long skipFirst;
+        private long skipLast;
+        private boolean lastN;
+        private long rowCount;
+        private long rowsLeft;
+        private long topRowIndex;
+        private long cursor = -1;
+        private int frameLimit = -1;
+        private boolean spilled;
+        private boolean isOpen;
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                collectCursor(true);
+                if (frameLimit > -1) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                runs.jumpTo(0);
+                if (spill != null) {
+                    spill.clear();
+                }
+                heap.clear();
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            recordB = new PageAddressCacheRecord(record);
+            return recordB;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (rowsLeft-- > 0) {
+                if (limit > -1) {
+                    recordAt(record, topRows.get(2 * topRowIndex++ + 1));
+                } else {
+                    recordAt(record, nextMergedRowId());
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+            ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return Math.max(rowCount - skipFirst - skipLast, 0);
+        }
+
+        @Override
+        public void toTop() {
+            rowsLeft = size();
+            if (limit > -1) {
+                topRowIndex = skipFirst;
+                return;
+            }
+            resetMerge();
+            for (long i = 0; i < skipFirst && i < rowCount; i++) {
+                nextMergedRowId();
+            }
+        }
+
+        private void collectCursor(boolean forceCollect) {
+            if (cursor > -1) {
+                frameSequence.collect(cursor, forceCollect);
+                cursor = -1;
+            }
+        }
+
+        private void collectRuns() {
+            final int frameCount = frameSequence.getFrameCount();
+            runStarts.setAll(frameCount, 0);
+            runEnds.setAll(frameCount, 0);
+            runPositions.setAll(frameCount, 0);
+
+            long estimatedRowCount = 0;
+            for (int i = 0; i < frameCount; i++) {
+                estimatedRowCount += limit > -1
+                        ? Math.min(frameSequence.getFrameRowCount(i), limit)
+                        : frameSequence.getFrameRowCount(i);
+            }
+            spilled = spill != null && estimatedRowCount * 2 * Long.BYTES > spillThreshold;
+
+            boolean allFramesActive = true;
+            long offset = 0;
+            int frameIndex = -1;
+            while (frameIndex < frameLimit) {
+                cursor = frameSequence.next();
+                if (cursor > -1) {
+                    final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    allFramesActive &= frameSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+                    if (frameSequence.isActive()) {
+                        final DirectLongList rows = task.getRows();
+                        final long size = rows.size();
+                        if (spilled) {
+                            spill.add(0, rows.getAddress(), size);
+                        } else {
+                            runs.putBlockOfBytes(rows.getAddress(), size * Long.BYTES);
+                        }
+                        runStarts.setQuick(frameIndex, offset);
+                        offset += size;
+                        runEnds.setQuick(frameIndex, offset);
+                    }
+                    collectCursor(false);
+                } else {
+                    Os.pause();
+                }
+            }
+
+            if (!allFramesActive) {
+                throw CairoException.instance(0).put("timeout, query aborted").setInterruption(true);
+            }
+            rowCount = offset / 2;
+        }
+
+        private void collectTopRows() {
+            topRows.clear();
+            if (rowCount > limit) {
+                rowCount = limit;
+            }
+            resetMerge();
+            for (long i = 0; i < rowCount; i++) {
+                final int run = heap.getQuick(0);
+                final long position = runPositions.getQuick(run);
+                topRows.add(pairKey(position));
+                topRows.add(pairValue(position));
+                advanceMerge(run, position);
+            }
+
+            // the kept rows are in (key, row id) order now, the tree chain returns them in
+            // (key, reverse row id) order; last N rows come with inverted keys, so reversing
+            // the whole list does the job for them
+            long lo = 0;
+            while (lo < rowCount) {
+                long hi = lo + 1;
+                if (!lastN) {
+                    final long key = topRows.get(2 * lo);
+                    while (hi < rowCount && topRows.get(2 * hi) == key) {
+                        hi++;
+                    }
+                } else {
+                    hi = rowCount;
+                }
+                for (long i = lo, j = hi - 1; i < j; i++, j--) {
+                    final long rowId = topRows.get(2 * i + 1);
+                    topRows.set(2 * i + 1, topRows.get(2 * j + 1));
+                    topRows.set(2 * j + 1, rowId);
+                }
+                lo = hi;
+            }
+        }
+
+        private void advanceMerge(int run, long position) {
+            final int heapSize = heap.size();
+            if (position + 2 < runEnds.getQuick(run)) {
+                runPositions.setQuick(run, position + 2);
+            } else {
+                heap.setQuick(0, heap.getQuick(heapSize - 1));
+                heap.setPos(heapSize - 1);
+            }
+            if (heap.size() > 0) {
+                siftDown(0);
+            }
+        }
+
+        private void initLimit(SqlExecutionContext executionContext) throws SqlException {
+            limit = -1;
+            skipFirst = skipLast = 0;
+            lastN = false;
+            if (loFunction == null) {
+                return;
+            }
+
+            loFunction.init(null, executionContext);
+            if (hiFunction != null) {
+                hiFunction.init(null, executionContext);
+            }
+            final long lo = loFunction.getLong(null);
+            if (hiFunction == null) {
+                if (lo < 0) {
+                    // last N rows
+                    limit = -lo;
+                    lastN = true;
+                } else {
+                    // first N rows
+                    limit = lo;
+                }
+            } else {
+                final long hi = hiFunction.getLong(null);
+                if (lo < 0) {
+                    if (lo < hi) {
+                        // e.g. -10,-5 is five rows away from the tail
+                        limit = -lo;
+                        lastN = true;
+                        skipLast = Math.max(-hi, 0);
+                    } else {
+                        // invalid bottom range, e.g. -3,-10
+                        limit = 0;
+                    }
+                } else if (hi < 0) {
+                    // from lo-th row up to hi-th row from the end, the size of the result is unknown
+                    skipFirst = lo;
+                    skipLast = -hi;
+                } else if (hi <= lo) {
+                    limit = 0;
+                } else {
+                    limit = hi;
+                    skipFirst = lo;
+                }
+            }
+        }
+
+        private boolean less(int runA, int runB) {
+            final int cmp = Long.compareUnsigned(
+                    pairKey(runPositions.getQuick(runA)),
+                    pairKey(runPositions.getQuick(runB))
+            );
+            // later runs win ties of the full sort and earlier runs win ties of the limited one, see class comment
+            return cmp < 0 || (cmp == 0 && (limit > -1 ? runA < runB : runA > runB));
+        }
+
+        private long nextMergedRowId() {
+            final int run = heap.getQuick(0);
+            final long position = runPositions.getQuick(run);
+            final long rowId = pairValue(position);
+            advanceMerge(run, position);
+            return rowId;
+        }
+
+        private void of(PageFrameSequence<SortAtom> frameSequence) {
+            this.frameSequence = frameSequence;
+            this.isOpen = true;
+            frameLimit = frameSequence.getFrameCount() - 1;
+            cursor = -1;
+            runs.jumpTo(0);
+            record.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            if (recordB != null) {
+                recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            }
+            collectRuns();
+            if (limit > -1) {
+                collectTopRows();
+            }
+            toTop();
+        }
+
+        private long pairKey(long position) {
+            return spilled ? spill.get(0, position) : runs.getLong(position << 3);
+        }
+
+        private long pairValue(long position) {
+            return spilled ? spill.get(0, position + 1) : runs.getLong((position + 1) << 3);
+        }
+
+        private void resetMerge() {
+            heap.clear();
+            for (int i = 0, n = runStarts.size(); i < n; i++) {
+                final long start = runStarts.getQuick(i);
+                runPositions.setQuick(i, start);
+                if (start < runEnds.getQuick(i)) {
+                    heap.add(i);
+                }
+            }
+            for (int i = (heap.size() >> 1) - 1; i > -1; i--) {
+                siftDown(i);
+            }
+        }
+
+        private void siftDown(int index) {
+            final int size = heap.size();
+            final int run = heap.getQuick(index);
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap.getQuick(child + 1), heap.getQuick(child))) {
+                    child++;
+                }
+                if (!less(heap.getQuick(child), run)) {
+                    break;
+                }
+                heap.setQuick(index, heap.getQuick(child));
+                index = child;
+            }
+            heap.setQuick(index, run);
+        }
+    }
+}
@@ -207,6 +207,12 @@ public class LimitedSizeSortedLightRecordCursorFactory extends AbstractRecordCur
                 hiFunction.getLong(null) < 0);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -36,6 +36,7 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.mp.SCSequence;
 import io.questdb.mp.Sequence;
 import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -56,6 +57,8 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
     private final Function limitLoFunction;
     private final int limitLoPos;
     private final int maxNegativeLimit;
+    // why the filter is not JIT compiled, null when JIT compilation was not attempted
+    private final String jitFallbackReason;
     private DirectLongList negativeLimitRows;
 
     public AsyncFilteredRecordCursorFactory(
@@ -66,7 +69,8 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
             @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
             @Nullable ObjList<Function> perWorkerFilters,
             @Nullable Function limitLoFunction,
-            int limitLoPos
+            int limitLoPos,
+            @Nullable CharSequence jitFallbackReason
     ) {
         super(base.getMetadata());
         assert !(base instanceof AsyncFilteredRecordCursorFactory);
@@ -78,6 +82,7 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         this.limitLoFunction = limitLoFunction;
         this.limitLoPos = limitLoPos;
         this.maxNegativeLimit = configuration.getSqlMaxNegativeLimit();
+        this.jitFallbackReason = Chars.toString(jitFallbackReason);
     }
 
     @Override
@@ -135,6 +140,36 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         return frameSequence.of(base, executionContext, collectSubSeq, filterAtom, order);
     }
 
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    /**
+     * Filter atom for reducers of other factories that evaluate the filter as part of their own
+     * reduce step, see {@link io.questdb.griffin.engine.orderby.AsyncSortedLightRecordCursorFactory}.
+     * The atom remains owned by this factory.
+     */
+    public FilterAtom getFilterAtom() {
+        return filterAtom;
+    }
+
+    /**
+     * @return reason the filter is evaluated by Java code instead of JIT compiled code or null
+     * when JIT compilation was not attempted for the filter
+     */
+    public String getJitFallbackReason() {
+        return jitFallbackReason;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        if (jitFallbackReason != null) {
+            sink.attr("jitFallbackReason").val(jitFallbackReason);
+        }
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
@@ -145,6 +180,17 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         return base.supportsUpdateRowId(tableName);
     }
 
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AsyncFilteredRecordCursorFactory\"");
+        if (jitFallbackReason != null) {
+            sink.put(", \"jitFallbackReason\":").putQuoted(jitFallbackReason);
+        }
+        sink.put(", \"base\":");
+        base.toSink(sink);
+        sink.put('}');
+    }
+
     @Override
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
@@ -170,7 +216,7 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         }
     }
 
-    private static class FilterAtom implements StatefulAtom, Closeable {
+    public static class FilterAtom implements StatefulAtom, Closeable {
 
         private final Function filter;
         private final ObjList<Function> perWorkerFilters;
@@ -145,6 +145,13 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         return frameSequence.of(base, executionContext, collectSubSeq, filterAtom, order);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.attr("jit").val(true);
+        sink.child(base);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -213,6 +220,82 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         rows.setPos(hi);
     }
 
+    static void prepareBindVarMemory(
+            MemoryCARW bindVarMemory,
+            ObjList<Function> bindVarFunctions,
+            SymbolTableSource symbolTableSource,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        bindVarMemory.truncate();
+        for (int i = 0, n = bindVarFunctions.size(); i < n; i++) {
+            Function function = bindVarFunctions.getQuick(i);
+            writeBindVarFunction(bindVarMemory, function, symbolTableSource, executionContext);
+        }
+    }
+
+    private static void writeBindVarFunction(
+            MemoryCARW bindVarMemory,
+            Function function,
+            SymbolTableSource symbolTableSource,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final int columnType = function.getType();
+        final int columnTypeTag = ColumnType.tagOf(columnType);
+        switch (columnTypeTag) {
+            case ColumnType.BOOLEAN:
+                bindVarMemory.putLong(function.getBool(null) ? 1 : 0);
+                return;
+            case ColumnType.BYTE:
+                bindVarMemory.putLong(function.getByte(null));
+                return;
+            case ColumnType.GEOBYTE:
+                bindVarMemory.putLong(function.getGeoByte(null));
+                return;
+            case ColumnType.SHORT:
+                bindVarMemory.putLong(function.getShort(null));
+                return;
+            case ColumnType.GEOSHORT:
+                bindVarMemory.putLong(function.getGeoShort(null));
+                return;
+            case ColumnType.CHAR:
+                bindVarMemory.putLong(function.getChar(null));
+                return;
+            case ColumnType.INT:
+                bindVarMemory.putLong(function.getInt(null));
+                return;
+            case ColumnType.GEOINT:
+                bindVarMemory.putLong(function.getGeoInt(null));
+                return;
+            case ColumnType.SYMBOL:
+                assert function instanceof CompiledFilterSymbolBindVariable;
+                function.init(symbolTableSource, executionContext);
+                bindVarMemory.putLong(function.getInt(null));
+                return;
+            case ColumnType.FLOAT:
+                // compiled filter function will read only the first word
+                bindVarMemory.putFloat(function.getFloat(null));
+                bindVarMemory.putFloat(Float.NaN);
+                return;
+            case ColumnType.LONG:
+                bindVarMemory.putLong(function.getLong(null));
+                return;
+            case ColumnType.GEOLONG:
+                bindVarMemory.putLong(function.getGeoLong(null));
+                return;
+            case ColumnType.DATE:
+                bindVarMemory.putLong(function.getDate(null));
+                return;
+            case ColumnType.TIMESTAMP:
+                bindVarMemory.putLong(function.getTimestamp(null));
+                return;
+            case ColumnType.DOUBLE:
+                bindVarMemory.putDouble(function.getDouble(null));
+                return;
+            default:
+                throw SqlException.position(0).put("unsupported bind variable type: ").put(ColumnType.nameOf(columnTypeTag));
+        }
+    }
+
     private static class FilterAtom implements StatefulAtom, Closeable {
 
         private final Function filter;
@@ -250,7 +333,7 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
                 }
             }
             Function.init(bindVarFunctions, symbolTableSource, executionContext);
-            prepareBindVarMemory(symbolTableSource, executionContext);
+            prepareBindVarMemory(bindVarMemory, bindVarFunctions, symbolTableSource, executionContext);
         }
 
         @Override
@@ -268,75 +351,5 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
             }
             return perWorkerFilters.getQuick(workerId);
         }
-
-        private void prepareBindVarMemory(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
-            bindVarMemory.truncate();
-            for (int i = 0, n = bindVarFunctions.size(); i < n; i++) {
-                Function function = bindVarFunctions.getQuick(i);
-                writeBindVarFunction(function, symbolTableSource, executionContext);
-            }
-        }
-
-        private void writeBindVarFunction(
-                Function function,
-                SymbolTableSource symbolTableSource,
-                SqlExecutionContext executionContext
-        ) throws SqlException {
-            final int columnType = function.getType();
-            final int columnTypeTag = ColumnType.tagOf(columnType);
-            switch (columnTypeTag) {
-                case ColumnType.BOOLEAN:
-                    bindVarMemory.putLong(function.getBool(null) ? 1 : 0);
-                    return;
-                case ColumnType.BYTE:
-                    bindVarMemory.putLong(function.getByte(null));
-                    return;
-                case ColumnType.GEOBYTE:
-                    bindVarMemory.putLong(function.getGeoByte(null));
-                    return;
-                case ColumnType.SHORT:
-                    bindVarMemory.putLong(function.getShort(null));
-                    return;
-                case ColumnType.GEOSHORT:
-                    bindVarMemory.putLong(function.getGeoShort(null));
-                    return;
-                case ColumnType.CHAR:
-                    bindVarMemory.putLong(function.getChar(null));
-                    return;
-                case ColumnType.INT:
-                    bindVarMemory.putLong(function.getInt(null));
-                    return;
-                case ColumnType.GEOINT:
-                    bindVarMemory.putLong(function.getGeoInt(null));
-                    return;
-                case ColumnType.SYMBOL:
-                    assert function instanceof CompiledFilterSymbolBindVariable;
-                    function.init(symbolTableSource, executionContext);
-                    bindVarMemory.putLong(function.getInt(null));
-                    return;
-                case ColumnType.FLOAT:
-                    // compiled filter function will read only the first word
-                    bindVarMemory.putFloat(function.getFloat(null));
-                    bindVarMemory.putFloat(Float.NaN);
-                    return;
-                case ColumnType.LONG:
-                    bindVarMemory.putLong(function.getLong(null));
-                    return;
-                case ColumnType.GEOLONG:
-                    bindVarMemory.putLong(function.getGeoLong(null));
-                    return;
-                case ColumnType.DATE:
-                    bindVarMemory.putLong(function.getDate(null));
-                    return;
-                case ColumnType.TIMESTAMP:
-                    bindVarMemory.putLong(function.getTimestamp(null));
-                    return;
-                case ColumnType.DOUBLE:
-                    bindVarMemory.putDouble(function.getDouble(null));
-                    return;
-                default:
-                    throw SqlException.position(0).put("unsupported bind variable type: ").put(ColumnType.nameOf(columnTypeTag));
-            }
-        }
     }
 }
@@ -0,0 +1,515 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.sql.async.PerWorkerLocks;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.groupby.GroupByUtils;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_DESC;
+
+/**
+ * Parallel version of {@link LatestByAllFilteredRecordCursorFactory}, i.e. LATEST BY over keys
+ * that have no usable index: multi-column keys and non-symbol keys. LATEST BY over a single
+ * non-indexed symbol stays serial, that cursor stops once every symbol is found and does not
+ * open older partitions at all.
+ * <p>
+ * Page frames of the table come newest first, and reducers scan every frame backwards into
+ * per-slot maps of key to the newest row id of the key. Row ids are built from the position of
+ * the frame in the table rather than from the frame index, so that the largest row id is always
+ * the newest row. The cursor merges the slot maps, sorts the surviving row ids and returns
+ * the rows in timestamp order, same as the serial factory.
+ * <p>
+ * When all key columns are symbols the number of possible keys is known upfront. Reducers then
+ * record the newest frame every key was found in and, once all keys are found, the frames that
+ * are older than the oldest of those frames can't hold the latest row of any key. Such frames
+ * are skipped without being scanned, which is how the serial factory would stop early on
+ * a table with a small key set.
+ */
+public class AsyncLatestByRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncLatestByRecordCursorFactory::latestBy;
+    // reducers look for the early termination flag every so many rows
+    private static final long FRAME_LIMIT_CHECK_MASK = 0xfff;
+    // early termination is off for key sets bigger than this, the frame tracking array would be too large
+    private static final long MAX_TRACKED_KEY_COUNT = 4 * 1024 * 1024;
+
+    private final RecordCursorFactory base;
+    private final LatestByAtom atom;
+    private final PageFrameSequence<LatestByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final FastMap mergeMap;
+    private final DirectLongList rows;
+    private final AsyncLatestByRecordCursor cursor;
+
+    public AsyncLatestByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            @NotNull RecordSink recordSink,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @NotNull IntList keyColumnIndexes,
+            @Nullable Function filter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            int workerCount,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(base.getMetadata());
+        assert base.supportPageFrameCursor();
+        this.base = base;
+        final ArrayColumnTypes keyTypesCopy = new ArrayColumnTypes();
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            keyTypesCopy.add(keyTypes.getColumnType(i));
+        }
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        valueTypes.add(ColumnType.LONG);
+        // an extra slot is there for the threads that steal work, e.g. the query owner thread
+        this.atom = new LatestByAtom(
+                configuration,
+                recordSink,
+                keyTypesCopy,
+                valueTypes,
+                symbolKeyColumns(base.getMetadata(), keyColumnIndexes),
+                filter != null ? new AsyncFilteredRecordCursorFactory.FilterAtom(filter, perWorkerFilters) : null,
+                workerCount + 1
+        );
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.mergeMap = createMap(configuration, keyTypesCopy, valueTypes);
+        this.rows = new DirectLongList(configuration.getSqlLatestByRowCount(), MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+        this.cursor = new AsyncLatestByRecordCursor();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(frameSequence);
+        Misc.free(atom);
+        Misc.free(mergeMap);
+        Misc.free(rows);
+        Misc.free(cursor.record);
+        Misc.free(cursor.recordB);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        try {
+            cursor.of(frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_DESC));
+            return cursor;
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
+    private static FastMap createMap(CairoConfiguration configuration, ColumnTypes keyTypes, ColumnTypes valueTypes) {
+        return new FastMap(
+                configuration.getSqlMapPageSize(),
+                keyTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+    }
+
+    private static void latestBy(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final LatestByAtom atom = task.getFrameSequence(LatestByAtom.class).getAtom();
+        final int frameIndex = task.getFrameIndex();
+        if (frameIndex > atom.frameIndexLimit) {
+            return;
+        }
+
+        final long frameRowCount = task.getFrameRowCount();
+        // frames are newest first, reversed frame index grows with time
+        final int framePosition = task.getFrameSequence(LatestByAtom.class).getFrameCount() - 1 - frameIndex;
+        final Function filter = atom.filterAtom != null ? atom.filterAtom.getFilter(workerId) : null;
+
+        final int slot = atom.locks.acquireSlot(workerId);
+        try {
+            final FastMap map = atom.getOrCreateMap(slot);
+            for (long r = frameRowCount - 1; r > -1; r--) {
+                if ((r & FRAME_LIMIT_CHECK_MASK) == 0 && frameIndex > atom.frameIndexLimit) {
+                    break;
+                }
+                record.setRowIndex(r);
+                if (filter != null && !filter.getBool(record)) {
+                    continue;
+                }
+                final long rowId = Rows.toRowID(framePosition, r);
+                final MapKey key = map.withKey();
+                key.put(record, atom.mapSink);
+                final MapValue value = key.createValue();
+                if (value.isNew() || value.getLong(0) < rowId) {
+                    // the slot hasn't seen the key in a newer frame, so the shared tracking may need an update
+                    value.putLong(0, rowId);
+                    atom.trackKey(record, frameIndex);
+                }
+            }
+        } finally {
+            atom.locks.releaseSlot(slot);
+        }
+    }
+
+    private static void mergeRowIds(MapValue destValue, MapValue srcValue) {
+        // new keys come with the source value already
+        if (!destValue.isNew() && destValue.getLong(0) < srcValue.getLong(0)) {
+            destValue.putLong(0, srcValue.getLong(0));
+        }
+    }
+
+    private static IntList symbolKeyColumns(RecordMetadata metadata, IntList keyColumnIndexes) {
+        for (int i = 0, n = keyColumnIndexes.size(); i < n; i++) {
+            final int columnIndex = keyColumnIndexes.getQuick(i);
+            if (!ColumnType.isSymbol(metadata.getColumnType(columnIndex)) || !metadata.isSymbolTableStatic(columnIndex)) {
+                return null;
+            }
+        }
+        final IntList columns = new IntList(keyColumnIndexes.size());
+        columns.addAll(keyColumnIndexes);
+        return columns;
+    }
+
+    private static class LatestByAtom implements StatefulAtom, Closeable {
+        private final CairoConfiguration configuration;
+        private final RecordSink mapSink;
+        private final ColumnTypes keyTypes;
+        private final ColumnTypes valueTypes;
+        // symbol key columns when early termination is possible, null otherwise
+        private final IntList symbolColumns;
+        private final IntList cardinalities;
+        private final AsyncFilteredRecordCursorFactory.FilterAtom filterAtom;
+        // partial maps are created on first use, small tables don't need all of them
+        private final ObjList<FastMap> perSlotMaps = new ObjList<>();
+        private final PerWorkerLocks locks;
+        private final AtomicInteger foundKeyCount = new AtomicInteger();
+        // frames with greater index hold no latest rows, set once all keys are found
+        private volatile int frameIndexLimit;
+        // newest frame every symbol key was found in, indexed by the combined symbol key
+        private long frameIndexesAddress;
+        private long frameIndexesCapacity;
+        private int trackedKeyCount;
+
+        private LatestByAtom(
+                CairoConfiguration configuration,
+                RecordSink mapSink,
+                ColumnTypes keyTypes,
+                ColumnTypes valueTypes,
+                @Nullable IntList symbolColumns,
+                @Nullable AsyncFilteredRecordCursorFactory.FilterAtom filterAtom,
+                int slotCount
+        ) {
+            this.configuration = configuration;
+            this.mapSink = mapSink;
+            this.keyTypes = keyTypes;
+            this.valueTypes = valueTypes;
+            this.symbolColumns = symbolColumns;
+            this.cardinalities = symbolColumns != null ? new IntList(symbolColumns.size()) : null;
+            this.filterAtom = filterAtom;
+            this.locks = new PerWorkerLocks(slotCount);
+            perSlotMaps.setPos(slotCount);
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjListAndClear(perSlotMaps);
+            Misc.free(filterAtom);
+            if (frameIndexesAddress != 0) {
+                Unsafe.free(frameIndexesAddress, frameIndexesCapacity, MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+                frameIndexesAddress = 0;
+                frameIndexesCapacity = 0;
+            }
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            if (filterAtom != null) {
+                filterAtom.init(symbolTableSource, executionContext);
+            }
+            for (int i = 0, n = perSlotMaps.size(); i < n; i++) {
+                final FastMap map = perSlotMaps.getQuick(i);
+                if (map != null) {
+                    map.clear();
+                }
+            }
+            frameIndexLimit = Integer.MAX_VALUE;
+            foundKeyCount.set(0);
+            initTracking(symbolTableSource);
+        }
+
+        private void clear() {
+            for (int i = 0, n = perSlotMaps.size(); i < n; i++) {
+                final FastMap map = perSlotMaps.getQuick(i);
+                if (map != null) {
+                    map.restoreInitialCapacity();
+                }
+            }
+        }
+
+        private FastMap getOrCreateMap(int slot) {
+            FastMap map = perSlotMaps.getQuick(slot);
+            if (map == null) {
+                map = createMap(configuration, keyTypes, valueTypes);
+                perSlotMaps.setQuick(slot, map);
+            }
+            return map;
+        }
+
+        private void initTracking(SymbolTableSource symbolTableSource) {
+            trackedKeyCount = 0;
+            if (symbolColumns == null) {
+                return;
+            }
+
+            cardinalities.clear();
+            long keyCount = 1;
+            for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+                final SymbolTable symbolTable = symbolTableSource.getSymbolTable(symbolColumns.getQuick(i));
+                if (!(symbolTable instanceof StaticSymbolTable)) {
+                    return;
+                }
+                final StaticSymbolTable staticSymbolTable = (StaticSymbolTable) symbolTable;
+                // null is a key of its own, but only when the column has ever seen one
+                final int cardinality = staticSymbolTable.getSymbolCount() + (staticSymbolTable.containsNullValue() ? 1 : 0);
+                cardinalities.add(cardinality);
+                keyCount *= cardinality;
+                if (keyCount > MAX_TRACKED_KEY_COUNT) {
+                    return;
+                }
+            }
+            if (keyCount == 0) {
+                return;
+            }
+
+            final long size = keyCount * Integer.BYTES;
+            if (frameIndexesCapacity < size) {
+                frameIndexesAddress = Unsafe.realloc(frameIndexesAddress, frameIndexesCapacity, size, MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+                frameIndexesCapacity = size;
+            }
+            Vect.memset(frameIndexesAddress, size, 0xff);
+            trackedKeyCount = (int) keyCount;
+        }
+
+        private void trackKey(Record record, int frameIndex) {
+            if (trackedKeyCount == 0) {
+                return;
+            }
+
+            long index = 0;
+            for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+                final int cardinality = cardinalities.getQuick(i);
+                final int symbol = record.getInt(symbolColumns.getQuick(i));
+                final int key = symbol == SymbolTable.VALUE_IS_NULL ? cardinality - 1 : symbol;
+                if (key < 0 || key >= cardinality) {
+                    return;
+                }
+                index = index * cardinality + key;
+            }
+
+            // the array starts filled with -1, i.e. "not found yet"
+            final long address = frameIndexesAddress + index * Integer.BYTES;
+            while (true) {
+                final int current = Unsafe.getUnsafe().getIntVolatile(null, address);
+                if (current != -1 && current <= frameIndex) {
+                    return;
+                }
+                if (Unsafe.getUnsafe().compareAndSwapInt(null, address, current, frameIndex)) {
+                    if (current == -1 && foundKeyCount.incrementAndGet() == trackedKeyCount) {
+                        // every key is found now; frames are newest first, so the oldest of the newest
+                        // frames of the keys is the last one that may still hold a latest row
+                        int limit = 0;
+                        for (long p = frameIndexesAddress, lim = p + (long) trackedKeyCount * Integer.BYTES; p < lim; p += Integer.BYTES) {
+                            limit = Math.max(limit, Unsafe.getUnsafe().getIntVolatile(null, p));
+                        }
+                        frameIndexLimit = limit;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private class AsyncLatestByRecordCursor implements RecordCursor {
+        private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+        private PageAddressCacheRecord recordB;
+        private PageFrameSequence<LatestByAtom> frameSequence;
+        private int frameCount;
+        private long index;
+        private boolean isOpen;
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                if (frameCount > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                atom.clear();
+                mergeMap.restoreInitialCapacity();
+                rows.clear();
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            recordB = new PageAddressCacheRecord(record);
+            return recordB;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < rows.size()) {
+                recordAt(record, rows.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+            ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return rows.size();
+        }
+
+        @Override
+        public void toTop() {
+            index = 0;
+        }
+
+        private void collectRows() {
+            FastMap map = null;
+            int nonEmptyCount = 0;
+            for (int i = 0, n = atom.perSlotMaps.size(); i < n; i++) {
+                final FastMap slotMap = atom.perSlotMaps.getQuick(i);
+                if (slotMap != null && slotMap.size() > 0) {
+                    map = slotMap;
+                    nonEmptyCount++;
+                }
+            }
+            if (map == null) {
+                return;
+            }
+
+            if (nonEmptyCount > 1) {
+                mergeMap.clear();
+                for (int i = 0, n = atom.perSlotMaps.size(); i < n; i++) {
+                    final FastMap slotMap = atom.perSlotMaps.getQuick(i);
+                    if (slotMap != null && slotMap.size() > 0) {
+                        mergeMap.merge(slotMap, AsyncLatestByRecordCursorFactory::mergeRowIds);
+                    }
+                }
+                map = mergeMap;
+            }
+
+            final RecordCursor mapCursor = map.getCursor();
+            final MapRecord mapRecord = map.getRecord();
+            while (mapCursor.hasNext()) {
+                rows.add(mapRecord.getValue().getLong(0));
+            }
+
+            // row ids grow with time, turn them into frame row ids once they are in timestamp order
+            rows.sortAsUnsigned();
+            for (long i = 0, n = rows.size(); i < n; i++) {
+                final long rowId = rows.get(i);
+                rows.set(i, Rows.toRowID(frameCount - 1 - Rows.toPartitionIndex(rowId), Rows.toLocalRowID(rowId)));
+            }
+        }
+
+        private void of(PageFrameSequence<LatestByAtom> frameSequence) {
+            this.frameSequence = frameSequence;
+            this.isOpen = true;
+            frameCount = frameSequence.getFrameCount();
+            rows.clear();
+            record.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            if (recordB != null) {
+                recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            }
+            if (frameCount > 0) {
+                GroupByUtils.reduceAllFrames(frameSequence);
+                collectRows();
+            }
+            toTop();
+        }
+    }
+}
@@ -77,6 +77,12 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
         factoriesB.clear();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.child(recordCursorFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.SeekableRowCursor;
+
+/**
+ * Intersection of two ascending row cursors. Cursors leapfrog each other, the one that is behind
+ * seeks to the row of the other, so that neither list of rows is materialized. Seekable cursors,
+ * such as cursors of compressed index, skip whole chunks of rows.
+ */
+class IntersectRowCursor implements RowCursor {
+    private RowCursor cursorA;
+    private RowCursor cursorB;
+    private long next;
+    private long rowB;
+
+    @Override
+    public boolean hasNext() {
+        if (!cursorA.hasNext()) {
+            return false;
+        }
+        long rowA = cursorA.next();
+        while (true) {
+            if (rowB < rowA && (rowB = seek(cursorB, rowA)) < 0) {
+                return false;
+            }
+            if (rowB == rowA) {
+                next = rowA;
+                return true;
+            }
+            if ((rowA = seek(cursorA, rowB)) < 0) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public long next() {
+        return next;
+    }
+
+    public void of(RowCursor cursorA, RowCursor cursorB) {
+        this.cursorA = cursorA;
+        this.cursorB = cursorB;
+        this.rowB = -1;
+    }
+
+    /**
+     * @return first row of the cursor that is greater than or equal to given row, -1 when there is none
+     */
+    private static long seek(RowCursor cursor, long row) {
+        if (cursor instanceof SeekableRowCursor) {
+            ((SeekableRowCursor) cursor).seek(row);
+        }
+        while (cursor.hasNext()) {
+            final long next = cursor.next();
+            if (next >= row) {
+                return next;
+            }
+        }
+        return -1;
+    }
+}
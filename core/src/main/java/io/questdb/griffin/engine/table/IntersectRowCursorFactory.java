@@ -0,0 +1,70 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.RowCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+
+/**
+ * Rows, which are returned by both factories, e.g. intersection of two symbol indexes for
+ * <code>where a = 'x' and b = 'y'</code>. Both factories must return rows in ascending order.
+ */
+public class IntersectRowCursorFactory implements RowCursorFactory {
+    private final RowCursorFactory factoryA;
+    private final RowCursorFactory factoryB;
+    private final IntersectRowCursor cursor = new IntersectRowCursor();
+
+    public IntersectRowCursorFactory(RowCursorFactory factoryA, RowCursorFactory factoryB) {
+        this.factoryA = factoryA;
+        this.factoryB = factoryB;
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        cursor.of(factoryA.getCursor(dataFrame), factoryB.getCursor(dataFrame));
+        return cursor;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        factoryA.prepareCursor(tableReader, sqlExecutionContext);
+        factoryB.prepareCursor(tableReader, sqlExecutionContext);
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+
+    @Override
+    public boolean isUsingIndex() {
+        return true;
+    }
+}
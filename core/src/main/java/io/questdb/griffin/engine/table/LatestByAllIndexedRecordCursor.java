@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.table;
 import io.questdb.MessageBus;
 import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.CompressedBitmapIndexReader;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.vm.api.MemoryR;
@@ -133,7 +134,11 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
         long foundRowCount = 0;
         while ((frame = this.dataFrameCursor.next()) != null && foundRowCount < keyCount) {
             doneLatch.reset();
-            final BitmapIndexReader indexReader = frame.getBitmapIndexReader(frameColumnIndex, BitmapIndexReader.DIR_BACKWARD);
+            BitmapIndexReader indexReader = frame.getBitmapIndexReader(frameColumnIndex, BitmapIndexReader.DIR_BACKWARD);
+            if (indexReader instanceof CompressedBitmapIndexReader) {
+                // native code walks value blocks of regular index
+                indexReader = ((CompressedBitmapIndexReader) indexReader).inflate();
+            }
 
             final long rowLo = frame.getRowLo();
             final long rowHi = frame.getRowHi() - 1;
@@ -104,6 +104,12 @@ public class LatestBySubQueryRecordCursorFactory extends AbstractTreeSetRecordCu
         return super.getCursorInstance(dataFrameCursor, executionContext);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.child(recordCursorFactory);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderMetadata;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.vm.NullMemoryMR;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.jit.CompiledFilter;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Filters ranges of rows of table reader partitions, such as rows appended to the table since
+ * the last look at it. Ranges are filtered by the JIT-compiled filter when there is one and the
+ * range has no column tops, the filter function is evaluated row by row otherwise.
+ */
+public class TableReaderRowFilter implements Closeable {
+    private final Function filter;
+    private final CompiledFilter compiledFilter;
+    private final ObjList<Function> bindVarFunctions;
+    private final MemoryCARW bindVarMemory;
+    private final DirectLongList columns;
+    private final DirectLongList rows;
+    private final TableReaderRecord record = new TableReaderRecord();
+    private TableReader reader;
+
+    public TableReaderRowFilter(
+            CairoConfiguration configuration,
+            @NotNull Function filter,
+            @Nullable CompiledFilter compiledFilter,
+            @Nullable ObjList<Function> bindVarFunctions
+    ) {
+        this.filter = filter;
+        this.compiledFilter = compiledFilter;
+        this.bindVarFunctions = bindVarFunctions;
+        if (compiledFilter != null) {
+            this.bindVarMemory = Vm.getCARWInstance(configuration.getSqlJitBindVarsMemoryPageSize(),
+                    configuration.getSqlJitBindVarsMemoryMaxPages(), MemoryTag.NATIVE_JIT);
+            this.columns = new DirectLongList(configuration.getPageFrameReduceColumnListCapacity(), MemoryTag.NATIVE_JIT_LONG_LIST);
+        } else {
+            this.bindVarMemory = null;
+            this.columns = null;
+        }
+        this.rows = new DirectLongList(configuration.getPageFrameReduceRowIdListCapacity(), MemoryTag.NATIVE_JIT_LONG_LIST);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(filter);
+        Misc.free(compiledFilter);
+        Misc.freeObjList(bindVarFunctions);
+        Misc.free(bindVarMemory);
+        Misc.free(columns);
+        Misc.free(rows);
+        reader = null;
+    }
+
+    /**
+     * Finds rows of the partition within [lo, hi) matching the filter.
+     *
+     * @param partitionIndex index of open partition
+     * @param lo             first row of the range
+     * @param hi             row after the last row of the range
+     * @return indexes of matching rows within the partition, valid until the next call
+     */
+    public DirectLongList filter(int partitionIndex, long lo, long hi) {
+        rows.clear();
+        final long rowCount = hi - lo;
+        if (rowCount <= 0) {
+            return rows;
+        }
+        if (rows.getCapacity() < rowCount) {
+            rows.setCapacity(rowCount);
+        }
+        if (compiledFilter == null || !prepareColumns(partitionIndex, lo)) {
+            for (long r = lo; r < hi; r++) {
+                record.jumpTo(partitionIndex, r);
+                if (filter.getBool(record)) {
+                    rows.add(r);
+                }
+            }
+            return rows;
+        }
+
+        final long size = compiledFilter.call(
+                columns.getAddress(),
+                columns.size(),
+                bindVarMemory.getAddress(),
+                bindVarFunctions.size(),
+                rows.getAddress(),
+                rowCount,
+                lo
+        );
+        rows.setPos(size);
+        return rows;
+    }
+
+    /**
+     * Initializes the filter against the reader, call after every reload of the reader so that
+     * the filter picks up symbol values added since.
+     */
+    public void init(TableReader reader, SqlExecutionContext executionContext) throws SqlException {
+        this.reader = reader;
+        record.of(reader);
+        filter.init(reader, executionContext);
+        if (compiledFilter != null) {
+            Function.init(bindVarFunctions, reader, executionContext);
+            AsyncJitFilteredRecordCursorFactory.prepareBindVarMemory(bindVarMemory, bindVarFunctions, reader, executionContext);
+        }
+    }
+
+    public boolean usesCompiledFilter() {
+        return compiledFilter != null;
+    }
+
+    // collects addresses of the first row of the range for all columns, returns false when
+    // the range has column tops, which the compiled filter is not aware of
+    private boolean prepareColumns(int partitionIndex, long lo) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        final int base = reader.getColumnBase(partitionIndex);
+        if (columns.getCapacity() < columnCount) {
+            columns.setCapacity(columnCount);
+        }
+        columns.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryR col = reader.getColumn(TableReader.getPrimaryColumnIndex(base, i));
+            final long top = reader.getColumnTop(base, i);
+            if (col instanceof NullMemoryMR || top > lo) {
+                return false;
+            }
+            final int columnType = metadata.getColumnType(i);
+            if (ColumnType.isVariableLength(columnType)) {
+                // compiled filters do not read variable length columns
+                columns.add(0);
+            } else {
+                columns.add(col.getPageAddress(0) + ((lo - top) << ColumnType.pow2SizeOf(columnType)));
+            }
+        }
+        return true;
+    }
+}
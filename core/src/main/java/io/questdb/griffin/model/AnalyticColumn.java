@@ -30,9 +30,19 @@ import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FRAMING_DEFAULT = 0;
+    public static final int FRAMING_ROWS = 1;
+    public static final int FRAMING_RANGE = 2;
+    // frame bounds are offsets relative to the current row, in rows or in units of the order by column
+    public static final long UNBOUNDED_PRECEDING = Long.MIN_VALUE;
+    public static final long CURRENT_ROW = 0;
+    public static final long UNBOUNDED_FOLLOWING = Long.MAX_VALUE;
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
+    private int framingMode = FRAMING_DEFAULT;
+    private long frameLo = UNBOUNDED_PRECEDING;
+    private long frameHi = CURRENT_ROW;
 
     private AnalyticColumn() {
     }
@@ -48,6 +58,21 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        framingMode = FRAMING_DEFAULT;
+        frameLo = UNBOUNDED_PRECEDING;
+        frameHi = CURRENT_ROW;
+    }
+
+    public long getFrameHi() {
+        return frameHi;
+    }
+
+    public long getFrameLo() {
+        return frameLo;
+    }
+
+    public int getFramingMode() {
+        return framingMode;
     }
 
     public ObjList<ExpressionNode> getPartitionBy() {
@@ -62,6 +87,12 @@ public final class AnalyticColumn extends QueryColumn {
         return orderByDirection;
     }
 
+    public void setFrame(int framingMode, long frameLo, long frameHi) {
+        this.framingMode = framingMode;
+        this.frameLo = frameLo;
+        this.frameHi = frameHi;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
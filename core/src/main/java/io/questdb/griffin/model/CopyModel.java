@@ -24,6 +24,8 @@
 
 package io.questdb.griffin.model;
 
+import io.questdb.cairo.PartitionBy;
+import io.questdb.std.Chars;
 import io.questdb.std.Mutable;
 import io.questdb.std.ObjectFactory;
 import io.questdb.std.Sinkable;
@@ -31,12 +33,53 @@ import io.questdb.std.str.CharSink;
 
 public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<CopyModel> FACTORY = CopyModel::new;
+    public static final int FORMAT_TEXT = 0;
+    public static final int FORMAT_CSV = 1;
+    public static final int FORMAT_BINARY = 2;
     private ExpressionNode tableName;
     private ExpressionNode fileName;
     private boolean header;
+    private int partitionBy = PartitionBy.NONE;
+    private CharSequence timestampColumnName;
+    private byte delimiter = -1;
+    private int format = FORMAT_TEXT;
+
+    public static int formatOf(CharSequence tok) {
+        if (Chars.equalsLowerCaseAscii(tok, "text")) {
+            return FORMAT_TEXT;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "csv")) {
+            return FORMAT_CSV;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "binary")) {
+            return FORMAT_BINARY;
+        }
+        return -1;
+    }
 
     @Override
     public void clear() {
+        format = FORMAT_TEXT;
+        header = false;
+        partitionBy = PartitionBy.NONE;
+        timestampColumnName = null;
+        delimiter = -1;
+    }
+
+    public byte getDelimiter() {
+        return delimiter;
+    }
+
+    public void setDelimiter(byte delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public void setFormat(int format) {
+        this.format = format;
     }
 
     public ExpressionNode getFileName() {
@@ -52,6 +95,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return ExecutionModel.COPY;
     }
 
+    public int getPartitionBy() {
+        return partitionBy;
+    }
+
+    public void setPartitionBy(int partitionBy) {
+        this.partitionBy = partitionBy;
+    }
+
     public ExpressionNode getTableName() {
         return tableName;
     }
@@ -60,6 +111,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.tableName = tableName;
     }
 
+    public CharSequence getTimestampColumnName() {
+        return timestampColumnName;
+    }
+
+    public void setTimestampColumnName(CharSequence timestampColumnName) {
+        this.timestampColumnName = timestampColumnName;
+    }
+
     public boolean isHeader() {
         return header;
     }
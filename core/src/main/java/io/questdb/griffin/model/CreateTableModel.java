@@ -46,7 +46,15 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private ExpressionNode partitionBy;
     private int maxUncommittedRows;
     private long commitLag;
+    private long ttl;
     private boolean ignoreIfExists = false;
+    // materialized view definition, query text is set only for CREATE MATERIALIZED VIEW
+    private String matViewQuery;
+    private ExpressionNode matViewBaseTable;
+    private int matViewBaseTableLo;
+    private int matViewBaseTableHi;
+    private boolean matViewBaseTableAliased;
+    private ExpressionNode matViewSampleBy;
 
     private CreateTableModel() {
     }
@@ -100,6 +108,13 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         columnHashes.clear();
         columnNameIndexMap.clear();
         ignoreIfExists = false;
+        ttl = 0;
+        matViewQuery = null;
+        matViewBaseTable = null;
+        matViewBaseTableLo = 0;
+        matViewBaseTableHi = 0;
+        matViewBaseTableAliased = false;
+        matViewSampleBy = null;
     }
 
     public CharSequenceObjHashMap<ColumnCastModel> getColumnCastModels() {
@@ -177,6 +192,52 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return CREATE_TABLE;
     }
 
+    public ExpressionNode getMatViewBaseTable() {
+        return matViewBaseTable;
+    }
+
+    public void setMatViewBaseTable(ExpressionNode matViewBaseTable) {
+        this.matViewBaseTable = matViewBaseTable;
+    }
+
+    /**
+     * @return position in the view query text after the base table name
+     */
+    public int getMatViewBaseTableHi() {
+        return matViewBaseTableHi;
+    }
+
+    public void setMatViewBaseTableHi(int matViewBaseTableHi) {
+        this.matViewBaseTableHi = matViewBaseTableHi;
+    }
+
+    /**
+     * @return position of the base table name in the view query text
+     */
+    public int getMatViewBaseTableLo() {
+        return matViewBaseTableLo;
+    }
+
+    public void setMatViewBaseTableLo(int matViewBaseTableLo) {
+        this.matViewBaseTableLo = matViewBaseTableLo;
+    }
+
+    public String getMatViewQuery() {
+        return matViewQuery;
+    }
+
+    public void setMatViewQuery(CharSequence matViewQuery) {
+        this.matViewQuery = Chars.toString(matViewQuery);
+    }
+
+    public ExpressionNode getMatViewSampleBy() {
+        return matViewSampleBy;
+    }
+
+    public void setMatViewSampleBy(ExpressionNode matViewSampleBy) {
+        this.matViewSampleBy = matViewSampleBy;
+    }
+
     public ExpressionNode getName() {
         return name;
     }
@@ -201,6 +262,18 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.timestamp = timestamp;
     }
 
+    public boolean isMatView() {
+        return matViewQuery != null;
+    }
+
+    public boolean isMatViewBaseTableAliased() {
+        return matViewBaseTableAliased;
+    }
+
+    public void setMatViewBaseTableAliased(boolean matViewBaseTableAliased) {
+        this.matViewBaseTableAliased = matViewBaseTableAliased;
+    }
+
     public boolean isIgnoreIfExists() {
         return ignoreIfExists;
     }
@@ -227,6 +300,17 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
 
     @Override
     public void toSink(CharSink sink) {
+        if (isMatView()) {
+            sink.put("create materialized view ");
+            sink.put(getName().token);
+            sink.put(" as (");
+            getQueryModel().toSink(sink);
+            sink.put(')');
+            if (partitionBy != null) {
+                sink.put(" partition by ").put(partitionBy.token);
+            }
+            return;
+        }
         sink.put("create table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
@@ -345,4 +429,13 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     public void setCommitLag(long micros) {
         this.commitLag = micros;
     }
+
+    @Override
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long micros) {
+        this.ttl = micros;
+    }
 }
@@ -975,6 +975,18 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         }
     }
 
+    private static void frameBoundToSink(CharSink sink, long bound) {
+        if (bound == AnalyticColumn.UNBOUNDED_PRECEDING) {
+            sink.put("unbounded preceding");
+        } else if (bound == AnalyticColumn.UNBOUNDED_FOLLOWING) {
+            sink.put("unbounded following");
+        } else if (bound == AnalyticColumn.CURRENT_ROW) {
+            sink.put("current row");
+        } else {
+            sink.put(-bound).put(" preceding");
+        }
+    }
+
     private String getSelectModelTypeText() {
         return modelTypeName.get(selectModelType);
     }
@@ -1026,6 +1038,16 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                             }
                         }
                     }
+
+                    if (ac.getFramingMode() != AnalyticColumn.FRAMING_DEFAULT) {
+                        if (partitionBy.size() > 0 || orderBy.size() > 0) {
+                            sink.put(' ');
+                        }
+                        sink.put(ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS ? "rows between " : "range between ");
+                        frameBoundToSink(sink, ac.getFrameLo());
+                        sink.put(" and ");
+                        frameBoundToSink(sink, ac.getFrameHi());
+                    }
                     sink.put(')');
                 }
             } else {
@@ -34,6 +34,7 @@ import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.constants.ConstantFunction;
 import io.questdb.griffin.engine.functions.constants.SymbolConstant;
 import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.std.*;
 
 import java.util.Arrays;
@@ -93,6 +94,8 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     // contains <memory_offset, constant_node> pairs for backfilling purposes
     private final LongObjHashMap<ExpressionNode> backfillNodes = new LongObjHashMap<>();
     private final LongObjHashMap.LongObjConsumer<ExpressionNode> backfillNodeConsumer = this::backfillNode;
+    // nodes of IN and BETWEEN expressions rewritten to comparisons
+    private final ObjectPool<ExpressionNode> expressionNodePool = new ObjectPool<>(ExpressionNode.FACTORY, 16);
 
     // internal flag used to forcefully enable scalar mode based on filter's contents
     private boolean forceScalarMode;
@@ -100,20 +103,20 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     private MemoryCARW memory;
     private SqlExecutionContext executionContext;
     private RecordMetadata metadata;
-    private PageFrameCursor pageFrameCursor;
+    private SymbolTableSource symbolTableSource;
     private ObjList<Function> bindVarFunctions;
 
     public CompiledFilterIRSerializer of(
             MemoryCARW memory,
             SqlExecutionContext executionContext,
             RecordMetadata metadata,
-            PageFrameCursor pageFrameCursor,
+            SymbolTableSource symbolTableSource,
             ObjList<Function> bindVarFunctions
     ) {
         this.memory = memory;
         this.executionContext = executionContext;
         this.metadata = metadata;
-        this.pageFrameCursor = pageFrameCursor;
+        this.symbolTableSource = symbolTableSource;
         this.bindVarFunctions = bindVarFunctions;
         return this;
     }
@@ -141,7 +144,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
      * @throws SqlException thrown when IR serialization failed.
      */
     public int serialize(ExpressionNode node, boolean scalar, boolean debug, boolean nullChecks) throws SqlException {
-        traverseAlgo.traverse(node, this);
+        traverseAlgo.traverse(rewrite(node), this);
         putOperator(RET);
 
         TypesObserver typesObserver = predicateContext.globalTypesObserver;
@@ -166,10 +169,11 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     public void clear() {
         memory = null;
         metadata = null;
-        pageFrameCursor = null;
+        symbolTableSource = null;
         forceScalarMode = false;
         predicateContext.clear();
         backfillNodes.clear();
+        expressionNodePool.clear();
     }
 
     @Override
@@ -261,6 +265,141 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         }
     }
 
+    /**
+     * Rewrites IN and BETWEEN expressions to comparisons supported by the JIT compiler:
+     * <pre>
+     * x in (a, b, c)       -> x = a or x = b or x = c
+     * ts between lo and hi -> ts >= min(lo, hi) and ts <= max(lo, hi)
+     * </pre>
+     * The original tree is left unchanged, nodes on the path to a rewritten expression are copied.
+     */
+    private ExpressionNode rewrite(ExpressionNode node) throws SqlException {
+        if (node == null || node.type != ExpressionNode.OPERATION && node.type != ExpressionNode.FUNCTION && node.type != ExpressionNode.SET_OPERATION) {
+            return node;
+        }
+        if (SqlKeywords.isInKeyword(node.token)) {
+            final ExpressionNode rewritten = rewriteIn(node);
+            return rewritten != null ? rewritten : node;
+        }
+        if (SqlKeywords.isBetweenKeyword(node.token)) {
+            final ExpressionNode rewritten = rewriteBetween(node);
+            return rewritten != null ? rewritten : node;
+        }
+        if (!SqlKeywords.isAndKeyword(node.token) && !SqlKeywords.isOrKeyword(node.token) && !SqlKeywords.isNotKeyword(node.token)) {
+            return node;
+        }
+        final ExpressionNode lhs = rewrite(node.lhs);
+        final ExpressionNode rhs = rewrite(node.rhs);
+        if (lhs == node.lhs && rhs == node.rhs) {
+            return node;
+        }
+        final ExpressionNode copy = expressionNodePool.next().of(node.type, node.token, node.precedence, node.position);
+        copy.paramCount = node.paramCount;
+        copy.lhs = lhs;
+        copy.rhs = rhs;
+        return copy;
+    }
+
+    private ExpressionNode rewriteIn(ExpressionNode node) {
+        if (node.paramCount < 2) {
+            return null;
+        }
+        final ExpressionNode column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        final int columnTypeTag = literalColumnTypeTag(column);
+        if (columnTypeTag == -1) {
+            return null;
+        }
+        final int valueCount = node.paramCount - 1;
+        for (int i = 0; i < valueCount; i++) {
+            final ExpressionNode value = node.paramCount < 3 ? node.rhs : node.args.getQuick(i);
+            if (!isConstantOrBindVariable(value)) {
+                return null;
+            }
+            // timestamp IN string constants stands for intervals
+            if (columnTypeTag == ColumnType.TIMESTAMP && value.type == ExpressionNode.CONSTANT && Chars.isQuoted(value.token)) {
+                return null;
+            }
+        }
+        ExpressionNode result = null;
+        // args are stored in reverse order, the first value ends up at the top of the tree
+        for (int i = 0; i < valueCount; i++) {
+            final ExpressionNode value = node.paramCount < 3 ? node.rhs : node.args.getQuick(i);
+            final ExpressionNode eq = newBinaryNode(ExpressionNode.OPERATION, "=", node.position, column, value);
+            result = result == null ? eq : newBinaryNode(ExpressionNode.OPERATION, "or", node.position, eq, result);
+        }
+        return result;
+    }
+
+    private ExpressionNode rewriteBetween(ExpressionNode node) throws SqlException {
+        if (node.paramCount != 3) {
+            return null;
+        }
+        final ExpressionNode column = node.args.getQuick(2);
+        if (literalColumnTypeTag(column) != ColumnType.TIMESTAMP) {
+            return null;
+        }
+        final long bound1 = parseTimestampConstant(node.args.getQuick(1));
+        final long bound2 = parseTimestampConstant(node.args.getQuick(0));
+        if (bound1 == Numbers.LONG_NaN || bound2 == Numbers.LONG_NaN) {
+            return null;
+        }
+        final ExpressionNode lo = expressionNodePool.next().of(ExpressionNode.CONSTANT, Long.toString(Math.min(bound1, bound2)), 0, node.position);
+        final ExpressionNode hi = expressionNodePool.next().of(ExpressionNode.CONSTANT, Long.toString(Math.max(bound1, bound2)), 0, node.position);
+        return newBinaryNode(
+                ExpressionNode.OPERATION,
+                "and",
+                node.position,
+                newBinaryNode(ExpressionNode.OPERATION, ">=", node.position, column, lo),
+                newBinaryNode(ExpressionNode.OPERATION, "<=", node.position, column, hi)
+        );
+    }
+
+    private ExpressionNode newBinaryNode(int type, CharSequence token, int position, ExpressionNode lhs, ExpressionNode rhs) {
+        final ExpressionNode node = expressionNodePool.next().of(type, token, 0, position);
+        node.paramCount = 2;
+        node.lhs = lhs;
+        node.rhs = rhs;
+        return node;
+    }
+
+    private int literalColumnTypeTag(ExpressionNode node) {
+        if (node.type != ExpressionNode.LITERAL) {
+            return -1;
+        }
+        final int index = metadata.getColumnIndexQuiet(node.token);
+        return index == -1 ? -1 : ColumnType.tagOf(metadata.getColumnType(index));
+    }
+
+    private static boolean isConstantOrBindVariable(ExpressionNode node) {
+        if (node.type == ExpressionNode.CONSTANT || node.type == ExpressionNode.BIND_VARIABLE) {
+            return true;
+        }
+        // negative constant
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, "-")) {
+            final ExpressionNode nextNode = node.lhs != null ? node.lhs : node.rhs;
+            return nextNode != null && nextNode.type == ExpressionNode.CONSTANT;
+        }
+        return false;
+    }
+
+    /**
+     * Returns timestamp of a numeric or a date string constant the way function parser casts them,
+     * LONG_NaN is returned for nulls and non-constant nodes.
+     */
+    private static long parseTimestampConstant(ExpressionNode node) throws SqlException {
+        if (node.type != ExpressionNode.CONSTANT || SqlKeywords.isNullKeyword(node.token)) {
+            return Numbers.LONG_NaN;
+        }
+        try {
+            if (Chars.isQuoted(node.token)) {
+                return IntervalUtils.parseFloorPartialDate(node.token, 1, node.token.length() - 1);
+            }
+            return Numbers.parseLong(node.token);
+        } catch (NumericException e) {
+            throw SqlException.invalidDate(node.position);
+        }
+    }
+
     private void putOperator(int opcode) {
         memory.putInt(opcode);
         // pad unused fields with zeros
@@ -972,7 +1111,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
             final int columnType = metadata.getColumnType(columnIndex);
             final int columnTypeTag = ColumnType.tagOf(columnType);
             if (columnTypeTag == ColumnType.SYMBOL) {
-                symbolTable = (StaticSymbolTable) pageFrameCursor.getSymbolTable(columnIndex);
+                symbolTable = (StaticSymbolTable) symbolTableSource.getSymbolTable(columnIndex);
                 symbolColumnIndex = columnIndex;
             }
 
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.TestOnly;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram with fixed bucket bounds, 10µs to 100s in 1-2.5-5 steps. Recording is a bucket
+ * scan and two atomic adds, it neither locks nor allocates. Buckets are stored non-cumulative
+ * and summed up when scraped.
+ */
+class HistogramImpl implements Histogram {
+    // upper bounds of buckets in nanoseconds, the last bucket is +Inf
+    static final long[] BUCKET_BOUNDS;
+    private final CharSequence name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+    private final AtomicLong sum = new AtomicLong();
+
+    HistogramImpl(CharSequence name) {
+        this.name = name;
+    }
+
+    @Override
+    public void record(long nanos) {
+        if (nanos < 0) {
+            // clock went backwards
+            nanos = 0;
+        }
+        int i = 0;
+        final int n = BUCKET_BOUNDS.length;
+        while (i < n && nanos > BUCKET_BOUNDS[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        sum.addAndGet(nanos);
+    }
+
+    @TestOnly
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0, n = buckets.length(); i < n; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    @TestOnly
+    @Override
+    public long getSum() {
+        return sum.get();
+    }
+
+    @Override
+    public void scrapeIntoPrometheus(CharSink sink) {
+        appendType(sink);
+        long count = 0;
+        for (int i = 0, n = BUCKET_BOUNDS.length; i < n; i++) {
+            count += buckets.get(i);
+            appendMetricName(sink);
+            sink.put("_bucket{le=\"");
+            PrometheusFormatUtils.appendNanosAsSeconds(sink, BUCKET_BOUNDS[i]);
+            sink.put("\"}");
+            PrometheusFormatUtils.appendSampleLineSuffix(sink, count);
+        }
+        count += buckets.get(BUCKET_BOUNDS.length);
+        appendMetricName(sink);
+        sink.put("_bucket{le=\"+Inf\"}");
+        PrometheusFormatUtils.appendSampleLineSuffix(sink, count);
+
+        appendMetricName(sink);
+        sink.put("_sum ");
+        PrometheusFormatUtils.appendNanosAsSeconds(sink, sum.get());
+        PrometheusFormatUtils.appendNewLine(sink);
+
+        appendMetricName(sink);
+        sink.put("_count");
+        PrometheusFormatUtils.appendSampleLineSuffix(sink, count);
+        PrometheusFormatUtils.appendNewLine(sink);
+    }
+
+    private void appendMetricName(CharSink sink) {
+        sink.put(PrometheusFormatUtils.METRIC_NAME_PREFIX);
+        sink.put(name);
+        sink.put("_seconds");
+    }
+
+    private void appendType(CharSink sink) {
+        sink.put(PrometheusFormatUtils.TYPE_PREFIX);
+        sink.put(name);
+        sink.put("_seconds histogram\n");
+    }
+
+    static {
+        final long[] steps = {10, 25, 50};
+        final int decades = 7; // 10µs .. 50s, then the 100s bound
+        BUCKET_BOUNDS = new long[decades * steps.length + 1];
+        long scale = 1_000;
+        int k = 0;
+        for (int d = 0; d < decades; d++) {
+            for (long step : steps) {
+                BUCKET_BOUNDS[k++] = step * scale;
+            }
+            scale *= 10;
+        }
+        BUCKET_BOUNDS[k] = 10 * scale;
+    }
+}
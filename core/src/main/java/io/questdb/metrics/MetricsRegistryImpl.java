@@ -74,6 +74,13 @@ public class MetricsRegistryImpl implements MetricsRegistry {
         return gauge;
     }
 
+    @Override
+    public Histogram newHistogram(CharSequence name) {
+        Histogram histogram = new HistogramImpl(name);
+        metrics.add(histogram);
+        return histogram;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         for (int i = 0, n = metrics.size(); i < n; i++) {
@@ -60,6 +60,11 @@ public class NullMetricsRegistry implements MetricsRegistry {
         return NullGauge.INSTANCE;
     }
 
+    @Override
+    public Histogram newHistogram(CharSequence name) {
+        return NullHistogram.INSTANCE;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
     }
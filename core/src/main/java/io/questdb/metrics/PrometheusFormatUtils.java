@@ -53,6 +53,21 @@ class PrometheusFormatUtils {
         sink.put("_total counter\n");
     }
 
+    static void appendNanosAsSeconds(CharSink sink, long nanos) {
+        sink.put(nanos / 1_000_000_000L);
+        long fraction = nanos % 1_000_000_000L;
+        if (fraction > 0) {
+            sink.put('.');
+            for (long digit = 100_000_000L; digit > fraction; digit /= 10) {
+                sink.put('0');
+            }
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+            }
+            sink.put(fraction);
+        }
+    }
+
     static void appendCounterNamePrefix(CharSequence name, CharSink sink) {
         sink.put(METRIC_NAME_PREFIX);
         sink.put(name);
@@ -84,6 +84,16 @@ public class Long256HashSet implements Mutable {
         return true;
     }
 
+    public void addAll(Long256HashSet that) {
+        final long[] thatKeys = that.keys;
+        for (int i = 0, n = thatKeys.length / 4; i < n; i++) {
+            if (thatKeys[i * 4] == noEntryKey && thatKeys[i * 4 + 1] == noEntryKey && thatKeys[i * 4 + 2] == noEntryKey && thatKeys[i * 4 + 3] == noEntryKey) {
+                continue;
+            }
+            add(thatKeys[i * 4], thatKeys[i * 4 + 1], thatKeys[i * 4 + 2], thatKeys[i * 4 + 3]);
+        }
+    }
+
     public void addAt(int index, long k0, long k1, long k2, long k3) {
         setAt(index, k0, k1, k2, k3);
         if (--free < 1) {
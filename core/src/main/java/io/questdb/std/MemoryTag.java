@@ -58,7 +58,9 @@ public final class MemoryTag {
     public static final int NATIVE_CB3 = 30;
     public static final int NATIVE_CB4 = 31;
     public static final int NATIVE_CB5 = 32;
-    public static final int SIZE = NATIVE_CB5 + 1;
+    public static final int MMAP_TABLE_WAL_WRITER = 33;
+    public static final int MMAP_TABLE_WAL_READER = 34;
+    public static final int SIZE = MMAP_TABLE_WAL_READER + 1;
     private static final ObjList<String> tagNameMap = new ObjList<>(SIZE);
 
     public static String nameOf(int tag) {
@@ -99,5 +101,7 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(NATIVE_CB3, "NATIVE_CB3");
         tagNameMap.extendAndSet(NATIVE_CB4, "NATIVE_CB4");
         tagNameMap.extendAndSet(NATIVE_CB5, "NATIVE_CB5");
+        tagNameMap.extendAndSet(MMAP_TABLE_WAL_WRITER, "MMAP_TABLE_WAL_WRITER");
+        tagNameMap.extendAndSet(MMAP_TABLE_WAL_READER, "MMAP_TABLE_WAL_READER");
     }
 }
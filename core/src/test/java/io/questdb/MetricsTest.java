@@ -139,6 +139,12 @@ public class MetricsTest {
             return delegate.newVirtualGauge(name, provider);
         }
 
+        @Override
+        public Histogram newHistogram(CharSequence name) {
+            addMetricName(name);
+            return delegate.newHistogram(name);
+        }
+
         @Override
         public void scrapeIntoPrometheus(CharSink sink) {
             delegate.scrapeIntoPrometheus(sink);
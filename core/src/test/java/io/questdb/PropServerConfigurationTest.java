@@ -38,6 +38,7 @@ import io.questdb.std.Files;
 import io.questdb.std.FilesFacadeImpl;
 import io.questdb.std.Misc;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.datetime.millitime.MillisecondClockImpl;
 import io.questdb.test.tools.TestUtils;
 import org.junit.*;
@@ -140,6 +141,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(CommitMode.NOSYNC, configuration.getCairoConfiguration().getCommitMode());
         Assert.assertEquals(2097152, configuration.getCairoConfiguration().getSqlCopyBufferSize());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getCopyPoolCapacity());
+        Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlCopyQueueCapacity());
+        Assert.assertNull(configuration.getCairoConfiguration().getInputWorkRoot());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
         Assert.assertEquals("fast", configuration.getCairoConfiguration().getDefaultMapType());
         Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
@@ -169,6 +172,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlMapPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlMapMaxPages());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlMapMaxResizes());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlSpillThreshold());
+        Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlSpillPartitionCount());
         Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlModelPoolCapacity());
         Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlMaxNegativeLimit());
         Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortKeyPageSize());
@@ -182,6 +187,10 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlResultCacheEnabled());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheSize());
+        Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheMaxEntrySize());
+        Assert.assertEquals(64 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
@@ -209,6 +218,19 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().ownThread());
 
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelSortEnabled());
+        Assert.assertEquals(200_000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
+        Assert.assertEquals(2, configuration.getCairoConfiguration().getColumnCompressionPartitionLag());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getParquetRowGroupSize());
+        Assert.assertTrue(configuration.getCairoConfiguration().isParquetCompressionEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isPartitionStatsEnabled());
+        Assert.assertNull(configuration.getCairoConfiguration().getColdRoot());
+        Assert.assertEquals(30 * Timestamps.DAY_MICROS, configuration.getCairoConfiguration().getColdPartitionAge());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getColdCheckInterval());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getTtlCheckInterval());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
         Assert.assertEquals(4, configuration.getCairoConfiguration().getPageFrameReduceShardCount());
@@ -245,6 +267,7 @@ public class PropServerConfigurationTest {
         TestUtils.assertEquals(new File(root, "db").getAbsolutePath(), configuration.getCairoConfiguration().getRoot());
         TestUtils.assertEquals(new File(root, "conf").getAbsolutePath(), configuration.getCairoConfiguration().getConfRoot());
         TestUtils.assertEquals(new File(root, "snapshot").getAbsolutePath(), configuration.getCairoConfiguration().getSnapshotRoot());
+        TestUtils.assertEquals(new File(root, "tmp").getAbsolutePath(), configuration.getCairoConfiguration().getSqlSpillRoot());
 
         Assert.assertEquals("", configuration.getCairoConfiguration().getSnapshotInstanceId());
         Assert.assertTrue(configuration.getCairoConfiguration().isSnapshotRecoveryEnabled());
@@ -281,6 +304,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getIOWorkerPoolConfiguration().getSleepThreshold());
         Assert.assertFalse(configuration.getLineTcpReceiverConfiguration().getIOWorkerPoolConfiguration().haltOnError());
         Assert.assertEquals(30_000, configuration.getLineTcpReceiverConfiguration().getMaintenanceInterval());
+        Assert.assertEquals(5_000, configuration.getLineTcpReceiverConfiguration().getWriterRebalanceInterval());
+        Assert.assertEquals(1.9, configuration.getLineTcpReceiverConfiguration().getMaxLoadRatio(), 0.001);
         Assert.assertEquals(PropServerConfiguration.COMMIT_INTERVAL_DEFAULT, configuration.getLineTcpReceiverConfiguration().getCommitIntervalDefault());
         Assert.assertEquals(PartitionBy.DAY, configuration.getLineTcpReceiverConfiguration().getDefaultPartitionBy());
         Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getWriterIdleTimeout());
@@ -328,6 +353,7 @@ public class PropServerConfigurationTest {
         Assert.assertTrue(configuration.getPGWireConfiguration().isUpdateCacheEnabled());
         Assert.assertEquals(8, configuration.getPGWireConfiguration().getUpdateCacheBlockCount());
         Assert.assertEquals(8, configuration.getPGWireConfiguration().getUpdateCacheRowCount());
+        Assert.assertEquals(100_000, configuration.getPGWireConfiguration().getCopyCommitBatchSize());
 
         Assert.assertEquals(128, configuration.getCairoConfiguration().getColumnPurgeQueueCapacity());
         Assert.assertEquals(127, configuration.getCairoConfiguration().getMaxFileNameLength());
@@ -675,6 +701,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(4, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFloatScale());
             Assert.assertEquals(4194304, configuration.getCairoConfiguration().getSqlCopyBufferSize());
             Assert.assertEquals(64, configuration.getCairoConfiguration().getCopyPoolCapacity());
+            Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlCopyQueueCapacity());
             Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFilesFacade());
             Assert.assertEquals("Keep-Alive: timeout=10, max=50000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
             Assert.assertEquals(8, configuration.getCairoConfiguration().getDoubleToStrCastScale());
@@ -710,6 +737,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(6 * 1024 * 1024, configuration.getCairoConfiguration().getSqlMapPageSize());
             Assert.assertEquals(1026, configuration.getCairoConfiguration().getSqlMapMaxPages());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlMapMaxResizes());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSpillThreshold());
+            Assert.assertEquals(16, configuration.getCairoConfiguration().getSqlSpillPartitionCount());
             Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlModelPoolCapacity());
             Assert.assertEquals(42, configuration.getCairoConfiguration().getSqlMaxNegativeLimit());
             Assert.assertEquals(10 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortKeyPageSize());
@@ -723,6 +752,10 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1025, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlResultCacheEnabled());
+            Assert.assertEquals(32 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheSize());
+            Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheMaxEntrySize());
+            Assert.assertEquals(128 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
@@ -762,6 +795,18 @@ public class PropServerConfigurationTest {
             Assert.assertTrue(configuration.getLineUdpReceiverConfiguration().ownThread());
 
             Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelSortEnabled());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
+            Assert.assertEquals(1, configuration.getCairoConfiguration().getColumnCompressionPartitionLag());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getParquetRowGroupSize());
+            Assert.assertFalse(configuration.getCairoConfiguration().isParquetCompressionEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isPartitionStatsEnabled());
+            Assert.assertEquals(7 * Timestamps.DAY_MICROS, configuration.getCairoConfiguration().getColdPartitionAge());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getColdCheckInterval());
+            Assert.assertEquals(2000, configuration.getCairoConfiguration().getTtlCheckInterval());
             Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
             Assert.assertEquals(100, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameReduceShardCount());
@@ -810,6 +855,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(10_003, configuration.getLineTcpReceiverConfiguration().getIOWorkerPoolConfiguration().getSleepThreshold());
             Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().getIOWorkerPoolConfiguration().haltOnError());
             Assert.assertEquals(1000, configuration.getLineTcpReceiverConfiguration().getMaintenanceInterval());
+            Assert.assertEquals(2000, configuration.getLineTcpReceiverConfiguration().getWriterRebalanceInterval());
+            Assert.assertEquals(2.5, configuration.getLineTcpReceiverConfiguration().getMaxLoadRatio(), 0.001);
             Assert.assertEquals(PartitionBy.MONTH, configuration.getLineTcpReceiverConfiguration().getDefaultPartitionBy());
             Assert.assertEquals(5_000, configuration.getLineTcpReceiverConfiguration().getWriterIdleTimeout());
             Assert.assertEquals(16, configuration.getCairoConfiguration().getPartitionPurgeListCapacity());
@@ -849,6 +896,7 @@ public class PropServerConfigurationTest {
             Assert.assertFalse(configuration.getPGWireConfiguration().isUpdateCacheEnabled());
             Assert.assertEquals(128, configuration.getPGWireConfiguration().getUpdateCacheBlockCount());
             Assert.assertEquals(256, configuration.getPGWireConfiguration().getUpdateCacheRowCount());
+            Assert.assertEquals(5000, configuration.getPGWireConfiguration().getCopyCommitBatchSize());
 
             Assert.assertEquals(255, configuration.getCairoConfiguration().getMaxFileNameLength());
             Assert.assertEquals(255, configuration.getLineTcpReceiverConfiguration().getMaxFileNameLength());
@@ -71,6 +71,8 @@ public class AbstractCairoTest {
     protected static CairoEngine engine;
     protected static DatabaseSnapshotAgent snapshotAgent;
     protected static String inputRoot = null;
+    protected static String inputWorkRoot = null;
+    protected static String coldRoot = null;
     protected static FilesFacade ff;
     protected static CharSequence backupDir;
     protected static DateFormat backupDirTimestampFormat;
@@ -88,11 +90,21 @@ public class AbstractCairoTest {
     protected static String snapshotInstanceId = null;
     protected static Boolean snapshotRecoveryEnabled = null;
     protected static Boolean enableParallelFilter = null;
+    protected static Boolean enableParallelGroupBy = null;
+    protected static Boolean enableParallelHashJoin = null;
+    protected static Boolean enableParallelLatestBy = null;
+    protected static Boolean enableParallelSort = null;
+    protected static long spillThreshold = -1;
+    protected static int spillPartitionCount = -1;
+    protected static int walSegmentRolloverRowCount = -1;
     protected static int queryCacheEventQueueCapacity = -1;
     protected static int pageFrameReduceShardCount = -1;
     protected static int pageFrameReduceQueueCapacity = -1;
     protected static int columnVersionTaskPoolCapacity = -1;
     protected static RostiAllocFacade rostiAllocFacade = null;
+    protected static boolean resultCacheEnabled = false;
+    protected static long resultCacheSize = -1;
+    protected static long resultCacheMaxEntrySize = -1;
 
     @Rule
     public TestName testName = new TestName();
@@ -179,6 +191,16 @@ public class AbstractCairoTest {
                 return inputRoot;
             }
 
+            @Override
+            public CharSequence getInputWorkRoot() {
+                return inputWorkRoot;
+            }
+
+            @Override
+            public CharSequence getColdRoot() {
+                return coldRoot;
+            }
+
             @Override
             public long getCommitLag() {
                 return configOverrideCommitLagMicros >= 0 ? configOverrideCommitLagMicros : super.getCommitLag();
@@ -308,6 +330,56 @@ public class AbstractCairoTest {
                 return enableParallelFilter != null ? enableParallelFilter : super.isSqlParallelFilterEnabled();
             }
 
+            @Override
+            public boolean isSqlParallelGroupByEnabled() {
+                return enableParallelGroupBy != null ? enableParallelGroupBy : super.isSqlParallelGroupByEnabled();
+            }
+
+            @Override
+            public boolean isSqlParallelHashJoinEnabled() {
+                return enableParallelHashJoin != null ? enableParallelHashJoin : super.isSqlParallelHashJoinEnabled();
+            }
+
+            @Override
+            public boolean isSqlParallelLatestByEnabled() {
+                return enableParallelLatestBy != null ? enableParallelLatestBy : super.isSqlParallelLatestByEnabled();
+            }
+
+            @Override
+            public boolean isSqlParallelSortEnabled() {
+                return enableParallelSort != null ? enableParallelSort : super.isSqlParallelSortEnabled();
+            }
+
+            @Override
+            public int getSqlSpillPartitionCount() {
+                return spillPartitionCount > 0 ? spillPartitionCount : super.getSqlSpillPartitionCount();
+            }
+
+            @Override
+            public long getSqlSpillThreshold() {
+                return spillThreshold > -1 ? spillThreshold : super.getSqlSpillThreshold();
+            }
+
+            @Override
+            public boolean isSqlResultCacheEnabled() {
+                return resultCacheEnabled;
+            }
+
+            @Override
+            public long getSqlResultCacheSize() {
+                return resultCacheSize > -1 ? resultCacheSize : super.getSqlResultCacheSize();
+            }
+
+            @Override
+            public long getSqlResultCacheMaxEntrySize() {
+                return resultCacheMaxEntrySize > -1 ? resultCacheMaxEntrySize : super.getSqlResultCacheMaxEntrySize();
+            }
+
+            @Override
+            public int getWalSegmentRolloverRowCount() {
+                return walSegmentRolloverRowCount > 0 ? walSegmentRolloverRowCount : super.getWalSegmentRolloverRowCount();
+            }
+
             @Override
             public int getColumnPurgeTaskPoolCapacity() {
                 return columnVersionTaskPoolCapacity >= 0 ? columnVersionTaskPoolCapacity : super.getColumnPurgeTaskPoolCapacity();
@@ -363,6 +435,14 @@ public class AbstractCairoTest {
         snapshotInstanceId = null;
         snapshotRecoveryEnabled = null;
         enableParallelFilter = null;
+        enableParallelGroupBy = null;
+        enableParallelHashJoin = null;
+        enableParallelLatestBy = null;
+        enableParallelSort = null;
+        spillThreshold = -1;
+        spillPartitionCount = -1;
+        coldRoot = null;
+        walSegmentRolloverRowCount = -1;
         hideTelemetryTable = false;
         writerCommandQueueCapacity = 4;
         queryCacheEventQueueCapacity = -1;
@@ -372,6 +452,9 @@ public class AbstractCairoTest {
         columnVersionPurgeQueueCapacity = -1;
         columnVersionTaskPoolCapacity = -1;
         rostiAllocFacade = null;
+        resultCacheEnabled = false;
+        resultCacheSize = -1;
+        resultCacheMaxEntrySize = -1;
     }
 
     protected static void configureForBackups() throws IOException {
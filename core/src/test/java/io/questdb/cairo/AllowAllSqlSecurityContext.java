@@ -109,7 +109,11 @@ public final class AllowAllSqlSecurityContext {
                 @Nullable RecordSink partitionBySink,
                 @Nullable ColumnTypes keyTypes,
                 boolean isOrdered,
-                boolean baseSupportsRandomAccess
+                boolean baseSupportsRandomAccess,
+                int framingMode,
+                long frameLo,
+                long frameHi,
+                int rangeColumnIndex
         ) {
         }
 
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.MemoryCARWImpl;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.std.*;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnCodecTest {
+    private static final int N = 10_000;
+    private final ColumnCodec codec = new ColumnCodec();
+
+    @Test
+    public void testCorruptHeader() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            long src = Unsafe.malloc(ColumnCodec.HEADER_SIZE, MemoryTag.NATIVE_DEFAULT);
+            long dst = Unsafe.malloc(8, MemoryTag.NATIVE_DEFAULT);
+            try {
+                Unsafe.getUnsafe().putInt(src, 42);
+                Unsafe.getUnsafe().putInt(src + 4, 3);
+                Unsafe.getUnsafe().putLong(src + 8, 1);
+                try {
+                    codec.decode(src, ColumnCodec.HEADER_SIZE, dst, 8);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "codec");
+                }
+            } finally {
+                Unsafe.free(src, ColumnCodec.HEADER_SIZE, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(dst, 8, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testDoubleGorilla() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.DOUBLE, N, (i, addr) -> {
+            double v;
+            switch (i % 7) {
+                case 0:
+                    v = Double.NaN;
+                    break;
+                case 1:
+                    v = rnd.nextDouble();
+                    break;
+                case 2:
+                    v = -0.0;
+                    break;
+                default:
+                    v = 100.5 + (i / 100);
+                    break;
+            }
+            Unsafe.getUnsafe().putDouble(addr, v);
+        });
+    }
+
+    @Test
+    public void testDoubleGorillaCompressesRepeatedValues() throws Exception {
+        Assert.assertTrue(assertRoundTrip(ColumnType.DOUBLE, N, (i, addr) -> Unsafe.getUnsafe().putDouble(addr, 22.25)) < N);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertRoundTrip(ColumnType.LONG, 0, (i, addr) -> {
+        });
+        assertRoundTrip(ColumnType.TIMESTAMP, 0, (i, addr) -> {
+        });
+    }
+
+    @Test
+    public void testIntFrameOfReference() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.INT, N, (i, addr) -> Unsafe.getUnsafe().putInt(addr, i % 11 == 0 ? Numbers.INT_NaN : 1000 + rnd.nextInt(64)));
+    }
+
+    @Test
+    public void testIntFrameOfReferenceExtremes() throws Exception {
+        assertRoundTrip(ColumnType.INT, N, (i, addr) -> {
+            final int v;
+            switch (i % 3) {
+                case 0:
+                    v = Integer.MAX_VALUE;
+                    break;
+                case 1:
+                    v = Numbers.INT_NaN;
+                    break;
+                default:
+                    v = Numbers.INT_NaN + 1;
+                    break;
+            }
+            Unsafe.getUnsafe().putInt(addr, v);
+        });
+    }
+
+    @Test
+    public void testLongFrameOfReference() throws Exception {
+        final Rnd rnd = new Rnd();
+        Assert.assertTrue(assertRoundTrip(ColumnType.LONG, N, (i, addr) -> Unsafe.getUnsafe().putLong(addr, i % 13 == 0 ? Numbers.LONG_NaN : 5_000_000_000L + rnd.nextInt(1000))) < N * 8L / 2);
+    }
+
+    @Test
+    public void testLongFrameOfReferenceRandom() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.LONG, N, (i, addr) -> Unsafe.getUnsafe().putLong(addr, rnd.nextLong()));
+    }
+
+    @Test
+    public void testSymbolFrameOfReference() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.SYMBOL, N, (i, addr) -> Unsafe.getUnsafe().putInt(addr, i % 17 == 0 ? SymbolTable.VALUE_IS_NULL : rnd.nextInt(20)));
+    }
+
+    @Test
+    public void testTimestampDeltaOfDelta() throws Exception {
+        final Rnd rnd = new Rnd();
+        long[] ts = {1_600_000_000_000_000L};
+        Assert.assertTrue(assertRoundTrip(ColumnType.TIMESTAMP, N, (i, addr) -> {
+            ts[0] += i % 100 == 0 ? rnd.nextInt(1_000_000) : 1000;
+            Unsafe.getUnsafe().putLong(addr, ts[0]);
+        }) < N);
+    }
+
+    @Test
+    public void testTimestampDeltaOfDeltaExtremes() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.TIMESTAMP, N, (i, addr) -> {
+            final long v;
+            switch (i % 4) {
+                case 0:
+                    v = Long.MIN_VALUE;
+                    break;
+                case 1:
+                    v = Long.MAX_VALUE;
+                    break;
+                default:
+                    v = rnd.nextLong();
+                    break;
+            }
+            Unsafe.getUnsafe().putLong(addr, v);
+        });
+    }
+
+    @Test
+    public void testUnsupportedTypes() {
+        Assert.assertFalse(ColumnCodec.isSupported(ColumnType.STRING));
+        Assert.assertFalse(ColumnCodec.isSupported(ColumnType.BYTE));
+        Assert.assertFalse(ColumnCodec.isSupported(ColumnType.LONG256));
+        Assert.assertEquals(ColumnCodec.CODEC_NONE, ColumnCodec.getCodec(ColumnType.FLOAT));
+        Assert.assertEquals(ColumnCodec.CODEC_DELTA_OF_DELTA, ColumnCodec.getCodec(ColumnType.DATE));
+    }
+
+    private long assertRoundTrip(int columnType, int count, ValueWriter writer) throws Exception {
+        final long[] compressedSize = new long[1];
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = (long) count << ColumnType.pow2SizeOf(columnType);
+            final long src = Unsafe.malloc(Math.max(size, 8), MemoryTag.NATIVE_DEFAULT);
+            final long dst = Unsafe.malloc(Math.max(size, 8), MemoryTag.NATIVE_DEFAULT);
+            try (MemoryARW mem = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(i, src + ((long) i << ColumnType.pow2SizeOf(columnType)));
+                }
+                codec.encode(columnType, src, count, mem);
+                final long encodedSize = mem.getAppendOffset();
+                Assert.assertEquals(size, ColumnCodec.getDecodedSize(mem.getPageAddress(0), encodedSize));
+
+                Vect.memset(dst, Math.max(size, 8), 0xff);
+                codec.decode(mem.getPageAddress(0), encodedSize, dst, size);
+                for (long i = 0; i < size; i += 8) {
+                    if (size - i >= 8) {
+                        Assert.assertEquals("offset " + i, Unsafe.getUnsafe().getLong(src + i), Unsafe.getUnsafe().getLong(dst + i));
+                    } else {
+                        Assert.assertEquals("offset " + i, Unsafe.getUnsafe().getInt(src + i), Unsafe.getUnsafe().getInt(dst + i));
+                    }
+                }
+                compressedSize[0] = encodedSize;
+            } finally {
+                Unsafe.free(src, Math.max(size, 8), MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(dst, Math.max(size, 8), MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+        return compressedSize[0];
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(int index, long addr);
+    }
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.SeekableRowCursor;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.questdb.cairo.TableUtils.COLUMN_NAME_TXN_NONE;
+
+public class CompressedBitmapIndexTest extends AbstractCairoTest {
+    private static final int KEY_COUNT = 5;
+    private static final long ROW_COUNT = 1_000_000;
+
+    private final LongList[] rows = new LongList[KEY_COUNT];
+    private Path path;
+    private int plen;
+
+    @Override
+    @Before
+    public void setUp() {
+        path = new Path().of(configuration.getRoot());
+        plen = path.length();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            rows[i] = new LongList();
+        }
+        super.setUp();
+    }
+
+    @Override
+    @After
+    public void tearDown() {
+        Misc.free(path);
+        super.tearDown();
+    }
+
+    @Test
+    public void testBackwardCursor() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            populate();
+            final Rnd rnd = new Rnd();
+            try (CompressedBitmapIndexReader reader = openReader(0, BitmapIndexReader.DIR_BACKWARD)) {
+                for (int i = 0; i < 500; i++) {
+                    final int key = rnd.nextInt(KEY_COUNT);
+                    final long lo = rnd.nextLong(ROW_COUNT);
+                    final long hi = i % 5 == 0 ? Long.MAX_VALUE : lo + rnd.nextLong(ROW_COUNT / 3);
+                    final LongList expected = rows[key];
+                    final RowCursor cursor = reader.getCursor(true, key, lo, hi);
+                    for (int j = expected.size() - 1; j > -1; j--) {
+                        final long row = expected.getQuick(j);
+                        if (row >= lo && row <= hi) {
+                            Assert.assertTrue(cursor.hasNext());
+                            Assert.assertEquals(row, cursor.next());
+                        }
+                    }
+                    Assert.assertFalse(cursor.hasNext());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCompressedIsSmaller() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = populate();
+            try (BitmapIndexFwdReader reader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, 0)) {
+                Assert.assertTrue(size * 10 < reader.getKeyMemorySize() + reader.getValueMemorySize());
+            }
+        });
+    }
+
+    @Test
+    public void testForwardCursor() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            populate();
+            final Rnd rnd = new Rnd();
+            try (CompressedBitmapIndexReader reader = openReader(0, BitmapIndexReader.DIR_FORWARD)) {
+                for (int i = 0; i < 500; i++) {
+                    final int key = rnd.nextInt(KEY_COUNT);
+                    final long lo = rnd.nextLong(ROW_COUNT);
+                    final long hi = i % 5 == 0 ? Long.MAX_VALUE : lo + rnd.nextLong(ROW_COUNT / 3);
+                    final LongList expected = rows[key];
+                    final RowCursor cursor = reader.getCursor(true, key, lo, hi);
+                    for (int j = 0, n = expected.size(); j < n; j++) {
+                        final long row = expected.getQuick(j);
+                        if (row >= lo && row <= hi) {
+                            Assert.assertTrue(cursor.hasNext());
+                            Assert.assertEquals(row, cursor.next());
+                        }
+                    }
+                    Assert.assertFalse(cursor.hasNext());
+                }
+                Assert.assertFalse(reader.getCursor(true, KEY_COUNT + 1, 0, Long.MAX_VALUE).hasNext());
+            }
+        });
+    }
+
+    @Test
+    public void testFrameCursor() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            populate();
+            try (CompressedBitmapIndexReader reader = openReader(0, BitmapIndexReader.DIR_FORWARD)) {
+                for (int key = 0; key < KEY_COUNT; key++) {
+                    final LongList expected = rows[key];
+                    final IndexFrameCursor cursor = reader.getFrameCursor(key, 0, Long.MAX_VALUE);
+                    int j = 0;
+                    for (IndexFrame frame = cursor.getNext(); frame.getSize() > 0; frame = cursor.getNext()) {
+                        for (long i = 0, n = frame.getSize(); i < n; i++) {
+                            Assert.assertEquals(expected.getQuick(j++), Unsafe.getUnsafe().getLong(frame.getAddress() + i * Long.BYTES));
+                        }
+                    }
+                    Assert.assertEquals(expected.size(), j);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testInflate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            populate();
+            try (CompressedBitmapIndexReader reader = openReader(0, BitmapIndexReader.DIR_BACKWARD)) {
+                final BitmapIndexReader inflated = reader.inflate();
+                Assert.assertEquals(KEY_COUNT, inflated.getKeyCount());
+                final int blockValueCount = inflated.getValueBlockCapacity() + 1;
+                final long blockCapacity = (long) blockValueCount * Long.BYTES + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+                for (int key = 0; key < KEY_COUNT; key++) {
+                    final LongList expected = rows[key];
+                    final long keyEntryAddress = inflated.getKeyBaseAddress() + BitmapIndexUtils.getKeyEntryOffset(key);
+                    final long valueCount = Unsafe.getUnsafe().getLong(keyEntryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT);
+                    Assert.assertEquals(expected.size(), valueCount);
+                    // walk value blocks backwards, same way native latest by does
+                    long blockOffset = Unsafe.getUnsafe().getLong(keyEntryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_LAST_VALUE_BLOCK_OFFSET);
+                    for (long i = valueCount - 1; i > -1; i--) {
+                        final long cell = i & (blockValueCount - 1);
+                        Assert.assertEquals(expected.getQuick((int) i), Unsafe.getUnsafe().getLong(inflated.getValueBaseAddress() + blockOffset + cell * Long.BYTES));
+                        if (cell == 0 && i > 0) {
+                            blockOffset = Unsafe.getUnsafe().getLong(inflated.getValueBaseAddress() + blockOffset + blockCapacity - BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNullCursors() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            // column top of 7 rows, these are nulls that are not in the index
+            final long nullCount = 7;
+            BitmapIndexTest.create(configuration, path.trimTo(plen), "x", 4);
+            try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path, "x", COLUMN_NAME_TXN_NONE)) {
+                writer.add(1, 7);
+                writer.add(0, 8);
+                writer.add(1, 9);
+                writer.add(0, 10);
+                writer.setMaxValue(10);
+            }
+            compress();
+
+            final LongList list = new LongList();
+            try (CompressedBitmapIndexReader reader = openReader(nullCount, BitmapIndexReader.DIR_FORWARD)) {
+                Assert.assertEquals(3, reader.getKeyCount());
+                assertThat("[3,4,5,6,8]", reader.getCursor(true, 0, 3, 8), list);
+                assertThat("[0,1,2,3,4,5,6,8,10]", reader.getCursor(true, 0, 0, Long.MAX_VALUE), list);
+                assertThat("[2]", reader.getCursor(true, 0, 2, 2), list);
+                assertThat("[8,10]", reader.getCursor(true, 0, 8, 10), list);
+                assertThat("[7,9]", reader.getCursor(true, 1, 0, Long.MAX_VALUE), list);
+            }
+            try (CompressedBitmapIndexReader reader = openReader(nullCount, BitmapIndexReader.DIR_BACKWARD)) {
+                assertThat("[8,6,5,4,3]", reader.getCursor(true, 0, 3, 8), list);
+                assertThat("[10,8,6,5,4,3,2,1,0]", reader.getCursor(true, 0, 0, Long.MAX_VALUE), list);
+                assertThat("[2]", reader.getCursor(true, 0, 2, 2), list);
+                assertThat("[10,8]", reader.getCursor(true, 0, 8, 10), list);
+                assertThat("[9,7]", reader.getCursor(true, 1, 0, Long.MAX_VALUE), list);
+            }
+        });
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            populate();
+            final Rnd rnd = new Rnd();
+            try (CompressedBitmapIndexReader reader = openReader(0, BitmapIndexReader.DIR_FORWARD)) {
+                for (int i = 0; i < 500; i++) {
+                    final int key = rnd.nextInt(KEY_COUNT);
+                    final LongList expected = rows[key];
+                    final SeekableRowCursor cursor = (SeekableRowCursor) reader.getCursor(true, key, 0, Long.MAX_VALUE);
+                    long target = rnd.nextLong(ROW_COUNT / 2);
+                    for (int k = 0; k < 3; k++) {
+                        cursor.seek(target);
+                        int j = expected.binarySearch(target, BinarySearch.SCAN_UP);
+                        if (j < 0) {
+                            j = -j - 1;
+                        }
+                        if (j < expected.size()) {
+                            Assert.assertTrue(cursor.hasNext());
+                            Assert.assertEquals(expected.getQuick(j), cursor.next());
+                            target = expected.getQuick(j) + 1 + rnd.nextLong(ROW_COUNT / 8);
+                        } else {
+                            Assert.assertFalse(cursor.hasNext());
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static void assertThat(String expected, RowCursor cursor, LongList temp) {
+        temp.clear();
+        while (cursor.hasNext()) {
+            temp.add(cursor.next());
+        }
+        Assert.assertEquals(expected, temp.toString());
+    }
+
+    private CompressedBitmapIndexReader openReader(long nullCount, int direction) {
+        return new CompressedBitmapIndexReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, nullCount, -1, direction);
+    }
+
+    /**
+     * Creates regular index with runs, dense and sparse stretches of rows, so that all container
+     * types are used, and compresses it.
+     *
+     * @return size of compressed index file
+     */
+    private long populate() {
+        final Rnd rnd = new Rnd();
+        BitmapIndexTest.create(configuration, path.trimTo(plen), "x", 64);
+        try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path, "x", COLUMN_NAME_TXN_NONE)) {
+            for (long row = 0; row < ROW_COUNT; row++) {
+                final int key;
+                if (row < 200_000) {
+                    key = (int) ((row / 1000) % 3);
+                } else if (row < 400_000) {
+                    key = rnd.nextInt(3);
+                } else if (rnd.nextInt(100) == 0) {
+                    key = 3;
+                } else if (rnd.nextInt(1000) == 0) {
+                    key = 4;
+                } else {
+                    key = rnd.nextInt(3);
+                }
+                writer.add(key, row);
+                rows[key].add(row);
+            }
+            writer.setMaxValue(ROW_COUNT - 1);
+        }
+
+        return compress();
+    }
+
+    private long compress() {
+        try (
+                BitmapIndexFwdReader reader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, 0);
+                CompressedBitmapIndexWriter writer = new CompressedBitmapIndexWriter()
+        ) {
+            return writer.write(configuration, CompressedBitmapIndexUtils.compressedFileName(path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE), reader);
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+}
@@ -194,4 +194,9 @@ public class TableModel implements TableStructure, Closeable {
     public long getCommitLag() {
         return configuration.getCommitLag();
     }
+
+    @Override
+    public long getTtl() {
+        return 0;
+    }
 }
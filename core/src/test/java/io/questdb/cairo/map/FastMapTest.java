@@ -522,6 +522,62 @@ public class FastMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testProbeKey() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Rnd rnd = new Rnd();
+            int N = 1000;
+            try (FastMap map = new FastMap(
+                    1024,
+                    new SingleColumnType(ColumnType.STRING),
+                    new SingleColumnType(ColumnType.LONG),
+                    N / 2,
+                    0.5f,
+                    Integer.MAX_VALUE)) {
+                ObjList<String> keys = new ObjList<>();
+                for (int i = 0; i < N; i++) {
+                    // prefix makes keys unique
+                    String s = i + "_" + rnd.nextChars(rnd.nextInt(100));
+                    keys.add(s);
+                    MapKey key = map.withKey();
+                    key.putStr(s);
+                    key.createValue().putLong(0, i);
+                }
+
+                try (
+                        FastMap.ProbeKey probeKey1 = map.newProbeKey();
+                        FastMap.ProbeKey probeKey2 = map.newProbeKey()
+                ) {
+                    final long appendOffset = map.getAppendOffset();
+                    for (int i = 0, n = keys.size(); i < n; i++) {
+                        // keys longer than the initial buffer make probe keys grow
+                        probeKey1.init().putStr(keys.getQuick(i));
+                        probeKey2.init().putStr(keys.getQuick(n - i - 1));
+                        MapValue value1 = probeKey1.findValue();
+                        MapValue value2 = probeKey2.findValue();
+                        Assert.assertNotNull(value1);
+                        Assert.assertNotNull(value2);
+                        Assert.assertEquals(i, value1.getLong(0));
+                        Assert.assertEquals(n - i - 1, value2.getLong(0));
+                    }
+
+                    probeKey1.init().putStr("missing");
+                    Assert.assertNull(probeKey1.findValue());
+                    // probing doesn't touch the map
+                    Assert.assertEquals(appendOffset, map.getAppendOffset());
+                    Assert.assertEquals(N, map.size());
+
+                    try {
+                        probeKey2.init().putStr("new");
+                        probeKey2.createValue();
+                        Assert.fail();
+                    } catch (UnsupportedOperationException ignore) {
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testRecordAsKey() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.mv;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatViewTest extends AbstractGriffinTest {
+
+    @Test
+    public void testBaseTableMustHaveTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table base (ts timestamp, v double)");
+            assertCreateFails(
+                    "create materialized view v1 as (select ts, sum(v) s from base sample by 1h align to calendar)",
+                    "base table of materialized view must have designated timestamp"
+            );
+        });
+    }
+
+    @Test
+    public void testDropView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v1 as (select ts, sum(v) s from base sample by 1h align to calendar)");
+            Assert.assertEquals(1, engine.getMatViewRegistry().getViewCount());
+            compile("drop table v1");
+            Assert.assertEquals(0, engine.getMatViewRegistry().getViewCount());
+        });
+    }
+
+    @Test
+    public void testFillNotSupported() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            assertCreateFails(
+                    "create materialized view v1 as (select ts, sum(v) s from base sample by 1h fill(null) align to calendar)",
+                    "FILL is not supported in materialized views"
+            );
+        });
+    }
+
+    @Test
+    public void testJoinNotSupported() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create table other (ts timestamp, w double) timestamp(ts)");
+            assertCreateFails(
+                    "create materialized view v1 as (select b.ts, sum(v) s from base b join other o on b.ts = o.ts sample by 1h align to calendar)",
+                    "materialized view query must select from a single table"
+            );
+        });
+    }
+
+    @Test
+    public void testMustAlignToCalendar() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            assertCreateFails(
+                    "create materialized view v1 as (select ts, sum(v) s from base sample by 1h)",
+                    "materialized view query must be aligned to calendar"
+            );
+        });
+    }
+
+    @Test
+    public void testRefreshAfterInOrderAndO3Commits() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            executeInsert("insert into base values ('2022-01-01T00:10:00.000000Z', 1.0)");
+            executeInsert("insert into base values ('2022-01-01T01:20:00.000000Z', 2.0)");
+            compile("create materialized view v1 as (select ts, sum(v) s from base sample by 1h align to calendar) partition by DAY");
+            assertSql(
+                    "v1",
+                    "ts\ts\n" +
+                            "2022-01-01T00:00:00.000000Z\t1.0\n" +
+                            "2022-01-01T01:00:00.000000Z\t2.0\n"
+            );
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                executeInsert("insert into base values ('2022-01-01T01:40:00.000000Z', 3.0)");
+                executeInsert("insert into base values ('2022-01-02T02:05:00.000000Z', 4.0)");
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+                assertSql(
+                        "v1",
+                        "ts\ts\n" +
+                                "2022-01-01T00:00:00.000000Z\t1.0\n" +
+                                "2022-01-01T01:00:00.000000Z\t5.0\n" +
+                                "2022-01-02T02:00:00.000000Z\t4.0\n"
+                );
+
+                // out of order row refreshes the view from its bucket
+                executeInsert("insert into base values ('2022-01-01T00:30:00.000000Z', 5.0)");
+                Assert.assertTrue(job.run(0));
+                assertSql(
+                        "v1",
+                        "ts\ts\n" +
+                                "2022-01-01T00:00:00.000000Z\t6.0\n" +
+                                "2022-01-01T01:00:00.000000Z\t5.0\n" +
+                                "2022-01-02T02:00:00.000000Z\t4.0\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshQueryUsesAlias() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v1 as (select b.ts, max(b.v) m from \"base\" b sample by 1d align to calendar)");
+            Assert.assertEquals(
+                    "select b.ts, max(b.v) m from (\"base\" where \"ts\" >= $1) b sample by 1d align to calendar",
+                    engine.getMatViewRegistry().getView("v1").getRefreshQuery()
+            );
+            compile("create materialized view v2 as (select ts, max(v) m from base sample by 1d align to calendar)");
+            Assert.assertEquals(
+                    "select ts, max(v) m from (base where \"ts\" >= $1) base sample by 1d align to calendar",
+                    engine.getMatViewRegistry().getView("v2").getRefreshQuery()
+            );
+        });
+    }
+
+    @Test
+    public void testRenameView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v1 as (select ts, sum(v) s from base sample by 1h align to calendar)");
+            compile("rename table v1 to v2");
+            Assert.assertNull(engine.getMatViewRegistry().getView("v1"));
+            Assert.assertNotNull(engine.getMatViewRegistry().getView("v2"));
+        });
+    }
+
+    private static void createBaseTable() throws SqlException {
+        compile("create table base (ts timestamp, v double) timestamp(ts) partition by DAY");
+    }
+
+    private void assertCreateFails(String sql, String expectedMessage) {
+        try {
+            compile(sql);
+            Assert.fail();
+        } catch (SqlException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), expectedMessage);
+        }
+        Assert.assertEquals(0, engine.getMatViewRegistry().getViewCount());
+    }
+}
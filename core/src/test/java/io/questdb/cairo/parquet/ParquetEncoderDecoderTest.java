@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.vm.MemoryCARWImpl;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParquetEncoderDecoderTest {
+    private static final Log LOG = LogFactory.getLog(ParquetEncoderDecoderTest.class);
+    private static final int N = 1_000;
+
+    @BeforeClass
+    public static void setUp() {
+        LOG.info().$("Begin test").$();
+        // gzip header is allocated on first use of Zip
+        Zip.init();
+    }
+
+    @Test
+    public void testCorruptFooter() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    ParquetEncoder encoder = new ParquetEncoder();
+                    ParquetDecoder decoder = new ParquetDecoder();
+                    MemoryCARW values = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                    MemoryCARW file = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)
+            ) {
+                for (int i = 0; i < N; i++) {
+                    values.putLong(i);
+                }
+                encoder.of(100, ParquetEncoder.CODEC_UNCOMPRESSED);
+                encoder.addColumn("l", ColumnType.LONG, 0, 0, values.getAddress(), 0, null, 0);
+                encoder.encode(file, N);
+
+                // footer length points before the start of the file
+                Unsafe.getUnsafe().putInt(file.getAddress() + file.getAppendOffset() - 8, Integer.MAX_VALUE);
+                try {
+                    decoder.of(file.getAddress(), file.getAppendOffset());
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "corrupt parquet");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testFixedColumnsGzip() throws Exception {
+        assertFixedColumns(ParquetEncoder.CODEC_GZIP, 128);
+    }
+
+    @Test
+    public void testFixedColumnsUncompressed() throws Exception {
+        assertFixedColumns(ParquetEncoder.CODEC_UNCOMPRESSED, 1_000_000);
+    }
+
+    @Test
+    public void testStringColumnGzip() throws Exception {
+        assertStringColumn(ParquetEncoder.CODEC_GZIP, 100);
+    }
+
+    @Test
+    public void testStringColumnUncompressed() throws Exception {
+        assertStringColumn(ParquetEncoder.CODEC_UNCOMPRESSED, 333);
+    }
+
+    private static void assertFixedColumns(int codec, int rowGroupSize) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            final int top = 17;
+            final long intSize = (long) (N - top) * Integer.BYTES;
+            final long longSize = (long) N * Long.BYTES;
+            final long ints = Unsafe.malloc(intSize, MemoryTag.NATIVE_DEFAULT);
+            final long longs = Unsafe.malloc(longSize, MemoryTag.NATIVE_DEFAULT);
+            final long dst = Unsafe.malloc(longSize, MemoryTag.NATIVE_DEFAULT);
+            try (
+                    ParquetEncoder encoder = new ParquetEncoder();
+                    ParquetDecoder decoder = new ParquetDecoder();
+                    MemoryCARW file = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)
+            ) {
+                for (int i = 0; i < N - top; i++) {
+                    Unsafe.getUnsafe().putInt(ints + (long) i * Integer.BYTES, i % 7 == 0 ? Numbers.INT_NaN : rnd.nextInt());
+                }
+                for (int i = 0; i < N; i++) {
+                    Unsafe.getUnsafe().putLong(longs + (long) i * Long.BYTES, 1_000 + i);
+                }
+
+                encoder.of(rowGroupSize, codec);
+                encoder.addColumn("i", ColumnType.INT, 3, top, ints, 0, null, 0);
+                encoder.addColumn("ts", ColumnType.TIMESTAMP, 5, 0, longs, 0, null, 0);
+                encoder.encode(file, N);
+
+                Assert.assertEquals(ParquetEncoder.MAGIC, Unsafe.getUnsafe().getInt(file.getAddress()));
+                Assert.assertEquals(ParquetEncoder.MAGIC, Unsafe.getUnsafe().getInt(file.getAddress() + file.getAppendOffset() - 4));
+
+                decoder.of(file.getAddress(), file.getAppendOffset());
+                Assert.assertEquals(N, decoder.getRowCount());
+                Assert.assertEquals(2, decoder.getColumnCount());
+                Assert.assertEquals(0, decoder.getColumnIndex(3));
+                Assert.assertEquals(1, decoder.getColumnIndex(5));
+                Assert.assertEquals(-1, decoder.getColumnIndex(4));
+                Assert.assertEquals(1_000, decoder.getFirstRowGroupMin(1));
+
+                decoder.decodeFixedColumn(0, ColumnType.INT, top, dst);
+                assertMemoryEquals(ints, dst, intSize);
+
+                decoder.decodeFixedColumn(1, ColumnType.TIMESTAMP, 0, dst);
+                assertMemoryEquals(longs, dst, longSize);
+
+                try {
+                    decoder.decodeFixedColumn(1, ColumnType.DOUBLE, 0, dst);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "parquet column type mismatch");
+                }
+            } finally {
+                Unsafe.free(ints, intSize, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(longs, longSize, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(dst, longSize, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    private static void assertStringColumn(int codec, int rowGroupSize) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            try (
+                    ParquetEncoder encoder = new ParquetEncoder();
+                    ParquetDecoder decoder = new ParquetDecoder();
+                    MemoryCARW data = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                    MemoryCARW aux = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                    MemoryCARW decodedData = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                    MemoryCARW decodedAux = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                    MemoryCARW file = new MemoryCARWImpl(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)
+            ) {
+                for (int i = 0; i < N; i++) {
+                    aux.putLong(data.getAppendOffset());
+                    if (i % 5 == 0) {
+                        data.putNullStr();
+                    } else if (i % 11 == 0) {
+                        data.putStr("");
+                    } else if (i % 13 == 0) {
+                        data.putStr("zażółć gęślą jaźń");
+                    } else {
+                        data.putStr(rnd.nextString(rnd.nextInt(20)));
+                    }
+                }
+                aux.putLong(data.getAppendOffset());
+
+                encoder.of(rowGroupSize, codec);
+                encoder.addColumn("str", ColumnType.STRING, 0, 0, data.getAddress(), aux.getAddress(), null, 0);
+                encoder.encode(file, N);
+
+                decoder.of(file.getAddress(), file.getAppendOffset());
+                decoder.decodeVarColumn(0, ColumnType.STRING, 0, decodedData, decodedAux);
+                Assert.assertEquals(data.getAppendOffset(), decodedData.getAppendOffset());
+                Assert.assertEquals(aux.getAppendOffset(), decodedAux.getAppendOffset());
+                assertMemoryEquals(data.getAddress(), decodedData.getAddress(), data.getAppendOffset());
+                assertMemoryEquals(aux.getAddress(), decodedAux.getAddress(), aux.getAppendOffset());
+            }
+        });
+    }
+
+    private static void assertMemoryEquals(long expected, long actual, long size) {
+        for (long i = 0; i < size; i++) {
+            Assert.assertEquals("offset " + i, Unsafe.getUnsafe().getByte(expected + i), Unsafe.getUnsafe().getByte(actual + i));
+        }
+    }
+}
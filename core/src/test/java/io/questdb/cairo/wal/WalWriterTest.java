@@ -0,0 +1,355 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.metrics.Histogram;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WalWriterTest extends AbstractGriffinTest {
+
+    @Test
+    public void testApplyAcrossSegments() throws Exception {
+        walSegmentRolloverRowCount = 3;
+        assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                for (int i = 0; i < 8; i++) {
+                    appendRow(walWriter, i * 1000000L, "s" + (i % 2), i);
+                    if (i % 2 == 1) {
+                        walWriter.commit();
+                    }
+                }
+                // 4 rows per segment, the last one is empty
+                Assert.assertEquals(2, walWriter.getSegmentId());
+
+                drainWalQueue();
+                assertSql(
+                        "select count(), sum(i) from x",
+                        "count\tsum\n" +
+                                "8\t28\n"
+                );
+
+                // segments the writer has moved on from are removed once applied
+                assertWalDirExists(false, walWriter.getWalId(), 0);
+                assertWalDirExists(false, walWriter.getWalId(), 1);
+                assertWalDirExists(true, walWriter.getWalId(), 2);
+            }
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testApplyOutOfOrderConcurrentWriters() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final int writerCount = 4;
+            final int commitCount = 20;
+            final int rowsPerCommit = 50;
+            final CyclicBarrier barrier = new CyclicBarrier(writerCount);
+            final AtomicInteger errors = new AtomicInteger();
+            final Thread[] threads = new Thread[writerCount];
+            for (int t = 0; t < writerCount; t++) {
+                final int writerIndex = t;
+                threads[t] = new Thread(() -> {
+                    try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        barrier.await();
+                        for (int c = 0; c < commitCount; c++) {
+                            for (int r = 0; r < rowsPerCommit; r++) {
+                                // writers interleave timestamps, so that rows arrive out of order
+                                final long ts = ((long) (c * rowsPerCommit + r) * writerCount + writerIndex) * 1_000_000L;
+                                appendRow(walWriter, ts, "w" + writerIndex, 1);
+                            }
+                            Assert.assertTrue(walWriter.commit() > 0);
+                        }
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        errors.incrementAndGet();
+                    } finally {
+                        Path.clearThreadLocals();
+                    }
+                });
+                threads[t].start();
+            }
+            for (int t = 0; t < writerCount; t++) {
+                threads[t].join();
+            }
+            Assert.assertEquals(0, errors.get());
+
+            drainWalQueue();
+
+            final int rowCount = writerCount * commitCount * rowsPerCommit;
+            assertSql(
+                    "select count(), sum(i), min(ts), max(ts) from x",
+                    "count\tsum\tmin\tmax\n" +
+                            rowCount + "\t" + rowCount + "\t1970-01-01T00:00:00.000000Z\t1970-01-01T01:06:39.000000Z\n"
+            );
+            assertSql(
+                    "select sym, count() from x order by sym",
+                    "sym\tcount\n" +
+                            "w0\t1000\n" +
+                            "w1\t1000\n" +
+                            "w2\t1000\n" +
+                            "w3\t1000\n"
+            );
+            assertSql(
+                    "x limit 4",
+                    "sym\ti\tstr\td\tts\n" +
+                            "w0\t1\tw0\tNaN\t1970-01-01T00:00:00.000000Z\n" +
+                            "w1\t1\tw1\tNaN\t1970-01-01T00:00:01.000000Z\n" +
+                            "w2\t1\tw2\tNaN\t1970-01-01T00:00:02.000000Z\n" +
+                            "w3\t1\tw3\tNaN\t1970-01-01T00:00:03.000000Z\n"
+            );
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                Assert.assertEquals(writerCount * commitCount, writer.getSeqTxn());
+            }
+
+            // all WAL writers are closed, their directories are removed
+            for (int walId = 1; walId <= writerCount; walId++) {
+                assertWalDirExists(false, walId, -1);
+            }
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testApplyWaitIsMeasured() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final Histogram applyWait = engine.getMetrics().tableWriter().walApplyWait();
+            final long waits = applyWait.getCount();
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(walWriter, 1_000_000L, "a", 1);
+                walWriter.commit();
+                appendRow(walWriter, 2_000_000L, "b", 2);
+                walWriter.commit();
+                // both txns are applied together, the wait of the oldest one is recorded
+                drainWalQueue();
+                Assert.assertEquals(waits + 1, applyWait.getCount());
+
+                // nothing pending
+                drainWalQueue();
+                Assert.assertEquals(waits + 1, applyWait.getCount());
+
+                appendRow(walWriter, 3_000_000L, "c", 3);
+                walWriter.commit();
+                drainWalQueue();
+                Assert.assertEquals(waits + 2, applyWait.getCount());
+            }
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testCancelRowAndNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row row = walWriter.newRow(2_000_000L);
+                row.putSym(0, "abc");
+                row.putStr(2, "cancelled");
+                row.cancel();
+
+                // only timestamp is set
+                row = walWriter.newRow(1_000_000L);
+                row.append();
+
+                row = walWriter.newRow(3_000_000L);
+                row.putSym(0, "def");
+                row.putInt(1, 42);
+                row.putStr(2, "hello");
+                row.putDouble(3, 1.5);
+                row.append();
+
+                Assert.assertEquals(1, walWriter.commit());
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "x",
+                    "sym\ti\tstr\td\tts\n" +
+                            "\tNaN\t\tNaN\t1970-01-01T00:00:01.000000Z\n" +
+                            "def\t42\thello\t1.5\t1970-01-01T00:00:03.000000Z\n"
+            );
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testNonPartitionedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (i int, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            try {
+                engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "y");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "WAL is only supported for partitioned tables");
+            }
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(walWriter, 1_000_000L, "a", 1);
+                Assert.assertEquals(1, walWriter.commit());
+
+                appendRow(walWriter, 2_000_000L, "rolled back", 2);
+                appendRow(walWriter, 3_000_000L, "rolled back", 3);
+                walWriter.rollback();
+                Assert.assertEquals(0, walWriter.getUncommittedRowCount());
+                Assert.assertEquals(WalWriter.NO_TXN, walWriter.commit());
+
+                appendRow(walWriter, 4_000_000L, "b", 4);
+                Assert.assertEquals(2, walWriter.commit());
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "select sym, i, str, ts from x",
+                    "sym\ti\tstr\tts\n" +
+                            "a\t1\ta\t1970-01-01T00:00:01.000000Z\n" +
+                            "b\t4\tb\t1970-01-01T00:00:04.000000Z\n"
+            );
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testStructureChangeSuspendsApply() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(walWriter, 1_000_000L, "a", 1);
+                walWriter.commit();
+                drainWalQueue();
+
+                compile("alter table x add column j long");
+
+                appendRow(walWriter, 2_000_000L, "b", 2);
+                walWriter.commit();
+                drainWalQueue();
+
+                final TableSequencer sequencer = engine.getTableSequencerRegistry().getSequencer("x");
+                Assert.assertTrue(sequencer.isSuspended());
+                Assert.assertEquals(1, sequencer.getAppliedTxn());
+                Assert.assertEquals(2, sequencer.getTxnCount());
+            }
+            assertSql(
+                    "select sym, i, j from x",
+                    "sym\ti\tj\n" +
+                            "a\t1\tNaN\n"
+            );
+            engine.clear();
+        });
+    }
+
+    @Test
+    public void testTxnLogSurvivesRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(walWriter, 2_000_000L, "a", 1);
+                walWriter.commit();
+                appendRow(walWriter, 1_000_000L, "b", 2);
+                walWriter.commit();
+            }
+            // txns are not applied yet, sequencers are closed as if the server was stopped
+            engine.clear();
+
+            engine.getTableSequencerRegistry().openExisting();
+            drainWalQueue();
+            assertSql(
+                    "select sym, i, ts from x",
+                    "sym\ti\tts\n" +
+                            "b\t2\t1970-01-01T00:00:01.000000Z\n" +
+                            "a\t1\t1970-01-01T00:00:02.000000Z\n"
+            );
+
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                // WAL ids are not reused
+                Assert.assertEquals(2, walWriter.getWalId());
+                appendRow(walWriter, 3_000_000L, "c", 3);
+                Assert.assertEquals(3, walWriter.commit());
+            }
+            drainWalQueue();
+            assertSql(
+                    "select count() from x",
+                    "count\n3\n"
+            );
+            engine.clear();
+        });
+    }
+
+    private static void appendRow(WalWriter walWriter, long timestamp, String sym, int i) {
+        final TableWriter.Row row = walWriter.newRow(timestamp);
+        row.putSym(0, sym);
+        row.putInt(1, i);
+        row.putStr(2, sym);
+        row.append();
+    }
+
+    private static void assertWalDirExists(boolean expected, int walId, int segmentId) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            if (segmentId < 0) {
+                WalUtils.walPath(path, configuration.getRoot(), "x", walId);
+            } else {
+                WalUtils.segmentPath(path, configuration.getRoot(), "x", walId, segmentId);
+            }
+            Assert.assertEquals(path.toString(), expected, ff.exists(path.$()));
+        }
+    }
+
+    private static void drainWalQueue() {
+        final ApplyWal2TableJob job = new ApplyWal2TableJob(engine);
+        try {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) {
+            }
+        } finally {
+            Misc.free(job);
+        }
+    }
+
+    private void createTable() throws Exception {
+        compiler.compile("create table x (sym symbol, i int, str string, d double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
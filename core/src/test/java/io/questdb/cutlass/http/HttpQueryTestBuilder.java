@@ -213,6 +213,18 @@ public class HttpQueryTestBuilder {
                     }
                 });
 
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new TableSubscriptionProcessor(httpConfiguration.getJsonQueryProcessorConfiguration(), engine, workerCount, null);
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/sub";
+                    }
+                });
+
                 QueryCache.configure(httpConfiguration);
 
                 workerPool.start(LOG);
@@ -93,6 +93,65 @@ public class MetricsIODispatcherTest {
                 });
     }
 
+    @Test
+    public void testPrometheusTextFormatHistogram() throws Exception {
+        MetricsRegistry metricsRegistry = new MetricsRegistryImpl();
+        Histogram histogram = metricsRegistry.newHistogram("test_latency");
+
+        new HttpMinTestBuilder()
+                .withTempFolder(temp)
+                .withScrapable(metricsRegistry)
+                .run(engine -> {
+                    histogram.record(1_500_000);
+
+                    String expectedResponse = "HTTP/1.1 200 OK\r\n" +
+                            "Server: questDB/1.0\r\n" +
+                            "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                            "Transfer-Encoding: chunked\r\n" +
+                            "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n" +
+                            "\r\n" +
+                            "04e9\r\n" +
+                            "# TYPE questdb_test_latency_seconds histogram\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.00001\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.000025\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.00005\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.0001\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.00025\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.0005\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.001\"} 0\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.0025\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.005\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.01\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.025\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.05\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.1\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.25\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"0.5\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"1\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"2.5\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"5\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"10\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"25\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"50\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"100\"} 1\n" +
+                            "questdb_test_latency_seconds_bucket{le=\"+Inf\"} 1\n" +
+                            "questdb_test_latency_seconds_sum 0.0015\n" +
+                            "questdb_test_latency_seconds_count 1\n" +
+                            "\n" +
+                            "\r\n" +
+                            "00\r\n" +
+                            "\r\n";
+
+                    new SendAndReceiveRequestBuilder()
+                            .withNetworkFacade(NetworkFacadeImpl.INSTANCE)
+                            .withExpectDisconnect(false)
+                            .withPrintOnly(false)
+                            .withRequestCount(1)
+                            .withPauseBetweenSendAndReceive(0)
+                            .execute(prometheusRequest, expectedResponse);
+                });
+    }
+
     private static class TestMetrics implements Scrapable {
         private static final short QUERY_CANCELLED = 0;
         private static final short SYNTAX_ERROR = 1;
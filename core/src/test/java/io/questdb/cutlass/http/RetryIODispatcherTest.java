@@ -707,6 +707,8 @@ public class RetryIODispatcherTest {
                     }
                     completeInserts = metrics.jsonQuery().completedQueriesCount() - nonInsertQueries;
                     Assert.assertEquals("expected all inserts to succeed", parallelCount, completeInserts);
+                    // every completed query has its latency recorded
+                    Assert.assertEquals(metrics.jsonQuery().completedQueriesCount(), metrics.jsonQuery().latency().getCount());
 
                     // check that we have all the records inserted
                     new SendAndReceiveRequestBuilder().executeWithStandardHeaders(
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class TableSubscriptionTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testFilteredRowsAreStreamed() throws Exception {
+        testSubscription(engine -> {
+            try (
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by DAY", executionContext);
+                TestUtils.insert(compiler, executionContext, "insert into x values ('a', 50, 0)");
+                final Subscription subscription = new Subscription("table=x&filter=v%20%3E%201%20and%20sym%20%3D%20%27a%27");
+
+                subscription.await("{\"table\":\"x\",\"columns\":[{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"v\",\"type\":\"LONG\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"}]}\n");
+                // the row committed before the subscription is not streamed
+                subscription.await("\"rows\":1}\n");
+
+                compiler.compile("insert into x select rnd_symbol('a','b'), x, cast(x * 36000000000 as timestamp) from long_sequence(10)", executionContext);
+                subscription.await("\"rows\":11}\n");
+                TestUtils.insert(compiler, executionContext, "insert into x values ('b', 100, 360000000000), ('a', 101, 360000000001)");
+                subscription.await("\"rows\":13}\n");
+
+                final String received = subscription.received();
+                Assert.assertFalse(received, received.contains("[\"a\",50,"));
+                Assert.assertFalse(received, received.contains("[\"b\",100,"));
+                Assert.assertTrue(received, received.contains("[\"a\",101,\"1970-01-05T04:00:00.000001Z\"]\n"));
+                assertStreamed(compiler, executionContext, received, "select * from x where v > 1 and sym = 'a' and v < 50");
+                subscription.close();
+            }
+        });
+    }
+
+    @Test
+    public void testMissingTable() throws Exception {
+        testSubscription(engine -> {
+            try (Subscription subscription = new Subscription("table=y")) {
+                subscription.await("HTTP/1.1 400 Bad request");
+                subscription.await("table does not exist [table=y]");
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidFilter() throws Exception {
+        testSubscription(engine -> {
+            try (
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x (v long, ts timestamp) timestamp(ts) partition by DAY", executionContext);
+                try (Subscription subscription = new Subscription("table=x&filter=w%20%3E%201")) {
+                    subscription.await("HTTP/1.1 400 Bad request");
+                    subscription.await("Invalid column: w");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testResumeFromRowCount() throws Exception {
+        testSubscription(engine -> {
+            try (
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x as (select x v, timestamp_sequence(0, 36000000000) ts from long_sequence(5)) timestamp(ts) partition by DAY", executionContext);
+                try (Subscription subscription = new Subscription("table=x&rows=3")) {
+                    subscription.await("[4,\"1970-01-02T06:00:00.000000Z\"]\n[5,\"1970-01-02T16:00:00.000000Z\"]\n");
+                    subscription.await("\"rows\":5}\n");
+                    Assert.assertFalse(subscription.received().contains("[3,"));
+
+                    TestUtils.insert(compiler, executionContext, "insert into x values (6, 500000000000)");
+                    subscription.await("[6,\"1970-01-06T18:53:20.000000Z\"]\n");
+                    subscription.await("\"rows\":6}\n");
+                }
+                try (Subscription subscription = new Subscription("table=x&rows=7")) {
+                    subscription.await("HTTP/1.1 400 Bad request");
+                    subscription.await("rows value is beyond the end of the table");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testStructureChangeEndsSubscription() throws Exception {
+        testSubscription(engine -> {
+            try (
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x (v long, ts timestamp) timestamp(ts) partition by DAY", executionContext);
+                try (Subscription subscription = new Subscription("table=x")) {
+                    subscription.await("\"rows\":0}\n");
+                    try (OperationFuture future = compiler.compile("alter table x add column w int", executionContext).execute(null)) {
+                        future.await();
+                    }
+                    // altering the table is noticed with the next commit
+                    TestUtils.insert(compiler, executionContext, "insert into x values (1, 0, 2)");
+                    subscription.await("{\"error\":\"table structure has changed [table=x]\"}\n");
+                }
+            }
+        });
+    }
+
+    private static void assertStreamed(
+            SqlCompiler compiler,
+            SqlExecutionContextImpl executionContext,
+            String received,
+            String query
+    ) throws SqlException {
+        int count = 0;
+        try (
+                io.questdb.cairo.sql.RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory();
+                io.questdb.cairo.sql.RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final io.questdb.cairo.sql.Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                Assert.assertTrue(received, received.contains("[\"a\"," + record.getLong(1) + ","));
+                count++;
+            }
+        }
+        Assert.assertTrue(count > 0);
+    }
+
+    private void testSubscription(HttpQueryTestBuilder.HttpClientCode code) throws Exception {
+        new HttpQueryTestBuilder()
+                .withWorkerCount(2)
+                .withTempFolder(temp)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .run(code);
+    }
+
+    private static class Subscription implements AutoCloseable {
+        private final Socket socket;
+        private final InputStream in;
+        private final StringBuilder received = new StringBuilder();
+
+        Subscription(String params) {
+            try {
+                socket = new Socket("127.0.0.1", 9001);
+                socket.setSoTimeout(100);
+                in = socket.getInputStream();
+                final OutputStream out = socket.getOutputStream();
+                out.write(("GET /sub?" + params + " HTTP/1.1\r\n" +
+                        "Host: localhost:9000\r\n" +
+                        "Connection: keep-alive\r\n" +
+                        "Accept: */*\r\n" +
+                        "\r\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+
+        void await(String expected) {
+            final byte[] buf = new byte[4096];
+            final long deadline = System.currentTimeMillis() + 30_000;
+            while (received.indexOf(expected) < 0) {
+                Assert.assertTrue("expected: " + expected + ", received: " + received, System.currentTimeMillis() < deadline);
+                try {
+                    final int n = in.read(buf);
+                    if (n < 0) {
+                        Assert.fail("disconnected, expected: " + expected + ", received: " + received);
+                    }
+                    received.append(new String(buf, 0, n, StandardCharsets.UTF_8));
+                } catch (java.net.SocketTimeoutException ignore) {
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        String received() {
+            return received.toString();
+        }
+    }
+}
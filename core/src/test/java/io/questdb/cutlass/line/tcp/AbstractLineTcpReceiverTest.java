@@ -88,6 +88,8 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
     protected int msgBufferSize = 256 * 1024;
     protected long minIdleMsBeforeWriterRelease = 30000;
     protected long maintenanceInterval = 25;
+    protected long writerRebalanceInterval = 5_000;
+    protected double maxLoadRatio = 1.9;
     protected double commitIntervalFraction = 0.5;
     protected long commitIntervalDefault = 2000;
     protected boolean disconnectOnError = false;
@@ -129,6 +131,16 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
             return maintenanceInterval;
         }
 
+        @Override
+        public long getWriterRebalanceInterval() {
+            return writerRebalanceInterval;
+        }
+
+        @Override
+        public double getMaxLoadRatio() {
+            return maxLoadRatio;
+        }
+
         @Override
         public double getCommitIntervalFraction() {
             return commitIntervalFraction;
@@ -93,6 +93,17 @@ public class LineTcpReceiverFuzzTest extends AbstractLineTcpReceiverFuzzTest {
         runTest();
     }
 
+    @Test
+    public void testLoadWithRebalance() throws Exception {
+        // rebalance as often as possible, any imbalance triggers a table migration
+        writerRebalanceInterval = 1;
+        maxLoadRatio = 1.0;
+        final long migrationsBefore = metrics.lineTcp().tableMigrations();
+        initLoadParameters(100, Os.type == Os.WINDOWS ? 3 : 5, 7, 12, 20);
+        runTest();
+        LOG.info().$("writer table migrations [count=").$(metrics.lineTcp().tableMigrations() - migrationsBefore).I$();
+    }
+
     @Test
     public void testReorderingAddSkipDuplicateColumnsWithNonAsciiNoTagsStringsAsSymbol() throws Exception {
         initLoadParameters(100, Os.type == Os.WINDOWS ? 3 : 5, 5, 5, 50);
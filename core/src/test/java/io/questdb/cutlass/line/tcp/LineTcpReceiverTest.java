@@ -41,6 +41,7 @@ import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.metrics.Histogram;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.network.Net;
@@ -351,6 +352,29 @@ public class LineTcpReceiverTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    @Test
+    public void testLatencyMetrics() throws Exception {
+        final Histogram queueWait = engine.getMetrics().lineTcp().writerQueueWait();
+        final Histogram lineToCommit = engine.getMetrics().lineTcp().lineToCommitLatency();
+        final long queueWaitCount = queueWait.getCount();
+        final long lineToCommitCount = lineToCommit.getCount();
+        String lineData = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                "weather,location=us-midwest temperature=83 1465839830100500200\n" +
+                "weather,location=us-eastcoast temperature=81 1465839830101400200\n";
+        runInContext((receiver) -> {
+            sendLinger(receiver, lineData, "weather");
+
+            String expected = "location\ttemperature\ttimestamp\n" +
+                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-midwest\t83.0\t2016-06-13T17:43:50.100500Z\n" +
+                    "us-eastcoast\t81.0\t2016-06-13T17:43:50.101400Z\n";
+            assertTable(expected, "weather");
+        });
+        // one sample per line, and one per commit
+        Assert.assertEquals(queueWaitCount + 3, queueWait.getCount());
+        Assert.assertTrue(lineToCommit.getCount() > lineToCommitCount);
+    }
+
     @Test
     public void testMetaDataSizeToHitExactly16K() throws Exception {
         final String tableName = "weather";
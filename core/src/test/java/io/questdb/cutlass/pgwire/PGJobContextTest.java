@@ -62,6 +62,9 @@ import org.postgresql.util.PSQLException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.GregorianCalendar;
@@ -1659,26 +1662,124 @@ public class PGJobContextTest extends BasePGTest {
     }
 
     @Test
-    @Ignore
-    public void testCopyIn() throws SQLException {
-        try (
-                final PGWireServer ignored = createPGServer(2);
-                final Connection connection = getConnection(false, true)
-        ) {
-            PreparedStatement stmt = connection.prepareStatement("create table tab (a int, b int)");
-            stmt.execute();
+    public void testCopyIn() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer ignored = createPGServer(2);
+                    final Connection connection = getConnection(false, true)
+            ) {
+                PreparedStatement stmt = connection.prepareStatement("create table tab (a int, b int)");
+                stmt.execute();
 
-            CopyManager copyManager = new CopyManager((BaseConnection) connection);
+                CopyManager copyManager = new CopyManager((BaseConnection) connection);
 
-            CopyIn copyIn = copyManager.copyIn("copy tab from STDIN");
+                CopyIn copyIn = copyManager.copyIn("copy tab from STDIN with (format csv, header true)");
 
-            String text = "a,b\r\n" +
-                    "10,20";
+                String text = "a,b\r\n" +
+                        "10,20\r\n" +
+                        "30,40";
 
-            byte[] bytes = text.getBytes();
-            copyIn.writeToCopy(bytes, 0, bytes.length);
-            copyIn.endCopy();
-        }
+                byte[] bytes = text.getBytes();
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                Assert.assertEquals(2, copyIn.endCopy());
+            }
+            assertSql("tab", "a\tb\n" +
+                    "10\t20\n" +
+                    "30\t40\n");
+        });
+    }
+
+    @Test
+    public void testCopyInBinary() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer ignored = createPGServer(2);
+                    final Connection connection = getConnection(false, true)
+            ) {
+                connection.prepareStatement("create table tab (i int, l long, d double, s symbol, str string, ts timestamp) timestamp(ts) partition by DAY").execute();
+
+                ByteBuffer buf = ByteBuffer.allocate(256);
+                buf.put("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+                buf.putInt(0).putInt(0);
+                for (int i = 0; i < 2; i++) {
+                    buf.putShort((short) 6);
+                    buf.putInt(4).putInt(i + 1);
+                    if (i == 0) {
+                        buf.putInt(8).putLong(100L);
+                    } else {
+                        buf.putInt(-1);
+                    }
+                    buf.putInt(8).putDouble(1.5 * (i + 1));
+                    buf.putInt(3).put("abc".getBytes());
+                    buf.putInt(2).put("xy".getBytes());
+                    // microseconds since 2000-01-01
+                    buf.putInt(8).putLong(694310400000000L + i * Timestamps.SECOND_MICROS);
+                }
+                buf.putShort((short) -1);
+
+                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+                CopyIn copyIn = copyManager.copyIn("copy tab from stdin (format binary)");
+                // second message starts in the middle of the first tuple
+                copyIn.writeToCopy(buf.array(), 0, 30);
+                copyIn.writeToCopy(buf.array(), 30, buf.position() - 30);
+                Assert.assertEquals(2, copyIn.endCopy());
+            }
+            assertSql("tab", "i\tl\td\ts\tstr\tts\n" +
+                    "1\t100\t1.5\tabc\txy\t2022-01-01T00:00:00.000000Z\n" +
+                    "2\tNaN\t3.0\tabc\txy\t2022-01-01T00:00:01.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testCopyInBinaryColumnCountMismatch() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer ignored = createPGServer(2);
+                    final Connection connection = getConnection(false, true)
+            ) {
+                connection.prepareStatement("create table tab (a int, b int)").execute();
+
+                ByteBuffer buf = ByteBuffer.allocate(64);
+                buf.put("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+                buf.putInt(0).putInt(0);
+                buf.putShort((short) 1).putInt(4).putInt(1);
+                buf.putShort((short) -1);
+
+                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+                try {
+                    CopyIn copyIn = copyManager.copyIn("copy tab from stdin (format binary)");
+                    copyIn.writeToCopy(buf.array(), 0, buf.position());
+                    copyIn.endCopy();
+                    Assert.fail();
+                } catch (PSQLException e) {
+                    assertContains(e.getMessage(), "column count mismatch [expected=2, actual=1]");
+                }
+            }
+            assertSql("tab", "a\tb\n");
+        });
+    }
+
+    @Test
+    public void testCopyInText() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer ignored = createPGServer(2);
+                    final Connection connection = getConnection(false, true)
+            ) {
+                connection.prepareStatement("create table tab (a int, s string)").execute();
+
+                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+                final long rows = copyManager.copyIn(
+                        "copy tab from stdin",
+                        new StringReader("1\tx\n\\N\ty\n3\t\\N\n")
+                );
+                Assert.assertEquals(3, rows);
+            }
+            assertSql("tab", "a\ts\n" +
+                    "1\tx\n" +
+                    "NaN\ty\n" +
+                    "3\t\n");
+        });
     }
 
     @Test
@@ -1932,6 +2033,24 @@ public class PGJobContextTest extends BasePGTest {
         insertAllGeoHashTypes(false);
     }
 
+    @Test
+    public void testGeoHashSelectExtendedBinaryHex() throws Exception {
+        // all result columns are requested in binary, then geohashes in text with a format code per column
+        final String script = ">0000006900030000757365720078797a006461746162617365006e6162755f61707000636c69656e745f656e636f64696e67005554463800446174655374796c650049534f0054696d655a6f6e6500474d540065787472615f666c6f61745f64696769747300320000\n" +
+                "<520000000800000003\n" +
+                ">70000000076f6800\n" +
+                "<520000000800000000530000001154696d655a6f6e6500474d5400530000001d6170706c69636174696f6e5f6e616d6500517565737444420053000000187365727665725f76657273696f6e0031312e33005300000019696e74656765725f6461746574696d6573006f6e005300000019636c69656e745f656e636f64696e670055544638005a0000000549\n" +
+                ">50000000650073656c6563742063617374282775272061732067656f68617368283163292920612c202323313020622c206e756c6c206e2c20636173742831206173206c6f6e6732353629206c2066726f6d206c6f6e675f73657175656e6365283129000000420000000e000000000000000100014400000006500045000000090000000000530000000450000000470073656c6563742063617374282775272061732067656f68617368283163292920612c202323313020622066726f6d206c6f6e675f73657175656e63652831290000004200000010000000000000000200000000450000000900000000005300000004\n" +
+                "<3100000004320000000454000000560004610000000000000100000413ffffffffffff0001620000000000000200000413ffffffffffff00016e0000000000000300000413ffffffffffff00016c0000000000000400000413ffffffffffff0001440000001d00040000000175000000023130ffffffff0000000430783031430000000d53454c4543542031005a0000000549\n" +
+                "<31000000043200000004440000001100020000000175000000023130430000000d53454c4543542031005a0000000549\n" +
+                ">5800000004\n";
+        assertHexScript(
+                NetworkFacadeImpl.INSTANCE,
+                script,
+                getHexPgWireConfig()
+        );
+    }
+
     @Test
     public void testGeoHashSelectBin() throws Exception {
         testGeoHashSelect(false, true);
@@ -3971,6 +4090,25 @@ nodejs code:
         );
     }
 
+    @Test
+    public void testPipelinedExtendedQueryErrorSkipsToSync() throws Exception {
+        // single send: select without Sync, failing select followed by Bind and Execute, Sync, then another select;
+        // Bind and Execute of the failed statement are skipped, the last select is answered as usual
+        final String script = ">0000006900030000757365720078797a006461746162617365006e6162755f61707000636c69656e745f656e636f64696e67005554463800446174655374796c650049534f0054696d655a6f6e6500474d540065787472615f666c6f61745f64696769747300320000\n" +
+                "<520000000800000003\n" +
+                ">70000000076f6800\n" +
+                "<520000000800000000530000001154696d655a6f6e6500474d5400530000001d6170706c69636174696f6e5f6e616d6500517565737444420053000000187365727665725f76657273696f6e0031312e33005300000019696e74656765725f6461746574696d6573006f6e005300000019636c69656e745f656e636f64696e670055544638005a0000000549\n" +
+                ">50000000260073656c65637420782066726f6d206c6f6e675f73657175656e6365283229000000420000000c000000000000000045000000090000000000500000001a0073656c656374202a2066726f6d206e6f7065000000420000000c000000000000000045000000090000000000530000000450000000260073656c65637420312066726f6d206c6f6e675f73657175656e6365283129000000420000000c0000000000000000450000000900000000005300000004\n" +
+                "<31000000043200000004440000000b00010000000131440000000b00010000000132430000000d53454c4543542032004500000039433030303030004d7461626c6520646f6573206e6f74206578697374205b6e616d653d6e6f70655d00534552524f520050313500005a0000000549\n" +
+                "<31000000043200000004440000000b00010000000131430000000d53454c4543542031005a0000000549\n" +
+                ">5800000004\n";
+        assertHexScript(
+                NetworkFacadeImpl.INSTANCE,
+                script,
+                getHexPgWireConfig()
+        );
+    }
+
     @Test
     public void testPreparedStatement() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
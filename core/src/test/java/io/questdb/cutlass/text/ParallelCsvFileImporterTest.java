@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.Metrics;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.std.Rnd;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+public class ParallelCsvFileImporterTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(ParallelCsvFileImporterTest.class);
+
+    @BeforeClass
+    public static void setUpStatic() {
+        try {
+            inputRoot = temp.newFolder("import").getAbsolutePath();
+            inputWorkRoot = temp.newFolder("import_work").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testCopyPartitionByCreatesTable() throws Exception {
+        assertMemoryLeak(() -> {
+            writeFile("unsorted.csv", 1000, 10, false);
+            compiler.compile("copy expected from 'unsorted.csv' with header true", sqlExecutionContext);
+            compiler.compile("copy x from 'unsorted.csv' with header true timestamp 'ts' partition by DAY", sqlExecutionContext);
+
+            assertPartitionCount(10);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected order by ts", "x", LOG);
+        });
+    }
+
+    @Test
+    public void testExistingTableWithIndexedSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (ts timestamp, sym symbol index, str string, i int, d double) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("create table expected (ts timestamp, sym symbol, str string, i int, d double)", sqlExecutionContext);
+            writeFile("indexed.csv", 2000, 7, false);
+            compiler.compile("copy expected from 'indexed.csv' with header true", sqlExecutionContext);
+            importFile("indexed.csv", 4);
+
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected order by ts", "x", LOG);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected where sym = 'sym3' order by ts", "x where sym = 'sym3'", LOG);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected where sym = null order by ts", "x where sym = null", LOG);
+        });
+    }
+
+    @Test
+    public void testImportWithWorkerPool() throws Exception {
+        assertMemoryLeak(() -> {
+            writeFile("pool.csv", 5000, 20, true);
+            compiler.compile("copy expected from 'pool.csv' with header true", sqlExecutionContext);
+
+            final WorkerPool pool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1, -1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 4;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            }, Metrics.disabled());
+            pool.assign(new TextImportJob(engine.getMessageBus()));
+            pool.start(LOG);
+            try {
+                importFile("pool.csv", 4);
+            } finally {
+                pool.halt();
+            }
+
+            assertPartitionCount(20);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected order by ts", "x", LOG);
+        });
+    }
+
+    @Test
+    public void testQuotedValuesWithNewLines() throws Exception {
+        assertMemoryLeak(() -> {
+            // chunk boundaries fall inside quoted values, lines have to be re-aligned
+            writeFile("quoted.csv", 300, 3, true);
+            compiler.compile("copy expected from 'quoted.csv' with header true", sqlExecutionContext);
+            importFile("quoted.csv", 8);
+
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected order by ts", "x", LOG);
+        });
+    }
+
+    @Test
+    public void testSkipsMalformedLines() throws Exception {
+        assertMemoryLeak(() -> {
+            try (Writer w = new FileWriter(new File(inputRoot, "bad.csv"))) {
+                w.write("ts,v\n");
+                w.write("2022-01-02T00:00:00.000000Z,1\n");
+                w.write(",2\n");
+                w.write("2022-01-01T00:00:00.000000Z,3\n");
+                w.write("2022-01-04T00:00:00.000000Z,4,5\n");
+                w.write("2022-01-01T12:00:00.000000Z,5\n");
+            }
+            compiler.compile("create table x (ts timestamp, v int) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, 3)) {
+                importer.of("x", "bad.csv", PartitionBy.DAY, (byte) ',', "ts", true, Atomicity.SKIP_ROW);
+                importer.process(AllowAllCairoSecurityContext.INSTANCE);
+                Assert.assertEquals(3, importer.getImportedRowCount());
+                Assert.assertEquals(2, importer.getErrorCount());
+            }
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "x",
+                    sink,
+                    "ts\tv\n" +
+                            "2022-01-01T00:00:00.000000Z\t3\n" +
+                            "2022-01-01T12:00:00.000000Z\t5\n" +
+                            "2022-01-02T00:00:00.000000Z\t1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testTargetTableNotEmpty() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select timestamp_sequence('2022-01-01', 1000000) ts, x i from long_sequence(10)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (Writer w = new FileWriter(new File(inputRoot, "small.csv"))) {
+                w.write("ts,i\n");
+                w.write("2022-01-05T00:00:00.000000Z,1\n");
+            }
+            try {
+                compiler.compile("copy x from 'small.csv' with header true partition by DAY", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "target table must be empty");
+            }
+            TestUtils.assertSql(compiler, sqlExecutionContext, "select count() from x", sink, "count\n10\n");
+        });
+    }
+
+    @Test
+    public void testWorkRootNotSet() throws Exception {
+        final String workRoot = inputWorkRoot;
+        inputWorkRoot = null;
+        try {
+            assertMemoryLeak(() -> {
+                try {
+                    compiler.compile("copy x from 'any.csv' with header true partition by DAY", sqlExecutionContext);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "'cairo.sql.copy.work.root' is not set");
+                }
+            });
+        } finally {
+            inputWorkRoot = workRoot;
+        }
+    }
+
+    @Test
+    public void testCopyBadPartitionBy() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("copy x from 'any.csv' with partition by WEEK", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(40, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+        });
+    }
+
+    private static void assertPartitionCount(int expected) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            Assert.assertEquals(expected, reader.getPartitionCount());
+        }
+    }
+
+    private static void importFile(String fileName, int workerCount) throws TextException {
+        try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, workerCount)) {
+            importer.of("x", fileName, PartitionBy.DAY, (byte) ',', "ts", true, Atomicity.SKIP_ROW);
+            importer.process(AllowAllCairoSecurityContext.INSTANCE);
+        }
+    }
+
+    private static void writeFile(String fileName, int rowCount, int dayCount, boolean quoteNewLines) throws IOException {
+        final Rnd rnd = new Rnd();
+        // unique timestamps in random order
+        final long[] timestamps = new long[rowCount];
+        final long step = dayCount * 86_400_000_000L / rowCount;
+        for (int i = 0; i < rowCount; i++) {
+            timestamps[i] = 1640995200000000L + i * step;
+        }
+        for (int i = rowCount - 1; i > 0; i--) {
+            final int j = rnd.nextPositiveInt() % (i + 1);
+            final long t = timestamps[i];
+            timestamps[i] = timestamps[j];
+            timestamps[j] = t;
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        final StringSink timestampSink = new StringSink();
+        try (Writer w = new FileWriter(new File(inputRoot, fileName))) {
+            w.write("ts,sym,str,i,d\n");
+            for (int i = 0; i < rowCount; i++) {
+                builder.setLength(0);
+                timestampSink.clear();
+                TimestampFormatUtils.appendDateTimeUSec(timestampSink, timestamps[i]);
+                builder.append(timestampSink).append(',');
+                if (rnd.nextInt(10) > 0) {
+                    builder.append("sym").append(rnd.nextInt(8));
+                }
+                builder.append(',');
+                if (quoteNewLines && rnd.nextBoolean()) {
+                    builder.append("\"line ").append(i).append("\nnext, line \"\"").append(rnd.nextInt(100)).append("\"\"\"");
+                } else {
+                    builder.append("str").append(rnd.nextInt(1000));
+                }
+                builder.append(',').append(rnd.nextInt()).append(',').append(rnd.nextDouble()).append('\n');
+                w.write(builder.toString());
+            }
+        }
+    }
+}
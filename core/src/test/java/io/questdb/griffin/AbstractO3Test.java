@@ -60,6 +60,7 @@ public class AbstractO3Test {
     public static TemporaryFolder temp = new TemporaryFolder();
     protected static CharSequence root;
     protected static int dataAppendPageSize = -1;
+    protected static boolean partitionStatsEnabled = true;
 
     @Rule
     public Timeout timeout = Timeout.builder()
@@ -89,6 +90,7 @@ public class AbstractO3Test {
     public void tearDown() {
         TestUtils.removeTestPath(root);
         dataAppendPageSize = -1;
+        partitionStatsEnabled = true;
     }
 
     protected static void assertIndexConsistency(
@@ -280,6 +282,11 @@ public class AbstractO3Test {
                     public int getO3ColumnMemorySize() {
                         return dataAppendPageSize > 0 ? dataAppendPageSize : super.getO3ColumnMemorySize();
                     }
+
+                    @Override
+                    public boolean isPartitionStatsEnabled() {
+                        return partitionStatsEnabled;
+                    }
                 };
 
                 TestUtils.execute(pool, runnable, configuration);
@@ -306,6 +313,11 @@ public class AbstractO3Test {
                         return dataAppendPageSize > 0 ? dataAppendPageSize : super.getO3ColumnMemorySize();
                     }
 
+                    @Override
+                    public boolean isPartitionStatsEnabled() {
+                        return partitionStatsEnabled;
+                    }
+
                     @Override
                     public int getO3CopyQueueCapacity() {
                         return 0;
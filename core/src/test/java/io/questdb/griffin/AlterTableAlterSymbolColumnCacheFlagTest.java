@@ -204,7 +204,7 @@ public class AlterTableAlterSymbolColumnCacheFlagTest extends AbstractGriffinTes
 
     @Test
     public void testWhenCacheOrNocacheAreNotInAlterStatement() throws Exception {
-        assertFailure("alter table x alter column z ca", 29, "'cache' or 'nocache' expected");
+        assertFailure("alter table x alter column z ca", 29, "'cache', 'nocache', 'compress' or 'nocompress' expected");
     }
 
     private void assertFailure(String sql, int position, String message) throws Exception {
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+public class AlterTableCompressColumnTest extends AbstractGriffinTest {
+
+    private static final String SELECT_ALL = "select * from x";
+
+    @Test
+    public void testAddIndexToCompressedSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = select("select count() from x where s = 'c'");
+            compile("alter table x alter column s compress", sqlExecutionContext);
+            Assert.assertTrue(countCompressedFiles("s") > 0);
+
+            compile("alter table x alter column s add index", sqlExecutionContext);
+            assertSql("select count() from x where s = 'c'", expected);
+
+            // indexed column is compressed again on the next commit
+            executeInsert("insert into x (s, ts) values ('c', '1970-01-06T00:00:00.000000Z')");
+            Assert.assertTrue(countCompressedFiles("s") > 0);
+            final long expectedCount = Long.parseLong(expected.substring(expected.indexOf('\n') + 1).trim()) + 1;
+            assertSql("select count() from x where s = 'c'", "count\n" + expectedCount + "\n");
+        });
+    }
+
+    @Test
+    public void testCompressAndDecompress() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = select(SELECT_ALL);
+
+            compile("alter table x alter column i compress", sqlExecutionContext);
+            compile("alter table x alter column l compress", sqlExecutionContext);
+            compile("alter table x alter column d compress", sqlExecutionContext);
+            compile("alter table x alter column s compress", sqlExecutionContext);
+            compile("alter table x alter column k compress", sqlExecutionContext);
+
+            // 5 partitions, the last 2 remain uncompressed
+            Assert.assertEquals(3, countCompressedFiles("i"));
+            Assert.assertEquals(3, countCompressedFiles("l"));
+            Assert.assertEquals(3, countCompressedFiles("d"));
+            Assert.assertEquals(3, countCompressedFiles("s"));
+            Assert.assertEquals(3, countCompressedFiles("k"));
+            assertSql(SELECT_ALL, expected);
+
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertTrue(reader.getMetadata().isColumnCompressed(0));
+                Assert.assertFalse(reader.getMetadata().isColumnCompressed(5));
+            }
+
+            compile("alter table x alter column i nocompress", sqlExecutionContext);
+            compile("alter table x alter column l nocompress", sqlExecutionContext);
+            compile("alter table x alter column d nocompress", sqlExecutionContext);
+            compile("alter table x alter column s nocompress", sqlExecutionContext);
+            compile("alter table x alter column k nocompress", sqlExecutionContext);
+            Assert.assertEquals(0, countCompressedFiles(null));
+            assertSql(SELECT_ALL, expected);
+        });
+    }
+
+    @Test
+    public void testCompressIndexedSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column s add index", sqlExecutionContext);
+            final String expected = select("select * from x where s = 'b'");
+            final String expectedDesc = select("select * from x where s = 'c' order by ts desc");
+            final String expectedLatest = select("select * from x where ts < '1970-01-04' latest on ts partition by s");
+            compile("alter table x alter column s compress", sqlExecutionContext);
+            Assert.assertEquals(3, countCompressedFiles("s"));
+            // index of sealed partitions is compressed too
+            Assert.assertEquals(3, countFiles("s.ci"));
+            assertSql("select * from x where s = 'b'", expected);
+            assertSql("select * from x where s = 'c' order by ts desc", expectedDesc);
+            assertSql("select * from x where ts < '1970-01-04' latest on ts partition by s", expectedLatest);
+
+            compile("alter table x alter column s drop index", sqlExecutionContext);
+            Assert.assertEquals(0, countFiles("s.ci"));
+            assertSql("select * from x where s = 'b'", expected);
+        });
+    }
+
+    @Test
+    public void testDecompressIndexedSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column s add index", sqlExecutionContext);
+            final String expected = select("select * from x where s = 'a'");
+            compile("alter table x alter column s compress", sqlExecutionContext);
+            Assert.assertEquals(3, countFiles("s.ci"));
+
+            compile("alter table x alter column s nocompress", sqlExecutionContext);
+            Assert.assertEquals(0, countFiles("s.ci"));
+            assertSql("select * from x where s = 'a'", expected);
+
+            // regular index is writable again
+            executeInsert("insert into x (s, ts) values ('a', '1970-01-01T10:30')");
+            assertSql("select count() from x where s = 'a'", "count\n" + (countLines(expected) + 1) + "\n");
+        });
+    }
+
+    @Test
+    public void testIntersectIndexedSymbols() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column s2 symbol", sqlExecutionContext);
+            compile("update x set s2 = case when l % 3 = 0 then 'pp' else 'qq' end", sqlExecutionContext);
+            final String query = "select * from x where s = 'b' and s2 = 'pp'";
+            final String queryFiltered = "select * from x where s2 = 'qq' and s = 'c' and l > 50";
+            final String expected = select(query);
+            final String expectedFiltered = select(queryFiltered);
+
+            compile("alter table x alter column s add index", sqlExecutionContext);
+            compile("alter table x alter column s2 add index", sqlExecutionContext);
+            assertSql(query, expected);
+            assertSql(queryFiltered, expectedFiltered);
+            assertSql("select * from x where s = 'b' and s2 = 'none'", "i\tl\td\ts\tk\tstr\tts\ts2\n");
+
+            compile("alter table x alter column s compress", sqlExecutionContext);
+            compile("alter table x alter column s2 compress", sqlExecutionContext);
+            assertSql(query, expected);
+            assertSql(queryFiltered, expectedFiltered);
+        });
+    }
+
+    @Test
+    public void testRenameAndDropCompressedColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column l compress", sqlExecutionContext);
+            final String expected = select("select l from x");
+
+            compile("alter table x rename column l to l2", sqlExecutionContext);
+            Assert.assertEquals(3, countCompressedFiles("l2"));
+            assertSql("select l2 l from x", expected);
+
+            compile("alter table x drop column l2", sqlExecutionContext);
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+            Assert.assertEquals(0, countCompressedFiles("l2"));
+        });
+    }
+
+    @Test
+    public void testCompressionKeptAfterWriterReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column i compress", sqlExecutionContext);
+            Assert.assertEquals(3, countCompressedFiles("i"));
+            engine.releaseAllWriters();
+
+            compile("alter table x add column j int", sqlExecutionContext);
+            compile(
+                    "insert into x (i, ts) select cast(x as int), timestamp_sequence(432000000000, 3600000000) from long_sequence(48)",
+                    sqlExecutionContext
+            );
+            Assert.assertEquals(5, countCompressedFiles("i"));
+            assertSql("select count() from x where i < 49 and ts >= '1970-01-06'", "count\n48\n");
+        });
+    }
+
+    @Test
+    public void testInvalidColumn() throws Exception {
+        assertFailure("alter table x alter column y compress", 27, "Invalid column: y");
+    }
+
+    @Test
+    public void testNonPartitionedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x l from long_sequence(10))", sqlExecutionContext);
+            try {
+                compile("alter table y alter column l compress", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(12, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "compression requires partitioned table");
+            }
+        });
+    }
+
+    @Test
+    public void testO3IntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column l compress", sqlExecutionContext);
+            compile("alter table x alter column k compress", sqlExecutionContext);
+            Assert.assertEquals(3, countCompressedFiles("l"));
+
+            executeInsert("insert into x (l, k, ts) values (-1, '2022-01-01T00:00:00.000000Z', '1970-01-01T05:30:00.000000Z')");
+            assertSql(
+                    "select l, k, ts from x where ts between '1970-01-01T05:00:00.000000Z' and '1970-01-01T06:00:00.000000Z'",
+                    "l\tk\tts\n" +
+                            "6\t1970-01-01T00:00:06.000000Z\t1970-01-01T05:00:00.000000Z\n" +
+                            "-1\t2022-01-01T00:00:00.000000Z\t1970-01-01T05:30:00.000000Z\n" +
+                            "7\t1970-01-01T00:00:07.000000Z\t1970-01-01T06:00:00.000000Z\n"
+            );
+            // partition is compressed again after the commit
+            Assert.assertEquals(3, countCompressedFiles("l"));
+            assertSql("select count(), sum(l) from x", "count\tsum\n121\t7259\n");
+        });
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        assertFailure("alter table x alter column str compress", 27, "column type cannot be compressed [type=STRING]");
+    }
+
+    @Test
+    public void testUnsupportedDesignatedTimestamp() throws Exception {
+        assertFailure("alter table x alter column ts nocompress", 27, "column type cannot be compressed [type=TIMESTAMP]");
+    }
+
+    @Test
+    public void testUpdateCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column i compress", sqlExecutionContext);
+            compile("alter table x alter column l compress", sqlExecutionContext);
+            final String expected = select("select l from x");
+
+            compile("update x set i = -1 where ts < '1970-01-02'", sqlExecutionContext);
+            assertSql("select count() from x where i = -1", "count\n24\n");
+            assertSql("select l from x", expected);
+            Assert.assertEquals(3, countCompressedFiles("i"));
+        });
+    }
+
+    private static int countCompressedFiles(CharSequence columnName) throws IOException {
+        final String prefix = columnName == null ? null : columnName + ".z";
+        try (Stream<java.nio.file.Path> files = Files.walk(Paths.get(root.toString(), "x"))) {
+            return (int) files.map(p -> p.getFileName().toString())
+                    .filter(name -> prefix == null ? name.matches(".*\\.z(\\.\\d+)?") : name.equals(prefix) || name.startsWith(prefix + '.'))
+                    .count();
+        }
+    }
+
+    private static int countFiles(String prefix) throws IOException {
+        try (Stream<java.nio.file.Path> files = Files.walk(Paths.get(root.toString(), "x"))) {
+            return (int) files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.equals(prefix) || name.startsWith(prefix + '.'))
+                    .count();
+        }
+    }
+
+    private static int countLines(String text) {
+        // header line is not counted
+        return (int) text.chars().filter(c -> c == '\n').count() - 1;
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX();
+                compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0, 100, 0) i," +
+                        " x l," +
+                        " (x % 8) * 0.5 d," +
+                        " rnd_symbol('a', 'b', 'c') s," +
+                        " cast(x * 1000000 as timestamp) k," +
+                        " rnd_str(3, 5, 0) str," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(120)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private String select(CharSequence sql) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, sql, sink);
+        return sink.toString();
+    }
+}
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.std.Zip;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+public class AlterTableConvertPartitionTest extends AbstractGriffinTest {
+
+    private static final String SELECT_ALL = "select * from x";
+
+    @BeforeClass
+    public static void setUpStatic() {
+        AbstractGriffinTest.setUpStatic();
+        // gzip header is allocated on first use of Zip
+        Zip.init();
+    }
+
+    @Test
+    public void testActivePartition() throws Exception {
+        assertFailure("alter table x convert partition to parquet list '1970-01-05'", "cannot convert active partition");
+    }
+
+    @Test
+    public void testAddColumnAfterConvert() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x convert partition to parquet list '1970-01-02'", sqlExecutionContext);
+            compile("alter table x add column j int", sqlExecutionContext);
+            executeInsert("insert into x (j, ts) values (42, '1970-01-05T23:59:59.000000Z')");
+            assertSql(
+                    "select count(), sum(j) from x where ts in '1970-01-02' or ts in '1970-01-05'",
+                    "count\tsum\n49\t42\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAlreadyConverted() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x convert partition to parquet list '1970-01-01'", sqlExecutionContext);
+            try {
+                compile("alter table x convert partition to parquet list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "partition is already converted to parquet");
+            }
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column j long", sqlExecutionContext);
+            compile("alter table x add column s2 string", sqlExecutionContext);
+            executeInsert("insert into x (j, s2, ts) values (7, 'abc', '1970-01-03T23:59:59.000000Z')");
+            final String expected = select(SELECT_ALL);
+
+            compile("alter table x convert partition to parquet list '1970-01-01', '1970-01-03'", sqlExecutionContext);
+            Assert.assertEquals(2, countParquetFiles());
+            assertSql(SELECT_ALL, expected);
+            assertSql("select j, s2 from x where j = 7", "j\ts2\n7\tabc\n");
+        });
+    }
+
+    @Test
+    public void testConvertAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_boolean() bool," +
+                            " rnd_byte(2, 50) b," +
+                            " rnd_short(10, 1024) sh," +
+                            " rnd_char() c," +
+                            " rnd_int(0, 100, 2) i," +
+                            " rnd_long(0, 1000, 2) l," +
+                            " rnd_float(2) f," +
+                            " rnd_double(2) d," +
+                            " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                            " rnd_timestamp(to_timestamp('2015', 'yyyy'), to_timestamp('2016', 'yyyy'), 2) t," +
+                            " rnd_symbol(4, 4, 4, 2) sym," +
+                            " rnd_str(3, 5, 2) str," +
+                            " rnd_bin(2, 10, 2) bin," +
+                            " rnd_long256() l256," +
+                            " rnd_geohash(30) g," +
+                            " timestamp_sequence(0, 3600000000) ts" +
+                            " from long_sequence(100)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            final String expected = select("select * from y");
+            compile("alter table y convert partition to parquet list '1970-01-01', '1970-01-02', '1970-01-03'", sqlExecutionContext);
+            assertSql("select * from y", expected);
+
+            // partitions are decoded again after readers are reopened
+            engine.releaseAllReaders();
+            assertSql("select * from y", expected);
+        });
+    }
+
+    @Test
+    public void testConvertCompressedColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column l compress", sqlExecutionContext);
+            compile("alter table x alter column s compress", sqlExecutionContext);
+            final String expected = select(SELECT_ALL);
+
+            compile("alter table x convert partition to parquet list '1970-01-01', '1970-01-02'", sqlExecutionContext);
+            Assert.assertEquals(2, countParquetFiles());
+            assertSql(SELECT_ALL, expected);
+        });
+    }
+
+    @Test
+    public void testConvertIndexedSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x alter column s add index", sqlExecutionContext);
+            final String expected = select("select * from x where s = 'b'");
+
+            compile("alter table x convert partition to parquet list '1970-01-01', '1970-01-02'", sqlExecutionContext);
+            assertSql("select * from x where s = 'b'", expected);
+            assertSql("select * from x latest on ts partition by s", select("select * from x latest on ts partition by s"));
+
+            try {
+                compile("alter table x alter column s drop index", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot drop index, table has parquet partitions");
+            }
+        });
+    }
+
+    @Test
+    public void testDropConvertedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x convert partition to parquet list '1970-01-01', '1970-01-02'", sqlExecutionContext);
+            final String expected = select("select * from x where ts >= '1970-01-02'");
+
+            compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            assertSql(SELECT_ALL, expected);
+            assertSql("select min(ts) from x", "min\n1970-01-02T00:00:00.000000Z\n");
+            Assert.assertEquals(1, countParquetFiles());
+        });
+    }
+
+    @Test
+    public void testInsertIntoConvertedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x convert partition to parquet list '1970-01-02'", sqlExecutionContext);
+            final String expected = select(SELECT_ALL);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x", "testing")) {
+                TableWriter.Row row = writer.newRow(3600000000L * 30);
+                row.putLong(1, -1);
+                row.append();
+                try {
+                    writer.commit();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "cannot insert into parquet partition");
+                }
+                writer.rollback();
+            }
+            assertSql(SELECT_ALL, expected);
+            // inserting into other partitions is unaffected
+            executeInsert("insert into x (l, ts) values (-1, '1970-01-01T05:30:00.000000Z')");
+            assertSql("select count() from x", "count\n121\n");
+        });
+    }
+
+    @Test
+    public void testNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x l, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("alter table y convert partition to parquet list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "table is not partitioned");
+            }
+        });
+    }
+
+    @Test
+    public void testPartitionNotFound() throws Exception {
+        assertFailure("alter table x convert partition to parquet list '1971-01-01'", "could not convert partition '1971-01-01'");
+    }
+
+    @Test
+    public void testRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x convert partition to parquet list '1970-01-01'", sqlExecutionContext);
+            final String expected = select("select l, str from x");
+
+            compile("alter table x rename column l to l2", sqlExecutionContext);
+            compile("alter table x rename column str to str2", sqlExecutionContext);
+            assertSql("select l2 l, str2 str from x", expected);
+        });
+    }
+
+    @Test
+    public void testSyntaxError() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compile("alter table x convert partition parquet list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(32, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "'to' expected");
+            }
+        });
+    }
+
+    @Test
+    public void testUpdateConvertedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x convert partition to parquet list '1970-01-01'", sqlExecutionContext);
+            final String expected = select(SELECT_ALL);
+            try {
+                compile("update x set l = -1 where ts < '1970-01-02'", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot update parquet partition");
+            }
+            assertSql(SELECT_ALL, expected);
+
+            compile("update x set l = -1 where ts >= '1970-01-02'", sqlExecutionContext);
+            assertSql("select count() from x where l = -1", "count\n96\n");
+        });
+    }
+
+    private static int countParquetFiles() throws IOException {
+        try (Stream<java.nio.file.Path> files = Files.walk(Paths.get(root.toString(), "x"))) {
+            return (int) files.filter(p -> p.getFileName().toString().equals("data.parquet")).count();
+        }
+    }
+
+    private void assertFailure(String sql, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX();
+                compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(35, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0, 100, 2) i," +
+                        " x l," +
+                        " (x % 8) * 0.5 d," +
+                        " rnd_symbol('a', 'b', 'c') s," +
+                        " rnd_str(3, 5, 2) str," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(120)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private String select(CharSequence sql) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, sql, sink);
+        return sink.toString();
+    }
+}
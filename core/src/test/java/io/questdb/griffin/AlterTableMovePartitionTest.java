@@ -0,0 +1,319 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.PartitionTieringJob;
+import io.questdb.cairo.TableWriter;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+public class AlterTableMovePartitionTest extends AbstractGriffinTest {
+
+    private static final String SELECT_ALL = "select * from x";
+    private String coldRootDir;
+
+    @Before
+    public void setUpColdRoot() {
+        final File dir = new File(temp.getRoot(), "coldRoot");
+        Assert.assertTrue(dir.exists() || dir.mkdirs());
+        coldRoot = coldRootDir = dir.getAbsolutePath();
+    }
+
+    @After
+    public void tearDownColdRoot() {
+        TestUtils.removeTestPath(coldRootDir);
+    }
+
+    @Test
+    public void testActivePartition() throws Exception {
+        assertFailure("alter table x move partition to cold list '1970-01-05'", "cannot move active partition");
+    }
+
+    @Test
+    public void testAddIndexWithColdPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-02'", sqlExecutionContext);
+            try {
+                compile("alter table x alter column s add index", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "partition is in cold storage");
+            }
+        });
+    }
+
+    @Test
+    public void testAlreadyCold() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-01'", sqlExecutionContext);
+            try {
+                compile("alter table x move partition to cold list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "partition is already in cold storage");
+            }
+        });
+    }
+
+    @Test
+    public void testColdRootNotConfigured() throws Exception {
+        coldRoot = null;
+        assertFailure("alter table x move partition to cold list '1970-01-01'", "cold storage root is not configured");
+    }
+
+    @Test
+    public void testDropColdPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-01', '1970-01-02'", sqlExecutionContext);
+            final String expected = select("select * from x where ts >= '1970-01-02'");
+
+            compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            assertSql(SELECT_ALL, expected);
+            assertSql("select min(ts) from x", "min\n1970-01-02T00:00:00.000000Z\n");
+            Assert.assertEquals(0, countPartitionDirs(coldRoot, "1970-01-01"));
+            Assert.assertEquals(1, countPartitionDirs(coldRoot, "1970-01-02"));
+        });
+    }
+
+    @Test
+    public void testDropTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-01'", sqlExecutionContext);
+            compile("drop table x", sqlExecutionContext);
+            Assert.assertFalse(new File(coldRoot, "x").exists());
+        });
+    }
+
+    @Test
+    public void testInsertIntoColdPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-02'", sqlExecutionContext);
+            final String expected = select(SELECT_ALL);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x", "testing")) {
+                TableWriter.Row row = writer.newRow(3600000000L * 30);
+                row.putLong(1, -1);
+                row.append();
+                try {
+                    writer.commit();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "cannot insert, partition is in cold storage");
+                }
+                writer.rollback();
+            }
+            assertSql(SELECT_ALL, expected);
+            assertSql("select count() from x", "count\n120\n");
+            // inserting into hot partitions is unaffected
+            executeInsert("insert into x (l, ts) values (-1, '1970-01-01T05:30:00.000000Z')");
+            executeInsert("insert into x (l, ts) values (-1, '1970-01-05T23:30:00.000000Z')");
+            assertSql("select count() from x", "count\n122\n");
+        });
+    }
+
+    @Test
+    public void testMoveToColdAndBack() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = select(SELECT_ALL);
+            engine.releaseAllReaders();
+
+            compile("alter table x move partition to cold list '1970-01-01', '1970-01-03'", sqlExecutionContext);
+            assertSql(SELECT_ALL, expected);
+            assertSql("select count() from x", "count\n120\n");
+            Assert.assertEquals(1, countPartitionDirs(coldRoot, "1970-01-01"));
+            Assert.assertEquals(1, countPartitionDirs(coldRoot, "1970-01-03"));
+            Assert.assertEquals(0, countPartitionDirs(root, "1970-01-01"));
+            Assert.assertEquals(0, countPartitionDirs(root, "1970-01-03"));
+            Assert.assertEquals(1, countPartitionDirs(root, "1970-01-02"));
+
+            // partitions are read from the cold volume after readers and writer are reopened
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+            assertSql(SELECT_ALL, expected);
+            assertSql("select count(), sum(l) from x where ts in '1970-01-03'", "count\tsum\n24\t1452\n");
+
+            compile("alter table x move partition to hot list '1970-01-01', '1970-01-03'", sqlExecutionContext);
+            assertSql("select count() from x", "count\n120\n");
+            engine.releaseAllReaders();
+            assertSql(SELECT_ALL, expected);
+            Assert.assertEquals(0, countPartitionDirs(coldRoot, "1970-01-01"));
+            Assert.assertEquals(0, countPartitionDirs(coldRoot, "1970-01-03"));
+            Assert.assertEquals(1, countPartitionDirs(root, "1970-01-01"));
+            Assert.assertEquals(1, countPartitionDirs(root, "1970-01-03"));
+
+            // partition is writable again
+            executeInsert("insert into x (l, ts) values (-1, '1970-01-01T05:30:00.000000Z')");
+            assertSql("select count() from x", "count\n121\n");
+        });
+    }
+
+    @Test
+    public void testNotCold() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compile("alter table x move partition to hot list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "partition is not in cold storage");
+            }
+        });
+    }
+
+    @Test
+    public void testPartitionNotFound() throws Exception {
+        assertFailure("alter table x move partition to cold list '1971-01-01'", "could not move partition '1971-01-01'");
+    }
+
+    @Test
+    public void testRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-01'", sqlExecutionContext);
+            final String expected = select("select l, str from x");
+
+            compile("alter table x rename column l to l2", sqlExecutionContext);
+            compile("alter table x rename column str to str2", sqlExecutionContext);
+            engine.releaseAllReaders();
+            assertSql("select l2 l, str2 str from x", expected);
+        });
+    }
+
+    @Test
+    public void testSyntaxError() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compile("alter table x move partition to warm list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(32, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "'cold' or 'hot' expected");
+            }
+        });
+    }
+
+    @Test
+    public void testTieringJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String expected = select(SELECT_ALL);
+            engine.releaseAllReaders();
+
+            // only partitions which ended more than 30 days ago are moved
+            currentMicros = 33 * Timestamps.DAY_MICROS + Timestamps.DAY_MICROS / 2;
+            try (PartitionTieringJob job = new PartitionTieringJob(engine)) {
+                Assert.assertTrue(job.run(0));
+            }
+            Assert.assertEquals(1, countPartitionDirs(coldRoot, "1970-01-01"));
+            Assert.assertEquals(1, countPartitionDirs(coldRoot, "1970-01-02"));
+            Assert.assertEquals(1, countPartitionDirs(coldRoot, "1970-01-03"));
+            Assert.assertEquals(0, countPartitionDirs(coldRoot, "1970-01-04"));
+            Assert.assertEquals(1, countPartitionDirs(root, "1970-01-04"));
+
+            engine.releaseAllReaders();
+            assertSql(SELECT_ALL, expected);
+        });
+    }
+
+    @Test
+    public void testUpdateColdPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition to cold list '1970-01-01'", sqlExecutionContext);
+            final String expected = select(SELECT_ALL);
+            try {
+                compile("update x set l = -1 where ts < '1970-01-02'", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot update partition in cold storage");
+            }
+            assertSql(SELECT_ALL, expected);
+
+            compile("update x set l = -1 where ts >= '1970-01-02'", sqlExecutionContext);
+            assertSql("select count() from x where l = -1", "count\n96\n");
+        });
+    }
+
+    private static int countPartitionDirs(CharSequence volume, String partitionName) throws IOException {
+        final java.nio.file.Path tablePath = Paths.get(volume.toString(), "x");
+        if (!Files.exists(tablePath)) {
+            return 0;
+        }
+        try (Stream<java.nio.file.Path> files = Files.list(tablePath)) {
+            return (int) files.filter(p -> Files.isDirectory(p) && p.getFileName().toString().startsWith(partitionName)).count();
+        }
+    }
+
+    private void assertFailure(String sql, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX();
+                compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(32, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0, 100, 2) i," +
+                        " x l," +
+                        " (x % 8) * 0.5 d," +
+                        " rnd_symbol('a', 'b', 'c') s," +
+                        " rnd_str(3, 5, 2) str," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(120)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private String select(CharSequence sql) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, sql, sink);
+        return sink.toString();
+    }
+}
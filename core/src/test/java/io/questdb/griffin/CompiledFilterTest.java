@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
 import io.questdb.jit.JitUtil;
 import io.questdb.std.Numbers;
 import io.questdb.std.Rnd;
@@ -218,6 +219,43 @@ public class CompiledFilterTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testInListAndBetween() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " timestamp_sequence(400000000000, 500000000) ts," +
+                    " x l," +
+                    " rnd_symbol('A','B','C') sym" +
+                    " from long_sequence(5)) timestamp(ts)", sqlExecutionContext);
+
+            final String query = "select sym, l, ts from x where sym in ('B', 'D') and ts between '1970-01-05T15' and '1970-01-05T16'";
+            final String expected = "sym\tl\tts\n" +
+                    "B\t3\t1970-01-05T15:23:20.000000Z\n";
+
+            assertSql(query, expected);
+            assertSqlRunWithJit(query);
+        });
+    }
+
+    @Test
+    public void testJitFallbackReason() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " x l," +
+                    " rnd_str('A','B','C') s" +
+                    " from long_sequence(5))", sqlExecutionContext);
+
+            try (RecordCursorFactory factory = compiler.compile("select * from x where s = 'A'", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory.usesCompiledFilter());
+                Assert.assertTrue(factory instanceof AsyncFilteredRecordCursorFactory);
+                TestUtils.assertContains(
+                        ((AsyncFilteredRecordCursorFactory) factory).getJitFallbackReason(),
+                        "unsupported column type: STRING"
+                );
+            }
+        });
+    }
+
     @Test
     public void testNameBindVariableReplacedContext() throws Exception {
         assertMemoryLeak(() -> {
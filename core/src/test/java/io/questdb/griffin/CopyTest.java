@@ -47,6 +47,26 @@ public class CopyTest extends AbstractGriffinTest {
         ));
     }
 
+    @Test
+    public void testCopyFormatBinaryFromFile() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from 'a.csv' with format binary",
+                null,
+                32,
+                "binary format is supported only for COPY FROM STDIN"
+        ));
+    }
+
+    @Test
+    public void testCopyFormatInvalid() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from stdin with format xml",
+                null,
+                30,
+                "'text', 'csv' or 'binary' expected"
+        ));
+    }
+
     @Test
     public void testCopyFullHack() throws Exception {
         assertMemoryLeak(() -> assertFailure(
@@ -67,6 +87,16 @@ public class CopyTest extends AbstractGriffinTest {
         ));
     }
 
+    @Test
+    public void testCopyOptionListNotClosed() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from stdin (format csv, header true",
+                null,
+                42,
+                "')' expected"
+        ));
+    }
+
     @Test
     public void testSimpleCopy() throws Exception {
         assertMemoryLeak(() -> {
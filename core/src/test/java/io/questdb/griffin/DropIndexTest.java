@@ -104,7 +104,7 @@ public class DropIndexTest extends AbstractGriffinTest {
                 "ALTER TABLE sensors ALTER COLUMN sensor_id dope INDEX",
                 CREATE_TABLE_STMT,
                 43,
-                "'add', 'drop', 'cache' or 'nocache' expected found 'dope'"
+                "'add', 'drop', 'cache', 'nocache', 'compress' or 'nocompress' expected found 'dope'"
         );
     }
 
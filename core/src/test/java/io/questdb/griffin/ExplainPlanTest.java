@@ -0,0 +1,133 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ExplainPlanTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table x as (" +
+            "select x a, rnd_symbol('A','B','C') s, timestamp_sequence(0, 1000000) ts from long_sequence(10000)" +
+            ") timestamp(ts) partition by hour";
+
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            sink.clear();
+            TestUtils.printSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "explain analyze select * from x where ts in '1970-01-01T01' limit 3",
+                    sink
+            );
+            TestUtils.assertContains(sink, "LimitRecordCursorFactory [cursors=1, rows=3, time=");
+            TestUtils.assertContains(sink, "    DataFrameRecordCursorFactory [table=x, scan=IntervalFwdDataFrameCursorFactory, cursors=1, rows=3, time=");
+            TestUtils.assertContains(sink, "execution [rows=3, time=");
+            TestUtils.assertContains(sink, "memory [");
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeEmpty() throws Exception {
+        assertFailure("explain analyze", null, 15, "query expected");
+    }
+
+    @Test
+    public void testExplainAnalyzePageFrames() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            sink.clear();
+            TestUtils.printSql(compiler, sqlExecutionContext, "explain analyze select sum(a) from x", sink);
+            TestUtils.assertContains(sink, "GroupByNotKeyedVectorRecordCursorFactory [cursors=1, rows=1, time=");
+            TestUtils.assertContains(sink, "pageFrameRows=10000]");
+            TestUtils.assertContains(sink, "execution [rows=1, time=");
+        });
+    }
+
+    @Test
+    public void testExplainCrossJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            compile("create table y as (select x b from long_sequence(10))");
+            assertSql(
+                    "explain select * from x cross join y",
+                    "QUERY PLAN\n" +
+                            "SelectedRecordCursorFactory\n" +
+                            "    CrossJoinRecordCursorFactory\n" +
+                            "        DataFrameRecordCursorFactory [table=x, scan=FullFwdDataFrameCursorFactory]\n" +
+                            "        DataFrameRecordCursorFactory [table=y, scan=FullFwdDataFrameCursorFactory]\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainEmpty() throws Exception {
+        assertFailure("explain", null, 7, "query expected");
+    }
+
+    @Test
+    public void testExplainIntervalScan() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            assertSql(
+                    "explain select * from x where ts in '1970-01-01T01' limit 3",
+                    "QUERY PLAN\n" +
+                            "LimitRecordCursorFactory\n" +
+                            "    DataFrameRecordCursorFactory [table=x, scan=IntervalFwdDataFrameCursorFactory]\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainNonSelect() throws Exception {
+        assertFailure("explain insert into x select * from x", DDL, 8, "EXPLAIN supports only SELECT queries");
+    }
+
+    @Test
+    public void testExplainPartitionStats() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            sink.clear();
+            TestUtils.printSql(compiler, sqlExecutionContext, "explain select * from x where a > 5000 and s = 'A'", sink);
+            TestUtils.assertContains(sink, "DataFrameRecordCursorFactory [table=x, scan=FullFwdDataFrameCursorFactory, partitionStats=a > 5000]");
+        });
+    }
+
+    @Test
+    public void testExplainVectorGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            assertSql(
+                    "explain select sum(a) from x",
+                    "QUERY PLAN\n" +
+                            "GroupByNotKeyedVectorRecordCursorFactory\n" +
+                            "    DataFrameRecordCursorFactory [table=x, scan=FullFwdDataFrameCursorFactory]\n"
+            );
+        });
+    }
+}
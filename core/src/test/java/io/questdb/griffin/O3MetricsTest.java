@@ -71,6 +71,36 @@ public class O3MetricsTest extends AbstractO3Test {
         });
     }
 
+    @Test
+    public void testCommitLatency() throws Exception {
+        executeVanillaWithMetrics((engine, compiler, sqlExecutionContext) -> {
+            setupBasicTable(engine, compiler, sqlExecutionContext, 8);
+
+            final TableWriterMetrics metrics = engine.getMetrics().tableWriter();
+            final long commits = metrics.commitLatency().getCount();
+            final long o3Merges = metrics.o3MergeLatency().getCount();
+
+            try (TableWriter w = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x", "testing")) {
+                TableWriter.Row r = w.newRow(millenniumTimestamp(13));
+                r.putInt(0, 9);
+                r.append();
+                w.commit();
+
+                // nothing to commit
+                w.commit();
+
+                r = w.newRow(millenniumTimestamp(4));
+                r.putInt(0, 0);
+                r.append();
+                w.commit();
+            }
+
+            Assert.assertEquals(commits + 2, metrics.commitLatency().getCount());
+            Assert.assertEquals(o3Merges + 1, metrics.o3MergeLatency().getCount());
+            Assert.assertTrue(metrics.commitLatency().getSum() >= metrics.o3MergeLatency().getSum());
+        });
+    }
+
     @Test
     public void testInsertMiddleEmptyPartition() throws Exception {
         executeVanillaWithMetrics((engine, compiler, sqlExecutionContext) -> {
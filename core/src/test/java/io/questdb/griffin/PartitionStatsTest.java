@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionStats;
+import io.questdb.cairo.TableReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionStatsTest extends AbstractGriffinTest {
+
+    @Test
+    public void testFilterSkipsPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertSql("select count(), sum(l) from x where l > 250", "count\tsum\n50\t13775\n");
+            assertSql("select count(), sum(l) from x where 250 < l", "count\tsum\n50\t13775\n");
+            assertSql("select count(), sum(l) from x where l >= 60 and l <= 61", "count\tsum\n2\t121\n");
+            assertSql("select count() from x where l = 61", "count\n1\n");
+            assertSql("select count() from x where l < 0", "count\n0\n");
+            assertSql("select count() from x where i < 3 and d > 0.5", "count\n1\n");
+            assertSql("select count() from x where d >= 150.0", "count\n1\n");
+            assertSql("select count() from x where n = 10", "count\n0\n");
+            assertSql("select count() from x where n < 11", "count\n9\n");
+            assertSql("select count() from x where n > 100", "count\n180\n");
+            assertSql("select l from x where l < 3 order by ts desc", "l\n2\n1\n");
+        });
+    }
+
+    @Test
+    public void testO3InvalidatesStats() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertSql("select count() from x where l < 0", "count\n0\n");
+            executeInsert("insert into x (l, ts) values (-5, '1970-01-01T00:30:30.000000Z')");
+            assertSql("select count() from x where l < 0", "count\n1\n");
+        });
+    }
+
+    @Test
+    public void testStatsWrittenForSealedPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (
+                    TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x");
+                    PartitionStats stats = new PartitionStats()
+            ) {
+                Assert.assertEquals(5, reader.getPartitionCount());
+                Assert.assertTrue(reader.readPartitionStats(1, stats));
+                Assert.assertEquals(60, stats.getRowCount());
+                Assert.assertEquals(61, stats.getMinLong(0));
+                Assert.assertEquals(120, stats.getMaxLong(0));
+                Assert.assertEquals(0, stats.getNullCount(0));
+                Assert.assertEquals(30.5, stats.getMinDouble(2), 0.0000001);
+                Assert.assertEquals(60.0, stats.getMaxDouble(2), 0.0000001);
+                Assert.assertEquals(6, stats.getNullCount(3));
+                Assert.assertEquals(61, stats.getMinLong(3));
+                Assert.assertEquals(119, stats.getMaxLong(3));
+
+                // active partition has no statistics
+                Assert.assertFalse(reader.readPartitionStats(4, stats));
+            }
+        });
+    }
+
+    @Test
+    public void testUpdateInvalidatesStats() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertSql("select count() from x where l < 0", "count\n0\n");
+            compile("update x set l = -1 where l = 30", sqlExecutionContext);
+            assertSql("select count() from x where l < 0", "count\n1\n");
+            assertSql("select count() from x where l = 30", "count\n0\n");
+        });
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " x l," +
+                        " cast(x as int) i," +
+                        " x * 0.5 d," +
+                        " case when x % 10 = 0 then null else x end n," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(300)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class SpillTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDistinct() throws Exception {
+        // distinct keeps base order, spilled or not
+        assertSpill("select distinct k, s from x");
+    }
+
+    @Test
+    public void testDistinctFewPartitions() throws Exception {
+        AbstractCairoTest.spillPartitionCount = 2;
+        assertSpill("select distinct l % 777 from x");
+    }
+
+    @Test
+    public void testGroupBy() throws Exception {
+        // spilled groups are emitted after the in-memory ones
+        assertSpill("select * from (select k, s, count() c, sum(l) sl from x) order by k, s");
+    }
+
+    @Test
+    public void testGroupByIsNotRandomAccess() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            AbstractCairoTest.spillThreshold = 1;
+            try (RecordCursorFactory factory = compiler.compile("select k, s, count() from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory.recordCursorSupportsRandomAccess());
+            }
+        });
+    }
+
+    @Test
+    public void testGroupByToTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            AbstractCairoTest.spillThreshold = 1;
+            try (RecordCursorFactory factory = compiler.compile("select l % 1000 g, count() c from x", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    final StringSink expected = new StringSink();
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, expected, printer);
+                    cursor.toTop();
+                    sink.clear();
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+                    TestUtils.assertEquals(expected, sink);
+                }
+            }
+            assertSpillRootEmpty();
+        });
+    }
+
+    @Test
+    public void testHashJoin() throws Exception {
+        assertSpill("select y.v, x.l, x.t from y join x on k");
+    }
+
+    @Test
+    public void testHashJoinRewind() throws Exception {
+        assertSpill("select count(), sum(l) from long_sequence(3) cross join (select l from y join x on k)");
+    }
+
+    @Test
+    public void testHashOuterJoin() throws Exception {
+        assertSpill("select x.t, x.l, y.v from x left join (select * from y where v > 500) y on k");
+    }
+
+    @Test
+    public void testHashOuterJoinSpilledMaster() throws Exception {
+        assertSpill("select y.k, y.v, x.l from y left join x on (k, s)");
+    }
+
+    private static void assertSpillRootEmpty() {
+        final String[] spillDirs = new File(configuration.getSqlSpillRoot().toString()).list();
+        Assert.assertTrue(spillDirs == null || spillDirs.length == 0);
+    }
+
+    private static void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(200, 4, 4, 0) k," +
+                        " rnd_long(0, 10000, 1) l," +
+                        " timestamp_sequence(0, 10000000) t" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(t) partition by hour",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(200, 4, 4, 0) k," +
+                        " rnd_long(0, 1000, 0) v" +
+                        " from long_sequence(500)" +
+                        ")",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertSpill(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+
+            AbstractCairoTest.spillThreshold = 0;
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            // the smallest budget spills all keys but the first one
+            AbstractCairoTest.spillThreshold = 1;
+            for (int i = 0; i < 2; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, query, sink, expected);
+            }
+            assertSpillRootEmpty();
+        });
+    }
+}
@@ -7486,10 +7486,10 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
                         " timestamp_sequence(0, 100000000000) ts" +
                         " from long_sequence(10)" +
                         ") timestamp(ts) partition by day",
-                null,
-                true,
+                "ts",
+                false,
                 true,
-                false
+                true
         );
     }
 
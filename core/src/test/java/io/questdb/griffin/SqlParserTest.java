@@ -309,6 +309,79 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
     }
 
+    @Test
+    public void testAnalyticFrameEndBeforeStart() throws Exception {
+        assertSyntaxError(
+                "select a, f(c) over (order by ts rows between 1 preceding and 3 preceding) from xyz",
+                46,
+                "frame start cannot be after frame end"
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameFollowingOffset() throws Exception {
+        assertSyntaxError(
+                "select a, f(c) over (order by ts rows between 1 following and current row) from xyz",
+                48,
+                "'following' frame offset is not supported"
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRangeTimeUnit() throws Exception {
+        assertQuery(
+                "select-analytic a, f(c) f over (order by ts range between 3600000000 preceding and current row) from (select [a, c, ts] from xyz timestamp (ts))",
+                "select a, f(c) over (order by ts range 1 hour preceding) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRangeUnknownTimeUnit() throws Exception {
+        assertSyntaxError(
+                "select a, f(c) over (order by ts range 1 fortnight preceding) from xyz",
+                41,
+                "'preceding' expected"
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRows() throws Exception {
+        assertQuery(
+                "select-analytic a, b, f(c) f over (partition by b order by ts rows between 3 preceding and current row) from (select [a, b, c, ts] from xyz timestamp (ts))",
+                "select a, b, f(c) over (partition by b order by ts rows between 3 preceding and current row) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameUnbounded() throws Exception {
+        assertQuery(
+                "select-analytic a, f(c) f over (order by ts rows between unbounded preceding and unbounded following) from (select [a, c, ts] from xyz timestamp (ts))",
+                "select a, f(c) over (order by ts rows between unbounded preceding and unbounded following) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameUnboundedFollowingWithOffset() throws Exception {
+        assertSyntaxError(
+                "select a, f(c) over (order by ts rows between current row and unbounded following) from xyz",
+                72,
+                "'unbounded following' requires 'unbounded preceding' frame start"
+        );
+    }
+
     @Test
     public void testAnalyticLiteralAfterFunction() throws Exception {
         assertQuery(
@@ -895,7 +968,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
         assertSyntaxError(
                 "create",
                 6,
-                "'table' expected"
+                "'table' or 'materialized' expected"
         );
     }
 
@@ -2618,7 +2691,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
     @Test
     public void testNonAnalyticFunctionInAnalyticContext() throws Exception {
         assertFailure(
-                "select avg(price) over (partition by symbol) from trades",
+                "select abs(price) over (partition by symbol) from trades",
                 "create table trades " +
                         "(" +
                         " price double," +
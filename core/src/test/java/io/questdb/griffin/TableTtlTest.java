@@ -0,0 +1,216 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionRetentionJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+public class TableTtlTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAlterTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(0, reader.getMetadata().getTtl());
+                compile("alter table x set param ttl = 12h", sqlExecutionContext);
+                reader.reload();
+                Assert.assertEquals(12 * Timestamps.HOUR_MICROS, reader.getMetadata().getTtl());
+            }
+
+            // ttl survives metadata rewrites
+            compile("alter table x add column y int", sqlExecutionContext);
+            compile("alter table x set param commitLag = 1s", sqlExecutionContext);
+            assertTtl(12 * Timestamps.HOUR_MICROS);
+
+            compile("alter table x set param ttl = 0s", sqlExecutionContext);
+            assertTtl(0);
+        });
+    }
+
+    @Test
+    public void testAlterTtlNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y (ts timestamp, i int) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("alter table y set param ttl = 1d", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(24, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "ttl requires a partitioned table");
+            }
+        });
+    }
+
+    @Test
+    public void testAlterTtlWrongQualifier() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("");
+            try {
+                compile("alter table x set param ttl = 3days", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "interval qualifier");
+            }
+            assertTtl(0);
+        });
+    }
+
+    @Test
+    public void testCreateWithTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(" with ttl = 30d, commitLag = 10s");
+            assertTtl(30 * Timestamps.DAY_MICROS);
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(10 * Timestamps.SECOND_MICROS, reader.getMetadata().getCommitLag());
+            }
+        });
+    }
+
+    @Test
+    public void testCreateWithTtlNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compile("create table y (ts timestamp, i int) timestamp(ts) partition by NONE with ttl = 1d", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(74, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "ttl requires a partitioned table");
+            }
+        });
+    }
+
+    @Test
+    public void testRemoveExpiredPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(" with ttl = 2d");
+            final String expected = select("select * from x where ts >= '1970-01-03'");
+            engine.releaseAllReaders();
+
+            // partitions that ended more than 2 days ago are removed
+            currentMicros = 4 * Timestamps.DAY_MICROS + Timestamps.DAY_MICROS / 2;
+            try (PartitionRetentionJob job = new PartitionRetentionJob(engine)) {
+                Assert.assertTrue(job.run(0));
+                // next check is not due yet
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertEquals(0, countPartitionDirs("1970-01-01"));
+            Assert.assertEquals(0, countPartitionDirs("1970-01-02"));
+            Assert.assertEquals(1, countPartitionDirs("1970-01-03"));
+
+            assertSql("select * from x", expected);
+            assertSql("select min(ts), count() from x", "min\tcount\n1970-01-03T00:00:00.000000Z\t72\n");
+        });
+    }
+
+    @Test
+    public void testRemoveExpiredPartitionsKeepsActivePartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(" with ttl = 1h");
+            currentMicros = 1000 * Timestamps.DAY_MICROS;
+            try (PartitionRetentionJob job = new PartitionRetentionJob(engine)) {
+                Assert.assertTrue(job.run(0));
+            }
+            assertSql("select min(ts), count() from x", "min\tcount\n1970-01-05T00:00:00.000000Z\t24\n");
+
+            // rows are still appended to the active partition
+            executeInsert("insert into x (l, ts) values (121, '1970-01-05T23:59:00.000000Z')");
+            assertSql("select count() from x", "count\n25\n");
+        });
+    }
+
+    @Test
+    public void testRemoveExpiredPartitionsSkipsBusyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createX(" with ttl = 1d");
+            currentMicros = 10 * Timestamps.DAY_MICROS;
+            try (TableWriter ignored = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                try (PartitionRetentionJob job = new PartitionRetentionJob(engine)) {
+                    Assert.assertFalse(job.run(0));
+                }
+            }
+            assertSql("select count() from x", "count\n120\n");
+
+            try (PartitionRetentionJob job = new PartitionRetentionJob(engine)) {
+                Assert.assertTrue(job.run(0));
+            }
+            assertSql("select count() from x", "count\n24\n");
+        });
+    }
+
+    @Test
+    public void testRemoveExpiredPartitionsWithoutTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("");
+            currentMicros = 1000 * Timestamps.DAY_MICROS;
+            try (PartitionRetentionJob job = new PartitionRetentionJob(engine)) {
+                Assert.assertFalse(job.run(0));
+            }
+            assertSql("select count() from x", "count\n120\n");
+        });
+    }
+
+    private static void assertTtl(long expected) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            Assert.assertEquals(expected, reader.getMetadata().getTtl());
+        }
+    }
+
+    private static int countPartitionDirs(String partitionName) throws IOException {
+        try (Stream<java.nio.file.Path> files = Files.list(Paths.get(root.toString(), "x"))) {
+            return (int) files.filter(p -> Files.isDirectory(p) && p.getFileName().toString().startsWith(partitionName)).count();
+        }
+    }
+
+    private void createX(String withClause) throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " x l," +
+                        " rnd_symbol('a', 'b', 'c') s," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(120)" +
+                        ") timestamp(ts) partition by DAY" + withClause,
+                sqlExecutionContext
+        );
+    }
+
+    private String select(CharSequence sql) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, sql, sink);
+        return sink.toString();
+    }
+}
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class StreamingAnalyticRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table tab as (" +
+            "select x, x % 2 k, cast(x as double) v, timestamp_sequence(0, 1000000) ts from long_sequence(6)" +
+            ") timestamp(ts)";
+
+    @Test
+    public void testAvgRowsBetweenPreceding() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\tNaN\n" +
+                        "2\t1.0\n" +
+                        "3\t1.5\n" +
+                        "4\t2.5\n" +
+                        "5\t3.5\n" +
+                        "6\t4.5\n",
+                "select x, avg(v) over (order by ts rows between 2 preceding and 1 preceding) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFirstValueCumulative() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t1.0\n" +
+                        "2\t2.0\n" +
+                        "3\t1.0\n" +
+                        "4\t2.0\n" +
+                        "5\t1.0\n" +
+                        "6\t2.0\n",
+                "select x, first_value(v) over (partition by k order by ts) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testLag() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\tNaN\n" +
+                        "2\t1.0\n" +
+                        "3\t2.0\n" +
+                        "4\t3.0\n" +
+                        "5\t4.0\n" +
+                        "6\t5.0\n",
+                "select x, lag(v) over (order by ts) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testLagOffsetPartitioned() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\tNaN\n" +
+                        "2\tNaN\n" +
+                        "3\tNaN\n" +
+                        "4\tNaN\n" +
+                        "5\t1.0\n" +
+                        "6\t2.0\n",
+                "select x, lag(v, 2) over (partition by k order by ts) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testLastValueRowsBetweenPreceding() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\tNaN\n" +
+                        "2\tNaN\n" +
+                        "3\t1.0\n" +
+                        "4\t2.0\n" +
+                        "5\t3.0\n" +
+                        "6\t4.0\n",
+                "select x, last_value(v) over (order by ts rows between 3 preceding and 2 preceding) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testLeadIsCached() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t2.0\n" +
+                        "2\t3.0\n" +
+                        "3\t4.0\n" +
+                        "4\t5.0\n" +
+                        "5\t6.0\n" +
+                        "6\tNaN\n",
+                "select x, lead(v) over (order by ts) r from tab",
+                DDL,
+                null,
+                true
+        );
+    }
+
+    @Test
+    public void testLeadOffsetPartitioned() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t5.0\n" +
+                        "2\t6.0\n" +
+                        "3\tNaN\n" +
+                        "4\tNaN\n" +
+                        "5\tNaN\n" +
+                        "6\tNaN\n",
+                "select x, lead(v, 2) over (partition by k order by ts) r from tab",
+                DDL,
+                null,
+                true
+        );
+    }
+
+    @Test
+    public void testMaxRangeBetweenPreceding() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\tNaN\n" +
+                        "2\t1.0\n" +
+                        "3\t2.0\n" +
+                        "4\t3.0\n" +
+                        "5\t4.0\n" +
+                        "6\t5.0\n",
+                "select x, max(v) over (order by ts range between 2 second preceding and 1 second preceding) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testMinRange() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t1.0\n" +
+                        "2\t1.0\n" +
+                        "3\t1.0\n" +
+                        "4\t2.0\n" +
+                        "5\t3.0\n" +
+                        "6\t4.0\n",
+                "select x, min(v) over (order by ts range between 2 second preceding and current row) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testNegativeLagOffset() throws Exception {
+        assertFailure(
+                "select x, lag(v, -1) over (order by ts) from tab",
+                DDL,
+                17,
+                "offset must be non-negative"
+        );
+    }
+
+    @Test
+    public void testRangeOffsetRequiresTimestampOrder() throws Exception {
+        assertFailure(
+                "select x, sum(v) over (order by v range between 1 preceding and current row) from tab",
+                DDL,
+                10,
+                "RANGE frame with offset requires ORDER BY column of LONG or TIMESTAMP type"
+        );
+    }
+
+    @Test
+    public void testRowNumberStreamed() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t0\n" +
+                        "2\t0\n" +
+                        "3\t1\n" +
+                        "4\t1\n" +
+                        "5\t2\n" +
+                        "6\t2\n",
+                "select x, row_number() over (partition by k order by ts) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testStreamingMatchesCached() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table big as (" +
+                            "select rnd_symbol('a','b','c') s, rnd_double(2) v, timestamp_sequence(0, 1000000) ts from long_sequence(1000)" +
+                            ") timestamp(ts)",
+                    sqlExecutionContext
+            );
+            // ordering by "ts" streams, ordering by "x" has the same order but goes through the record chain
+            final String[] frames = {
+                    "partition by s order by #",
+                    "order by # rows between 10 preceding and current row",
+                    "partition by s order by # rows between 5 preceding and 2 preceding",
+                    "order by # rows between unbounded preceding and 3 preceding"
+            };
+            final String[] functions = {"sum(v)", "avg(v)", "min(v)", "max(v)", "first_value(v)", "last_value(v)"};
+            for (String frame : frames) {
+                for (String function : functions) {
+                    final String query = "select s, v, " + function + " over (" + frame + ") r from (select s, v, ts, cast(ts as long) x from big timestamp(ts))";
+                    TestUtils.assertSqlCursors(
+                            compiler,
+                            sqlExecutionContext,
+                            query.replace("#", "x"),
+                            query.replace("#", "ts"),
+                            LOG
+                    );
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSumRowsPartitioned() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t1.0\n" +
+                        "2\t2.0\n" +
+                        "3\t4.0\n" +
+                        "4\t6.0\n" +
+                        "5\t8.0\n" +
+                        "6\t10.0\n",
+                "select x, sum(v) over (partition by k order by ts rows between 1 preceding and current row) r from tab",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSumWholePartitionIsCached() throws Exception {
+        assertQuery(
+                "x\tr\n" +
+                        "1\t9.0\n" +
+                        "2\t12.0\n" +
+                        "3\t9.0\n" +
+                        "4\t12.0\n" +
+                        "5\t9.0\n" +
+                        "6\t12.0\n",
+                "select x, sum(v) over (partition by k) r from tab",
+                DDL,
+                null,
+                true
+        );
+    }
+}
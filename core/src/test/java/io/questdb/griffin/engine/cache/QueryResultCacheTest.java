@@ -0,0 +1,173 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultCacheTest extends AbstractGriffinTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        resultCacheEnabled = true;
+        super.setUp();
+    }
+
+    @Test
+    public void testBindVariablesArePartOfKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final QueryResultCacheMetrics metrics = engine.getMetrics().queryResultCache();
+            final long hits = metrics.hits();
+            final long misses = metrics.misses();
+
+            bindVariableService.setLong(0, 3);
+            assertSql("select k, v from x where v < $1", "k\tv\nA\t1\nB\t2\n");
+            bindVariableService.setLong(0, 2);
+            assertSql("select k, v from x where v < $1", "k\tv\nA\t1\n");
+            bindVariableService.setLong(0, 3);
+            assertSql("select k, v from x where v < $1", "k\tv\nA\t1\nB\t2\n");
+
+            Assert.assertEquals(1, metrics.hits() - hits);
+            Assert.assertEquals(2, metrics.misses() - misses);
+        });
+    }
+
+    @Test
+    public void testCommitInvalidatesResult() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final QueryResultCacheMetrics metrics = engine.getMetrics().queryResultCache();
+            final long evictions = metrics.evictions();
+
+            assertSql("select count() from x", "count\n3\n");
+            executeInsert("insert into x values ('D', 4, '1970-01-01T00:00:00.000004Z')");
+            assertSql("select count() from x", "count\n4\n");
+
+            Assert.assertEquals(1, metrics.evictions() - evictions);
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+        });
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        resultCacheMaxEntrySize = 64 * 1024;
+        resultCacheSize = 100 * 1024;
+        assertMemoryLeak(() -> {
+            createX();
+            final QueryResultCacheMetrics metrics = engine.getMetrics().queryResultCache();
+            final long hits = metrics.hits();
+            final long evictions = metrics.evictions();
+
+            assertSql("select k from x", "k\nA\nB\nC\n");
+            assertSql("select v from x", "v\n1\n2\n3\n");
+            assertSql("select k from x", "k\nA\nB\nC\n");
+
+            Assert.assertEquals(0, metrics.hits() - hits);
+            Assert.assertEquals(2, metrics.evictions() - evictions);
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+        });
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final QueryResultCacheMetrics metrics = engine.getMetrics().queryResultCache();
+            final long hits = metrics.hits();
+            final long misses = metrics.misses();
+
+            final String expected = "k\tv\tts\n" +
+                    "A\t1\t1970-01-01T00:00:00.000001Z\n" +
+                    "B\t2\t1970-01-01T00:00:00.000002Z\n" +
+                    "C\t3\t1970-01-01T00:00:00.000003Z\n";
+            assertSql("x", expected);
+            assertSql("x", expected);
+            assertSql("x", expected);
+
+            Assert.assertEquals(2, metrics.hits() - hits);
+            Assert.assertEquals(1, metrics.misses() - misses);
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+            Assert.assertTrue(engine.getQueryResultCache().getMemoryUsed() > 0);
+        });
+    }
+
+    @Test
+    public void testResultTooLargeIsNotCached() throws Exception {
+        resultCacheMaxEntrySize = 1024;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y as (select x from long_sequence(1000))", sqlExecutionContext);
+            assertSql("select sum(x), count() from (select * from y order by x desc)", "sum\tcount\n500500\t1000\n");
+            assertSql("select count() from y where x > 10", "count\n990\n");
+            assertSql("select x from y limit 997, 1000", "x\n998\n999\n1000\n");
+            Assert.assertEquals(3, engine.getQueryResultCache().size());
+
+            try (RecordCursorFactory factory = compiler.compile("y", sqlExecutionContext).getRecordCursorFactory()) {
+                for (int i = 0; i < 2; i++) {
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        long count = 0;
+                        while (cursor.hasNext()) {
+                            count++;
+                        }
+                        Assert.assertEquals(1000, count);
+                    }
+                }
+            }
+            Assert.assertEquals(3, engine.getQueryResultCache().size());
+        });
+    }
+
+    @Test
+    public void testVolatileFunctionsAreNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final QueryResultCacheMetrics metrics = engine.getMetrics().queryResultCache();
+            final long hits = metrics.hits();
+            final long misses = metrics.misses();
+
+            assertSql("select count() from x where ts < now()", "count\n3\n");
+            assertSql("select count() from x where ts < now()", "count\n3\n");
+            assertSql("select count() from x where rnd_int(1, 2, 0) > 0", "count\n3\n");
+            assertSql("select count() from long_sequence(3)", "count\n3\n");
+
+            Assert.assertEquals(0, metrics.hits() - hits);
+            Assert.assertEquals(0, metrics.misses() - misses);
+            Assert.assertEquals(0, engine.getQueryResultCache().size());
+        });
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile("create table x (k symbol, v long, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+        executeInsert("insert into x values ('A', 1, '1970-01-01T00:00:00.000001Z')");
+        executeInsert("insert into x values ('B', 2, '1970-01-01T00:00:00.000002Z')");
+        executeInsert("insert into x values ('C', 3, '1970-01-01T00:00:00.000003Z')");
+    }
+}
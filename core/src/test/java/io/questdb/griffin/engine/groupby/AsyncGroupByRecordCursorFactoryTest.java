@@ -0,0 +1,188 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.*;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncGroupByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        pageFrameReduceShardCount = 1;
+        pageFrameReduceQueueCapacity = 4;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testKeyed() throws Exception {
+        assertParallelGroupBy(
+                "select s, count(), sum(l), min(d), max(d), first(i), last(i), count_distinct(k) from x",
+                "s",
+                AsyncGroupByRecordCursorFactory.class
+        );
+    }
+
+    @Test
+    public void testKeyedMultipleKeys() throws Exception {
+        assertParallelGroupBy(
+                "select s, k, min(t), max(t), first(t), last(t), sum(i), count() from x",
+                "s, k",
+                AsyncGroupByRecordCursorFactory.class
+        );
+    }
+
+    @Test
+    public void testKeyedSymbolValues() throws Exception {
+        assertParallelGroupBy(
+                "select k, first(s), last(s), count_distinct(s), min(i), max(l) from x",
+                "k",
+                AsyncGroupByRecordCursorFactory.class
+        );
+    }
+
+    @Test
+    public void testNotKeyed() throws Exception {
+        assertParallelGroupBy(
+                "select count(), sum(l), min(d), max(d), first(i), last(i), count_distinct(k), count_distinct(s) from x",
+                null,
+                AsyncGroupByNotKeyedRecordCursorFactory.class
+        );
+    }
+
+    @Test
+    public void testNotKeyedEmptyTable() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            compiler.compile("create table y (i int, t timestamp) timestamp(t) partition by day", sqlExecutionContext);
+            final String sql = "select count(), sum(i), first(i), last(i) from y";
+            try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncGroupByNotKeyedRecordCursorFactory.class, factory.getClass());
+            }
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    sql,
+                    sink,
+                    "count\tsum\tfirst\tlast\n" +
+                            "0\tNaN\tNaN\tNaN\n"
+            );
+        });
+    }
+
+    @Test
+    public void testParallelGroupByDisabled() throws Exception {
+        AbstractCairoTest.enableParallelGroupBy = false;
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select s, first(i) from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory.class, factory.getClass());
+            }
+        });
+    }
+
+    @Test
+    public void testUnsupportedFunctionFallsBack() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select string_agg(s, ',') from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(GroupByNotKeyedRecordCursorFactory.class, factory.getClass());
+            }
+        });
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(20, 4, 4, 0) k," +
+                        " rnd_int() i," +
+                        " rnd_long(0, 1000, 1) l," +
+                        " rnd_double(2) d," +
+                        " timestamp_sequence(0, 10000000) t" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(t) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelGroupBy(String query, String orderBy, Class<?> expectedFactoryClass) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(expectedFactoryClass, factory.getClass());
+            }
+
+            // parallel execution doesn't preserve key order, so we compare sorted results
+            final String sql = orderBy != null ? "select * from (" + query + ") order by " + orderBy : query;
+
+            AbstractCairoTest.enableParallelGroupBy = false;
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, sql, expected);
+
+            AbstractCairoTest.enableParallelGroupBy = true;
+            // run query a few times to make sure that partial state is reset between executions
+            for (int i = 0; i < 3; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+            }
+        });
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+
+            try {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
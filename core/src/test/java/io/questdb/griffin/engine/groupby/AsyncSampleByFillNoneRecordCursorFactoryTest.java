@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.*;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncSampleByFillNoneRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        pageFrameReduceShardCount = 1;
+        pageFrameReduceQueueCapacity = 4;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testAlignToCalendar() throws Exception {
+        assertParallelSampleBy("select t, s, count(), sum(l), first(i), last(i) from x sample by 25m align to calendar");
+    }
+
+    @Test
+    public void testAlignToCalendarWithOffset() throws Exception {
+        assertParallelSampleBy("select t, s, count(), min(d), max(d) from x sample by 1h align to calendar with offset '00:40'");
+    }
+
+    @Test
+    public void testCalendarSamplerFallsBack() throws Exception {
+        assertSequentialSampleBy("select s, count() from x sample by 1M", SampleByFillNoneRecordCursorFactory.class);
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            compiler.compile("create table y (s symbol, i int, t timestamp) timestamp(t) partition by day", sqlExecutionContext);
+            final String sql = "select t, s, sum(i) from y sample by 1h";
+            try (RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncSampleByFillNoneRecordCursorFactory.class, factory.getClass());
+            }
+            TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, "t\ts\tsum\n");
+        });
+    }
+
+    @Test
+    public void testFillNullFallsBack() throws Exception {
+        assertSequentialSampleBy("select s, sum(i) from x sample by 1h fill(null)", SampleByFillNullRecordCursorFactory.class);
+    }
+
+    @Test
+    public void testKeyed() throws Exception {
+        assertParallelSampleBy("select t, s, count(), sum(l), min(d), max(d), first(i), last(i), count_distinct(k) from x sample by 15m");
+    }
+
+    @Test
+    public void testKeyedMultipleKeys() throws Exception {
+        assertParallelSampleBy("select s, k, first(t), last(t), sum(i), count() from x sample by 2h");
+    }
+
+    @Test
+    public void testKeyedSymbolValues() throws Exception {
+        assertParallelSampleBy("select k, first(s), last(s), min(i), max(l) from x sample by 10m");
+    }
+
+    @Test
+    public void testNotKeyed() throws Exception {
+        assertParallelSampleBy("select t, count(), sum(l), min(d), max(d), first(i), last(i) from x sample by 7m");
+    }
+
+    @Test
+    public void testTimeZoneFallsBack() throws Exception {
+        assertSequentialSampleBy(
+                "select s, count() from x sample by 1h align to calendar time zone 'Europe/London'",
+                SampleByFillNoneRecordCursorFactory.class
+        );
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(20, 4, 4, 0) k," +
+                        " rnd_int() i," +
+                        " rnd_long(0, 1000, 1) l," +
+                        " rnd_double(2) d," +
+                        " timestamp_sequence(0, 10000000) t" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(t) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelSampleBy(String query) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncSampleByFillNoneRecordCursorFactory.class, factory.getClass());
+            }
+
+            AbstractCairoTest.enableParallelGroupBy = false;
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            AbstractCairoTest.enableParallelGroupBy = true;
+            // parallel sample by emits rows in the same order as the sequential one,
+            // the query runs a few times to make sure that partial state is reset between executions
+            for (int i = 0; i < 3; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, query, sink, expected);
+            }
+        });
+    }
+
+    private void assertSequentialSampleBy(String query, Class<?> expectedFactoryClass) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(expectedFactoryClass, factory.getClass());
+            }
+        });
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+
+            try {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.*;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncHashJoinRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        pageFrameReduceShardCount = 1;
+        pageFrameReduceQueueCapacity = 4;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testAggregateOverJoin() throws Exception {
+        assertParallelHashJoin("select count(), sum(x.l), sum(y.v) from x join y on k");
+    }
+
+    @Test
+    public void testCrossJoinRewindsHashJoin() throws Exception {
+        assertParallelHashJoin("select count(), sum(l) from long_sequence(3) cross join (select l from x join y on k)");
+    }
+
+    @Test
+    public void testFilteredSlave() throws Exception {
+        assertParallelHashJoin("select x.t, x.k, y.v from x join (select * from y where v > 500) y on k");
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        assertParallelHashJoin("select x.t, x.i, y.v from x join y on k limit 15");
+    }
+
+    @Test
+    public void testMultipleSlaveRowsPerKey() throws Exception {
+        assertParallelHashJoin("select x.t, x.s, y.v from x join y on s limit 1000");
+    }
+
+    @Test
+    public void testNoMatches() throws Exception {
+        assertParallelHashJoin("select x.t, y.v from x join (select * from y where v < 0) y on k");
+    }
+
+    @Test
+    public void testSlaveWithoutRandomAccess() throws Exception {
+        assertParallelHashJoin(
+                "select x.t, x.k, z.v from x join (" +
+                        "select k, v from y where v < 200 union all select k, v from y where v > 800" +
+                        ") z on k"
+        );
+    }
+
+    @Test
+    public void testSymbolKeys() throws Exception {
+        assertParallelHashJoin("select x.t, x.k, x.s, y.v from x join y on (k, s)");
+    }
+
+    private static void createTables(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(20, 4, 4, 0) k," +
+                        " rnd_int() i," +
+                        " rnd_long(0, 1000, 1) l," +
+                        " timestamp_sequence(0, 10000000) t" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(t) partition by hour",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(20, 4, 4, 0) k," +
+                        " rnd_long(0, 1000, 0) v" +
+                        " from long_sequence(50)" +
+                        ")",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelHashJoin(String query) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+
+            AbstractCairoTest.enableParallelHashJoin = false;
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            AbstractCairoTest.enableParallelHashJoin = true;
+            // parallel probe keeps master row order, so the results are compared as is;
+            // the query runs a few times to make sure that the frame sequence is reset between executions
+            for (int i = 0; i < 3; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, query, sink, expected);
+            }
+        });
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+
+            try {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
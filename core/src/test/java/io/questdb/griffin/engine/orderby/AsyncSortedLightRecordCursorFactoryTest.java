@@ -0,0 +1,212 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.*;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+public class AsyncSortedLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        pageFrameReduceShardCount = 1;
+        pageFrameReduceQueueCapacity = 4;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testDescending() throws Exception {
+        assertParallelSort("select k, i, t from x order by k desc");
+    }
+
+    @Test
+    public void testDuplicateKeys() throws Exception {
+        assertParallelSort("select k, s, t from x order by k");
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertParallelSort("select k, l, t from x where l > 500 order by k");
+    }
+
+    @Test
+    public void testFilterLimit() throws Exception {
+        assertParallelSort("select k, l, t from x where l > 500 order by k desc limit 25");
+    }
+
+    @Test
+    public void testIntKeys() throws Exception {
+        assertParallelSort("select i, t from x order by i");
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        assertParallelSort("select k, i, t from x order by k limit 100");
+    }
+
+    @Test
+    public void testLimitBottomRange() throws Exception {
+        assertParallelSort("select k, i, t from x order by k limit -300, -100");
+    }
+
+    @Test
+    public void testLimitEmpty() throws Exception {
+        assertParallelSort("select k, i, t from x order by k limit 5, 3");
+    }
+
+    @Test
+    public void testLimitExceedsRowCount() throws Exception {
+        assertParallelSort("select l, t from x order by l limit 50000");
+    }
+
+    @Test
+    public void testLimitLastRows() throws Exception {
+        assertParallelSort("select k, i, t from x order by k desc limit -250");
+    }
+
+    @Test
+    public void testLimitRange() throws Exception {
+        assertParallelSort("select k, i, t from x order by k limit 1990, 2010");
+    }
+
+    @Test
+    public void testNullKeys() throws Exception {
+        assertParallelSort("select l, t from x order by l");
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        assertParallelSort("select y.s, z.l, z.t from y join (select s, l, t from x order by l desc) z on s");
+    }
+
+    @Test
+    public void testRewind() throws Exception {
+        assertParallelSort("select count(), sum(l) from long_sequence(3) cross join (select l from x order by b)");
+    }
+
+    @Test
+    public void testShortKeys() throws Exception {
+        assertParallelSort("select b, t from x order by b desc");
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        spillThreshold = 1;
+        assertParallelSort("select k, l, t from x order by k");
+        final String[] spillDirs = new File(configuration.getSqlSpillRoot().toString()).list();
+        Assert.assertTrue(spillDirs == null || spillDirs.length == 0);
+    }
+
+    @Test
+    public void testSpillLimit() throws Exception {
+        spillThreshold = 1;
+        assertParallelSort("select k, l, t from x order by k limit 1000");
+        final String[] spillDirs = new File(configuration.getSqlSpillRoot().toString()).list();
+        Assert.assertTrue(spillDirs == null || spillDirs.length == 0);
+    }
+
+    @Test
+    public void testTimestampDescending() throws Exception {
+        assertParallelSort("select t, k from x order by t desc");
+    }
+
+    private static void createTables(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " x % 37 k," +
+                        " rnd_short() b," +
+                        " rnd_int() i," +
+                        " rnd_long(0, 1000, 1) l," +
+                        " timestamp_sequence(0, 10000000) t" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(t) partition by hour",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s" +
+                        " from long_sequence(5)" +
+                        ")",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelSort(String query) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+
+            AbstractCairoTest.enableParallelSort = false;
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            AbstractCairoTest.enableParallelSort = true;
+            // rows with equal keys come out in the same order as from the tree chain, so the results
+            // are compared as is; the query runs a few times to make sure that the runs are reset between executions
+            for (int i = 0; i < 3; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, query, sink, expected);
+            }
+        });
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+
+            try {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
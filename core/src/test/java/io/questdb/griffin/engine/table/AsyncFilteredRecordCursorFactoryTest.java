@@ -680,9 +680,23 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
                 @Nullable RecordSink partitionBySink,
                 @Nullable ColumnTypes keyTypes,
                 boolean isOrdered,
-                boolean baseSupportsRandomAccess
+                boolean baseSupportsRandomAccess,
+                int framingMode,
+                long frameLo,
+                long frameHi,
+                int rangeColumnIndex
         ) {
-            sqlExecutionContext.configureAnalyticContext(partitionByRecord, partitionBySink, keyTypes, isOrdered, baseSupportsRandomAccess);
+            sqlExecutionContext.configureAnalyticContext(
+                    partitionByRecord,
+                    partitionBySink,
+                    keyTypes,
+                    isOrdered,
+                    baseSupportsRandomAccess,
+                    framingMode,
+                    frameLo,
+                    frameHi,
+                    rangeColumnIndex
+            );
         }
 
         @Override
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.*;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncLatestByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        pageFrameReduceShardCount = 1;
+        pageFrameReduceQueueCapacity = 4;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertParallelLatestBy("select * from x where l > 500 latest on t partition by k");
+    }
+
+    @Test
+    public void testFilterSymbol() throws Exception {
+        assertParallelLatestBy("select * from x where i > 0 latest on t partition by s, n");
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        assertParallelLatestBy("select * from x where t in '1970-01-02T01' latest on t partition by k, s");
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        assertParallelLatestBy("select * from x latest on t partition by k");
+    }
+
+    @Test
+    public void testMultiColumnKey() throws Exception {
+        assertParallelLatestBy("select * from x latest on t partition by s, b");
+    }
+
+    @Test
+    public void testNoRowsMatch() throws Exception {
+        assertParallelLatestBy("select * from x where l > 1000 latest on t partition by s, k");
+    }
+
+    @Test
+    public void testNullSymbols() throws Exception {
+        assertParallelLatestBy("select * from x latest on t partition by n, s");
+    }
+
+    @Test
+    public void testRewind() throws Exception {
+        assertParallelLatestBy("select count(), sum(l) from long_sequence(3) cross join (select * from x latest on t partition by k)");
+    }
+
+    @Test
+    public void testSymbol() throws Exception {
+        assertParallelLatestBy("select s, n, t from x latest on t partition by s, n");
+    }
+
+    @Test
+    public void testUniqueKeys() throws Exception {
+        assertParallelLatestBy("select count(), sum(l) from (select * from x latest on t partition by i)");
+    }
+
+    private static void createTables(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C','D') s," +
+                        " rnd_symbol(20, 4, 4, 2) n," +
+                        " x % 37 k," +
+                        " rnd_short(1, 3) b," +
+                        " rnd_int() i," +
+                        " rnd_long(0, 1000, 1) l," +
+                        " timestamp_sequence(0, 10000000) t" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(t) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelLatestBy(String query) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+
+            AbstractCairoTest.enableParallelLatestBy = false;
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            AbstractCairoTest.enableParallelLatestBy = true;
+            if (query.startsWith("select *")) {
+                try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof AsyncLatestByRecordCursorFactory);
+                }
+            }
+            // the query runs a few times to make sure that the slot maps are reset between executions
+            for (int i = 0; i < 3; i++) {
+                TestUtils.assertSql(compiler, sqlExecutionContext, query, sink, expected);
+            }
+        });
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+
+            try {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
@@ -476,6 +476,52 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         Assert.assertEquals(ColumnType.INT, bindVarFunctions.get(1).getType());
     }
 
+    @Test
+    public void testSymbolInList() throws Exception {
+        serialize("asymbol in ('" + KNOWN_SYMBOL_1 + "', '" + UNKNOWN_SYMBOL + "')");
+        assertIR("(i32 :0)(i32 asymbol)(=)(i32 0L)(i32 asymbol)(=)(||)(ret)");
+
+        Assert.assertEquals(1, bindVarFunctions.size());
+        Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
+    }
+
+    @Test
+    public void testCharNotInList() throws Exception {
+        serialize("not (achar in ('a', 'b')) and anint = 0");
+        assertIR("(i32 0L)(i32 anint)(=)(i16 98L)(i16 achar)(=)(i16 97L)(i16 achar)(=)(||)(!)(&&)(ret)");
+    }
+
+    @Test
+    public void testTimestampInList() throws Exception {
+        serialize("atimestamp in (1, -2, null)");
+        assertIR("(i64 " + Numbers.LONG_NaN + "L)(i64 atimestamp)(=)(i64 -2L)(i64 atimestamp)(=)(||)(i64 1L)(i64 atimestamp)(=)(||)(ret)");
+    }
+
+    @Test
+    public void testTimestampBetween() throws Exception {
+        serialize("atimestamp between 100 and 50");
+        assertIR("(i64 100L)(i64 atimestamp)(<=)(i64 50L)(i64 atimestamp)(>=)(&&)(ret)");
+    }
+
+    @Test
+    public void testTimestampBetweenDates() throws Exception {
+        serialize("atimestamp between '1970-01-01' and '1970-01-02'");
+        assertIR("(i64 86400000000L)(i64 atimestamp)(<=)(i64 0L)(i64 atimestamp)(>=)(&&)(ret)");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedTimestampInInterval() throws Exception {
+        serialize("atimestamp in '1970-01'");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedBetweenBindVariables() throws Exception {
+        bindVariableService.clear();
+        bindVariableService.setTimestamp(0, 0);
+        bindVariableService.setTimestamp(1, 1);
+        serialize("atimestamp between $1 and $2");
+    }
+
     @Test(expected = SqlException.class)
     public void testUnsupportedSingleConstantPredicate() throws Exception {
         serialize("true");
@@ -27,8 +27,11 @@ package io.questdb.metrics;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.StringSink;
 import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.CyclicBarrier;
+
 public class MetricsRegistryTest {
 
     @Test
@@ -130,6 +133,89 @@ public class MetricsRegistryTest {
         assetNull(gauge);
     }
 
+    @Test
+    public void testHistogram() {
+        MetricsRegistry metricsRegistry = new MetricsRegistryImpl();
+        Histogram histogram = metricsRegistry.newHistogram("latency");
+
+        histogram.record(7_000); // 7µs
+        histogram.record(10_000); // bounds are inclusive
+        histogram.record(1_200_000); // 1.2ms
+        histogram.record(2_500_000_000L); // 2.5s
+        histogram.record(500_000_000_000L); // 500s
+
+        Assert.assertEquals(5, histogram.getCount());
+        Assert.assertEquals(502_501_217_000L, histogram.getSum());
+
+        String expected = "# TYPE questdb_latency_seconds histogram\n" +
+                "questdb_latency_seconds_bucket{le=\"0.00001\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.000025\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.00005\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.0001\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.00025\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.0005\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.001\"} 2\n" +
+                "questdb_latency_seconds_bucket{le=\"0.0025\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.005\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.01\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.025\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.05\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.1\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.25\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"0.5\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"1\"} 3\n" +
+                "questdb_latency_seconds_bucket{le=\"2.5\"} 4\n" +
+                "questdb_latency_seconds_bucket{le=\"5\"} 4\n" +
+                "questdb_latency_seconds_bucket{le=\"10\"} 4\n" +
+                "questdb_latency_seconds_bucket{le=\"25\"} 4\n" +
+                "questdb_latency_seconds_bucket{le=\"50\"} 4\n" +
+                "questdb_latency_seconds_bucket{le=\"100\"} 4\n" +
+                "questdb_latency_seconds_bucket{le=\"+Inf\"} 5\n" +
+                "questdb_latency_seconds_sum 502.501217\n" +
+                "questdb_latency_seconds_count 5\n" +
+                "\n";
+        assertScrapable(histogram, expected);
+    }
+
+    @Test
+    public void testHistogramConcurrentRecord() throws Exception {
+        MetricsRegistry metricsRegistry = new MetricsRegistryImpl();
+        Histogram histogram = metricsRegistry.newHistogram("latency");
+
+        final int threadCount = 4;
+        final int iterations = 10_000;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int j = 0; j < iterations; j++) {
+                        histogram.record(j * 1_000L);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        Assert.assertEquals(threadCount * iterations, histogram.getCount());
+        Assert.assertEquals(threadCount * 1_000L * iterations * (iterations - 1) / 2, histogram.getSum());
+    }
+
+    @Test
+    public void testNullHistogram() {
+        MetricsRegistry metricsRegistry = new NullMetricsRegistry();
+        Histogram histogram = metricsRegistry.newHistogram("latency");
+
+        histogram.record(1_000);
+        assetNull(histogram);
+    }
+
     private static void assertScrapable(Scrapable scrapable, CharSequence expected) {
         CharSink sink = new StringSink();
         scrapable.scrapeIntoPrometheus(sink);